@@ -12,6 +12,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
 import org.springframework.context.annotation.PropertySource;
 import org.springframework.context.annotation.PropertySources;
 import org.springframework.jms.core.JmsTemplate;
@@ -20,6 +21,8 @@ import org.springframework.jms.listener.DefaultMessageListenerContainer;
 import com.alliander.osgp.adapter.domain.admin.infra.jms.OsgpCoreRequestMessageListener;
 import com.alliander.osgp.adapter.domain.admin.infra.jms.core.OsgpCoreResponseMessageListener;
 import com.alliander.osgp.adapter.domain.admin.infra.jms.ws.WebServiceRequestMessageListener;
+import com.alliander.osgp.domain.core.jms.metrics.MessageMetrics;
+import com.alliander.osgp.domain.core.jms.metrics.MessageMetricsConfig;
 import com.alliander.osgp.shared.application.config.AbstractMessagingConfig;
 import com.alliander.osgp.shared.application.config.jms.JmsConfiguration;
 import com.alliander.osgp.shared.application.config.jms.JmsConfigurationFactory;
@@ -30,11 +33,15 @@ import com.alliander.osgp.shared.application.config.jms.JmsPropertyNames;
  * An application context Java configuration class.
  */
 @Configuration
+@Import(MessageMetricsConfig.class)
 @PropertySources({ @PropertySource("classpath:osgp-adapter-domain-admin.properties"),
     @PropertySource(value = "file:${osgp/Global/config}", ignoreResourceNotFound = true),
     @PropertySource(value = "file:${osgp/AdapterDomainAdmin/config}", ignoreResourceNotFound = true), })
 public class MessagingConfig extends AbstractMessagingConfig {
 
+    @Autowired
+    private MessageMetrics messageMetrics;
+
     @Autowired
     @Qualifier("domainAdminIncomingWebServiceRequestMessageListener")
     private WebServiceRequestMessageListener incomingWebServiceRequestMessageListener;
@@ -71,7 +78,8 @@ public class MessagingConfig extends AbstractMessagingConfig {
     public JmsConfiguration incomingWebServiceRequestsJmsConfiguration(
             final JmsConfigurationFactory jmsConfigurationFactory) {
         return jmsConfigurationFactory.initializeReceiveConfiguration(JmsConfigurationNames.JMS_INCOMING_WS_REQUESTS,
-                this.incomingWebServiceRequestMessageListener);
+                this.messageMetrics.metered(JmsConfigurationNames.JMS_INCOMING_WS_REQUESTS,
+                        this.incomingWebServiceRequestMessageListener));
     }
 
     @Bean(name = "domainAdminIncomingWebServiceRequestsMessageListenerContainer")
@@ -115,7 +123,9 @@ public class MessagingConfig extends AbstractMessagingConfig {
     public JmsConfiguration incomingOsgpCoreResponsesJmsConfiguration(
             final JmsConfigurationFactory jmsConfigurationFactory) {
         return jmsConfigurationFactory.initializeReceiveConfiguration(
-                JmsConfigurationNames.JMS_INCOMING_OSGP_CORE_RESPONSES, this.incomingOsgpCoreResponseMessageListener);
+                JmsConfigurationNames.JMS_INCOMING_OSGP_CORE_RESPONSES,
+                this.messageMetrics.metered(JmsConfigurationNames.JMS_INCOMING_OSGP_CORE_RESPONSES,
+                        this.incomingOsgpCoreResponseMessageListener));
     }
 
     @Bean(name = "domainAdminIncomingOsgpCoreResponsesMessageListenerContainer")
@@ -131,7 +141,9 @@ public class MessagingConfig extends AbstractMessagingConfig {
     public JmsConfiguration incomingOsgpCoreRequestsJmsConfiguration(
             final JmsConfigurationFactory jmsConfigurationFactory) {
         return jmsConfigurationFactory.initializeReceiveConfiguration(
-                JmsConfigurationNames.JMS_INCOMING_OSGP_CORE_REQUESTS, this.incomingOsgpCoreRequestMessageListener);
+                JmsConfigurationNames.JMS_INCOMING_OSGP_CORE_REQUESTS,
+                this.messageMetrics.metered(JmsConfigurationNames.JMS_INCOMING_OSGP_CORE_REQUESTS,
+                        this.incomingOsgpCoreRequestMessageListener));
     }
 
     @Bean(name = "domainAdminIncomingOsgpCoreRequestsMessageListenerContainer")
@@ -12,6 +12,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
 import org.springframework.context.annotation.PropertySource;
 import org.springframework.context.annotation.PropertySources;
 import org.springframework.jms.core.JmsTemplate;
@@ -22,6 +23,8 @@ import com.alliander.osgp.adapter.domain.core.infra.jms.core.OsgpCoreResponseMes
 import com.alliander.osgp.adapter.domain.core.infra.jms.ws.WebServiceRequestMessageListener;
 import com.alliander.osgp.adapter.domain.core.infra.jms.ws.WebServiceRequestMessageSender;
 import com.alliander.osgp.adapter.domain.core.infra.jms.ws.WebServiceResponseMessageSender;
+import com.alliander.osgp.domain.core.jms.metrics.MessageMetrics;
+import com.alliander.osgp.domain.core.jms.metrics.MessageMetricsConfig;
 import com.alliander.osgp.shared.application.config.AbstractMessagingConfig;
 import com.alliander.osgp.shared.application.config.jms.JmsConfiguration;
 import com.alliander.osgp.shared.application.config.jms.JmsConfigurationFactory;
@@ -29,11 +32,15 @@ import com.alliander.osgp.shared.application.config.jms.JmsConfigurationNames;
 import com.alliander.osgp.shared.application.config.jms.JmsPropertyNames;
 
 @Configuration
+@Import(MessageMetricsConfig.class)
 @PropertySources({ @PropertySource("classpath:osgp-adapter-domain-core.properties"),
         @PropertySource(value = "file:${osgp/Global/config}", ignoreResourceNotFound = true),
         @PropertySource(value = "file:${osgp/AdapterDomainCore/config}", ignoreResourceNotFound = true), })
 public class MessagingConfig extends AbstractMessagingConfig {
 
+    @Autowired
+    private MessageMetrics messageMetrics;
+
     @Autowired
     @Qualifier("domainCoreIncomingWebServiceRequestsMessageListener")
     private WebServiceRequestMessageListener webServiceRequestMessageListener;
@@ -69,7 +76,8 @@ public class MessagingConfig extends AbstractMessagingConfig {
     @Bean
     public JmsConfiguration commonWsRequestsJmsConfiguration(final JmsConfigurationFactory jmsConfigurationFactory) {
         return jmsConfigurationFactory.initializeReceiveConfiguration(JmsConfigurationNames.JMS_COMMON_WS_REQUESTS,
-                this.webServiceRequestMessageListener);
+                this.messageMetrics.metered(JmsConfigurationNames.JMS_COMMON_WS_REQUESTS,
+                        this.webServiceRequestMessageListener));
     }
 
     @Bean(name = "domainCoreIncomingWebServiceRequestsMessageListenerContainer")
@@ -112,7 +120,8 @@ public class MessagingConfig extends AbstractMessagingConfig {
     @Bean
     public JmsConfiguration osgpCoreResponsesJmsConfiguration(final JmsConfigurationFactory jmsConfigurationFactory) {
         return jmsConfigurationFactory.initializeReceiveConfiguration(JmsConfigurationNames.JMS_OSGP_CORE_RESPONSES,
-                this.osgpCoreResponseMessageListener);
+                this.messageMetrics.metered(JmsConfigurationNames.JMS_OSGP_CORE_RESPONSES,
+                        this.osgpCoreResponseMessageListener));
     }
 
     @Bean(name = "domainCoreIncomingOsgpCoreResponsesMessageListenerContainer")
@@ -127,7 +136,9 @@ public class MessagingConfig extends AbstractMessagingConfig {
     public JmsConfiguration osgpCoreRequestsIncomingJmsConfiguration(
             final JmsConfigurationFactory jmsConfigurationFactory) {
         return jmsConfigurationFactory.initializeReceiveConfiguration(
-                JmsConfigurationNames.JMS_OSGP_CORE_REQUESTS_INCOMING, this.osgpCoreRequestMessageListener);
+                JmsConfigurationNames.JMS_OSGP_CORE_REQUESTS_INCOMING,
+                this.messageMetrics.metered(JmsConfigurationNames.JMS_OSGP_CORE_REQUESTS_INCOMING,
+                        this.osgpCoreRequestMessageListener));
     }
 
     @Bean(name = "domainCoreIncomingOsgpCoreRequestsMessageListenerContainer")
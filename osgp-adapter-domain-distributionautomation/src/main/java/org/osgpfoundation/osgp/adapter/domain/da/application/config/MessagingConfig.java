@@ -13,6 +13,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
 import org.springframework.context.annotation.PropertySource;
 import org.springframework.context.annotation.PropertySources;
 import org.springframework.jms.core.JmsTemplate;
@@ -20,6 +21,8 @@ import org.springframework.jms.listener.DefaultMessageListenerContainer;
 
 import org.osgpfoundation.osgp.adapter.domain.da.infra.jms.core.OsgpCoreResponseMessageListener;
 import org.osgpfoundation.osgp.adapter.domain.da.infra.jms.ws.WebServiceRequestMessageListener;
+import com.alliander.osgp.domain.core.jms.metrics.MessageMetrics;
+import com.alliander.osgp.domain.core.jms.metrics.MessageMetricsConfig;
 import com.alliander.osgp.shared.application.config.AbstractMessagingConfig;
 import com.alliander.osgp.shared.application.config.jms.JmsConfiguration;
 import com.alliander.osgp.shared.application.config.jms.JmsConfigurationFactory;
@@ -28,11 +31,15 @@ import com.alliander.osgp.shared.application.config.jms.JmsConfigurationFactory;
  * An application context Java configuration class.
  */
 @Configuration
+@Import(MessageMetricsConfig.class)
 @PropertySources({ @PropertySource("classpath:osgp-adapter-domain-distributionautomation.properties"),
         @PropertySource(value = "file:${osgp/Global/config}", ignoreResourceNotFound = true),
         @PropertySource(value = "file:${osgp/AdapterDomainDistributionAutomation/config}", ignoreResourceNotFound = true), })
 public class MessagingConfig extends AbstractMessagingConfig {
 
+    @Autowired
+    private MessageMetrics messageMetrics;
+
     @Autowired
     @Qualifier("domainDistributionAutomationIncomingWebServiceRequestMessageListener")
     private WebServiceRequestMessageListener incomingWebServiceRequestMessageListener;
@@ -50,7 +57,7 @@ public class MessagingConfig extends AbstractMessagingConfig {
     @Bean
     public JmsConfiguration incomingWebServiceJmsConfiguration(final JmsConfigurationFactory jmsConfigurationFactory) {
         return jmsConfigurationFactory.initializeReceiveConfiguration("jms.incoming.ws.requests",
-                this.incomingWebServiceRequestMessageListener);
+                this.messageMetrics.metered("jms.incoming.ws.requests", this.incomingWebServiceRequestMessageListener));
     }
 
     @Bean(name = "domainDistributionAutomationIncomingWebServiceRequestMessageListenerContainer")
@@ -98,7 +105,8 @@ public class MessagingConfig extends AbstractMessagingConfig {
     public JmsConfiguration incomingOsgpCoreResponsesJmsConfiguration(
             final JmsConfigurationFactory jmsConfigurationFactory) {
         return jmsConfigurationFactory.initializeReceiveConfiguration("jms.incoming.osgp.core.responses",
-                this.incomingOsgpCoreResponseMessageListener);
+                this.messageMetrics.metered("jms.incoming.osgp.core.responses",
+                        this.incomingOsgpCoreResponseMessageListener));
     }
 
     @Bean(name = "domainDistributionAutomationIncomingOsgpCoreResponsesMessageListenerContainer")
@@ -114,7 +122,8 @@ public class MessagingConfig extends AbstractMessagingConfig {
     public JmsConfiguration incomingOsgpCoreRequestsJmsConfiguration(
             final JmsConfigurationFactory jmsConfigurationFactory) {
         return jmsConfigurationFactory.initializeReceiveConfiguration("jms.incoming.osgp.core.requests",
-                this.incomingOsgpCoreRequestMessageListener);
+                this.messageMetrics.metered("jms.incoming.osgp.core.requests",
+                        this.incomingOsgpCoreRequestMessageListener));
     }
 
     @Bean(name = "domainDistributionAutomationIncomingOsgpCoreRequestsMessageListenerContainer")
@@ -137,5 +146,4 @@ public class MessagingConfig extends AbstractMessagingConfig {
             final JmsConfiguration outgoingOsgpCoreResponsesJmsConfiguration) {
         return outgoingOsgpCoreResponsesJmsConfiguration.getJmsTemplate();
     }
-
 }
@@ -9,6 +9,7 @@
  */
 package org.osgpfoundation.osgp.adapter.domain.da.infra.jms.core;
 
+import com.alliander.osgp.domain.core.jms.metrics.MeteredMessageListener;
 import com.alliander.osgp.shared.infra.jms.RequestMessage;
 import com.alliander.osgp.shared.infra.jms.UnknownMessageTypeException;
 import org.slf4j.Logger;
@@ -45,9 +46,11 @@ public class OsgpCoreRequestMessageListener implements MessageListener {
 
         } catch (final JMSException e) {
             // Can't read message.
+            MeteredMessageListener.markFailed();
             LOGGER.error("Exception: {}, StackTrace: {}", e.getMessage(), e.getStackTrace(), e);
         } catch (final UnknownMessageTypeException e) {
             // Don't know this message.
+            MeteredMessageListener.markFailed();
             LOGGER.error("UnknownMessageTypeException", e);
         }
     }
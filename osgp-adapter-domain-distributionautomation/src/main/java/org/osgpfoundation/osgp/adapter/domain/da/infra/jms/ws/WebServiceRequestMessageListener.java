@@ -9,6 +9,7 @@
  */
 package org.osgpfoundation.osgp.adapter.domain.da.infra.jms.ws;
 
+import com.alliander.osgp.domain.core.jms.metrics.MeteredMessageListener;
 import com.alliander.osgp.shared.infra.jms.MessageProcessor;
 import com.alliander.osgp.shared.infra.jms.MessageProcessorMap;
 import org.slf4j.Logger;
@@ -49,6 +50,7 @@ public class WebServiceRequestMessageListener implements MessageListener {
             processor.processMessage(objectMessage);
 
         } catch (final JMSException ex) {
+            MeteredMessageListener.markFailed();
             LOGGER.error("Exception: {} ", ex.getMessage(), ex);
         }
     }
@@ -23,7 +23,10 @@ import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
 import org.springframework.scheduling.support.CronTrigger;
 
+import com.alliander.osgp.adapter.domain.microgrids.application.services.CommunicatonRecoveryService;
 import com.alliander.osgp.adapter.domain.microgrids.application.tasks.CommunicationMonitoringTask;
+import com.alliander.osgp.adapter.domain.microgrids.application.tasks.CommunicationRecoveryExecutor;
+import com.alliander.osgp.domain.microgrids.repositories.RtuDeviceRepository;
 import com.alliander.osgp.shared.application.config.AbstractConfig;
 
 /**
@@ -45,6 +48,10 @@ public class CommunicationMonitoringConfig extends AbstractConfig {
     private static final String PROPERTY_NAME_SCHEDULER_THREAD_NAME_PREFIX = "communication.monitoring.scheduler.thread.name.prefix";
     private static final String PROPERTY_NAME_MAXIMUM_TIME_WITHOUT_COMMUNICATION = "communication.monitoring.maximum.time.without.communication";
     private static final String PROPERTY_NAME_LAST_COMMUNICATION_UPDATE_INTERVAL = "communication.monitoring.last.communication.update.interval";
+    private static final String PROPERTY_NAME_RECOVERY_CONCURRENCY = "communication.monitoring.recovery.concurrency";
+    private static final String PROPERTY_NAME_RECOVERY_PAGE_SIZE = "communication.monitoring.recovery.page.size";
+    private static final String PROPERTY_NAME_RECOVERY_MAXIMUM_DEVICES_PER_RUN = "communication.monitoring.recovery.maximum.devices.per.run";
+    private static final String PROPERTY_NAME_RECOVERY_MAXIMUM_RUN_DURATION = "communication.monitoring.recovery.maximum.run.duration";
 
     private static final Boolean DEFAULT_COMMUNICATION_MONITORING_ENABLED = true;
     private static final Integer DEFAULT_MINIMUM_TIME_BETWEEN_RUNS = 2;
@@ -60,12 +67,25 @@ public class CommunicationMonitoringConfig extends AbstractConfig {
     // Default last communication update interval in seconds
     private static final Integer DEFAULT_LAST_COMMUNICATION_UPDATE_INTERVAL = 30;
 
+    private static final Integer DEFAULT_RECOVERY_CONCURRENCY = 10;
+    private static final Integer DEFAULT_RECOVERY_PAGE_SIZE = 500;
+    private static final Integer DEFAULT_RECOVERY_MAXIMUM_DEVICES_PER_RUN = 10000;
+
+    // Default maximum run duration in seconds, within the default cron interval
+    private static final Integer DEFAULT_RECOVERY_MAXIMUM_RUN_DURATION = 240;
+
     @Resource
     private Environment environment;
 
     @Autowired
     private CommunicationMonitoringTask communicationMonitoringTask;
 
+    @Autowired
+    private RtuDeviceRepository rtuDeviceRepository;
+
+    @Autowired
+    private CommunicatonRecoveryService communicationRecoveryService;
+
     @Bean
     public CronTrigger communicationMonitoringTaskCronTrigger() {
         LOGGER.info("Initializing Cron Trigger bean with cron expression {}.", this.cronExpression());
@@ -132,6 +152,14 @@ public class CommunicationMonitoringConfig extends AbstractConfig {
         }
     }
 
+    @Bean
+    public CommunicationRecoveryExecutor communicationRecoveryExecutor() {
+        LOGGER.info("Initializing Communication Recovery Executor bean.");
+        return new CommunicationRecoveryExecutor(this.rtuDeviceRepository, this.communicationRecoveryService,
+                this.recoveryConcurrency(), this.recoveryPageSize(), this.recoveryMaximumDevicesPerRun(),
+                this.recoveryMaximumRunDuration() * 1000L);
+    }
+
     private Boolean communicationMonitoringEnabled() {
         final String value = this.environment.getProperty(PROPERTY_NAME_COMMUNICATION_MONITORING_ENABLED);
         if (StringUtils.isNotBlank(value)) {
@@ -177,4 +205,36 @@ public class CommunicationMonitoringConfig extends AbstractConfig {
         }
     }
 
+    private Integer recoveryConcurrency() {
+        return this.positiveIntegerProperty(PROPERTY_NAME_RECOVERY_CONCURRENCY, DEFAULT_RECOVERY_CONCURRENCY,
+                "recovery concurrency");
+    }
+
+    private Integer recoveryPageSize() {
+        return this.positiveIntegerProperty(PROPERTY_NAME_RECOVERY_PAGE_SIZE, DEFAULT_RECOVERY_PAGE_SIZE,
+                "recovery page size");
+    }
+
+    private Integer recoveryMaximumDevicesPerRun() {
+        return this.positiveIntegerProperty(PROPERTY_NAME_RECOVERY_MAXIMUM_DEVICES_PER_RUN,
+                DEFAULT_RECOVERY_MAXIMUM_DEVICES_PER_RUN, "recovery maximum devices per run");
+    }
+
+    private Integer recoveryMaximumRunDuration() {
+        return this.positiveIntegerProperty(PROPERTY_NAME_RECOVERY_MAXIMUM_RUN_DURATION,
+                DEFAULT_RECOVERY_MAXIMUM_RUN_DURATION, "recovery maximum run duration");
+    }
+
+    private Integer positiveIntegerProperty(final String propertyName, final Integer defaultValue,
+            final String description) {
+        final String value = this.environment.getProperty(propertyName);
+        if (StringUtils.isNotBlank(value) && StringUtils.isNumeric(value) && Integer.parseInt(value) > 0) {
+            LOGGER.info("Using value {} for {}.", value, description);
+            return Integer.parseInt(value);
+        } else {
+            LOGGER.info("Using default value {} for {}.", defaultValue, description);
+            return defaultValue;
+        }
+    }
+
 }
@@ -11,6 +11,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
 import org.springframework.context.annotation.PropertySource;
 import org.springframework.context.annotation.PropertySources;
 import org.springframework.jms.core.JmsTemplate;
@@ -20,6 +21,8 @@ import com.alliander.osgp.adapter.domain.microgrids.infra.jms.core.OsgpCoreReque
 import com.alliander.osgp.adapter.domain.microgrids.infra.jms.core.OsgpCoreResponseMessageListener;
 import com.alliander.osgp.adapter.domain.microgrids.infra.jms.ws.WebServiceRequestMessageListener;
 import com.alliander.osgp.adapter.domain.microgrids.infra.jms.ws.WebServiceResponseMessageSender;
+import com.alliander.osgp.domain.core.jms.metrics.MessageMetrics;
+import com.alliander.osgp.domain.core.jms.metrics.MessageMetricsConfig;
 import com.alliander.osgp.shared.application.config.AbstractMessagingConfig;
 import com.alliander.osgp.shared.application.config.jms.JmsConfiguration;
 import com.alliander.osgp.shared.application.config.jms.JmsConfigurationFactory;
@@ -29,11 +32,15 @@ import com.alliander.osgp.shared.application.config.jms.JmsConfigurationNames;
  * An application context Java configuration class.
  */
 @Configuration
+@Import(MessageMetricsConfig.class)
 @PropertySources({ @PropertySource("classpath:osgp-adapter-domain-microgrids.properties"),
     @PropertySource(value = "file:${osgp/Global/config}", ignoreResourceNotFound = true),
     @PropertySource(value = "file:${osgp/AdapterDomainMicrogrids/config}", ignoreResourceNotFound = true), })
 public class MessagingConfig extends AbstractMessagingConfig {
 
+    @Autowired
+    private MessageMetrics messageMetrics;
+
     @Autowired
     @Qualifier("domainMicrogridsIncomingWebServiceRequestMessageListener")
     private WebServiceRequestMessageListener incomingWebServiceRequestMessageListener;
@@ -51,7 +58,8 @@ public class MessagingConfig extends AbstractMessagingConfig {
     @Bean
     public JmsConfiguration incomingWebServiceJmsConfiguration(final JmsConfigurationFactory jmsConfigurationFactory) {
         return jmsConfigurationFactory.initializeReceiveConfiguration(JmsConfigurationNames.JMS_INCOMING_WS_REQUESTS,
-                this.incomingWebServiceRequestMessageListener);
+                this.messageMetrics.metered(JmsConfigurationNames.JMS_INCOMING_WS_REQUESTS,
+                        this.incomingWebServiceRequestMessageListener));
     }
 
     @Bean(name = "domainMicrogridsIncomingWebServiceRequestMessageListenerContainer")
@@ -98,7 +106,9 @@ public class MessagingConfig extends AbstractMessagingConfig {
     public JmsConfiguration incomingOsgpCoreResponsesJmsConfiguration(
             final JmsConfigurationFactory jmsConfigurationFactory) {
         return jmsConfigurationFactory.initializeReceiveConfiguration(
-                JmsConfigurationNames.JMS_INCOMING_OSGP_CORE_RESPONSES, this.incomingOsgpCoreResponseMessageListener);
+                JmsConfigurationNames.JMS_INCOMING_OSGP_CORE_RESPONSES,
+                this.messageMetrics.metered(JmsConfigurationNames.JMS_INCOMING_OSGP_CORE_RESPONSES,
+                        this.incomingOsgpCoreResponseMessageListener));
     }
 
     @Bean(name = "domainMicrogridsIncomingOsgpCoreResponsesMessageListenerContainer")
@@ -114,7 +124,9 @@ public class MessagingConfig extends AbstractMessagingConfig {
     public JmsConfiguration incomingOsgpCoreRequestsJmsConfiguration(
             final JmsConfigurationFactory jmsConfigurationFactory) {
         return jmsConfigurationFactory.initializeReceiveConfiguration(
-                JmsConfigurationNames.JMS_INCOMING_OSGP_CORE_REQUESTS, this.incomingOsgpCoreRequestMessageListener);
+                JmsConfigurationNames.JMS_INCOMING_OSGP_CORE_REQUESTS,
+                this.messageMetrics.metered(JmsConfigurationNames.JMS_INCOMING_OSGP_CORE_REQUESTS,
+                        this.incomingOsgpCoreRequestMessageListener));
     }
 
     @Bean(name = "domainMicrogridsIncomingOsgpCoreRequestsMessageListenerContainer")
@@ -137,5 +149,4 @@ public class MessagingConfig extends AbstractMessagingConfig {
             final JmsConfiguration outgoingOsgpCoreResponsesJmsConfiguration) {
         return outgoingOsgpCoreResponsesJmsConfiguration.getJmsTemplate();
     }
-
 }
@@ -7,19 +7,13 @@
  */
 package com.alliander.osgp.adapter.domain.microgrids.application.tasks;
 
-import java.util.List;
-
 import org.joda.time.DateTime;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
-import com.alliander.osgp.adapter.domain.microgrids.application.services.CommunicatonRecoveryService;
-import com.alliander.osgp.domain.core.valueobjects.DeviceLifecycleStatus;
-import com.alliander.osgp.domain.microgrids.entities.RtuDevice;
 import com.alliander.osgp.domain.microgrids.entities.Task;
-import com.alliander.osgp.domain.microgrids.repositories.RtuDeviceRepository;
 import com.alliander.osgp.domain.microgrids.repositories.TaskRepository;
 import com.alliander.osgp.domain.microgrids.valueobjects.TaskStatusType;
 
@@ -31,10 +25,7 @@ public class CommunicationMonitoringTask implements Runnable {
     private static final String TASK_IDENTIFICATION = "MicrogridsCommunicationMonitoring";
 
     @Autowired
-    private CommunicatonRecoveryService communicationRecoveryService;
-
-    @Autowired
-    private RtuDeviceRepository rtuDeviceRepository;
+    private CommunicationRecoveryExecutor communicationRecoveryExecutor;
 
     @Autowired
     private TaskRepository taskRepository;
@@ -64,17 +55,11 @@ public class CommunicationMonitoringTask implements Runnable {
 
         task = this.startTask(task);
 
-        final List<RtuDevice> rtuDevices = this.loadDevices(task);
-        LOGGER.info("Found {} device(s) for which communication should be restored.", rtuDevices.size());
-
-        for (final RtuDevice rtu : rtuDevices) {
-            LOGGER.debug("Restoring communication for device {}.", rtu.getDeviceIdentification());
-
-            this.communicationRecoveryService.signalConnectionLost(rtu);
-            this.communicationRecoveryService.restoreCommunication(rtu);
+        try {
+            this.restoreCommunication(task);
+        } finally {
+            this.finishTask(task);
         }
-
-        this.finishTask(task);
     }
 
     private Task loadTask() {
@@ -123,12 +108,11 @@ public class CommunicationMonitoringTask implements Runnable {
         return this.taskRepository.save(task);
     }
 
-    private List<RtuDevice> loadDevices(final Task task) {
-        LOGGER.debug("Loading devices from repository for which communication should be restored.");
+    private void restoreCommunication(final Task task) {
+        LOGGER.debug("Restoring communication for devices without communication.");
         final DateTime lastCommunicationTime = new DateTime(task.getStartTime())
                 .minusMinutes(this.maximumTimeWithoutCommunication);
-        return this.rtuDeviceRepository.findByDeviceLifecycleStatusAndLastCommunicationTimeBefore(
-                DeviceLifecycleStatus.IN_USE, lastCommunicationTime.toDate());
+        this.communicationRecoveryExecutor.recoverDevicesWithoutCommunicationSince(lastCommunicationTime.toDate());
     }
 
 }
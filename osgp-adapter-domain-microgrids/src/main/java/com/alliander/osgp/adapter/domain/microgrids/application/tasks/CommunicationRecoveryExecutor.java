@@ -0,0 +1,192 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.adapter.domain.microgrids.application.tasks;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import com.alliander.osgp.adapter.domain.microgrids.application.services.CommunicatonRecoveryService;
+import com.alliander.osgp.domain.core.valueobjects.DeviceLifecycleStatus;
+import com.alliander.osgp.domain.microgrids.entities.RtuDevice;
+import com.alliander.osgp.domain.microgrids.repositories.RtuDeviceRepository;
+
+/**
+ * Restores communication for RTU devices that have not communicated for some
+ * time, on a fixed number of threads.
+ *
+ * The devices are read page by page, and the next page is read once the
+ * recovery of the current page is sent. Each run is limited to a maximum
+ * number of devices and a maximum duration. The next run continues after the
+ * last device handled, so with many devices all of them get their turn.
+ */
+public class CommunicationRecoveryExecutor implements DisposableBean {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CommunicationRecoveryExecutor.class);
+
+    private final RtuDeviceRepository rtuDeviceRepository;
+    private final CommunicatonRecoveryService communicationRecoveryService;
+    private final ThreadPoolExecutor executor;
+    private final int pageSize;
+    private final int maximumDevicesPerRun;
+    private final long maximumRunDuration;
+
+    private volatile long lastRecoveredId;
+
+    /**
+     * @param concurrency
+     *            The number of devices for which recovery is sent at the same
+     *            time.
+     * @param pageSize
+     *            The number of devices read at once.
+     * @param maximumDevicesPerRun
+     *            The maximum number of devices handled in one run.
+     * @param maximumRunDuration
+     *            The time in milliseconds after which no more pages are read in
+     *            a run.
+     */
+    public CommunicationRecoveryExecutor(final RtuDeviceRepository rtuDeviceRepository,
+            final CommunicatonRecoveryService communicationRecoveryService, final int concurrency,
+            final int pageSize, final int maximumDevicesPerRun, final long maximumRunDuration) {
+        this.rtuDeviceRepository = rtuDeviceRepository;
+        this.communicationRecoveryService = communicationRecoveryService;
+        this.pageSize = pageSize;
+        this.maximumDevicesPerRun = maximumDevicesPerRun;
+        this.maximumRunDuration = maximumRunDuration;
+
+        final CustomizableThreadFactory threadFactory = new CustomizableThreadFactory(
+                "microgrids-communication-recovery-");
+        threadFactory.setDaemon(true);
+        // A page never needs more room than its size; if it does anyway, the
+        // monitoring thread sends the recovery itself.
+        this.executor = new ThreadPoolExecutor(concurrency, concurrency, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<Runnable>(pageSize), threadFactory, new ThreadPoolExecutor.CallerRunsPolicy());
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Restores communication for the devices that have not communicated since
+     * the given time, within the budget of a run.
+     *
+     * @return the number of devices for which communication recovery was
+     *         sent.
+     */
+    public int recoverDevicesWithoutCommunicationSince(final Date lastCommunicationTime) {
+        final long deadline = System.currentTimeMillis() + this.maximumRunDuration;
+        final long startAfterId = this.lastRecoveredId;
+        long afterId = startAfterId;
+        boolean wrapped = startAfterId == 0;
+        int recovered = 0;
+
+        while (recovered < this.maximumDevicesPerRun && System.currentTimeMillis() < deadline
+                && !Thread.currentThread().isInterrupted()) {
+            final int limit = Math.min(this.pageSize, this.maximumDevicesPerRun - recovered);
+            final List<RtuDevice> page = this.findPage(lastCommunicationTime, afterId, limit, wrapped, startAfterId);
+
+            if (page.isEmpty()) {
+                if (wrapped) {
+                    // All devices have been handled, start at the first device
+                    // next run.
+                    this.lastRecoveredId = 0;
+                    break;
+                }
+                // Continue with the devices before the device the run started
+                // after.
+                wrapped = true;
+                afterId = 0;
+                continue;
+            }
+
+            this.recover(page);
+            recovered += page.size();
+            afterId = page.get(page.size() - 1).getId();
+            this.lastRecoveredId = afterId;
+        }
+
+        LOGGER.info("Sent communication recovery for {} device(s), continuing after device with id {} next run.",
+                recovered, this.lastRecoveredId);
+        return recovered;
+    }
+
+    @Override
+    public void destroy() {
+        this.executor.shutdownNow();
+    }
+
+    private List<RtuDevice> findPage(final Date lastCommunicationTime, final long afterId, final int limit,
+            final boolean wrapped, final long startAfterId) {
+        final List<RtuDevice> page = this.rtuDeviceRepository
+                .findByDeviceLifecycleStatusAndLastCommunicationTimeBeforeAndIdGreaterThanOrderByIdAsc(
+                        DeviceLifecycleStatus.IN_USE, lastCommunicationTime, afterId, new PageRequest(0, limit));
+        if (!wrapped || startAfterId == 0) {
+            return this.withAuthorizations(page);
+        }
+        // After wrapping, stop at the devices already handled in this run.
+        final List<RtuDevice> notHandled = new ArrayList<>(page.size());
+        for (final RtuDevice rtu : page) {
+            if (rtu.getId() > startAfterId) {
+                break;
+            }
+            notHandled.add(rtu);
+        }
+        return this.withAuthorizations(notHandled);
+    }
+
+    /**
+     * Reloads the devices with their authorizations in one query, the owner of
+     * the devices is needed to recover them on the executor threads.
+     */
+    private List<RtuDevice> withAuthorizations(final List<RtuDevice> rtuDevices) {
+        if (rtuDevices.isEmpty()) {
+            return rtuDevices;
+        }
+        final List<Long> ids = new ArrayList<>(rtuDevices.size());
+        for (final RtuDevice rtu : rtuDevices) {
+            ids.add(rtu.getId());
+        }
+        return this.rtuDeviceRepository.findWithAuthorizationsByIdIn(ids);
+    }
+
+    private void recover(final List<RtuDevice> rtuDevices) {
+        final List<Future<?>> futures = new ArrayList<>(rtuDevices.size());
+        for (final RtuDevice rtu : rtuDevices) {
+            futures.add(this.executor.submit(new Runnable() {
+                @Override
+                public void run() {
+                    LOGGER.debug("Restoring communication for device {}.", rtu.getDeviceIdentification());
+                    CommunicationRecoveryExecutor.this.communicationRecoveryService.signalConnectionLost(rtu);
+                    CommunicationRecoveryExecutor.this.communicationRecoveryService.restoreCommunication(rtu);
+                }
+            }));
+        }
+
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                futures.get(i).get();
+            } catch (final ExecutionException e) {
+                LOGGER.error("Failed to restore communication for device {}.",
+                        rtuDevices.get(i).getDeviceIdentification(), e.getCause());
+            } catch (final InterruptedException e) {
+                LOGGER.warn("Interrupted while restoring communication.", e);
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+}
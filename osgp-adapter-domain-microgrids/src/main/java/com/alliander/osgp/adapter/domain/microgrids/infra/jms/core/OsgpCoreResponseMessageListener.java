@@ -18,6 +18,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Component;
 
+import com.alliander.osgp.domain.core.jms.metrics.MeteredMessageListener;
 import com.alliander.osgp.shared.infra.jms.MessageProcessor;
 import com.alliander.osgp.shared.infra.jms.MessageProcessorMap;
 
@@ -44,6 +45,7 @@ public class OsgpCoreResponseMessageListener implements MessageListener {
             processor.processMessage(objectMessage);
 
         } catch (final JMSException ex) {
+            MeteredMessageListener.markFailed();
             LOGGER.error("Exception: {} ", ex.getMessage(), ex);
         }
     }
@@ -0,0 +1,200 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.adapter.domain.microgrids.application.tasks;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyCollectionOf;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.mockito.stubbing.Answer;
+import org.springframework.data.domain.Pageable;
+
+import com.alliander.osgp.adapter.domain.microgrids.application.services.CommunicatonRecoveryService;
+import com.alliander.osgp.domain.core.valueobjects.DeviceLifecycleStatus;
+import com.alliander.osgp.domain.microgrids.entities.RtuDevice;
+import com.alliander.osgp.domain.microgrids.repositories.RtuDeviceRepository;
+
+@RunWith(MockitoJUnitRunner.class)
+public class CommunicationRecoveryExecutorTest {
+
+    private static final int DEVICES = 5000;
+    private static final int CONCURRENCY = 10;
+    private static final int PAGE_SIZE = 500;
+    private static final long MAXIMUM_RUN_DURATION = 60000;
+    private static final long MAX_WAIT_MILLIS = 10000;
+
+    @Mock
+    private RtuDeviceRepository rtuDeviceRepository;
+
+    @Mock
+    private CommunicatonRecoveryService communicationRecoveryService;
+
+    private final List<RtuDevice> staleDevices = new ArrayList<>();
+    private final ConcurrentMap<RtuDevice, AtomicInteger> restored = new ConcurrentHashMap<>();
+    private final Date lastCommunicationTime = new Date();
+
+    private final CountDownLatch allThreadsRestoring = new CountDownLatch(CONCURRENCY);
+    private final AtomicInteger restoring = new AtomicInteger();
+    private final AtomicInteger peakRestoring = new AtomicInteger();
+    private final Set<Thread> restoringThreads = ConcurrentHashMap.newKeySet();
+
+    private CommunicationRecoveryExecutor executor;
+
+    @Before
+    public void setUp() {
+        for (long id = 1; id <= DEVICES; id++) {
+            final RtuDevice rtu = mock(RtuDevice.class);
+            when(rtu.getId()).thenReturn(id);
+            when(rtu.getDeviceIdentification()).thenReturn("RTU-" + id);
+            this.staleDevices.add(rtu);
+        }
+
+        when(this.rtuDeviceRepository.findByDeviceLifecycleStatusAndLastCommunicationTimeBeforeAndIdGreaterThanOrderByIdAsc(
+                eq(DeviceLifecycleStatus.IN_USE), eq(this.lastCommunicationTime), anyLong(), any(Pageable.class)))
+                .thenAnswer(new Answer<List<RtuDevice>>() {
+                    @Override
+                    public List<RtuDevice> answer(final InvocationOnMock invocation) {
+                        final long afterId = (Long) invocation.getArguments()[2];
+                        final int pageSize = ((Pageable) invocation.getArguments()[3]).getPageSize();
+                        return CommunicationRecoveryExecutorTest.this.findPage(afterId, pageSize);
+                    }
+                });
+        when(this.rtuDeviceRepository.findWithAuthorizationsByIdIn(anyCollectionOf(Long.class)))
+                .thenAnswer(new Answer<List<RtuDevice>>() {
+                    @Override
+                    @SuppressWarnings("unchecked")
+                    public List<RtuDevice> answer(final InvocationOnMock invocation) {
+                        final Collection<Long> ids = (Collection<Long>) invocation.getArguments()[0];
+                        final List<RtuDevice> devices = new ArrayList<>(ids.size());
+                        for (final Long id : ids) {
+                            devices.add(CommunicationRecoveryExecutorTest.this.staleDevices.get(id.intValue() - 1));
+                        }
+                        return devices;
+                    }
+                });
+
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(final InvocationOnMock invocation) throws InterruptedException {
+                final CommunicationRecoveryExecutorTest test = CommunicationRecoveryExecutorTest.this;
+                test.peakRestoring.accumulateAndGet(test.restoring.incrementAndGet(), Math::max);
+                test.restoringThreads.add(Thread.currentThread());
+                // The first restores wait for each other, which only ends
+                // when they run in parallel.
+                test.allThreadsRestoring.countDown();
+                test.allThreadsRestoring.await(MAX_WAIT_MILLIS, TimeUnit.MILLISECONDS);
+
+                final RtuDevice rtu = (RtuDevice) invocation.getArguments()[0];
+                test.restored.putIfAbsent(rtu, new AtomicInteger());
+                test.restored.get(rtu).incrementAndGet();
+                test.restoring.decrementAndGet();
+                return null;
+            }
+        }).when(this.communicationRecoveryService).restoreCommunication(any(RtuDevice.class));
+    }
+
+    @After
+    public void tearDown() {
+        if (this.executor != null) {
+            this.executor.destroy();
+        }
+    }
+
+    @Test
+    public void testAllStaleDevicesAreRecoveredOnceInParallel() {
+        this.executor = new CommunicationRecoveryExecutor(this.rtuDeviceRepository, this.communicationRecoveryService,
+                CONCURRENCY, PAGE_SIZE, DEVICES * 2, MAXIMUM_RUN_DURATION);
+
+        final int recovered = this.executor.recoverDevicesWithoutCommunicationSince(this.lastCommunicationTime);
+
+        assertEquals(DEVICES, recovered);
+        this.assertAllRestoredTimes(1);
+        assertEquals(0, this.allThreadsRestoring.getCount());
+        assertEquals(CONCURRENCY, this.peakRestoring.get());
+        for (final Thread thread : this.restoringThreads) {
+            assertTrue("restored from " + thread.getName(),
+                    thread.getName().startsWith("microgrids-communication-recovery-"));
+        }
+    }
+
+    @Test
+    public void testNextRunContinuesAfterLastRecoveredDevice() {
+        this.executor = new CommunicationRecoveryExecutor(this.rtuDeviceRepository, this.communicationRecoveryService,
+                CONCURRENCY, PAGE_SIZE, 2000, MAXIMUM_RUN_DURATION);
+
+        assertEquals(2000, this.executor.recoverDevicesWithoutCommunicationSince(this.lastCommunicationTime));
+        assertEquals(2000, this.restored.size());
+        assertEquals(2000, this.executor.recoverDevicesWithoutCommunicationSince(this.lastCommunicationTime));
+        assertEquals(4000, this.restored.size());
+
+        // The third run handles the last 1,000 devices and starts over.
+        assertEquals(2000, this.executor.recoverDevicesWithoutCommunicationSince(this.lastCommunicationTime));
+        assertEquals(DEVICES, this.restored.size());
+        for (long id = 1; id <= DEVICES; id++) {
+            final int expected = id <= 1000 ? 2 : 1;
+            assertEquals("device " + id, expected, this.restored.get(this.staleDevices.get((int) id - 1)).get());
+        }
+    }
+
+    @Test
+    public void testFailingDeviceDoesNotStopRun() {
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(final InvocationOnMock invocation) {
+                throw new IllegalStateException("Connection refused");
+            }
+        }).when(this.communicationRecoveryService).signalConnectionLost(this.staleDevices.get(42));
+
+        this.executor = new CommunicationRecoveryExecutor(this.rtuDeviceRepository, this.communicationRecoveryService,
+                CONCURRENCY, PAGE_SIZE, DEVICES * 2, MAXIMUM_RUN_DURATION);
+
+        assertEquals(DEVICES, this.executor.recoverDevicesWithoutCommunicationSince(this.lastCommunicationTime));
+        assertEquals(DEVICES - 1, this.restored.size());
+    }
+
+    private List<RtuDevice> findPage(final long afterId, final int pageSize) {
+        final List<RtuDevice> page = new ArrayList<>(pageSize);
+        for (final RtuDevice rtu : this.staleDevices) {
+            if (rtu.getId() > afterId && page.size() < pageSize) {
+                page.add(rtu);
+            }
+        }
+        return page;
+    }
+
+    private void assertAllRestoredTimes(final int times) {
+        assertEquals(DEVICES, this.restored.size());
+        for (final AtomicInteger count : this.restored.values()) {
+            assertEquals(times, count.get());
+        }
+    }
+}
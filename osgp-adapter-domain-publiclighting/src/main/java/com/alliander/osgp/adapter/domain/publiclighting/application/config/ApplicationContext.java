@@ -7,14 +7,21 @@
  */
 package com.alliander.osgp.adapter.domain.publiclighting.application.config;
 
+import java.util.HashMap;
+import java.util.Map;
+
 import javax.annotation.Resource;
 
+import org.apache.commons.lang3.StringUtils;
+
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.env.Environment;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
 
+import com.alliander.osgp.adapter.domain.publiclighting.application.services.TransitionDispatcher;
+
 /**
  * An application context Java configuration class. The usage of Java
  * configuration requires Spring Framework 3.0
@@ -29,9 +36,43 @@ public class ApplicationContext {
 
     private static final String PROPERTY_NAME_SET_TRANSITION_LOGS_RESPONSE = "public.lighting.set.transition.logs.response";
 
+    private static final String PROPERTY_NAME_LMD_TRANSITION_POOL_SIZE = "public.lighting.lmd.transition.pool.size";
+    private static final String PROPERTY_NAME_LMD_TRANSITION_MAX_PENDING = "public.lighting.lmd.transition.max.pending";
+    private static final String PROPERTY_NAME_LMD_TRANSITION_MAX_RATE_PER_PROTOCOL = "public.lighting.lmd.transition.max.rate.per.protocol";
+    private static final String PROPERTY_NAME_LMD_TRANSITION_MAX_RATES = "public.lighting.lmd.transition.max.rates";
+    private static final String PROPERTY_NAME_LMD_TRANSITION_DEDUPLICATION_WINDOW = "public.lighting.lmd.transition.deduplication.window";
+    private static final String PROPERTY_NAME_LMD_TRANSITION_SHUTDOWN_TIMEOUT = "public.lighting.lmd.transition.shutdown.timeout";
+
     @Bean
     public Boolean isSetTransitionResponseLoggingEnabled() {
         return Boolean.parseBoolean(this.environment.getRequiredProperty(PROPERTY_NAME_SET_TRANSITION_LOGS_RESPONSE));
     }
 
+    @Bean
+    public TransitionDispatcher transitionDispatcher() {
+        return new TransitionDispatcher(
+                Integer.parseInt(this.environment.getRequiredProperty(PROPERTY_NAME_LMD_TRANSITION_POOL_SIZE)),
+                Integer.parseInt(this.environment.getRequiredProperty(PROPERTY_NAME_LMD_TRANSITION_MAX_PENDING)),
+                Integer.parseInt(
+                        this.environment.getRequiredProperty(PROPERTY_NAME_LMD_TRANSITION_MAX_RATE_PER_PROTOCOL)),
+                this.parseMaxRates(this.environment.getProperty(PROPERTY_NAME_LMD_TRANSITION_MAX_RATES, "")),
+                Long.parseLong(
+                        this.environment.getRequiredProperty(PROPERTY_NAME_LMD_TRANSITION_DEDUPLICATION_WINDOW)),
+                Long.parseLong(this.environment.getRequiredProperty(PROPERTY_NAME_LMD_TRANSITION_SHUTDOWN_TIMEOUT)));
+    }
+
+    /**
+     * Parses maximum rates per protocol in the form
+     * {@code protocol:rate,protocol:rate}.
+     */
+    private Map<String, Integer> parseMaxRates(final String maxRates) {
+        final Map<String, Integer> maxRatesPerProtocol = new HashMap<>();
+        for (final String maxRate : StringUtils.split(maxRates, ',')) {
+            final int separator = maxRate.lastIndexOf(':');
+            maxRatesPerProtocol.put(maxRate.substring(0, separator).trim(),
+                    Integer.parseInt(maxRate.substring(separator + 1).trim()));
+        }
+        return maxRatesPerProtocol;
+    }
+
 }
@@ -12,6 +12,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
 import org.springframework.context.annotation.PropertySource;
 import org.springframework.context.annotation.PropertySources;
 import org.springframework.jms.core.JmsTemplate;
@@ -21,6 +22,8 @@ import com.alliander.osgp.adapter.domain.publiclighting.infra.jms.OsgpCoreReques
 import com.alliander.osgp.adapter.domain.publiclighting.infra.jms.core.OsgpCoreResponseMessageListener;
 import com.alliander.osgp.adapter.domain.publiclighting.infra.jms.ws.WebServiceRequestMessageListener;
 import com.alliander.osgp.adapter.domain.publiclighting.infra.jms.ws.WebServiceResponseMessageSender;
+import com.alliander.osgp.domain.core.jms.metrics.MessageMetrics;
+import com.alliander.osgp.domain.core.jms.metrics.MessageMetricsConfig;
 import com.alliander.osgp.shared.application.config.AbstractMessagingConfig;
 import com.alliander.osgp.shared.application.config.jms.JmsConfiguration;
 import com.alliander.osgp.shared.application.config.jms.JmsConfigurationFactory;
@@ -31,6 +34,7 @@ import com.alliander.osgp.shared.application.config.jms.JmsPropertyNames;
  * An application context Java configuration class.
  */
 @Configuration
+@Import(MessageMetricsConfig.class)
 @PropertySources({ @PropertySource("classpath:osgp-adapter-domain-publiclighting.properties"),
         @PropertySource(value = "file:${osgp/Global/config}", ignoreResourceNotFound = true),
         @PropertySource(value = "file:${osgp/AdapterDomainPublicLighting/config}", ignoreResourceNotFound = true), })
@@ -38,6 +42,9 @@ public class MessagingConfig extends AbstractMessagingConfig {
 
     private static final String PROPERTY_NAME_JMS_GET_POWER_USAGE_HISTORY_RESPONSE_TIME_TO_LIVE = "jms.get.power.usage.history.response.time.to.live";
 
+    @Autowired
+    private MessageMetrics messageMetrics;
+
     @Autowired
     @Qualifier("domainPublicLightingIncomingWebServiceRequestMessageListener")
     private WebServiceRequestMessageListener incomingWebServiceRequestMessageListener;
@@ -74,7 +81,8 @@ public class MessagingConfig extends AbstractMessagingConfig {
     public JmsConfiguration incomingWebServiceRequestsJmsConfiguration(
             final JmsConfigurationFactory jmsConfigurationFactory) {
         return jmsConfigurationFactory.initializeReceiveConfiguration(JmsConfigurationNames.JMS_INCOMING_WS_REQUESTS,
-                this.incomingWebServiceRequestMessageListener);
+                this.messageMetrics.metered(JmsConfigurationNames.JMS_INCOMING_WS_REQUESTS,
+                        this.incomingWebServiceRequestMessageListener));
     }
 
     @Bean(name = "domainPublicLightingIncomingWebServiceRequestMessageListenerContainer")
@@ -123,7 +131,9 @@ public class MessagingConfig extends AbstractMessagingConfig {
     public JmsConfiguration incomingOsgpCoreResponsesJmsConfiguration(
             final JmsConfigurationFactory jmsConfigurationFactory) {
         return jmsConfigurationFactory.initializeReceiveConfiguration(
-                JmsConfigurationNames.JMS_INCOMING_OSGP_CORE_RESPONSES, this.incomingOsgpCoreResponseMessageListener);
+                JmsConfigurationNames.JMS_INCOMING_OSGP_CORE_RESPONSES,
+                this.messageMetrics.metered(JmsConfigurationNames.JMS_INCOMING_OSGP_CORE_RESPONSES,
+                        this.incomingOsgpCoreResponseMessageListener));
     }
 
     @Bean(name = "domainPublicLightingIncomingOsgpCoreResponsesMessageListenerContainer")
@@ -139,7 +149,9 @@ public class MessagingConfig extends AbstractMessagingConfig {
     public JmsConfiguration incomingOsgpCoreRequestsJmsConfiguration(
             final JmsConfigurationFactory jmsConfigurationFactory) {
         return jmsConfigurationFactory.initializeReceiveConfiguration(
-                JmsConfigurationNames.JMS_INCOMING_OSGP_CORE_REQUESTS, this.incomingOsgpCoreRequestMessageListener);
+                JmsConfigurationNames.JMS_INCOMING_OSGP_CORE_REQUESTS,
+                this.messageMetrics.metered(JmsConfigurationNames.JMS_INCOMING_OSGP_CORE_REQUESTS,
+                        this.incomingOsgpCoreRequestMessageListener));
     }
 
     @Bean(name = "domainPublicLightingIncomingOsgpCoreRequestsMessageListenerContainer")
@@ -61,6 +61,9 @@ public class AdHocManagementService extends AbstractService {
     @Autowired
     private EventRepository eventRepository;
 
+    @Autowired
+    private TransitionDispatcher transitionDispatcher;
+
     /**
      * Constructor
      */
@@ -255,15 +258,21 @@ public class AdHocManagementService extends AbstractService {
         LOGGER.debug("Private setTransition called for device {} with organisation {}",
                 device.getDeviceIdentification(), organisationIdentification);
 
-        final TransitionMessageDataContainerDto transitionMessageDataContainerDto = new TransitionMessageDataContainerDto(
-                this.domainCoreMapper.map(transitionType, com.alliander.osgp.dto.valueobjects.TransitionTypeDto.class),
-                transitionTime);
+        final TransitionMessageDataContainerDto transitionMessageDataContainerDto = this
+                .createTransitionMessageDataContainer(transitionType, transitionTime);
 
         this.osgpCoreRequestMessageSender.send(new RequestMessage(correlationUid, organisationIdentification,
                 device.getDeviceIdentification(), transitionMessageDataContainerDto), messageType,
                 device.getIpAddress());
     }
 
+    private TransitionMessageDataContainerDto createTransitionMessageDataContainer(
+            final TransitionType transitionType, final DateTime transitionTime) {
+        return new TransitionMessageDataContainerDto(
+                this.domainCoreMapper.map(transitionType, com.alliander.osgp.dto.valueobjects.TransitionTypeDto.class),
+                transitionTime);
+    }
+
     // === TRANSITION MESSAGE FROM LIGHT MEASUREMENT DEVICE ===
 
     /**
@@ -308,15 +317,26 @@ public class AdHocManagementService extends AbstractService {
             return;
         }
 
-        // Find all SSLDs which need to receive a SET_TRANSITION message.
-        final List<Ssld> ssldsToTransition = this.getSsldsToTransitionForLmd(lmd);
-
         // Determine the transition type based on the event of the LMD.
         final TransitionType transitionType = this.determineTransitionTypeForEvent(event);
 
+        // Ignore the event if the same transition was just sent to the SSLDs.
+        if (this.transitionDispatcher.isRepeatedTransition(lmd.getDeviceIdentification(), transitionType)) {
+            LOGGER.info("Transition {} for light measurement device: {} was already sent to the SSLDs",
+                    transitionType, lmd.getDeviceIdentification());
+            return;
+        }
+
+        // Find all SSLDs which need to receive a SET_TRANSITION message.
+        final List<Ssld> ssldsToTransition = this.getSsldsToTransitionForLmd(lmd);
+
         // Send SET_TRANSITION messages to the SSLDs.
         this.transitionSslds(ssldsToTransition, organisationIdentification, correlationUid, transitionType,
                 DateTime.now());
+
+        // Only ignore repeated events once the transition was dispatched to
+        // all SSLDs.
+        this.transitionDispatcher.registerTransition(lmd.getDeviceIdentification(), transitionType);
     }
 
     private LightMeasurementDevice updateLmdLastCommunicationTime(final LightMeasurementDevice lmd) {
@@ -365,13 +385,23 @@ public class AdHocManagementService extends AbstractService {
 
     private void transitionSslds(final List<Ssld> ssldsToTransition, final String organisationIdentification,
             final String correlationUid, final TransitionType transitionType, final DateTime transitionTime) {
+        final TransitionMessageDataContainerDto transitionMessageDataContainerDto = this
+                .createTransitionMessageDataContainer(transitionType, transitionTime);
+
         for (final Ssld ssld : ssldsToTransition) {
-            try {
-                this.setTransition(organisationIdentification, ssld, correlationUid, transitionType, transitionTime,
-                        DeviceFunction.SET_TRANSITION.name());
-            } catch (final FunctionalException e) {
-                LOGGER.error("Caught unexpected FunctionalException", e);
-            }
+            final RequestMessage requestMessage = new RequestMessage(correlationUid, organisationIdentification,
+                    ssld.getDeviceIdentification(), transitionMessageDataContainerDto);
+            final String ipAddress = ssld.getIpAddress();
+            final String protocol = ssld.getProtocolInfo() == null ? null : ssld.getProtocolInfo().getProtocol();
+
+            this.transitionDispatcher.dispatch(protocol, ssld.getDeviceIdentification(),
+                    new Runnable() {
+                        @Override
+                        public void run() {
+                            AdHocManagementService.this.osgpCoreRequestMessageSender.send(requestMessage,
+                                    DeviceFunction.SET_TRANSITION.name(), ipAddress);
+                        }
+                    });
         }
     }
 
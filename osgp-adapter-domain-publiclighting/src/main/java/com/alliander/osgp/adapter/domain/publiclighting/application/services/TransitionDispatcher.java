@@ -0,0 +1,268 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.adapter.domain.publiclighting.application.services;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import com.alliander.osgp.domain.core.valueobjects.TransitionType;
+
+/**
+ * Sends the transitions that a light measurement device triggers for its SSLDs
+ * on a fixed number of threads, so the last SSLD is not switched minutes after
+ * the first.
+ *
+ * The number of transitions sent per second can be limited per protocol. A
+ * transition that would exceed the limit is delayed until it fits, without
+ * blocking one of the threads. The number of pending transitions is bounded;
+ * beyond the maximum a transition is sent on the calling thread.
+ *
+ * A transition of a light measurement device that is the same as the last
+ * transition registered for it with
+ * {@link #registerTransition(String, TransitionType)}, within the
+ * deduplication window, is recognized by
+ * {@link #isRepeatedTransition(String, TransitionType)}, so repeated events of
+ * the device do not fan out again. A transition is only registered once it
+ * was handed to the dispatcher for all SSLDs, so a transition that failed to
+ * fan out is not ignored when the event is delivered again.
+ */
+public class TransitionDispatcher implements DisposableBean {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TransitionDispatcher.class);
+
+    private static final String UNKNOWN_PROTOCOL = "";
+
+    private final ScheduledThreadPoolExecutor executor;
+    private final int maxPendingTransitions;
+    private final long deduplicationWindow;
+    private final long shutdownTimeout;
+    private final Clock clock;
+
+    private final int defaultMaxRatePerProtocol;
+    private final Map<String, Integer> maxRatesPerProtocol;
+    private final ConcurrentMap<String, RateLimit> rateLimits = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<String, LastTransition> lastTransitions = new ConcurrentHashMap<>();
+
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    private final AtomicLong sentCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+
+    /**
+     * @param poolSize
+     *            The number of threads sending transitions.
+     * @param maxPendingTransitions
+     *            The maximum number of transitions waiting to be sent.
+     * @param defaultMaxRatePerProtocol
+     *            The maximum number of transitions per second sent to devices
+     *            of a protocol, 0 for no limit.
+     * @param maxRatesPerProtocol
+     *            Maximum number of transitions per second for specific
+     *            protocols, overriding the default.
+     * @param deduplicationWindow
+     *            The time in milliseconds in which a repeated transition of a
+     *            light measurement device is ignored.
+     * @param shutdownTimeout
+     *            The time in milliseconds to wait for pending transitions on
+     *            shutdown.
+     */
+    public TransitionDispatcher(final int poolSize, final int maxPendingTransitions,
+            final int defaultMaxRatePerProtocol, final Map<String, Integer> maxRatesPerProtocol,
+            final long deduplicationWindow, final long shutdownTimeout) {
+        this(poolSize, maxPendingTransitions, defaultMaxRatePerProtocol, maxRatesPerProtocol, deduplicationWindow,
+                shutdownTimeout, Clock.systemUTC());
+    }
+
+    TransitionDispatcher(final int poolSize, final int maxPendingTransitions, final int defaultMaxRatePerProtocol,
+            final Map<String, Integer> maxRatesPerProtocol, final long deduplicationWindow,
+            final long shutdownTimeout, final Clock clock) {
+        final CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("lmd-transition-");
+        threadFactory.setDaemon(true);
+        this.executor = new ScheduledThreadPoolExecutor(poolSize, threadFactory);
+        this.maxPendingTransitions = maxPendingTransitions;
+        this.defaultMaxRatePerProtocol = defaultMaxRatePerProtocol;
+        this.maxRatesPerProtocol = new HashMap<>(maxRatesPerProtocol);
+        this.deduplicationWindow = deduplicationWindow;
+        this.shutdownTimeout = shutdownTimeout;
+        this.clock = clock;
+    }
+
+    /**
+     * @return true if the last transition registered for the light
+     *         measurement device is the same transition, and was registered
+     *         within the deduplication window.
+     */
+    public boolean isRepeatedTransition(final String lightMeasurementDeviceIdentification,
+            final TransitionType transitionType) {
+        final LastTransition previous = this.lastTransitions.get(lightMeasurementDeviceIdentification);
+        return previous != null && previous.transitionType == transitionType
+                && this.clock.millis() - previous.time < this.deduplicationWindow;
+    }
+
+    /**
+     * Registers a transition of a light measurement device that was
+     * dispatched to all its SSLDs.
+     */
+    public void registerTransition(final String lightMeasurementDeviceIdentification,
+            final TransitionType transitionType) {
+        this.lastTransitions.put(lightMeasurementDeviceIdentification,
+                new LastTransition(transitionType, this.clock.millis()));
+    }
+
+    /**
+     * Sends the transition as soon as the rate limit of the protocol allows.
+     *
+     * @param protocol
+     *            The protocol of the device the transition is sent to, null if
+     *            unknown, in which case the default rate limit applies.
+     * @param deviceIdentification
+     *            The device the transition is sent to, used in log messages.
+     * @param transition
+     *            Sends the transition.
+     */
+    public void dispatch(final String protocol, final String deviceIdentification, final Runnable transition) {
+        if (this.pendingCount.incrementAndGet() > this.maxPendingTransitions) {
+            this.pendingCount.decrementAndGet();
+            LOGGER.warn("Too many pending transitions, sending transition for device {} on calling thread",
+                    deviceIdentification);
+            this.send(deviceIdentification, transition);
+            return;
+        }
+
+        final long delay = this.reserve(protocol);
+        try {
+            this.executor.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    TransitionDispatcher.this.pendingCount.decrementAndGet();
+                    TransitionDispatcher.this.send(deviceIdentification, transition);
+                }
+            }, delay, TimeUnit.NANOSECONDS);
+        } catch (final RejectedExecutionException e) {
+            this.pendingCount.decrementAndGet();
+            LOGGER.warn("Dispatcher is shut down, sending transition for device {} on calling thread",
+                    deviceIdentification, e);
+            this.send(deviceIdentification, transition);
+        }
+    }
+
+    public int getPendingCount() {
+        return this.pendingCount.get();
+    }
+
+    public long getSentCount() {
+        return this.sentCount.get();
+    }
+
+    public long getFailedCount() {
+        return this.failedCount.get();
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        LOGGER.info("Shutting down {}", this);
+        this.executor.shutdown();
+        if (!this.executor.awaitTermination(this.shutdownTimeout, TimeUnit.MILLISECONDS)) {
+            LOGGER.warn("{} transitions were not sent before shutdown", this.executor.shutdownNow().size());
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("TransitionDispatcher[pending=%d, sent=%d, failed=%d]", this.getPendingCount(),
+                this.getSentCount(), this.getFailedCount());
+    }
+
+    /**
+     * Reserves the next slot in the rate limit of the protocol.
+     *
+     * @return the time in nanoseconds until the reserved slot.
+     */
+    long reserve(final String protocol) {
+        return this.rateLimits.computeIfAbsent(protocol == null ? UNKNOWN_PROTOCOL : protocol, p -> {
+            final Integer maxRate = this.maxRatesPerProtocol.get(p);
+            return new RateLimit(maxRate == null ? this.defaultMaxRatePerProtocol : maxRate, this.clock);
+        }).reserve();
+    }
+
+    private void send(final String deviceIdentification, final Runnable transition) {
+        try {
+            transition.run();
+            this.sentCount.incrementAndGet();
+        } catch (final RuntimeException e) {
+            this.failedCount.incrementAndGet();
+            LOGGER.error("Error sending transition for device {}", deviceIdentification, e);
+        }
+    }
+
+    /**
+     * The last transition registered for a light measurement device.
+     */
+    private static final class LastTransition {
+        private final TransitionType transitionType;
+        private final long time;
+
+        LastTransition(final TransitionType transitionType, final long time) {
+            this.transitionType = transitionType;
+            this.time = time;
+        }
+    }
+
+    /**
+     * Spreads the transitions of a protocol evenly over time.
+     */
+    private static final class RateLimit {
+        private final long intervalNanos;
+        private final Clock clock;
+        private final AtomicLong nextSlot;
+
+        RateLimit(final int maxRate, final Clock clock) {
+            this.intervalNanos = maxRate > 0 ? TimeUnit.SECONDS.toNanos(1) / maxRate : 0;
+            this.clock = clock;
+            this.nextSlot = new AtomicLong(this.nanos());
+        }
+
+        private long nanos() {
+            final Instant now = this.clock.instant();
+            return TimeUnit.SECONDS.toNanos(now.getEpochSecond()) + now.getNano();
+        }
+
+        /**
+         * Reserves the next free slot.
+         *
+         * @return the time in nanoseconds until the reserved slot.
+         */
+        long reserve() {
+            if (this.intervalNanos == 0) {
+                return 0;
+            }
+            while (true) {
+                final long now = this.nanos();
+                final long next = this.nextSlot.get();
+                final long slot = next - now > 0 ? next : now;
+                if (this.nextSlot.compareAndSet(next, slot + this.intervalNanos)) {
+                    return slot - now;
+                }
+            }
+        }
+    }
+}
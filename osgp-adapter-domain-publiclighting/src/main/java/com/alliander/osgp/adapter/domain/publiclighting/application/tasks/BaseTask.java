@@ -163,7 +163,9 @@ public class BaseTask {
 
         listOfObjectArrays = null;
 
-        final List<Device> devicesToContact = this.deviceRepository.findAll(map.keySet());
+        // The owner of the devices is needed to send the requests, outside a
+        // transaction.
+        final List<Device> devicesToContact = this.deviceRepository.findWithAuthorizationsByIdIn(map.keySet());
         LOGGER.info("devicesToContact.size(): {}", devicesToContact.size());
         for (final Device device : devicesToContact) {
             LOGGER.info("device: {}, id: {}", device.getDeviceIdentification(), device.getId());
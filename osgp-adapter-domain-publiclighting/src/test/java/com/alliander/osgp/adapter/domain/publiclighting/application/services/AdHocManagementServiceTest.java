@@ -0,0 +1,244 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.adapter.domain.publiclighting.application.services;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.mockito.stubbing.Answer;
+
+import com.alliander.osgp.adapter.domain.publiclighting.application.mapping.DomainPublicLightingMapper;
+import com.alliander.osgp.adapter.domain.publiclighting.infra.jms.core.OsgpCoreRequestMessageSender;
+import com.alliander.osgp.domain.core.entities.Event;
+import com.alliander.osgp.domain.core.entities.LightMeasurementDevice;
+import com.alliander.osgp.domain.core.entities.ProtocolInfo;
+import com.alliander.osgp.domain.core.entities.Ssld;
+import com.alliander.osgp.domain.core.repositories.EventRepository;
+import com.alliander.osgp.domain.core.repositories.LightMeasurementDeviceRepository;
+import com.alliander.osgp.domain.core.repositories.SsldRepository;
+import com.alliander.osgp.domain.core.valueobjects.DeviceFunction;
+import com.alliander.osgp.domain.core.valueobjects.DeviceLifecycleStatus;
+import com.alliander.osgp.domain.core.valueobjects.EventMessageDataContainer;
+import com.alliander.osgp.domain.core.valueobjects.EventType;
+import com.alliander.osgp.shared.infra.jms.RequestMessage;
+
+@RunWith(MockitoJUnitRunner.class)
+public class AdHocManagementServiceTest {
+
+    private static final String ORGANISATION_IDENTIFICATION = "test-org";
+    private static final String LMD_IDENTIFICATION = "LMD-01";
+    private static final String CORRELATION_UID = "test-org|||LMD-01|||20170101000000000";
+
+    private static final int SSLDS = 5000;
+    private static final long SEND_DURATION_MILLIS = 1;
+    private static final long MAX_WAIT_MILLIS = 30000;
+
+    @Mock
+    private EventRepository eventRepository;
+
+    @Mock
+    private LightMeasurementDeviceRepository lightMeasurementDeviceRepository;
+
+    @Mock
+    private SsldRepository ssldRepository;
+
+    @Mock
+    private DomainPublicLightingMapper domainCoreMapper;
+
+    @Mock
+    private OsgpCoreRequestMessageSender osgpCoreRequestMessageSender;
+
+    @Spy
+    private TransitionDispatcher transitionDispatcher = new TransitionDispatcher(10, 50000, 0,
+            Collections.<String, Integer> emptyMap(), 60000, 10000);
+
+    @InjectMocks
+    private AdHocManagementService adHocManagementService;
+
+    private final LightMeasurementDevice lmd = new LightMeasurementDevice(LMD_IDENTIFICATION);
+
+    private final AtomicInteger sentCount = new AtomicInteger();
+    private final AtomicLong lastSentAt = new AtomicLong();
+    private final Set<Thread> sendingThreads = ConcurrentHashMap.newKeySet();
+    private final CountDownLatch sendAllowed = new CountDownLatch(1);
+
+    @Before
+    public void setUp() {
+        when(this.lightMeasurementDeviceRepository.findByDeviceIdentification(LMD_IDENTIFICATION))
+                .thenReturn(this.lmd);
+        when(this.lightMeasurementDeviceRepository.save(this.lmd)).thenReturn(this.lmd);
+    }
+
+    @After
+    public void tearDown() throws InterruptedException {
+        this.transitionDispatcher.destroy();
+    }
+
+    /**
+     * The stubbed sender takes a millisecond for each message, like a send to
+     * the broker. Sending to 5,000 SSLDs one after another would take at least
+     * 5 seconds.
+     */
+    @Test
+    public void testTimeToLastTransitionForManyLinkedSslds() throws InterruptedException {
+        this.linkSslds(SSLDS);
+        final CountDownLatch allSent = this.stubSender(SSLDS, SEND_DURATION_MILLIS);
+        this.sendAllowed.countDown();
+
+        final long start = System.currentTimeMillis();
+        this.adHocManagementService.handleLightMeasurementDeviceTransition(ORGANISATION_IDENTIFICATION,
+                LMD_IDENTIFICATION, CORRELATION_UID, this.darkEvent());
+
+        assertTrue(allSent.await(MAX_WAIT_MILLIS, TimeUnit.MILLISECONDS));
+        final long timeToLastTransition = this.lastSentAt.get() - start;
+
+        assertEquals(SSLDS, this.sentCount.get());
+        assertTrue("last transition was sent after " + timeToLastTransition + " ms",
+                timeToLastTransition < SSLDS * SEND_DURATION_MILLIS / 2);
+    }
+
+    /**
+     * The stubbed sender blocks until the transition has been handled, so the
+     * transitions can only have been sent from the dispatcher threads, not one
+     * after another on the calling thread.
+     */
+    @Test
+    public void testTransitionsForManyLinkedSsldsAreSentFromThePool() throws InterruptedException {
+        this.linkSslds(SSLDS);
+        final CountDownLatch allSent = this.stubSender(SSLDS, 0);
+
+        this.adHocManagementService.handleLightMeasurementDeviceTransition(ORGANISATION_IDENTIFICATION,
+                LMD_IDENTIFICATION, CORRELATION_UID, this.darkEvent());
+        this.sendAllowed.countDown();
+
+        assertTrue(allSent.await(MAX_WAIT_MILLIS, TimeUnit.MILLISECONDS));
+        assertEquals(SSLDS, this.sentCount.get());
+        for (final Thread thread : this.sendingThreads) {
+            assertTrue("sent from " + thread.getName(), thread.getName().startsWith("lmd-transition-"));
+        }
+    }
+
+    @Test
+    public void testRepeatedTransitionIsNotSentAgain() throws InterruptedException {
+        this.linkSslds(10);
+        final CountDownLatch allSent = this.stubSender(10, 0);
+
+        this.sendAllowed.countDown();
+        this.adHocManagementService.handleLightMeasurementDeviceTransition(ORGANISATION_IDENTIFICATION,
+                LMD_IDENTIFICATION, CORRELATION_UID, this.darkEvent());
+        this.adHocManagementService.handleLightMeasurementDeviceTransition(ORGANISATION_IDENTIFICATION,
+                LMD_IDENTIFICATION, CORRELATION_UID, this.darkEvent());
+
+        assertTrue(allSent.await(MAX_WAIT_MILLIS, TimeUnit.MILLISECONDS));
+        this.transitionDispatcher.destroy();
+        assertEquals(10, this.sentCount.get());
+    }
+
+    @Test
+    public void testTransitionIsSentAgainWhenFanOutFailed() throws InterruptedException {
+        when(this.ssldRepository
+                .findByLightMeasurementDeviceAndIsActivatedTrueAndInMaintenanceFalseAndProtocolInfoNotNullAndNetworkAddressNotNullAndTechnicalInstallationDateNotNullAndDeviceLifecycleStatus(
+                        this.lmd, DeviceLifecycleStatus.IN_USE)).thenThrow(new IllegalStateException("database down"));
+        try {
+            this.adHocManagementService.handleLightMeasurementDeviceTransition(ORGANISATION_IDENTIFICATION,
+                    LMD_IDENTIFICATION, CORRELATION_UID, this.darkEvent());
+            fail("the failed fan-out must not be swallowed");
+        } catch (final IllegalStateException e) {
+            // Expected.
+        }
+
+        this.linkSslds(10);
+        final CountDownLatch allSent = this.stubSender(10, 0);
+        this.sendAllowed.countDown();
+        this.adHocManagementService.handleLightMeasurementDeviceTransition(ORGANISATION_IDENTIFICATION,
+                LMD_IDENTIFICATION, CORRELATION_UID, this.darkEvent());
+
+        assertTrue(allSent.await(MAX_WAIT_MILLIS, TimeUnit.MILLISECONDS));
+        assertEquals(10, this.sentCount.get());
+    }
+
+    @Test
+    public void testSsldWithoutProtocolInfoIsTransitioned() throws InterruptedException {
+        this.linkSslds(1, null);
+        final CountDownLatch allSent = this.stubSender(1, 0);
+        this.sendAllowed.countDown();
+
+        this.adHocManagementService.handleLightMeasurementDeviceTransition(ORGANISATION_IDENTIFICATION,
+                LMD_IDENTIFICATION, CORRELATION_UID, this.darkEvent());
+
+        assertTrue(allSent.await(MAX_WAIT_MILLIS, TimeUnit.MILLISECONDS));
+    }
+
+    private void linkSslds(final int count) {
+        this.linkSslds(count, new ProtocolInfo("OSLP ELSTER", "1.0", "requests", "responses", "incoming-requests",
+                "outgoing-responses"));
+    }
+
+    private void linkSslds(final int count, final ProtocolInfo protocolInfo) {
+        final List<Ssld> sslds = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            final Ssld ssld = new Ssld("SSLD-" + i);
+            if (protocolInfo != null) {
+                ssld.updateProtocol(protocolInfo);
+            }
+            sslds.add(ssld);
+        }
+        when(this.ssldRepository
+                .findByLightMeasurementDeviceAndIsActivatedTrueAndInMaintenanceFalseAndProtocolInfoNotNullAndNetworkAddressNotNullAndTechnicalInstallationDateNotNullAndDeviceLifecycleStatus(
+                        this.lmd, DeviceLifecycleStatus.IN_USE)).thenReturn(sslds);
+    }
+
+    private CountDownLatch stubSender(final int count, final long sendDurationMillis) {
+        final CountDownLatch allSent = new CountDownLatch(count);
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(final InvocationOnMock invocation) throws InterruptedException {
+                AdHocManagementServiceTest.this.sendAllowed.await(MAX_WAIT_MILLIS, TimeUnit.MILLISECONDS);
+                Thread.sleep(sendDurationMillis);
+                AdHocManagementServiceTest.this.sendingThreads.add(Thread.currentThread());
+                AdHocManagementServiceTest.this.sentCount.incrementAndGet();
+                AdHocManagementServiceTest.this.lastSentAt.accumulateAndGet(System.currentTimeMillis(), Math::max);
+                allSent.countDown();
+                return null;
+            }
+        }).when(this.osgpCoreRequestMessageSender).send(any(RequestMessage.class),
+                eq(DeviceFunction.SET_TRANSITION.name()), anyString());
+        return allSent;
+    }
+
+    private EventMessageDataContainer darkEvent() {
+        return new EventMessageDataContainer(Collections.singletonList(
+                new Event(this.lmd, new Date(), EventType.LIGHT_SENSOR_REPORTS_DARK, "dark", 0)));
+    }
+}
@@ -0,0 +1,197 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.adapter.domain.publiclighting.application.services;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.alliander.osgp.domain.core.valueobjects.TransitionType;
+
+public class TransitionDispatcherTest {
+
+    private static final String LMD = "LMD-01";
+    private static final String LIMITED_PROTOCOL = "IEC61850";
+    private static final String UNLIMITED_PROTOCOL = "OSLP ELSTER";
+
+    private static final long MAX_WAIT_MILLIS = 10000;
+
+    private final VirtualClock clock = new VirtualClock();
+
+    private TransitionDispatcher dispatcher = new TransitionDispatcher(4, 1000, 0,
+            Collections.singletonMap(LIMITED_PROTOCOL, 500), 1000, 10000, this.clock);
+
+    @After
+    public void tearDown() throws InterruptedException {
+        this.dispatcher.destroy();
+    }
+
+    @Test
+    public void testRateLimitIsAppliedPerProtocol() {
+        // 500 transitions per second is one every 2 ms.
+        for (int i = 0; i < 100; i++) {
+            assertEquals(TimeUnit.MILLISECONDS.toNanos(2 * i), this.dispatcher.reserve(LIMITED_PROTOCOL));
+            assertEquals(0, this.dispatcher.reserve(UNLIMITED_PROTOCOL));
+        }
+
+        this.clock.advance(200);
+
+        assertEquals(0, this.dispatcher.reserve(LIMITED_PROTOCOL));
+    }
+
+    @Test
+    public void testRateLimitedTransitionsAreAllSent() throws InterruptedException {
+        final CountDownLatch limited = this.dispatch(LIMITED_PROTOCOL, 100);
+        final CountDownLatch unlimited = this.dispatch(UNLIMITED_PROTOCOL, 100);
+
+        assertTrue(unlimited.await(MAX_WAIT_MILLIS, TimeUnit.MILLISECONDS));
+        assertTrue(limited.await(MAX_WAIT_MILLIS, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testTransitionsAreSentOnCallingThreadWhenTooManyArePending() throws InterruptedException {
+        this.dispatcher.destroy();
+        this.dispatcher = new TransitionDispatcher(1, 10, 0, Collections.<String, Integer> emptyMap(), 1000, 10000);
+
+        // Keep the only thread busy, so the next transitions stay pending.
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        this.dispatcher.dispatch(UNLIMITED_PROTOCOL, "SSLD-busy", new Runnable() {
+            @Override
+            public void run() {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        assertTrue(started.await(MAX_WAIT_MILLIS, TimeUnit.MILLISECONDS));
+
+        final Thread caller = Thread.currentThread();
+        final CountDownLatch sentOnCaller = new CountDownLatch(5);
+        for (int i = 0; i < 15; i++) {
+            this.dispatcher.dispatch(UNLIMITED_PROTOCOL, "SSLD-" + i, new Runnable() {
+                @Override
+                public void run() {
+                    if (Thread.currentThread() == caller) {
+                        sentOnCaller.countDown();
+                    }
+                }
+            });
+        }
+
+        assertEquals(0, sentOnCaller.getCount());
+        assertEquals(10, this.dispatcher.getPendingCount());
+        release.countDown();
+    }
+
+    @Test
+    public void testRepeatedTransitionWithinWindowIsRecognized() {
+        assertFalse(this.dispatcher.isRepeatedTransition(LMD, TransitionType.DAY_NIGHT));
+        this.dispatcher.registerTransition(LMD, TransitionType.DAY_NIGHT);
+        assertTrue(this.dispatcher.isRepeatedTransition(LMD, TransitionType.DAY_NIGHT));
+        assertFalse(this.dispatcher.isRepeatedTransition("LMD-02", TransitionType.DAY_NIGHT));
+
+        this.clock.advance(999);
+        assertTrue(this.dispatcher.isRepeatedTransition(LMD, TransitionType.DAY_NIGHT));
+
+        this.clock.advance(1000);
+        assertFalse(this.dispatcher.isRepeatedTransition(LMD, TransitionType.DAY_NIGHT));
+    }
+
+    @Test
+    public void testTransitionBackToPreviousTypeIsNotRepeated() {
+        this.dispatcher.registerTransition(LMD, TransitionType.DAY_NIGHT);
+        assertFalse(this.dispatcher.isRepeatedTransition(LMD, TransitionType.NIGHT_DAY));
+        this.dispatcher.registerTransition(LMD, TransitionType.NIGHT_DAY);
+        assertFalse(this.dispatcher.isRepeatedTransition(LMD, TransitionType.DAY_NIGHT));
+        this.dispatcher.registerTransition(LMD, TransitionType.DAY_NIGHT);
+        assertTrue(this.dispatcher.isRepeatedTransition(LMD, TransitionType.DAY_NIGHT));
+    }
+
+    @Test
+    public void testUnregisteredTransitionIsNotRepeated() {
+        assertFalse(this.dispatcher.isRepeatedTransition(LMD, TransitionType.DAY_NIGHT));
+        assertFalse(this.dispatcher.isRepeatedTransition(LMD, TransitionType.DAY_NIGHT));
+    }
+
+    @Test
+    public void testUnknownProtocolGetsDefaultRateLimit() {
+        assertEquals(0, this.dispatcher.reserve(null));
+    }
+
+    @Test
+    public void testFailingTransitionIsCounted() throws InterruptedException {
+        final CountDownLatch sent = this.dispatch(UNLIMITED_PROTOCOL, 1);
+        this.dispatcher.dispatch(UNLIMITED_PROTOCOL, "SSLD-failing", new Runnable() {
+            @Override
+            public void run() {
+                throw new IllegalStateException("Broker not available");
+            }
+        });
+
+        assertTrue(sent.await(MAX_WAIT_MILLIS, TimeUnit.MILLISECONDS));
+        this.dispatcher.destroy();
+        assertEquals(1, this.dispatcher.getSentCount());
+        assertEquals(1, this.dispatcher.getFailedCount());
+    }
+
+    private CountDownLatch dispatch(final String protocol, final int count) {
+        final CountDownLatch sent = new CountDownLatch(count);
+        for (int i = 0; i < count; i++) {
+            this.dispatcher.dispatch(protocol, "SSLD-" + i, new Runnable() {
+                @Override
+                public void run() {
+                    sent.countDown();
+                }
+            });
+        }
+        return sent;
+    }
+
+    private static class VirtualClock extends Clock {
+        private long millis;
+
+        void advance(final long millis) {
+            this.millis += millis;
+        }
+
+        @Override
+        public long millis() {
+            return this.millis;
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(this.millis);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(final ZoneId zone) {
+            return this;
+        }
+    }
+}
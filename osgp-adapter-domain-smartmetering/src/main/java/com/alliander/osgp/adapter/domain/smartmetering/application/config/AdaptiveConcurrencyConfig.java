@@ -0,0 +1,90 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.adapter.domain.smartmetering.application.config;
+
+import javax.management.JMException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.context.annotation.PropertySources;
+import org.springframework.jms.listener.DefaultMessageListenerContainer;
+
+import com.alliander.osgp.domain.core.jms.AdaptiveConcurrencyController;
+import com.alliander.osgp.domain.core.jms.AdaptiveConcurrencySettings;
+import com.alliander.osgp.domain.core.jms.BrokerStatisticsQueueDepthProbe;
+import com.alliander.osgp.domain.core.jms.HikariConnectionPoolProbe;
+import com.alliander.osgp.domain.core.jms.metrics.MessageMetrics;
+import com.alliander.osgp.shared.application.config.AbstractConfig;
+
+/**
+ * Sizes the consumers of the incoming web service requests and osgp-core
+ * responses, which back up during the meter read windows, from the depth of
+ * their queues, the processing time of their messages and the saturation of
+ * the database connection pool.
+ */
+@Configuration
+@PropertySources({ @PropertySource("classpath:osgp-adapter-domain-smartmetering.properties"),
+        @PropertySource(value = "file:${osgp/Global/config}", ignoreResourceNotFound = true),
+        @PropertySource(value = "file:${osgp/AdapterDomainSmartMetering/config}", ignoreResourceNotFound = true), })
+public class AdaptiveConcurrencyConfig extends AbstractConfig {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AdaptiveConcurrencyConfig.class);
+
+    private static final String PROPERTY_NAME_ADAPTIVE_CONCURRENCY_ENABLED = "jms.adaptive.concurrency.enabled";
+    private static final String PROPERTY_NAME_ADAPTIVE_CONCURRENCY_INTERVAL = "jms.adaptive.concurrency.interval";
+    private static final String PROPERTY_NAME_ADAPTIVE_CONCURRENCY_TARGET_DRAIN_TIME = "jms.adaptive.concurrency.target.drain.time";
+    private static final String PROPERTY_NAME_ADAPTIVE_CONCURRENCY_MAXIMUM_POOL_SATURATION = "jms.adaptive.concurrency.maximum.pool.saturation";
+    private static final String PROPERTY_NAME_ADAPTIVE_CONCURRENCY_SCALE_DOWN_INTERVALS = "jms.adaptive.concurrency.scale.down.intervals";
+    private static final String PROPERTY_NAME_ADAPTIVE_CONCURRENCY_STATISTICS_TIMEOUT = "jms.adaptive.concurrency.statistics.timeout";
+
+    private static final String PROPERTY_NAME_DATABASE_MAX_POOL_SIZE = "db.max_pool_size";
+
+    @Autowired
+    @Qualifier("domainSmartMeteringIncomingWebServiceRequestMessageListenerContainer")
+    private DefaultMessageListenerContainer incomingWebServiceRequestsMessageListenerContainer;
+
+    @Autowired
+    @Qualifier("domainSmartMeteringIncomingOsgpCoreResponsesMessageListenerContainer")
+    private DefaultMessageListenerContainer incomingOsgpCoreResponsesMessageListenerContainer;
+
+    @Autowired
+    private MessageMetrics messageMetrics;
+
+    @Bean(initMethod = "start", destroyMethod = "destroy")
+    public AdaptiveConcurrencyController adaptiveConcurrencyController() throws JMException {
+        final AdaptiveConcurrencySettings settings = new AdaptiveConcurrencySettings(
+                Long.parseLong(this.environment.getRequiredProperty(PROPERTY_NAME_ADAPTIVE_CONCURRENCY_INTERVAL)),
+                Long.parseLong(
+                        this.environment.getRequiredProperty(PROPERTY_NAME_ADAPTIVE_CONCURRENCY_TARGET_DRAIN_TIME)),
+                Double.parseDouble(this.environment
+                        .getRequiredProperty(PROPERTY_NAME_ADAPTIVE_CONCURRENCY_MAXIMUM_POOL_SATURATION)),
+                Integer.parseInt(
+                        this.environment.getRequiredProperty(PROPERTY_NAME_ADAPTIVE_CONCURRENCY_SCALE_DOWN_INTERVALS)));
+
+        final AdaptiveConcurrencyController controller = new AdaptiveConcurrencyController(settings,
+                this.messageMetrics,
+                new BrokerStatisticsQueueDepthProbe(Long.parseLong(
+                        this.environment.getRequiredProperty(PROPERTY_NAME_ADAPTIVE_CONCURRENCY_STATISTICS_TIMEOUT))),
+                new HikariConnectionPoolProbe(PersistenceConfig.CONNECTION_POOL_NAME,
+                        Integer.parseInt(this.environment.getRequiredProperty(PROPERTY_NAME_DATABASE_MAX_POOL_SIZE))));
+
+        if (!Boolean.parseBoolean(this.environment.getRequiredProperty(PROPERTY_NAME_ADAPTIVE_CONCURRENCY_ENABLED))) {
+            LOGGER.info("Adaptive concurrency disabled, the message listener containers scale by themselves");
+            return controller;
+        }
+
+        controller.register("incoming web service requests", this.incomingWebServiceRequestsMessageListenerContainer);
+        controller.register("incoming osgp-core responses", this.incomingOsgpCoreResponsesMessageListenerContainer);
+        return controller;
+    }
+}
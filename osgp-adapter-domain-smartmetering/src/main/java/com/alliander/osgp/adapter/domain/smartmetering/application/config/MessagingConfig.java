@@ -11,6 +11,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
 import org.springframework.context.annotation.PropertySource;
 import org.springframework.context.annotation.PropertySources;
 import org.springframework.jms.core.JmsTemplate;
@@ -20,6 +21,10 @@ import com.alliander.osgp.adapter.domain.smartmetering.infra.jms.OsgpCoreRequest
 import com.alliander.osgp.adapter.domain.smartmetering.infra.jms.core.OsgpCoreResponseMessageListener;
 import com.alliander.osgp.adapter.domain.smartmetering.infra.jms.ws.WebServiceRequestMessageListener;
 import com.alliander.osgp.adapter.domain.smartmetering.infra.jms.ws.WebServiceResponseMessageSender;
+import com.alliander.osgp.domain.core.codec.MessageCodecNegotiator;
+import com.alliander.osgp.domain.core.codec.MessageCodecs;
+import com.alliander.osgp.domain.core.jms.metrics.MessageMetrics;
+import com.alliander.osgp.domain.core.jms.metrics.MessageMetricsConfig;
 import com.alliander.osgp.shared.application.config.AbstractMessagingConfig;
 import com.alliander.osgp.shared.application.config.jms.JmsConfiguration;
 import com.alliander.osgp.shared.application.config.jms.JmsConfigurationFactory;
@@ -29,11 +34,18 @@ import com.alliander.osgp.shared.application.config.jms.JmsConfigurationNames;
  * An application context Java configuration class.
  */
 @Configuration
+@Import(MessageMetricsConfig.class)
 @PropertySources({ @PropertySource("classpath:osgp-adapter-domain-smartmetering.properties"),
     @PropertySource(value = "file:${osgp/Global/config}", ignoreResourceNotFound = true),
     @PropertySource(value = "file:${osgp/AdapterDomainSmartMetering/config}", ignoreResourceNotFound = true), })
 public class MessagingConfig extends AbstractMessagingConfig {
 
+    private static final String PROPERTY_NAME_JMS_OUTGOING_OSGP_CORE_REQUESTS_MESSAGE_CODEC = "jms.outgoing.osgp.core.requests.message.codec";
+    private static final String PROPERTY_NAME_JMS_OUTGOING_OSGP_CORE_REQUESTS_MESSAGE_CODEC_HOLD_OFF = "jms.outgoing.osgp.core.requests.message.codec.hold.off";
+
+    @Autowired
+    private MessageMetrics messageMetrics;
+
     @Autowired
     @Qualifier("domainSmartMeteringIncomingWebServiceRequestMessageListener")
     private WebServiceRequestMessageListener incomingWebServiceRequestMessageListener;
@@ -49,7 +61,8 @@ public class MessagingConfig extends AbstractMessagingConfig {
     @Bean
     public JmsConfiguration incomingWebServiceJmsConfiguration(final JmsConfigurationFactory jmsConfigurationFactory) {
         return jmsConfigurationFactory.initializeConfiguration(JmsConfigurationNames.JMS_INCOMING_WS_REQUESTS,
-                this.incomingWebServiceRequestMessageListener);
+                this.messageMetrics.metered(JmsConfigurationNames.JMS_INCOMING_WS_REQUESTS,
+                        this.incomingWebServiceRequestMessageListener));
     }
 
     @Bean(name = "domainSmartMeteringIncomingWebServiceRequestMessageListenerContainer")
@@ -87,6 +100,15 @@ public class MessagingConfig extends AbstractMessagingConfig {
         return outgoingOsgpCoreRequestsJmsConfiguration.getJmsTemplate();
     }
 
+    @Bean(name = "domainSmartMeteringOutgoingOsgpCoreRequestsMessageCodecNegotiator")
+    public MessageCodecNegotiator outgoingOsgpCoreRequestsMessageCodecNegotiator() {
+        return new MessageCodecNegotiator(
+                MessageCodecs.forName(this.environment
+                        .getRequiredProperty(PROPERTY_NAME_JMS_OUTGOING_OSGP_CORE_REQUESTS_MESSAGE_CODEC)),
+                Long.parseLong(this.environment
+                        .getRequiredProperty(PROPERTY_NAME_JMS_OUTGOING_OSGP_CORE_REQUESTS_MESSAGE_CODEC_HOLD_OFF)));
+    }
+
     // JMS SETTINGS: INCOMING OSGP CORE RESPONSES (receiving responses from OSGP
     // core)
 
@@ -94,7 +116,8 @@ public class MessagingConfig extends AbstractMessagingConfig {
     public JmsConfiguration incomingOsgpCoreResponsesJmsConfiguration(
             final JmsConfigurationFactory jmsConfigurationFactory) {
         return jmsConfigurationFactory.initializeConfiguration(JmsConfigurationNames.JMS_INCOMING_OSGP_CORE_RESPONSES,
-                this.incomingOsgpCoreResponseMessageListener);
+                this.messageMetrics.metered(JmsConfigurationNames.JMS_INCOMING_OSGP_CORE_RESPONSES,
+                        this.incomingOsgpCoreResponseMessageListener));
     }
 
     @Bean(name = "domainSmartMeteringIncomingOsgpCoreResponsesMessageListenerContainer")
@@ -110,7 +133,8 @@ public class MessagingConfig extends AbstractMessagingConfig {
     public JmsConfiguration incomingOsgpCoreRequestsJmsConfiguration(
             final JmsConfigurationFactory jmsConfigurationFactory) {
         return jmsConfigurationFactory.initializeConfiguration(JmsConfigurationNames.JMS_INCOMING_OSGP_CORE_REQUESTS,
-                this.incomingOsgpCoreRequestMessageListener);
+                this.messageMetrics.metered(JmsConfigurationNames.JMS_INCOMING_OSGP_CORE_REQUESTS,
+                        this.incomingOsgpCoreRequestMessageListener));
     }
 
     @Bean(name = "domainSmartMeteringIncomingOsgpCoreRequestsMessageListenerContainer")
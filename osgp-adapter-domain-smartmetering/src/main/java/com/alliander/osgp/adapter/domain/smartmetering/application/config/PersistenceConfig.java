@@ -60,6 +60,11 @@ public class PersistenceConfig extends AbstractConfig {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(PersistenceConfig.class);
 
+    /**
+     * Name of the connection pool, its saturation is read through JMX.
+     */
+    public static final String CONNECTION_POOL_NAME = "osgp-adapter-domain-smartmetering";
+
     private HikariDataSource dataSource;
 
     /**
@@ -97,6 +102,8 @@ public class PersistenceConfig extends AbstractConfig {
             .withAutoCommit(isAutoCommit).withIdleTimeout(idleTimeout);
             final DefaultConnectionPoolFactory factory = builder.build();
             this.dataSource = factory.getDefaultConnectionPool();
+            this.dataSource.setPoolName(CONNECTION_POOL_NAME);
+            this.dataSource.setRegisterMbeans(true);
         }
 
         return this.dataSource;
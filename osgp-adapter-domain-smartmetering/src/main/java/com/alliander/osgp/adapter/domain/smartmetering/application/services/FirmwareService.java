@@ -14,6 +14,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.TreeMap;
 
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
@@ -24,6 +25,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import com.alliander.osgp.domain.core.entities.DeviceModel;
 import com.alliander.osgp.domain.core.entities.FirmwareFile;
+import com.alliander.osgp.domain.core.entities.FirmwareFileFirmwareModule;
 import com.alliander.osgp.domain.core.entities.FirmwareModule;
 import com.alliander.osgp.domain.core.entities.SmartMeter;
 import com.alliander.osgp.domain.core.repositories.FirmwareFileRepository;
@@ -227,8 +229,19 @@ public class FirmwareService {
         final Map<FirmwareModuleType, String> firmwareVersionByModuleType = this
                 .getFirmwareVersionByModuleType(firmwareVersions);
 
-        final FirmwareFile firmwareFile = this.firmwareFileRepository.findByIdentification(firmwareIdentification);
-        final Map<FirmwareModule, String> moduleVersionsInFirmwareFile = firmwareFile.getModuleVersions();
+        // The firmware file is only referenced, so its contents are not
+        // loaded.
+        final Long firmwareFileId = this.firmwareFileRepository.findIdByIdentification(firmwareIdentification);
+        if (firmwareFileId == null) {
+            throw new FunctionalException(FunctionalExceptionType.UNKNOWN_FIRMWARE, ComponentType.DOMAIN_SMART_METERING,
+                    new OsgpException(ComponentType.DOMAIN_SMART_METERING,
+                            "Unknown firmware file: " + firmwareIdentification));
+        }
+        final Map<FirmwareModule, String> moduleVersionsInFirmwareFile = new TreeMap<>();
+        for (final FirmwareFileFirmwareModule firmwareModule : this.firmwareFileRepository
+                .findFirmwareModulesByIdentification(firmwareIdentification)) {
+            moduleVersionsInFirmwareFile.put(firmwareModule.getFirmwareModule(), firmwareModule.getModuleVersion());
+        }
 
         this.checkFirmwareIsUpdated(firmwareVersionByModuleType, FirmwareModuleType.COMMUNICATION,
                 moduleVersionsInFirmwareFile, MODULE_DESCRIPTION_COMMUNICATION_MODULE_ACTIVE_FIRMWARE,
@@ -239,7 +252,7 @@ public class FirmwareService {
         this.checkFirmwareIsUpdated(firmwareVersionByModuleType, FirmwareModuleType.ACTIVE_FIRMWARE,
                 moduleVersionsInFirmwareFile, MODULE_DESCRIPTION_ACTIVE_FIRMWARE, smartMeter.getDeviceIdentification());
 
-        smartMeter.addFirmwareFile(firmwareFile, organisationIdentification);
+        smartMeter.addFirmwareFile(this.firmwareFileRepository.getOne(firmwareFileId), organisationIdentification);
         return this.smartMeterRepository.save(smartMeter);
     }
 
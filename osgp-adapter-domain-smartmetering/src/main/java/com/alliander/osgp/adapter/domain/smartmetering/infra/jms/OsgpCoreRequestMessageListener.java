@@ -17,6 +17,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Component;
 
+import com.alliander.osgp.domain.core.jms.metrics.MeteredMessageListener;
 import com.alliander.osgp.shared.infra.jms.MessageProcessor;
 import com.alliander.osgp.shared.infra.jms.MessageProcessorMap;
 
@@ -47,6 +48,7 @@ public class OsgpCoreRequestMessageListener implements MessageListener {
              * requests coming in from OSGP-Core, where exceptions should be
              * rapported to.
              */
+            MeteredMessageListener.markFailed();
             LOGGER.error("Exception while handling a request from OSGP-Core: ", e);
         }
     }
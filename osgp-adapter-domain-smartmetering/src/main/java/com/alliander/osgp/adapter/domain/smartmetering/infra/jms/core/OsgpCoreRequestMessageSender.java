@@ -9,7 +9,6 @@ package com.alliander.osgp.adapter.domain.smartmetering.infra.jms.core;
 
 import javax.jms.JMSException;
 import javax.jms.Message;
-import javax.jms.ObjectMessage;
 import javax.jms.Session;
 
 import org.springframework.beans.factory.annotation.Autowired;
@@ -18,6 +17,8 @@ import org.springframework.jms.core.JmsTemplate;
 import org.springframework.jms.core.MessageCreator;
 import org.springframework.stereotype.Component;
 
+import com.alliander.osgp.domain.core.codec.MessageCodecNegotiator;
+import com.alliander.osgp.domain.core.codec.MessageCodecs;
 import com.alliander.osgp.shared.infra.jms.Constants;
 import com.alliander.osgp.shared.infra.jms.RequestMessage;
 
@@ -29,6 +30,10 @@ public class OsgpCoreRequestMessageSender {
     @Qualifier("domainSmartMeteringOutgoingOsgpCoreRequestsJmsTemplate")
     private JmsTemplate osgpCoreRequestsJmsTemplate;
 
+    @Autowired
+    @Qualifier("domainSmartMeteringOutgoingOsgpCoreRequestsMessageCodecNegotiator")
+    private MessageCodecNegotiator osgpCoreRequestsMessageCodecNegotiator;
+
     public void send(final RequestMessage requestMessage, final String messageType, final int messagePriority,
             final Long scheduleTime) {
         this.send(requestMessage, messageType, messagePriority, scheduleTime, false);
@@ -42,22 +47,22 @@ public class OsgpCoreRequestMessageSender {
 
             @Override
             public Message createMessage(final Session session) throws JMSException {
-                final ObjectMessage objectMessage = session.createObjectMessage();
+                final Message message = MessageCodecs.createMessage(session, requestMessage.getRequest(),
+                        OsgpCoreRequestMessageSender.this.osgpCoreRequestsMessageCodecNegotiator.select());
 
-                objectMessage.setJMSType(messageType);
-                objectMessage.setJMSCorrelationID(requestMessage.getCorrelationUid());
-                objectMessage.setStringProperty(Constants.ORGANISATION_IDENTIFICATION,
+                message.setJMSType(messageType);
+                message.setJMSCorrelationID(requestMessage.getCorrelationUid());
+                message.setStringProperty(Constants.ORGANISATION_IDENTIFICATION,
                         requestMessage.getOrganisationIdentification());
-                objectMessage.setStringProperty(Constants.DEVICE_IDENTIFICATION,
+                message.setStringProperty(Constants.DEVICE_IDENTIFICATION,
                         requestMessage.getDeviceIdentification());
-                objectMessage.setBooleanProperty(Constants.BYPASS_RETRY, bypassRetry);
+                message.setBooleanProperty(Constants.BYPASS_RETRY, bypassRetry);
                 if (scheduleTime != null) {
-                    objectMessage.setLongProperty(Constants.SCHEDULE_TIME, scheduleTime);
+                    message.setLongProperty(Constants.SCHEDULE_TIME, scheduleTime);
                 }
-                objectMessage.setStringProperty(Constants.IP_ADDRESS, requestMessage.getIpAddress());
-                objectMessage.setObject(requestMessage.getRequest());
+                message.setStringProperty(Constants.IP_ADDRESS, requestMessage.getIpAddress());
 
-                return objectMessage;
+                return message;
             }
         });
     }
@@ -18,6 +18,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Component;
 
+import com.alliander.osgp.domain.core.codec.MessageCodecNegotiator;
+import com.alliander.osgp.domain.core.jms.metrics.MeteredMessageListener;
 import com.alliander.osgp.shared.infra.jms.MessageProcessor;
 import com.alliander.osgp.shared.infra.jms.MessageProcessorMap;
 
@@ -31,6 +33,10 @@ public class OsgpCoreResponseMessageListener implements MessageListener {
     @Qualifier("domainSmartMeteringOsgpCoreResponseMessageProcessorMap")
     private MessageProcessorMap osgpCoreResponseMessageProcessorMap;
 
+    @Autowired
+    @Qualifier("domainSmartMeteringOutgoingOsgpCoreRequestsMessageCodecNegotiator")
+    private MessageCodecNegotiator osgpCoreRequestsMessageCodecNegotiator;
+
     public OsgpCoreResponseMessageListener() {
         // empty constructor
     }
@@ -39,6 +45,7 @@ public class OsgpCoreResponseMessageListener implements MessageListener {
     public void onMessage(final Message message) {
         try {
             LOGGER.info("Received message of type: {}", message.getJMSType());
+            this.osgpCoreRequestsMessageCodecNegotiator.observe(message);
 
             final ObjectMessage objectMessage = (ObjectMessage) message;
 
@@ -48,6 +55,7 @@ public class OsgpCoreResponseMessageListener implements MessageListener {
             processor.processMessage(objectMessage);
 
         } catch (final JMSException ex) {
+            MeteredMessageListener.markFailed();
             LOGGER.error("Exception: {} ", ex.getMessage(), ex);
         }
     }
@@ -18,6 +18,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Component;
 
+import com.alliander.osgp.domain.core.codec.MessageCodecs;
+import com.alliander.osgp.domain.core.jms.metrics.MeteredMessageListener;
 import com.alliander.osgp.shared.infra.jms.MessageProcessor;
 import com.alliander.osgp.shared.infra.jms.MessageProcessorMap;
 
@@ -40,7 +42,7 @@ public class WebServiceRequestMessageListener implements MessageListener {
         try {
             LOGGER.info("Received message of type: {}", message.getJMSType());
 
-            final ObjectMessage objectMessage = (ObjectMessage) message;
+            final ObjectMessage objectMessage = MessageCodecs.asObjectMessage(message);
 
             final MessageProcessor processor = this.webServiceRequestMessageProcessorMap
                     .getMessageProcessor(objectMessage);
@@ -48,6 +50,7 @@ public class WebServiceRequestMessageListener implements MessageListener {
             processor.processMessage(objectMessage);
 
         } catch (final JMSException ex) {
+            MeteredMessageListener.markFailed();
             LOGGER.error("Exception: {} ", ex.getMessage(), ex);
         }
     }
@@ -12,6 +12,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
 import org.springframework.context.annotation.PropertySource;
 import org.springframework.context.annotation.PropertySources;
 import org.springframework.jms.core.JmsTemplate;
@@ -21,6 +22,8 @@ import com.alliander.osgp.adapter.domain.tariffswitching.infra.jms.OsgpCoreReque
 import com.alliander.osgp.adapter.domain.tariffswitching.infra.jms.core.OsgpCoreResponseMessageListener;
 import com.alliander.osgp.adapter.domain.tariffswitching.infra.jms.ws.WebServiceRequestMessageListener;
 import com.alliander.osgp.adapter.domain.tariffswitching.infra.jms.ws.WebServiceResponseMessageSender;
+import com.alliander.osgp.domain.core.jms.metrics.MessageMetrics;
+import com.alliander.osgp.domain.core.jms.metrics.MessageMetricsConfig;
 import com.alliander.osgp.shared.application.config.AbstractMessagingConfig;
 import com.alliander.osgp.shared.application.config.jms.JmsConfiguration;
 import com.alliander.osgp.shared.application.config.jms.JmsConfigurationFactory;
@@ -31,11 +34,15 @@ import com.alliander.osgp.shared.application.config.jms.JmsPropertyNames;
  * An application context Java configuration class.
  */
 @Configuration
+@Import(MessageMetricsConfig.class)
 @PropertySources({ @PropertySource("classpath:osgp-adapter-domain-tariffswitching.properties"),
         @PropertySource(value = "file:${osgp/Global/config}", ignoreResourceNotFound = true),
         @PropertySource(value = "file:${osgp/AdapterDomainTariffSwitching/config}", ignoreResourceNotFound = true), })
 public class MessagingConfig extends AbstractMessagingConfig {
 
+    @Autowired
+    private MessageMetrics messageMetrics;
+
     @Autowired
     @Qualifier("domainTariffSwitchingIncomingWebServiceRequestMessageListener")
     private WebServiceRequestMessageListener incomingWebServiceRequestMessageListener;
@@ -68,7 +75,8 @@ public class MessagingConfig extends AbstractMessagingConfig {
     public JmsConfiguration incomingWebServiceRequestsJmsConfiguration(
             final JmsConfigurationFactory jmsConfigurationFactory) {
         return jmsConfigurationFactory.initializeReceiveConfiguration(JmsConfigurationNames.JMS_INCOMING_WS_REQUESTS,
-                this.incomingWebServiceRequestMessageListener);
+                this.messageMetrics.metered(JmsConfigurationNames.JMS_INCOMING_WS_REQUESTS,
+                        this.incomingWebServiceRequestMessageListener));
     }
 
     @Bean(name = "domainTariffSwitchingIncomingWebServiceRequestsMessageListenerContainer")
@@ -117,7 +125,9 @@ public class MessagingConfig extends AbstractMessagingConfig {
     public JmsConfiguration incomingOsgpCoreResponsesJmsConfiguration(
             final JmsConfigurationFactory jmsConfigurationFactory) {
         return jmsConfigurationFactory.initializeReceiveConfiguration(
-                JmsConfigurationNames.JMS_INCOMING_OSGP_CORE_RESPONSES, this.incomingOsgpCoreResponseMessageListener);
+                JmsConfigurationNames.JMS_INCOMING_OSGP_CORE_RESPONSES,
+                this.messageMetrics.metered(JmsConfigurationNames.JMS_INCOMING_OSGP_CORE_RESPONSES,
+                        this.incomingOsgpCoreResponseMessageListener));
     }
 
     @Bean(name = "domainTariffSwitchingIncomingOsgpCoreResponsesMessageListenerContainer")
@@ -133,7 +143,9 @@ public class MessagingConfig extends AbstractMessagingConfig {
     public JmsConfiguration incomingOsgpCoreRequestsJmsConfiguration(
             final JmsConfigurationFactory jmsConfigurationFactory) {
         return jmsConfigurationFactory.initializeReceiveConfiguration(
-                JmsConfigurationNames.JMS_INCOMING_OSGP_CORE_REQUESTS, this.incomingWebServiceRequestMessageListener);
+                JmsConfigurationNames.JMS_INCOMING_OSGP_CORE_REQUESTS,
+                this.messageMetrics.metered(JmsConfigurationNames.JMS_INCOMING_OSGP_CORE_REQUESTS,
+                        this.incomingWebServiceRequestMessageListener));
     }
 
     @Bean(name = "domainTariffSwitchingIncomingOsgpCoreRequestsMessageListenerContainer")
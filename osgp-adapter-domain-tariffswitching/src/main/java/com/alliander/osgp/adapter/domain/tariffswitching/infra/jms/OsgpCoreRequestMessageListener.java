@@ -18,6 +18,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Component;
 
+import com.alliander.osgp.domain.core.jms.metrics.MeteredMessageListener;
 import com.alliander.osgp.shared.infra.jms.RequestMessage;
 import com.alliander.osgp.shared.infra.jms.UnknownMessageTypeException;
 
@@ -44,9 +45,11 @@ public class OsgpCoreRequestMessageListener implements MessageListener {
 
         } catch (final JMSException e) {
             // Can't read message.
+            MeteredMessageListener.markFailed();
             LOGGER.error("Exception: {}, StackTrace: {}", e.getMessage(), e.getStackTrace(), e);
         } catch (final UnknownMessageTypeException e) {
             // Don't know this message.
+            MeteredMessageListener.markFailed();
             LOGGER.error("UnknownMessageTypeException", e);
         }
     }
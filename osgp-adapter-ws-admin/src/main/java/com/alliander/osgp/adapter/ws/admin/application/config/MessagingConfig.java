@@ -7,16 +7,22 @@
  */
 package com.alliander.osgp.adapter.ws.admin.application.config;
 
+import javax.persistence.EntityManagerFactory;
+
+import org.apache.activemq.ActiveMQSession;
 import org.apache.activemq.RedeliveryPolicy;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.PropertySource;
 import org.springframework.context.annotation.PropertySources;
 import org.springframework.jms.core.JmsTemplate;
+import org.springframework.jms.listener.DefaultMessageListenerContainer;
 
 import com.alliander.osgp.adapter.ws.admin.infra.jms.AdminRequestMessageSender;
 import com.alliander.osgp.adapter.ws.admin.infra.jms.AdminResponseMessageFinder;
+import com.alliander.osgp.adapter.ws.infra.jms.DomainChangeMessageSender;
 import com.alliander.osgp.adapter.ws.infra.jms.LoggingMessageSender;
+import com.alliander.osgp.adapter.ws.infra.jms.ResponseMessageRegistry;
 import com.alliander.osgp.shared.application.config.AbstractMessagingConfig;
 import com.alliander.osgp.shared.application.config.jms.JmsConfiguration;
 import com.alliander.osgp.shared.application.config.jms.JmsConfigurationFactory;
@@ -30,6 +36,12 @@ import com.alliander.osgp.shared.application.config.jms.JmsPropertyNames;
 public class MessagingConfig extends AbstractMessagingConfig {
 
     public static final String PROPERTY_NAME_JMS_RECEIVE_TIMEOUT = "jms.admin.responses.receive.timeout";
+    public static final String PROPERTY_NAME_RESPONSE_REGISTRY_MAX_ENTRIES = "jms.admin.responses.registry.max.entries";
+    public static final String PROPERTY_NAME_RESPONSE_REGISTRY_HOLD_TIME = "jms.admin.responses.registry.hold.time";
+    public static final String PROPERTY_NAME_RESPONSES_QUEUE = "jms.admin.responses.queue";
+    public static final String PROPERTY_NAME_RESPONSES_HAND_OFF_QUEUE = "jms.admin.responses.hand.off.queue";
+    public static final String PROPERTY_NAME_RESPONSES_LOOK_UP_TOPIC = "jms.admin.responses.look.up.topic";
+    public static final String PROPERTY_NAME_DOMAIN_CHANGES_TOPIC = "jms.domain.changes.topic";
 
     // === JMS SETTINGS ===
 
@@ -57,7 +69,8 @@ public class MessagingConfig extends AbstractMessagingConfig {
     }
 
     @Bean(name = "wsAdminOutgoingRequestsJmsTemplate")
-    public JmsTemplate wsAdminOutgoingRequestsJmsTemplate(final JmsConfiguration wsAdminOutgoingRequestsJmsConfiguration) {
+    public JmsTemplate wsAdminOutgoingRequestsJmsTemplate(
+            final JmsConfiguration wsAdminOutgoingRequestsJmsConfiguration) {
         return wsAdminOutgoingRequestsJmsConfiguration.getJmsTemplate();
     }
 
@@ -71,20 +84,79 @@ public class MessagingConfig extends AbstractMessagingConfig {
     @Bean
     public JmsConfiguration wsAdminIncomingResponsesJmsConfiguration(
             final JmsConfigurationFactory jmsConfigurationFactory) {
-        return jmsConfigurationFactory.initializeConfiguration(JmsConfigurationNames.JMS_ADMIN_RESPONSES);
+        return jmsConfigurationFactory.initializeConfiguration(JmsConfigurationNames.JMS_ADMIN_RESPONSES,
+                this.adminResponseMessageRegistry());
     }
 
-    @Bean(name = "wsAdminIncomingResponsesJmsTemplate")
-    public JmsTemplate wsAdminIncomingResponsesJmsTemplate(
+    @Bean(name = "wsAdminResponsesHandOffJmsTemplate")
+    public JmsTemplate wsAdminResponsesHandOffJmsTemplate(
             final JmsConfiguration wsAdminIncomingResponsesJmsConfiguration) {
-        final Long receiveTimeout = Long.parseLong(this.environment
-                .getRequiredProperty(PROPERTY_NAME_JMS_RECEIVE_TIMEOUT));
+        final Long receiveTimeout = Long
+                .parseLong(this.environment.getRequiredProperty(PROPERTY_NAME_JMS_RECEIVE_TIMEOUT));
 
-        final JmsTemplate jmsTemplate = wsAdminIncomingResponsesJmsConfiguration.getJmsTemplate();
+        final JmsTemplate jmsTemplate = new JmsTemplate(
+                wsAdminIncomingResponsesJmsConfiguration.getJmsTemplate().getConnectionFactory());
+        jmsTemplate.setDefaultDestinationName(
+                this.environment.getRequiredProperty(PROPERTY_NAME_RESPONSES_HAND_OFF_QUEUE));
         jmsTemplate.setReceiveTimeout(receiveTimeout);
         return jmsTemplate;
     }
 
+    @Bean(name = "wsAdminResponsesLookUpJmsTemplate")
+    public JmsTemplate wsAdminResponsesLookUpJmsTemplate(
+            final JmsConfiguration wsAdminIncomingResponsesJmsConfiguration) {
+        final JmsTemplate jmsTemplate = new JmsTemplate(
+                wsAdminIncomingResponsesJmsConfiguration.getJmsTemplate().getConnectionFactory());
+        jmsTemplate.setPubSubDomain(true);
+        jmsTemplate.setDefaultDestinationName(
+                this.environment.getRequiredProperty(PROPERTY_NAME_RESPONSES_LOOK_UP_TOPIC));
+        // A look-up is only of use to the instances listening at the time.
+        jmsTemplate.setExplicitQosEnabled(true);
+        jmsTemplate.setDeliveryPersistent(false);
+        return jmsTemplate;
+    }
+
+    @Bean
+    public ResponseMessageRegistry adminResponseMessageRegistry() {
+        final Integer maxEntries = Integer
+                .parseInt(this.environment.getRequiredProperty(PROPERTY_NAME_RESPONSE_REGISTRY_MAX_ENTRIES));
+        final Long holdTime = Long
+                .parseLong(this.environment.getRequiredProperty(PROPERTY_NAME_RESPONSE_REGISTRY_HOLD_TIME));
+        final Long receiveTimeout = Long
+                .parseLong(this.environment.getRequiredProperty(PROPERTY_NAME_JMS_RECEIVE_TIMEOUT));
+
+        return new ResponseMessageRegistry(maxEntries, holdTime, receiveTimeout);
+    }
+
+    @Bean(name = "wsAdminIncomingResponsesMessageListenerContainer")
+    public DefaultMessageListenerContainer wsAdminIncomingResponsesMessageListenerContainer(
+            final JmsConfiguration wsAdminIncomingResponsesJmsConfiguration,
+            final JmsTemplate wsAdminResponsesHandOffJmsTemplate,
+            final JmsTemplate wsAdminResponsesLookUpJmsTemplate) {
+        final ResponseMessageRegistry registry = this.adminResponseMessageRegistry();
+        final DefaultMessageListenerContainer messageListenerContainer = wsAdminIncomingResponsesJmsConfiguration
+                .getMessageListenerContainer();
+        // The registry acknowledges a response when it is taken or handed off.
+        messageListenerContainer.setSessionTransacted(false);
+        messageListenerContainer.setSessionAcknowledgeMode(ActiveMQSession.INDIVIDUAL_ACKNOWLEDGE);
+        messageListenerContainer.setDestinationName(
+                registry.getDestinationName(this.environment.getRequiredProperty(PROPERTY_NAME_RESPONSES_QUEUE)));
+        registry.setHandOffJmsTemplate(wsAdminResponsesHandOffJmsTemplate);
+        registry.setLookUpJmsTemplate(wsAdminResponsesLookUpJmsTemplate);
+        return messageListenerContainer;
+    }
+
+    @Bean(name = "wsAdminResponsesLookUpMessageListenerContainer")
+    public DefaultMessageListenerContainer wsAdminResponsesLookUpMessageListenerContainer(
+            final JmsTemplate wsAdminResponsesLookUpJmsTemplate) {
+        final DefaultMessageListenerContainer messageListenerContainer = new DefaultMessageListenerContainer();
+        messageListenerContainer.setConnectionFactory(wsAdminResponsesLookUpJmsTemplate.getConnectionFactory());
+        messageListenerContainer.setPubSubDomain(true);
+        messageListenerContainer.setDestinationName(wsAdminResponsesLookUpJmsTemplate.getDefaultDestinationName());
+        messageListenerContainer.setMessageListener(this.adminResponseMessageRegistry().getLookUpListener());
+        return messageListenerContainer;
+    }
+
     @Bean
     public AdminResponseMessageFinder adminResponseMessageFinder() {
         return new AdminResponseMessageFinder();
@@ -106,4 +178,29 @@ public class MessagingConfig extends AbstractMessagingConfig {
     public LoggingMessageSender loggingMessageSender() {
         return new LoggingMessageSender();
     }
+
+    // === JMS SETTINGS: DOMAIN CHANGES ===
+
+    @Bean(name = "wsAdminDomainChangesJmsTemplate")
+    public JmsTemplate wsAdminDomainChangesJmsTemplate(
+            final JmsConfiguration wsAdminOutgoingRequestsJmsConfiguration) {
+        final JmsTemplate jmsTemplate = new JmsTemplate(
+                wsAdminOutgoingRequestsJmsConfiguration.getJmsTemplate().getConnectionFactory());
+        jmsTemplate.setPubSubDomain(true);
+        jmsTemplate.setDefaultDestinationName(
+                this.environment.getRequiredProperty(PROPERTY_NAME_DOMAIN_CHANGES_TOPIC));
+        // A change is only of use to the instances listening at the time.
+        jmsTemplate.setExplicitQosEnabled(true);
+        jmsTemplate.setDeliveryPersistent(false);
+        return jmsTemplate;
+    }
+
+    @Bean
+    public DomainChangeMessageSender domainChangeMessageSender(final JmsTemplate wsAdminDomainChangesJmsTemplate,
+            final EntityManagerFactory entityManagerFactory) {
+        final DomainChangeMessageSender domainChangeMessageSender = new DomainChangeMessageSender(
+                wsAdminDomainChangesJmsTemplate);
+        domainChangeMessageSender.register(entityManagerFactory);
+        return domainChangeMessageSender;
+    }
 }
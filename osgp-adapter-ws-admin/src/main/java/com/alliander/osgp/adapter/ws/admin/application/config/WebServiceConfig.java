@@ -46,6 +46,7 @@ public class WebServiceConfig extends AbstractConfig {
     private static final Logger LOGGER = LoggerFactory.getLogger(WebServiceConfig.class);
 
     private static final String PROPERTY_NAME_MARSHALLER_CONTEXT_PATH_DEVICE_MANAGEMENT = "jaxb2.marshaller.context.path.devicemanagement";
+    private static final String PROPERTY_NAME_WEB_SERVICE_MONITOR_PAYLOAD_LOG_SAMPLE_INTERVAL = "web.service.monitor.payload.log.sample.interval";
 
     private static final String ORGANISATION_IDENTIFICATION_HEADER = "OrganisationIdentification";
     private static final String ORGANISATION_IDENTIFICATION_CONTEXT = ORGANISATION_IDENTIFICATION_HEADER;
@@ -159,8 +160,11 @@ public class WebServiceConfig extends AbstractConfig {
     public WebServiceMonitorInterceptor webServiceMonitorInterceptor() {
         LOGGER.debug("Creating Web Service Monitor Interceptor Bean");
 
-        return new WebServiceMonitorInterceptor(ORGANISATION_IDENTIFICATION_HEADER, USER_NAME_HEADER,
-                APPLICATION_NAME_HEADER);
+        final WebServiceMonitorInterceptor webServiceMonitorInterceptor = new WebServiceMonitorInterceptor(
+                ORGANISATION_IDENTIFICATION_HEADER, USER_NAME_HEADER, APPLICATION_NAME_HEADER);
+        webServiceMonitorInterceptor.setPayloadLogSampleInterval(Integer.parseInt(this.environment
+                .getRequiredProperty(PROPERTY_NAME_WEB_SERVICE_MONITOR_PAYLOAD_LOG_SAMPLE_INTERVAL)));
+        return webServiceMonitorInterceptor;
     }
 
 }
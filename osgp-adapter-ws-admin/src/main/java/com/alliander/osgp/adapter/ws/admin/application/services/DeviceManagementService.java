@@ -7,7 +7,14 @@
  */
 package com.alliander.osgp.adapter.ws.admin.application.services;
 
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
 
 import javax.naming.OperationNotSupportedException;
 import javax.persistence.PersistenceException;
@@ -18,6 +25,7 @@ import javax.validation.constraints.NotNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
@@ -55,6 +63,9 @@ import com.alliander.osgp.domain.core.validation.Identification;
 import com.alliander.osgp.domain.core.validation.PublicKey;
 import com.alliander.osgp.domain.core.valueobjects.DeviceFunction;
 import com.alliander.osgp.domain.core.valueobjects.DeviceFunctionGroup;
+import com.alliander.osgp.domain.core.valueobjects.DeviceSummary;
+import com.alliander.osgp.domain.core.valueobjects.KeysetCursor;
+import com.alliander.osgp.domain.core.valueobjects.KeysetPage;
 import com.alliander.osgp.domain.core.valueobjects.PlatformDomain;
 import com.alliander.osgp.domain.core.valueobjects.PlatformFunction;
 import com.alliander.osgp.domain.core.valueobjects.PlatformFunctionGroup;
@@ -97,6 +108,9 @@ public class DeviceManagementService {
     @Autowired
     private DeviceLogItemRepository logItemRepository;
 
+    @Value("${message.logs.max.age.days:0}")
+    private int messageLogsMaxAgeDays;
+
     @Autowired
     private DeviceAuthorizationRepository authorizationRepository;
 
@@ -294,7 +308,9 @@ public class DeviceManagementService {
     }
 
     /**
-     * Get all devices which have no owner.
+     * Get all devices which have no owner. The authorizations of the devices
+     * are loaded lazily, so to map the devices outside a transaction use
+     * {@link #findDevicesWhichHaveNoOwnerWithAuthorizationsByKeyset} instead.
      *
      * @return All devices which have no owner.
      *
@@ -311,6 +327,143 @@ public class DeviceManagementService {
         return this.deviceRepository.findDevicesWithNoOwner();
     }
 
+    /**
+     * Get a page of the devices which have no owner, newest first. The devices
+     * are found as summaries, without their authorizations, and by keyset, so
+     * every page takes an index seek.
+     *
+     * @param pageSize
+     *            The number of devices on the page, at most the maximum page
+     *            size. Null for the maximum page size.
+     * @param cursor
+     *            The cursor of the previous page, or null for the first page.
+     *
+     * @return A page with devices, with the cursor of the next page.
+     *
+     * @throws FunctionalException
+     *             In case the organisation can not be found or the organisation
+     *             is not allowed to perform this action.
+     */
+    @Transactional(value = "transactionManager", readOnly = true)
+    public KeysetPage<DeviceSummary> findDevicesWhichHaveNoOwnerByKeyset(
+            @Identification final String organisationIdentification, final Integer pageSize,
+            final KeysetCursor cursor) throws FunctionalException {
+
+        LOGGER.debug("findDevicesWhichHaveNoOwnerByKeyset called for organisation {} after {}",
+                organisationIdentification, cursor);
+
+        final Organisation organisation = this.findOrganisation(organisationIdentification);
+
+        this.isAllowed(organisation, PlatformFunction.GET_DEVICE_NO_OWNER);
+
+        final int size = this.getKeysetPageSize(pageSize);
+
+        // One device more than the page size tells whether there is a next
+        // page.
+        final PageRequest request = new PageRequest(0, size + 1);
+        final List<DeviceSummary> devices;
+        if (cursor == null) {
+            devices = this.deviceRepository.findSummariesOfDevicesWithNoOwner(request);
+        } else {
+            devices = this.deviceRepository.findSummariesOfDevicesWithNoOwnerBefore(cursor.getDateTime(),
+                    cursor.getId(), request);
+        }
+        if (devices.size() <= size) {
+            return new KeysetPage<>(devices, null);
+        }
+
+        return new KeysetPage<>(new ArrayList<>(devices.subList(0, size)), devices.get(size - 1).getCursor());
+    }
+
+    /**
+     * Get a page of the devices which have no owner, newest first, like
+     * {@link #findDevicesWhichHaveNoOwnerByKeyset}. The devices are loaded
+     * with their authorizations and the authorized organisations, so they can
+     * be mapped outside a transaction to the same output as before the
+     * authorizations were loaded lazily.
+     *
+     * @return A page with devices, with the cursor of the next page.
+     *
+     * @throws FunctionalException
+     *             In case the organisation can not be found or the organisation
+     *             is not allowed to perform this action.
+     */
+    @Transactional(value = "transactionManager", readOnly = true)
+    public KeysetPage<Device> findDevicesWhichHaveNoOwnerWithAuthorizationsByKeyset(
+            @Identification final String organisationIdentification, final Integer pageSize,
+            final KeysetCursor cursor) throws FunctionalException {
+
+        final KeysetPage<DeviceSummary> summaries = this
+                .findDevicesWhichHaveNoOwnerByKeyset(organisationIdentification, pageSize, cursor);
+        if (summaries.getContent().isEmpty()) {
+            return new KeysetPage<>(new ArrayList<Device>(), summaries.getNext());
+        }
+
+        final List<Long> ids = new ArrayList<>(summaries.getContent().size());
+        for (final DeviceSummary summary : summaries.getContent()) {
+            ids.add(summary.getId());
+        }
+        final Map<Long, Device> devicesById = new HashMap<>();
+        for (final Device device : this.deviceRepository.findWithAuthorizationsByIdIn(ids)) {
+            devicesById.put(device.getId(), device);
+        }
+
+        // In the order of the summaries, the fetch join does not keep it.
+        final List<Device> devices = new ArrayList<>(ids.size());
+        for (final Long id : ids) {
+            final Device device = devicesById.get(id);
+            if (device != null) {
+                devices.add(device);
+            }
+        }
+        return new KeysetPage<>(devices, summaries.getNext());
+    }
+
+    /**
+     * Passes all devices which have no owner to the handler, in no particular
+     * order. The devices are read as summaries through a database cursor, a
+     * fetch at a time, and this method keeps no reference to a device once it
+     * is handled. The memory used depends on what the handler keeps: a handler
+     * that collects all devices still needs memory for all of them.
+     *
+     * @return The number of devices handled.
+     *
+     * @throws FunctionalException
+     *             In case the organisation can not be found or the organisation
+     *             is not allowed to perform this action.
+     */
+    @Transactional(value = "transactionManager", readOnly = true)
+    public long exportDevicesWhichHaveNoOwner(@Identification final String organisationIdentification,
+            final ResultHandler<DeviceSummary> handler) throws FunctionalException {
+
+        LOGGER.debug("exportDevicesWhichHaveNoOwner called for organisation {}", organisationIdentification);
+
+        final Organisation organisation = this.findOrganisation(organisationIdentification);
+
+        this.isAllowed(organisation, PlatformFunction.GET_DEVICE_NO_OWNER);
+
+        long exported = 0;
+        try (final Stream<DeviceSummary> devices = this.deviceRepository.streamSummariesOfDevicesWithNoOwner()) {
+            final Iterator<DeviceSummary> iterator = devices.iterator();
+            while (iterator.hasNext()) {
+                handler.handle(iterator.next());
+                exported++;
+            }
+        }
+
+        LOGGER.info("Exported {} devices which have no owner for organisation {}", exported,
+                organisationIdentification);
+        return exported;
+    }
+
+    private int getKeysetPageSize(final Integer pageSize) {
+        final int maximumPageSize = this.pagingSettings.getMaximumPageSize();
+        if (pageSize == null || pageSize < 1) {
+            return maximumPageSize;
+        }
+        return Math.min(pageSize, maximumPageSize);
+    }
+
     public List<DeviceAuthorization> findDeviceAuthorisations(@Identification final String organisationIdentification,
             @Identification final String deviceIdentification) throws FunctionalException {
 
@@ -339,11 +492,19 @@ public class DeviceManagementService {
         final PageRequest request = new PageRequest(pageNumber, this.pagingSettings.getMaximumPageSize(),
                 Sort.Direction.DESC, "modificationTime");
 
-        if (deviceIdentification != null && !deviceIdentification.isEmpty()) {
-            return this.logItemRepository.findByDeviceIdentification(deviceIdentification, request);
+        final boolean hasDevice = deviceIdentification != null && !deviceIdentification.isEmpty();
+        if (this.messageLogsMaxAgeDays <= 0) {
+            return hasDevice ? this.logItemRepository.findByDeviceIdentification(deviceIdentification, request)
+                    : this.logItemRepository.findAll(request);
+        }
+
+        final Date from = new Date(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(this.messageLogsMaxAgeDays));
+        if (hasDevice) {
+            return this.logItemRepository.findByDeviceIdentificationAndModificationTimeAfter(deviceIdentification,
+                    from, request);
         }
 
-        return this.logItemRepository.findAll(request);
+        return this.logItemRepository.findByModificationTimeAfter(from, request);
     }
 
     // === REMOVE DEVICE ===
@@ -10,6 +10,7 @@ import com.alliander.osgp.adapter.ws.clients.SendNotificationServiceClient;
 import com.alliander.osgp.adapter.ws.schema.core.common.OsgpResultType;
 import com.alliander.osgp.adapter.ws.schema.core.notification.Notification;
 import com.alliander.osgp.adapter.ws.schema.core.notification.NotificationType;
+import com.alliander.osgp.adapter.ws.shared.services.NotificationDeliveryExecutor;
 import com.alliander.osgp.adapter.ws.shared.services.NotificationService;
 import com.alliander.osgp.shared.exceptionhandling.WebServiceSecurityException;
 
@@ -26,6 +27,27 @@ public class NotificationServiceWsAdmin implements NotificationService {
     @Autowired
     private SendNotificationServiceClient sendNotificationServiceClient;
 
+    private final String notificationUrl;
+
+    private NotificationDeliveryExecutor notificationDeliveryExecutor;
+
+    /**
+     * @param notificationUrl
+     *            The url the {@link SendNotificationServiceClient} sends the
+     *            notifications to.
+     */
+    public NotificationServiceWsAdmin(final String notificationUrl) {
+        this.notificationUrl = notificationUrl;
+    }
+
+    /**
+     * Send notifications asynchronously using the given executor, instead of
+     * on the calling thread.
+     */
+    public void setNotificationDeliveryExecutor(final NotificationDeliveryExecutor notificationDeliveryExecutor) {
+        this.notificationDeliveryExecutor = notificationDeliveryExecutor;
+    }
+
     @Override
     public void sendNotification(final String organisationIdentification, final String deviceIdentification,
             final String result, final String correlationUid, final String message, final Object notificationType) {
@@ -84,6 +106,20 @@ public class NotificationServiceWsAdmin implements NotificationService {
             notification.setMessage(message);
         }
 
+        if (this.notificationDeliveryExecutor != null) {
+            final SendNotificationServiceClient client = this.sendNotificationServiceClient;
+            final NotificationDeliveryExecutor.Delivery delivery = new NotificationDeliveryExecutor.Delivery() {
+                @Override
+                public void deliver() throws WebServiceSecurityException {
+                    client.sendNotification(organisationIdentification, notification);
+                }
+            };
+            this.notificationDeliveryExecutor.execute(this.notificationUrl, delivery,
+                    String.format("notification %s for device %s to org %s", notificationType,
+                            deviceIdentification, organisationIdentification));
+            return;
+        }
+
         // Try to send notification and catch security exceptions.
         try {
             this.sendNotificationServiceClient.sendNotification(organisationIdentification, notification);
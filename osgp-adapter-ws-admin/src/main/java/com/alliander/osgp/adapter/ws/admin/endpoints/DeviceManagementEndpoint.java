@@ -67,6 +67,8 @@ import com.alliander.osgp.adapter.ws.shared.services.NotificationService;
 import com.alliander.osgp.domain.core.entities.Organisation;
 import com.alliander.osgp.domain.core.exceptions.ValidationException;
 import com.alliander.osgp.domain.core.valueobjects.DeviceFunctionGroup;
+import com.alliander.osgp.domain.core.valueobjects.KeysetCursor;
+import com.alliander.osgp.domain.core.valueobjects.KeysetPage;
 import com.alliander.osgp.domain.core.valueobjects.PlatformDomain;
 import com.alliander.osgp.domain.core.valueobjects.PlatformFunctionGroup;
 import com.alliander.osgp.logging.domain.entities.DeviceLogItem;
@@ -337,11 +339,18 @@ public class DeviceManagementEndpoint {
         final FindDevicesWhichHaveNoOwnerResponse response = new FindDevicesWhichHaveNoOwnerResponse();
 
         try {
-            final List<com.alliander.osgp.domain.core.entities.Device> devicesWithoutOwner = this.deviceManagementService
-                    .findDevicesWhichHaveNoOwner(organisationIdentification);
-
-            response.getDevices().addAll(this.deviceManagementMapper.mapAsList(devicesWithoutOwner,
-                    com.alliander.osgp.adapter.ws.schema.admin.devicemanagement.Device.class));
+            // Load and map the devices a page at a time, so only one page of
+            // device entities is kept. The response still holds all devices:
+            // its schema has no paging.
+            KeysetCursor cursor = null;
+            do {
+                final KeysetPage<com.alliander.osgp.domain.core.entities.Device> page = this.deviceManagementService
+                        .findDevicesWhichHaveNoOwnerWithAuthorizationsByKeyset(organisationIdentification, null,
+                                cursor);
+                response.getDevices().addAll(this.deviceManagementMapper.mapAsList(page.getContent(),
+                        com.alliander.osgp.adapter.ws.schema.admin.devicemanagement.Device.class));
+                cursor = page.getNext();
+            } while (cursor != null);
         } catch (final MethodConstraintViolationException e) {
             LOGGER.error("Exception find device with no owner: {} ", e.getMessage(), e);
             throw new FunctionalException(FunctionalExceptionType.VALIDATION_ERROR, COMPONENT_TYPE_WS_ADMIN,
@@ -12,9 +12,8 @@ import javax.jms.ObjectMessage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Qualifier;
-import org.springframework.jms.core.JmsTemplate;
 
+import com.alliander.osgp.adapter.ws.infra.jms.ResponseMessageRegistry;
 import com.alliander.osgp.shared.infra.jms.BaseResponseMessageFinder;
 
 /**
@@ -29,17 +28,18 @@ public final class AdminResponseMessageFinder extends BaseResponseMessageFinder
     private static final Logger LOGGER = LoggerFactory.getLogger(AdminResponseMessageFinder.class);
 
     /**
-     * Autowired JMS template for OSGP domain admin responses queue.
+     * Autowired registry of the OSGP domain admin responses queue.
      */
     @Autowired
-    @Qualifier("wsAdminIncomingResponsesJmsTemplate")
-    private JmsTemplate adminResponsesJmsTemplate;
+    private ResponseMessageRegistry adminResponseMessageRegistry;
 
     @Override
     protected ObjectMessage receiveObjectMessage(final String correlationUid) {
         LOGGER.info("Trying to find message with correlationUID: {}", correlationUid);
 
-        return (ObjectMessage) this.adminResponsesJmsTemplate.receiveSelected(this.getJmsCorrelationId(correlationUid));
+        // Asks the other instances when this instance does not hold the
+        // response.
+        return this.adminResponseMessageRegistry.find(correlationUid);
     }
 
 }
@@ -0,0 +1,236 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.adapter.ws.admin.application.services;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.data.domain.PageRequest;
+
+import com.alliander.osgp.domain.core.entities.Device;
+import com.alliander.osgp.domain.core.entities.Organisation;
+import com.alliander.osgp.domain.core.exceptions.NotAuthorizedException;
+import com.alliander.osgp.domain.core.repositories.DeviceRepository;
+import com.alliander.osgp.domain.core.services.OrganisationDomainService;
+import com.alliander.osgp.domain.core.services.SecurityService;
+import com.alliander.osgp.domain.core.valueobjects.DeviceLifecycleStatus;
+import com.alliander.osgp.domain.core.valueobjects.DeviceSummary;
+import com.alliander.osgp.domain.core.valueobjects.KeysetPage;
+import com.alliander.osgp.domain.core.valueobjects.PlatformFunction;
+import com.alliander.osgp.shared.application.config.PagingSettings;
+import com.alliander.osgp.shared.exceptionhandling.FunctionalException;
+import com.alliander.osgp.shared.exceptionhandling.FunctionalExceptionType;
+
+@RunWith(MockitoJUnitRunner.class)
+public class DeviceManagementServiceTest {
+
+    private static final String ORGANISATION_IDENTIFICATION = "test-org";
+
+    private static final int OWNERLESS_DEVICES = 500000;
+
+    @Mock
+    private OrganisationDomainService organisationDomainService;
+
+    @Mock
+    private SecurityService securityService;
+
+    @Mock
+    private DeviceRepository deviceRepository;
+
+    @Mock
+    private PagingSettings pagingSettings;
+
+    @Mock
+    private Organisation organisation;
+
+    @InjectMocks
+    private DeviceManagementService deviceManagementService;
+
+    private final long now = System.currentTimeMillis();
+
+    @Before
+    public void setUp() throws Exception {
+        when(this.pagingSettings.getMaximumPageSize()).thenReturn(30);
+        when(this.organisationDomainService.searchOrganisation(ORGANISATION_IDENTIFICATION))
+                .thenReturn(this.organisation);
+    }
+
+    /**
+     * The summaries of all ownerless devices take well over 100 MB. The export
+     * is memory bounded when it hands each device over as soon as it is read:
+     * the database cursor must never be ahead of the handler by more than a
+     * device, so the export can not be collecting the devices.
+     */
+    @Test
+    public void testExportOfOwnerlessDevicesIsMemoryBounded() throws Exception {
+        final AtomicBoolean closed = new AtomicBoolean();
+        final AtomicInteger read = new AtomicInteger();
+        when(this.deviceRepository.streamSummariesOfDevicesWithNoOwner())
+                .thenReturn(this.generateDevices(OWNERLESS_DEVICES, read).onClose(new Runnable() {
+                    @Override
+                    public void run() {
+                        closed.set(true);
+                    }
+                }));
+
+        final BitSet handled = new BitSet(OWNERLESS_DEVICES + 1);
+        final int[] maximumAhead = { 0 };
+        final long exported = this.deviceManagementService.exportDevicesWhichHaveNoOwner(ORGANISATION_IDENTIFICATION,
+                new ResultHandler<DeviceSummary>() {
+                    @Override
+                    public void handle(final DeviceSummary result) {
+                        final int id = result.getId().intValue();
+                        assertFalse("Device " + id + " handled twice", handled.get(id));
+                        handled.set(id);
+                        maximumAhead[0] = Math.max(maximumAhead[0], read.get() - handled.cardinality());
+                    }
+                });
+
+        assertEquals(OWNERLESS_DEVICES, exported);
+        assertEquals(OWNERLESS_DEVICES, handled.cardinality());
+        assertTrue("The database cursor should be closed", closed.get());
+        assertEquals("Devices read before the previous ones were handled", 0, maximumAhead[0]);
+    }
+
+    @Test
+    public void testPageHoldsCursorOfItsLastDevice() throws Exception {
+        final List<DeviceSummary> devices = this.devices(1, 3);
+        when(this.deviceRepository.findSummariesOfDevicesWithNoOwner(new PageRequest(0, 3))).thenReturn(devices);
+
+        final KeysetPage<DeviceSummary> page = this.deviceManagementService
+                .findDevicesWhichHaveNoOwnerByKeyset(ORGANISATION_IDENTIFICATION, 2, null);
+
+        assertEquals(devices.subList(0, 2), page.getContent());
+        assertEquals(devices.get(1).getCursor(), page.getNext());
+    }
+
+    @Test
+    public void testNextPageIsFoundAfterCursor() throws Exception {
+        final DeviceSummary previous = this.device(2);
+        final List<DeviceSummary> devices = this.devices(3, 2);
+        when(this.deviceRepository.findSummariesOfDevicesWithNoOwnerBefore(previous.getCreationTime(),
+                previous.getId(), new PageRequest(0, 3))).thenReturn(devices);
+
+        final KeysetPage<DeviceSummary> page = this.deviceManagementService
+                .findDevicesWhichHaveNoOwnerByKeyset(ORGANISATION_IDENTIFICATION, 2, previous.getCursor());
+
+        assertEquals(devices, page.getContent());
+        assertFalse(page.hasNext());
+        assertNull(page.getNext());
+    }
+
+    @Test
+    public void testPageSizeIsLimited() throws Exception {
+        when(this.deviceRepository.findSummariesOfDevicesWithNoOwner(new PageRequest(0, 31)))
+                .thenReturn(this.devices(1, 31));
+
+        final KeysetPage<DeviceSummary> page = this.deviceManagementService
+                .findDevicesWhichHaveNoOwnerByKeyset(ORGANISATION_IDENTIFICATION, 100000, null);
+
+        assertEquals(30, page.getContent().size());
+        verify(this.deviceRepository).findSummariesOfDevicesWithNoOwner(new PageRequest(0, 31));
+    }
+
+    @Test
+    public void testDevicesWithAuthorizationsKeepOrderOfPage() throws Exception {
+        final List<DeviceSummary> summaries = this.devices(1, 3);
+        when(this.deviceRepository.findSummariesOfDevicesWithNoOwner(new PageRequest(0, 3))).thenReturn(summaries);
+        final List<Long> ids = Arrays.asList(1L, 2L);
+        when(this.deviceRepository.findWithAuthorizationsByIdIn(ids)).thenReturn(
+                Arrays.asList(this.entity(2), this.entity(1)));
+
+        final KeysetPage<Device> page = this.deviceManagementService
+                .findDevicesWhichHaveNoOwnerWithAuthorizationsByKeyset(ORGANISATION_IDENTIFICATION, 2, null);
+
+        assertEquals(2, page.getContent().size());
+        assertEquals(Long.valueOf(1), page.getContent().get(0).getId());
+        assertEquals(Long.valueOf(2), page.getContent().get(1).getId());
+        assertEquals(summaries.get(1).getCursor(), page.getNext());
+    }
+
+    @Test
+    public void testExportIsAuthorized() throws Exception {
+        doThrow(new NotAuthorizedException(ORGANISATION_IDENTIFICATION)).when(this.securityService)
+                .checkAuthorization(this.organisation, PlatformFunction.GET_DEVICE_NO_OWNER);
+
+        try {
+            this.deviceManagementService.exportDevicesWhichHaveNoOwner(ORGANISATION_IDENTIFICATION,
+                    new ResultHandler<DeviceSummary>() {
+                        @Override
+                        public void handle(final DeviceSummary result) {
+                            fail("No devices should be handled");
+                        }
+                    });
+            fail("Expected the organisation not to be allowed to export ownerless devices");
+        } catch (final FunctionalException e) {
+            assertEquals(FunctionalExceptionType.UNAUTHORIZED, e.getExceptionType());
+        }
+    }
+
+    /**
+     * Generates the devices while they are read, as a database cursor does,
+     * and counts the devices read.
+     */
+    private Stream<DeviceSummary> generateDevices(final int count, final AtomicInteger read) {
+        return IntStream.rangeClosed(1, count).mapToObj(new IntFunction<DeviceSummary>() {
+            @Override
+            public DeviceSummary apply(final int id) {
+                read.incrementAndGet();
+                return DeviceManagementServiceTest.this.device(id);
+            }
+        });
+    }
+
+    private List<DeviceSummary> devices(final int firstId, final int count) {
+        final List<DeviceSummary> devices = new ArrayList<>();
+        for (int id = firstId; id < firstId + count; id++) {
+            devices.add(this.device(id));
+        }
+        return devices;
+    }
+
+    private Device entity(final int id) {
+        final Device device = new Device(String.format("TST%07d", id));
+        device.setId((long) id);
+        return device;
+    }
+
+    /**
+     * @return A device, devices with a higher id are older.
+     */
+    private DeviceSummary device(final int id) {
+        return new DeviceSummary((long) id, new Date(this.now - id * 1000L), String.format("TST%07d", id),
+                "Imported device " + id, "SMART_METER_E", "City " + id % 5000, "Street " + id % 20000,
+                String.format("%04dAB", id % 9999), Integer.toString(id % 200), "Municipality " + id % 400,
+                52.0f + id % 1000 / 1000f, 5.0f + id % 1000 / 1000f, false, false,
+                DeviceLifecycleStatus.NEW_IN_INVENTORY);
+    }
+}
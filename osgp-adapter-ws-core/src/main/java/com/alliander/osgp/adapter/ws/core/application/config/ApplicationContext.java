@@ -71,6 +71,8 @@ public class ApplicationContext extends AbstractConfig {
 
     private static final String PROPERTY_NAME_SCHEDULING_TASK_PAGE_SIZE = "scheduling.task.page.size";
 
+    private static final String PROPERTY_NAME_EXPORT_PAGE_SIZE = "export.page.size";
+
     @Resource
     private Environment environment;
 
@@ -101,6 +103,12 @@ public class ApplicationContext extends AbstractConfig {
         return Integer.parseInt(this.environment.getRequiredProperty(PROPERTY_NAME_SCHEDULING_TASK_PAGE_SIZE));
     }
 
+    @Bean
+    @Qualifier("wsCoreDeviceManagementExportPageSize")
+    public Integer exportPageSize() {
+        return Integer.parseInt(this.environment.getRequiredProperty(PROPERTY_NAME_EXPORT_PAGE_SIZE));
+    }
+
     @Bean
     public FirmwareLocation firmwareLocation() {
         return new FirmwareLocation(this.environment.getProperty(PROPERTY_NAME_FIRMWARE_DOMAIN),
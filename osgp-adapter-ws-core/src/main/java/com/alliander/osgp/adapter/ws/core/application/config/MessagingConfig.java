@@ -8,12 +8,15 @@
 package com.alliander.osgp.adapter.ws.core.application.config;
 
 import javax.annotation.Resource;
+import javax.persistence.EntityManagerFactory;
 
+import org.apache.activemq.ActiveMQSession;
 import org.apache.activemq.RedeliveryPolicy;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
 import org.springframework.context.annotation.PropertySource;
 import org.springframework.context.annotation.PropertySources;
 import org.springframework.core.env.Environment;
@@ -23,7 +26,11 @@ import org.springframework.jms.listener.DefaultMessageListenerContainer;
 import com.alliander.osgp.adapter.ws.core.infra.jms.CommonRequestMessageListener;
 import com.alliander.osgp.adapter.ws.core.infra.jms.CommonRequestMessageSender;
 import com.alliander.osgp.adapter.ws.core.infra.jms.CommonResponseMessageFinder;
+import com.alliander.osgp.adapter.ws.infra.jms.DomainChangeMessageSender;
 import com.alliander.osgp.adapter.ws.infra.jms.LoggingMessageSender;
+import com.alliander.osgp.adapter.ws.infra.jms.ResponseMessageRegistry;
+import com.alliander.osgp.domain.core.jms.metrics.MessageMetrics;
+import com.alliander.osgp.domain.core.jms.metrics.MessageMetricsConfig;
 import com.alliander.osgp.shared.application.config.AbstractMessagingConfig;
 import com.alliander.osgp.shared.application.config.jms.JmsConfiguration;
 import com.alliander.osgp.shared.application.config.jms.JmsConfigurationFactory;
@@ -31,12 +38,22 @@ import com.alliander.osgp.shared.application.config.jms.JmsConfigurationNames;
 import com.alliander.osgp.shared.application.config.jms.JmsPropertyNames;
 
 @Configuration
+@Import(MessageMetricsConfig.class)
 @PropertySources({ @PropertySource("classpath:osgp-adapter-ws-core.properties"),
         @PropertySource(value = "file:${osgp/Global/config}", ignoreResourceNotFound = true),
         @PropertySource(value = "file:${osgp/AdapterWsCore/config}", ignoreResourceNotFound = true), })
 public class MessagingConfig extends AbstractMessagingConfig {
 
     public static final String PROPERTY_NAME_JMS_RECEIVE_TIMEOUT = "jms.common.responses.receive.timeout";
+    public static final String PROPERTY_NAME_RESPONSE_REGISTRY_MAX_ENTRIES = "jms.common.responses.registry.max.entries";
+    public static final String PROPERTY_NAME_RESPONSE_REGISTRY_HOLD_TIME = "jms.common.responses.registry.hold.time";
+    public static final String PROPERTY_NAME_RESPONSES_QUEUE = "jms.common.responses.queue";
+    public static final String PROPERTY_NAME_RESPONSES_HAND_OFF_QUEUE = "jms.common.responses.hand.off.queue";
+    public static final String PROPERTY_NAME_RESPONSES_LOOK_UP_TOPIC = "jms.common.responses.look.up.topic";
+    public static final String PROPERTY_NAME_DOMAIN_CHANGES_TOPIC = "jms.domain.changes.topic";
+
+    @Autowired
+    private MessageMetrics messageMetrics;
 
     @Resource
     private Environment environment;
@@ -84,19 +101,76 @@ public class MessagingConfig extends AbstractMessagingConfig {
 
     @Bean
     public JmsConfiguration commonResponsesJmsConfiguration(final JmsConfigurationFactory jmsConfigurationFactory) {
-        return jmsConfigurationFactory.initializeConfiguration(JmsConfigurationNames.JMS_COMMON_RESPONSES);
+        return jmsConfigurationFactory.initializeConfiguration(JmsConfigurationNames.JMS_COMMON_RESPONSES,
+                this.commonResponseMessageRegistry());
     }
 
-    @Bean(name = "wsCoreIncomingResponsesJmsTemplate")
-    public JmsTemplate commonResponsesJmsTemplate(final JmsConfiguration commonResponsesJmsConfiguration) {
+    @Bean(name = "wsCoreResponsesHandOffJmsTemplate")
+    public JmsTemplate wsCoreResponsesHandOffJmsTemplate(final JmsConfiguration commonResponsesJmsConfiguration) {
         final Long receiveTimeout = Long
                 .parseLong(this.environment.getRequiredProperty(PROPERTY_NAME_JMS_RECEIVE_TIMEOUT));
 
-        final JmsTemplate jmsTemplate = commonResponsesJmsConfiguration.getJmsTemplate();
+        final JmsTemplate jmsTemplate = new JmsTemplate(
+                commonResponsesJmsConfiguration.getJmsTemplate().getConnectionFactory());
+        jmsTemplate.setDefaultDestinationName(
+                this.environment.getRequiredProperty(PROPERTY_NAME_RESPONSES_HAND_OFF_QUEUE));
         jmsTemplate.setReceiveTimeout(receiveTimeout);
         return jmsTemplate;
     }
 
+    @Bean(name = "wsCoreResponsesLookUpJmsTemplate")
+    public JmsTemplate wsCoreResponsesLookUpJmsTemplate(final JmsConfiguration commonResponsesJmsConfiguration) {
+        final JmsTemplate jmsTemplate = new JmsTemplate(
+                commonResponsesJmsConfiguration.getJmsTemplate().getConnectionFactory());
+        jmsTemplate.setPubSubDomain(true);
+        jmsTemplate.setDefaultDestinationName(
+                this.environment.getRequiredProperty(PROPERTY_NAME_RESPONSES_LOOK_UP_TOPIC));
+        // A look-up is only of use to the instances listening at the time.
+        jmsTemplate.setExplicitQosEnabled(true);
+        jmsTemplate.setDeliveryPersistent(false);
+        return jmsTemplate;
+    }
+
+    @Bean
+    public ResponseMessageRegistry commonResponseMessageRegistry() {
+        final Integer maxEntries = Integer
+                .parseInt(this.environment.getRequiredProperty(PROPERTY_NAME_RESPONSE_REGISTRY_MAX_ENTRIES));
+        final Long holdTime = Long
+                .parseLong(this.environment.getRequiredProperty(PROPERTY_NAME_RESPONSE_REGISTRY_HOLD_TIME));
+        final Long receiveTimeout = Long
+                .parseLong(this.environment.getRequiredProperty(PROPERTY_NAME_JMS_RECEIVE_TIMEOUT));
+
+        return new ResponseMessageRegistry(maxEntries, holdTime, receiveTimeout);
+    }
+
+    @Bean(name = "wsCoreIncomingResponsesMessageListenerContainer")
+    public DefaultMessageListenerContainer wsCoreIncomingResponsesMessageListenerContainer(
+            final JmsConfiguration commonResponsesJmsConfiguration, final JmsTemplate wsCoreResponsesHandOffJmsTemplate,
+            final JmsTemplate wsCoreResponsesLookUpJmsTemplate) {
+        final ResponseMessageRegistry registry = this.commonResponseMessageRegistry();
+        final DefaultMessageListenerContainer messageListenerContainer = commonResponsesJmsConfiguration
+                .getMessageListenerContainer();
+        // The registry acknowledges a response when it is taken or handed off.
+        messageListenerContainer.setSessionTransacted(false);
+        messageListenerContainer.setSessionAcknowledgeMode(ActiveMQSession.INDIVIDUAL_ACKNOWLEDGE);
+        messageListenerContainer.setDestinationName(
+                registry.getDestinationName(this.environment.getRequiredProperty(PROPERTY_NAME_RESPONSES_QUEUE)));
+        registry.setHandOffJmsTemplate(wsCoreResponsesHandOffJmsTemplate);
+        registry.setLookUpJmsTemplate(wsCoreResponsesLookUpJmsTemplate);
+        return messageListenerContainer;
+    }
+
+    @Bean(name = "wsCoreResponsesLookUpMessageListenerContainer")
+    public DefaultMessageListenerContainer wsCoreResponsesLookUpMessageListenerContainer(
+            final JmsTemplate wsCoreResponsesLookUpJmsTemplate) {
+        final DefaultMessageListenerContainer messageListenerContainer = new DefaultMessageListenerContainer();
+        messageListenerContainer.setConnectionFactory(wsCoreResponsesLookUpJmsTemplate.getConnectionFactory());
+        messageListenerContainer.setPubSubDomain(true);
+        messageListenerContainer.setDestinationName(wsCoreResponsesLookUpJmsTemplate.getDefaultDestinationName());
+        messageListenerContainer.setMessageListener(this.commonResponseMessageRegistry().getLookUpListener());
+        return messageListenerContainer;
+    }
+
     @Bean(name = "wsCoreIncomingResponsesMessageFinder")
     public CommonResponseMessageFinder commonResponseMessageFinder() {
         return new CommonResponseMessageFinder();
@@ -119,13 +193,38 @@ public class MessagingConfig extends AbstractMessagingConfig {
         return new LoggingMessageSender();
     }
 
+    // === JMS SETTINGS: DOMAIN CHANGES ===
+
+    @Bean(name = "wsCoreDomainChangesJmsTemplate")
+    public JmsTemplate wsCoreDomainChangesJmsTemplate(final JmsConfiguration commonRequestsJmsConfiguration) {
+        final JmsTemplate jmsTemplate = new JmsTemplate(
+                commonRequestsJmsConfiguration.getJmsTemplate().getConnectionFactory());
+        jmsTemplate.setPubSubDomain(true);
+        jmsTemplate.setDefaultDestinationName(
+                this.environment.getRequiredProperty(PROPERTY_NAME_DOMAIN_CHANGES_TOPIC));
+        // A change is only of use to the instances listening at the time.
+        jmsTemplate.setExplicitQosEnabled(true);
+        jmsTemplate.setDeliveryPersistent(false);
+        return jmsTemplate;
+    }
+
+    @Bean
+    public DomainChangeMessageSender domainChangeMessageSender(final JmsTemplate wsCoreDomainChangesJmsTemplate,
+            final EntityManagerFactory entityManagerFactory) {
+        final DomainChangeMessageSender domainChangeMessageSender = new DomainChangeMessageSender(
+                wsCoreDomainChangesJmsTemplate);
+        domainChangeMessageSender.register(entityManagerFactory);
+        return domainChangeMessageSender;
+    }
+
     // === JMS SETTINGS: REQUESTS FROM COMMON DOMAIN TO COMMON WEB SERVICE ===
 
     @Bean
     public JmsConfiguration commonRequestsFromDomainToWsJmsConfiguration(
             final JmsConfigurationFactory jmsConfigurationFactory) {
         return jmsConfigurationFactory.initializeConfiguration(JmsConfigurationNames.JMS_COMMON_DOMAIN_TO_WS_REQUESTS,
-                this.commonRequestMessageListener);
+                this.messageMetrics.metered(JmsConfigurationNames.JMS_COMMON_DOMAIN_TO_WS_REQUESTS,
+                        this.commonRequestMessageListener));
     }
 
     @Bean(name = "domainCoreIncomingDomainCoreRequestsMessageListenerContainer")
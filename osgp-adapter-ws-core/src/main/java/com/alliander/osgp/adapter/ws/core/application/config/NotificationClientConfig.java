@@ -12,6 +12,7 @@ import org.springframework.ws.soap.security.support.KeyStoreFactoryBean;
 
 import com.alliander.osgp.adapter.ws.clients.SendNotificationServiceClient;
 import com.alliander.osgp.adapter.ws.core.application.services.NotificationServiceWsCore;
+import com.alliander.osgp.adapter.ws.shared.services.NotificationDeliveryExecutor;
 import com.alliander.osgp.adapter.ws.shared.services.NotificationService;
 import com.alliander.osgp.adapter.ws.shared.services.NotificationServiceBlackHole;
 import com.alliander.osgp.shared.application.config.AbstractConfig;
@@ -37,6 +38,26 @@ public class NotificationClientConfig extends AbstractConfig {
     @Value("${jaxb2.marshaller.context.path.notification:com.alliander.osgp.adapter.ws.schema.core.notification}")
     private String marshallerContextPathNotification;
 
+    // Notification delivery properties, see NotificationDeliveryExecutor.
+
+    @Value("${web.service.notification.delivery.threads.per.endpoint:5}")
+    private int notificationDeliveryThreadsPerEndpoint;
+
+    @Value("${web.service.notification.delivery.queue.capacity.per.endpoint:1000}")
+    private int notificationDeliveryQueueCapacityPerEndpoint;
+
+    @Value("${web.service.notification.delivery.failure.threshold:5}")
+    private int notificationDeliveryFailureThreshold;
+
+    @Value("${web.service.notification.delivery.open.duration:60000}")
+    private long notificationDeliveryOpenDuration;
+
+    @Value("${web.service.notification.delivery.slow.threshold:10000}")
+    private long notificationDeliverySlowThreshold;
+
+    @Value("${web.service.notification.delivery.max.queue.time:300000}")
+    private long notificationDeliveryMaxQueueTime;
+
     @Value("${apache.client.max.connections.per.route:20}")
     private int maxConnectionsPerRoute;
 
@@ -121,9 +142,26 @@ public class NotificationClientConfig extends AbstractConfig {
     @Bean
     public NotificationService notificationService() {
         if (this.webserviceNotificationEnabled) {
-            return new NotificationServiceWsCore();
+            final NotificationServiceWsCore notificationService = new NotificationServiceWsCore(
+                    this.webserviceNotificationUrl);
+            notificationService.setNotificationDeliveryExecutor(this.notificationDeliveryExecutor());
+            return notificationService;
         } else {
             return new NotificationServiceBlackHole();
         }
     }
+
+    /**
+     * Sends notifications off the JMS listener threads, with a bounded pool
+     * and a circuit breaker for the notification endpoint. There is no resend
+     * notification job in this adapter: notifications that are refused or
+     * dropped by the executor are not sent again.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public NotificationDeliveryExecutor notificationDeliveryExecutor() {
+        return new NotificationDeliveryExecutor(this.notificationDeliveryThreadsPerEndpoint,
+                this.notificationDeliveryQueueCapacityPerEndpoint, this.notificationDeliveryFailureThreshold,
+                this.notificationDeliveryOpenDuration, this.notificationDeliverySlowThreshold,
+                this.notificationDeliveryMaxQueueTime);
+    }
 }
@@ -45,6 +45,7 @@ public class WebServiceConfig extends AbstractConfig {
     private static final String PROPERTY_NAME_MARSHALLER_CONTEXT_PATH_AD_HOC_MANAGEMENT = "jaxb2.marshaller.context.path.adhocmanagement";
     private static final String PROPERTY_NAME_MARSHALLER_CONTEXT_PATH_FIRMWARE_MANAGEMENT = "jaxb2.marshaller.context.path.firmwaremanagement";
     private static final String PROPERTY_NAME_MARSHALLER_CONTEXT_PATH_CONFIGURATION_MANAGEMENT = "jaxb2.marshaller.context.path.configurationmanagement";
+    private static final String PROPERTY_NAME_WEB_SERVICE_MONITOR_PAYLOAD_LOG_SAMPLE_INTERVAL = "web.service.monitor.payload.log.sample.interval";
 
     private static final String ORGANISATION_IDENTIFICATION_HEADER = "OrganisationIdentification";
     private static final String ORGANISATION_IDENTIFICATION_CONTEXT = ORGANISATION_IDENTIFICATION_HEADER;
@@ -316,7 +317,10 @@ public class WebServiceConfig extends AbstractConfig {
     public WebServiceMonitorInterceptor webServiceMonitorInterceptor() {
         LOGGER.debug("Creating Web Service Monitor Interceptor Bean");
 
-        return new WebServiceMonitorInterceptor(ORGANISATION_IDENTIFICATION_HEADER, USER_NAME_HEADER,
-                APPLICATION_NAME_HEADER);
+        final WebServiceMonitorInterceptor webServiceMonitorInterceptor = new WebServiceMonitorInterceptor(
+                ORGANISATION_IDENTIFICATION_HEADER, USER_NAME_HEADER, APPLICATION_NAME_HEADER);
+        webServiceMonitorInterceptor.setPayloadLogSampleInterval(Integer.parseInt(this.environment
+                .getRequiredProperty(PROPERTY_NAME_WEB_SERVICE_MONITOR_PAYLOAD_LOG_SAMPLE_INTERVAL)));
+        return webServiceMonitorInterceptor;
     }
 }
@@ -10,7 +10,9 @@ package com.alliander.osgp.adapter.ws.core.application.services;
 import static org.springframework.data.jpa.domain.Specifications.where;
 
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import javax.validation.Valid;
 import javax.validation.constraints.Min;
@@ -22,6 +24,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
@@ -30,6 +33,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.validation.annotation.Validated;
 
+import com.alliander.osgp.adapter.ws.core.infra.db.KeysetQueryExecutor;
 import com.alliander.osgp.adapter.ws.core.infra.jms.CommonRequestMessage;
 import com.alliander.osgp.adapter.ws.core.infra.jms.CommonRequestMessageSender;
 import com.alliander.osgp.adapter.ws.core.infra.jms.CommonRequestMessageType;
@@ -69,6 +73,8 @@ import com.alliander.osgp.domain.core.valueobjects.DeviceInMaintenanceFilterType
 import com.alliander.osgp.domain.core.valueobjects.EventNotificationMessageDataContainer;
 import com.alliander.osgp.domain.core.valueobjects.EventNotificationType;
 import com.alliander.osgp.domain.core.valueobjects.EventType;
+import com.alliander.osgp.domain.core.valueobjects.KeysetCursor;
+import com.alliander.osgp.domain.core.valueobjects.KeysetPage;
 import com.alliander.osgp.domain.core.valueobjects.PlatformFunction;
 import com.alliander.osgp.logging.domain.entities.DeviceLogItem;
 import com.alliander.osgp.logging.domain.repositories.DeviceLogItemRepository;
@@ -111,9 +117,15 @@ public class DeviceManagementService {
     @Autowired
     private DeviceLogItemRepository logItemRepository;
 
+    @Value("${message.logs.max.age.days:0}")
+    private int messageLogsMaxAgeDays;
+
     @Autowired
     private EventRepository eventRepository;
 
+    @Autowired
+    private KeysetQueryExecutor keysetQueryExecutor;
+
     @Autowired
     private CorrelationIdProviderService correlationIdProviderService;
 
@@ -142,6 +154,10 @@ public class DeviceManagementService {
     @Qualifier("wsCoreDeviceManagementNetManagementOrganisation")
     private String netManagementOrganisation;
 
+    @Autowired
+    @Qualifier("wsCoreDeviceManagementExportPageSize")
+    private Integer exportPageSize;
+
     /**
      * Constructor
      */
@@ -183,11 +199,19 @@ public class DeviceManagementService {
         final PageRequest request = new PageRequest(pageNumber, this.pagingSettings.getMaximumPageSize(),
                 Sort.Direction.DESC, "modificationTime");
 
-        if (deviceIdentification != null && !deviceIdentification.isEmpty()) {
-            return this.logItemRepository.findByDeviceIdentification(deviceIdentification, request);
+        final boolean hasDevice = deviceIdentification != null && !deviceIdentification.isEmpty();
+        if (this.messageLogsMaxAgeDays <= 0) {
+            return hasDevice ? this.logItemRepository.findByDeviceIdentification(deviceIdentification, request)
+                    : this.logItemRepository.findAll(request);
         }
 
-        return this.logItemRepository.findAll(request);
+        final Date from = new Date(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(this.messageLogsMaxAgeDays));
+        if (hasDevice) {
+            return this.logItemRepository.findByDeviceIdentificationAndModificationTimeAfter(deviceIdentification,
+                    from, request);
+        }
+
+        return this.logItemRepository.findByModificationTimeAfter(from, request);
     }
 
     @Transactional(value = "transactionManager")
@@ -205,6 +229,93 @@ public class DeviceManagementService {
         final PageRequest request = new PageRequest(this.pagingSettings.getPageNumber(),
                 this.pagingSettings.getPageSize(), Sort.Direction.DESC, "dateTime");
 
+        final Specifications<Event> specifications = this.createEventSpecifications(organisation,
+                deviceIdentification, from, until, eventTypes);
+
+        LOGGER.debug("request offset     : {}", request.getOffset());
+        LOGGER.debug("        pageNumber : {}", request.getPageNumber());
+        LOGGER.debug("        pageSize   : {}", request.getPageSize());
+        LOGGER.debug("        sort       : {}", request.getSort());
+
+        return this.eventRepository.findAll(specifications, request);
+    }
+
+    /**
+     * Find events by keyset. Events are ordered by date time and id, both
+     * descending. Unlike a page number, the cursor of the next page lets the
+     * database seek to the first event of that page, so deep pages are as fast
+     * as the first page, and no count query is needed.
+     *
+     * @param cursor
+     *            The cursor of the previous page, or null for the first page.
+     *
+     * @return A page with events, with the cursor of the next page.
+     */
+    @Transactional(value = "transactionManager", readOnly = true)
+    public KeysetPage<Event> findEventsByKeyset(@Identification final String organisationIdentification,
+            final String deviceIdentification, final Integer pageSize, final KeysetCursor cursor,
+            final DateTime from, final DateTime until, final List<EventType> eventTypes) throws FunctionalException {
+
+        LOGGER.debug("findEventsByKeyset called for organisation {} and device {} after {}",
+                organisationIdentification, deviceIdentification, cursor);
+
+        final Organisation organisation = this.domainHelperService.findOrganisation(organisationIdentification);
+
+        final Specifications<Event> specifications = this.createEventSpecifications(organisation,
+                deviceIdentification, from, until, eventTypes);
+
+        return this.findEventsByKeyset(specifications, cursor, this.getKeysetPageSize(pageSize));
+    }
+
+    /**
+     * Export all events matching the given criteria to the handler, newest
+     * first. The events are read by keyset in pages of export.page.size
+     * events, and detached after their page is handled, so this service keeps
+     * at most one page of events in memory. A handler that collects all
+     * events still needs memory for every event exported.
+     *
+     * The export runs in one read-only transaction, which holds a database
+     * connection until the last event is handled. On PostgreSQL this also
+     * keeps vacuum from cleaning up rows that changed meanwhile, so the handler
+     * should not wait on slow clients. Callers that need short transactions
+     * can page with findEventsByKeyset instead, one transaction per page.
+     *
+     * @return The number of events exported.
+     */
+    @Transactional(value = "transactionManager", readOnly = true)
+    public long exportEvents(@Identification final String organisationIdentification,
+            final String deviceIdentification, final DateTime from, final DateTime until,
+            final List<EventType> eventTypes, final ResultHandler<Event> handler) throws FunctionalException {
+
+        LOGGER.debug("exportEvents called for organisation {} and device {}", organisationIdentification,
+                deviceIdentification);
+
+        final Organisation organisation = this.domainHelperService.findOrganisation(organisationIdentification);
+
+        final Specifications<Event> specifications = this.createEventSpecifications(organisation,
+                deviceIdentification, from, until, eventTypes);
+
+        long exported = 0;
+        KeysetPage<Event> page;
+        KeysetCursor cursor = null;
+        do {
+            page = this.findEventsByKeyset(specifications, cursor, this.exportPageSize);
+            for (final Event event : page.getContent()) {
+                handler.handle(event);
+            }
+            exported += page.getContent().size();
+            cursor = page.getNext();
+            this.keysetQueryExecutor.clear();
+        } while (page.hasNext());
+
+        LOGGER.info("Exported {} events for organisation {}", exported, organisationIdentification);
+        return exported;
+    }
+
+    private Specifications<Event> createEventSpecifications(final Organisation organisation,
+            final String deviceIdentification, final DateTime from, final DateTime until,
+            final List<EventType> eventTypes) throws FunctionalException {
+
         Specifications<Event> specifications = null;
 
         try {
@@ -232,12 +343,41 @@ public class DeviceManagementService {
             throw new FunctionalException(FunctionalExceptionType.ARGUMENT_NULL, ComponentType.WS_CORE, e);
         }
 
-        LOGGER.debug("request offset     : {}", request.getOffset());
-        LOGGER.debug("        pageNumber : {}", request.getPageNumber());
-        LOGGER.debug("        pageSize   : {}", request.getPageSize());
-        LOGGER.debug("        sort       : {}", request.getSort());
+        return specifications;
+    }
 
-        return this.eventRepository.findAll(specifications, request);
+    private KeysetPage<Event> findEventsByKeyset(final Specifications<Event> specifications,
+            final KeysetCursor cursor, final int pageSize) throws FunctionalException {
+
+        Specifications<Event> pageSpecifications = specifications;
+        if (cursor != null) {
+            try {
+                pageSpecifications = specifications
+                        .and(this.eventSpecifications.isBefore(cursor.getDateTime(), cursor.getId()));
+            } catch (final ArgumentNullOrEmptyException e) {
+                throw new FunctionalException(FunctionalExceptionType.ARGUMENT_NULL, ComponentType.WS_CORE, e);
+            }
+        }
+
+        // One event more than the page size tells whether there is a next
+        // page.
+        final List<Event> events = this.keysetQueryExecutor.findFirst(Event.class, pageSpecifications, "dateTime",
+                pageSize + 1);
+        if (events.size() <= pageSize) {
+            return new KeysetPage<>(events, null);
+        }
+
+        final Event last = events.get(pageSize - 1);
+        return new KeysetPage<>(new ArrayList<>(events.subList(0, pageSize)),
+                new KeysetCursor(last.getDateTime(), last.getId()));
+    }
+
+    private int getKeysetPageSize(final Integer pageSize) {
+        final int maximumPageSize = this.pagingSettings.getMaximumPageSize();
+        if (pageSize == null || pageSize < 1) {
+            return maximumPageSize;
+        }
+        return Math.min(pageSize, maximumPageSize);
     }
 
     /**
@@ -283,6 +423,7 @@ public class DeviceManagementService {
             return null;
         }
 
+        this.fetchAuthorizations(devices.getContent());
         for (final Device device : devices.getContent()) {
             for (final DeviceAuthorization deviceAutorization : device.getAuthorizations()) {
                 device.addOrganisation(deviceAutorization.getOrganisation().getOrganisationIdentification());
@@ -294,22 +435,9 @@ public class DeviceManagementService {
 
     private Page<Device> findDevices(final String organisationIdentification, final DeviceFilter deviceFilter,
             final Organisation organisation, final PageRequest request) {
-        Page<Device> devices = null;
         try {
-            if (!this.netManagementOrganisation.equals(organisationIdentification)) {
-                if (deviceFilter == null) {
-                    final DeviceFilter df = new DeviceFilter(organisationIdentification, null, null, null, null, null,
-                            null, null, DeviceExternalManagedFilterType.BOTH, DeviceActivatedFilterType.BOTH,
-                            DeviceInMaintenanceFilterType.BOTH, null, null, false, null, null, null, null, null, null,
-                            false, null, null);
-                    devices = this.applyFilter(df, organisation, request);
-                } else {
-                    deviceFilter.updateOrganisationIdentification(organisationIdentification);
-                    devices = this.applyFilter(deviceFilter, organisation, request);
-                }
-            } else {
-                devices = this.applyFilter(deviceFilter, organisation, request);
-            }
+            return this.applyFilter(this.getOrganisationDeviceFilter(organisationIdentification, deviceFilter),
+                    organisation, request);
         } catch (final ArgumentNullOrEmptyException e) {
             /*
              * The implementation of applyFilter should check everything passed
@@ -320,7 +448,25 @@ public class DeviceManagementService {
              */
             throw new IllegalArgumentException("Null or empty input provided to DeviceSpecifications", e);
         }
-        return devices;
+    }
+
+    /**
+     * Limits the filter to the devices of the organisation, unless the
+     * organisation is the net management organisation.
+     */
+    private DeviceFilter getOrganisationDeviceFilter(final String organisationIdentification,
+            final DeviceFilter deviceFilter) {
+        if (this.netManagementOrganisation.equals(organisationIdentification)) {
+            return deviceFilter;
+        }
+        if (deviceFilter == null) {
+            return new DeviceFilter(organisationIdentification, null, null, null, null, null, null, null,
+                    DeviceExternalManagedFilterType.BOTH, DeviceActivatedFilterType.BOTH,
+                    DeviceInMaintenanceFilterType.BOTH, null, null, false, null, null, null, null, null, null, false,
+                    null, null);
+        }
+        deviceFilter.updateOrganisationIdentification(organisationIdentification);
+        return deviceFilter;
     }
 
     @Transactional(value = "transactionManager")
@@ -329,112 +475,11 @@ public class DeviceManagementService {
         Page<Device> devices = null;
 
         try {
-            if (deviceFilter != null) {
-                Specifications<Device> specifications;
-
-                if (!StringUtils.isEmpty(deviceFilter.getOrganisationIdentification())) {
-                    final Organisation org = this.domainHelperService
-                            .findOrganisation(deviceFilter.getOrganisationIdentification());
-                    specifications = where(this.deviceSpecifications.forOrganisation(org));
-                } else {
-                    // dummy for 'not initialized'
-                    specifications = where(this.deviceSpecifications.forOrganisation(organisation));
-                }
-                if (!StringUtils.isEmpty(deviceFilter.getDeviceIdentification())) {
-                    String searchString = deviceFilter.getDeviceIdentification();
-
-                    if (!deviceFilter.isExactMatch()) {
-                        searchString = searchString.replaceAll(WILDCARD, "%") + "%";
-                    }
-
-                    specifications = specifications.and(this.deviceSpecifications.hasDeviceIdentification(searchString,
-                            deviceFilter.isExactMatch()));
-                }
-                if (!StringUtils.isEmpty(deviceFilter.getAlias())) {
-                    specifications = specifications.and(this.deviceSpecifications
-                            .hasAlias(deviceFilter.getAlias().replaceAll(WILDCARD, "%") + "%"));
-                }
-                if (!StringUtils.isEmpty(deviceFilter.getCity())) {
-                    specifications = specifications.and(
-                            this.deviceSpecifications.hasCity(deviceFilter.getCity().replaceAll(WILDCARD, "%") + "%"));
-                }
-                if (!StringUtils.isEmpty(deviceFilter.getPostalCode())) {
-                    specifications = specifications.and(this.deviceSpecifications
-                            .hasPostalCode(deviceFilter.getPostalCode().replaceAll(WILDCARD, "%") + "%"));
-                }
-                if (!StringUtils.isEmpty(deviceFilter.getStreet())) {
-                    specifications = specifications.and(this.deviceSpecifications
-                            .hasStreet(deviceFilter.getStreet().replaceAll(WILDCARD, "%") + "%"));
-                }
-                if (!StringUtils.isEmpty(deviceFilter.getNumber())) {
-                    specifications = specifications.and(this.deviceSpecifications
-                            .hasNumber(deviceFilter.getNumber().replaceAll(WILDCARD, "%") + "%"));
-                }
-                if (!StringUtils.isEmpty(deviceFilter.getMunicipality())) {
-                    specifications = specifications.and(this.deviceSpecifications
-                            .hasMunicipality(deviceFilter.getMunicipality().replaceAll(WILDCARD, "%") + "%"));
-                }
-                if (deviceFilter.getDeviceExternalManaged() != null
-                        && !DeviceExternalManagedFilterType.BOTH.equals(deviceFilter.getDeviceExternalManaged())) {
-                    specifications = specifications.and(this.deviceSpecifications
-                            .isManagedExternally(deviceFilter.getDeviceExternalManaged().getValue()));
-                }
-                if (deviceFilter.getDeviceActivated() != null
-                        && !DeviceActivatedFilterType.BOTH.equals(deviceFilter.getDeviceActivated())) {
-                    specifications = specifications
-                            .and(this.deviceSpecifications.isActived(deviceFilter.getDeviceActivated().getValue()));
-                }
-                if (deviceFilter.getDeviceInMaintenance() != null
-                        && !DeviceInMaintenanceFilterType.BOTH.equals(deviceFilter.getDeviceInMaintenance())) {
-                    specifications = specifications.and(this.deviceSpecifications
-                            .isInMaintenance(deviceFilter.getDeviceInMaintenance().getValue()));
-                }
-                if (deviceFilter.isHasTechnicalInstallation()) {
-                    specifications = specifications.and(this.deviceSpecifications.hasTechnicalInstallationDate());
-                }
-                if (!StringUtils.isEmpty(deviceFilter.getOwner())) {
-                    specifications = specifications.and(this.deviceSpecifications
-                            .forOwner(deviceFilter.getOwner().replaceAll(WILDCARD, "%") + "%"));
-                }
-                if (!StringUtils.isEmpty(deviceFilter.getDeviceType())) {
-                    specifications = specifications.and(this.deviceSpecifications
-                            .forDeviceType(deviceFilter.getDeviceType().replaceAll(WILDCARD, "%") + "%"));
-                }
-                if (!StringUtils.isEmpty(deviceFilter.getModel())) {
-                    specifications = specifications.and(this.deviceSpecifications
-                            .forDeviceModel(deviceFilter.getModel().replaceAll(WILDCARD, "%") + "%"));
-                }
-                if (!StringUtils.isEmpty(deviceFilter.getManufacturer())) {
-                    final Manufacturer manufacturer = this.firmwareManagementService
-                            .findManufacturer(deviceFilter.getManufacturer());
-                    specifications = specifications.and(this.deviceSpecifications.forManufacturer(manufacturer));
-                }
-                if (!StringUtils.isEmpty(deviceFilter.getFirmwareModuleVersion())) {
-                    specifications = specifications.and(
-                            this.deviceSpecifications.forFirmwareModuleVersion(deviceFilter.getFirmwareModuleType(),
-                                    deviceFilter.getFirmwareModuleVersion().replaceAll(WILDCARD, "%") + "%"));
-                }
-                if (deviceFilter.getDeviceIdentificationsToUse() != null
-                        && !deviceFilter.getDeviceIdentificationsToUse().isEmpty()) {
-                    specifications = specifications.and(this.deviceSpecifications
-                            .existsInDeviceIdentificationList(deviceFilter.getDeviceIdentificationsToUse()));
-
-                }
-                if (deviceFilter.getDeviceIdentificationsToExclude() != null
-                        && !deviceFilter.getDeviceIdentificationsToExclude().isEmpty()) {
-                    specifications = specifications.and(this.deviceSpecifications
-                            .excludeDeviceIdentificationList(deviceFilter.getDeviceIdentificationsToExclude()));
-
-                }
+            final Specifications<Device> specifications = this.createDeviceSpecifications(deviceFilter, organisation);
+            if (specifications != null) {
                 devices = this.deviceRepository.findAll(specifications, request);
             } else {
-                if (organisation != null) {
-                    final Specifications<Device> specifications = where(
-                            this.deviceSpecifications.forOrganisation(organisation));
-                    devices = this.deviceRepository.findAll(specifications, request);
-                } else {
-                    devices = this.deviceRepository.findAll(request);
-                }
+                devices = this.deviceRepository.findAll(request);
             }
         } catch (final FunctionalException functionalException) {
             LOGGER.error("FunctionalException", functionalException);
@@ -445,6 +490,243 @@ public class DeviceManagementService {
         return devices;
     }
 
+    /**
+     * Find devices by keyset. Devices are ordered by creation time and id,
+     * both descending, the sorting of the filter is not used. Unlike a page
+     * number, the cursor of the next page lets the database seek to the first
+     * device of that page, so deep pages are as fast as the first page, and no
+     * count query is needed.
+     *
+     * @param cursor
+     *            The cursor of the previous page, or null for the first page.
+     *
+     * @return A page with devices, with the cursor of the next page.
+     */
+    @Transactional(value = "transactionManager", readOnly = true)
+    public KeysetPage<Device> findDevicesByKeyset(@Identification final String organisationIdentification,
+            final Integer pageSize, final KeysetCursor cursor, final DeviceFilter deviceFilter)
+            throws FunctionalException {
+        final Organisation organisation = this.domainHelperService.findOrganisation(organisationIdentification);
+        this.domainHelperService.isAllowed(organisation, PlatformFunction.FIND_DEVICES);
+
+        final KeysetPage<Device> devices = this.findDevicesByKeyset(
+                this.createDeviceSpecifications(organisationIdentification, deviceFilter, organisation), cursor,
+                this.getKeysetPageSize(pageSize));
+
+        this.fetchAuthorizations(devices.getContent());
+        for (final Device device : devices.getContent()) {
+            for (final DeviceAuthorization deviceAutorization : device.getAuthorizations()) {
+                device.addOrganisation(deviceAutorization.getOrganisation().getOrganisationIdentification());
+            }
+        }
+
+        return devices;
+    }
+
+    /**
+     * Export all devices matching the filter to the handler, newest first. The
+     * devices are read by keyset in pages of export.page.size devices, and
+     * detached after their page is handled, so this service keeps at most one
+     * page of devices in memory. A handler that collects all devices still
+     * needs memory for every device exported.
+     *
+     * Like exportEvents, the export runs in one read-only transaction that
+     * holds a database connection until the last device is handled. Callers
+     * that need short transactions can page with findDevicesByKeyset instead.
+     *
+     * @return The number of devices exported.
+     */
+    @Transactional(value = "transactionManager", readOnly = true)
+    public long exportDevices(@Identification final String organisationIdentification,
+            final DeviceFilter deviceFilter, final ResultHandler<Device> handler) throws FunctionalException {
+        final Organisation organisation = this.domainHelperService.findOrganisation(organisationIdentification);
+        this.domainHelperService.isAllowed(organisation, PlatformFunction.FIND_DEVICES);
+
+        final Specifications<Device> specifications = this.createDeviceSpecifications(organisationIdentification,
+                deviceFilter, organisation);
+
+        long exported = 0;
+        KeysetPage<Device> page;
+        KeysetCursor cursor = null;
+        do {
+            page = this.findDevicesByKeyset(specifications, cursor, this.exportPageSize);
+            this.fetchAuthorizations(page.getContent());
+            for (final Device device : page.getContent()) {
+                handler.handle(device);
+            }
+            exported += page.getContent().size();
+            cursor = page.getNext();
+            this.keysetQueryExecutor.clear();
+        } while (page.hasNext());
+
+        LOGGER.info("Exported {} devices for organisation {}", exported, organisationIdentification);
+        return exported;
+    }
+
+    /**
+     * Loads the lazy authorizations of the devices, with their organisations,
+     * in one query instead of one query per device. The devices have to be
+     * managed by the current transaction.
+     */
+    private void fetchAuthorizations(final List<Device> devices) {
+        if (devices.isEmpty()) {
+            return;
+        }
+        final List<Long> ids = new ArrayList<>(devices.size());
+        for (final Device device : devices) {
+            ids.add(device.getId());
+        }
+        this.deviceRepository.findWithAuthorizationsByIdIn(ids);
+    }
+
+    private Specifications<Device> createDeviceSpecifications(final String organisationIdentification,
+            final DeviceFilter deviceFilter, final Organisation organisation) throws FunctionalException {
+        try {
+            return this.createDeviceSpecifications(
+                    this.getOrganisationDeviceFilter(organisationIdentification, deviceFilter), organisation);
+        } catch (final ArgumentNullOrEmptyException e) {
+            throw new FunctionalException(FunctionalExceptionType.ARGUMENT_NULL, ComponentType.WS_CORE, e);
+        }
+    }
+
+    /**
+     * @return The specifications of the devices matching the filter, or null
+     *         when there is neither a filter nor an organisation.
+     */
+    private Specifications<Device> createDeviceSpecifications(final DeviceFilter deviceFilter,
+            final Organisation organisation) throws ArgumentNullOrEmptyException, FunctionalException {
+        if (deviceFilter == null) {
+            if (organisation != null) {
+                return where(this.deviceSpecifications.forOrganisation(organisation));
+            }
+            return null;
+        }
+
+        Specifications<Device> specifications;
+
+        if (!StringUtils.isEmpty(deviceFilter.getOrganisationIdentification())) {
+            final Organisation org = this.domainHelperService
+                    .findOrganisation(deviceFilter.getOrganisationIdentification());
+            specifications = where(this.deviceSpecifications.forOrganisation(org));
+        } else {
+            // dummy for 'not initialized'
+            specifications = where(this.deviceSpecifications.forOrganisation(organisation));
+        }
+        if (!StringUtils.isEmpty(deviceFilter.getDeviceIdentification())) {
+            String searchString = deviceFilter.getDeviceIdentification();
+
+            if (!deviceFilter.isExactMatch()) {
+                searchString = searchString.replaceAll(WILDCARD, "%") + "%";
+            }
+
+            specifications = specifications.and(this.deviceSpecifications.hasDeviceIdentification(searchString,
+                    deviceFilter.isExactMatch()));
+        }
+        if (!StringUtils.isEmpty(deviceFilter.getAlias())) {
+            specifications = specifications.and(this.deviceSpecifications
+                    .hasAlias(deviceFilter.getAlias().replaceAll(WILDCARD, "%") + "%"));
+        }
+        if (!StringUtils.isEmpty(deviceFilter.getCity())) {
+            specifications = specifications.and(
+                    this.deviceSpecifications.hasCity(deviceFilter.getCity().replaceAll(WILDCARD, "%") + "%"));
+        }
+        if (!StringUtils.isEmpty(deviceFilter.getPostalCode())) {
+            specifications = specifications.and(this.deviceSpecifications
+                    .hasPostalCode(deviceFilter.getPostalCode().replaceAll(WILDCARD, "%") + "%"));
+        }
+        if (!StringUtils.isEmpty(deviceFilter.getStreet())) {
+            specifications = specifications.and(this.deviceSpecifications
+                    .hasStreet(deviceFilter.getStreet().replaceAll(WILDCARD, "%") + "%"));
+        }
+        if (!StringUtils.isEmpty(deviceFilter.getNumber())) {
+            specifications = specifications.and(this.deviceSpecifications
+                    .hasNumber(deviceFilter.getNumber().replaceAll(WILDCARD, "%") + "%"));
+        }
+        if (!StringUtils.isEmpty(deviceFilter.getMunicipality())) {
+            specifications = specifications.and(this.deviceSpecifications
+                    .hasMunicipality(deviceFilter.getMunicipality().replaceAll(WILDCARD, "%") + "%"));
+        }
+        if (deviceFilter.getDeviceExternalManaged() != null
+                && !DeviceExternalManagedFilterType.BOTH.equals(deviceFilter.getDeviceExternalManaged())) {
+            specifications = specifications.and(this.deviceSpecifications
+                    .isManagedExternally(deviceFilter.getDeviceExternalManaged().getValue()));
+        }
+        if (deviceFilter.getDeviceActivated() != null
+                && !DeviceActivatedFilterType.BOTH.equals(deviceFilter.getDeviceActivated())) {
+            specifications = specifications
+                    .and(this.deviceSpecifications.isActived(deviceFilter.getDeviceActivated().getValue()));
+        }
+        if (deviceFilter.getDeviceInMaintenance() != null
+                && !DeviceInMaintenanceFilterType.BOTH.equals(deviceFilter.getDeviceInMaintenance())) {
+            specifications = specifications.and(this.deviceSpecifications
+                    .isInMaintenance(deviceFilter.getDeviceInMaintenance().getValue()));
+        }
+        if (deviceFilter.isHasTechnicalInstallation()) {
+            specifications = specifications.and(this.deviceSpecifications.hasTechnicalInstallationDate());
+        }
+        if (!StringUtils.isEmpty(deviceFilter.getOwner())) {
+            specifications = specifications.and(this.deviceSpecifications
+                    .forOwner(deviceFilter.getOwner().replaceAll(WILDCARD, "%") + "%"));
+        }
+        if (!StringUtils.isEmpty(deviceFilter.getDeviceType())) {
+            specifications = specifications.and(this.deviceSpecifications
+                    .forDeviceType(deviceFilter.getDeviceType().replaceAll(WILDCARD, "%") + "%"));
+        }
+        if (!StringUtils.isEmpty(deviceFilter.getModel())) {
+            specifications = specifications.and(this.deviceSpecifications
+                    .forDeviceModel(deviceFilter.getModel().replaceAll(WILDCARD, "%") + "%"));
+        }
+        if (!StringUtils.isEmpty(deviceFilter.getManufacturer())) {
+            final Manufacturer manufacturer = this.firmwareManagementService
+                    .findManufacturer(deviceFilter.getManufacturer());
+            specifications = specifications.and(this.deviceSpecifications.forManufacturer(manufacturer));
+        }
+        if (!StringUtils.isEmpty(deviceFilter.getFirmwareModuleVersion())) {
+            specifications = specifications.and(
+                    this.deviceSpecifications.forFirmwareModuleVersion(deviceFilter.getFirmwareModuleType(),
+                            deviceFilter.getFirmwareModuleVersion().replaceAll(WILDCARD, "%") + "%"));
+        }
+        if (deviceFilter.getDeviceIdentificationsToUse() != null
+                && !deviceFilter.getDeviceIdentificationsToUse().isEmpty()) {
+            specifications = specifications.and(this.deviceSpecifications
+                    .existsInDeviceIdentificationList(deviceFilter.getDeviceIdentificationsToUse()));
+
+        }
+        if (deviceFilter.getDeviceIdentificationsToExclude() != null
+                && !deviceFilter.getDeviceIdentificationsToExclude().isEmpty()) {
+            specifications = specifications.and(this.deviceSpecifications
+                    .excludeDeviceIdentificationList(deviceFilter.getDeviceIdentificationsToExclude()));
+
+        }
+        return specifications;
+    }
+
+    private KeysetPage<Device> findDevicesByKeyset(final Specifications<Device> specifications,
+            final KeysetCursor cursor, final int pageSize) throws FunctionalException {
+
+        Specifications<Device> pageSpecifications = specifications;
+        if (cursor != null) {
+            try {
+                pageSpecifications = where(specifications)
+                        .and(this.deviceSpecifications.isCreatedBefore(cursor.getDateTime(), cursor.getId()));
+            } catch (final ArgumentNullOrEmptyException e) {
+                throw new FunctionalException(FunctionalExceptionType.ARGUMENT_NULL, ComponentType.WS_CORE, e);
+            }
+        }
+
+        // One device more than the page size tells whether there is a next
+        // page.
+        final List<Device> devices = this.keysetQueryExecutor.findFirst(Device.class, pageSpecifications,
+                "creationTime", pageSize + 1);
+        if (devices.size() <= pageSize) {
+            return new KeysetPage<>(devices, null);
+        }
+
+        final Device last = devices.get(pageSize - 1);
+        return new KeysetPage<>(new ArrayList<>(devices.subList(0, pageSize)),
+                new KeysetCursor(last.getCreationTime(), last.getId()));
+    }
+
     // === SET EVENT NOTIFICATIONS ===
     @Transactional(value = "transactionManager")
     public String enqueueSetEventNotificationsRequest(@Identification final String organisationIdentification,
@@ -509,10 +509,10 @@ public class FirmwareManagementService {
 
         // file == null, user selected an existing firmware file
         if (file == null) {
-            final List<FirmwareFile> databaseFirmwareFiles = this.firmwareFileRepository
-                    .findByDeviceModelAndFilename(databaseDeviceModel, fileName);
+            final List<Long> databaseFirmwareFileIds = this.firmwareFileRepository
+                    .findIdsByDeviceModelAndFilename(databaseDeviceModel, fileName);
 
-            if (databaseFirmwareFiles.isEmpty()) {
+            if (databaseFirmwareFileIds.isEmpty()) {
                 LOGGER.error("Firmware file doesn't exist.");
                 throw new FunctionalException(FunctionalExceptionType.UNKNOWN_FIRMWARE, ComponentType.WS_CORE,
                         new UnknownEntityException(DeviceModel.class, fileName));
@@ -523,10 +523,12 @@ public class FirmwareManagementService {
                 // happen
                 savedFirmwareFile = new FirmwareFile(fileName, description, pushToNewDevices);
             } else {
-                // Storing the file in the database
-                savedFirmwareFile = new FirmwareFile(fileName, description, pushToNewDevices,
-                        databaseFirmwareFiles.get(0).getFile(),
-                        this.getMd5Hash(databaseFirmwareFiles.get(0).getFile()));
+                // Storing the file in the database, the contents of the
+                // existing firmware file are only selected here
+                final byte[] databaseFile = this.firmwareFileRepository
+                        .findFileById(databaseFirmwareFileIds.get(0));
+                savedFirmwareFile = new FirmwareFile(fileName, description, pushToNewDevices, databaseFile,
+                        this.getMd5Hash(databaseFile));
             }
         } else {
             if (databaseDeviceModel.isFileStorage()) {
@@ -689,7 +691,7 @@ public class FirmwareManagementService {
 
         // Only remove the file if no other firmware is using it.
         if (deviceModel.isFileStorage() && this.firmwareFileRepository
-                .findByDeviceModelAndFilename(deviceModel, removedFirmwareFile.getFilename()).size() == 1) {
+                .findIdsByDeviceModelAndFilename(deviceModel, removedFirmwareFile.getFilename()).size() == 1) {
             this.removePhysicalFirmwareFile(this.createFirmwarePath(deviceModel, removedFirmwareFile.getFilename()));
 
         }
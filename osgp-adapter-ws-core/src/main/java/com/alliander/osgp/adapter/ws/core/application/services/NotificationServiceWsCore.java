@@ -17,6 +17,7 @@ import com.alliander.osgp.adapter.ws.core.application.config.NotificationClientC
 import com.alliander.osgp.adapter.ws.schema.core.common.OsgpResultType;
 import com.alliander.osgp.adapter.ws.schema.core.notification.Notification;
 import com.alliander.osgp.adapter.ws.schema.core.notification.NotificationType;
+import com.alliander.osgp.adapter.ws.shared.services.NotificationDeliveryExecutor;
 import com.alliander.osgp.adapter.ws.shared.services.NotificationService;
 import com.alliander.osgp.shared.exceptionhandling.WebServiceSecurityException;
 
@@ -33,6 +34,27 @@ public class NotificationServiceWsCore implements NotificationService {
     @Autowired
     private SendNotificationServiceClient sendNotificationServiceClient;
 
+    private final String notificationUrl;
+
+    private NotificationDeliveryExecutor notificationDeliveryExecutor;
+
+    /**
+     * @param notificationUrl
+     *            The url the {@link SendNotificationServiceClient} sends the
+     *            notifications to.
+     */
+    public NotificationServiceWsCore(final String notificationUrl) {
+        this.notificationUrl = notificationUrl;
+    }
+
+    /**
+     * Send notifications asynchronously using the given executor, instead of
+     * on the calling thread.
+     */
+    public void setNotificationDeliveryExecutor(final NotificationDeliveryExecutor notificationDeliveryExecutor) {
+        this.notificationDeliveryExecutor = notificationDeliveryExecutor;
+    }
+
     @Override
     public void sendNotification(final String organisationIdentification, final String deviceIdentification,
             final String result, final String correlationUid, final String message, final Object notificationType) {
@@ -91,6 +113,20 @@ public class NotificationServiceWsCore implements NotificationService {
             notification.setMessage(message);
         }
 
+        if (this.notificationDeliveryExecutor != null) {
+            final SendNotificationServiceClient client = this.sendNotificationServiceClient;
+            final NotificationDeliveryExecutor.Delivery delivery = new NotificationDeliveryExecutor.Delivery() {
+                @Override
+                public void deliver() throws WebServiceSecurityException {
+                    client.sendNotification(organisationIdentification, notification);
+                }
+            };
+            this.notificationDeliveryExecutor.execute(this.notificationUrl, delivery,
+                    String.format("notification %s for device %s to org %s", notificationType,
+                            deviceIdentification, organisationIdentification));
+            return;
+        }
+
         // Try to send notification and catch security exceptions.
         try {
             this.sendNotificationServiceClient.sendNotification(organisationIdentification, notification);
@@ -0,0 +1,18 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.adapter.ws.core.application.services;
+
+/**
+ * Receives the results of an export one by one, for instance to write them to
+ * a response stream. A result is detached after the page it was found with
+ * is handled, so it should be handled when it is received, not kept.
+ */
+public interface ResultHandler<T> {
+
+    void handle(T result);
+}
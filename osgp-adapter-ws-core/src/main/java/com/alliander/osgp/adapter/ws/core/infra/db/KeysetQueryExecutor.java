@@ -0,0 +1,69 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.adapter.ws.core.infra.db;
+
+import java.util.List;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Component;
+
+/**
+ * Finds the first entities matching a specification, without the count query
+ * of a {@link org.springframework.data.domain.Page}. Together with a
+ * specification selecting the entities after a
+ * {@link com.alliander.osgp.domain.core.valueobjects.KeysetCursor} this finds
+ * any page by an index seek, so deep pages are as fast as the first one.
+ */
+@Component
+public class KeysetQueryExecutor {
+
+    private static final String ID = "id";
+
+    @PersistenceContext(unitName = "OSGP_WS_ADAPTER_CORE")
+    private EntityManager entityManager;
+
+    /**
+     * Finds the first entities matching the specification, ordered by the date
+     * time property and id, both descending.
+     *
+     * @param specification
+     *            The specification, or null to find all entities.
+     * @param maxResults
+     *            The maximum number of entities found.
+     */
+    public <T> List<T> findFirst(final Class<T> entityClass, final Specification<T> specification,
+            final String dateTimeProperty, final int maxResults) {
+        final CriteriaBuilder cb = this.entityManager.getCriteriaBuilder();
+        final CriteriaQuery<T> query = cb.createQuery(entityClass);
+        final Root<T> root = query.from(entityClass);
+        if (specification != null) {
+            final Predicate predicate = specification.toPredicate(root, query, cb);
+            if (predicate != null) {
+                query.where(predicate);
+            }
+        }
+        query.select(root).orderBy(cb.desc(root.get(dateTimeProperty)), cb.desc(root.get(ID)));
+
+        return this.entityManager.createQuery(query).setMaxResults(maxResults).getResultList();
+    }
+
+    /**
+     * Detaches all entities found so far, so entities of pages that were
+     * handled are not kept in memory while exporting.
+     */
+    public void clear() {
+        this.entityManager.clear();
+    }
+}
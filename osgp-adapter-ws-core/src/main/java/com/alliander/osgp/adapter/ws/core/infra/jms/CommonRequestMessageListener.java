@@ -14,6 +14,7 @@ import org.springframework.stereotype.Component;
 
 import com.alliander.osgp.adapter.ws.schema.core.notification.NotificationType;
 import com.alliander.osgp.adapter.ws.shared.services.NotificationService;
+import com.alliander.osgp.domain.core.jms.metrics.MeteredMessageListener;
 import com.alliander.osgp.shared.infra.jms.Constants;
 import com.alliander.osgp.shared.infra.jms.UnknownMessageTypeException;
 
@@ -49,8 +50,10 @@ public class CommonRequestMessageListener implements MessageListener {
                 throw new UnknownMessageTypeException("Unknown JMSType: " + messageType);
             }
         } catch (final JMSException ex) {
+            MeteredMessageListener.markFailed();
             LOGGER.error("Caught JMSException: {} ", ex);
         } catch (final UnknownMessageTypeException e) {
+            MeteredMessageListener.markFailed();
             LOGGER.error("Caught UnknownMessageTypeException", e);
         }
     }
@@ -12,9 +12,8 @@ import javax.jms.ObjectMessage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Qualifier;
-import org.springframework.jms.core.JmsTemplate;
 
+import com.alliander.osgp.adapter.ws.infra.jms.ResponseMessageRegistry;
 import com.alliander.osgp.shared.infra.jms.BaseResponseMessageFinder;
 
 /**
@@ -29,18 +28,18 @@ public final class CommonResponseMessageFinder extends BaseResponseMessageFinder
     private static final Logger LOGGER = LoggerFactory.getLogger(CommonResponseMessageFinder.class);
 
     /**
-     * Autowired JMS template for OSGP domain common responses queue.
+     * Autowired registry of the OSGP domain common responses queue.
      */
     @Autowired
-    @Qualifier("wsCoreIncomingResponsesJmsTemplate")
-    private JmsTemplate commonResponsesJmsTemplate;
+    private ResponseMessageRegistry commonResponseMessageRegistry;
 
     @Override
     protected ObjectMessage receiveObjectMessage(final String correlationUid) {
         LOGGER.info("Trying to find message with correlationUID: {}", correlationUid);
 
-        return (ObjectMessage) this.commonResponsesJmsTemplate
-                .receiveSelected(this.getJmsCorrelationId(correlationUid));
+        // Asks the other instances when this instance does not hold the
+        // response.
+        return this.commonResponseMessageRegistry.find(correlationUid);
     }
 
 }
@@ -0,0 +1,155 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.adapter.ws.core.application.services;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.alliander.osgp.adapter.ws.core.infra.db.KeysetQueryExecutor;
+import com.alliander.osgp.domain.core.entities.Event;
+import com.alliander.osgp.domain.core.entities.Organisation;
+import com.alliander.osgp.domain.core.specifications.EventSpecifications;
+import com.alliander.osgp.domain.core.valueobjects.EventType;
+import com.alliander.osgp.domain.core.valueobjects.KeysetCursor;
+import com.alliander.osgp.domain.core.valueobjects.KeysetPage;
+import com.alliander.osgp.shared.application.config.PagingSettings;
+
+@RunWith(MockitoJUnitRunner.class)
+public class DeviceManagementServiceTest {
+
+    private static final String ORGANISATION_IDENTIFICATION = "test-org";
+
+    @Mock
+    private DomainHelperService domainHelperService;
+
+    @Mock
+    private EventSpecifications eventSpecifications;
+
+    @Mock
+    private KeysetQueryExecutor keysetQueryExecutor;
+
+    @Mock
+    private PagingSettings pagingSettings;
+
+    @Mock
+    private Organisation organisation;
+
+    @Mock
+    private Specification<Event> authorized;
+
+    @Mock
+    private Specification<Event> before;
+
+    @InjectMocks
+    private DeviceManagementService deviceManagementService;
+
+    private final List<Event> events = new ArrayList<>();
+
+    @Before
+    public void setUp() throws Exception {
+        ReflectionTestUtils.setField(this.deviceManagementService, "exportPageSize", 2);
+        when(this.pagingSettings.getMaximumPageSize()).thenReturn(500);
+        when(this.domainHelperService.findOrganisation(ORGANISATION_IDENTIFICATION)).thenReturn(this.organisation);
+        when(this.eventSpecifications.isAuthorized(this.organisation)).thenReturn(this.authorized);
+        when(this.eventSpecifications.isBefore(any(Date.class), any(Long.class))).thenReturn(this.before);
+
+        // Newest first, events with the same date time are ordered by id.
+        final long now = System.currentTimeMillis();
+        for (long id = 5; id > 0; id--) {
+            final Event event = new Event(null, new Date(now + id / 2 * 1000), EventType.DIAG_EVENTS_GENERAL,
+                    "event " + id, 0);
+            event.setId(id);
+            this.events.add(event);
+        }
+    }
+
+    @Test
+    public void testPageHoldsCursorOfItsLastEvent() throws Exception {
+        when(this.keysetQueryExecutor.findFirst(eq(Event.class), any(Specification.class), eq("dateTime"), eq(3)))
+                .thenReturn(this.events.subList(0, 3));
+
+        final KeysetPage<Event> page = this.deviceManagementService.findEventsByKeyset(ORGANISATION_IDENTIFICATION,
+                null, 2, null, null, null, null);
+
+        assertEquals(this.events.subList(0, 2), page.getContent());
+        assertEquals(this.cursorOf(this.events.get(1)), page.getNext());
+    }
+
+    @Test
+    public void testLastPageHasNoCursor() throws Exception {
+        final KeysetCursor cursor = this.cursorOf(this.events.get(2));
+        when(this.keysetQueryExecutor.findFirst(eq(Event.class), any(Specification.class), eq("dateTime"), eq(3)))
+                .thenReturn(this.events.subList(3, 5));
+
+        final KeysetPage<Event> page = this.deviceManagementService.findEventsByKeyset(ORGANISATION_IDENTIFICATION,
+                null, 2, cursor, null, null, null);
+
+        assertEquals(this.events.subList(3, 5), page.getContent());
+        assertFalse(page.hasNext());
+        assertNull(page.getNext());
+        verify(this.eventSpecifications).isBefore(cursor.getDateTime(), cursor.getId());
+    }
+
+    @Test
+    public void testPageSizeIsLimited() throws Exception {
+        when(this.keysetQueryExecutor.findFirst(eq(Event.class), any(Specification.class), eq("dateTime"), anyInt()))
+                .thenReturn(this.events);
+
+        this.deviceManagementService.findEventsByKeyset(ORGANISATION_IDENTIFICATION, null, 100000, null, null,
+                null, null);
+
+        verify(this.keysetQueryExecutor).findFirst(eq(Event.class), any(Specification.class), eq("dateTime"),
+                eq(501));
+    }
+
+    @Test
+    public void testExportReadsPagesByCursor() throws Exception {
+        when(this.keysetQueryExecutor.findFirst(eq(Event.class), any(Specification.class), eq("dateTime"), eq(3)))
+                .thenReturn(this.events.subList(0, 3), this.events.subList(2, 5), this.events.subList(4, 5));
+
+        final List<Event> exported = new ArrayList<>();
+        final long count = this.deviceManagementService.exportEvents(ORGANISATION_IDENTIFICATION, null, null, null,
+                null, new ResultHandler<Event>() {
+                    @Override
+                    public void handle(final Event result) {
+                        exported.add(result);
+                    }
+                });
+
+        assertEquals(5, count);
+        assertEquals(this.events, exported);
+        verify(this.eventSpecifications).isBefore(this.events.get(1).getDateTime(), this.events.get(1).getId());
+        verify(this.eventSpecifications).isBefore(this.events.get(3).getDateTime(), this.events.get(3).getId());
+        // The events of a page are detached after they are handled.
+        verify(this.keysetQueryExecutor, times(3)).clear();
+    }
+
+    private KeysetCursor cursorOf(final Event event) {
+        return new KeysetCursor(event.getDateTime(), event.getId());
+    }
+}
@@ -0,0 +1,115 @@
+/**
+ * Copyright 2018 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.adapter.ws.core.application.services;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.mockito.stubbing.Answer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.alliander.osgp.adapter.ws.clients.SendNotificationServiceClient;
+import com.alliander.osgp.adapter.ws.schema.core.notification.Notification;
+import com.alliander.osgp.adapter.ws.schema.core.notification.NotificationType;
+import com.alliander.osgp.adapter.ws.shared.services.NotificationDeliveryExecutor;
+import com.alliander.osgp.shared.exceptionhandling.WebServiceSecurityException;
+
+/**
+ * A notification endpoint that does not respond must not hold the thread
+ * that sends the notification, which is usually a JMS listener thread.
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class NotificationServiceWsCoreTest {
+
+    private static final String NOTIFICATION_URL = "http://localhost/notifications";
+    private static final String ORGANISATION_IDENTIFICATION = "test-org";
+    private static final String DEVICE_IDENTIFICATION = "device-1";
+
+    @Mock
+    private SendNotificationServiceClient sendNotificationServiceClient;
+
+    private NotificationDeliveryExecutor notificationDeliveryExecutor;
+    private NotificationServiceWsCore notificationService;
+
+    @Before
+    public void setUp() {
+        this.notificationDeliveryExecutor = new NotificationDeliveryExecutor(1, 10, 5, 60000, 10000, 300000);
+        this.notificationService = new NotificationServiceWsCore(NOTIFICATION_URL);
+        ReflectionTestUtils.setField(this.notificationService, "sendNotificationServiceClient",
+                this.sendNotificationServiceClient);
+        this.notificationService.setNotificationDeliveryExecutor(this.notificationDeliveryExecutor);
+    }
+
+    @After
+    public void tearDown() {
+        this.notificationDeliveryExecutor.shutdown();
+    }
+
+    @Test
+    public void testNotificationIsSentOffTheCallingThread() throws Exception {
+        final CountDownLatch endpointResponds = new CountDownLatch(1);
+        final CountDownLatch sent = new CountDownLatch(1);
+        final AtomicReference<Thread> sendingThread = new AtomicReference<>();
+        final AtomicReference<Notification> sentNotification = new AtomicReference<>();
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(final InvocationOnMock invocation) throws InterruptedException {
+                sendingThread.set(Thread.currentThread());
+                sentNotification.set((Notification) invocation.getArguments()[1]);
+                endpointResponds.await(10, TimeUnit.SECONDS);
+                sent.countDown();
+                return null;
+            }
+        }).when(this.sendNotificationServiceClient).sendNotification(eq(ORGANISATION_IDENTIFICATION),
+                any(Notification.class));
+
+        // Returns while the endpoint has not responded yet.
+        this.notificationService.sendNotification(NotificationType.DEVICE_UPDATED, ORGANISATION_IDENTIFICATION,
+                DEVICE_IDENTIFICATION);
+        endpointResponds.countDown();
+
+        assertTrue(sent.await(10, TimeUnit.SECONDS));
+        assertNotSame(Thread.currentThread(), sendingThread.get());
+        assertEquals(DEVICE_IDENTIFICATION, sentNotification.get().getDeviceIdentification());
+        assertEquals(NotificationType.DEVICE_UPDATED, sentNotification.get().getNotificationType());
+    }
+
+    @Test
+    public void testNotificationIsSentOnTheCallingThreadWithoutExecutor() throws WebServiceSecurityException {
+        this.notificationService.setNotificationDeliveryExecutor(null);
+        final AtomicReference<Thread> sendingThread = new AtomicReference<>();
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(final InvocationOnMock invocation) {
+                sendingThread.set(Thread.currentThread());
+                return null;
+            }
+        }).when(this.sendNotificationServiceClient).sendNotification(eq(ORGANISATION_IDENTIFICATION),
+                any(Notification.class));
+
+        this.notificationService.sendNotification(NotificationType.DEVICE_UPDATED, ORGANISATION_IDENTIFICATION,
+                DEVICE_IDENTIFICATION);
+
+        assertEquals(Thread.currentThread(), sendingThread.get());
+    }
+}
@@ -0,0 +1,171 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.adapter.ws.core.infra.db;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.Field;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.persistence.EntityManager;
+
+import org.hibernate.ejb.HibernatePersistence;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Sort.Direction;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.support.JpaRepositoryFactory;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.util.ReflectionUtils;
+
+import com.alliander.osgp.adapter.ws.infra.specifications.JpaEventSpecifications;
+import com.alliander.osgp.domain.core.entities.Event;
+import com.alliander.osgp.domain.core.exceptions.ArgumentNullOrEmptyException;
+import com.alliander.osgp.domain.core.repositories.EventRepository;
+
+/**
+ * Compares finding page N of a million events by offset, as findEvents does
+ * with the {@link EventRepository}, with finding it by keyset, as
+ * findEventsByKeyset does with JpaEventSpecifications.isBefore and the
+ * {@link KeysetQueryExecutor}, on an embedded database.
+ */
+public class EventKeysetPagingTest {
+
+    private static final String URL = "jdbc:h2:mem:events;MODE=PostgreSQL;DB_CLOSE_DELAY=-1";
+
+    private static final int EVENTS = 1000000;
+    private static final int PAGE_SIZE = 100;
+    private static final int[] PAGE_NUMBERS = { 0, 100, 1000, 9000 };
+    private static final int RUNS = 3;
+
+    private static final Sort ORDER = new Sort(Direction.DESC, "dateTime", "id");
+
+    private static LocalContainerEntityManagerFactoryBean entityManagerFactory;
+
+    private static EventRepository eventRepository;
+    private static KeysetQueryExecutor keysetQueryExecutor;
+
+    private final JpaEventSpecifications eventSpecifications = new JpaEventSpecifications();
+
+    @BeforeClass
+    public static void createEvents() throws SQLException {
+        final DriverManagerDataSource dataSource = new DriverManagerDataSource(URL);
+        dataSource.setDriverClassName("org.h2.Driver");
+
+        final Map<String, Object> properties = new HashMap<>();
+        properties.put("hibernate.dialect", "org.hibernate.dialect.H2Dialect");
+        properties.put("hibernate.hbm2ddl.auto", "create-drop");
+        properties.put("hibernate.ejb.naming_strategy", "org.hibernate.cfg.ImprovedNamingStrategy");
+
+        entityManagerFactory = new LocalContainerEntityManagerFactoryBean();
+        entityManagerFactory.setDataSource(dataSource);
+        entityManagerFactory.setPersistenceProviderClass(HibernatePersistence.class);
+        entityManagerFactory.setPackagesToScan("com.alliander.osgp.domain.core.entities");
+        entityManagerFactory.setJpaPropertyMap(properties);
+        entityManagerFactory.afterPropertiesSet();
+
+        final EntityManager entityManager = SharedEntityManagerCreator
+                .createSharedEntityManager(entityManagerFactory.getObject());
+        eventRepository = new JpaRepositoryFactory(entityManager).getRepository(EventRepository.class);
+        keysetQueryExecutor = new KeysetQueryExecutor();
+        final Field field = ReflectionUtils.findField(KeysetQueryExecutor.class, "entityManager");
+        ReflectionUtils.makeAccessible(field);
+        ReflectionUtils.setField(field, keysetQueryExecutor, entityManager);
+
+        // Generated in the tables created for the entities, persisting a
+        // million entities one by one would take minutes.
+        try (final Connection connection = dataSource.getConnection();
+                final Statement statement = connection.createStatement()) {
+            // Three events per second, so events share a date time.
+            statement.execute("INSERT INTO event (id, creation_time, modification_time, version, date_time, "
+                    + "event, description, \"index\") SELECT x, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP, 0, "
+                    + "DATEADD('SECOND', x / 3, TIMESTAMP '2018-01-01 00:00:00'), MOD(x, 20), 'event', 0 "
+                    + "FROM SYSTEM_RANGE(1, " + EVENTS + ")");
+            // Like event_date_time_id_idx, in the direction of the pages.
+            statement.execute("CREATE INDEX event_date_time_id_idx ON event (date_time DESC, id DESC)");
+        }
+    }
+
+    @AfterClass
+    public static void dropEvents() {
+        if (entityManagerFactory != null) {
+            entityManagerFactory.destroy();
+        }
+    }
+
+    @Test
+    public void testKeysetPageEqualsOffsetPage() throws ArgumentNullOrEmptyException {
+        for (final int pageNumber : new int[] { 1, 4567 }) {
+            final Event last = this.last(this.findByOffset(pageNumber - 1));
+
+            assertEquals(this.ids(this.findByOffset(pageNumber)), this.ids(this.findByKeyset(last)));
+        }
+    }
+
+    @Test
+    public void testDeepKeysetPageIsFasterThanDeepOffsetPage() throws ArgumentNullOrEmptyException {
+        final StringBuilder latencies = new StringBuilder("page latency (ms), offset / keyset:");
+        long offsetLatency = 0;
+        long keysetLatency = 0;
+        for (final int pageNumber : PAGE_NUMBERS) {
+            final Event previous = pageNumber == 0 ? null : this.last(this.findByOffset(pageNumber - 1));
+            offsetLatency = Long.MAX_VALUE;
+            keysetLatency = Long.MAX_VALUE;
+            for (int run = 0; run < RUNS; run++) {
+                long start = System.nanoTime();
+                this.findByOffset(pageNumber);
+                offsetLatency = Math.min(offsetLatency, System.nanoTime() - start);
+
+                start = System.nanoTime();
+                this.findByKeyset(previous);
+                keysetLatency = Math.min(keysetLatency, System.nanoTime() - start);
+            }
+            latencies.append(String.format(" page %d: %d / %d", pageNumber,
+                    TimeUnit.NANOSECONDS.toMillis(offsetLatency), TimeUnit.NANOSECONDS.toMillis(keysetLatency)));
+        }
+
+        // Offset paging reads all events of the previous pages, keyset paging
+        // seeks to the first event of the page.
+        assertTrue(latencies.toString(), keysetLatency < offsetLatency);
+    }
+
+    private List<Event> findByOffset(final int pageNumber) {
+        return eventRepository.findAll(new PageRequest(pageNumber, PAGE_SIZE, ORDER)).getContent();
+    }
+
+    private List<Event> findByKeyset(final Event previous) throws ArgumentNullOrEmptyException {
+        final Specification<Event> specification = previous == null ? null
+                : this.eventSpecifications.isBefore(previous.getDateTime(), previous.getId());
+        return keysetQueryExecutor.findFirst(Event.class, specification, "dateTime", PAGE_SIZE);
+    }
+
+    private List<Long> ids(final List<Event> events) {
+        final List<Long> ids = new ArrayList<>(events.size());
+        for (final Event event : events) {
+            ids.add(event.getId());
+        }
+        return ids;
+    }
+
+    private Event last(final List<Event> events) {
+        return events.get(events.size() - 1);
+    }
+}
@@ -0,0 +1,133 @@
+/**
+ * Copyright 2018 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.adapter.ws.core.infra.jms;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import javax.jms.JMSException;
+import javax.jms.Message;
+import javax.jms.Session;
+import javax.persistence.EntityManager;
+
+import org.apache.activemq.command.ActiveMQMessage;
+import org.hibernate.ejb.HibernatePersistence;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jms.core.JmsTemplate;
+import org.springframework.jms.core.MessageCreator;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+
+import com.alliander.osgp.adapter.ws.infra.jms.DomainChangeMessageSender;
+import com.alliander.osgp.domain.core.entities.Device;
+import com.alliander.osgp.shared.infra.jms.Constants;
+
+/**
+ * Changes a device on an embedded database the way this application does, and
+ * checks the change is published for OSGP Core once it has been committed.
+ */
+public class DomainChangeMessageSenderTest {
+
+    private static final String URL = "jdbc:h2:mem:domain-changes;MODE=PostgreSQL;DB_CLOSE_DELAY=-1";
+    private static final String DEVICE_IDENTIFICATION = "device-1";
+
+    private final JmsTemplate domainChangesJmsTemplate = mock(JmsTemplate.class);
+
+    private LocalContainerEntityManagerFactoryBean entityManagerFactory;
+
+    @Before
+    public void setUp() {
+        final DriverManagerDataSource dataSource = new DriverManagerDataSource(URL);
+        dataSource.setDriverClassName("org.h2.Driver");
+
+        final Map<String, Object> properties = new HashMap<>();
+        properties.put("hibernate.dialect", "org.hibernate.dialect.H2Dialect");
+        properties.put("hibernate.hbm2ddl.auto", "create-drop");
+        properties.put("hibernate.ejb.naming_strategy", "org.hibernate.cfg.ImprovedNamingStrategy");
+
+        this.entityManagerFactory = new LocalContainerEntityManagerFactoryBean();
+        this.entityManagerFactory.setDataSource(dataSource);
+        this.entityManagerFactory.setPersistenceProviderClass(HibernatePersistence.class);
+        this.entityManagerFactory.setPackagesToScan("com.alliander.osgp.domain.core.entities");
+        this.entityManagerFactory.setJpaPropertyMap(properties);
+        this.entityManagerFactory.afterPropertiesSet();
+
+        new DomainChangeMessageSender(this.domainChangesJmsTemplate).register(this.entityManagerFactory.getObject());
+
+        this.inTransaction(entityManager -> entityManager.persist(new Device(DEVICE_IDENTIFICATION)), true);
+        reset(this.domainChangesJmsTemplate);
+    }
+
+    @After
+    public void tearDown() {
+        this.entityManagerFactory.destroy();
+    }
+
+    @Test
+    public void testCommittedDeviceChangeIsPublished() throws JMSException {
+        this.inTransaction(entityManager -> this.findDevice(entityManager).setAlias("changed"), true);
+
+        final Message message = this.sentMessage();
+        assertEquals(Device.class.getSimpleName(), message.getJMSType());
+        assertEquals(DEVICE_IDENTIFICATION, message.getStringProperty(Constants.DEVICE_IDENTIFICATION));
+    }
+
+    @Test
+    public void testRolledBackDeviceChangeIsNotPublished() {
+        this.inTransaction(entityManager -> {
+            this.findDevice(entityManager).setAlias("changed");
+            entityManager.flush();
+        }, false);
+
+        verify(this.domainChangesJmsTemplate, never()).send(any(MessageCreator.class));
+    }
+
+    private Device findDevice(final EntityManager entityManager) {
+        return entityManager
+                .createQuery("SELECT d FROM Device d WHERE d.deviceIdentification = :deviceIdentification",
+                        Device.class)
+                .setParameter("deviceIdentification", DEVICE_IDENTIFICATION).getSingleResult();
+    }
+
+    private void inTransaction(final Consumer<EntityManager> work, final boolean commit) {
+        final EntityManager entityManager = this.entityManagerFactory.getObject().createEntityManager();
+        try {
+            entityManager.getTransaction().begin();
+            work.accept(entityManager);
+            if (commit) {
+                entityManager.getTransaction().commit();
+            } else {
+                entityManager.getTransaction().rollback();
+            }
+        } finally {
+            entityManager.close();
+        }
+    }
+
+    private Message sentMessage() throws JMSException {
+        final ArgumentCaptor<MessageCreator> messageCreator = ArgumentCaptor.forClass(MessageCreator.class);
+        verify(this.domainChangesJmsTemplate, times(1)).send(messageCreator.capture());
+
+        final Session session = mock(Session.class);
+        when(session.createMessage()).thenReturn(new ActiveMQMessage());
+        return messageCreator.getValue().createMessage(session);
+    }
+}
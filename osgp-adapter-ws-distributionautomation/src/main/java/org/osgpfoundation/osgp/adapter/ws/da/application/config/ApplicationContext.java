@@ -17,6 +17,7 @@ import org.springframework.context.annotation.PropertySource;
 import org.springframework.validation.beanvalidation.LocalValidatorFactoryBean;
 import org.springframework.validation.beanvalidation.MethodValidationPostProcessor;
 
+import com.alliander.osgp.adapter.ws.shared.services.ResponseDataMemoryStore;
 import com.alliander.osgp.shared.application.config.AbstractConfig;
 
 /**
@@ -34,6 +35,11 @@ import com.alliander.osgp.shared.application.config.AbstractConfig;
 @PropertySource(value = "file:${osgp/AdapterWsDistributionAutomation/config}", ignoreResourceNotFound = true)
 public class ApplicationContext extends AbstractConfig {
 
+    private static final String PROPERTY_NAME_RESPONSE_DATA_MEMORY_MAX_ENTRIES = "distributionautomation.response.data.memory.max.entries";
+    private static final String PROPERTY_NAME_RESPONSE_DATA_MEMORY_TIME_TO_LIVE = "distributionautomation.response.data.memory.time.to.live";
+    private static final String PROPERTY_NAME_RESPONSE_DATA_WAIT_TIMEOUT = "distributionautomation.response.data.wait.timeout";
+    private static final String PROPERTY_NAME_RESPONSE_DATA_MAX_WAITERS = "distributionautomation.response.data.max.waiters";
+
     @Bean
     public LocalValidatorFactoryBean validator() {
         return new LocalValidatorFactoryBean();
@@ -45,4 +51,13 @@ public class ApplicationContext extends AbstractConfig {
         m.setValidatorFactory(this.validator());
         return m;
     }
+
+    @Bean
+    public ResponseDataMemoryStore responseDataMemoryStore() {
+        return new ResponseDataMemoryStore(
+                Integer.parseInt(this.environment.getRequiredProperty(PROPERTY_NAME_RESPONSE_DATA_MEMORY_MAX_ENTRIES)),
+                Long.parseLong(this.environment.getRequiredProperty(PROPERTY_NAME_RESPONSE_DATA_MEMORY_TIME_TO_LIVE)),
+                Long.parseLong(this.environment.getRequiredProperty(PROPERTY_NAME_RESPONSE_DATA_WAIT_TIMEOUT)),
+                Integer.parseInt(this.environment.getRequiredProperty(PROPERTY_NAME_RESPONSE_DATA_MAX_WAITERS)));
+    }
 }
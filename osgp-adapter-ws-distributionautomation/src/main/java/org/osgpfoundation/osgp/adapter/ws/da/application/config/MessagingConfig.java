@@ -11,6 +11,7 @@ import org.osgpfoundation.osgp.adapter.ws.da.infra.jms.DistributionAutomationReq
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
 import org.springframework.context.annotation.PropertySource;
 import org.springframework.context.annotation.PropertySources;
 import org.springframework.jms.core.JmsTemplate;
@@ -18,16 +19,22 @@ import org.springframework.jms.listener.DefaultMessageListenerContainer;
 
 import com.alliander.osgp.adapter.ws.infra.jms.LoggingMessageSender;
 import org.osgpfoundation.osgp.adapter.ws.da.infra.jms.DistributionAutomationResponseMessageListener;
+import com.alliander.osgp.domain.core.jms.metrics.MessageMetrics;
+import com.alliander.osgp.domain.core.jms.metrics.MessageMetricsConfig;
 import com.alliander.osgp.shared.application.config.AbstractMessagingConfig;
 import com.alliander.osgp.shared.application.config.jms.JmsConfiguration;
 import com.alliander.osgp.shared.application.config.jms.JmsConfigurationFactory;
 
 @Configuration
+@Import(MessageMetricsConfig.class)
 @PropertySources({ @PropertySource("classpath:osgp-adapter-ws-distributionautomation.properties"),
         @PropertySource(value = "file:${osgp/Global/config}", ignoreResourceNotFound = true),
         @PropertySource(value = "file:${osgp/AdapterWsDistributionAutomation/config}", ignoreResourceNotFound = true), })
 public class MessagingConfig extends AbstractMessagingConfig {
 
+    @Autowired
+    private MessageMetrics messageMetrics;
+
     @Autowired
     public DistributionAutomationResponseMessageListener distributionautomationResponseMessageListener;
 
@@ -53,7 +60,8 @@ public class MessagingConfig extends AbstractMessagingConfig {
     @Bean
     public JmsConfiguration responseJmsConfiguration(final JmsConfigurationFactory jmsConfigurationFactory) {
         return jmsConfigurationFactory.initializeConfiguration("jms.distributionautomation.responses",
-                this.distributionautomationResponseMessageListener);
+                this.messageMetrics.metered("jms.distributionautomation.responses",
+                        this.distributionautomationResponseMessageListener));
     }
 
     @Bean(name = "wsDistributionAutomationIncomingResponsesJmsTemplate")
@@ -89,5 +97,4 @@ public class MessagingConfig extends AbstractMessagingConfig {
     public LoggingMessageSender loggingMessageSender() {
         return new LoggingMessageSender();
     }
-
 }
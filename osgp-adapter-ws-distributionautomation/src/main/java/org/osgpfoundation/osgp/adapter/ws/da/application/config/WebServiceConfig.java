@@ -18,7 +18,6 @@ import org.osgpfoundation.osgp.adapter.ws.da.application.exceptionhandling.SoapF
 import org.osgpfoundation.osgp.adapter.ws.da.application.services.NotificationService;
 import org.osgpfoundation.osgp.adapter.ws.da.application.services.NotificationServiceBlackHole;
 import org.osgpfoundation.osgp.adapter.ws.da.application.services.NotificationServiceWs;
-import org.osgpfoundation.osgp.adapter.ws.da.presentation.ws.SendNotificationServiceClient;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
@@ -41,6 +40,7 @@ import com.alliander.osgp.adapter.ws.endpointinterceptors.OrganisationIdentifica
 import com.alliander.osgp.adapter.ws.endpointinterceptors.SoapHeaderEndpointInterceptor;
 import com.alliander.osgp.adapter.ws.endpointinterceptors.WebServiceMonitorInterceptor;
 import com.alliander.osgp.adapter.ws.endpointinterceptors.X509CertificateRdnAttributeValueEndpointInterceptor;
+import com.alliander.osgp.adapter.ws.shared.services.NotificationDeliveryExecutor;
 import com.alliander.osgp.shared.application.config.AbstractConfig;
 import com.alliander.osgp.shared.infra.ws.DefaultWebServiceTemplateFactory;
 
@@ -54,6 +54,7 @@ public class WebServiceConfig extends AbstractConfig {
 
     private static final String PROPERTY_NAME_MARSHALLER_CONTEXT_PATH_DISTRIBUTION_AUTOMATION_GENERIC = "jaxb2.marshaller.context.path.distributionautomation.generic";
     private static final String PROPERTY_NAME_MARSHALLER_CONTEXT_PATH_DISTRIBUTION_AUTOMATION_NOTIFICATION = "jaxb2.marshaller.context.path.distributionautomation.notification";
+    private static final String PROPERTY_NAME_WEB_SERVICE_MONITOR_PAYLOAD_LOG_SAMPLE_INTERVAL = "web.service.monitor.payload.log.sample.interval";
 
     private static final String ORGANISATION_IDENTIFICATION_HEADER = "OrganisationIdentification";
     private static final String ORGANISATION_IDENTIFICATION_CONTEXT = ORGANISATION_IDENTIFICATION_HEADER;
@@ -73,6 +74,18 @@ public class WebServiceConfig extends AbstractConfig {
     private String webserviceNotificationUsername;
     @Value("${web.service.notification.organisation:OSGP}")
     private String webserviceNotificationOrganisation;
+    @Value("${web.service.notification.delivery.threads.per.endpoint}")
+    private int notificationDeliveryThreadsPerEndpoint;
+    @Value("${web.service.notification.delivery.queue.capacity.per.endpoint}")
+    private int notificationDeliveryQueueCapacityPerEndpoint;
+    @Value("${web.service.notification.delivery.failure.threshold}")
+    private int notificationDeliveryFailureThreshold;
+    @Value("${web.service.notification.delivery.open.duration}")
+    private long notificationDeliveryOpenDuration;
+    @Value("${web.service.notification.delivery.slow.threshold}")
+    private long notificationDeliverySlowThreshold;
+    @Value("${web.service.notification.delivery.max.queue.time}")
+    private long notificationDeliveryMaxQueueTime;
     @Value("${web.service.keystore.type}")
     private String webserviceKeystoreType;
     @Value("${web.service.keystore.location}")
@@ -198,20 +211,39 @@ public class WebServiceConfig extends AbstractConfig {
 
     @Bean
     public WebServiceMonitorInterceptor webServiceMonitorInterceptor() {
-        return new WebServiceMonitorInterceptor(ORGANISATION_IDENTIFICATION_HEADER, USER_NAME_HEADER,
-                APPLICATION_NAME_HEADER);
+        final WebServiceMonitorInterceptor webServiceMonitorInterceptor = new WebServiceMonitorInterceptor(
+                ORGANISATION_IDENTIFICATION_HEADER, USER_NAME_HEADER, APPLICATION_NAME_HEADER);
+        webServiceMonitorInterceptor.setPayloadLogSampleInterval(Integer.parseInt(this.environment
+                .getRequiredProperty(PROPERTY_NAME_WEB_SERVICE_MONITOR_PAYLOAD_LOG_SAMPLE_INTERVAL)));
+        return webServiceMonitorInterceptor;
     }
 
     @Bean(value = "notificationServiceDistributionAutomation")
     public NotificationService notificationService() throws GeneralSecurityException {
         if (this.webserviceNotificationEnabled && !StringUtils.isEmpty(this.webserviceNotificationUrl)) {
-            return new NotificationServiceWs(this.sendNotificationServiceClient(), this.webserviceNotificationUrl,
-                    this.webserviceNotificationUsername, this.webserviceNotificationOrganisation);
+            final NotificationServiceWs notificationService = new NotificationServiceWs(
+                    this.createWebServiceTemplateFactory(this.notificationSenderMarshaller()),
+                    this.webserviceNotificationUrl, this.webserviceNotificationUsername,
+                    this.webserviceNotificationOrganisation);
+            notificationService.setNotificationDeliveryExecutor(this.notificationDeliveryExecutor());
+            return notificationService;
         } else {
             return new NotificationServiceBlackHole();
         }
     }
 
+    /**
+     * Sends notifications off the JMS listener threads, with a bounded pool
+     * and a circuit breaker per notification endpoint.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public NotificationDeliveryExecutor notificationDeliveryExecutor() {
+        return new NotificationDeliveryExecutor(this.notificationDeliveryThreadsPerEndpoint,
+                this.notificationDeliveryQueueCapacityPerEndpoint, this.notificationDeliveryFailureThreshold,
+                this.notificationDeliveryOpenDuration, this.notificationDeliverySlowThreshold,
+                this.notificationDeliveryMaxQueueTime);
+    }
+
     @Bean
     public SaajSoapMessageFactory messageFactory() {
         return new SaajSoapMessageFactory();
@@ -235,12 +267,6 @@ public class WebServiceConfig extends AbstractConfig {
         return marshaller;
     }
 
-    @Bean
-    public SendNotificationServiceClient sendNotificationServiceClient() throws java.security.GeneralSecurityException {
-        return new SendNotificationServiceClient(
-                this.createWebServiceTemplateFactory(this.notificationSenderMarshaller()));
-    }
-
     private DefaultWebServiceTemplateFactory createWebServiceTemplateFactory(final Jaxb2Marshaller marshaller) {
         return new DefaultWebServiceTemplateFactory.Builder().setMarshaller(marshaller)
                 .setMessageFactory(this.messageFactory()).setTargetUri(this.webserviceNotificationUrl)
@@ -27,6 +27,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.validation.annotation.Validated;
 
@@ -77,6 +78,7 @@ public class DistributionAutomationService {
                 DistributionAutomationRequestMessageType.GET_POWER_QUALITY_VALUES);
     }
 
+    @Transactional(value = "transactionManager", propagation = Propagation.NOT_SUPPORTED)
     public GetPQValuesResponse dequeueGetPQValuesResponse(final String correlationUid) throws OsgpException {
 
         LOGGER.debug("dequeueGetPQValuesResponse called with correlation uid {}", correlationUid);
@@ -96,6 +98,7 @@ public class DistributionAutomationService {
                 DistributionAutomationRequestMessageType.GET_POWER_QUALITY_VALUES_PERIODIC);
     }
 
+    @Transactional(value = "transactionManager", propagation = Propagation.NOT_SUPPORTED)
     public GetPQValuesResponse dequeueGetPQValuesPeriodicResponse(final String correlationUid) throws OsgpException {
 
         LOGGER.debug("dequeueGetPQValuesPeriodicResponse called with correlation uid {}", correlationUid);
@@ -111,6 +114,7 @@ public class DistributionAutomationService {
                 DeviceFunction.GET_DEVICE_MODEL, DistributionAutomationRequestMessageType.GET_DEVICE_MODEL);
     }
 
+    @Transactional(value = "transactionManager", propagation = Propagation.NOT_SUPPORTED)
     public GetDeviceModelResponse dequeueGetDeviceModelResponse(final String correlationUid) throws OsgpException {
 
         LOGGER.debug("dequeueGetDeviceModelResponse called with correlation uid {}", correlationUid);
@@ -127,6 +131,7 @@ public class DistributionAutomationService {
                 DeviceFunction.GET_HEALTH_STATUS, DistributionAutomationRequestMessageType.GET_HEALTH_STATUS);
     }
 
+    @Transactional(value = "transactionManager", propagation = Propagation.NOT_SUPPORTED)
     public GetHealthStatusResponse dequeueGetHealthResponse(final String correlationUid) throws OsgpException {
 
         LOGGER.debug("dequeueGetHealthResponse called with correlation uid {}", correlationUid);
@@ -15,4 +15,18 @@ public interface NotificationService {
     void sendNotification(@Identification String organisationIdentification, String deviceIdentification, String result, String correlationUid,
                           String message, NotificationType notificationType);
 
+    /**
+     * Sends the notification on the calling thread.
+     *
+     * @return true if the notification was sent, successfully or not, false
+     *         if it was not sent because the notification endpoint is failing.
+     */
+    default boolean sendNotificationAndWait(@Identification String organisationIdentification,
+                                            String deviceIdentification, String result, String correlationUid,
+                                            String message, NotificationType notificationType) {
+        this.sendNotification(organisationIdentification, deviceIdentification, result, correlationUid, message,
+                notificationType);
+        return true;
+    }
+
 }
@@ -7,47 +7,31 @@
  */
 package org.osgpfoundation.osgp.adapter.ws.da.application.services;
 
-import org.osgpfoundation.osgp.adapter.ws.da.presentation.ws.SendNotificationServiceClient;
 import org.osgpfoundation.osgp.adapter.ws.schema.distributionautomation.notification.Notification;
 import org.osgpfoundation.osgp.adapter.ws.schema.distributionautomation.notification.NotificationType;
+import org.osgpfoundation.osgp.adapter.ws.schema.distributionautomation.notification.SendNotificationRequest;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.validation.annotation.Validated;
 
-import com.alliander.osgp.shared.exceptionhandling.WebServiceSecurityException;
+import com.alliander.osgp.adapter.ws.shared.services.AbstractNotificationServiceWs;
+import com.alliander.osgp.shared.infra.ws.DefaultWebServiceTemplateFactory;
 
 @Transactional(value = "transactionManager")
 @Validated
-public class NotificationServiceWs implements NotificationService {
+public class NotificationServiceWs extends AbstractNotificationServiceWs implements NotificationService {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(NotificationServiceWs.class);
 
-    private final SendNotificationServiceClient sendNotificationServiceClient;
+    private final DefaultWebServiceTemplateFactory webServiceTemplateFactory;
 
-    private final String notificationUrl;
-
-    private final String notificationUsername;
-
-    private final String notificationOrganisation;
-
-    public NotificationServiceWs(final SendNotificationServiceClient client, final String notificationUrl,
-            final String notificationUsername, final String notificationOrganisation) {
-        this.sendNotificationServiceClient = client;
-        this.notificationUrl = notificationUrl;
-        this.notificationUsername = notificationUsername;
-        this.notificationOrganisation = notificationOrganisation;
+    public NotificationServiceWs(final DefaultWebServiceTemplateFactory webServiceTemplateFactory,
+            final String notificationUrl, final String notificationUsername, final String notificationOrganisation) {
+        super(notificationUrl, notificationUsername, notificationOrganisation);
+        this.webServiceTemplateFactory = webServiceTemplateFactory;
     }
 
-    /*
-     * (non-Javadoc)
-     *
-     * @see com.alliander.osgp.adapter.ws.smartmetering.application.services.
-     * INotificationService#sendNotification(java.lang.String, java.lang.String,
-     * java.lang.String, java.lang.String, java.lang.String,
-     * com.alliander.osgp.adapter
-     * .ws.schema.smartmetering.notification.NotificationType)
-     */
     @Override
     public void sendNotification(final String organisationIdentification, final String deviceIdentification,
             final String result, final String correlationUid, final String message,
@@ -56,6 +40,27 @@ public class NotificationServiceWs implements NotificationService {
         LOGGER.info("sendNotification called with organisation: {}, correlationUid: {}, type: {}, to organisation: {}",
                 this.notificationOrganisation, correlationUid, notificationType, organisationIdentification);
 
+        this.doSendNotification(this.webServiceTemplateFactory, organisationIdentification, this.notificationUsername,
+                this.notificationUrl, this.createNotificationRequest(deviceIdentification, result, correlationUid,
+                        message, notificationType));
+    }
+
+    @Override
+    public boolean sendNotificationAndWait(final String organisationIdentification,
+            final String deviceIdentification, final String result, final String correlationUid, final String message,
+            final NotificationType notificationType) {
+
+        LOGGER.info("sendNotificationAndWait called with organisation: {}, correlationUid: {}, type: {}, "
+                + "to organisation: {}",
+                this.notificationOrganisation, correlationUid, notificationType, organisationIdentification);
+
+        return this.doSendNotificationAndWait(this.webServiceTemplateFactory, organisationIdentification,
+                this.notificationUsername, this.notificationUrl, this.createNotificationRequest(deviceIdentification,
+                        result, correlationUid, message, notificationType));
+    }
+
+    private SendNotificationRequest createNotificationRequest(final String deviceIdentification, final String result,
+            final String correlationUid, final String message, final NotificationType notificationType) {
         final Notification notification = new Notification();
         // message is null, unless an error occurred
         notification.setMessage(message);
@@ -64,16 +69,8 @@ public class NotificationServiceWs implements NotificationService {
         notification.setCorrelationUid(correlationUid);
         notification.setNotificationType(notificationType);
 
-        try {
-            /*
-             * Get a template for the organisation representing the OSGP platform, on behalf
-             * of which the notification is sent to the organisation identified by the
-             * organisationIdentification.
-             */
-            this.sendNotificationServiceClient.sendNotification(this.notificationOrganisation, notification,
-                    this.notificationUrl, this.notificationUsername);
-        } catch (final WebServiceSecurityException e) {
-            LOGGER.error(e.getMessage(), e);
-        }
+        final SendNotificationRequest sendNotificationRequest = new SendNotificationRequest();
+        sendNotificationRequest.setNotification(notification);
+        return sendNotificationRequest;
     }
 }
@@ -24,16 +24,16 @@ public class ResendNotificationService extends AbstractResendNotificationService
     private NotificationService notificationService;
 
     @Override
-    public void resendNotification(final ResponseData responseData) {
+    public boolean resendNotification(final ResponseData responseData) {
 
         if (!EnumUtils.isValidEnum(NotificationType.class, responseData.getMessageType())) {
             this.logUnknownNotificationTypeError(responseData.getCorrelationUid(), responseData.getMessageType(),
                     this.notificationService.getClass().getName());
-            return;
+            return true;
         }
 
         final NotificationType notificationType = NotificationType.valueOf(responseData.getMessageType());
-        this.notificationService.sendNotification(responseData.getOrganisationIdentification(),
+        return this.notificationService.sendNotificationAndWait(responseData.getOrganisationIdentification(),
                 responseData.getDeviceIdentification(), responseData.getResultType().name(),
                 responseData.getCorrelationUid(), this.getNotificationMessage(responseData.getMessageType()),
                 notificationType);
@@ -17,6 +17,7 @@ import org.springframework.transaction.annotation.EnableTransactionManagement;
 import org.springframework.validation.beanvalidation.LocalValidatorFactoryBean;
 import org.springframework.validation.beanvalidation.MethodValidationPostProcessor;
 
+import com.alliander.osgp.adapter.ws.shared.services.ResponseDataMemoryStore;
 import com.alliander.osgp.shared.application.config.AbstractConfig;
 import com.alliander.osgp.ws.microgrids.config.MicroGridsWebServiceConfig;
 
@@ -37,6 +38,10 @@ import com.alliander.osgp.ws.microgrids.config.MicroGridsWebServiceConfig;
 public class ApplicationContext extends AbstractConfig {
 
     private static final String PROPERTY_NAME_STUB_RESPONSES = "stub.responses";
+    private static final String PROPERTY_NAME_RESPONSE_DATA_MEMORY_MAX_ENTRIES = "microgrids.response.data.memory.max.entries";
+    private static final String PROPERTY_NAME_RESPONSE_DATA_MEMORY_TIME_TO_LIVE = "microgrids.response.data.memory.time.to.live";
+    private static final String PROPERTY_NAME_RESPONSE_DATA_WAIT_TIMEOUT = "microgrids.response.data.wait.timeout";
+    private static final String PROPERTY_NAME_RESPONSE_DATA_MAX_WAITERS = "microgrids.response.data.max.waiters";
 
     @Bean
     public boolean stubResponses() {
@@ -54,4 +59,13 @@ public class ApplicationContext extends AbstractConfig {
         m.setValidatorFactory(this.validator());
         return m;
     }
+
+    @Bean
+    public ResponseDataMemoryStore responseDataMemoryStore() {
+        return new ResponseDataMemoryStore(
+                Integer.parseInt(this.environment.getRequiredProperty(PROPERTY_NAME_RESPONSE_DATA_MEMORY_MAX_ENTRIES)),
+                Long.parseLong(this.environment.getRequiredProperty(PROPERTY_NAME_RESPONSE_DATA_MEMORY_TIME_TO_LIVE)),
+                Long.parseLong(this.environment.getRequiredProperty(PROPERTY_NAME_RESPONSE_DATA_WAIT_TIMEOUT)),
+                Integer.parseInt(this.environment.getRequiredProperty(PROPERTY_NAME_RESPONSE_DATA_MAX_WAITERS)));
+    }
 }
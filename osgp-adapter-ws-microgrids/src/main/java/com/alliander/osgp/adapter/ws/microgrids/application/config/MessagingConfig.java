@@ -10,6 +10,7 @@ package com.alliander.osgp.adapter.ws.microgrids.application.config;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
 import org.springframework.context.annotation.PropertySource;
 import org.springframework.jms.core.JmsTemplate;
 import org.springframework.jms.listener.DefaultMessageListenerContainer;
@@ -17,17 +18,23 @@ import org.springframework.jms.listener.DefaultMessageListenerContainer;
 import com.alliander.osgp.adapter.ws.infra.jms.LoggingMessageSender;
 import com.alliander.osgp.adapter.ws.microgrids.infra.jms.MicrogridsRequestMessageSender;
 import com.alliander.osgp.adapter.ws.microgrids.infra.jms.MicrogridsResponseMessageListener;
+import com.alliander.osgp.domain.core.jms.metrics.MessageMetrics;
+import com.alliander.osgp.domain.core.jms.metrics.MessageMetricsConfig;
 import com.alliander.osgp.shared.application.config.AbstractMessagingConfig;
 import com.alliander.osgp.shared.application.config.jms.JmsConfiguration;
 import com.alliander.osgp.shared.application.config.jms.JmsConfigurationFactory;
 import com.alliander.osgp.shared.application.config.jms.JmsConfigurationNames;
 
 @Configuration
+@Import(MessageMetricsConfig.class)
 @PropertySource("classpath:osgp-adapter-ws-microgrids.properties")
 @PropertySource(value = "file:${osgp/Global/config}", ignoreResourceNotFound = true)
 @PropertySource(value = "file:${osgp/AdapterWsMicrogrids/config}", ignoreResourceNotFound = true)
 public class MessagingConfig extends AbstractMessagingConfig {
 
+    @Autowired
+    private MessageMetrics messageMetrics;
+
     @Autowired
     private MicrogridsResponseMessageListener microgridsResponseMessageListener;
 
@@ -53,7 +60,8 @@ public class MessagingConfig extends AbstractMessagingConfig {
     @Bean
     public JmsConfiguration responseJmsConfiguration(final JmsConfigurationFactory jmsConfigurationFactory) {
         return jmsConfigurationFactory.initializeReceiveConfiguration(JmsConfigurationNames.JMS_MICROGRIDS_RESPONSES,
-                this.microgridsResponseMessageListener);
+                this.messageMetrics.metered(JmsConfigurationNames.JMS_MICROGRIDS_RESPONSES,
+                        this.microgridsResponseMessageListener));
     }
 
     @Bean(name = "wsMicrogridsResponsesMessageListenerContainer")
@@ -84,5 +92,4 @@ public class MessagingConfig extends AbstractMessagingConfig {
     public LoggingMessageSender loggingMessageSender() {
         return new LoggingMessageSender();
     }
-
 }
@@ -37,6 +37,7 @@ import com.alliander.osgp.adapter.ws.endpointinterceptors.X509CertificateRdnAttr
 import com.alliander.osgp.adapter.ws.microgrids.application.exceptionhandling.DetailSoapFaultMappingExceptionResolver;
 import com.alliander.osgp.adapter.ws.microgrids.application.exceptionhandling.SoapFaultMapper;
 import com.alliander.osgp.adapter.ws.microgrids.application.services.NotificationServiceWs;
+import com.alliander.osgp.adapter.ws.shared.services.NotificationDeliveryExecutor;
 import com.alliander.osgp.adapter.ws.shared.services.NotificationService;
 import com.alliander.osgp.adapter.ws.shared.services.NotificationServiceBlackHole;
 import com.alliander.osgp.shared.application.config.AbstractConfig;
@@ -52,6 +53,7 @@ public class WebServiceConfig extends AbstractConfig {
 
     private static final String PROPERTY_NAME_MARSHALLER_CONTEXT_PATH_MICROGRIDS_AD_HOC_MANAGEMENT = "jaxb2.marshaller.context.path.microgrids.adhocmanagement";
     private static final String PROPERTY_NAME_MARSHALLER_CONTEXT_PATH_MICROGRIDS_NOTIFICATION = "jaxb2.marshaller.context.path.microgrids.notification";
+    private static final String PROPERTY_NAME_WEB_SERVICE_MONITOR_PAYLOAD_LOG_SAMPLE_INTERVAL = "web.service.monitor.payload.log.sample.interval";
 
     private static final String ORGANISATION_IDENTIFICATION_HEADER = "OrganisationIdentification";
     private static final String ORGANISATION_IDENTIFICATION_CONTEXT = ORGANISATION_IDENTIFICATION_HEADER;
@@ -75,6 +77,24 @@ public class WebServiceConfig extends AbstractConfig {
     @Value("${web.service.notification.organisation:OSGP}")
     private String webserviceNotificationOrganisation;
 
+    @Value("${web.service.notification.delivery.threads.per.endpoint}")
+    private int notificationDeliveryThreadsPerEndpoint;
+
+    @Value("${web.service.notification.delivery.queue.capacity.per.endpoint}")
+    private int notificationDeliveryQueueCapacityPerEndpoint;
+
+    @Value("${web.service.notification.delivery.failure.threshold}")
+    private int notificationDeliveryFailureThreshold;
+
+    @Value("${web.service.notification.delivery.open.duration}")
+    private long notificationDeliveryOpenDuration;
+
+    @Value("${web.service.notification.delivery.slow.threshold}")
+    private long notificationDeliverySlowThreshold;
+
+    @Value("${web.service.notification.delivery.max.queue.time}")
+    private long notificationDeliveryMaxQueueTime;
+
     @Value("${web.service.keystore.type}")
     private String webserviceKeystoreType;
 
@@ -208,21 +228,39 @@ public class WebServiceConfig extends AbstractConfig {
 
     @Bean
     public WebServiceMonitorInterceptor webServiceMonitorInterceptor() {
-        return new WebServiceMonitorInterceptor(ORGANISATION_IDENTIFICATION_HEADER, USER_NAME_HEADER,
-                APPLICATION_NAME_HEADER);
+        final WebServiceMonitorInterceptor webServiceMonitorInterceptor = new WebServiceMonitorInterceptor(
+                ORGANISATION_IDENTIFICATION_HEADER, USER_NAME_HEADER, APPLICATION_NAME_HEADER);
+        webServiceMonitorInterceptor.setPayloadLogSampleInterval(Integer.parseInt(this.environment
+                .getRequiredProperty(PROPERTY_NAME_WEB_SERVICE_MONITOR_PAYLOAD_LOG_SAMPLE_INTERVAL)));
+        return webServiceMonitorInterceptor;
     }
 
     @Bean(value = "notificationServiceMicrogrids")
     public NotificationService notificationService() throws GeneralSecurityException {
         if (this.webserviceNotificationEnabled && !StringUtils.isEmpty(this.webserviceNotificationUrl)) {
-            return new NotificationServiceWs(this.createWebServiceTemplateFactory(this.notificationSenderMarshaller()),
+            final NotificationServiceWs notificationService = new NotificationServiceWs(
+                    this.createWebServiceTemplateFactory(this.notificationSenderMarshaller()),
                     this.webserviceNotificationUrl, this.webserviceNotificationUsername,
                     this.webserviceNotificationOrganisation);
+            notificationService.setNotificationDeliveryExecutor(this.notificationDeliveryExecutor());
+            return notificationService;
         } else {
             return new NotificationServiceBlackHole();
         }
     }
 
+    /**
+     * Sends notifications off the JMS listener threads, with a bounded pool
+     * and a circuit breaker per notification endpoint.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public NotificationDeliveryExecutor notificationDeliveryExecutor() {
+        return new NotificationDeliveryExecutor(this.notificationDeliveryThreadsPerEndpoint,
+                this.notificationDeliveryQueueCapacityPerEndpoint, this.notificationDeliveryFailureThreshold,
+                this.notificationDeliveryOpenDuration, this.notificationDeliverySlowThreshold,
+                this.notificationDeliveryMaxQueueTime);
+    }
+
     @Bean
     public SaajSoapMessageFactory messageFactory() {
         return new SaajSoapMessageFactory();
@@ -13,6 +13,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.validation.annotation.Validated;
 
@@ -87,6 +88,7 @@ public class MicrogridsService {
         return correlationUid;
     }
 
+    @Transactional(value = "transactionManager", propagation = Propagation.NOT_SUPPORTED)
     public GetDataResponse dequeueGetDataResponse(final String correlationUid) throws OsgpException {
 
         LOGGER.debug("dequeueGetDataRequest called with correlation uid {}", correlationUid);
@@ -138,6 +140,7 @@ public class MicrogridsService {
         return correlationUid;
     }
 
+    @Transactional(value = "transactionManager", propagation = Propagation.NOT_SUPPORTED)
     public EmptyResponse dequeueSetDataResponse(final String correlationUid) throws OsgpException {
 
         LOGGER.debug("dequeueSetDataRequest called with correlation uid {}", correlationUid);
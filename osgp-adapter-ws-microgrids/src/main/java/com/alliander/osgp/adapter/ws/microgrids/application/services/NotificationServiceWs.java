@@ -44,12 +44,30 @@ public class NotificationServiceWs extends AbstractNotificationServiceWs impleme
         LOGGER.info("sendNotification called with organisation: {}, correlationUid: {}, type: {}, to organisation: {}",
                 this.notificationOrganisation, correlationUid, notificationType, organisationIdentification);
 
-        final GenericSendNotificationRequest genericNotificationRequest = this.genericNotificationRequest(deviceIdentification,
-                result, correlationUid, message, ((NotificationType) notificationType).toString());
-        final SendNotificationRequest notificationRequest = this.mapperFactory.getMapperFacade()
-                .map(genericNotificationRequest, SendNotificationRequest.class);
-
         this.doSendNotification(this.webServiceTemplateFactory, organisationIdentification, this.notificationUsername,
-                this.notificationUrl, notificationRequest);
+                this.notificationUrl, this.createNotificationRequest(deviceIdentification, result, correlationUid,
+                        message, notificationType));
+    }
+
+    @Override
+    public boolean sendNotificationAndWait(final String organisationIdentification,
+            final String deviceIdentification, final String result, final String correlationUid, final String message,
+            final Object notificationType) {
+
+        LOGGER.info("sendNotificationAndWait called with organisation: {}, correlationUid: {}, type: {}, "
+                + "to organisation: {}",
+                this.notificationOrganisation, correlationUid, notificationType, organisationIdentification);
+
+        return this.doSendNotificationAndWait(this.webServiceTemplateFactory, organisationIdentification,
+                this.notificationUsername, this.notificationUrl, this.createNotificationRequest(deviceIdentification,
+                        result, correlationUid, message, notificationType));
+    }
+
+    private SendNotificationRequest createNotificationRequest(final String deviceIdentification, final String result,
+            final String correlationUid, final String message, final Object notificationType) {
+        final GenericSendNotificationRequest genericNotificationRequest = this.genericNotificationRequest(
+                deviceIdentification, result, correlationUid, message,
+                ((NotificationType) notificationType).toString());
+        return this.mapperFactory.getMapperFacade().map(genericNotificationRequest, SendNotificationRequest.class);
     }
 }
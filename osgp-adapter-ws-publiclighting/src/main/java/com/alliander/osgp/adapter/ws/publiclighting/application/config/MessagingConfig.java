@@ -9,6 +9,7 @@ package com.alliander.osgp.adapter.ws.publiclighting.application.config;
 
 import javax.annotation.Resource;
 
+import org.apache.activemq.ActiveMQSession;
 import org.apache.activemq.RedeliveryPolicy;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -16,8 +17,10 @@ import org.springframework.context.annotation.PropertySource;
 import org.springframework.context.annotation.PropertySources;
 import org.springframework.core.env.Environment;
 import org.springframework.jms.core.JmsTemplate;
+import org.springframework.jms.listener.DefaultMessageListenerContainer;
 
 import com.alliander.osgp.adapter.ws.infra.jms.LoggingMessageSender;
+import com.alliander.osgp.adapter.ws.infra.jms.ResponseMessageRegistry;
 import com.alliander.osgp.adapter.ws.publiclighting.infra.jms.PublicLightingRequestMessageSender;
 import com.alliander.osgp.adapter.ws.publiclighting.infra.jms.PublicLightingResponseMessageFinder;
 import com.alliander.osgp.shared.application.config.AbstractMessagingConfig;
@@ -33,6 +36,11 @@ import com.alliander.osgp.shared.application.config.jms.JmsPropertyNames;
 public class MessagingConfig extends AbstractMessagingConfig {
 
     public static final String PROPERTY_NAME_JMS_RECEIVE_TIMEOUT = "jms.publiclighting.responses.receive.timeout";
+    public static final String PROPERTY_NAME_RESPONSE_REGISTRY_MAX_ENTRIES = "jms.publiclighting.responses.registry.max.entries";
+    public static final String PROPERTY_NAME_RESPONSE_REGISTRY_HOLD_TIME = "jms.publiclighting.responses.registry.hold.time";
+    public static final String PROPERTY_NAME_RESPONSES_QUEUE = "jms.publiclighting.responses.queue";
+    public static final String PROPERTY_NAME_RESPONSES_HAND_OFF_QUEUE = "jms.publiclighting.responses.hand.off.queue";
+    public static final String PROPERTY_NAME_RESPONSES_LOOK_UP_TOPIC = "jms.publiclighting.responses.look.up.topic";
 
     @Resource
     private Environment environment;
@@ -63,7 +71,8 @@ public class MessagingConfig extends AbstractMessagingConfig {
     }
 
     @Bean(name = "wsPublicLightingOutgoingRequestsJmsTemplate")
-    public JmsTemplate publicLightingRequestsJmsTemplate(final JmsConfiguration publicLightingRequestsJmsConfiguration) {
+    public JmsTemplate publicLightingRequestsJmsTemplate(
+            final JmsConfiguration publicLightingRequestsJmsConfiguration) {
         return publicLightingRequestsJmsConfiguration.getJmsTemplate();
     }
 
@@ -77,19 +86,81 @@ public class MessagingConfig extends AbstractMessagingConfig {
     @Bean
     public JmsConfiguration publicLightingResponsesJmsConfiguration(
             final JmsConfigurationFactory jmsConfigurationFactory) {
-        return jmsConfigurationFactory.initializeConfiguration(JmsConfigurationNames.JMS_PUBLICLIGHTING_RESPONSES);
+        return jmsConfigurationFactory.initializeConfiguration(JmsConfigurationNames.JMS_PUBLICLIGHTING_RESPONSES,
+                this.publicLightingResponseMessageRegistry());
     }
 
-    @Bean(name = "wsPublicLightingIncomingResponsesJmsTemplate")
-    public JmsTemplate publicLightingResponsesJmsTemplate(final JmsConfiguration publicLightingResponsesJmsConfiguration) {
-        final Long receiveTimeout = Long.parseLong(this.environment
-                .getRequiredProperty(PROPERTY_NAME_JMS_RECEIVE_TIMEOUT));
+    @Bean(name = "wsPublicLightingResponsesHandOffJmsTemplate")
+    public JmsTemplate wsPublicLightingResponsesHandOffJmsTemplate(
+            final JmsConfiguration publicLightingResponsesJmsConfiguration) {
+        final Long receiveTimeout = Long
+                .parseLong(this.environment.getRequiredProperty(PROPERTY_NAME_JMS_RECEIVE_TIMEOUT));
 
-        final JmsTemplate jmsTemplate = publicLightingResponsesJmsConfiguration.getJmsTemplate();
+        final JmsTemplate jmsTemplate = new JmsTemplate(
+                publicLightingResponsesJmsConfiguration.getJmsTemplate().getConnectionFactory());
+        jmsTemplate.setDefaultDestinationName(
+                this.environment.getRequiredProperty(PROPERTY_NAME_RESPONSES_HAND_OFF_QUEUE));
         jmsTemplate.setReceiveTimeout(receiveTimeout);
         return jmsTemplate;
     }
 
+    @Bean(name = "wsPublicLightingResponsesLookUpJmsTemplate")
+    public JmsTemplate wsPublicLightingResponsesLookUpJmsTemplate(
+            final JmsConfiguration publicLightingResponsesJmsConfiguration) {
+        final JmsTemplate jmsTemplate = new JmsTemplate(
+                publicLightingResponsesJmsConfiguration.getJmsTemplate().getConnectionFactory());
+        jmsTemplate.setPubSubDomain(true);
+        jmsTemplate.setDefaultDestinationName(
+                this.environment.getRequiredProperty(PROPERTY_NAME_RESPONSES_LOOK_UP_TOPIC));
+        // A look-up is only of use to the instances listening at the time.
+        jmsTemplate.setExplicitQosEnabled(true);
+        jmsTemplate.setDeliveryPersistent(false);
+        return jmsTemplate;
+    }
+
+    @Bean
+    public ResponseMessageRegistry publicLightingResponseMessageRegistry() {
+        final Integer maxEntries = Integer
+                .parseInt(this.environment.getRequiredProperty(PROPERTY_NAME_RESPONSE_REGISTRY_MAX_ENTRIES));
+        final Long holdTime = Long
+                .parseLong(this.environment.getRequiredProperty(PROPERTY_NAME_RESPONSE_REGISTRY_HOLD_TIME));
+        final Long receiveTimeout = Long
+                .parseLong(this.environment.getRequiredProperty(PROPERTY_NAME_JMS_RECEIVE_TIMEOUT));
+
+        return new ResponseMessageRegistry(maxEntries, holdTime, receiveTimeout);
+    }
+
+    @Bean(name = "wsPublicLightingIncomingResponsesMessageListenerContainer")
+    public DefaultMessageListenerContainer wsPublicLightingIncomingResponsesMessageListenerContainer(
+            final JmsConfiguration publicLightingResponsesJmsConfiguration,
+            final JmsTemplate wsPublicLightingResponsesHandOffJmsTemplate,
+            final JmsTemplate wsPublicLightingResponsesLookUpJmsTemplate) {
+        final ResponseMessageRegistry registry = this.publicLightingResponseMessageRegistry();
+        final DefaultMessageListenerContainer messageListenerContainer = publicLightingResponsesJmsConfiguration
+                .getMessageListenerContainer();
+        // The registry acknowledges a response when it is taken or handed off.
+        messageListenerContainer.setSessionTransacted(false);
+        messageListenerContainer.setSessionAcknowledgeMode(ActiveMQSession.INDIVIDUAL_ACKNOWLEDGE);
+        messageListenerContainer.setDestinationName(
+                registry.getDestinationName(this.environment.getRequiredProperty(PROPERTY_NAME_RESPONSES_QUEUE)));
+        registry.setHandOffJmsTemplate(wsPublicLightingResponsesHandOffJmsTemplate);
+        registry.setLookUpJmsTemplate(wsPublicLightingResponsesLookUpJmsTemplate);
+        return messageListenerContainer;
+    }
+
+    @Bean(name = "wsPublicLightingResponsesLookUpMessageListenerContainer")
+    public DefaultMessageListenerContainer wsPublicLightingResponsesLookUpMessageListenerContainer(
+            final JmsTemplate wsPublicLightingResponsesLookUpJmsTemplate) {
+        final DefaultMessageListenerContainer messageListenerContainer = new DefaultMessageListenerContainer();
+        messageListenerContainer.setConnectionFactory(
+                wsPublicLightingResponsesLookUpJmsTemplate.getConnectionFactory());
+        messageListenerContainer.setPubSubDomain(true);
+        messageListenerContainer.setDestinationName(
+                wsPublicLightingResponsesLookUpJmsTemplate.getDefaultDestinationName());
+        messageListenerContainer.setMessageListener(this.publicLightingResponseMessageRegistry().getLookUpListener());
+        return messageListenerContainer;
+    }
+
     @Bean(name = "wsPublicLightingIncomingResponsesMessageFinder")
     public PublicLightingResponseMessageFinder publicLightingResponseMessageFinder() {
         return new PublicLightingResponseMessageFinder();
@@ -46,6 +46,7 @@ public class WebServiceConfig extends AbstractConfig {
     private static final String PROPERTY_NAME_MARSHALLER_CONTEXT_PATH_PUBLIC_LIGHTING_AD_HOC_MANAGEMENT = "jaxb2.marshaller.context.path.publiclighting.adhocmanagement";
     private static final String PROPERTY_NAME_MARSHALLER_CONTEXT_PATH_PUBLIC_LIGHTING_SCHEDULE_MANAGEMENT = "jaxb2.marshaller.context.path.publiclighting.schedulemanagement";
     private static final String PROPERTY_NAME_MARSHALLER_CONTEXT_PATH_PUBLIC_LIGHTING_DEVICE_MONITORING = "jaxb2.marshaller.context.path.publiclighting.devicemonitoring";
+    private static final String PROPERTY_NAME_WEB_SERVICE_MONITOR_PAYLOAD_LOG_SAMPLE_INTERVAL = "web.service.monitor.payload.log.sample.interval";
 
     private static final String ORGANISATION_IDENTIFICATION_HEADER = "OrganisationIdentification";
     private static final String ORGANISATION_IDENTIFICATION_CONTEXT = ORGANISATION_IDENTIFICATION_HEADER;
@@ -238,8 +239,11 @@ public class WebServiceConfig extends AbstractConfig {
 
     @Bean
     public WebServiceMonitorInterceptor webServiceMonitorInterceptor() {
-        return new WebServiceMonitorInterceptor(ORGANISATION_IDENTIFICATION_HEADER, USER_NAME_HEADER,
-                APPLICATION_NAME_HEADER);
+        final WebServiceMonitorInterceptor webServiceMonitorInterceptor = new WebServiceMonitorInterceptor(
+                ORGANISATION_IDENTIFICATION_HEADER, USER_NAME_HEADER, APPLICATION_NAME_HEADER);
+        webServiceMonitorInterceptor.setPayloadLogSampleInterval(Integer.parseInt(this.environment
+                .getRequiredProperty(PROPERTY_NAME_WEB_SERVICE_MONITOR_PAYLOAD_LOG_SAMPLE_INTERVAL)));
+        return webServiceMonitorInterceptor;
     }
 
 }
@@ -23,7 +23,19 @@ public interface WritableFirmwareFileRepository extends JpaRepository<FirmwareFi
     @Query("SELECT ff FROM FirmwareFile ff WHERE :deviceModel MEMBER OF ff.deviceModels")
     List<FirmwareFile> findByDeviceModel(@Param("deviceModel") DeviceModel deviceModel);
 
-    @Query("SELECT ff FROM FirmwareFile ff WHERE ff.filename = :filename AND :deviceModel MEMBER OF ff.deviceModels")
-    List<FirmwareFile> findByDeviceModelAndFilename(@Param("deviceModel") DeviceModel deviceModel,
+    /**
+     * Returns the ids of the firmware files with the file name, without
+     * loading their contents.
+     */
+    @Query("SELECT ff.id FROM FirmwareFile ff WHERE ff.filename = :filename AND :deviceModel MEMBER OF ff.deviceModels "
+            + "ORDER BY ff.id")
+    List<Long> findIdsByDeviceModelAndFilename(@Param("deviceModel") DeviceModel deviceModel,
             @Param("filename") String filename);
+
+    /**
+     * Returns only the contents of a firmware file, without its device models
+     * and firmware modules.
+     */
+    @Query("SELECT ff.file FROM FirmwareFile ff WHERE ff.id = :id")
+    byte[] findFileById(@Param("id") Long id);
 }
@@ -12,7 +12,11 @@ import java.util.List;
 
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.alliander.osgp.adapter.ws.domain.entities.ResponseData;
 
@@ -30,5 +34,17 @@ public interface ResponseDataRepository extends JpaRepository<ResponseData, Long
 
     ResponseData findByCorrelationUid(String correlationUid);
 
+    /**
+     * Deletes the response data in a single statement, without loading it
+     * first.
+     *
+     * @return The number of deleted rows, 0 if the response data was already
+     *         removed.
+     */
+    @Modifying
+    @Transactional(value = "transactionManager")
+    @Query("DELETE FROM ResponseData r WHERE r.correlationUid = :correlationUid")
+    int deleteByCorrelationUid(@Param("correlationUid") String correlationUid);
+
     void removeByCreationTimeBefore(Date date);
 }
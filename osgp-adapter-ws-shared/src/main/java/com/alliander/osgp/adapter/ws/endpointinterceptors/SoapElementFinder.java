@@ -0,0 +1,90 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.adapter.ws.endpointinterceptors;
+
+import org.w3c.dom.Node;
+
+/**
+ * Finds the text content of elements in a DOM tree in a single pass.
+ *
+ * For each of the given names, the first element in document order whose
+ * local name contains the name is used. This gives the same result as
+ * evaluating the XPath expression
+ * <code>//*[contains(local-name(), 'name')]</code> for each of the names,
+ * without compiling and evaluating a separate expression for each name.
+ */
+public class SoapElementFinder {
+
+    private final String[] localNameParts;
+
+    /**
+     * @param localNameParts
+     *            The parts of the local names of the elements to find.
+     */
+    public SoapElementFinder(final String... localNameParts) {
+        this.localNameParts = localNameParts.clone();
+    }
+
+    /**
+     * @param root
+     *            The node to search, including its descendants.
+     * @return The text content of the first matching element for each of the
+     *         local name parts, in the order the parts were given. An entry is
+     *         null if no element matched that part.
+     */
+    public String[] find(final Node root) {
+        final String[] values = new String[this.localNameParts.length];
+        final boolean[] found = new boolean[this.localNameParts.length];
+        int remaining = this.localNameParts.length;
+
+        Node node = root;
+        while (node != null && remaining > 0) {
+            if (node.getNodeType() == Node.ELEMENT_NODE) {
+                final String localName = getLocalName(node);
+                for (int i = 0; i < this.localNameParts.length; i++) {
+                    if (!found[i] && localName.contains(this.localNameParts[i])) {
+                        values[i] = node.getTextContent();
+                        found[i] = true;
+                        remaining--;
+                    }
+                }
+            }
+            node = next(node, root);
+        }
+
+        return values;
+    }
+
+    private static String getLocalName(final Node node) {
+        final String localName = node.getLocalName();
+        if (localName != null) {
+            return localName;
+        }
+        // DOM level 1 node, strip the prefix from the qualified name.
+        final String nodeName = node.getNodeName();
+        return nodeName.substring(nodeName.indexOf(':') + 1);
+    }
+
+    /**
+     * @return The next node after the given node in document order, without
+     *         leaving the subtree of root, or null when there is none.
+     */
+    private static Node next(final Node node, final Node root) {
+        if (node.getFirstChild() != null) {
+            return node.getFirstChild();
+        }
+        Node current = node;
+        while (current != null && current != root) {
+            if (current.getNextSibling() != null) {
+                return current.getNextSibling();
+            }
+            current = current.getParentNode();
+        }
+        return null;
+    }
+}
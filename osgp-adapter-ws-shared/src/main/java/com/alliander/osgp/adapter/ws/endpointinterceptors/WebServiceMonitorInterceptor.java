@@ -8,23 +8,24 @@
 package com.alliander.osgp.adapter.ws.endpointinterceptors;
 
 import java.io.ByteArrayOutputStream;
-import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
-
-import javax.xml.xpath.XPath;
-import javax.xml.xpath.XPathConstants;
-import javax.xml.xpath.XPathExpression;
-import javax.xml.xpath.XPathExpressionException;
-import javax.xml.xpath.XPathFactory;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.Assert;
 import org.springframework.ws.context.MessageContext;
@@ -34,14 +35,19 @@ import org.springframework.ws.soap.SoapHeader;
 import org.springframework.ws.soap.SoapHeaderElement;
 import org.springframework.ws.soap.SoapMessage;
 import org.w3c.dom.Document;
-import org.w3c.dom.NodeList;
 
 import com.alliander.osgp.adapter.ws.infra.jms.LoggingMessageSender;
 import com.alliander.osgp.adapter.ws.infra.jms.LoggingRequestMessage;
 import com.alliander.osgp.domain.core.exceptions.WebServiceMonitorInterceptorException;
 
+/**
+ * Sends a logging message for every handled web service request to the
+ * logging queue. The monitored values are found in a single pass over the
+ * request and response documents, and the message is sent asynchronously so
+ * the response is not delayed by the logging queue.
+ */
 @Transactional(value = "transactionManager")
-public class WebServiceMonitorInterceptor implements EndpointInterceptor {
+public class WebServiceMonitorInterceptor implements EndpointInterceptor, DisposableBean {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(WebServiceMonitorInterceptor.class);
 
@@ -62,15 +68,49 @@ public class WebServiceMonitorInterceptor implements EndpointInterceptor {
 
     private static final String FAULT_RESPONSE_RESULT = "SOAP_FAULT";
 
+    private static final int LOGGING_QUEUE_CAPACITY = 1000;
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 10;
+
+    private static final SoapElementFinder ELEMENT_FINDER = new SoapElementFinder(XML_ELEMENT_CORRELATION_UID,
+            XML_ELEMENT_DEVICE_ID, XML_ELEMENT_OSP_RESULT_TYPE);
+
     private final String organisationIdentification;
     private final String userName;
     private final String applicationName;
 
+    /**
+     * Sends the logging messages. When the queue is full, messages are sent
+     * by the calling thread, so no logging is lost under load.
+     */
+    private final ThreadPoolExecutor loggingExecutor;
+
+    private final AtomicLong messageCount = new AtomicLong();
+
+    private int payloadLogSampleInterval;
+
     public WebServiceMonitorInterceptor(final String organisationIdentification, final String userName,
             final String applicationName) {
         this.organisationIdentification = organisationIdentification;
         this.userName = userName;
         this.applicationName = applicationName;
+
+        final CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("ws-monitor-logging-");
+        threadFactory.setDaemon(true);
+        this.loggingExecutor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<Runnable>(LOGGING_QUEUE_CAPACITY), threadFactory,
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    /**
+     * Log the full request and response of every n-th message at INFO level.
+     * All messages are logged at DEBUG level.
+     *
+     * @param payloadLogSampleInterval
+     *            The interval, 0 (the default) to only log messages at DEBUG
+     *            level.
+     */
+    public void setPayloadLogSampleInterval(final int payloadLogSampleInterval) {
+        this.payloadLogSampleInterval = payloadLogSampleInterval;
     }
 
     @Override
@@ -84,7 +124,7 @@ public class WebServiceMonitorInterceptor implements EndpointInterceptor {
     public boolean handleResponse(final MessageContext messageContext, final Object endpoint) throws Exception {
 
         final LoggingRequestMessage loggingRequestMessage = this.createLoggingRequestMessage(messageContext, endpoint);
-        this.loggingMessageSender.send(loggingRequestMessage);
+        this.send(loggingRequestMessage);
 
         return true;
     }
@@ -94,7 +134,7 @@ public class WebServiceMonitorInterceptor implements EndpointInterceptor {
 
         final LoggingRequestMessage loggingRequestMessage = this.createLoggingRequestMessage(messageContext, endpoint);
         loggingRequestMessage.setResponseResult(FAULT_RESPONSE_RESULT);
-        this.loggingMessageSender.send(loggingRequestMessage);
+        this.send(loggingRequestMessage);
 
         return true;
     }
@@ -106,6 +146,28 @@ public class WebServiceMonitorInterceptor implements EndpointInterceptor {
         // interface.
     }
 
+    @Override
+    public void destroy() throws InterruptedException {
+        this.loggingExecutor.shutdown();
+        if (!this.loggingExecutor.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+            LOGGER.warn("{} logging messages were not sent before shutdown", this.loggingExecutor.getQueue().size());
+        }
+    }
+
+    private void send(final LoggingRequestMessage loggingRequestMessage) {
+        this.loggingExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    WebServiceMonitorInterceptor.this.loggingMessageSender.send(loggingRequestMessage);
+                } catch (final RuntimeException e) {
+                    LOGGER.error("Unable to send logging message for correlationUid {}",
+                            loggingRequestMessage.getCorrelationUid(), e);
+                }
+            }
+        });
+    }
+
     /**
      * Get the class name and method name from the end point parameter.
      *
@@ -154,72 +216,46 @@ public class WebServiceMonitorInterceptor implements EndpointInterceptor {
      * Try to find the XML_ELEMENT_CORRELATION_UID, XML_ELEMENT_DEVICE_ID and
      * the XML_ELEMENT_OSP_RESULT_TYPE from the soap message. Note that these
      * elements are not always present in the soap message. In that case, the
-     * values will be null. Also, determine the data size of the response.
+     * values will be null. Also, determine the data size of the message.
      *
      * @param soapMessage
      *            The soap message.
+     * @param logPayload
+     *            Whether the message has to be logged.
      *
      * @return Map containing CORRELATION_UID, DEVICE_ID, RESPONSE_RESULT and
      *         RESPONSE_DATA_SIZE.
      */
-    private Map<String, Object> parseSoapMessage(final SoapMessage soapMessage) {
+    private Map<String, Object> parseSoapMessage(final SoapMessage soapMessage, final boolean logPayload) {
         try {
-            // Determine the data size of the message (stream).
-            final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-            soapMessage.writeTo(outputStream);
-            final int dataSize = outputStream.size();
-
-            // final String message = new String(outputStream.toByteArray());
-            // LOGGER.info("soap message: {}", message);
+            // Determine the data size of the message (stream), only keeping
+            // the bytes if the message is logged.
+            final int dataSize;
+            if (logPayload) {
+                final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+                soapMessage.writeTo(outputStream);
+                dataSize = outputStream.size();
+                this.logPayload(new String(outputStream.toByteArray(), StandardCharsets.UTF_8));
+            } else {
+                final CountingOutputStream outputStream = new CountingOutputStream();
+                soapMessage.writeTo(outputStream);
+                dataSize = outputStream.getCount();
+            }
 
             // Try to find the desired XML elements in the document.
             final Document document = soapMessage.getDocument();
-            final String correlationUid = this.evaluateXPathExpression(document, XML_ELEMENT_CORRELATION_UID);
-            final String deviceId = this.evaluateXPathExpression(document, XML_ELEMENT_DEVICE_ID);
-            final String result = this.evaluateXPathExpression(document, XML_ELEMENT_OSP_RESULT_TYPE);
+            final String[] values = ELEMENT_FINDER.find(document);
 
             // Create the Map containing the output.
             final Map<String, Object> map = new HashMap<String, Object>(4);
-            map.put(CORRELATION_UID, correlationUid);
-            map.put(DEVICE_ID, deviceId);
-            map.put(RESPONSE_RESULT, result);
+            map.put(CORRELATION_UID, values[0]);
+            map.put(DEVICE_ID, values[1]);
+            map.put(RESPONSE_RESULT, values[2]);
             map.put(RESPONSE_DATA_SIZE, dataSize);
 
             return map;
         } catch (final Exception e) {
-            LOGGER.error("failed to parse soap message or to execute xPath expression", e);
-            return null;
-        }
-    }
-
-    /**
-     * Search an XML element using an XPath expression.
-     *
-     * @param document
-     *            The XML document.
-     * @param element
-     *            The name of the desired XML element.
-     *
-     * @return The content of the XML element, or null if the element is not
-     *         found.
-     *
-     * @throws XPathExpressionException
-     *             In case the expression fails to compile or evaluate, an
-     *             exception will be thrown.
-     */
-    private String evaluateXPathExpression(final Document document, final String element)
-            throws XPathExpressionException {
-        final String expression = String.format("//*[contains(local-name(), '%s')]", element);
-
-        final XPathFactory xFactory = XPathFactory.newInstance();
-        final XPath xPath = xFactory.newXPath();
-
-        final XPathExpression xPathExpression = xPath.compile(expression);
-        final NodeList nodeList = (NodeList) xPathExpression.evaluate(document, XPathConstants.NODESET);
-
-        if (nodeList != null && nodeList.getLength() > 0) {
-            return nodeList.item(0).getTextContent();
-        } else {
+            LOGGER.error("failed to parse soap message", e);
             return null;
         }
     }
@@ -247,7 +283,7 @@ public class WebServiceMonitorInterceptor implements EndpointInterceptor {
         // Get the request.
         Assert.isInstanceOf(SoapMessage.class, messageContext.getRequest());
         final SoapMessage request = (SoapMessage) messageContext.getRequest();
-        this.printSoapMessage(request);
+        final boolean logPayload = this.mustLogPayload();
 
         final SoapHeader soapHeader = request.getSoapHeader();
 
@@ -261,7 +297,7 @@ public class WebServiceMonitorInterceptor implements EndpointInterceptor {
         final String appName = this.getHeaderValue(soapHeader, this.applicationName);
 
         // Read correlationUid and deviceId from request.
-        final Map<String, Object> requestData = this.parseSoapMessage(request);
+        final Map<String, Object> requestData = this.parseSoapMessage(request, logPayload);
 
         if (requestData == null) {
             throw new WebServiceMonitorInterceptorException("unable to get correlationUid or deviceId from request");
@@ -270,11 +306,10 @@ public class WebServiceMonitorInterceptor implements EndpointInterceptor {
         // Get the response.
         Assert.isInstanceOf(SoapMessage.class, messageContext.getResponse());
         final SoapMessage response = (SoapMessage) messageContext.getResponse();
-        this.printSoapMessage(response);
 
         // Read correlationUid and deviceId and result and data size from
         // response.
-        final Map<String, Object> responseData = this.parseSoapMessage(response);
+        final Map<String, Object> responseData = this.parseSoapMessage(response, logPayload);
 
         if (responseData == null) {
             throw new WebServiceMonitorInterceptorException(
@@ -293,20 +328,38 @@ public class WebServiceMonitorInterceptor implements EndpointInterceptor {
                 (String) responseData.get(RESPONSE_RESULT), (int) responseData.get(RESPONSE_DATA_SIZE));
     }
 
+    private boolean mustLogPayload() {
+        final boolean sampled = this.payloadLogSampleInterval > 0
+                && this.messageCount.incrementAndGet() % this.payloadLogSampleInterval == 0;
+        return sampled || LOGGER.isDebugEnabled();
+    }
+
+    private void logPayload(final String message) {
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("soap message: {}", message);
+        } else {
+            LOGGER.info("soap message: {}", message);
+        }
+    }
+
     /**
-     * Print a soap message.
-     * 
-     * @param soapMessage
-     *            The message to print.
+     * Output stream that only counts the bytes written to it.
      */
-    private void printSoapMessage(final SoapMessage soapMessage) {
-        try {
-            final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-            soapMessage.writeTo(outputStream);
-            final String message = new String(outputStream.toByteArray());
-            LOGGER.info("soap message: {}", message);
-        } catch (final IOException e) {
-            LOGGER.error("Unexpected error while writing soap message", e);
+    private static class CountingOutputStream extends OutputStream {
+        private int count;
+
+        @Override
+        public void write(final int b) {
+            this.count++;
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len) {
+            this.count += len;
+        }
+
+        public int getCount() {
+            return this.count;
         }
     }
 }
@@ -0,0 +1,124 @@
+/**
+ * Copyright 2018 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.adapter.ws.infra.jms;
+
+import javax.jms.JMSException;
+import javax.jms.Message;
+import javax.jms.Session;
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.ejb.HibernateEntityManagerFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jms.JmsException;
+import org.springframework.jms.core.JmsTemplate;
+import org.springframework.jms.core.MessageCreator;
+import org.springframework.orm.jpa.EntityManagerFactoryInfo;
+
+import com.alliander.osgp.domain.core.entities.Device;
+import com.alliander.osgp.domain.core.entities.Organisation;
+import com.alliander.osgp.domain.core.entities.ProtocolInfo;
+import com.alliander.osgp.shared.infra.jms.Constants;
+
+/**
+ * Hibernate post commit listener that publishes the changes to devices,
+ * organisations and protocol infos on a topic. OSGP Core caches these entities
+ * for the requests it dispatches, and invalidates its cached entries when it
+ * receives a change.
+ *
+ * The message type is the simple name of the changed entity class, the
+ * identification of a device or organisation is set as string property.
+ * Changes are published without persistence, they are only of use to the
+ * instances of OSGP Core listening at the time. A change that does not arrive
+ * becomes visible in OSGP Core once its cached entry expires.
+ */
+public class DomainChangeMessageSender
+        implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+    private static final long serialVersionUID = 5094262875520531796L;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DomainChangeMessageSender.class);
+
+    private final transient JmsTemplate domainChangesJmsTemplate;
+
+    public DomainChangeMessageSender(final JmsTemplate domainChangesJmsTemplate) {
+        this.domainChangesJmsTemplate = domainChangesJmsTemplate;
+    }
+
+    /**
+     * Registers this listener for the changes committed through the given
+     * entity manager factory.
+     */
+    public void register(final EntityManagerFactory entityManagerFactory) {
+        final HibernateEntityManagerFactory hibernateEntityManagerFactory = (HibernateEntityManagerFactory) ((EntityManagerFactoryInfo) entityManagerFactory)
+                .getNativeEntityManagerFactory();
+        final EventListenerRegistry registry = ((SessionFactoryImplementor) hibernateEntityManagerFactory
+                .getSessionFactory()).getServiceRegistry().getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_COMMIT_INSERT, this);
+        registry.appendListeners(EventType.POST_COMMIT_UPDATE, this);
+        registry.appendListeners(EventType.POST_COMMIT_DELETE, this);
+    }
+
+    @Override
+    public void onPostInsert(final PostInsertEvent event) {
+        this.send(event.getEntity());
+    }
+
+    @Override
+    public void onPostUpdate(final PostUpdateEvent event) {
+        this.send(event.getEntity());
+    }
+
+    @Override
+    public void onPostDelete(final PostDeleteEvent event) {
+        this.send(event.getEntity());
+    }
+
+    void send(final Object entity) {
+        if (entity instanceof Device) {
+            this.sendMessage(Device.class.getSimpleName(), Constants.DEVICE_IDENTIFICATION,
+                    ((Device) entity).getDeviceIdentification());
+        } else if (entity instanceof Organisation) {
+            this.sendMessage(Organisation.class.getSimpleName(), Constants.ORGANISATION_IDENTIFICATION,
+                    ((Organisation) entity).getOrganisationIdentification());
+        } else if (entity instanceof ProtocolInfo) {
+            this.sendMessage(ProtocolInfo.class.getSimpleName(), null, null);
+        }
+    }
+
+    private void sendMessage(final String type, final String identificationName, final String identification) {
+        LOGGER.debug("Sending change of {} {}", type, identification);
+
+        try {
+            this.domainChangesJmsTemplate.send(new MessageCreator() {
+                @Override
+                public Message createMessage(final Session session) throws JMSException {
+                    final Message message = session.createMessage();
+                    message.setJMSType(type);
+                    if (identificationName != null) {
+                        message.setStringProperty(identificationName, identification);
+                    }
+                    return message;
+                }
+            });
+        } catch (final JmsException e) {
+            // The change has been committed already.
+            LOGGER.warn("Change of {} {} could not be sent, OSGP Core sees it once its cached entry expires", type,
+                    identification, e);
+        }
+    }
+}
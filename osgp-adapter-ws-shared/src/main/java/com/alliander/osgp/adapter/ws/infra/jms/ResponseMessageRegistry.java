@@ -0,0 +1,502 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.adapter.ws.infra.jms;
+
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.jms.JMSException;
+import javax.jms.Message;
+import javax.jms.MessageListener;
+import javax.jms.ObjectMessage;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jms.JmsException;
+import org.springframework.jms.core.JmsTemplate;
+
+/**
+ * Keeps the response messages of a responses queue in memory by correlation
+ * UID.
+ *
+ * A single listener drains the responses queue into the registry, so finding
+ * a response does not make the broker scan the queue with a JMSCorrelationID
+ * selector. A response is handed out once, like a message received from the
+ * queue.
+ *
+ * The listener session has to use ActiveMQ's individual acknowledge mode. A
+ * response is only acknowledged when it is taken from the registry or handed
+ * off, so the broker redelivers the responses in the registry when the
+ * instance stops or its connection fails. The listener should consume from
+ * {@link #getDestinationName(String)}, which limits the prefetch of the
+ * listener to the max entries, so the broker does not dispatch responses to
+ * an instance that has no room for them.
+ *
+ * The registry keeps at most max entries responses. When it is full, the
+ * listener waits for room and the next responses stay on the broker.
+ *
+ * With several instances of the web service adapter a get-response call can
+ * reach an instance that does not hold the response. {@link #find(String)}
+ * then publishes the correlation UID on the look-up topic, once per hold time
+ * for as long as the response is asked for. The instance that holds the
+ * response, or receives it later within the hold time, hands it off to the
+ * hand-off queue and publishes that it did on the look-up topic. Only then,
+ * and when the look-up is published, the asking instance receives from the
+ * hand-off queue with a selector. A get-response call for a response that is
+ * not ready yet only looks in memory in between.
+ *
+ * A response that is not taken within the hold time is handed off as well,
+ * and is found by the receive that goes with the next look-up. No registry
+ * drains the hand-off queue.
+ */
+public class ResponseMessageRegistry implements MessageListener {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ResponseMessageRegistry.class);
+
+    private static final long MIN_RELEASE_INTERVAL = 10;
+
+    private static final String ORIGIN_PROPERTY = "origin";
+    private static final String HANDED_OFF_TYPE = "HANDED_OFF";
+
+    private final ConcurrentMap<String, Slot> slots = new ConcurrentHashMap<>();
+    private final Queue<Slot> arrivals = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final Object room = new Object();
+
+    private final String origin = UUID.randomUUID().toString();
+    /**
+     * The time this instance last asked the others for a response, by
+     * correlation UID.
+     */
+    private final ConcurrentMap<String, Long> lookUps = new ConcurrentHashMap<>();
+    /**
+     * The responses this instance asked for that another instance handed off.
+     */
+    private final Set<String> handedOff = ConcurrentHashMap.newKeySet();
+    /**
+     * The time another instance asked for a response this instance does not
+     * hold, by correlation UID.
+     */
+    private final ConcurrentMap<String, Long> wanted = new ConcurrentHashMap<>();
+
+    private final int maxEntries;
+    private final long holdTime;
+    private final long waitTimeout;
+    private final ScheduledExecutorService releaser;
+
+    private volatile JmsTemplate handOffJmsTemplate;
+    private volatile JmsTemplate lookUpJmsTemplate;
+    private volatile boolean running = true;
+
+    /**
+     * @param maxEntries
+     *            The maximum number of responses kept.
+     * @param holdTime
+     *            The time in milliseconds a response is kept before it is
+     *            handed off.
+     * @param waitTimeout
+     *            The time in milliseconds {@link #poll(String)} waits for a
+     *            response that did not arrive yet, 0 to not wait.
+     */
+    public ResponseMessageRegistry(final int maxEntries, final long holdTime, final long waitTimeout) {
+        this.maxEntries = maxEntries;
+        this.holdTime = holdTime;
+        this.waitTimeout = waitTimeout;
+
+        final long releaseInterval = Math.max(holdTime / 2, MIN_RELEASE_INTERVAL);
+        this.releaser = Executors.newSingleThreadScheduledExecutor();
+        this.releaser.scheduleWithFixedDelay(this::releaseExpired, releaseInterval, releaseInterval,
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Sets the JMS template of the hand-off queue, with the receive timeout of
+     * {@link #find(String)}. Responses are not handed off as long as it is not
+     * set.
+     */
+    public void setHandOffJmsTemplate(final JmsTemplate handOffJmsTemplate) {
+        this.handOffJmsTemplate = handOffJmsTemplate;
+    }
+
+    /**
+     * Sets the JMS template of the look-up topic. Other instances are not
+     * asked for responses as long as it is not set.
+     */
+    public void setLookUpJmsTemplate(final JmsTemplate lookUpJmsTemplate) {
+        this.lookUpJmsTemplate = lookUpJmsTemplate;
+    }
+
+    /**
+     * Returns the destination name the listener of the responses queue should
+     * consume from, the queue with a prefetch of at most max entries.
+     */
+    public String getDestinationName(final String queueName) {
+        return queueName + "?consumer.prefetchSize=" + this.maxEntries;
+    }
+
+    /**
+     * Returns the listener of the look-up topic, which hands off the responses
+     * other instances ask for, and notes the responses other instances handed
+     * off to this instance.
+     */
+    public MessageListener getLookUpListener() {
+        return message -> {
+            try {
+                if (this.origin.equals(message.getStringProperty(ORIGIN_PROPERTY))) {
+                    return;
+                }
+                if (HANDED_OFF_TYPE.equals(message.getJMSType())) {
+                    this.handedOff(message.getJMSCorrelationID());
+                } else {
+                    this.handOff(message.getJMSCorrelationID());
+                }
+            } catch (final JMSException e) {
+                LOGGER.error("Unable to read correlation UID of response look-up", e);
+            }
+        };
+    }
+
+    @Override
+    public void onMessage(final Message message) {
+        if (!this.awaitRoom()) {
+            // Not acknowledged, the broker redelivers the response.
+            return;
+        }
+        try {
+            this.put(message.getJMSCorrelationID(), (ObjectMessage) message);
+        } catch (final JMSException e) {
+            LOGGER.error("Unable to read correlation UID of response message", e);
+        }
+    }
+
+    /**
+     * Keeps the response and wakes up the calls waiting for it.
+     */
+    public void put(final String correlationUid, final ObjectMessage message) {
+        final long heldUntil = System.currentTimeMillis() + this.holdTime;
+
+        final boolean[] added = new boolean[1];
+        final boolean[] waitedFor = new boolean[1];
+        final Slot slot = this.slots.compute(correlationUid, (key, existing) -> {
+            final Slot s = existing == null ? new Slot(correlationUid) : existing;
+            added[0] = s.message == null;
+            waitedFor[0] = s.waiters > 0;
+            s.message = message;
+            s.heldUntil = heldUntil;
+            return s;
+        });
+        if (added[0]) {
+            this.size.incrementAndGet();
+            this.arrivals.add(slot);
+        }
+        slot.arrived.countDown();
+
+        if (!waitedFor[0] && this.wanted.remove(correlationUid) != null) {
+            // Another instance asked for the response before it arrived here.
+            this.handOff(correlationUid);
+        }
+    }
+
+    /**
+     * Takes the response for the correlation UID, waiting at most the wait
+     * timeout if it did not arrive yet.
+     *
+     * @return The response, or null if it did not arrive in time.
+     */
+    public ObjectMessage poll(final String correlationUid) {
+        return this.poll(correlationUid, this.waitTimeout);
+    }
+
+    /**
+     * Takes the response for the correlation UID from the registry. Otherwise
+     * asks the other instances for it and receives it from the hand-off queue,
+     * when it was not asked for within the hold time, or when another instance
+     * handed it off.
+     *
+     * @return The response, or null if it did not arrive in time.
+     */
+    public ObjectMessage find(final String correlationUid) {
+        ObjectMessage message = this.poll(correlationUid);
+        if (message != null || this.handOffJmsTemplate == null) {
+            this.lookUps.remove(correlationUid);
+            this.handedOff.remove(correlationUid);
+            return message;
+        }
+
+        final long now = System.currentTimeMillis();
+        final boolean wasHandedOff = this.handedOff.remove(correlationUid);
+        final Long askedAt = this.lookUps.get(correlationUid);
+        final boolean lookUpDue = askedAt == null || askedAt <= now - this.holdTime;
+        if (lookUpDue) {
+            this.lookUps.put(correlationUid, now);
+            this.publish(correlationUid, null);
+        } else if (!wasHandedOff) {
+            return null;
+        }
+
+        message = (ObjectMessage) this.handOffJmsTemplate
+                .receiveSelected("JMSCorrelationID='" + correlationUid + "'");
+        if (message != null) {
+            this.lookUps.remove(correlationUid);
+        }
+        return message;
+    }
+
+    /**
+     * Takes the response for the correlation UID, waiting at most the given
+     * time if it did not arrive yet. Does not block when the timeout is 0.
+     *
+     * @return The response, or null if it did not arrive in time.
+     */
+    public ObjectMessage poll(final String correlationUid, final long timeout) {
+        if (timeout <= 0) {
+            return this.acknowledge(correlationUid, this.take(this.slots.get(correlationUid), false));
+        }
+
+        final Slot slot = this.slots.compute(correlationUid, (key, existing) -> {
+            final Slot s = existing == null ? new Slot(correlationUid) : existing;
+            s.waiters++;
+            return s;
+        });
+        try {
+            slot.arrived.await(timeout, TimeUnit.MILLISECONDS);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return this.acknowledge(correlationUid, this.take(slot, true));
+    }
+
+    public int size() {
+        return this.size.get();
+    }
+
+    /**
+     * Hands off the responses that were not taken within the hold time, and
+     * forgets the look-ups older than the hold time.
+     */
+    public void releaseExpired() {
+        final long now = System.currentTimeMillis();
+        this.lookUps.values().removeIf(askedAt -> askedAt <= now - this.holdTime);
+        this.wanted.values().removeIf(askedAt -> askedAt <= now - this.holdTime);
+        this.handedOff.retainAll(this.lookUps.keySet());
+
+        if (this.handOffJmsTemplate == null) {
+            return;
+        }
+        Slot oldest = this.arrivals.peek();
+        while (oldest != null && (oldest.message == null || oldest.heldUntil <= now)) {
+            this.arrivals.remove(oldest);
+            final ObjectMessage message = this.remove(oldest);
+            if (message != null) {
+                this.release(oldest.correlationUid, message, now);
+            }
+            oldest = this.arrivals.peek();
+        }
+    }
+
+    /**
+     * Hands off the response for the correlation UID and lets the other
+     * instances know, if the registry holds it. Otherwise hands it off when it
+     * arrives within the hold time.
+     */
+    public void handOff(final String correlationUid) {
+        if (this.handOffJmsTemplate == null) {
+            return;
+        }
+        final long now = System.currentTimeMillis();
+        final ObjectMessage message = this.take(this.slots.get(correlationUid), false);
+        if (message == null) {
+            this.wanted.put(correlationUid, now);
+        } else if (this.release(correlationUid, message, now)) {
+            this.publish(correlationUid, HANDED_OFF_TYPE);
+        }
+    }
+
+    /**
+     * Stops handing off responses and stops the listener waiting for room. The
+     * responses still in the registry are redelivered by the broker once the
+     * listener session is closed.
+     */
+    public void shutdown() {
+        this.running = false;
+        this.releaser.shutdownNow();
+        synchronized (this.room) {
+            this.room.notifyAll();
+        }
+    }
+
+    /**
+     * Notes that another instance handed off a response this instance asked
+     * for, and wakes up the calls waiting for it.
+     */
+    private void handedOff(final String correlationUid) {
+        if (!this.lookUps.containsKey(correlationUid)) {
+            return;
+        }
+        this.handedOff.add(correlationUid);
+        final Slot slot = this.slots.get(correlationUid);
+        if (slot != null) {
+            slot.arrived.countDown();
+        }
+    }
+
+    /**
+     * Publishes a look-up, or that a response was handed off, on the look-up
+     * topic.
+     */
+    private void publish(final String correlationUid, final String type) {
+        if (this.lookUpJmsTemplate == null) {
+            return;
+        }
+        try {
+            this.lookUpJmsTemplate.send(session -> {
+                final Message message = session.createMessage();
+                message.setJMSCorrelationID(correlationUid);
+                message.setJMSType(type);
+                message.setStringProperty(ORIGIN_PROPERTY, this.origin);
+                return message;
+            });
+        } catch (final JmsException e) {
+            LOGGER.warn("Unable to publish response look-up for correlation UID {}", correlationUid, e);
+        }
+    }
+
+    private boolean awaitRoom() {
+        synchronized (this.room) {
+            while (this.running && this.size.get() >= this.maxEntries) {
+                try {
+                    this.room.wait(this.holdTime);
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+        }
+        return this.running;
+    }
+
+    private ObjectMessage take(final Slot slot, final boolean waiting) {
+        if (slot == null) {
+            return null;
+        }
+        final ObjectMessage[] taken = new ObjectMessage[1];
+        this.slots.computeIfPresent(slot.correlationUid, (key, existing) -> {
+            if (existing != slot) {
+                return existing;
+            }
+            if (waiting) {
+                existing.waiters--;
+            }
+            if (existing.message != null) {
+                taken[0] = existing.message;
+                // The slot stays in the arrivals until it reaches the head.
+                existing.message = null;
+                return null;
+            }
+            return existing.waiters == 0 ? null : existing;
+        });
+        if (taken[0] != null) {
+            this.removed();
+        }
+        return taken[0];
+    }
+
+    /**
+     * Removes a response that was not taken.
+     */
+    private ObjectMessage remove(final Slot slot) {
+        final ObjectMessage[] removed = new ObjectMessage[1];
+        this.slots.computeIfPresent(slot.correlationUid, (key, existing) -> {
+            if (existing != slot || existing.message == null) {
+                return existing;
+            }
+            removed[0] = existing.message;
+            existing.message = null;
+            return existing.waiters == 0 ? null : existing;
+        });
+        if (removed[0] != null) {
+            this.removed();
+        }
+        return removed[0];
+    }
+
+    private void removed() {
+        this.size.decrementAndGet();
+        synchronized (this.room) {
+            this.room.notifyAll();
+        }
+    }
+
+    private ObjectMessage acknowledge(final String correlationUid, final ObjectMessage message) {
+        if (message == null) {
+            return null;
+        }
+        try {
+            message.acknowledge();
+            return message;
+        } catch (final JMSException e) {
+            // The listener session is gone, the broker redelivers the response.
+            LOGGER.warn("Unable to acknowledge response for correlation UID {}", correlationUid, e);
+            return null;
+        }
+    }
+
+    /**
+     * Sends the response to the hand-off queue with the time to live it has
+     * left, then acknowledges it. Keeps the response when it cannot be sent.
+     *
+     * @return Whether the response was sent to the hand-off queue.
+     */
+    private boolean release(final String correlationUid, final ObjectMessage message, final long now) {
+        try {
+            final long expiration = message.getJMSExpiration();
+            if (expiration != 0 && expiration <= now) {
+                LOGGER.debug("Response for correlation UID {} expired", correlationUid);
+                message.acknowledge();
+                return false;
+            }
+            final long timeToLive = expiration == 0 ? 0 : expiration - now;
+            this.handOffJmsTemplate.execute((session, producer) -> {
+                producer.send(message, message.getJMSDeliveryMode(), message.getJMSPriority(), timeToLive);
+                return null;
+            });
+            message.acknowledge();
+            LOGGER.debug("Handed off response for correlation UID {}", correlationUid);
+            return true;
+        } catch (final JMSException | JmsException e) {
+            LOGGER.warn("Unable to hand off response for correlation UID {}, keeping it", correlationUid, e);
+            this.put(correlationUid, message);
+            return false;
+        }
+    }
+
+    /**
+     * The response for a correlation UID, or the calls waiting for it. The
+     * fields are only changed inside compute functions of the slots map.
+     */
+    private static final class Slot {
+        private final String correlationUid;
+        private final CountDownLatch arrived = new CountDownLatch(1);
+        private volatile ObjectMessage message;
+        private volatile long heldUntil;
+        private int waiters;
+
+        Slot(final String correlationUid) {
+            this.correlationUid = correlationUid;
+        }
+    }
+}
@@ -12,6 +12,8 @@ import java.util.List;
 
 import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Join;
+import javax.persistence.criteria.Path;
 import javax.persistence.criteria.Predicate;
 import javax.persistence.criteria.Root;
 import javax.persistence.criteria.Subquery;
@@ -22,7 +24,6 @@ import org.springframework.data.jpa.domain.Specification;
 import com.alliander.osgp.domain.core.entities.Device;
 import com.alliander.osgp.domain.core.entities.DeviceAuthorization;
 import com.alliander.osgp.domain.core.entities.DeviceCurrentFirmwareModuleVersion;
-import com.alliander.osgp.domain.core.entities.DeviceModel;
 import com.alliander.osgp.domain.core.entities.Manufacturer;
 import com.alliander.osgp.domain.core.entities.Organisation;
 import com.alliander.osgp.domain.core.exceptions.ArgumentNullOrEmptyException;
@@ -30,8 +31,18 @@ import com.alliander.osgp.domain.core.specifications.DeviceSpecifications;
 import com.alliander.osgp.domain.core.valueobjects.DeviceFunctionGroup;
 import com.alliander.osgp.domain.core.valueobjects.FirmwareModuleFilterType;
 
+/**
+ * Specifications of the device search. Text is matched as upper(column) LIKE
+ * 'VALUE%', which the upper-cased search indexes of the device tables serve.
+ * Filters on device authorizations are correlated EXISTS subqueries, which
+ * the database runs as semi joins, so they do not duplicate devices that have
+ * more than one authorization.
+ */
 public class JpaDeviceSpecifications implements DeviceSpecifications {
 
+    private static final String DEVICE = "device";
+    private static final String ORGANISATION = "organisation";
+
     @Override
     public Specification<Device> hasTechnicalInstallationDate() throws ArgumentNullOrEmptyException {
         return new Specification<Device>() {
@@ -57,10 +68,11 @@ public class JpaDeviceSpecifications implements DeviceSpecifications {
 
                 final Subquery<Long> subquery = query.subquery(Long.class);
                 final Root<DeviceAuthorization> deviceAuthorizationRoot = subquery.from(DeviceAuthorization.class);
-                subquery.select(deviceAuthorizationRoot.get("device").get("id").as(Long.class));
-                subquery.where(cb.equal(deviceAuthorizationRoot.get("organisation"), organisation.getId()));
+                subquery.select(deviceAuthorizationRoot.<Long> get("id"));
+                subquery.where(cb.equal(deviceAuthorizationRoot.get(DEVICE), deviceRoot),
+                        cb.equal(deviceAuthorizationRoot.get(ORGANISATION), organisation));
 
-                return cb.in(deviceRoot.get("id")).value(subquery);
+                return cb.exists(subquery);
             }
         };
     }
@@ -197,7 +209,7 @@ public class JpaDeviceSpecifications implements DeviceSpecifications {
                 final Subquery<Long> subquery = query.subquery(Long.class);
                 final Root<DeviceAuthorization> deviceAuthorizationRoot = subquery.from(DeviceAuthorization.class);
                 subquery.select(cb.countDistinct(deviceAuthorizationRoot));
-                subquery.where(cb.equal(deviceAuthorizationRoot.get("device"), deviceRoot.<Long> get("id")));
+                subquery.where(cb.equal(deviceAuthorizationRoot.get(DEVICE), deviceRoot.<Long> get("id")));
                 if (isManagedExternally) {
                     return cb.greaterThan(subquery, Long.valueOf(1));
                 } else {
@@ -252,12 +264,14 @@ public class JpaDeviceSpecifications implements DeviceSpecifications {
 
                 final Subquery<Long> subquery = query.subquery(Long.class);
                 final Root<DeviceAuthorization> deviceAuthorizationRoot = subquery.from(DeviceAuthorization.class);
-                subquery.select(deviceAuthorizationRoot.get("device").get("id").as(Long.class));
-                subquery.where(cb.and(
-                        cb.like(cb.upper(deviceAuthorizationRoot.get("organisation").<String> get("name")),
-                                organisation.toUpperCase()),
-                        cb.equal(deviceAuthorizationRoot.get("functionGroup"), DeviceFunctionGroup.OWNER.ordinal())));
-                return cb.in(deviceRoot.get("id")).value(subquery);
+                final Join<DeviceAuthorization, Organisation> organisationJoin = deviceAuthorizationRoot
+                        .join(ORGANISATION);
+                subquery.select(deviceAuthorizationRoot.<Long> get("id"));
+                subquery.where(cb.equal(deviceAuthorizationRoot.get(DEVICE), deviceRoot),
+                        cb.equal(deviceAuthorizationRoot.get("functionGroup"), DeviceFunctionGroup.OWNER),
+                        cb.like(cb.upper(organisationJoin.<String> get("name")), organisation.toUpperCase()));
+
+                return cb.exists(subquery);
             }
         };
     }
@@ -288,7 +302,7 @@ public class JpaDeviceSpecifications implements DeviceSpecifications {
             @Override
             public Predicate toPredicate(final Root<Device> deviceRoot, final CriteriaQuery<?> query,
                     final CriteriaBuilder cb) {
-                return cb.like(cb.upper(deviceRoot.<String> get("deviceModel").get("modelCode").as(String.class)),
+                return cb.like(cb.upper(deviceRoot.get("deviceModel").<String> get("modelCode")),
                         deviceModel.toUpperCase());
             }
         };
@@ -305,12 +319,7 @@ public class JpaDeviceSpecifications implements DeviceSpecifications {
             public Predicate toPredicate(final Root<Device> deviceRoot, final CriteriaQuery<?> query,
                     final CriteriaBuilder cb) {
 
-                final Subquery<Long> subquery = query.subquery(Long.class);
-                final Root<DeviceModel> deviceModelRoot = subquery.from(DeviceModel.class);
-                subquery.select(deviceModelRoot.get("id").as(Long.class));
-                subquery.where(cb.equal(cb.upper(deviceModelRoot.get("manufacturer").<String> get("name")),
-                        manufacturer.getName().toUpperCase()));
-                return cb.in(deviceRoot.get("deviceModel").get("id").as(Long.class)).value(subquery);
+                return cb.equal(deviceRoot.get("deviceModel").get("manufacturer"), manufacturer);
             }
         };
     }
@@ -379,4 +388,30 @@ public class JpaDeviceSpecifications implements DeviceSpecifications {
             }
         };
     }
+
+    @Override
+    public Specification<Device> isCreatedBefore(final Date creationTime, final Long id)
+            throws ArgumentNullOrEmptyException {
+        if (creationTime == null) {
+            throw new ArgumentNullOrEmptyException("creationTime");
+        }
+        if (id == null) {
+            throw new ArgumentNullOrEmptyException("id");
+        }
+
+        return new Specification<Device>() {
+            @Override
+            public Predicate toPredicate(final Root<Device> deviceRoot, final CriteriaQuery<?> query,
+                    final CriteriaBuilder cb) {
+
+                // The first condition bounds the index range scanned, the
+                // second one skips the devices up to and including the
+                // position.
+                final Path<Date> creationTimePath = deviceRoot.<Date> get("creationTime");
+                return cb.and(cb.lessThanOrEqualTo(creationTimePath, creationTime),
+                        cb.or(cb.lessThan(creationTimePath, creationTime),
+                                cb.lessThan(deviceRoot.<Long> get("id"), id)));
+            }
+        };
+    }
 }
@@ -120,4 +120,28 @@ public class JpaEventSpecifications implements EventSpecifications {
             }
         };
     }
+
+    @Override
+    public Specification<Event> isBefore(final Date dateTime, final Long id) throws ArgumentNullOrEmptyException {
+        if (dateTime == null) {
+            throw new ArgumentNullOrEmptyException("dateTime");
+        }
+        if (id == null) {
+            throw new ArgumentNullOrEmptyException("id");
+        }
+
+        return new Specification<Event>() {
+            @Override
+            public Predicate toPredicate(final Root<Event> eventRoot, final CriteriaQuery<?> query,
+                    final CriteriaBuilder cb) {
+
+                // The first condition bounds the index range scanned, the
+                // second one skips the events up to and including the
+                // position.
+                final Path<Date> dateTimePath = eventRoot.<Date> get("dateTime");
+                return cb.and(cb.lessThanOrEqualTo(dateTimePath, dateTime),
+                        cb.or(cb.lessThan(dateTimePath, dateTime), cb.lessThan(eventRoot.<Long> get("id"), id)));
+            }
+        };
+    }
 }
@@ -27,6 +27,8 @@ public abstract class AbstractNotificationServiceWs {
     protected final String notificationUrl;
     protected final String notificationOrganisation;
 
+    private NotificationDeliveryExecutor notificationDeliveryExecutor;
+
     protected AbstractNotificationServiceWs(final String notificationUrl, final String notificationUsername,
             final String notificationOrganisation) {
         this.notificationUrl = notificationUrl;
@@ -34,18 +36,75 @@ public abstract class AbstractNotificationServiceWs {
         this.notificationOrganisation = notificationOrganisation;
     }
 
+    /**
+     * Send notifications asynchronously using the given executor, instead of
+     * on the calling thread.
+     */
+    public void setNotificationDeliveryExecutor(final NotificationDeliveryExecutor notificationDeliveryExecutor) {
+        this.notificationDeliveryExecutor = notificationDeliveryExecutor;
+    }
+
     protected void doSendNotification(final WebserviceTemplateFactory wsTemplateFactory,
             final String organisationIdentification, final String userName, final String notificationURL,
             final Object notification) {
 
+        if (this.notificationDeliveryExecutor != null) {
+            this.notificationDeliveryExecutor.execute(notificationURL,
+                    this.createDelivery(wsTemplateFactory, userName, notificationURL, notification),
+                    this.describe(organisationIdentification, userName));
+            return;
+        }
+
+        this.sendNow(wsTemplateFactory, organisationIdentification, userName, notificationURL, notification);
+    }
+
+    /**
+     * Sends the notification on the calling thread, for callers that need to
+     * know whether the notification was actually sent, like the resend
+     * notification job.
+     *
+     * @return true if the notification was sent, successfully or not, false
+     *         if it was not sent because the notification endpoint is failing.
+     */
+    protected boolean doSendNotificationAndWait(final WebserviceTemplateFactory wsTemplateFactory,
+            final String organisationIdentification, final String userName, final String notificationURL,
+            final Object notification) {
+
+        if (this.notificationDeliveryExecutor != null) {
+            return this.notificationDeliveryExecutor.deliver(notificationURL,
+                    this.createDelivery(wsTemplateFactory, userName, notificationURL, notification),
+                    this.describe(organisationIdentification, userName));
+        }
+
+        this.sendNow(wsTemplateFactory, organisationIdentification, userName, notificationURL, notification);
+        return true;
+    }
+
+    private NotificationDeliveryExecutor.Delivery createDelivery(final WebserviceTemplateFactory wsTemplateFactory,
+            final String userName, final String notificationURL, final Object notification) {
+        return new NotificationDeliveryExecutor.Delivery() {
+            @Override
+            public void deliver() throws WebServiceSecurityException {
+                AbstractNotificationServiceWs.this.getTemplate(wsTemplateFactory, userName, notificationURL)
+                        .marshalSendAndReceive(notification);
+            }
+        };
+    }
+
+    private String describe(final String organisationIdentification, final String userName) {
+        return String.format("notification message org=%s, user=%s, to org=%s", this.notificationOrganisation,
+                userName, organisationIdentification);
+    }
+
+    private void sendNow(final WebserviceTemplateFactory wsTemplateFactory, final String organisationIdentification,
+            final String userName, final String notificationURL, final Object notification) {
         try {
             /*
              * Get a template for the organisation representing the OSGP
              * platform, on behalf of which the notification is sent to the
              * organisation identified by the organisationIdentification.
              */
-            final WebServiceTemplate wsTemplate = wsTemplateFactory.getTemplate(this.notificationOrganisation, userName,
-                    notificationURL);
+            final WebServiceTemplate wsTemplate = this.getTemplate(wsTemplateFactory, userName, notificationURL);
             wsTemplate.marshalSendAndReceive(notification);
         } catch (WebServiceTransportException | WebServiceSecurityException | SoapFaultClientException e) {
             final String msg = String.format(
@@ -54,7 +113,11 @@ public abstract class AbstractNotificationServiceWs {
                     e.getMessage());
             LOGGER.error(msg, e);
         }
+    }
 
+    private WebServiceTemplate getTemplate(final WebserviceTemplateFactory wsTemplateFactory, final String userName,
+            final String notificationURL) throws WebServiceSecurityException {
+        return wsTemplateFactory.getTemplate(this.notificationOrganisation, userName, notificationURL);
     }
 
     protected String retrieveNotificationUrl(final ResponseUrlService responseUrlService, final String correlationUid) {
@@ -88,26 +88,50 @@ public abstract class AbstractResendNotificationService {
          * The call to getResponseData will be repeated until the resulting list
          * is empty, indicating all response data eligible for the current
          * execution of re-sending notifications have been processed.
+         *
+         * Response data for which the notification was not sent, because the
+         * notification endpoint is failing, is returned again. The loop stops
+         * when none of the notifications of a page were sent, these are
+         * resent by a later execution.
          */
         while (!responseDataForNotifying.isEmpty()) {
             LOGGER.info(
                     "About to send {} notification(s) for response data created before {} with {} prior notification(s)",
                     responseDataForNotifying.size(), createdBefore, notificationsResent + 1);
+            int sent = 0;
             for (final ResponseData responseData : responseDataForNotifying) {
-                this.resendNotificationAndUpdateResponseData(responseData);
+                if (this.resendNotificationAndUpdateResponseData(responseData)) {
+                    sent++;
+                }
+            }
+            if (sent == 0) {
+                LOGGER.warn("None of {} notification(s) were sent, resending them later",
+                        responseDataForNotifying.size());
+                return;
             }
             responseDataForNotifying = this.getResponseDataForNotifying(notificationsResent, createdBefore);
         }
     }
 
-    public void resendNotificationAndUpdateResponseData(final ResponseData responseData) {
+    /**
+     * Resends the notification, and counts the attempt unless the
+     * notification was not sent, because the notification endpoint is
+     * failing. Notifications that were not sent are resent by a later run.
+     *
+     * @return true if the attempt was counted.
+     */
+    public boolean resendNotificationAndUpdateResponseData(final ResponseData responseData) {
 
+        boolean attempted = true;
         try {
-            this.resendNotification(responseData);
+            attempted = this.resendNotification(responseData);
         } finally {
-            responseData.setNumberOfNotificationsSent((short) (responseData.getNumberOfNotificationsSent() + 1));
-            this.responseDataRepository.save(responseData);
+            if (attempted) {
+                responseData.setNumberOfNotificationsSent((short) (responseData.getNumberOfNotificationsSent() + 1));
+                this.responseDataRepository.save(responseData);
+            }
         }
+        return attempted;
     }
 
     protected void logUnknownNotificationTypeError(final String correlationUid, final String messageType,
@@ -166,7 +190,14 @@ public abstract class AbstractResendNotificationService {
         return delay;
     }
 
-    public abstract void resendNotification(ResponseData responseData);
+    /**
+     * Sends the notification for the response data on the calling thread.
+     *
+     * @return true if the notification was sent, successfully or not, or can
+     *         never be sent; false if it was not sent because the notification
+     *         endpoint is failing.
+     */
+    public abstract boolean resendNotification(ResponseData responseData);
 
     public String getNotificationMessage(final String responseData) {
         return String.format("Response of type %s is available.", responseData);
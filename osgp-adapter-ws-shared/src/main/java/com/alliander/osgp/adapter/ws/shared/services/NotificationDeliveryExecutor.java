@@ -0,0 +1,261 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.adapter.ws.shared.services;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+/**
+ * Delivers notifications asynchronously, so a slow or unreachable notification
+ * endpoint does not stall the thread that handles the response (usually a JMS
+ * listener thread).
+ *
+ * Each endpoint gets a bounded thread pool and queue of its own, so a hanging
+ * endpoint cannot delay notifications for other endpoints. Each endpoint also
+ * has a circuit breaker: after a number of consecutive failed, slow or
+ * rejected deliveries, deliveries to the endpoint are refused for some time.
+ * After that time one delivery is let through to probe the endpoint.
+ *
+ * Deliveries that waited in the queue for longer than the maximum queue time
+ * are dropped instead of delivered late.
+ *
+ * Refused and dropped deliveries are not retried here. The response data stays
+ * in the response_data table, so the notification is sent again by the
+ * {@link AbstractResendNotificationService}, which delivers on its own thread
+ * with {@link #deliver(String, Delivery, String)}.
+ */
+public class NotificationDeliveryExecutor {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(NotificationDeliveryExecutor.class);
+
+    private static final long IDLE_THREAD_KEEP_ALIVE_SECONDS = 60;
+
+    /**
+     * A single notification delivery.
+     */
+    public interface Delivery {
+        void deliver() throws Exception;
+    }
+
+    private final ConcurrentMap<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+    private final AtomicInteger endpointCount = new AtomicInteger();
+
+    private final int threadsPerEndpoint;
+    private final int queueCapacityPerEndpoint;
+    private final int failureThreshold;
+    private final long openDuration;
+    private final long slowDeliveryThreshold;
+    private final long maxQueueTime;
+
+    /**
+     * @param threadsPerEndpoint
+     *            The maximum number of concurrent deliveries per endpoint.
+     * @param queueCapacityPerEndpoint
+     *            The maximum number of deliveries waiting per endpoint.
+     * @param failureThreshold
+     *            The number of consecutive failed deliveries after which
+     *            deliveries to an endpoint are refused.
+     * @param openDuration
+     *            The time in milliseconds deliveries to an endpoint are
+     *            refused.
+     * @param slowDeliveryThreshold
+     *            The time in milliseconds after which a successful delivery
+     *            still counts as failed.
+     * @param maxQueueTime
+     *            The time in milliseconds after which a queued delivery is
+     *            dropped instead of delivered.
+     */
+    public NotificationDeliveryExecutor(final int threadsPerEndpoint, final int queueCapacityPerEndpoint,
+            final int failureThreshold, final long openDuration, final long slowDeliveryThreshold,
+            final long maxQueueTime) {
+        this.threadsPerEndpoint = threadsPerEndpoint;
+        this.queueCapacityPerEndpoint = queueCapacityPerEndpoint;
+        this.failureThreshold = failureThreshold;
+        this.openDuration = openDuration;
+        this.slowDeliveryThreshold = slowDeliveryThreshold;
+        this.maxQueueTime = maxQueueTime;
+    }
+
+    /**
+     * Queues the delivery for the endpoint.
+     *
+     * @param endpointUrl
+     *            The url of the notification endpoint.
+     * @param delivery
+     *            The delivery, which will be run on a thread of the endpoint.
+     * @param description
+     *            Description of the delivery used in log messages.
+     * @return false if the delivery was refused because the endpoint is failing
+     *         or too many deliveries for the endpoint are waiting.
+     */
+    public boolean execute(final String endpointUrl, final Delivery delivery, final String description) {
+        final Endpoint endpoint = this.getEndpoint(endpointUrl);
+
+        if (!endpoint.allowDelivery(this.openDuration)) {
+            LOGGER.warn("Not delivering {}, notification endpoint {} is failing", description, endpointUrl);
+            return false;
+        }
+
+        final long queuedAt = System.currentTimeMillis();
+        try {
+            endpoint.executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    final long queueTime = System.currentTimeMillis() - queuedAt;
+                    if (queueTime > NotificationDeliveryExecutor.this.maxQueueTime) {
+                        LOGGER.warn("Not delivering {}, it waited {} ms for notification endpoint {}", description,
+                                queueTime, endpointUrl);
+                        return;
+                    }
+                    NotificationDeliveryExecutor.this.deliver(endpoint, delivery, description);
+                }
+            });
+            return true;
+        } catch (final RejectedExecutionException e) {
+            LOGGER.warn("Not delivering {}, too many notifications waiting for endpoint {}", description, endpointUrl,
+                    e);
+            endpoint.deliveryFailed(this.failureThreshold, this.openDuration);
+            return false;
+        }
+    }
+
+    /**
+     * Delivers on the calling thread, unless deliveries to the endpoint are
+     * refused because the endpoint is failing.
+     *
+     * @param endpointUrl
+     *            The url of the notification endpoint.
+     * @param delivery
+     *            The delivery.
+     * @param description
+     *            Description of the delivery used in log messages.
+     * @return true if the delivery was attempted, whether it succeeded or
+     *         failed, false if the delivery was refused.
+     */
+    public boolean deliver(final String endpointUrl, final Delivery delivery, final String description) {
+        final Endpoint endpoint = this.getEndpoint(endpointUrl);
+
+        if (!endpoint.allowDelivery(this.openDuration)) {
+            LOGGER.warn("Not delivering {}, notification endpoint {} is failing", description, endpointUrl);
+            return false;
+        }
+
+        this.deliver(endpoint, delivery, description);
+        return true;
+    }
+
+    /**
+     * @return true if deliveries to the endpoint are currently refused.
+     */
+    boolean isRefusing(final String endpointUrl) {
+        final Endpoint endpoint = this.endpoints.get(endpointUrl);
+        return endpoint != null && endpoint.openUntil > System.currentTimeMillis();
+    }
+
+    public void shutdown() {
+        for (final Endpoint endpoint : this.endpoints.values()) {
+            endpoint.executor.shutdownNow();
+        }
+    }
+
+    private void deliver(final Endpoint endpoint, final Delivery delivery, final String description) {
+        final long start = System.currentTimeMillis();
+        try {
+            delivery.deliver();
+        } catch (final Exception e) {
+            LOGGER.error("Error delivering {} to notification endpoint {}", description, endpoint.url, e);
+            endpoint.deliveryFailed(this.failureThreshold, this.openDuration);
+            return;
+        }
+
+        final long duration = System.currentTimeMillis() - start;
+        if (duration > this.slowDeliveryThreshold) {
+            LOGGER.warn("Delivering {} to notification endpoint {} took {} ms", description, endpoint.url, duration);
+            endpoint.deliveryFailed(this.failureThreshold, this.openDuration);
+        } else {
+            endpoint.deliverySucceeded();
+        }
+    }
+
+    private Endpoint getEndpoint(final String endpointUrl) {
+        return this.endpoints.computeIfAbsent(endpointUrl, url -> new Endpoint(url, this.createExecutor()));
+    }
+
+    private ThreadPoolExecutor createExecutor() {
+        final CustomizableThreadFactory threadFactory = new CustomizableThreadFactory(
+                "notification-delivery-" + this.endpointCount.incrementAndGet() + "-");
+        threadFactory.setDaemon(true);
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(this.threadsPerEndpoint, this.threadsPerEndpoint,
+                IDLE_THREAD_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<Runnable>(this.queueCapacityPerEndpoint), threadFactory);
+        // Endpoints that are not used any more do not keep threads.
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * A notification endpoint with its executor and circuit breaker state.
+     */
+    private static final class Endpoint {
+        private final String url;
+        private final ThreadPoolExecutor executor;
+
+        private final AtomicInteger consecutiveFailures = new AtomicInteger();
+        private final AtomicLong probeStartedAt = new AtomicLong();
+        private volatile long openUntil;
+
+        Endpoint(final String url, final ThreadPoolExecutor executor) {
+            this.url = url;
+            this.executor = executor;
+        }
+
+        boolean allowDelivery(final long openDuration) {
+            if (this.openUntil == 0) {
+                return true;
+            }
+            final long now = System.currentTimeMillis();
+            if (now < this.openUntil) {
+                return false;
+            }
+            // Let a single delivery through once the open duration has passed,
+            // or another one if that delivery does not finish in time.
+            final long started = this.probeStartedAt.get();
+            return (started == 0 || now - started >= openDuration) && this.probeStartedAt.compareAndSet(started, now);
+        }
+
+        void deliverySucceeded() {
+            this.consecutiveFailures.set(0);
+            if (this.openUntil != 0) {
+                LOGGER.info("Notification endpoint {} is delivering again", this.url);
+                this.openUntil = 0;
+            }
+            this.probeStartedAt.set(0);
+        }
+
+        void deliveryFailed(final int failureThreshold, final long openDuration) {
+            if (this.consecutiveFailures.incrementAndGet() >= failureThreshold) {
+                if (this.openUntil == 0) {
+                    LOGGER.warn("Refusing deliveries to notification endpoint {} for {} ms after {} failures",
+                            this.url, openDuration, this.consecutiveFailures.get());
+                }
+                this.openUntil = System.currentTimeMillis() + openDuration;
+            }
+            this.probeStartedAt.set(0);
+        }
+    }
+}
@@ -12,4 +12,18 @@ public interface NotificationService {
     public abstract void sendNotification(final String organisationIdentification, final String deviceIdentification,
             final String result, final String correlationUid, final String message, final Object notificationType);
 
+    /**
+     * Sends the notification on the calling thread.
+     *
+     * @return true if the notification was sent, successfully or not, false
+     *         if it was not sent because the notification endpoint is failing.
+     */
+    public default boolean sendNotificationAndWait(final String organisationIdentification,
+            final String deviceIdentification, final String result, final String correlationUid, final String message,
+            final Object notificationType) {
+        this.sendNotification(organisationIdentification, deviceIdentification, result, correlationUid, message,
+                notificationType);
+        return true;
+    }
+
 }
@@ -0,0 +1,201 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.adapter.ws.shared.services;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.alliander.osgp.adapter.ws.domain.entities.ResponseData;
+
+/**
+ * In memory tier in front of the response_data table.
+ *
+ * Response data stored by this application is kept here for a limited time,
+ * so get-response calls can be answered without querying the table, and
+ * get-response calls for results that are not available yet can wait for
+ * them instead of polling the table.
+ *
+ * The table remains the durable store: results that are not in memory
+ * (because they were stored by another instance, expired, or did not fit) are
+ * read from the table.
+ *
+ * Every waiting call holds a request thread, also when it waits for a
+ * correlation UID that will never get response data. The number of calls that
+ * wait at the same time is therefore capped, calls over the cap do not wait.
+ */
+public class ResponseDataMemoryStore {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ResponseDataMemoryStore.class);
+
+    private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Waiter> waiters = new ConcurrentHashMap<>();
+
+    private final int maxEntries;
+    private final long timeToLive;
+    private final long waitTimeout;
+    private final int maxWaiters;
+
+    private final AtomicInteger waiterCount = new AtomicInteger();
+
+    /**
+     * @param maxEntries
+     *            The maximum number of response data kept in memory.
+     * @param timeToLive
+     *            The time in milliseconds response data is kept in memory.
+     * @param waitTimeout
+     *            The time in milliseconds a get-response call waits for
+     *            response data that is not available yet, 0 to not wait.
+     * @param maxWaiters
+     *            The maximum number of get-response calls waiting at the same
+     *            time.
+     */
+    public ResponseDataMemoryStore(final int maxEntries, final long timeToLive, final long waitTimeout,
+            final int maxWaiters) {
+        this.maxEntries = maxEntries;
+        this.timeToLive = timeToLive;
+        this.waitTimeout = waitTimeout;
+        this.maxWaiters = maxWaiters;
+    }
+
+    public long getWaitTimeout() {
+        return this.waitTimeout;
+    }
+
+    /**
+     * Keeps the response data in memory, if there is room, and wakes up the
+     * calls waiting for it. Must only be called once the response data is
+     * committed to the table.
+     */
+    public void put(final ResponseData responseData) {
+        final String correlationUid = responseData.getCorrelationUid();
+
+        if (this.entries.size() >= this.maxEntries) {
+            this.removeExpired();
+        }
+        if (this.entries.size() < this.maxEntries) {
+            this.entries.put(correlationUid, new Entry(responseData, System.currentTimeMillis() + this.timeToLive));
+        } else {
+            LOGGER.debug("Response data store is full, not keeping response data for correlation UID {}",
+                    correlationUid);
+        }
+
+        final Waiter waiter = this.waiters.remove(correlationUid);
+        if (waiter != null) {
+            waiter.latch.countDown();
+        }
+    }
+
+    /**
+     * @return The response data, or null if it is not kept in memory.
+     */
+    public ResponseData get(final String correlationUid) {
+        final Entry entry = this.entries.get(correlationUid);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.isExpired(System.currentTimeMillis())) {
+            this.entries.remove(correlationUid, entry);
+            return null;
+        }
+        return entry.responseData;
+    }
+
+    public void remove(final String correlationUid) {
+        this.entries.remove(correlationUid);
+    }
+
+    /**
+     * Waits at most the wait timeout until response data is put for the
+     * correlation UID. Does not wait when the maximum number of calls is
+     * already waiting.
+     *
+     * @return true if response data was put, false if the wait timed out or
+     *         the call did not wait.
+     */
+    public boolean await(final String correlationUid) throws InterruptedException {
+        if (this.waitTimeout <= 0) {
+            return false;
+        }
+
+        if (this.waiterCount.incrementAndGet() > this.maxWaiters) {
+            this.waiterCount.decrementAndGet();
+            LOGGER.debug("{} calls are waiting for response data, not waiting for correlation UID {}",
+                    this.maxWaiters, correlationUid);
+            return false;
+        }
+
+        try {
+            return this.awaitPut(correlationUid);
+        } finally {
+            this.waiterCount.decrementAndGet();
+        }
+    }
+
+    private boolean awaitPut(final String correlationUid) throws InterruptedException {
+        final Waiter waiter = this.waiters.compute(correlationUid, (key, existing) -> {
+            final Waiter w = existing == null ? new Waiter() : existing;
+            w.count++;
+            return w;
+        });
+
+        try {
+            // Response data put before the waiter was registered would never
+            // wake it up.
+            return this.entries.containsKey(correlationUid)
+                    || waiter.latch.await(this.waitTimeout, TimeUnit.MILLISECONDS);
+        } finally {
+            this.waiters.computeIfPresent(correlationUid, (key, existing) -> {
+                if (existing != waiter) {
+                    return existing;
+                }
+                existing.count--;
+                return existing.count == 0 ? null : existing;
+            });
+        }
+    }
+
+    private void removeExpired() {
+        final long now = System.currentTimeMillis();
+        final Iterator<Entry> iterator = this.entries.values().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().isExpired(now)) {
+                iterator.remove();
+            }
+        }
+    }
+
+    private static final class Entry {
+        private final ResponseData responseData;
+        private final long expiresAt;
+
+        Entry(final ResponseData responseData, final long expiresAt) {
+            this.responseData = responseData;
+            this.expiresAt = expiresAt;
+        }
+
+        boolean isExpired(final long now) {
+            return now >= this.expiresAt;
+        }
+    }
+
+    /**
+     * Shared by all calls waiting for the same correlation UID. The count is
+     * only changed inside compute functions of the waiters map.
+     */
+    private static final class Waiter {
+        private final CountDownLatch latch = new CountDownLatch(1);
+        private int count;
+    }
+}
@@ -11,7 +11,10 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import com.alliander.osgp.adapter.ws.domain.entities.ResponseData;
 import com.alliander.osgp.adapter.ws.domain.repositories.ResponseDataRepository;
@@ -31,14 +34,19 @@ public class ResponseDataService {
     @Autowired
     private ResponseDataRepository responseDataRepository;
 
+    @Autowired
+    private ResponseDataMemoryStore responseDataMemoryStore;
+
     /**
-     * Queue response data object.
+     * Queue response data object. Once the response data is committed, it is
+     * also kept in memory and calls waiting for it are woken up.
      *
      * @param responseData
      */
     public void enqueue(final ResponseData responseData) {
         if (this.responseDataRepository.findByCorrelationUid(responseData.getCorrelationUid()) == null) {
             this.responseDataRepository.save(responseData);
+            this.putInMemoryAfterCommit(responseData);
         } else {
             LOGGER.warn("Response data with correlation uid {} already exists. Skipping save action",
                     responseData.getCorrelationUid());
@@ -48,6 +56,12 @@ public class ResponseDataService {
     /**
      * Dequeue response data.
      *
+     * If the response data is not available yet, this waits at most the wait
+     * timeout of the {@link ResponseDataMemoryStore} for it. No transaction is
+     * kept open while waiting, as long as the caller does not call this within
+     * a transaction of its own: a suspended transaction keeps its database
+     * connection until it is resumed.
+     *
      * If correlationUid does not match type, null will be returned and the data
      * will not be removed from the database.
      *
@@ -59,10 +73,11 @@ public class ResponseDataService {
      *             when correlationUid is not found, or when the expected class
      *             type does not match.
      */
+    @Transactional(value = "transactionManager", propagation = Propagation.NOT_SUPPORTED)
     public ResponseData dequeue(final String correlationUid, final Class<?> expectedClassType,
             final ComponentType componentType) throws CorrelationUidException {
 
-        final ResponseData responseData = this.responseDataRepository.findByCorrelationUid(correlationUid);
+        final ResponseData responseData = this.findOrAwait(correlationUid);
 
         if (responseData == null) {
             LOGGER.warn("No response data for correlation UID {}", correlationUid);
@@ -88,23 +103,63 @@ public class ResponseDataService {
             throw new CorrelationUidMismatchException(componentType);
         }
 
-        this.remove(responseData);
+        this.remove(responseData, componentType);
         return responseData;
     }
 
+    @Transactional(value = "transactionManager", propagation = Propagation.NOT_SUPPORTED)
     public ResponseData dequeue(final String correlationUid, final ComponentType componentType)
             throws UnknownCorrelationUidException {
-        final ResponseData responseData = this.responseDataRepository.findByCorrelationUid(correlationUid);
+        final ResponseData responseData = this.findOrAwait(correlationUid);
 
         if (responseData == null) {
             LOGGER.warn("No response data for correlation UID {}", correlationUid);
             throw new UnknownCorrelationUidException(componentType);
         }
 
-        this.remove(responseData);
+        this.remove(responseData, componentType);
         return responseData;
     }
 
+    private ResponseData findOrAwait(final String correlationUid) {
+        final ResponseData responseData = this.find(correlationUid);
+        if (responseData != null || this.responseDataMemoryStore.getWaitTimeout() <= 0) {
+            return responseData;
+        }
+
+        try {
+            this.responseDataMemoryStore.await(correlationUid);
+        } catch (final InterruptedException e) {
+            LOGGER.debug("Interrupted while waiting for response data for correlation UID {}", correlationUid, e);
+            Thread.currentThread().interrupt();
+        }
+
+        // Also check the table when the wait timed out, the response data may
+        // have been stored by another instance.
+        return this.find(correlationUid);
+    }
+
+    private ResponseData find(final String correlationUid) {
+        final ResponseData responseData = this.responseDataMemoryStore.get(correlationUid);
+        if (responseData != null) {
+            return responseData;
+        }
+        return this.responseDataRepository.findByCorrelationUid(correlationUid);
+    }
+
+    private void putInMemoryAfterCommit(final ResponseData responseData) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            this.responseDataMemoryStore.put(responseData);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+                ResponseDataService.this.responseDataMemoryStore.put(responseData);
+            }
+        });
+    }
+
     /**
      * ResponseData is valid when ResponseData message data type is equal to the
      * expected type OR The response message result type is NOT_OK, so the
@@ -121,8 +176,14 @@ public class ResponseDataService {
                 || responseData.getResultType().equals(ResponseMessageResultType.NOT_OK);
     }
 
-    private void remove(final ResponseData responseData) {
+    private void remove(final ResponseData responseData, final ComponentType componentType)
+            throws UnknownCorrelationUidException {
         LOGGER.info("deleting ResponseData for CorrelationUid {}", responseData.getCorrelationUid());
-        this.responseDataRepository.delete(responseData);
+        this.responseDataMemoryStore.remove(responseData.getCorrelationUid());
+        if (this.responseDataRepository.deleteByCorrelationUid(responseData.getCorrelationUid()) == 0) {
+            // Another call dequeued the response data in the meantime.
+            LOGGER.warn("Response data for correlation UID {} was already dequeued", responseData.getCorrelationUid());
+            throw new UnknownCorrelationUidException(componentType);
+        }
     }
 }
@@ -0,0 +1,93 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.adapter.ws.endpointinterceptors;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.xpath.XPathConstants;
+import javax.xml.xpath.XPathFactory;
+
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.NodeList;
+
+public class SoapElementFinderTest {
+
+    private static final String[] ELEMENTS = { "CorrelationUid", "DeviceId", "Result" };
+
+    private static final int BUNDLE_ACTIONS = 500;
+
+    private final SoapElementFinder finder = new SoapElementFinder(ELEMENTS);
+
+    @Test
+    public void testFindsFirstMatchingElementsInDocumentOrder() throws Exception {
+        final Document document = parse("<soap:Envelope xmlns:soap=\"http://schemas.xmlsoap.org/soap/envelope/\""
+                + " xmlns:ns=\"http://www.alliander.com/schemas/osgp\"><soap:Header/><soap:Body>"
+                + "<ns:GetStatusResponse><ns:Result>OK</ns:Result><ns:DeviceIdentification>device-1"
+                + "</ns:DeviceIdentification><ns:DeviceId>device-2</ns:DeviceId></ns:GetStatusResponse>"
+                + "</soap:Body></soap:Envelope>");
+
+        assertArrayEquals(new String[] { null, "device-1", "OK" }, this.finder.find(document));
+        assertArrayEquals(evaluateXPath(document), this.finder.find(document));
+    }
+
+    @Test
+    public void testReturnsNullsWhenNothingMatches() throws Exception {
+        final String[] values = this.finder.find(parse("<Envelope><Body><Ping/></Body></Envelope>"));
+
+        assertNull(values[0]);
+        assertNull(values[1]);
+        assertNull(values[2]);
+    }
+
+    @Test
+    public void testFindsSameValuesAsXPathOnBundleResponse() throws Exception {
+        final Document document = parse(bundleResponse(BUNDLE_ACTIONS));
+
+        assertArrayEquals(evaluateXPath(document), this.finder.find(document));
+    }
+
+    private static String[] evaluateXPath(final Document document) throws Exception {
+        final String[] values = new String[ELEMENTS.length];
+        for (int i = 0; i < ELEMENTS.length; i++) {
+            final NodeList nodeList = (NodeList) XPathFactory.newInstance().newXPath()
+                    .compile(String.format("//*[contains(local-name(), '%s')]", ELEMENTS[i]))
+                    .evaluate(document, XPathConstants.NODESET);
+            values[i] = nodeList.getLength() > 0 ? nodeList.item(0).getTextContent() : null;
+        }
+        return values;
+    }
+
+    private static String bundleResponse(final int actions) {
+        final StringBuilder builder = new StringBuilder(
+                "<soap:Envelope xmlns:soap=\"http://schemas.xmlsoap.org/soap/envelope/\""
+                        + " xmlns:ns=\"http://www.alliander.com/schemas/osgp/smartmetering/sm-bundle/2014/10\">"
+                        + "<soap:Header/><soap:Body><ns:BundleResponse><ns:AllResponses>");
+        for (int i = 0; i < actions; i++) {
+            builder.append("<ns:ActionResponse><ns:Result>OK</ns:Result><ns:Description>Action ").append(i)
+                    .append(" handled</ns:Description><ns:PeriodicMeterReads><ns:LogTime>2017-01-01T00:00:00Z")
+                    .append("</ns:LogTime><ns:ActiveEnergyImport>").append(i)
+                    .append("</ns:ActiveEnergyImport></ns:PeriodicMeterReads></ns:ActionResponse>");
+        }
+        builder.append("</ns:AllResponses><ns:DeviceIdentification>E0000000000000000</ns:DeviceIdentification>")
+                .append("<ns:CorrelationUid>test-org|||E0000000000000000|||20170101000000000</ns:CorrelationUid>")
+                .append("</ns:BundleResponse></soap:Body></soap:Envelope>");
+        return builder.toString();
+    }
+
+    private static Document parse(final String xml) throws Exception {
+        final DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setNamespaceAware(true);
+        return factory.newDocumentBuilder().parse(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)));
+    }
+}
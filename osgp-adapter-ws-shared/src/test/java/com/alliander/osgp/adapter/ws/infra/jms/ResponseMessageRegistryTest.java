@@ -0,0 +1,323 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.adapter.ws.infra.jms;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.jms.Connection;
+import javax.jms.JMSException;
+import javax.jms.MessageConsumer;
+import javax.jms.MessageProducer;
+import javax.jms.ObjectMessage;
+import javax.jms.Queue;
+import javax.jms.Session;
+
+import org.apache.activemq.ActiveMQConnectionFactory;
+import org.apache.activemq.ActiveMQSession;
+import org.apache.activemq.broker.BrokerService;
+import org.apache.activemq.command.ActiveMQObjectMessage;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.jms.core.JmsTemplate;
+
+public class ResponseMessageRegistryTest {
+
+    private static final String CORRELATION_UID = "test-org|||TST-01|||20170101000000000";
+    private static final String QUEUE = "ws.test.responses";
+    private static final String HAND_OFF_QUEUE = "ws.test.responses.hand-off";
+    private static final String LOOK_UP_TOPIC = "ws.test.responses.look-up";
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    private BrokerService broker;
+    private ActiveMQConnectionFactory connectionFactory;
+    private ResponseMessageRegistry registry;
+
+    @Before
+    public void setUp() throws Exception {
+        this.broker = new BrokerService();
+        this.broker.setBrokerName("registry-test");
+        this.broker.setPersistent(false);
+        this.broker.setUseJmx(false);
+        this.broker.start();
+
+        this.connectionFactory = new ActiveMQConnectionFactory("vm://registry-test?create=false");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        this.executor.shutdownNow();
+        if (this.registry != null) {
+            this.registry.shutdown();
+        }
+        this.broker.stop();
+    }
+
+    @Test
+    public void testResponseIsTakenOnce() throws JMSException {
+        this.registry = new ResponseMessageRegistry(10, 60000, 0);
+        final ObjectMessage message = this.createMessage(CORRELATION_UID);
+
+        this.registry.onMessage(message);
+
+        assertEquals(1, this.registry.size());
+        assertSame(message, this.registry.poll(CORRELATION_UID));
+        assertNull(this.registry.poll(CORRELATION_UID));
+        assertEquals(0, this.registry.size());
+    }
+
+    @Test
+    public void testPollWithoutTimeoutDoesNotWait() {
+        this.registry = new ResponseMessageRegistry(10, 60000, 5000);
+
+        final long start = System.currentTimeMillis();
+        assertNull(this.registry.poll(CORRELATION_UID, 0));
+        assertTrue(System.currentTimeMillis() - start < 1000);
+    }
+
+    @Test
+    public void testWaitingPollIsWokenUpByArrivingResponse() throws Exception {
+        this.registry = new ResponseMessageRegistry(10, 60000, 10000);
+        final ObjectMessage message = this.createMessage(CORRELATION_UID);
+
+        final long start = System.currentTimeMillis();
+        final Future<ObjectMessage> polled = this.executor.submit(() -> this.registry.poll(CORRELATION_UID));
+        Thread.sleep(100);
+        this.registry.onMessage(message);
+
+        assertSame(message, polled.get(5, TimeUnit.SECONDS));
+        assertTrue(System.currentTimeMillis() - start < 5000);
+        assertEquals(0, this.registry.size());
+    }
+
+    @Test
+    public void testWaitingPollTimesOut() {
+        this.registry = new ResponseMessageRegistry(10, 60000, 100);
+
+        assertNull(this.registry.poll(CORRELATION_UID));
+        assertEquals(0, this.registry.size());
+    }
+
+    @Test
+    public void testListenerWaitsForRoomWhenFull() throws Exception {
+        this.registry = new ResponseMessageRegistry(1, 60000, 0);
+        this.registry.onMessage(this.createMessage("uid-0"));
+        final ObjectMessage message = this.createMessage("uid-1");
+
+        final Future<?> second = this.executor.submit(() -> this.registry.onMessage(message));
+        Thread.sleep(100);
+        assertFalse(second.isDone());
+        assertEquals(1, this.registry.size());
+
+        assertNotNull(this.registry.poll("uid-0"));
+        second.get(5, TimeUnit.SECONDS);
+        assertEquals("uid-1", this.registry.poll("uid-1").getJMSCorrelationID());
+    }
+
+    @Test
+    public void testResponseNotTakenInTimeIsHandedOff() throws Exception {
+        this.registry = new ResponseMessageRegistry(10, 50, 0);
+        final JmsTemplate handOffJmsTemplate = this.handOffJmsTemplate();
+        this.registry.setHandOffJmsTemplate(handOffJmsTemplate);
+
+        this.registry.onMessage(this.createMessage(CORRELATION_UID));
+        Thread.sleep(200);
+
+        assertEquals(0, this.registry.size());
+        assertNull("Not sent back to the queue the registry drains", this.receive(QUEUE, CORRELATION_UID, 100));
+        final ObjectMessage handedOff = this.registry.find(CORRELATION_UID);
+        assertNotNull(handedOff);
+        assertEquals(CORRELATION_UID, handedOff.getJMSCorrelationID());
+    }
+
+    @Test
+    public void testResponseHeldByAnotherInstanceIsFound() throws Exception {
+        this.registry = new ResponseMessageRegistry(10, 60000, 0);
+        final ResponseMessageRegistry other = new ResponseMessageRegistry(10, 60000, 0);
+        final JmsTemplate lookUpJmsTemplate = this.lookUpJmsTemplate();
+        for (final ResponseMessageRegistry instance : new ResponseMessageRegistry[] { this.registry, other }) {
+            instance.setHandOffJmsTemplate(this.handOffJmsTemplate());
+            instance.setLookUpJmsTemplate(lookUpJmsTemplate);
+        }
+
+        final Connection connection = this.connectionFactory.createConnection();
+        try {
+            connection.start();
+            final Session session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+            session.createConsumer(session.createTopic(LOOK_UP_TOPIC)).setMessageListener(other.getLookUpListener());
+            other.onMessage(this.createMessage(CORRELATION_UID));
+
+            final ObjectMessage found = this.registry.find(CORRELATION_UID);
+
+            assertNotNull(found);
+            assertEquals(CORRELATION_UID, found.getJMSCorrelationID());
+            assertEquals(0, other.size());
+            assertNull(this.registry.find(CORRELATION_UID));
+        } finally {
+            connection.close();
+            other.shutdown();
+        }
+    }
+
+    @Test
+    public void testResponseNotReadyIsLookedUpOncePerHoldTime() throws Exception {
+        this.registry = new ResponseMessageRegistry(10, 60000, 0);
+        this.registry.setHandOffJmsTemplate(this.handOffJmsTemplate(100));
+        this.registry.setLookUpJmsTemplate(this.lookUpJmsTemplate());
+
+        final AtomicInteger lookUps = new AtomicInteger();
+        final Connection connection = this.connectionFactory.createConnection();
+        try {
+            connection.start();
+            final Session session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+            session.createConsumer(session.createTopic(LOOK_UP_TOPIC))
+                    .setMessageListener(message -> lookUps.incrementAndGet());
+
+            assertNull(this.registry.find(CORRELATION_UID));
+            final long start = System.currentTimeMillis();
+            for (int i = 0; i < 10; i++) {
+                assertNull(this.registry.find(CORRELATION_UID));
+            }
+            assertTrue("Polls in between do not receive from the hand-off queue",
+                    System.currentTimeMillis() - start < 100);
+
+            Thread.sleep(200);
+            assertEquals(1, lookUps.get());
+        } finally {
+            connection.close();
+        }
+    }
+
+    @Test
+    public void testResponseArrivingElsewhereAfterLookUpIsHandedOff() throws Exception {
+        this.registry = new ResponseMessageRegistry(10, 60000, 0);
+        final ResponseMessageRegistry other = new ResponseMessageRegistry(10, 60000, 0);
+        for (final ResponseMessageRegistry instance : new ResponseMessageRegistry[] { this.registry, other }) {
+            instance.setHandOffJmsTemplate(this.handOffJmsTemplate(500));
+            instance.setLookUpJmsTemplate(this.lookUpJmsTemplate());
+        }
+
+        final Connection connection = this.connectionFactory.createConnection();
+        try {
+            connection.start();
+            for (final ResponseMessageRegistry instance : new ResponseMessageRegistry[] { this.registry, other }) {
+                final Session session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+                session.createConsumer(session.createTopic(LOOK_UP_TOPIC))
+                        .setMessageListener(instance.getLookUpListener());
+            }
+
+            assertNull(this.registry.find(CORRELATION_UID));
+            other.onMessage(this.createMessage(CORRELATION_UID));
+
+            ObjectMessage found = null;
+            final long start = System.currentTimeMillis();
+            while (found == null && System.currentTimeMillis() - start < 5000) {
+                found = this.registry.find(CORRELATION_UID);
+                Thread.sleep(10);
+            }
+
+            assertNotNull(found);
+            assertEquals(CORRELATION_UID, found.getJMSCorrelationID());
+            assertEquals(0, other.size());
+        } finally {
+            connection.close();
+            other.shutdown();
+        }
+    }
+
+    @Test
+    public void testListenerPrefetchIsLimitedToMaxEntries() {
+        this.registry = new ResponseMessageRegistry(100, 60000, 0);
+
+        assertEquals(QUEUE + "?consumer.prefetchSize=100", this.registry.getDestinationName(QUEUE));
+    }
+
+    @Test
+    public void testResponseNotTakenIsRedeliveredWhenTheListenerStops() throws Exception {
+        this.registry = new ResponseMessageRegistry(10, 60000, 0);
+        this.send(CORRELATION_UID);
+
+        final Connection connection = this.connectionFactory.createConnection();
+        connection.start();
+        final Session session = connection.createSession(false, ActiveMQSession.INDIVIDUAL_ACKNOWLEDGE);
+        session.createConsumer(session.createQueue(QUEUE)).setMessageListener(this.registry);
+        final long start = System.currentTimeMillis();
+        while (this.registry.size() == 0 && System.currentTimeMillis() - start < 5000) {
+            Thread.sleep(10);
+        }
+        assertEquals(1, this.registry.size());
+        connection.close();
+
+        assertNull(this.registry.poll(CORRELATION_UID));
+        assertNotNull(this.receive(QUEUE, CORRELATION_UID, 5000));
+    }
+
+    private ObjectMessage createMessage(final String correlationUid) throws JMSException {
+        final ActiveMQObjectMessage message = new ActiveMQObjectMessage();
+        message.setJMSCorrelationID(correlationUid);
+        return message;
+    }
+
+    private void send(final String correlationUid) throws JMSException {
+        final Connection connection = this.connectionFactory.createConnection();
+        try {
+            final Session session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+            final MessageProducer producer = session.createProducer(session.createQueue(QUEUE));
+            final ObjectMessage message = session.createObjectMessage("response");
+            message.setJMSCorrelationID(correlationUid);
+            producer.send(message);
+        } finally {
+            connection.close();
+        }
+    }
+
+    private JmsTemplate handOffJmsTemplate() {
+        return this.handOffJmsTemplate(5000);
+    }
+
+    private JmsTemplate handOffJmsTemplate(final long receiveTimeout) {
+        final JmsTemplate jmsTemplate = new JmsTemplate(this.connectionFactory);
+        jmsTemplate.setDefaultDestinationName(HAND_OFF_QUEUE);
+        jmsTemplate.setReceiveTimeout(receiveTimeout);
+        return jmsTemplate;
+    }
+
+    private JmsTemplate lookUpJmsTemplate() {
+        final JmsTemplate jmsTemplate = new JmsTemplate(this.connectionFactory);
+        jmsTemplate.setPubSubDomain(true);
+        jmsTemplate.setDefaultDestinationName(LOOK_UP_TOPIC);
+        return jmsTemplate;
+    }
+
+    private ObjectMessage receive(final String queueName, final String correlationUid, final long timeout)
+            throws JMSException {
+        final Connection connection = this.connectionFactory.createConnection();
+        try {
+            connection.start();
+            final Session session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+            final Queue queue = session.createQueue(queueName);
+            final MessageConsumer consumer = session.createConsumer(queue,
+                    "JMSCorrelationID='" + correlationUid + "'");
+            return (ObjectMessage) consumer.receive(timeout);
+        } finally {
+            connection.close();
+        }
+    }
+}
@@ -0,0 +1,340 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.adapter.ws.infra.specifications;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.springframework.data.jpa.domain.Specifications.where;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.Scanner;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.ejb.HibernatePersistence;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.support.SimpleJpaRepository;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+
+import com.alliander.osgp.domain.core.entities.Device;
+import com.alliander.osgp.domain.core.entities.Organisation;
+import com.alliander.osgp.domain.core.exceptions.ArgumentNullOrEmptyException;
+import com.alliander.osgp.domain.core.specifications.DeviceSpecifications;
+
+/**
+ * Checks the query plans of the device search on a million generated devices.
+ * The searches are run with the specifications of the web services through a
+ * device repository, and the SQL Hibernate generates for them is explained. A
+ * query plan that scans all devices fails the test.
+ *
+ * The tables are created by Hibernate from the entities, with the indexes of
+ * the osgp-core migration, which is read from the migrations jar of osgp-core
+ * on the test class path. The searches are run without returning rows, so the
+ * generated devices only fill the columns the search uses.
+ *
+ * Query plans need the PostgreSQL planner, so this is an integration test.
+ * It runs in the verify phase when the postgresql-tests profile of the parent
+ * is active, which is when osgp.test.postgresql.url (and optionally
+ * osgp.test.postgresql.username and osgp.test.postgresql.password) are set,
+ * for instance:
+ *
+ * <pre>
+ * mvn -pl osgp-adapter-ws-shared -am -Dosgp.test.postgresql.url=jdbc:postgresql://localhost/osgp_test verify
+ * </pre>
+ *
+ * The devices are created in a schema of their own, which is dropped
+ * afterwards.
+ */
+public class DeviceSearchQueryPlanIT {
+
+    private static final String SCHEMA = "device_search_plan_test";
+
+    // The indexes are created by a migration of osgp-core, which owns the
+    // device tables.
+    private static final String MIGRATION = "/db/migration/V20180125100000000__Adds_device_search_indexes.sql";
+
+    private static final String SEQ_SCAN_ON_DEVICE = "Seq Scan on device ";
+
+    private static final String SELECT_FROM_DEVICE = " from device ";
+
+    // Hibernate creates the not null constraints of all columns, only those
+    // of the primary keys are kept.
+    private static final String DROP_NOT_NULL_CONSTRAINTS = "DO $$ DECLARE c record; BEGIN "
+            + "FOR c IN SELECT col.table_name, col.column_name FROM information_schema.columns col "
+            + "WHERE col.table_schema = current_schema AND col.is_nullable = 'NO' AND NOT EXISTS ("
+            + "SELECT 1 FROM information_schema.table_constraints tc JOIN information_schema.key_column_usage k "
+            + "ON k.constraint_schema = tc.constraint_schema AND k.constraint_name = tc.constraint_name "
+            + "WHERE tc.constraint_type = 'PRIMARY KEY' AND k.table_schema = col.table_schema "
+            + "AND k.table_name = col.table_name AND k.column_name = col.column_name) LOOP "
+            + "EXECUTE format('ALTER TABLE %I ALTER COLUMN %I DROP NOT NULL', c.table_name, c.column_name); "
+            + "END LOOP; END $$";
+
+    private static Connection connection;
+
+    private static EntityManagerFactory entityManagerFactory;
+
+    private static final List<String> PLANS = new ArrayList<>();
+
+    private final DeviceSpecifications specifications = new JpaDeviceSpecifications();
+
+    @BeforeClass
+    public static void createDevices() throws SQLException, IOException {
+        final String url = System.getProperty("osgp.test.postgresql.url");
+        assertNotNull("Expected osgp.test.postgresql.url to be set", url);
+        assertNotNull("Expected the osgp-core migration " + MIGRATION + " on the class path",
+                DeviceSearchQueryPlanIT.class.getResource(MIGRATION));
+
+        connection = DriverManager.getConnection(url, System.getProperty("osgp.test.postgresql.username"),
+                System.getProperty("osgp.test.postgresql.password"));
+        try (final Statement statement = connection.createStatement()) {
+            statement.execute("DROP SCHEMA IF EXISTS " + SCHEMA + " CASCADE");
+            statement.execute("CREATE SCHEMA " + SCHEMA);
+            statement.execute("SET search_path TO " + SCHEMA);
+        }
+
+        entityManagerFactory = createEntityManagerFactory();
+
+        try (final Statement statement = connection.createStatement()) {
+            statement.execute(DROP_NOT_NULL_CONSTRAINTS);
+
+            statement.execute("INSERT INTO manufacturer (id, code, name) "
+                    + "SELECT m, 'M' || m, 'Manufacturer ' || m FROM generate_series(1, 20) m");
+            statement.execute("INSERT INTO device_model (id, manufacturer_id, model_code) "
+                    + "SELECT m, 1 + m % 20, 'MODEL-' || m FROM generate_series(1, 200) m");
+            statement.execute("INSERT INTO organisation (id, name, function_group, organisation_identification) "
+                    + "SELECT o, 'Organisation ' || o, 0, 'org-' || o FROM generate_series(1, 1000) o");
+            statement.execute("INSERT INTO device (id, creation_time, modification_time, device_identification, "
+                    + "alias, container_city, container_postal_code, container_street, container_number, "
+                    + "container_municipality, device_type, device_model) SELECT d, "
+                    + "now() - d * interval '1 minute', now(), 'DEVICE-' || lpad(d::text, 7, '0'), 'Alias ' || d, "
+                    + "'City ' || d % 5000, lpad((d % 9999)::text, 4, '0') || 'AB', 'Street ' || d % 20000, "
+                    + "(d % 200)::text, 'Municipality ' || d % 400, "
+                    + "CASE WHEN d % 10 = 0 THEN 'SSLD' ELSE 'SMART_METER_E' END, 1 + d % 200 "
+                    + "FROM generate_series(1, 1000000) d");
+            // Every device is owned by one of the organisations, and managed
+            // by organisation 1.
+            statement.execute("INSERT INTO device_authorization (id, device, organisation, function_group) "
+                    + "SELECT d, d, 1 + d % 1000, 0 FROM generate_series(1, 1000000) d");
+            statement.execute("INSERT INTO device_authorization (id, device, organisation, function_group) "
+                    + "SELECT 1000000 + d, d, 1, 3 FROM generate_series(1, 1000000) d");
+
+            statement.execute(readMigration());
+            statement.execute("ANALYZE");
+        }
+    }
+
+    @AfterClass
+    public static void dropDevices() throws SQLException {
+        if (connection == null) {
+            return;
+        }
+        if (entityManagerFactory != null) {
+            entityManagerFactory.close();
+        }
+        try (final Statement statement = connection.createStatement()) {
+            statement.execute("DROP SCHEMA " + SCHEMA + " CASCADE");
+        }
+        connection.close();
+    }
+
+    @Before
+    public void clearPlans() {
+        PLANS.clear();
+    }
+
+    @Test
+    public void testDeviceIdentificationUsesIndex() throws ArgumentNullOrEmptyException {
+        this.search(this.specifications.hasDeviceIdentification("device-00012%", false));
+        this.assertIndexScans("device_upper_device_identification_idx");
+    }
+
+    @Test
+    public void testCityUsesIndex() throws ArgumentNullOrEmptyException {
+        this.search(this.specifications.hasCity("City 123%"));
+        this.assertIndexScans("device_upper_container_city_idx");
+    }
+
+    @Test
+    public void testPostalCodeUsesIndex() throws ArgumentNullOrEmptyException {
+        this.search(this.specifications.hasPostalCode("1234%"));
+        this.assertIndexScans("device_upper_container_postal_code_idx");
+    }
+
+    @Test
+    public void testDeviceModelUsesIndex() throws ArgumentNullOrEmptyException {
+        this.search(this.specifications.forDeviceModel("Model-199%"));
+        this.assertIndexScans("device_device_model_idx");
+    }
+
+    @Test
+    public void testOrganisationUsesIndex() throws ArgumentNullOrEmptyException {
+        this.search(this.specifications.forOrganisation(this.organisation(500L)));
+        this.assertIndexScans("device_authorization_organisation_function_group_device_idx");
+    }
+
+    @Test
+    public void testOwnerUsesIndex() throws ArgumentNullOrEmptyException {
+        this.search(this.specifications.forOwner("Organisation 500%"));
+        this.assertIndexScans("organisation_upper_name_idx");
+        this.assertIndexScans("device_authorization_organisation_function_group_device_idx");
+    }
+
+    @Test
+    public void testSearchPageOfOrganisationUsesIndexes() throws ArgumentNullOrEmptyException {
+        this.search(where(this.specifications.forOrganisation(this.organisation(1L)))
+                .and(this.specifications.hasCity("City 42%")).and(this.specifications.forDeviceType("SSLD%")));
+        this.assertIndexScans("device_upper_container_city_idx");
+    }
+
+    /**
+     * Runs a page of the search and its count, as the device repository of
+     * the web services does.
+     */
+    private void search(final Specification<Device> specification) {
+        final EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            final SimpleJpaRepository<Device, Long> repository = new SimpleJpaRepository<>(Device.class,
+                    entityManager);
+            repository.findAll(specification, new PageRequest(0, 15, Sort.Direction.DESC, "creationTime"));
+            repository.count(specification);
+        } finally {
+            entityManager.close();
+        }
+    }
+
+    private Organisation organisation(final long id) {
+        final EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            return entityManager.getReference(Organisation.class, id);
+        } finally {
+            entityManager.close();
+        }
+    }
+
+    private void assertIndexScans(final String index) {
+        assertFalse("Expected the search to query the devices", PLANS.isEmpty());
+        for (final String plan : PLANS) {
+            assertTrue("Expected " + index + " in plan:\n" + plan, plan.contains(index));
+            assertFalse("Expected no sequential scan of all devices in plan:\n" + plan,
+                    plan.contains(SEQ_SCAN_ON_DEVICE));
+        }
+    }
+
+    private static EntityManagerFactory createEntityManagerFactory() {
+        final LocalContainerEntityManagerFactoryBean factoryBean = new LocalContainerEntityManagerFactoryBean();
+        factoryBean.setPersistenceUnitName("DEVICE_SEARCH_PLAN_TEST");
+        factoryBean.setDataSource(new SingleConnectionDataSource(explainingConnection(), true));
+        factoryBean.setPackagesToScan("com.alliander.osgp.domain.core.entities");
+        factoryBean.setPersistenceProviderClass(HibernatePersistence.class);
+
+        final Properties jpaProperties = new Properties();
+        jpaProperties.put("hibernate.dialect", "org.hibernate.dialect.PostgreSQLDialect");
+        jpaProperties.put("hibernate.ejb.naming_strategy", "org.hibernate.cfg.ImprovedNamingStrategy");
+        jpaProperties.put("hibernate.hbm2ddl.auto", "create");
+        factoryBean.setJpaProperties(jpaProperties);
+
+        factoryBean.afterPropertiesSet();
+        return factoryBean.getObject();
+    }
+
+    /**
+     * @return A connection that explains the device queries it prepares, and
+     *         runs them without returning rows.
+     */
+    private static Connection explainingConnection() {
+        return proxy(Connection.class, new InvocationHandler() {
+            @Override
+            public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
+                if ("prepareStatement".equals(method.getName()) && ((String) args[0]).contains(SELECT_FROM_DEVICE)) {
+                    return explainingStatement((String) args[0]);
+                }
+                return delegate(connection, method, args);
+            }
+        });
+    }
+
+    private static PreparedStatement explainingStatement(final String sql) throws SQLException {
+        final PreparedStatement withoutRows = connection
+                .prepareStatement("SELECT * FROM (" + sql + ") search WHERE false");
+        final List<Method> setters = new ArrayList<>();
+        final List<Object[]> parameters = new ArrayList<>();
+        return proxy(PreparedStatement.class, new InvocationHandler() {
+            @Override
+            public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
+                if (method.getName().startsWith("set") && args != null && args.length > 1
+                        && args[0] instanceof Integer) {
+                    setters.add(method);
+                    parameters.add(args);
+                } else if ("executeQuery".equals(method.getName())) {
+                    PLANS.add(explain(sql, setters, parameters));
+                }
+                return delegate(withoutRows, method, args);
+            }
+        });
+    }
+
+    private static String explain(final String sql, final List<Method> setters, final List<Object[]> parameters)
+            throws Throwable {
+        final StringBuilder plan = new StringBuilder();
+        try (final PreparedStatement statement = connection.prepareStatement("EXPLAIN " + sql)) {
+            for (int i = 0; i < setters.size(); i++) {
+                delegate(statement, setters.get(i), parameters.get(i));
+            }
+            try (final ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    plan.append(resultSet.getString(1)).append('\n');
+                }
+            }
+        }
+        return plan.toString();
+    }
+
+    private static Object delegate(final Object target, final Method method, final Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (final InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static <T> T proxy(final Class<T> type, final InvocationHandler handler) {
+        return type.cast(Proxy.newProxyInstance(DeviceSearchQueryPlanIT.class.getClassLoader(),
+                new Class<?>[] { type }, handler));
+    }
+
+    private static String readMigration() throws IOException {
+        try (final InputStream migration = DeviceSearchQueryPlanIT.class.getResourceAsStream(MIGRATION);
+                final Scanner scanner = new Scanner(migration, StandardCharsets.UTF_8.name())) {
+            return scanner.useDelimiter("\\A").next();
+        }
+    }
+}
@@ -0,0 +1,242 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.adapter.ws.shared.services;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Tests the notification delivery against a local stub endpoint, which has a
+ * path that answers right away and a path that hangs until the test ends.
+ */
+public class NotificationDeliveryExecutorTest {
+
+    private static final int THREADS_PER_ENDPOINT = 2;
+    private static final int QUEUE_CAPACITY_PER_ENDPOINT = 3;
+    private static final int FAILURE_THRESHOLD = 2;
+    private static final long OPEN_DURATION = 200;
+    private static final long SLOW_THRESHOLD = 30000;
+    private static final long MAX_QUEUE_TIME = 60000;
+
+    private static final long MAX_WAIT_MILLIS = 5000;
+
+    private final CountDownLatch releaseHangingRequests = new CountDownLatch(1);
+
+    private ExecutorService serverExecutor;
+    private HttpServer server;
+    private String hangingUrl;
+    private String okUrl;
+
+    private NotificationDeliveryExecutor executor;
+
+    @Before
+    public void setUp() throws IOException {
+        this.server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        this.server.createContext("/hang", new HttpHandler() {
+            @Override
+            public void handle(final HttpExchange exchange) throws IOException {
+                try {
+                    NotificationDeliveryExecutorTest.this.releaseHangingRequests.await();
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                respond(exchange);
+            }
+        });
+        this.server.createContext("/ok", new HttpHandler() {
+            @Override
+            public void handle(final HttpExchange exchange) throws IOException {
+                respond(exchange);
+            }
+        });
+        // Enough threads to keep all hanging requests open.
+        this.serverExecutor = Executors.newCachedThreadPool();
+        this.server.setExecutor(this.serverExecutor);
+        this.server.start();
+
+        final String baseUrl = "http://localhost:" + this.server.getAddress().getPort();
+        this.hangingUrl = baseUrl + "/hang";
+        this.okUrl = baseUrl + "/ok";
+
+        this.executor = new NotificationDeliveryExecutor(THREADS_PER_ENDPOINT, QUEUE_CAPACITY_PER_ENDPOINT,
+                FAILURE_THRESHOLD, OPEN_DURATION, SLOW_THRESHOLD, MAX_QUEUE_TIME);
+    }
+
+    @After
+    public void tearDown() {
+        this.releaseHangingRequests.countDown();
+        this.executor.shutdown();
+        this.server.stop(0);
+        this.serverExecutor.shutdownNow();
+    }
+
+    @Test
+    public void testHangingEndpointDoesNotBlockCaller() {
+        final long start = System.currentTimeMillis();
+        int accepted = 0;
+        for (int i = 0; i < 20; i++) {
+            if (this.executor.execute(this.hangingUrl, post(this.hangingUrl, null), "notification " + i)) {
+                accepted++;
+            }
+        }
+
+        assertTrue("callers must not wait for the hanging endpoint",
+                System.currentTimeMillis() - start < MAX_WAIT_MILLIS);
+        assertEquals(THREADS_PER_ENDPOINT + QUEUE_CAPACITY_PER_ENDPOINT, accepted);
+        assertTrue(this.executor.isRefusing(this.hangingUrl));
+    }
+
+    @Test
+    public void testHangingEndpointDoesNotDelayOtherEndpoints() throws InterruptedException {
+        for (int i = 0; i < 20; i++) {
+            this.executor.execute(this.hangingUrl, post(this.hangingUrl, null), "notification " + i);
+        }
+
+        final CountDownLatch delivered = new CountDownLatch(1);
+        assertTrue(this.executor.execute(this.okUrl, post(this.okUrl, delivered), "notification"));
+        assertTrue(delivered.await(MAX_WAIT_MILLIS, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testFailingEndpointIsProbedAfterOpenDuration() throws InterruptedException {
+        for (int i = 0; i < FAILURE_THRESHOLD; i++) {
+            assertTrue(this.executor.execute(this.okUrl, failure(), "notification " + i));
+        }
+        this.awaitRefusing(this.okUrl);
+        assertFalse(this.executor.execute(this.okUrl, post(this.okUrl, null), "refused notification"));
+
+        Thread.sleep(OPEN_DURATION);
+
+        final CountDownLatch delivered = new CountDownLatch(1);
+        assertTrue(this.executor.execute(this.okUrl, post(this.okUrl, delivered), "probe notification"));
+        assertTrue(delivered.await(MAX_WAIT_MILLIS, TimeUnit.MILLISECONDS));
+        this.awaitAccepting(this.okUrl);
+    }
+
+    @Test
+    public void testSlowDeliveriesCountAsFailures() throws InterruptedException {
+        this.executor.shutdown();
+        this.executor = new NotificationDeliveryExecutor(THREADS_PER_ENDPOINT, QUEUE_CAPACITY_PER_ENDPOINT, 1,
+                OPEN_DURATION, 10, MAX_QUEUE_TIME);
+
+        assertTrue(this.executor.execute(this.okUrl, new NotificationDeliveryExecutor.Delivery() {
+            @Override
+            public void deliver() throws InterruptedException {
+                Thread.sleep(50);
+            }
+        }, "slow notification"));
+
+        this.awaitRefusing(this.okUrl);
+    }
+
+    @Test
+    public void testStaleQueuedDeliveriesAreDropped() throws InterruptedException {
+        this.executor.shutdown();
+        this.executor = new NotificationDeliveryExecutor(1, QUEUE_CAPACITY_PER_ENDPOINT, FAILURE_THRESHOLD,
+                OPEN_DURATION, SLOW_THRESHOLD, 50);
+
+        final CountDownLatch blocking = new CountDownLatch(1);
+        assertTrue(this.executor.execute(this.okUrl, new NotificationDeliveryExecutor.Delivery() {
+            @Override
+            public void deliver() throws InterruptedException {
+                blocking.await(MAX_WAIT_MILLIS, TimeUnit.MILLISECONDS);
+            }
+        }, "blocking notification"));
+        final CountDownLatch delivered = new CountDownLatch(1);
+        assertTrue(this.executor.execute(this.okUrl, post(this.okUrl, delivered), "stale notification"));
+
+        Thread.sleep(100);
+        blocking.countDown();
+
+        assertFalse("stale deliveries must not be delivered", delivered.await(500, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testDeliverOnCallingThreadReportsAttempt() throws InterruptedException {
+        final CountDownLatch delivered = new CountDownLatch(1);
+        assertTrue(this.executor.deliver(this.okUrl, post(this.okUrl, delivered), "notification"));
+        assertEquals(0, delivered.getCount());
+
+        for (int i = 0; i < FAILURE_THRESHOLD; i++) {
+            assertTrue("failed deliveries are attempts", this.executor.deliver(this.okUrl, failure(), "failure"));
+        }
+        assertFalse("refused deliveries are not attempts",
+                this.executor.deliver(this.okUrl, post(this.okUrl, null), "refused notification"));
+    }
+
+    private void awaitRefusing(final String url) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + MAX_WAIT_MILLIS;
+        while (!this.executor.isRefusing(url) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(this.executor.isRefusing(url));
+    }
+
+    private void awaitAccepting(final String url) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + MAX_WAIT_MILLIS;
+        while (!this.executor.execute(url, post(url, null), "notification")
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertFalse(this.executor.isRefusing(url));
+    }
+
+    private static NotificationDeliveryExecutor.Delivery post(final String url, final CountDownLatch delivered) {
+        return new NotificationDeliveryExecutor.Delivery() {
+            @Override
+            public void deliver() throws IOException {
+                final HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+                connection.setRequestMethod("POST");
+                connection.setDoOutput(true);
+                try (OutputStream out = connection.getOutputStream()) {
+                    out.write("<notification/>".getBytes(StandardCharsets.UTF_8));
+                }
+                if (connection.getResponseCode() != HttpURLConnection.HTTP_OK) {
+                    throw new IOException("Unexpected response code " + connection.getResponseCode());
+                }
+                if (delivered != null) {
+                    delivered.countDown();
+                }
+            }
+        };
+    }
+
+    private static NotificationDeliveryExecutor.Delivery failure() {
+        return new NotificationDeliveryExecutor.Delivery() {
+            @Override
+            public void deliver() throws IOException {
+                throw new IOException("Connection refused");
+            }
+        };
+    }
+
+    private static void respond(final HttpExchange exchange) throws IOException {
+        exchange.sendResponseHeaders(HttpURLConnection.HTTP_OK, -1);
+        exchange.close();
+    }
+}
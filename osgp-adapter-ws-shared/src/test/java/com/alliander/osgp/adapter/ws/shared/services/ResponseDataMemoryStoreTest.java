@@ -0,0 +1,178 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.adapter.ws.shared.services;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.alliander.osgp.adapter.ws.domain.entities.ResponseData;
+import com.alliander.osgp.shared.infra.jms.ResponseMessageResultType;
+
+public class ResponseDataMemoryStoreTest {
+
+    private static final int CORRELATION_UIDS = 50;
+    private static final int WAITERS_PER_CORRELATION_UID = 10;
+    private static final long WAIT_TIMEOUT = 10000;
+    private static final int MAX_WAITERS = CORRELATION_UIDS * WAITERS_PER_CORRELATION_UID;
+
+    @Test
+    public void testManyConcurrentWaitersAreWokenByPut() throws Exception {
+        final ResponseDataMemoryStore store = new ResponseDataMemoryStore(1000, 60000, WAIT_TIMEOUT, MAX_WAITERS);
+        final int waiterCount = CORRELATION_UIDS * WAITERS_PER_CORRELATION_UID;
+        final ExecutorService executor = Executors.newFixedThreadPool(waiterCount);
+        final CountDownLatch started = new CountDownLatch(waiterCount);
+
+        try {
+            final List<Future<ResponseData>> futures = new ArrayList<>();
+            for (int i = 0; i < waiterCount; i++) {
+                final String correlationUid = correlationUid(i % CORRELATION_UIDS);
+                futures.add(executor.submit(new Callable<ResponseData>() {
+                    @Override
+                    public ResponseData call() throws Exception {
+                        started.countDown();
+                        assertTrue(store.await(correlationUid));
+                        return store.get(correlationUid);
+                    }
+                }));
+            }
+            started.await();
+
+            final long start = System.currentTimeMillis();
+            for (int i = 0; i < CORRELATION_UIDS; i++) {
+                store.put(responseData(correlationUid(i)));
+            }
+
+            for (int i = 0; i < waiterCount; i++) {
+                final ResponseData responseData = futures.get(i).get(WAIT_TIMEOUT, TimeUnit.MILLISECONDS);
+                assertEquals(correlationUid(i % CORRELATION_UIDS), responseData.getCorrelationUid());
+            }
+            assertTrue("waiters must be woken up, not time out",
+                    System.currentTimeMillis() - start < WAIT_TIMEOUT / 2);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testAwaitReturnsRightAwayWhenResponseDataIsPresent() throws Exception {
+        final ResponseDataMemoryStore store = new ResponseDataMemoryStore(10, 60000, WAIT_TIMEOUT, MAX_WAITERS);
+        final ResponseData responseData = responseData(correlationUid(1));
+        store.put(responseData);
+
+        final long start = System.currentTimeMillis();
+        assertTrue(store.await(correlationUid(1)));
+        assertTrue(System.currentTimeMillis() - start < WAIT_TIMEOUT / 2);
+        assertSame(responseData, store.get(correlationUid(1)));
+    }
+
+    @Test
+    public void testAwaitTimesOut() throws Exception {
+        final ResponseDataMemoryStore store = new ResponseDataMemoryStore(10, 60000, 50, MAX_WAITERS);
+
+        assertFalse(store.await(correlationUid(1)));
+        assertNull(store.get(correlationUid(1)));
+    }
+
+    @Test
+    public void testAwaitDoesNotWaitWithoutTimeout() throws Exception {
+        final ResponseDataMemoryStore store = new ResponseDataMemoryStore(10, 60000, 0, MAX_WAITERS);
+
+        assertFalse(store.await(correlationUid(1)));
+    }
+
+    @Test
+    public void testCallsOverTheMaximumDoNotWait() throws Exception {
+        final ResponseDataMemoryStore store = new ResponseDataMemoryStore(10, 60000, WAIT_TIMEOUT, 1);
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            final Future<Boolean> waiting = executor.submit(new Callable<Boolean>() {
+                @Override
+                public Boolean call() throws Exception {
+                    return store.await(correlationUid(1));
+                }
+            });
+            // Give the waiter some time to start waiting.
+            Thread.sleep(100);
+
+            final long start = System.currentTimeMillis();
+            assertFalse(store.await(correlationUid(2)));
+            assertTrue("calls over the maximum must not wait",
+                    System.currentTimeMillis() - start < WAIT_TIMEOUT / 2);
+
+            store.put(responseData(correlationUid(1)));
+            assertTrue(waiting.get(WAIT_TIMEOUT, TimeUnit.MILLISECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testWaiterSlotIsReleasedAfterTimeout() throws Exception {
+        final ResponseDataMemoryStore store = new ResponseDataMemoryStore(10, 60000, 50, 1);
+
+        assertFalse(store.await(correlationUid(1)));
+        store.put(responseData(correlationUid(2)));
+        assertTrue(store.await(correlationUid(2)));
+    }
+
+    @Test
+    public void testExpiredResponseDataIsNotReturned() throws Exception {
+        final ResponseDataMemoryStore store = new ResponseDataMemoryStore(10, 0, WAIT_TIMEOUT, MAX_WAITERS);
+        store.put(responseData(correlationUid(1)));
+
+        assertNull(store.get(correlationUid(1)));
+    }
+
+    @Test
+    public void testWaitersAreWokenWhenStoreIsFull() throws Exception {
+        final ResponseDataMemoryStore store = new ResponseDataMemoryStore(1, 60000, WAIT_TIMEOUT, MAX_WAITERS);
+        store.put(responseData(correlationUid(1)));
+
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            final Future<Boolean> woken = executor.submit(new Callable<Boolean>() {
+                @Override
+                public Boolean call() throws Exception {
+                    return store.await(correlationUid(2));
+                }
+            });
+            // Give the waiter some time to start waiting.
+            Thread.sleep(100);
+            store.put(responseData(correlationUid(2)));
+
+            assertTrue(woken.get(WAIT_TIMEOUT, TimeUnit.MILLISECONDS));
+            // Not kept in memory, the caller has to read it from the table.
+            assertNull(store.get(correlationUid(2)));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static String correlationUid(final int i) {
+        return "organisation|||device-" + i + "|||20170101000000000";
+    }
+
+    private static ResponseData responseData(final String correlationUid) {
+        return new ResponseData("organisation", "GET_STATUS", "device", correlationUid, ResponseMessageResultType.OK,
+                "data", (short) 0);
+    }
+}
@@ -7,8 +7,11 @@
  */
 package com.alliander.osgp.adapter.ws.smartmetering.application.config;
 
+import java.util.Collections;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
@@ -18,11 +21,17 @@ import org.springframework.context.annotation.ImportResource;
 import org.springframework.context.annotation.PropertySource;
 import org.springframework.context.support.PropertySourcesPlaceholderConfigurer;
 import org.springframework.core.io.ClassPathResource;
+import org.springframework.jmx.export.MBeanExporter;
+import org.springframework.jmx.support.RegistrationPolicy;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
 import org.springframework.validation.beanvalidation.LocalValidatorFactoryBean;
 import org.springframework.validation.beanvalidation.MethodValidationPostProcessor;
 
 import com.alliander.osgp.adapter.ws.infra.specifications.JpaEventSpecifications;
+import com.alliander.osgp.adapter.ws.shared.services.ResponseDataMemoryStore;
+import com.alliander.osgp.adapter.ws.smartmetering.application.syncrequest.DelayedNotificationScheduler;
 import com.alliander.osgp.domain.core.specifications.EventSpecifications;
 import com.alliander.osgp.shared.application.config.AbstractConfig;
 import com.alliander.osgp.shared.application.config.PagingSettings;
@@ -45,6 +54,23 @@ public class ApplicationContext extends AbstractConfig {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(ApplicationContext.class);
 
+    private static final String PROPERTY_NAME_RESPONSE_DATA_MEMORY_MAX_ENTRIES = "smartmetering.response.data.memory.max.entries";
+    private static final String PROPERTY_NAME_RESPONSE_DATA_MEMORY_TIME_TO_LIVE = "smartmetering.response.data.memory.time.to.live";
+    private static final String PROPERTY_NAME_RESPONSE_DATA_WAIT_TIMEOUT = "smartmetering.response.data.wait.timeout";
+    private static final String PROPERTY_NAME_RESPONSE_DATA_MAX_WAITERS = "smartmetering.response.data.max.waiters";
+
+    private static final String PROPERTY_NAME_BULK_CHUNK_SIZE = "smartmetering.bulk.chunk.size";
+    private static final String PROPERTY_NAME_BULK_RESULTS_PAGE_SIZE = "smartmetering.bulk.results.page.size";
+    private static final String PROPERTY_NAME_BULK_POOL_SIZE = "smartmetering.bulk.pool.size";
+    private static final String PROPERTY_NAME_BULK_QUEUE_CAPACITY = "smartmetering.bulk.queue.capacity";
+    private static final String PROPERTY_NAME_BULK_DEADLINE = "smartmetering.bulk.deadline";
+    private static final String PROPERTY_NAME_BULK_DEADLINE_CHECK_INTERVAL = "smartmetering.bulk.deadline.check.interval";
+
+    private static final String PROPERTY_NAME_SYNC_NOTIFICATION_POOL_SIZE = "sync.notification.pool.size";
+    private static final String PROPERTY_NAME_SYNC_NOTIFICATION_MAX_PENDING = "sync.notification.max.pending";
+    private static final String PROPERTY_NAME_SYNC_NOTIFICATION_SHUTDOWN_TIMEOUT = "sync.notification.shutdown.timeout";
+    private static final String PROPERTY_NAME_SYNC_NOTIFICATION_JMX_OBJECT_NAME = "sync.notification.jmx.object.name";
+
     /**
      * @return
      */
@@ -86,4 +112,88 @@ public class ApplicationContext extends AbstractConfig {
             @Value("${paging.default.pagesize}") final int defaultPageSize) {
         return new PagingSettings(maximumPageSize, defaultPageSize);
     }
+
+    @Bean
+    public ResponseDataMemoryStore responseDataMemoryStore() {
+        return new ResponseDataMemoryStore(
+                Integer.parseInt(this.environment.getRequiredProperty(PROPERTY_NAME_RESPONSE_DATA_MEMORY_MAX_ENTRIES)),
+                Long.parseLong(this.environment.getRequiredProperty(PROPERTY_NAME_RESPONSE_DATA_MEMORY_TIME_TO_LIVE)),
+                Long.parseLong(this.environment.getRequiredProperty(PROPERTY_NAME_RESPONSE_DATA_WAIT_TIMEOUT)),
+                Integer.parseInt(this.environment.getRequiredProperty(PROPERTY_NAME_RESPONSE_DATA_MAX_WAITERS)));
+    }
+
+    @Bean
+    @Qualifier("wsSmartMeteringBulkChunkSize")
+    public Integer bulkChunkSize() {
+        return Integer.parseInt(this.environment.getRequiredProperty(PROPERTY_NAME_BULK_CHUNK_SIZE));
+    }
+
+    @Bean
+    @Qualifier("wsSmartMeteringBulkResultsPageSize")
+    public Integer bulkResultsPageSize() {
+        return Integer.parseInt(this.environment.getRequiredProperty(PROPERTY_NAME_BULK_RESULTS_PAGE_SIZE));
+    }
+
+    /**
+     * Executor sending the bundles of accepted bulk jobs to their devices.
+     * Bulk jobs that do not fit in the queue fail.
+     */
+    @Bean(destroyMethod = "shutdown")
+    @Qualifier("wsSmartMeteringBulkJobExecutor")
+    public ThreadPoolTaskExecutor bulkJobExecutor() {
+        final ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(Integer.parseInt(this.environment.getRequiredProperty(PROPERTY_NAME_BULK_POOL_SIZE)));
+        executor.setQueueCapacity(
+                Integer.parseInt(this.environment.getRequiredProperty(PROPERTY_NAME_BULK_QUEUE_CAPACITY)));
+        executor.setThreadNamePrefix("bulk-job-");
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        return executor;
+    }
+
+    @Bean
+    @Qualifier("wsSmartMeteringBulkDeadline")
+    public Long bulkDeadline() {
+        return Long.parseLong(this.environment.getRequiredProperty(PROPERTY_NAME_BULK_DEADLINE));
+    }
+
+    @Bean
+    @Qualifier("wsSmartMeteringBulkDeadlineCheckInterval")
+    public Long bulkDeadlineCheckInterval() {
+        return Long.parseLong(this.environment.getRequiredProperty(PROPERTY_NAME_BULK_DEADLINE_CHECK_INTERVAL));
+    }
+
+    /**
+     * Scheduler checking the deadlines of the bulk jobs.
+     */
+    @Bean(destroyMethod = "shutdown")
+    @Qualifier("wsSmartMeteringBulkJobScheduler")
+    public ThreadPoolTaskScheduler bulkJobScheduler() {
+        final ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(1);
+        scheduler.setThreadNamePrefix("bulk-job-monitor-");
+        return scheduler;
+    }
+
+    /**
+     * Sends the delayed notifications of synchronous requests, like find
+     * message logs.
+     */
+    @Bean
+    public DelayedNotificationScheduler delayedNotificationScheduler() {
+        return new DelayedNotificationScheduler(
+                Integer.parseInt(this.environment.getRequiredProperty(PROPERTY_NAME_SYNC_NOTIFICATION_POOL_SIZE)),
+                Integer.parseInt(this.environment.getRequiredProperty(PROPERTY_NAME_SYNC_NOTIFICATION_MAX_PENDING)),
+                Long.parseLong(this.environment.getRequiredProperty(PROPERTY_NAME_SYNC_NOTIFICATION_SHUTDOWN_TIMEOUT)));
+    }
+
+    @Bean
+    public MBeanExporter delayedNotificationSchedulerExporter() {
+        final String objectName = this.environment.getRequiredProperty(PROPERTY_NAME_SYNC_NOTIFICATION_JMX_OBJECT_NAME);
+        LOGGER.info("Exposing delayed notification scheduler through JMX as {}", objectName);
+
+        final MBeanExporter exporter = new MBeanExporter();
+        exporter.setBeans(Collections.<String, Object> singletonMap(objectName, this.delayedNotificationScheduler()));
+        exporter.setRegistrationPolicy(RegistrationPolicy.REPLACE_EXISTING);
+        return exporter;
+    }
 }
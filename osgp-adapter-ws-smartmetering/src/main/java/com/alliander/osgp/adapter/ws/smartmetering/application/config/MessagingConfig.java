@@ -10,6 +10,7 @@ package com.alliander.osgp.adapter.ws.smartmetering.application.config;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
 import org.springframework.context.annotation.PropertySource;
 import org.springframework.jms.core.JmsTemplate;
 import org.springframework.jms.listener.DefaultMessageListenerContainer;
@@ -17,17 +18,28 @@ import org.springframework.jms.listener.DefaultMessageListenerContainer;
 import com.alliander.osgp.adapter.ws.infra.jms.LoggingMessageSender;
 import com.alliander.osgp.adapter.ws.smartmetering.infra.jms.SmartMeteringRequestMessageSender;
 import com.alliander.osgp.adapter.ws.smartmetering.infra.jms.SmartMeteringResponseMessageListener;
+import com.alliander.osgp.domain.core.codec.MessageCodecNegotiator;
+import com.alliander.osgp.domain.core.codec.MessageCodecs;
+import com.alliander.osgp.domain.core.jms.metrics.MessageMetrics;
+import com.alliander.osgp.domain.core.jms.metrics.MessageMetricsConfig;
 import com.alliander.osgp.shared.application.config.AbstractMessagingConfig;
 import com.alliander.osgp.shared.application.config.jms.JmsConfiguration;
 import com.alliander.osgp.shared.application.config.jms.JmsConfigurationFactory;
 import com.alliander.osgp.shared.application.config.jms.JmsConfigurationNames;
 
 @Configuration
+@Import(MessageMetricsConfig.class)
 @PropertySource(value = "classpath:osgp-adapter-ws-smartmetering.properties")
 @PropertySource(value = "file:${osgp/Global/config}", ignoreResourceNotFound = true)
 @PropertySource(value = "file:${osgp/AdapterWsSmartMetering/config}", ignoreResourceNotFound = true)
 public class MessagingConfig extends AbstractMessagingConfig {
 
+    private static final String PROPERTY_NAME_JMS_SMARTMETERING_REQUESTS_MESSAGE_CODEC = "jms.smartmetering.requests.message.codec";
+    private static final String PROPERTY_NAME_JMS_SMARTMETERING_REQUESTS_MESSAGE_CODEC_HOLD_OFF = "jms.smartmetering.requests.message.codec.hold.off";
+
+    @Autowired
+    private MessageMetrics messageMetrics;
+
     @Autowired
     public SmartMeteringResponseMessageListener smartMeteringResponseMessageListener;
 
@@ -40,7 +52,8 @@ public class MessagingConfig extends AbstractMessagingConfig {
     public JmsConfiguration responseJmsConfiguration(final JmsConfigurationFactory jmsConfigurationFactory,
             final SmartMeteringResponseMessageListener smartMeteringResponseMessageListener) {
         return jmsConfigurationFactory.initializeConfiguration(JmsConfigurationNames.JMS_SMARTMETERING_RESPONSES,
-                smartMeteringResponseMessageListener);
+                this.messageMetrics.metered(JmsConfigurationNames.JMS_SMARTMETERING_RESPONSES,
+                        smartMeteringResponseMessageListener));
     }
 
     @Bean
@@ -58,6 +71,15 @@ public class MessagingConfig extends AbstractMessagingConfig {
         return requestJmsConfiguration.getJmsTemplate();
     }
 
+    @Bean(name = "wsSmartMeteringOutgoingRequestsMessageCodecNegotiator")
+    public MessageCodecNegotiator smartMeteringRequestsMessageCodecNegotiator() {
+        return new MessageCodecNegotiator(
+                MessageCodecs.forName(
+                        this.environment.getRequiredProperty(PROPERTY_NAME_JMS_SMARTMETERING_REQUESTS_MESSAGE_CODEC)),
+                Long.parseLong(this.environment
+                        .getRequiredProperty(PROPERTY_NAME_JMS_SMARTMETERING_REQUESTS_MESSAGE_CODEC_HOLD_OFF)));
+    }
+
     @Bean(name = "wsSmartMeteringResponsesMessageListenerContainer")
     public DefaultMessageListenerContainer smartMeteringResponseMessageListenerContainer(
             final JmsConfiguration responseJmsConfiguration) {
@@ -78,5 +100,4 @@ public class MessagingConfig extends AbstractMessagingConfig {
     public LoggingMessageSender loggingMessageSender() {
         return new LoggingMessageSender();
     }
-
 }
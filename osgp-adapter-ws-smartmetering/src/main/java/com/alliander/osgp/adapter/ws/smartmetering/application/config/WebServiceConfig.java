@@ -36,6 +36,7 @@ import com.alliander.osgp.adapter.ws.endpointinterceptors.ScheduleTime;
 import com.alliander.osgp.adapter.ws.endpointinterceptors.SoapHeaderEndpointInterceptor;
 import com.alliander.osgp.adapter.ws.endpointinterceptors.SoapHeaderInterceptor;
 import com.alliander.osgp.adapter.ws.endpointinterceptors.X509CertificateRdnAttributeValueEndpointInterceptor;
+import com.alliander.osgp.adapter.ws.shared.services.NotificationDeliveryExecutor;
 import com.alliander.osgp.adapter.ws.shared.services.NotificationService;
 import com.alliander.osgp.adapter.ws.shared.services.NotificationServiceBlackHole;
 import com.alliander.osgp.adapter.ws.smartmetering.application.exceptionhandling.DetailSoapFaultMappingExceptionResolver;
@@ -97,6 +98,24 @@ public class WebServiceConfig extends AbstractConfig {
     @Value("${web.service.notification.organisation:OSGP}")
     private String webserviceNotificationOrganisation;
 
+    @Value("${web.service.notification.delivery.threads.per.endpoint}")
+    private int notificationDeliveryThreadsPerEndpoint;
+
+    @Value("${web.service.notification.delivery.queue.capacity.per.endpoint}")
+    private int notificationDeliveryQueueCapacityPerEndpoint;
+
+    @Value("${web.service.notification.delivery.failure.threshold}")
+    private int notificationDeliveryFailureThreshold;
+
+    @Value("${web.service.notification.delivery.open.duration}")
+    private long notificationDeliveryOpenDuration;
+
+    @Value("${web.service.notification.delivery.slow.threshold}")
+    private long notificationDeliverySlowThreshold;
+
+    @Value("${web.service.notification.delivery.max.queue.time}")
+    private long notificationDeliveryMaxQueueTime;
+
     @Value("${application.name}")
     private String applicationName;
 
@@ -171,13 +190,28 @@ public class WebServiceConfig extends AbstractConfig {
     @Bean(value = "notificationServiceSmartMetering")
     public NotificationService notificationService() {
         if (this.webserviceNotificationEnabled) {
-            return new NotificationServiceWs(this.createWebServiceTemplateFactory(this.notificationSenderMarshaller()),
-                    this.notificationUrl(), this.notificationUsername(), this.notificationOrganisation());
+            final NotificationServiceWs notificationService = new NotificationServiceWs(
+                    this.createWebServiceTemplateFactory(this.notificationSenderMarshaller()), this.notificationUrl(),
+                    this.notificationUsername(), this.notificationOrganisation());
+            notificationService.setNotificationDeliveryExecutor(this.notificationDeliveryExecutor());
+            return notificationService;
         } else {
             return new NotificationServiceBlackHole();
         }
     }
 
+    /**
+     * Sends notifications off the JMS listener threads, with a bounded pool
+     * and a circuit breaker per notification endpoint.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public NotificationDeliveryExecutor notificationDeliveryExecutor() {
+        return new NotificationDeliveryExecutor(this.notificationDeliveryThreadsPerEndpoint,
+                this.notificationDeliveryQueueCapacityPerEndpoint, this.notificationDeliveryFailureThreshold,
+                this.notificationDeliveryOpenDuration, this.notificationDeliverySlowThreshold,
+                this.notificationDeliveryMaxQueueTime);
+    }
+
     // Client WS code
 
     /**
@@ -0,0 +1,99 @@
+/**
+ * Copyright 2018 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.adapter.ws.smartmetering.application.services;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Service;
+
+import com.alliander.osgp.adapter.ws.smartmetering.domain.entities.BulkJob;
+
+/**
+ * Expires the bulk jobs that will not complete by themselves, so they still
+ * complete and notify their organisation.
+ *
+ * The bundles of a job are sent from memory, see
+ * {@link BundleService#enqueueBulkBundleRequest}. When the application stops
+ * while sending a job, the devices the bundle was not sent to yet would never
+ * get a result. Those jobs expire when the application has started. This
+ * assumes the bulk jobs in the database are sent by this application only.
+ *
+ * A job also does not complete when a response gets lost, for instance when
+ * the request expires on its queue. Every check interval, the jobs that have
+ * not completed before their deadline expire.
+ */
+@Service(value = "wsSmartMeteringBulkJobMonitor")
+public class BulkJobMonitor implements ApplicationListener<ContextRefreshedEvent> {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BulkJobMonitor.class);
+
+    public static final String APPLICATION_STOPPED = "The application stopped while handling the bulk job.";
+
+    public static final String DEADLINE_PASSED = "No response was received before the deadline of the bulk job.";
+
+    @Autowired
+    private BulkJobService bulkJobService;
+
+    @Autowired
+    @Qualifier("wsSmartMeteringBulkJobScheduler")
+    private TaskScheduler taskScheduler;
+
+    @Autowired
+    @Qualifier("wsSmartMeteringBulkDeadlineCheckInterval")
+    private Long checkInterval;
+
+    private final AtomicBoolean started = new AtomicBoolean();
+
+    @Override
+    public void onApplicationEvent(final ContextRefreshedEvent event) {
+        // The refreshes of child contexts, such as those of the servlets, are
+        // published to this context as well.
+        if (!this.started.compareAndSet(false, true)) {
+            return;
+        }
+        this.expireJobsBeingSent();
+        this.taskScheduler.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                BulkJobMonitor.this.expireJobsPastDeadline();
+            }
+        }, this.checkInterval);
+    }
+
+    /**
+     * Expires the jobs that were being sent when the application stopped.
+     */
+    public void expireJobsBeingSent() {
+        this.expire(this.bulkJobService.findJobsBeingSent(), APPLICATION_STOPPED);
+    }
+
+    public void expireJobsPastDeadline() {
+        this.expire(this.bulkJobService.findJobsPastDeadline(), DEADLINE_PASSED);
+    }
+
+    private void expire(final List<String> jobIds, final String resultDescription) {
+        for (final String jobId : jobIds) {
+            try {
+                final BulkJob job = this.bulkJobService.expire(jobId, resultDescription);
+                if (job != null) {
+                    this.bulkJobService.sendCompletedNotification(job);
+                }
+            } catch (final RuntimeException e) {
+                LOGGER.error("Bulk job {} could not be expired, trying again at the next check", jobId, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,312 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.adapter.ws.smartmetering.application.services;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.alliander.osgp.adapter.ws.schema.smartmetering.notification.NotificationType;
+import com.alliander.osgp.adapter.ws.shared.services.NotificationService;
+import com.alliander.osgp.adapter.ws.smartmetering.domain.entities.BulkJob;
+import com.alliander.osgp.adapter.ws.smartmetering.domain.entities.BulkJobDevices;
+import com.alliander.osgp.adapter.ws.smartmetering.domain.entities.BulkJobItem;
+import com.alliander.osgp.adapter.ws.smartmetering.domain.repositories.BulkJobDevicesRepository;
+import com.alliander.osgp.adapter.ws.smartmetering.domain.repositories.BulkJobItemRepository;
+import com.alliander.osgp.adapter.ws.smartmetering.domain.repositories.BulkJobRepository;
+import com.alliander.osgp.domain.core.valueobjects.DeviceFunction;
+import com.alliander.osgp.shared.exceptionhandling.ComponentType;
+import com.alliander.osgp.shared.exceptionhandling.FunctionalException;
+import com.alliander.osgp.shared.exceptionhandling.FunctionalExceptionType;
+import com.alliander.osgp.shared.infra.jms.ResponseMessageResultType;
+
+/**
+ * Keeps track of the bulk jobs, which send a bundle to many devices: stores
+ * the request of each device, counts the responses and returns the results of
+ * a job page by page. Jobs that will not complete by themselves are expired,
+ * see {@link #expire(String, String)}.
+ */
+@Service(value = "wsSmartMeteringBulkJobService")
+@Transactional(value = "transactionManager")
+public class BulkJobService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BulkJobService.class);
+
+    /**
+     * The message of the notification of a completed bulk job.
+     */
+    public static final String COMPLETED_MESSAGE = "Bulk job completed";
+
+    @Autowired
+    private BulkJobRepository bulkJobRepository;
+
+    @Autowired
+    private BulkJobItemRepository bulkJobItemRepository;
+
+    @Autowired
+    private BulkJobDevicesRepository bulkJobDevicesRepository;
+
+    @Autowired
+    private NotificationService notificationService;
+
+    @Autowired
+    @Qualifier("wsSmartMeteringBulkResultsPageSize")
+    private Integer resultsPageSize;
+
+    @Autowired
+    @Qualifier("wsSmartMeteringBulkDeadline")
+    private Long deadline;
+
+    public BulkJobService() {
+        // Parameterless constructor required for transactions
+    }
+
+    /**
+     * Creates a job for the devices, which expires when it has not completed
+     * within the configured deadline.
+     */
+    public BulkJob createJob(final String jobId, final String organisationIdentification,
+            final List<String> deviceIdentifications) {
+        this.bulkJobDevicesRepository.save(new BulkJobDevices(jobId, deviceIdentifications));
+        final Date deadlineTime = new Date(System.currentTimeMillis() + this.deadline);
+        return this.bulkJobRepository.save(
+                new BulkJob(jobId, organisationIdentification, deviceIdentifications.size(), deadlineTime));
+    }
+
+    /**
+     * Stores the requests of the next part of the devices of a job. The
+     * requests are committed before the bundles are sent, so every response
+     * finds the request of its device.
+     *
+     * @return The job, when the rejected and failed devices of this part were
+     *         the last devices of the job without a result, or null otherwise.
+     * @throws IllegalStateException
+     *             when the job has expired, no more requests of the job are
+     *             stored and no more bundles should be sent.
+     */
+    public BulkJob saveItems(final String jobId, final List<BulkJobItem> items) {
+        final BulkJob job = this.bulkJobRepository.findAndLockByJobId(jobId);
+        if (job.isExpired()) {
+            throw new IllegalStateException("Bulk job " + jobId + " has expired");
+        }
+        job.addItems(items.size());
+        this.bulkJobItemRepository.save(items);
+        return this.countResults(jobId, items);
+    }
+
+    /**
+     * Fails the stored requests of devices the bundle could not be sent to.
+     *
+     * @return The job, when these were the last devices of the job without a
+     *         result, or null otherwise.
+     */
+    public BulkJob failItems(final String jobId, final List<BulkJobItem> items, final String resultDescription) {
+        final BulkJob job = this.bulkJobRepository.findAndLockByJobId(jobId);
+        if (job.isExpired()) {
+            // The items failed when the job expired.
+            return null;
+        }
+        for (final BulkJobItem item : items) {
+            item.complete(BulkJobItem.Status.FAILED, resultDescription, null);
+        }
+        this.bulkJobItemRepository.save(items);
+        return this.countResults(jobId, items);
+    }
+
+    /**
+     * @return The ids of the jobs that have not completed before their
+     *         deadline.
+     */
+    @Transactional(value = "transactionManager", readOnly = true)
+    public List<String> findJobsPastDeadline() {
+        return this.bulkJobRepository.findJobIdsNotCompletedBefore(new Date());
+    }
+
+    /**
+     * @return The ids of the jobs of which not all requests have been stored
+     *         yet.
+     */
+    @Transactional(value = "transactionManager", readOnly = true)
+    public List<String> findJobsBeingSent() {
+        return this.bulkJobRepository.findJobIdsBeingSent();
+    }
+
+    /**
+     * Expires a job that will not complete by itself: fails the devices that
+     * are still waiting for a response, and the devices the bundle was never
+     * sent to, so every device of the job has a result. A response that
+     * arrives after the job expired is ignored. Once the job has expired, no
+     * more requests of the job are stored, see
+     * {@link #saveItems(String, List)}.
+     *
+     * @return The job, which has completed, or null when the job had already
+     *         completed or expired.
+     */
+    public BulkJob expire(final String jobId, final String resultDescription) {
+        final BulkJob job = this.bulkJobRepository.findAndLockByJobId(jobId);
+        if (job.isExpired() || job.isCompleted()) {
+            return null;
+        }
+        job.expire();
+
+        final List<BulkJobItem> pendingItems = this.bulkJobItemRepository.findByJobIdAndStatus(jobId,
+                BulkJobItem.Status.PENDING);
+        for (final BulkJobItem item : pendingItems) {
+            item.complete(BulkJobItem.Status.FAILED, resultDescription, null);
+        }
+
+        final List<String> deviceIdentifications = this.bulkJobDevicesRepository.findByJobId(jobId)
+                .getDeviceIdentifications();
+        final List<BulkJobItem> unsentItems = new ArrayList<>();
+        for (final String deviceIdentification : deviceIdentifications.subList(job.getNumberOfItems(),
+                deviceIdentifications.size())) {
+            unsentItems.add(BulkJobItem.failed(jobId, deviceIdentification, resultDescription));
+        }
+        job.addItems(unsentItems.size());
+
+        LOGGER.warn("Bulk job {} expired, failing {} devices without a response and {} devices without a request",
+                jobId, pendingItems.size(), unsentItems.size());
+        this.bulkJobItemRepository.save(pendingItems);
+        this.bulkJobItemRepository.save(unsentItems);
+        return this.addResults(jobId, 0, 0, pendingItems.size() + unsentItems.size());
+    }
+
+    /**
+     * Notifies the organisation of a job that the job has completed.
+     *
+     * The notification schema has no notification type for bulk jobs, so the
+     * notification has type HANDLE_BUNDLED_ACTIONS, like the notification of
+     * the bundle of a single device. A bulk job notification is recognized by
+     * its device identification {@link BulkJob#DEVICE_IDENTIFICATION} and its
+     * message {@link #COMPLETED_MESSAGE}. Its correlation UID is the job id.
+     * There is no bundle response for the job id: the results of the devices
+     * of the job are retrieved with {@link #findResults(String, String, int)}.
+     */
+    @Transactional(value = "transactionManager", propagation = Propagation.NOT_SUPPORTED)
+    public void sendCompletedNotification(final BulkJob job) {
+        LOGGER.info("Bulk job {} completed: {} succeeded, {} failed, {} rejected", job.getJobId(),
+                job.getNumberOfSucceeded(), job.getNumberOfFailed(), job.getNumberOfRejected());
+        this.notificationService.sendNotification(job.getOrganisationIdentification(), BulkJob.DEVICE_IDENTIFICATION,
+                ResponseMessageResultType.OK.name(), job.getJobId(), COMPLETED_MESSAGE,
+                NotificationType.valueOf(DeviceFunction.HANDLE_BUNDLED_ACTIONS.name()));
+    }
+
+    @Transactional(value = "transactionManager", readOnly = true)
+    public boolean isBulkRequest(final String correlationUid) {
+        return this.bulkJobItemRepository.findJobIdByCorrelationUid(correlationUid) != null;
+    }
+
+    /**
+     * Stores the result of the bundle of one device of a job.
+     *
+     * @return The job, when this was the last response of the job, or null
+     *         otherwise.
+     */
+    public BulkJob handleResponse(final String correlationUid, final ResponseMessageResultType resultType,
+            final String resultDescription, final Serializable result) {
+        final String jobId = this.bulkJobItemRepository.findJobIdByCorrelationUid(correlationUid);
+        if (jobId == null) {
+            LOGGER.warn("Ignoring response with correlationUid {}, it is not a bulk request", correlationUid);
+            return null;
+        }
+
+        // Read the item after locking the job, so it is not completed by the
+        // expiry of the job in the meantime.
+        this.bulkJobRepository.findAndLockByJobId(jobId);
+        final BulkJobItem item = this.bulkJobItemRepository.findByCorrelationUid(correlationUid);
+        if (!item.isPending()) {
+            LOGGER.warn("Ignoring response with correlationUid {}, it is not a pending bulk request", correlationUid);
+            return null;
+        }
+
+        final BulkJobItem.Status status = resultType == ResponseMessageResultType.OK ? BulkJobItem.Status.OK
+                : BulkJobItem.Status.NOT_OK;
+        item.complete(status, resultDescription, result);
+        this.bulkJobItemRepository.save(item);
+
+        return status == BulkJobItem.Status.OK ? this.addResults(item.getJobId(), 0, 1, 0)
+                : this.addResults(item.getJobId(), 0, 0, 1);
+    }
+
+    @Transactional(value = "transactionManager", readOnly = true)
+    public BulkJob getJob(final String organisationIdentification, final String jobId) throws FunctionalException {
+        final BulkJob job = this.bulkJobRepository.findByJobId(jobId);
+        if (job == null) {
+            throw new FunctionalException(FunctionalExceptionType.VALIDATION_ERROR, ComponentType.WS_SMART_METERING,
+                    new Exception("Unknown bulk job: " + jobId));
+        }
+        if (!job.getOrganisationIdentification().equals(organisationIdentification)) {
+            throw new FunctionalException(FunctionalExceptionType.UNAUTHORIZED, ComponentType.WS_SMART_METERING);
+        }
+        return job;
+    }
+
+    /**
+     * Returns the results of the devices of a job, in the order of the
+     * request.
+     */
+    @Transactional(value = "transactionManager", readOnly = true)
+    public Page<BulkJobItem> findResults(final String organisationIdentification, final String jobId,
+            final int pageNumber) throws FunctionalException {
+        this.getJob(organisationIdentification, jobId);
+
+        final PageRequest request = new PageRequest(pageNumber, this.resultsPageSize, Sort.Direction.ASC, "id");
+        return this.bulkJobItemRepository.findByJobId(jobId, request);
+    }
+
+    /**
+     * Counts the rejected and failed items of a job.
+     *
+     * @return The job, when these results completed the job, or null
+     *         otherwise.
+     */
+    private BulkJob countResults(final String jobId, final List<BulkJobItem> items) {
+        int rejected = 0;
+        int failed = 0;
+        for (final BulkJobItem item : items) {
+            if (item.getStatus() == BulkJobItem.Status.REJECTED) {
+                rejected++;
+            } else if (item.getStatus() == BulkJobItem.Status.FAILED) {
+                failed++;
+            }
+        }
+        if (rejected == 0 && failed == 0) {
+            return null;
+        }
+
+        return this.addResults(jobId, rejected, 0, failed);
+    }
+
+    /**
+     * Counts results of the devices of a job.
+     *
+     * @return The job, when these results completed the job, or null
+     *         otherwise.
+     */
+    private BulkJob addResults(final String jobId, final int rejected, final int succeeded, final int failed) {
+        // The update of the counters clears the persistence context, and only
+        // flushes changes to the bulk_job table itself. Flush the items first,
+        // so their results are not discarded while the counters go up.
+        this.bulkJobItemRepository.flush();
+        this.bulkJobRepository.addResults(jobId, rejected, succeeded, failed);
+        final BulkJob job = this.bulkJobRepository.findByJobId(jobId);
+        return job.isCompleted() ? job : null;
+    }
+}
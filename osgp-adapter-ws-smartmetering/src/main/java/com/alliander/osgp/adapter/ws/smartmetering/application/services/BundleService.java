@@ -7,15 +7,24 @@
  */
 package com.alliander.osgp.adapter.ws.smartmetering.application.services;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.jms.JmsException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.validation.annotation.Validated;
 
+import com.alliander.osgp.adapter.ws.smartmetering.domain.entities.BulkJob;
+import com.alliander.osgp.adapter.ws.smartmetering.domain.entities.BulkJobItem;
 import com.alliander.osgp.adapter.ws.smartmetering.infra.jms.SmartMeteringRequestMessage;
 import com.alliander.osgp.adapter.ws.smartmetering.infra.jms.SmartMeteringRequestMessageSender;
 import com.alliander.osgp.adapter.ws.smartmetering.infra.jms.SmartMeteringRequestMessageType;
@@ -25,7 +34,9 @@ import com.alliander.osgp.domain.core.services.CorrelationIdProviderService;
 import com.alliander.osgp.domain.core.valueobjects.DeviceFunction;
 import com.alliander.osgp.domain.core.valueobjects.smartmetering.ActionRequest;
 import com.alliander.osgp.domain.core.valueobjects.smartmetering.BundleMessageRequest;
+import com.alliander.osgp.shared.exceptionhandling.ComponentType;
 import com.alliander.osgp.shared.exceptionhandling.FunctionalException;
+import com.alliander.osgp.shared.exceptionhandling.FunctionalExceptionType;
 import com.alliander.osgp.shared.infra.jms.DeviceMessageMetadata;
 
 @Service(value = "wsSmartMeteringBundleService")
@@ -35,6 +46,10 @@ public class BundleService {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(BundleService.class);
 
+    private static final String SEND_FAILED = "The bundle could not be sent to the device.";
+
+    private static final String START_FAILED = "The bulk job could not be started.";
+
     @Autowired
     private DomainHelperService domainHelperService;
 
@@ -44,6 +59,17 @@ public class BundleService {
     @Autowired
     private SmartMeteringRequestMessageSender smartMeteringRequestMessageSender;
 
+    @Autowired
+    private BulkJobService bulkJobService;
+
+    @Autowired
+    @Qualifier("wsSmartMeteringBulkChunkSize")
+    private Integer bulkChunkSize;
+
+    @Autowired
+    @Qualifier("wsSmartMeteringBulkJobExecutor")
+    private TaskExecutor bulkJobExecutor;
+
     public BundleService() {
         // Parameterless constructor required for transactions
     }
@@ -61,19 +87,182 @@ public class BundleService {
         final String correlationUid = this.correlationIdProviderService.getCorrelationId(organisationIdentification,
                 deviceIdentification);
 
+        this.smartMeteringRequestMessageSender.send(this.createBundleRequestMessage(organisationIdentification,
+                deviceIdentification, correlationUid, actionList, messagePriority, bypassRetry));
+
+        return correlationUid;
+    }
+
+    /**
+     * Sends the same bundle to many devices, as one bulk job. The job keeps
+     * the result of every device, which can be retrieved page by page with
+     * {@link BulkJobService#findResults(String, String, int)}. A notification
+     * is sent when the responses of all devices have been received, see
+     * {@link BulkJobService#sendCompletedNotification(BulkJob)}.
+     *
+     * The job is accepted when the organisation and the actions are valid,
+     * the bundles are sent to the devices in the background afterwards. The
+     * devices are handled in chunks. The bundle is not sent to devices that
+     * are unknown or that the organisation is not allowed to send the bundle
+     * to, these devices are rejected in the results of the job. No transaction
+     * spans the whole job: the requests of every chunk are committed before
+     * the bundles of the chunk are sent. When a bundle cannot be sent, or the
+     * job cannot be started, no more bundles are sent and the devices without
+     * a sent bundle fail, so the job still completes. A job that is being
+     * handled when the application stops is not resumed, and a job that
+     * misses responses does not complete by itself: these jobs expire, see
+     * {@link BulkJobMonitor}.
+     *
+     * @return The job id.
+     * @throws FunctionalException
+     *             when the organisation is unknown or an action in the bundle
+     *             is not valid
+     */
+    @Transactional(value = "transactionManager", propagation = Propagation.NOT_SUPPORTED)
+    public String enqueueBulkBundleRequest(final String organisationIdentification,
+            final List<String> deviceIdentifications, final List<ActionRequest> actionList,
+            final int messagePriority, final boolean bypassRetry) throws FunctionalException {
+
+        final Organisation organisation = this.domainHelperService.findOrganisation(organisationIdentification);
+        if (deviceIdentifications.isEmpty()) {
+            throw new FunctionalException(FunctionalExceptionType.VALIDATION_ERROR, ComponentType.WS_SMART_METERING,
+                    new Exception("A bulk bundle request needs at least one device."));
+        }
+        for (final ActionRequest action : actionList) {
+            action.validate();
+        }
+
+        final String jobId = this.correlationIdProviderService.getCorrelationId(organisationIdentification,
+                BulkJob.DEVICE_IDENTIFICATION);
+        this.bulkJobService.createJob(jobId, organisationIdentification, deviceIdentifications);
+        LOGGER.info("Bulk bundle request {} called with organisation {} for {} devices", jobId,
+                organisationIdentification, deviceIdentifications.size());
+
+        final List<String> devices = new ArrayList<>(deviceIdentifications);
+        final List<ActionRequest> actions = new ArrayList<>(actionList);
+        try {
+            this.bulkJobExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        BundleService.this.sendBulkBundles(jobId, organisation, devices, actions, messagePriority,
+                                bypassRetry);
+                    } catch (final RuntimeException e) {
+                        LOGGER.error("Bulk bundle request {} stopped sending bundles", jobId, e);
+                    }
+                }
+            });
+        } catch (final TaskRejectedException e) {
+            LOGGER.error("Bulk bundle request {} could not be started", jobId, e);
+            this.failUnsentDevices(jobId, Collections.<BulkJobItem> emptyList(), devices, START_FAILED);
+        }
+
+        return jobId;
+    }
+
+    /**
+     * Sends the bundle of a bulk job to its devices, chunk by chunk.
+     */
+    private void sendBulkBundles(final String jobId, final Organisation organisation,
+            final List<String> deviceIdentifications, final List<ActionRequest> actionList,
+            final int messagePriority, final boolean bypassRetry) {
+
+        final String organisationIdentification = organisation.getOrganisationIdentification();
+        for (int from = 0; from < deviceIdentifications.size(); from += this.bulkChunkSize) {
+            final int to = Math.min(from + this.bulkChunkSize, deviceIdentifications.size());
+            final List<BulkJobItem> items = new ArrayList<>(to - from);
+            final List<BulkJobItem> pendingItems = new ArrayList<>(to - from);
+            final List<SmartMeteringRequestMessage> messages = new ArrayList<>(to - from);
+
+            for (final String deviceIdentification : deviceIdentifications.subList(from, to)) {
+                try {
+                    final Device device = this.domainHelperService.findActiveDevice(deviceIdentification);
+                    this.checkIfDeviceIsAllowed(actionList, organisation, device);
+
+                    final String correlationUid = this.correlationIdProviderService
+                            .getCorrelationId(organisationIdentification, deviceIdentification);
+                    final BulkJobItem item = BulkJobItem.pending(jobId, deviceIdentification, correlationUid);
+                    items.add(item);
+                    pendingItems.add(item);
+                    messages.add(this.createBundleRequestMessage(organisationIdentification, deviceIdentification,
+                            correlationUid, actionList, messagePriority, bypassRetry));
+                } catch (final FunctionalException e) {
+                    LOGGER.info("Bulk bundle request {} rejected device {}: {}", jobId, deviceIdentification,
+                            e.getMessage());
+                    items.add(BulkJobItem.rejected(jobId, deviceIdentification, e.getMessage()));
+                }
+            }
+
+            this.notifyWhenCompleted(this.bulkJobService.saveItems(jobId, items));
+
+            final int sent = this.send(jobId, messages);
+            if (sent < messages.size()) {
+                this.failUnsentDevices(jobId, pendingItems.subList(sent, pendingItems.size()),
+                        deviceIdentifications.subList(to, deviceIdentifications.size()), SEND_FAILED);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Sends the requests of a chunk of a bulk job, until sending fails.
+     *
+     * @return The number of requests sent.
+     */
+    private int send(final String jobId, final List<SmartMeteringRequestMessage> messages) {
+        for (int i = 0; i < messages.size(); i++) {
+            try {
+                this.smartMeteringRequestMessageSender.send(messages.get(i));
+            } catch (final JmsException e) {
+                LOGGER.error("Bulk bundle request {} failed to send the bundle to device {}", jobId,
+                        messages.get(i).getDeviceIdentification(), e);
+                return i;
+            }
+        }
+        return messages.size();
+    }
+
+    /**
+     * Fails the devices of a bulk job the bundle was not sent to after sending
+     * failed: the stored requests that were not sent, and the devices of the
+     * chunks that were not handled yet. Every device of the job then has a
+     * result, so the job completes once the sent requests have been answered.
+     */
+    private void failUnsentDevices(final String jobId, final List<BulkJobItem> unsentItems,
+            final List<String> remainingDeviceIdentifications, final String resultDescription) {
+        if (!unsentItems.isEmpty()) {
+            this.notifyWhenCompleted(
+                    this.bulkJobService.failItems(jobId, new ArrayList<>(unsentItems), resultDescription));
+        }
+
+        if (!remainingDeviceIdentifications.isEmpty()) {
+            final List<BulkJobItem> failedItems = new ArrayList<>(remainingDeviceIdentifications.size());
+            for (final String deviceIdentification : remainingDeviceIdentifications) {
+                failedItems.add(BulkJobItem.failed(jobId, deviceIdentification, resultDescription));
+            }
+            this.notifyWhenCompleted(this.bulkJobService.saveItems(jobId, failedItems));
+        }
+    }
+
+    private void notifyWhenCompleted(final BulkJob job) {
+        if (job != null) {
+            this.bulkJobService.sendCompletedNotification(job);
+        }
+    }
+
+    private SmartMeteringRequestMessage createBundleRequestMessage(final String organisationIdentification,
+            final String deviceIdentification, final String correlationUid, final List<ActionRequest> actionList,
+            final int messagePriority, final boolean bypassRetry) {
+
         final DeviceMessageMetadata deviceMessageMetadata = new DeviceMessageMetadata(deviceIdentification,
                 organisationIdentification, correlationUid,
                 SmartMeteringRequestMessageType.HANDLE_BUNDLED_ACTIONS.toString(), messagePriority);
         deviceMessageMetadata.setBypassRetry(bypassRetry);
 
         // @formatter:off
-        final SmartMeteringRequestMessage message = new SmartMeteringRequestMessage.Builder()
+        return new SmartMeteringRequestMessage.Builder()
                 .deviceMessageMetadata(deviceMessageMetadata).request(new BundleMessageRequest(actionList)).build();
         // @formatter:on
-
-        this.smartMeteringRequestMessageSender.send(message);
-
-        return correlationUid;
     }
 
     /**
@@ -92,10 +281,21 @@ public class BundleService {
      */
     private void checkIfBundleIsAllowed(final List<ActionRequest> actionList, final Organisation organisation,
             final Device device) throws FunctionalException {
+        this.checkIfDeviceIsAllowed(actionList, organisation, device);
+        for (final ActionRequest action : actionList) {
+            action.validate();
+        }
+    }
+
+    /**
+     * checks if the organisation is allowed to send the bundle and the
+     * {@link ActionRequest}s in the bundle to the device
+     */
+    private void checkIfDeviceIsAllowed(final List<ActionRequest> actionList, final Organisation organisation,
+            final Device device) throws FunctionalException {
         this.domainHelperService.isAllowed(organisation, device, DeviceFunction.HANDLE_BUNDLED_ACTIONS);
         for (final ActionRequest action : actionList) {
             this.domainHelperService.isAllowed(organisation, device, action.getDeviceFunction());
-            action.validate();
         }
     }
 
@@ -0,0 +1,145 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.adapter.ws.smartmetering.application.syncrequest;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+/**
+ * Runs the delayed notifications of synchronous requests on a fixed number of
+ * threads.
+ *
+ * The number of pending notifications is bounded. When the maximum is
+ * reached, or the scheduler is shut down, a notification is dropped instead
+ * of being sent before the response of the request it belongs to. The
+ * response data of a dropped notification is still stored, so the
+ * notification is sent by the resend notification job. On shutdown, pending
+ * notifications are still sent, waiting at most the shutdown timeout.
+ */
+public class DelayedNotificationScheduler implements DelayedNotificationSchedulerMXBean, DisposableBean {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DelayedNotificationScheduler.class);
+
+    private final ScheduledThreadPoolExecutor executor;
+    private final int maxPendingNotifications;
+    private final long shutdownTimeout;
+
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    private final AtomicLong scheduledCount = new AtomicLong();
+    private final AtomicLong sentCount = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+
+    /**
+     * @param poolSize
+     *            The number of threads sending delayed notifications.
+     * @param maxPendingNotifications
+     *            The maximum number of notifications waiting to be sent.
+     * @param shutdownTimeout
+     *            The time in milliseconds to wait for pending notifications on
+     *            shutdown.
+     */
+    public DelayedNotificationScheduler(final int poolSize, final int maxPendingNotifications,
+            final long shutdownTimeout) {
+        final CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("sync-notification-");
+        threadFactory.setDaemon(true);
+        this.executor = new ScheduledThreadPoolExecutor(poolSize, threadFactory);
+        this.executor.setRemoveOnCancelPolicy(true);
+        this.maxPendingNotifications = maxPendingNotifications;
+        this.shutdownTimeout = shutdownTimeout;
+    }
+
+    /**
+     * Runs the notification after the delay. Drops the notification if too
+     * many notifications are pending or the scheduler is shut down.
+     */
+    public void schedule(final Runnable notification, final long delay) {
+        if (this.pendingCount.incrementAndGet() > this.maxPendingNotifications) {
+            this.pendingCount.decrementAndGet();
+            this.droppedCount.incrementAndGet();
+            LOGGER.warn("Too many pending notifications, dropping notification, it is sent by the resend job");
+            return;
+        }
+
+        try {
+            this.executor.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    DelayedNotificationScheduler.this.pendingCount.decrementAndGet();
+                    DelayedNotificationScheduler.this.run(notification);
+                }
+            }, delay, TimeUnit.MILLISECONDS);
+            this.scheduledCount.incrementAndGet();
+        } catch (final RejectedExecutionException e) {
+            this.pendingCount.decrementAndGet();
+            this.droppedCount.incrementAndGet();
+            LOGGER.warn("Scheduler is shut down, dropping notification, it is sent by the resend job", e);
+        }
+    }
+
+    @Override
+    public int getPendingCount() {
+        return this.pendingCount.get();
+    }
+
+    @Override
+    public long getScheduledCount() {
+        return this.scheduledCount.get();
+    }
+
+    @Override
+    public long getSentCount() {
+        return this.sentCount.get();
+    }
+
+    @Override
+    public long getDroppedCount() {
+        return this.droppedCount.get();
+    }
+
+    @Override
+    public long getFailedCount() {
+        return this.failedCount.get();
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        LOGGER.info("Shutting down {}", this);
+        this.executor.shutdown();
+        if (!this.executor.awaitTermination(this.shutdownTimeout, TimeUnit.MILLISECONDS)) {
+            LOGGER.warn("{} delayed notifications were not sent before shutdown",
+                    this.executor.shutdownNow().size());
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "DelayedNotificationScheduler[pending=%d, scheduled=%d, sent=%d, dropped=%d, failed=%d]",
+                this.getPendingCount(), this.getScheduledCount(), this.getSentCount(), this.getDroppedCount(),
+                this.getFailedCount());
+    }
+
+    private void run(final Runnable notification) {
+        try {
+            notification.run();
+            this.sentCount.incrementAndGet();
+        } catch (final RuntimeException e) {
+            this.failedCount.incrementAndGet();
+            LOGGER.error("Error sending delayed notification", e);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.adapter.ws.smartmetering.application.syncrequest;
+
+/**
+ * Management interface of the {@link DelayedNotificationScheduler}.
+ */
+public interface DelayedNotificationSchedulerMXBean {
+
+    int getPendingCount();
+
+    long getScheduledCount();
+
+    long getSentCount();
+
+    long getDroppedCount();
+
+    long getFailedCount();
+}
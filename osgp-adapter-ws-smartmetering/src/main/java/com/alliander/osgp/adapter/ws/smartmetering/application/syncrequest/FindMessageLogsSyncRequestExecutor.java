@@ -8,8 +8,11 @@
 package com.alliander.osgp.adapter.ws.smartmetering.application.syncrequest;
 
 import java.io.Serializable;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
@@ -29,6 +32,9 @@ public class FindMessageLogsSyncRequestExecutor extends SyncRequestExecutor {
     @Autowired
     private PagingSettings pagingSettings;
 
+    @Value("${message.logs.max.age.days:0}")
+    private int messageLogsMaxAgeDays;
+
     public FindMessageLogsSyncRequestExecutor() {
         super(DeviceFunction.GET_MESSAGES);
     }
@@ -40,11 +46,17 @@ public class FindMessageLogsSyncRequestExecutor extends SyncRequestExecutor {
             final PageRequest request = new PageRequest(pageNumber, this.pagingSettings.getMaximumPageSize(),
                     Sort.Direction.DESC, "modificationTime");
 
+            final boolean hasDevice = deviceIdentification != null && !deviceIdentification.isEmpty();
             Page<DeviceLogItem> pages = null;
-            if (deviceIdentification != null && !deviceIdentification.isEmpty()) {
-                pages = this.logItemRepository.findByDeviceIdentification(deviceIdentification, request);
+            if (this.messageLogsMaxAgeDays <= 0) {
+                pages = hasDevice ? this.logItemRepository.findByDeviceIdentification(deviceIdentification, request)
+                        : this.logItemRepository.findAll(request);
             } else {
-                pages = this.logItemRepository.findAll(request);
+                final Date from = new Date(
+                        System.currentTimeMillis() - TimeUnit.DAYS.toMillis(this.messageLogsMaxAgeDays));
+                pages = hasDevice ? this.logItemRepository.findByDeviceIdentificationAndModificationTimeAfter(
+                        deviceIdentification, from, request)
+                        : this.logItemRepository.findByModificationTimeAfter(from, request);
             }
 
             this.postExecute(organisationIdentification, deviceIdentification, correlationUid, (Serializable) pages);
@@ -36,6 +36,9 @@ public abstract class SyncRequestExecutor {
     @Autowired
     private NotificationService notificationService;
 
+    @Autowired
+    private DelayedNotificationScheduler delayedNotificationScheduler;
+
     @Autowired
     private ResponseDataService responseDataService;
 
@@ -66,7 +69,7 @@ public abstract class SyncRequestExecutor {
 
         // Delay execution so the notification will not arrive before the
         // response of this call.
-        new java.util.Timer().schedule(new java.util.TimerTask() {
+        this.delayedNotificationScheduler.schedule(new Runnable() {
             @Override
             public void run() {
                 SyncRequestExecutor.this.sendNotification(organisationIdentification, deviceIdentification,
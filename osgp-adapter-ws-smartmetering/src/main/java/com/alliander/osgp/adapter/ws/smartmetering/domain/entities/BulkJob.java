@@ -0,0 +1,154 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.adapter.ws.smartmetering.domain.entities;
+
+import java.util.Date;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Table;
+
+import com.alliander.osgp.shared.domain.entities.AbstractEntity;
+
+/**
+ * A bulk request of one organisation, which sends the same bundle to many
+ * devices. The job counts the results of its devices, the results themselves
+ * are kept in {@link BulkJobItem}s, the devices of the request in
+ * {@link BulkJobDevices}.
+ *
+ * A job that has not completed before its deadline expires: its devices
+ * without a result fail, so the job still completes.
+ */
+@Entity
+@Table(name = "bulk_job")
+public class BulkJob extends AbstractEntity {
+
+    /**
+     * Serial Version UID.
+     */
+    private static final long serialVersionUID = -3302512876183641537L;
+
+    /**
+     * The device identification in the job id and in the notification of a
+     * bulk job, which is not sent for one device.
+     */
+    public static final String DEVICE_IDENTIFICATION = "bulk-job";
+
+    @Column(nullable = false, unique = true, length = 255)
+    private String jobId;
+
+    @Column(nullable = false, length = 40)
+    private String organisationIdentification;
+
+    @Column(nullable = false)
+    private int numberOfDevices;
+
+    @Column(nullable = false)
+    private int numberOfRejected;
+
+    @Column(nullable = false)
+    private int numberOfSucceeded;
+
+    @Column(nullable = false)
+    private int numberOfFailed;
+
+    @Column(nullable = false)
+    private int numberOfItems;
+
+    @Column(nullable = false)
+    private Date deadline;
+
+    @Column(nullable = false)
+    private boolean expired;
+
+    @SuppressWarnings("unused")
+    private BulkJob() {
+    }
+
+    public BulkJob(final String jobId, final String organisationIdentification, final int numberOfDevices,
+            final Date deadline) {
+        this.jobId = jobId;
+        this.organisationIdentification = organisationIdentification;
+        this.numberOfDevices = numberOfDevices;
+        this.deadline = new Date(deadline.getTime());
+    }
+
+    public String getJobId() {
+        return this.jobId;
+    }
+
+    public String getOrganisationIdentification() {
+        return this.organisationIdentification;
+    }
+
+    public int getNumberOfDevices() {
+        return this.numberOfDevices;
+    }
+
+    /**
+     * @return The number of devices the bundle was not sent to, because the
+     *         device is unknown or the organisation is not allowed to send the
+     *         bundle to the device.
+     */
+    public int getNumberOfRejected() {
+        return this.numberOfRejected;
+    }
+
+    public int getNumberOfSucceeded() {
+        return this.numberOfSucceeded;
+    }
+
+    public int getNumberOfFailed() {
+        return this.numberOfFailed;
+    }
+
+    /**
+     * @return The number of devices the bundle was sent to, without a response
+     *         yet.
+     */
+    public int getNumberOfPending() {
+        return this.numberOfDevices - this.numberOfRejected - this.numberOfSucceeded - this.numberOfFailed;
+    }
+
+    public boolean isCompleted() {
+        return this.getNumberOfPending() == 0;
+    }
+
+    /**
+     * @return The number of devices with a stored {@link BulkJobItem}. The
+     *         items are stored in the order of the request, so these are the
+     *         first devices of the request.
+     */
+    public int getNumberOfItems() {
+        return this.numberOfItems;
+    }
+
+    public void addItems(final int numberOfItems) {
+        this.numberOfItems += numberOfItems;
+    }
+
+    /**
+     * @return True when not all devices of the job have a stored
+     *         {@link BulkJobItem} yet.
+     */
+    public boolean isBeingSent() {
+        return this.numberOfItems < this.numberOfDevices;
+    }
+
+    public Date getDeadline() {
+        return new Date(this.deadline.getTime());
+    }
+
+    public boolean isExpired() {
+        return this.expired;
+    }
+
+    public void expire() {
+        this.expired = true;
+    }
+}
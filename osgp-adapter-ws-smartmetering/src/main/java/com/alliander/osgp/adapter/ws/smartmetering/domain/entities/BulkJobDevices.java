@@ -0,0 +1,58 @@
+/**
+ * Copyright 2018 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.adapter.ws.smartmetering.domain.entities;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Table;
+
+import com.alliander.osgp.shared.domain.entities.AbstractEntity;
+
+/**
+ * The devices of a {@link BulkJob}, in the order of the request. They are
+ * only read when the job expires, to fail the devices the bundle was never
+ * sent to, so they are kept apart from the job, which is read for every
+ * response.
+ */
+@Entity
+@Table(name = "bulk_job_devices")
+public class BulkJobDevices extends AbstractEntity {
+
+    /**
+     * Serial Version UID.
+     */
+    private static final long serialVersionUID = -1871236427806655024L;
+
+    @Column(nullable = false, unique = true, length = 255)
+    private String jobId;
+
+    @Column(nullable = false)
+    private Serializable deviceIdentifications;
+
+    @SuppressWarnings("unused")
+    private BulkJobDevices() {
+    }
+
+    public BulkJobDevices(final String jobId, final List<String> deviceIdentifications) {
+        this.jobId = jobId;
+        this.deviceIdentifications = new ArrayList<>(deviceIdentifications);
+    }
+
+    public String getJobId() {
+        return this.jobId;
+    }
+
+    @SuppressWarnings("unchecked")
+    public List<String> getDeviceIdentifications() {
+        return (List<String>) this.deviceIdentifications;
+    }
+}
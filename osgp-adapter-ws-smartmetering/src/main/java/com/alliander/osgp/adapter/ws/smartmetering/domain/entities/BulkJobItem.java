@@ -0,0 +1,123 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.adapter.ws.smartmetering.domain.entities;
+
+import java.io.Serializable;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.Table;
+
+import com.alliander.osgp.shared.domain.entities.AbstractEntity;
+
+/**
+ * The bundle request of one device of a {@link BulkJob}, and its result once
+ * the response has been received. The result is kept here instead of in the
+ * response data, so a bulk job does not notify and store a response per
+ * device.
+ */
+@Entity
+@Table(name = "bulk_job_item")
+public class BulkJobItem extends AbstractEntity {
+
+    public enum Status {
+        PENDING,
+        REJECTED,
+        OK,
+        NOT_OK,
+        FAILED
+    }
+
+    /**
+     * Serial Version UID.
+     */
+    private static final long serialVersionUID = 2877421436328618052L;
+
+    @Column(nullable = false, length = 255)
+    private String jobId;
+
+    @Column(nullable = false, length = 40)
+    private String deviceIdentification;
+
+    @Column(unique = true, length = 255)
+    private String correlationUid;
+
+    @Column(nullable = false, length = 20)
+    @Enumerated(EnumType.STRING)
+    private Status status;
+
+    @Column(length = 255)
+    private String resultDescription;
+
+    @Column
+    private Serializable result;
+
+    @SuppressWarnings("unused")
+    private BulkJobItem() {
+    }
+
+    private BulkJobItem(final String jobId, final String deviceIdentification, final String correlationUid,
+            final Status status, final String resultDescription) {
+        this.jobId = jobId;
+        this.deviceIdentification = deviceIdentification;
+        this.correlationUid = correlationUid;
+        this.status = status;
+        this.resultDescription = resultDescription;
+    }
+
+    public static BulkJobItem pending(final String jobId, final String deviceIdentification,
+            final String correlationUid) {
+        return new BulkJobItem(jobId, deviceIdentification, correlationUid, Status.PENDING, null);
+    }
+
+    public static BulkJobItem rejected(final String jobId, final String deviceIdentification,
+            final String resultDescription) {
+        return new BulkJobItem(jobId, deviceIdentification, null, Status.REJECTED, resultDescription);
+    }
+
+    public static BulkJobItem failed(final String jobId, final String deviceIdentification,
+            final String resultDescription) {
+        return new BulkJobItem(jobId, deviceIdentification, null, Status.FAILED, resultDescription);
+    }
+
+    public String getJobId() {
+        return this.jobId;
+    }
+
+    public String getDeviceIdentification() {
+        return this.deviceIdentification;
+    }
+
+    public String getCorrelationUid() {
+        return this.correlationUid;
+    }
+
+    public Status getStatus() {
+        return this.status;
+    }
+
+    public String getResultDescription() {
+        return this.resultDescription;
+    }
+
+    public Serializable getResult() {
+        return this.result;
+    }
+
+    public boolean isPending() {
+        return this.status == Status.PENDING;
+    }
+
+    public void complete(final Status status, final String resultDescription, final Serializable result) {
+        this.status = status;
+        this.resultDescription = resultDescription;
+        this.result = result;
+    }
+}
@@ -0,0 +1,32 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.adapter.ws.smartmetering.domain.repositories;
+
+import java.util.List;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.alliander.osgp.adapter.ws.smartmetering.domain.entities.BulkJobItem;
+
+@Repository
+public interface BulkJobItemRepository extends JpaRepository<BulkJobItem, Long> {
+
+    BulkJobItem findByCorrelationUid(String correlationUid);
+
+    @Query("SELECT i.jobId FROM BulkJobItem i WHERE i.correlationUid = :correlationUid")
+    String findJobIdByCorrelationUid(@Param("correlationUid") String correlationUid);
+
+    List<BulkJobItem> findByJobIdAndStatus(String jobId, BulkJobItem.Status status);
+
+    Page<BulkJobItem> findByJobId(String jobId, Pageable pageable);
+}
@@ -0,0 +1,61 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.adapter.ws.smartmetering.domain.repositories;
+
+import java.util.Date;
+import java.util.List;
+
+import javax.persistence.LockModeType;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.alliander.osgp.adapter.ws.smartmetering.domain.entities.BulkJob;
+
+@Repository
+public interface BulkJobRepository extends JpaRepository<BulkJob, Long> {
+
+    BulkJob findByJobId(String jobId);
+
+    /**
+     * Reads the job and locks it until the transaction ends. Storing items,
+     * handling a response and expiring the job all lock the job first, so
+     * they do not complete the same item twice, and do not wait for each
+     * other in a different order.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT j FROM BulkJob j WHERE j.jobId = :jobId")
+    BulkJob findAndLockByJobId(@Param("jobId") String jobId);
+
+    @Query("SELECT j.jobId FROM BulkJob j WHERE j.expired = false AND j.deadline < :time "
+            + "AND j.numberOfRejected + j.numberOfSucceeded + j.numberOfFailed < j.numberOfDevices")
+    List<String> findJobIdsNotCompletedBefore(@Param("time") Date time);
+
+    @Query("SELECT j.jobId FROM BulkJob j WHERE j.expired = false AND j.numberOfItems < j.numberOfDevices")
+    List<String> findJobIdsBeingSent();
+
+    /**
+     * Adds results to the counters of the job in one statement, without
+     * reading the job first. The updated row stays locked until the
+     * transaction ends, so a job read after the update in the same transaction
+     * has the counters of all earlier transactions: exactly one transaction
+     * sees the job completed.
+     *
+     * @return The number of updated jobs.
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE BulkJob j SET j.numberOfRejected = j.numberOfRejected + :rejected, "
+            + "j.numberOfSucceeded = j.numberOfSucceeded + :succeeded, "
+            + "j.numberOfFailed = j.numberOfFailed + :failed WHERE j.jobId = :jobId")
+    int addResults(@Param("jobId") String jobId, @Param("rejected") int rejected,
+            @Param("succeeded") int succeeded, @Param("failed") int failed);
+}
@@ -9,7 +9,6 @@ package com.alliander.osgp.adapter.ws.smartmetering.infra.jms;
 
 import javax.jms.JMSException;
 import javax.jms.Message;
-import javax.jms.ObjectMessage;
 import javax.jms.Session;
 
 import org.apache.commons.lang3.StringUtils;
@@ -20,6 +19,8 @@ import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.jms.core.JmsTemplate;
 import org.springframework.jms.core.MessageCreator;
 
+import com.alliander.osgp.domain.core.codec.MessageCodecNegotiator;
+import com.alliander.osgp.domain.core.codec.MessageCodecs;
 import com.alliander.osgp.shared.infra.jms.Constants;
 
 /**
@@ -39,6 +40,13 @@ public class SmartMeteringRequestMessageSender {
     @Qualifier("wsSmartMeteringOutgoingRequestsJmsTemplate")
     private JmsTemplate smartMeteringRequestsJmsTemplate;
 
+    /**
+     * Chooses the codec used to encode the request in the message body
+     */
+    @Autowired
+    @Qualifier("wsSmartMeteringOutgoingRequestsMessageCodecNegotiator")
+    private MessageCodecNegotiator smartMeteringRequestsMessageCodecNegotiator;
+
     /**
      * Method for sending a request message to the queue
      *
@@ -83,19 +91,20 @@ public class SmartMeteringRequestMessageSender {
 
             @Override
             public Message createMessage(final Session session) throws JMSException {
-                final ObjectMessage objectMessage = session.createObjectMessage(requestMessage.getRequest());
-                objectMessage.setJMSCorrelationID(requestMessage.getCorrelationUid());
-                objectMessage.setJMSType(requestMessage.getMessageType().toString());
-                objectMessage.setStringProperty(Constants.ORGANISATION_IDENTIFICATION,
+                final Message message = MessageCodecs.createMessage(session, requestMessage.getRequest(),
+                        SmartMeteringRequestMessageSender.this.smartMeteringRequestsMessageCodecNegotiator.select());
+                message.setJMSCorrelationID(requestMessage.getCorrelationUid());
+                message.setJMSType(requestMessage.getMessageType().toString());
+                message.setStringProperty(Constants.ORGANISATION_IDENTIFICATION,
                         requestMessage.getOrganisationIdentification());
-                objectMessage.setStringProperty(Constants.DEVICE_IDENTIFICATION,
+                message.setStringProperty(Constants.DEVICE_IDENTIFICATION,
                         requestMessage.getDeviceIdentification());
-                objectMessage.setBooleanProperty(Constants.BYPASS_RETRY, requestMessage.bypassRetry());
+                message.setBooleanProperty(Constants.BYPASS_RETRY, requestMessage.bypassRetry());
 
                 if (requestMessage.getScheduleTime() != null) {
-                    objectMessage.setLongProperty(Constants.SCHEDULE_TIME, requestMessage.getScheduleTime());
+                    message.setLongProperty(Constants.SCHEDULE_TIME, requestMessage.getScheduleTime());
                 }
-                return objectMessage;
+                return message;
             }
         });
     }
@@ -15,8 +15,11 @@ import javax.jms.ObjectMessage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 
 import com.alliander.osgp.adapter.ws.schema.smartmetering.notification.NotificationType;
+import com.alliander.osgp.domain.core.codec.MessageCodecNegotiator;
+import com.alliander.osgp.domain.core.jms.metrics.MeteredMessageListener;
 import com.alliander.osgp.shared.infra.jms.MessageProcessor;
 import com.alliander.osgp.shared.infra.jms.MessageProcessorMap;
 
@@ -27,6 +30,10 @@ public class SmartMeteringResponseMessageListener implements MessageListener {
     @Autowired
     private MessageProcessorMap domainResponseMessageProcessorMap;
 
+    @Autowired
+    @Qualifier("wsSmartMeteringOutgoingRequestsMessageCodecNegotiator")
+    private MessageCodecNegotiator smartMeteringRequestsMessageCodecNegotiator;
+
     public SmartMeteringResponseMessageListener() {
         // empty constructor
     }
@@ -35,6 +42,7 @@ public class SmartMeteringResponseMessageListener implements MessageListener {
     public void onMessage(final Message message) {
         try {
             LOGGER.info("Received message of type: {}", message.getJMSType());
+            this.smartMeteringRequestsMessageCodecNegotiator.observe(message);
 
             final String messageType = message.getJMSType();
             final ObjectMessage objectMessage = (ObjectMessage) message;
@@ -54,6 +62,7 @@ public class SmartMeteringResponseMessageListener implements MessageListener {
             processor.processMessage(objectMessage);
 
         } catch (final JMSException ex) {
+            MeteredMessageListener.markFailed();
             LOGGER.error("Exception: {} ", ex.getMessage(), ex);
         }
     }
@@ -7,17 +7,48 @@
  */
 package com.alliander.osgp.adapter.ws.smartmetering.infra.jms.messageprocessor;
 
+import javax.jms.JMSException;
+import javax.jms.ObjectMessage;
+
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import com.alliander.osgp.adapter.ws.smartmetering.application.services.BulkJobService;
+import com.alliander.osgp.adapter.ws.smartmetering.domain.entities.BulkJob;
 import com.alliander.osgp.domain.core.valueobjects.DeviceFunction;
+import com.alliander.osgp.shared.infra.jms.Constants;
+import com.alliander.osgp.shared.infra.jms.ResponseMessageResultType;
 
 /**
  * Class for processing smart metering bundle response messages
+ *
+ * The responses of a bulk job are stored with the job, and one notification
+ * is sent for the job when the responses of all its devices have been
+ * received.
  */
 @Component
 public class BundleResponseMessageProcessor extends DomainResponseMessageProcessor {
 
+    @Autowired
+    private BulkJobService bulkJobService;
+
     public BundleResponseMessageProcessor() {
         super(DeviceFunction.HANDLE_BUNDLED_ACTIONS);
     }
+
+    @Override
+    public void processMessage(final ObjectMessage message) throws JMSException {
+        final String correlationUid = message.getJMSCorrelationID();
+        if (!this.bulkJobService.isBulkRequest(correlationUid)) {
+            super.processMessage(message);
+            return;
+        }
+
+        final BulkJob job = this.bulkJobService.handleResponse(correlationUid,
+                ResponseMessageResultType.valueOf(message.getStringProperty(Constants.RESULT)),
+                message.getStringProperty(Constants.DESCRIPTION), message.getObject());
+        if (job != null) {
+            this.bulkJobService.sendCompletedNotification(job);
+        }
+    }
 }
@@ -0,0 +1,116 @@
+DO
+$$
+BEGIN
+
+IF NOT EXISTS (SELECT 1 FROM information_schema.tables WHERE table_schema=current_schema AND table_name = 'bulk_job') THEN
+
+	CREATE TABLE bulk_job (
+	    id bigint NOT NULL,
+	    creation_time timestamp without time zone NOT NULL,
+	    modification_time timestamp without time zone NOT NULL,
+	    version bigint,
+	    job_id character varying(255) NOT NULL,
+	    organisation_identification character varying(40) NOT NULL,
+	    number_of_devices integer NOT NULL,
+	    number_of_rejected integer NOT NULL DEFAULT(0),
+	    number_of_succeeded integer NOT NULL DEFAULT(0),
+	    number_of_failed integer NOT NULL DEFAULT(0),
+	    number_of_items integer NOT NULL DEFAULT(0),
+	    deadline timestamp without time zone NOT NULL,
+	    expired boolean NOT NULL DEFAULT(false)
+	);
+
+	ALTER TABLE public.bulk_job OWNER TO osp_admin;
+
+	CREATE SEQUENCE bulk_job_seq
+	    START WITH 1
+	    INCREMENT BY 1
+	    NO MINVALUE
+	    NO MAXVALUE
+	    CACHE 1;
+
+	ALTER TABLE public.bulk_job_seq OWNER TO osp_admin;
+
+	ALTER SEQUENCE bulk_job_seq OWNED BY bulk_job.id;
+
+	ALTER TABLE ONLY bulk_job ALTER COLUMN id SET DEFAULT nextval('bulk_job_seq'::regclass);
+
+	ALTER TABLE ONLY bulk_job ADD CONSTRAINT bulk_job_pkey PRIMARY KEY (id);
+
+	ALTER TABLE ONLY bulk_job ADD CONSTRAINT bulk_job_job_id_key UNIQUE (job_id);
+
+END IF;
+
+IF NOT EXISTS (SELECT 1 FROM information_schema.tables WHERE table_schema=current_schema AND table_name = 'bulk_job_item') THEN
+
+	CREATE TABLE bulk_job_item (
+	    id bigint NOT NULL,
+	    creation_time timestamp without time zone NOT NULL,
+	    modification_time timestamp without time zone NOT NULL,
+	    version bigint,
+	    job_id character varying(255) NOT NULL,
+	    device_identification character varying(40) NOT NULL,
+	    correlation_uid character varying(255),
+	    status character varying(20) NOT NULL,
+	    result_description character varying(255),
+	    result bytea
+	);
+
+	ALTER TABLE public.bulk_job_item OWNER TO osp_admin;
+
+	CREATE SEQUENCE bulk_job_item_seq
+	    START WITH 1
+	    INCREMENT BY 1
+	    NO MINVALUE
+	    NO MAXVALUE
+	    CACHE 1;
+
+	ALTER TABLE public.bulk_job_item_seq OWNER TO osp_admin;
+
+	ALTER SEQUENCE bulk_job_item_seq OWNED BY bulk_job_item.id;
+
+	ALTER TABLE ONLY bulk_job_item ALTER COLUMN id SET DEFAULT nextval('bulk_job_item_seq'::regclass);
+
+	ALTER TABLE ONLY bulk_job_item ADD CONSTRAINT bulk_job_item_pkey PRIMARY KEY (id);
+
+	ALTER TABLE ONLY bulk_job_item ADD CONSTRAINT bulk_job_item_correlation_uid_key UNIQUE (correlation_uid);
+
+	-- The results of a job are read page by page, in the order of the request.
+	CREATE INDEX bulk_job_item_job_id_idx ON bulk_job_item (job_id, id);
+
+END IF;
+
+IF NOT EXISTS (SELECT 1 FROM information_schema.tables WHERE table_schema=current_schema AND table_name = 'bulk_job_devices') THEN
+
+	CREATE TABLE bulk_job_devices (
+	    id bigint NOT NULL,
+	    creation_time timestamp without time zone NOT NULL,
+	    modification_time timestamp without time zone NOT NULL,
+	    version bigint,
+	    job_id character varying(255) NOT NULL,
+	    device_identifications bytea NOT NULL
+	);
+
+	ALTER TABLE public.bulk_job_devices OWNER TO osp_admin;
+
+	CREATE SEQUENCE bulk_job_devices_seq
+	    START WITH 1
+	    INCREMENT BY 1
+	    NO MINVALUE
+	    NO MAXVALUE
+	    CACHE 1;
+
+	ALTER TABLE public.bulk_job_devices_seq OWNER TO osp_admin;
+
+	ALTER SEQUENCE bulk_job_devices_seq OWNED BY bulk_job_devices.id;
+
+	ALTER TABLE ONLY bulk_job_devices ALTER COLUMN id SET DEFAULT nextval('bulk_job_devices_seq'::regclass);
+
+	ALTER TABLE ONLY bulk_job_devices ADD CONSTRAINT bulk_job_devices_pkey PRIMARY KEY (id);
+
+	ALTER TABLE ONLY bulk_job_devices ADD CONSTRAINT bulk_job_devices_job_id_key UNIQUE (job_id);
+
+END IF;
+
+END;
+$$
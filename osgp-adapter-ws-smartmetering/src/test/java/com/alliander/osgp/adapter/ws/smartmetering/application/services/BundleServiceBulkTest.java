@@ -0,0 +1,463 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.adapter.ws.smartmetering.application.services;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.mockito.stubbing.Answer;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jms.UncategorizedJmsException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.alliander.osgp.adapter.ws.shared.services.NotificationService;
+import com.alliander.osgp.adapter.ws.smartmetering.domain.entities.BulkJob;
+import com.alliander.osgp.adapter.ws.smartmetering.domain.entities.BulkJobItem;
+import com.alliander.osgp.adapter.ws.smartmetering.domain.repositories.BulkJobDevicesRepository;
+import com.alliander.osgp.adapter.ws.smartmetering.domain.repositories.BulkJobItemRepository;
+import com.alliander.osgp.adapter.ws.smartmetering.domain.repositories.BulkJobRepository;
+import com.alliander.osgp.adapter.ws.smartmetering.infra.jms.SmartMeteringRequestMessage;
+import com.alliander.osgp.adapter.ws.smartmetering.infra.jms.SmartMeteringRequestMessageSender;
+import com.alliander.osgp.domain.core.entities.Device;
+import com.alliander.osgp.domain.core.entities.Organisation;
+import com.alliander.osgp.domain.core.services.CorrelationIdProviderService;
+import com.alliander.osgp.domain.core.valueobjects.DeviceFunction;
+import com.alliander.osgp.domain.core.valueobjects.PlatformFunctionGroup;
+import com.alliander.osgp.domain.core.valueobjects.smartmetering.ActionRequest;
+import com.alliander.osgp.shared.exceptionhandling.ComponentType;
+import com.alliander.osgp.shared.exceptionhandling.FunctionalException;
+import com.alliander.osgp.shared.exceptionhandling.FunctionalExceptionType;
+import com.alliander.osgp.shared.infra.jms.ResponseMessageResultType;
+
+/**
+ * Sends a bundle to 10,000 devices as one bulk job. The repositories keep the
+ * job in memory, and osgp-core is stubbed by a message sender that collects
+ * the requests, so the test can respond to them.
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class BundleServiceBulkTest {
+
+    private static final String ORGANISATION_IDENTIFICATION = "organisationIdentification";
+    private static final int NUMBER_OF_DEVICES = 10000;
+    private static final int CHUNK_SIZE = 500;
+    private static final int PAGE_SIZE = 1000;
+    private static final Long DEADLINE = 3600000L;
+
+    /**
+     * Every hundredth device is not authorized, every fiftieth response fails.
+     */
+    private static final int UNAUTHORIZED_EVERY = 100;
+    private static final int FAILED_EVERY = 50;
+
+    @Mock
+    private DomainHelperService domainHelperService;
+
+    @Mock
+    private CorrelationIdProviderService correlationIdProviderService;
+
+    @Mock
+    private SmartMeteringRequestMessageSender smartMeteringRequestMessageSender;
+
+    @Mock
+    private BulkJobRepository bulkJobRepository;
+
+    @Mock
+    private BulkJobItemRepository bulkJobItemRepository;
+
+    @Mock
+    private BulkJobDevicesRepository bulkJobDevicesRepository;
+
+    @Mock
+    private NotificationService notificationService;
+
+    private final BundleService bundleService = new BundleService();
+    private final BulkJobService bulkJobService = new BulkJobService();
+
+    private final Map<String, BulkJob> jobs = new HashMap<>();
+    private final List<BulkJobItem> items = new ArrayList<>();
+    private final Set<BulkJobItem> storedItems = Collections.newSetFromMap(new IdentityHashMap<BulkJobItem, Boolean>());
+    private final Map<String, BulkJobItem> itemsByCorrelationUid = new HashMap<>();
+    private final List<SmartMeteringRequestMessage> sentMessages = new ArrayList<>();
+
+    private int correlationUids;
+    private Organisation organisation;
+    private List<ActionRequest> actionList;
+
+    @Before
+    public void prepareTest() throws FunctionalException {
+        ReflectionTestUtils.setField(this.bulkJobService, "bulkJobRepository", this.bulkJobRepository);
+        ReflectionTestUtils.setField(this.bulkJobService, "bulkJobItemRepository", this.bulkJobItemRepository);
+        ReflectionTestUtils.setField(this.bulkJobService, "bulkJobDevicesRepository", this.bulkJobDevicesRepository);
+        ReflectionTestUtils.setField(this.bulkJobService, "notificationService", this.notificationService);
+        ReflectionTestUtils.setField(this.bulkJobService, "resultsPageSize", PAGE_SIZE);
+        ReflectionTestUtils.setField(this.bulkJobService, "deadline", DEADLINE);
+
+        ReflectionTestUtils.setField(this.bundleService, "domainHelperService", this.domainHelperService);
+        ReflectionTestUtils.setField(this.bundleService, "correlationIdProviderService",
+                this.correlationIdProviderService);
+        ReflectionTestUtils.setField(this.bundleService, "smartMeteringRequestMessageSender",
+                this.smartMeteringRequestMessageSender);
+        ReflectionTestUtils.setField(this.bundleService, "bulkJobService", this.bulkJobService);
+        ReflectionTestUtils.setField(this.bundleService, "bulkChunkSize", CHUNK_SIZE);
+        ReflectionTestUtils.setField(this.bundleService, "bulkJobExecutor", new SyncTaskExecutor());
+
+        this.organisation = new Organisation(ORGANISATION_IDENTIFICATION, "name", "prefix",
+                PlatformFunctionGroup.USER);
+        final ActionRequest action = mock(ActionRequest.class);
+        when(action.getDeviceFunction()).thenReturn(DeviceFunction.REQUEST_ACTUAL_METER_DATA);
+        this.actionList = Arrays.asList(action);
+
+        when(this.domainHelperService.findOrganisation(ORGANISATION_IDENTIFICATION)).thenReturn(this.organisation);
+        when(this.domainHelperService.findActiveDevice(anyString())).thenAnswer(new Answer<Device>() {
+            @Override
+            public Device answer(final InvocationOnMock invocation) {
+                return new Device((String) invocation.getArguments()[0]);
+            }
+        });
+        when(this.correlationIdProviderService.getCorrelationId(eq(ORGANISATION_IDENTIFICATION), anyString()))
+                .thenAnswer(new Answer<String>() {
+                    @Override
+                    public String answer(final InvocationOnMock invocation) {
+                        return invocation.getArguments()[1] + "|" + BundleServiceBulkTest.this.correlationUids++;
+                    }
+                });
+
+        this.mockRepositories();
+        this.stubOsgpCore();
+    }
+
+    @Test
+    public void testBulkJobForTenThousandDevices() throws FunctionalException {
+        final List<String> deviceIdentifications = new ArrayList<>();
+        for (int i = 0; i < NUMBER_OF_DEVICES; i++) {
+            deviceIdentifications.add(this.deviceIdentification(i));
+        }
+        final int unauthorized = NUMBER_OF_DEVICES / UNAUTHORIZED_EVERY;
+
+        final String jobId = this.bundleService.enqueueBulkBundleRequest(ORGANISATION_IDENTIFICATION,
+                deviceIdentifications, this.actionList, 1, false);
+
+        // The requests of every chunk are stored before they are sent.
+        verify(this.bulkJobItemRepository, times(NUMBER_OF_DEVICES / CHUNK_SIZE))
+                .save(anyListOf(BulkJobItem.class));
+        assertEquals(NUMBER_OF_DEVICES - unauthorized, this.sentMessages.size());
+
+        BulkJob job = this.bulkJobService.getJob(ORGANISATION_IDENTIFICATION, jobId);
+        assertEquals(NUMBER_OF_DEVICES, job.getNumberOfDevices());
+        assertEquals(unauthorized, job.getNumberOfRejected());
+        assertEquals(NUMBER_OF_DEVICES - unauthorized, job.getNumberOfPending());
+
+        // osgp-core responds to every request, only the last response
+        // completes the job.
+        int failed = 0;
+        for (int i = 0; i < this.sentMessages.size(); i++) {
+            final SmartMeteringRequestMessage message = this.sentMessages.get(i);
+            final boolean ok = i % FAILED_EVERY != 0;
+            if (!ok) {
+                failed++;
+            }
+            final BulkJob completed = this.bulkJobService.handleResponse(message.getCorrelationUid(),
+                    ok ? ResponseMessageResultType.OK : ResponseMessageResultType.NOT_OK,
+                    ok ? null : "Device not reachable", ok ? "meter reads " + message.getDeviceIdentification() : null);
+            if (i < this.sentMessages.size() - 1) {
+                assertNull(completed);
+            } else {
+                assertNotNull(completed);
+            }
+        }
+
+        job = this.bulkJobService.getJob(ORGANISATION_IDENTIFICATION, jobId);
+        assertTrue(job.isCompleted());
+        assertEquals(failed, job.getNumberOfFailed());
+        assertEquals(NUMBER_OF_DEVICES - unauthorized - failed, job.getNumberOfSucceeded());
+
+        // The results are returned in pages, in the order of the request.
+        int device = 0;
+        int rejected = 0;
+        for (int pageNumber = 0; pageNumber < NUMBER_OF_DEVICES / PAGE_SIZE; pageNumber++) {
+            final Page<BulkJobItem> page = this.bulkJobService.findResults(ORGANISATION_IDENTIFICATION, jobId,
+                    pageNumber);
+            assertEquals(NUMBER_OF_DEVICES / PAGE_SIZE, page.getTotalPages());
+            assertEquals(PAGE_SIZE, page.getNumberOfElements());
+            for (final BulkJobItem item : page.getContent()) {
+                assertEquals(this.deviceIdentification(device++), item.getDeviceIdentification());
+                assertFalse(item.isPending());
+                if (item.getStatus() == BulkJobItem.Status.REJECTED) {
+                    rejected++;
+                } else if (item.getStatus() == BulkJobItem.Status.OK) {
+                    assertEquals("meter reads " + item.getDeviceIdentification(), item.getResult());
+                }
+            }
+        }
+        assertEquals(unauthorized, rejected);
+    }
+
+    @Test
+    public void testResponseAfterCompletionIsIgnored() throws FunctionalException {
+        final String jobId = this.bundleService.enqueueBulkBundleRequest(ORGANISATION_IDENTIFICATION,
+                Arrays.asList(this.deviceIdentification(1)), this.actionList, 1, false);
+        final String correlationUid = this.sentMessages.get(0).getCorrelationUid();
+
+        assertNotNull(this.bulkJobService.handleResponse(correlationUid, ResponseMessageResultType.OK, null, null));
+        // A redelivered response is not counted twice.
+        assertNull(this.bulkJobService.handleResponse(correlationUid, ResponseMessageResultType.OK, null, null));
+
+        assertEquals(1, this.bulkJobService.getJob(ORGANISATION_IDENTIFICATION, jobId).getNumberOfSucceeded());
+    }
+
+    @Test
+    public void testJobOfRejectedDevicesIsCompletedAndNotified() throws FunctionalException {
+        // The first device is not authorized.
+        final String jobId = this.bundleService.enqueueBulkBundleRequest(ORGANISATION_IDENTIFICATION,
+                Arrays.asList(this.deviceIdentification(0)), this.actionList, 1, false);
+
+        assertTrue(this.sentMessages.isEmpty());
+        final BulkJob job = this.bulkJobService.getJob(ORGANISATION_IDENTIFICATION, jobId);
+        assertTrue(job.isCompleted());
+        assertEquals(1, job.getNumberOfRejected());
+        this.verifyCompletedNotification(jobId);
+    }
+
+    @Test
+    public void testDevicesAreFailedWhenSendingFails() throws FunctionalException {
+        final List<String> deviceIdentifications = new ArrayList<>();
+        for (int i = 1; i <= 3 * CHUNK_SIZE; i++) {
+            deviceIdentifications.add(this.deviceIdentification(i));
+        }
+        final int sendable = CHUNK_SIZE + CHUNK_SIZE / 2;
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(final InvocationOnMock invocation) {
+                if (BundleServiceBulkTest.this.sentMessages.size() == sendable) {
+                    throw new UncategorizedJmsException("Broker unavailable");
+                }
+                BundleServiceBulkTest.this.sentMessages.add((SmartMeteringRequestMessage) invocation.getArguments()[0]);
+                return null;
+            }
+        }).when(this.smartMeteringRequestMessageSender).send(any(SmartMeteringRequestMessage.class));
+
+        final String jobId = this.bundleService.enqueueBulkBundleRequest(ORGANISATION_IDENTIFICATION,
+                deviceIdentifications, this.actionList, 1, false);
+
+        // No bundle is sent after the failure, the devices without a sent
+        // bundle fail.
+        assertEquals(sendable, this.sentMessages.size());
+        BulkJob job = this.bulkJobService.getJob(ORGANISATION_IDENTIFICATION, jobId);
+        assertEquals(3 * CHUNK_SIZE, this.items.size());
+        assertEquals(3 * CHUNK_SIZE - sendable - job.getNumberOfRejected(), job.getNumberOfFailed());
+        assertEquals(sendable, job.getNumberOfPending());
+        verify(this.notificationService, never()).sendNotification(anyString(), anyString(), anyString(),
+                anyString(), anyString(), any());
+
+        for (final SmartMeteringRequestMessage message : this.sentMessages) {
+            this.bulkJobService.handleResponse(message.getCorrelationUid(), ResponseMessageResultType.OK, null, null);
+        }
+
+        job = this.bulkJobService.getJob(ORGANISATION_IDENTIFICATION, jobId);
+        assertTrue(job.isCompleted());
+        assertEquals(sendable, job.getNumberOfSucceeded());
+        for (final BulkJobItem item : this.items) {
+            assertFalse(item.isPending());
+        }
+    }
+
+    @Test
+    public void testJobIsAcceptedBeforeTheBundlesAreSent() throws FunctionalException {
+        final List<Runnable> tasks = new ArrayList<>();
+        ReflectionTestUtils.setField(this.bundleService, "bulkJobExecutor", new TaskExecutor() {
+            @Override
+            public void execute(final Runnable task) {
+                tasks.add(task);
+            }
+        });
+        final List<String> deviceIdentifications = Arrays.asList(this.deviceIdentification(1),
+                this.deviceIdentification(2));
+
+        final String jobId = this.bundleService.enqueueBulkBundleRequest(ORGANISATION_IDENTIFICATION,
+                deviceIdentifications, this.actionList, 1, false);
+
+        assertEquals(2, this.bulkJobService.getJob(ORGANISATION_IDENTIFICATION, jobId).getNumberOfPending());
+        assertTrue(this.items.isEmpty());
+        assertTrue(this.sentMessages.isEmpty());
+
+        assertEquals(1, tasks.size());
+        tasks.get(0).run();
+
+        assertEquals(2, this.items.size());
+        assertEquals(2, this.sentMessages.size());
+    }
+
+    @Test
+    public void testDevicesAreFailedWhenTheJobCannotBeStarted() throws FunctionalException {
+        ReflectionTestUtils.setField(this.bundleService, "bulkJobExecutor", new TaskExecutor() {
+            @Override
+            public void execute(final Runnable task) {
+                throw new TaskRejectedException("Queue full");
+            }
+        });
+
+        final String jobId = this.bundleService.enqueueBulkBundleRequest(ORGANISATION_IDENTIFICATION,
+                Arrays.asList(this.deviceIdentification(1), this.deviceIdentification(2)), this.actionList, 1,
+                false);
+
+        assertTrue(this.sentMessages.isEmpty());
+        final BulkJob job = this.bulkJobService.getJob(ORGANISATION_IDENTIFICATION, jobId);
+        assertTrue(job.isCompleted());
+        assertEquals(2, job.getNumberOfFailed());
+        this.verifyCompletedNotification(jobId);
+    }
+
+    @Test(expected = FunctionalException.class)
+    public void testResultsOfOtherOrganisationAreNotReturned() throws FunctionalException {
+        final String jobId = this.bundleService.enqueueBulkBundleRequest(ORGANISATION_IDENTIFICATION,
+                Arrays.asList(this.deviceIdentification(1)), this.actionList, 1, false);
+
+        this.bulkJobService.findResults("otherOrganisation", jobId, 0);
+    }
+
+    private void verifyCompletedNotification(final String jobId) {
+        verify(this.notificationService).sendNotification(eq(ORGANISATION_IDENTIFICATION),
+                eq(BulkJob.DEVICE_IDENTIFICATION), eq(ResponseMessageResultType.OK.name()), eq(jobId),
+                eq(BulkJobService.COMPLETED_MESSAGE), any());
+    }
+
+    private void add(final BulkJob job, final String counter, final int value) {
+        ReflectionTestUtils.setField(job, counter, (Integer) ReflectionTestUtils.getField(job, counter) + value);
+    }
+
+    private String deviceIdentification(final int device) {
+        return String.format("E%07d", device);
+    }
+
+    private void stubOsgpCore() {
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(final InvocationOnMock invocation) {
+                BundleServiceBulkTest.this.sentMessages.add((SmartMeteringRequestMessage) invocation.getArguments()[0]);
+                return null;
+            }
+        }).when(this.smartMeteringRequestMessageSender).send(any(SmartMeteringRequestMessage.class));
+    }
+
+    private void mockRepositories() throws FunctionalException {
+        for (int i = 0; i < NUMBER_OF_DEVICES; i += UNAUTHORIZED_EVERY) {
+            doThrow(new FunctionalException(FunctionalExceptionType.UNAUTHORIZED, ComponentType.WS_SMART_METERING))
+                    .when(this.domainHelperService).isAllowed(eq(this.organisation),
+                            eq(new Device(this.deviceIdentification(i))), eq(DeviceFunction.HANDLE_BUNDLED_ACTIONS));
+        }
+
+        when(this.bulkJobRepository.save(any(BulkJob.class))).thenAnswer(new Answer<BulkJob>() {
+            @Override
+            public BulkJob answer(final InvocationOnMock invocation) {
+                final BulkJob job = (BulkJob) invocation.getArguments()[0];
+                BundleServiceBulkTest.this.jobs.put(job.getJobId(), job);
+                return job;
+            }
+        });
+        final Answer<BulkJob> findJob = new Answer<BulkJob>() {
+            @Override
+            public BulkJob answer(final InvocationOnMock invocation) {
+                return BundleServiceBulkTest.this.jobs.get(invocation.getArguments()[0]);
+            }
+        };
+        when(this.bulkJobRepository.findByJobId(anyString())).thenAnswer(findJob);
+        when(this.bulkJobRepository.findAndLockByJobId(anyString())).thenAnswer(findJob);
+        when(this.bulkJobRepository.addResults(anyString(), anyInt(), anyInt(), anyInt()))
+                .thenAnswer(new Answer<Integer>() {
+                    @Override
+                    public Integer answer(final InvocationOnMock invocation) {
+                        final Object[] arguments = invocation.getArguments();
+                        final BulkJob job = BundleServiceBulkTest.this.jobs.get(arguments[0]);
+                        BundleServiceBulkTest.this.add(job, "numberOfRejected", (Integer) arguments[1]);
+                        BundleServiceBulkTest.this.add(job, "numberOfSucceeded", (Integer) arguments[2]);
+                        BundleServiceBulkTest.this.add(job, "numberOfFailed", (Integer) arguments[3]);
+                        return 1;
+                    }
+                });
+
+        when(this.bulkJobItemRepository.save(anyListOf(BulkJobItem.class)))
+                .thenAnswer(new Answer<List<BulkJobItem>>() {
+                    @SuppressWarnings("unchecked")
+                    @Override
+                    public List<BulkJobItem> answer(final InvocationOnMock invocation) {
+                        final List<BulkJobItem> saved = (List<BulkJobItem>) invocation.getArguments()[0];
+                        for (final BulkJobItem item : saved) {
+                            if (!BundleServiceBulkTest.this.storedItems.add(item)) {
+                                continue;
+                            }
+                            BundleServiceBulkTest.this.items.add(item);
+                            if (item.getCorrelationUid() != null) {
+                                BundleServiceBulkTest.this.itemsByCorrelationUid.put(item.getCorrelationUid(), item);
+                            }
+                        }
+                        return saved;
+                    }
+                });
+        when(this.bulkJobItemRepository.findByCorrelationUid(anyString())).thenAnswer(new Answer<BulkJobItem>() {
+            @Override
+            public BulkJobItem answer(final InvocationOnMock invocation) {
+                return BundleServiceBulkTest.this.itemsByCorrelationUid.get(invocation.getArguments()[0]);
+            }
+        });
+        when(this.bulkJobItemRepository.findJobIdByCorrelationUid(anyString())).thenAnswer(new Answer<String>() {
+            @Override
+            public String answer(final InvocationOnMock invocation) {
+                final BulkJobItem item = BundleServiceBulkTest.this.itemsByCorrelationUid
+                        .get(invocation.getArguments()[0]);
+                return item == null ? null : item.getJobId();
+            }
+        });
+        when(this.bulkJobItemRepository.findByJobId(anyString(), any(Pageable.class)))
+                .thenAnswer(new Answer<Page<BulkJobItem>>() {
+                    @Override
+                    public Page<BulkJobItem> answer(final InvocationOnMock invocation) {
+                        final Pageable pageable = (Pageable) invocation.getArguments()[1];
+                        final List<BulkJobItem> jobItems = BundleServiceBulkTest.this.items;
+                        final int from = Math.min(pageable.getOffset(), jobItems.size());
+                        final int to = Math.min(from + pageable.getPageSize(), jobItems.size());
+                        return new PageImpl<>(new ArrayList<>(jobItems.subList(from, to)), pageable,
+                                jobItems.size());
+                    }
+                });
+    }
+}
@@ -0,0 +1,67 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.adapter.ws.smartmetering.application.syncrequest;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+public class DelayedNotificationSchedulerTest {
+
+    private static final long LONG_DELAY = 60000;
+
+    private final AtomicInteger sent = new AtomicInteger();
+
+    private final Runnable notification = new Runnable() {
+        @Override
+        public void run() {
+            DelayedNotificationSchedulerTest.this.sent.incrementAndGet();
+        }
+    };
+
+    @Test
+    public void testNotificationsAreDroppedWhenTooManyArePending() throws InterruptedException {
+        final DelayedNotificationScheduler scheduler = new DelayedNotificationScheduler(1, 10, 0);
+
+        for (int i = 0; i < 100; i++) {
+            scheduler.schedule(this.notification, LONG_DELAY);
+        }
+
+        assertEquals(10, scheduler.getPendingCount());
+        assertEquals(90, scheduler.getDroppedCount());
+        assertEquals("notifications must not be sent before the response", 0, this.sent.get());
+
+        scheduler.destroy();
+    }
+
+    @Test
+    public void testPendingNotificationsAreSentOnShutdown() throws InterruptedException {
+        final DelayedNotificationScheduler scheduler = new DelayedNotificationScheduler(1, 10, 10000);
+
+        for (int i = 0; i < 5; i++) {
+            scheduler.schedule(this.notification, 100);
+        }
+        scheduler.destroy();
+
+        assertEquals(5, this.sent.get());
+        assertEquals(0, scheduler.getPendingCount());
+    }
+
+    @Test
+    public void testNotificationsAreDroppedAfterShutdown() throws InterruptedException {
+        final DelayedNotificationScheduler scheduler = new DelayedNotificationScheduler(1, 10, 0);
+        scheduler.destroy();
+
+        scheduler.schedule(this.notification, LONG_DELAY);
+
+        assertEquals(0, this.sent.get());
+        assertEquals(1, scheduler.getDroppedCount());
+    }
+}
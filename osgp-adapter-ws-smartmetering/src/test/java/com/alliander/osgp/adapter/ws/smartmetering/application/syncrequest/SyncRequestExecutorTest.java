@@ -0,0 +1,100 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.adapter.ws.smartmetering.application.syncrequest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.mockito.stubbing.Answer;
+
+import com.alliander.osgp.adapter.ws.domain.entities.ResponseData;
+import com.alliander.osgp.adapter.ws.shared.services.NotificationService;
+import com.alliander.osgp.adapter.ws.shared.services.ResponseDataService;
+import com.alliander.osgp.domain.core.valueobjects.DeviceFunction;
+
+@RunWith(MockitoJUnitRunner.class)
+public class SyncRequestExecutorTest {
+
+    private static final int POOL_SIZE = 2;
+    private static final int SYNC_REQUESTS = 10000;
+
+    private static final String ORGANISATION_IDENTIFICATION = "test-org";
+    private static final String DEVICE_IDENTIFICATION = "E0000000000000000";
+
+    @Mock
+    private NotificationService notificationService;
+
+    @Mock
+    private ResponseDataService responseDataService;
+
+    @Spy
+    private DelayedNotificationScheduler delayedNotificationScheduler = new DelayedNotificationScheduler(POOL_SIZE,
+            SYNC_REQUESTS, 10000);
+
+    @InjectMocks
+    private TestSyncRequestExecutor syncRequestExecutor;
+
+    @After
+    public void tearDown() throws InterruptedException {
+        this.delayedNotificationScheduler.destroy();
+    }
+
+    @Test
+    public void testBurstOfSyncRequestsIsNotifiedFromThePool() {
+        final Set<Thread> notifyingThreads = ConcurrentHashMap.newKeySet();
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(final InvocationOnMock invocation) {
+                notifyingThreads.add(Thread.currentThread());
+                return null;
+            }
+        }).when(this.notificationService).sendNotification(anyString(), anyString(), anyString(), anyString(),
+                anyString(), any());
+
+        for (int i = 0; i < SYNC_REQUESTS; i++) {
+            this.syncRequestExecutor.postExecute(ORGANISATION_IDENTIFICATION, DEVICE_IDENTIFICATION,
+                    "correlationUid-" + i, "data");
+        }
+
+        verify(this.responseDataService, times(SYNC_REQUESTS)).enqueue(any(ResponseData.class));
+        verify(this.notificationService, timeout(10000).times(SYNC_REQUESTS)).sendNotification(
+                eq(ORGANISATION_IDENTIFICATION), eq(DEVICE_IDENTIFICATION), eq("OK"), anyString(), anyString(),
+                any());
+
+        assertTrue("notified from " + notifyingThreads, notifyingThreads.size() <= POOL_SIZE);
+        for (final Thread thread : notifyingThreads) {
+            assertTrue("notified from " + thread.getName(), thread.getName().startsWith("sync-notification-"));
+        }
+        assertEquals(SYNC_REQUESTS, this.delayedNotificationScheduler.getSentCount());
+        assertEquals(0, this.delayedNotificationScheduler.getDroppedCount());
+    }
+
+    static class TestSyncRequestExecutor extends SyncRequestExecutor {
+        TestSyncRequestExecutor() {
+            super(DeviceFunction.GET_MESSAGES);
+        }
+    }
+}
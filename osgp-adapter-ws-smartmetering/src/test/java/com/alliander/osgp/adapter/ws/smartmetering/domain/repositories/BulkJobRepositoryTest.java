@@ -0,0 +1,338 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.adapter.ws.smartmetering.domain.repositories;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.persistence.EntityManager;
+
+import org.hibernate.ejb.HibernatePersistence;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.support.JpaRepositoryFactory;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.annotation.AnnotationTransactionAttributeSource;
+import org.springframework.transaction.interceptor.TransactionInterceptor;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.ReflectionUtils;
+
+import com.alliander.osgp.adapter.ws.schema.smartmetering.notification.NotificationType;
+import com.alliander.osgp.adapter.ws.shared.services.NotificationService;
+import com.alliander.osgp.adapter.ws.smartmetering.application.services.BulkJobMonitor;
+import com.alliander.osgp.adapter.ws.smartmetering.application.services.BulkJobService;
+import com.alliander.osgp.adapter.ws.smartmetering.domain.entities.BulkJob;
+import com.alliander.osgp.adapter.ws.smartmetering.domain.entities.BulkJobItem;
+import com.alliander.osgp.shared.infra.jms.ResponseMessageResultType;
+
+/**
+ * Counts the results of a bulk job on an embedded database, so the counters
+ * are updated against a real persistence context. The update of the counters
+ * clears the persistence context, which must not discard the results of the
+ * items. Expires jobs after a restart and after their deadline, through the
+ * transactions of the service.
+ */
+public class BulkJobRepositoryTest {
+
+    private static final String URL = "jdbc:h2:mem:bulkjobs;MODE=PostgreSQL;DB_CLOSE_DELAY=-1";
+
+    private static final String JOB_ID = "bulk-job-1";
+    private static final String ORGANISATION = "test-org";
+    private static final Long DEADLINE = 3600000L;
+    private static final Long CHECK_INTERVAL = 60000L;
+
+    private static LocalContainerEntityManagerFactoryBean entityManagerFactory;
+    private static TransactionTemplate transactionTemplate;
+
+    private static BulkJobRepository bulkJobRepository;
+    private static BulkJobItemRepository bulkJobItemRepository;
+    private static BulkJobDevicesRepository bulkJobDevicesRepository;
+    private static BulkJobService bulkJobServiceTarget;
+    private static BulkJobService bulkJobService;
+
+    private NotificationService notificationService;
+
+    @BeforeClass
+    public static void createRepositories() {
+        final DriverManagerDataSource dataSource = new DriverManagerDataSource(URL);
+        dataSource.setDriverClassName("org.h2.Driver");
+
+        final Map<String, Object> properties = new HashMap<>();
+        properties.put("hibernate.dialect", "org.hibernate.dialect.H2Dialect");
+        properties.put("hibernate.hbm2ddl.auto", "create-drop");
+
+        entityManagerFactory = new LocalContainerEntityManagerFactoryBean();
+        entityManagerFactory.setDataSource(dataSource);
+        entityManagerFactory.setPersistenceProviderClass(HibernatePersistence.class);
+        entityManagerFactory.setPackagesToScan("com.alliander.osgp.adapter.ws.smartmetering.domain.entities");
+        entityManagerFactory.setJpaPropertyMap(properties);
+        entityManagerFactory.afterPropertiesSet();
+
+        final JpaTransactionManager transactionManager = new JpaTransactionManager(entityManagerFactory.getObject());
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        final EntityManager entityManager = SharedEntityManagerCreator
+                .createSharedEntityManager(entityManagerFactory.getObject());
+
+        final JpaRepositoryFactory repositoryFactory = new JpaRepositoryFactory(entityManager);
+        bulkJobRepository = repositoryFactory.getRepository(BulkJobRepository.class);
+        bulkJobItemRepository = repositoryFactory.getRepository(BulkJobItemRepository.class);
+        bulkJobDevicesRepository = repositoryFactory.getRepository(BulkJobDevicesRepository.class);
+
+        bulkJobServiceTarget = new BulkJobService();
+        inject(bulkJobServiceTarget, "bulkJobRepository", bulkJobRepository);
+        inject(bulkJobServiceTarget, "bulkJobItemRepository", bulkJobItemRepository);
+        inject(bulkJobServiceTarget, "bulkJobDevicesRepository", bulkJobDevicesRepository);
+
+        // Calls from the monitor run in the transactions of the service, as
+        // in the application.
+        final ProxyFactory proxyFactory = new ProxyFactory(bulkJobServiceTarget);
+        proxyFactory.setProxyTargetClass(true);
+        proxyFactory.addAdvice(
+                new TransactionInterceptor(transactionManager, new AnnotationTransactionAttributeSource()));
+        bulkJobService = (BulkJobService) proxyFactory.getProxy();
+    }
+
+    @AfterClass
+    public static void dropRepositories() {
+        if (entityManagerFactory != null) {
+            entityManagerFactory.destroy();
+        }
+    }
+
+    @Before
+    public void setUp() {
+        this.notificationService = mock(NotificationService.class);
+        inject(bulkJobServiceTarget, "notificationService", this.notificationService);
+        inject(bulkJobServiceTarget, "deadline", DEADLINE);
+    }
+
+    @After
+    public void tearDown() {
+        bulkJobItemRepository.deleteAll();
+        bulkJobDevicesRepository.deleteAll();
+        bulkJobRepository.deleteAll();
+    }
+
+    @Test
+    public void testResponseKeepsResultOfItem() {
+        this.createJob(2, BulkJobItem.pending(JOB_ID, "device-1", "correlation-1"),
+                BulkJobItem.pending(JOB_ID, "device-2", "correlation-2"));
+
+        this.handleResponse("correlation-1", ResponseMessageResultType.OK);
+
+        final BulkJobItem item = bulkJobItemRepository.findByCorrelationUid("correlation-1");
+        assertEquals(BulkJobItem.Status.OK, item.getStatus());
+        assertEquals("result of correlation-1", item.getResult());
+        assertEquals(1, bulkJobRepository.findByJobId(JOB_ID).getNumberOfSucceeded());
+    }
+
+    @Test
+    public void testRedeliveredResponseIsCountedOnce() {
+        this.createJob(2, BulkJobItem.pending(JOB_ID, "device-1", "correlation-1"),
+                BulkJobItem.pending(JOB_ID, "device-2", "correlation-2"));
+
+        this.handleResponse("correlation-1", ResponseMessageResultType.NOT_OK);
+        assertNull(this.handleResponse("correlation-1", ResponseMessageResultType.NOT_OK));
+
+        final BulkJob job = bulkJobRepository.findByJobId(JOB_ID);
+        assertEquals(1, job.getNumberOfFailed());
+        assertEquals(1, job.getNumberOfPending());
+    }
+
+    @Test
+    public void testLastResponseCompletesJob() {
+        this.createJob(2, BulkJobItem.pending(JOB_ID, "device-1", "correlation-1"),
+                BulkJobItem.pending(JOB_ID, "device-2", "correlation-2"));
+
+        assertNull(this.handleResponse("correlation-1", ResponseMessageResultType.OK));
+        final BulkJob job = this.handleResponse("correlation-2", ResponseMessageResultType.OK);
+
+        assertNotNull(job);
+        assertEquals(2, job.getNumberOfSucceeded());
+    }
+
+    @Test
+    public void testFailedItemsKeepTheirResult() {
+        final BulkJobItem item = BulkJobItem.pending(JOB_ID, "device-1", "correlation-1");
+        this.createJob(1, item);
+
+        final BulkJob job = transactionTemplate.execute(new TransactionCallback<BulkJob>() {
+            @Override
+            public BulkJob doInTransaction(final TransactionStatus status) {
+                return bulkJobService.failItems(JOB_ID, Arrays.asList(item), "not sent");
+            }
+        });
+
+        assertNotNull(job);
+        assertEquals(1, job.getNumberOfFailed());
+        final BulkJobItem failed = bulkJobItemRepository.findByCorrelationUid("correlation-1");
+        assertEquals(BulkJobItem.Status.FAILED, failed.getStatus());
+        assertEquals("not sent", failed.getResultDescription());
+    }
+
+    @Test
+    public void testRestartWhileSendingCompletesJob() {
+        // The application stopped after sending the first two of four
+        // devices, one of them has responded.
+        this.createJob(4, BulkJobItem.pending(JOB_ID, "device-1", "correlation-1"),
+                BulkJobItem.pending(JOB_ID, "device-2", "correlation-2"));
+        this.handleResponse("correlation-1", ResponseMessageResultType.OK);
+
+        final TaskScheduler taskScheduler = mock(TaskScheduler.class);
+        this.createMonitor(taskScheduler).onApplicationEvent(mock(ContextRefreshedEvent.class));
+
+        final BulkJob job = bulkJobRepository.findByJobId(JOB_ID);
+        assertTrue(job.isCompleted());
+        assertTrue(job.isExpired());
+        assertEquals(1, job.getNumberOfSucceeded());
+        assertEquals(3, job.getNumberOfFailed());
+        this.verifyCompletedNotification();
+        verify(taskScheduler).scheduleWithFixedDelay(any(Runnable.class), eq(CHECK_INTERVAL));
+
+        // Every device has a result, in the order of the request.
+        final List<BulkJobItem> items = this.findItems();
+        assertEquals(Arrays.asList("device-1", "device-2", "device-3", "device-4"),
+                this.deviceIdentifications(items));
+        assertEquals(BulkJobItem.Status.OK, items.get(0).getStatus());
+        for (final BulkJobItem item : items.subList(1, items.size())) {
+            assertEquals(BulkJobItem.Status.FAILED, item.getStatus());
+            assertEquals(BulkJobMonitor.APPLICATION_STOPPED, item.getResultDescription());
+        }
+
+        // A response after the job expired is ignored.
+        assertNull(this.handleResponse("correlation-2", ResponseMessageResultType.OK));
+        assertEquals(3, bulkJobRepository.findByJobId(JOB_ID).getNumberOfFailed());
+    }
+
+    @Test
+    public void testJobPastDeadlineIsCompleted() {
+        inject(bulkJobServiceTarget, "deadline", -1L);
+        this.createJob(2, BulkJobItem.pending(JOB_ID, "device-1", "correlation-1"),
+                BulkJobItem.pending(JOB_ID, "device-2", "correlation-2"));
+        this.handleResponse("correlation-1", ResponseMessageResultType.OK);
+
+        final BulkJobMonitor monitor = this.createMonitor(mock(TaskScheduler.class));
+        // All requests were stored, the job was not being sent.
+        monitor.expireJobsBeingSent();
+        assertEquals(1, bulkJobRepository.findByJobId(JOB_ID).getNumberOfPending());
+
+        monitor.expireJobsPastDeadline();
+        monitor.expireJobsPastDeadline();
+
+        final BulkJob job = bulkJobRepository.findByJobId(JOB_ID);
+        assertTrue(job.isCompleted());
+        assertEquals(1, job.getNumberOfFailed());
+        assertEquals(BulkJobMonitor.DEADLINE_PASSED,
+                bulkJobItemRepository.findByCorrelationUid("correlation-2").getResultDescription());
+        this.verifyCompletedNotification();
+    }
+
+    @Test
+    public void testJobBeforeDeadlineDoesNotExpire() {
+        this.createJob(1, BulkJobItem.pending(JOB_ID, "device-1", "correlation-1"));
+
+        this.createMonitor(mock(TaskScheduler.class)).expireJobsPastDeadline();
+
+        assertEquals(1, bulkJobRepository.findByJobId(JOB_ID).getNumberOfPending());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testNoRequestsAreStoredAfterJobExpired() {
+        this.createJob(2, BulkJobItem.pending(JOB_ID, "device-1", "correlation-1"));
+        bulkJobService.expire(JOB_ID, BulkJobMonitor.DEADLINE_PASSED);
+
+        // The sending of the job continues with the next chunk.
+        bulkJobService.saveItems(JOB_ID,
+                Arrays.asList(BulkJobItem.pending(JOB_ID, "device-2", "correlation-2")));
+    }
+
+    private void createJob(final int numberOfDevices, final BulkJobItem... items) {
+        final List<String> deviceIdentifications = new ArrayList<>();
+        for (int i = 1; i <= numberOfDevices; i++) {
+            deviceIdentifications.add("device-" + i);
+        }
+        final List<BulkJobItem> jobItems = Arrays.asList(items);
+        transactionTemplate.execute(new TransactionCallback<Void>() {
+            @Override
+            public Void doInTransaction(final TransactionStatus status) {
+                bulkJobService.createJob(JOB_ID, ORGANISATION, deviceIdentifications);
+                bulkJobService.saveItems(JOB_ID, jobItems);
+                return null;
+            }
+        });
+    }
+
+    private BulkJobMonitor createMonitor(final TaskScheduler taskScheduler) {
+        final BulkJobMonitor monitor = new BulkJobMonitor();
+        inject(monitor, "bulkJobService", bulkJobService);
+        inject(monitor, "taskScheduler", taskScheduler);
+        inject(monitor, "checkInterval", CHECK_INTERVAL);
+        return monitor;
+    }
+
+    private List<BulkJobItem> findItems() {
+        return bulkJobItemRepository.findByJobId(JOB_ID, new PageRequest(0, 10, Sort.Direction.ASC, "id"))
+                .getContent();
+    }
+
+    private List<String> deviceIdentifications(final List<BulkJobItem> items) {
+        final List<String> deviceIdentifications = new ArrayList<>();
+        for (final BulkJobItem item : items) {
+            deviceIdentifications.add(item.getDeviceIdentification());
+        }
+        return deviceIdentifications;
+    }
+
+    private void verifyCompletedNotification() {
+        verify(this.notificationService).sendNotification(eq(ORGANISATION), eq(BulkJob.DEVICE_IDENTIFICATION),
+                anyString(), eq(JOB_ID), eq(BulkJobService.COMPLETED_MESSAGE), any(NotificationType.class));
+    }
+
+    private BulkJob handleResponse(final String correlationUid, final ResponseMessageResultType resultType) {
+        return transactionTemplate.execute(new TransactionCallback<BulkJob>() {
+            @Override
+            public BulkJob doInTransaction(final TransactionStatus status) {
+                return bulkJobService.handleResponse(correlationUid, resultType, resultType.name(),
+                        "result of " + correlationUid);
+            }
+        });
+    }
+
+    private static void inject(final Object target, final String name, final Object value) {
+        final Field field = ReflectionUtils.findField(target.getClass(), name);
+        ReflectionUtils.makeAccessible(field);
+        ReflectionUtils.setField(field, target, value);
+    }
+}
@@ -9,6 +9,7 @@ package com.alliander.osgp.adapter.ws.tariffswitching.application.config;
 
 import javax.annotation.Resource;
 
+import org.apache.activemq.ActiveMQSession;
 import org.apache.activemq.RedeliveryPolicy;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -16,8 +17,10 @@ import org.springframework.context.annotation.PropertySource;
 import org.springframework.context.annotation.PropertySources;
 import org.springframework.core.env.Environment;
 import org.springframework.jms.core.JmsTemplate;
+import org.springframework.jms.listener.DefaultMessageListenerContainer;
 
 import com.alliander.osgp.adapter.ws.infra.jms.LoggingMessageSender;
+import com.alliander.osgp.adapter.ws.infra.jms.ResponseMessageRegistry;
 import com.alliander.osgp.adapter.ws.tariffswitching.infra.jms.TariffSwitchingRequestMessageSender;
 import com.alliander.osgp.adapter.ws.tariffswitching.infra.jms.TariffSwitchingResponseMessageFinder;
 import com.alliander.osgp.shared.application.config.AbstractMessagingConfig;
@@ -33,6 +36,11 @@ import com.alliander.osgp.shared.application.config.jms.JmsPropertyNames;
 public class MessagingConfig extends AbstractMessagingConfig {
 
     public static final String PROPERTY_NAME_JMS_RECEIVE_TIMEOUT = "jms.tariffswitching.responses.receive.timeout";
+    public static final String PROPERTY_NAME_RESPONSE_REGISTRY_MAX_ENTRIES = "jms.tariffswitching.responses.registry.max.entries";
+    public static final String PROPERTY_NAME_RESPONSE_REGISTRY_HOLD_TIME = "jms.tariffswitching.responses.registry.hold.time";
+    public static final String PROPERTY_NAME_RESPONSES_QUEUE = "jms.tariffswitching.responses.queue";
+    public static final String PROPERTY_NAME_RESPONSES_HAND_OFF_QUEUE = "jms.tariffswitching.responses.hand.off.queue";
+    public static final String PROPERTY_NAME_RESPONSES_LOOK_UP_TOPIC = "jms.tariffswitching.responses.look.up.topic";
 
     @Resource
     private Environment environment;
@@ -64,7 +72,8 @@ public class MessagingConfig extends AbstractMessagingConfig {
     }
 
     @Bean(name = "wsTariffSwitchingOutgoingRequestsJmsTemplate")
-    public JmsTemplate tariffSwitchingRequestsJmsTemplate(final JmsConfiguration tariffSwitchingRequestsJmsConfiguration) {
+    public JmsTemplate tariffSwitchingRequestsJmsTemplate(
+            final JmsConfiguration tariffSwitchingRequestsJmsConfiguration) {
         return tariffSwitchingRequestsJmsConfiguration.getJmsTemplate();
     }
 
@@ -78,20 +87,81 @@ public class MessagingConfig extends AbstractMessagingConfig {
     @Bean
     public JmsConfiguration tariffSwitchingResponsesJmsConfiguration(
             final JmsConfigurationFactory jmsConfigurationFactory) {
-        return jmsConfigurationFactory.initializeConfiguration(JmsConfigurationNames.JMS_TARIFFSWITCHING_RESPONSES);
+        return jmsConfigurationFactory.initializeConfiguration(JmsConfigurationNames.JMS_TARIFFSWITCHING_RESPONSES,
+                this.tariffSwitchingResponseMessageRegistry());
     }
 
-    @Bean(name = "wsTariffSwitchingIncomingResponsesJmsTemplate")
-    public JmsTemplate tariffSwitchingResponsesJmsTemplate(
+    @Bean(name = "wsTariffSwitchingResponsesHandOffJmsTemplate")
+    public JmsTemplate wsTariffSwitchingResponsesHandOffJmsTemplate(
             final JmsConfiguration tariffSwitchingResponsesJmsConfiguration) {
-        final Long receiveTimeout = Long.parseLong(this.environment
-                .getRequiredProperty(PROPERTY_NAME_JMS_RECEIVE_TIMEOUT));
+        final Long receiveTimeout = Long
+                .parseLong(this.environment.getRequiredProperty(PROPERTY_NAME_JMS_RECEIVE_TIMEOUT));
 
-        final JmsTemplate jmsTemplate = tariffSwitchingResponsesJmsConfiguration.getJmsTemplate();
+        final JmsTemplate jmsTemplate = new JmsTemplate(
+                tariffSwitchingResponsesJmsConfiguration.getJmsTemplate().getConnectionFactory());
+        jmsTemplate.setDefaultDestinationName(
+                this.environment.getRequiredProperty(PROPERTY_NAME_RESPONSES_HAND_OFF_QUEUE));
         jmsTemplate.setReceiveTimeout(receiveTimeout);
         return jmsTemplate;
     }
 
+    @Bean(name = "wsTariffSwitchingResponsesLookUpJmsTemplate")
+    public JmsTemplate wsTariffSwitchingResponsesLookUpJmsTemplate(
+            final JmsConfiguration tariffSwitchingResponsesJmsConfiguration) {
+        final JmsTemplate jmsTemplate = new JmsTemplate(
+                tariffSwitchingResponsesJmsConfiguration.getJmsTemplate().getConnectionFactory());
+        jmsTemplate.setPubSubDomain(true);
+        jmsTemplate.setDefaultDestinationName(
+                this.environment.getRequiredProperty(PROPERTY_NAME_RESPONSES_LOOK_UP_TOPIC));
+        // A look-up is only of use to the instances listening at the time.
+        jmsTemplate.setExplicitQosEnabled(true);
+        jmsTemplate.setDeliveryPersistent(false);
+        return jmsTemplate;
+    }
+
+    @Bean
+    public ResponseMessageRegistry tariffSwitchingResponseMessageRegistry() {
+        final Integer maxEntries = Integer
+                .parseInt(this.environment.getRequiredProperty(PROPERTY_NAME_RESPONSE_REGISTRY_MAX_ENTRIES));
+        final Long holdTime = Long
+                .parseLong(this.environment.getRequiredProperty(PROPERTY_NAME_RESPONSE_REGISTRY_HOLD_TIME));
+        final Long receiveTimeout = Long
+                .parseLong(this.environment.getRequiredProperty(PROPERTY_NAME_JMS_RECEIVE_TIMEOUT));
+
+        return new ResponseMessageRegistry(maxEntries, holdTime, receiveTimeout);
+    }
+
+    @Bean(name = "wsTariffSwitchingIncomingResponsesMessageListenerContainer")
+    public DefaultMessageListenerContainer wsTariffSwitchingIncomingResponsesMessageListenerContainer(
+            final JmsConfiguration tariffSwitchingResponsesJmsConfiguration,
+            final JmsTemplate wsTariffSwitchingResponsesHandOffJmsTemplate,
+            final JmsTemplate wsTariffSwitchingResponsesLookUpJmsTemplate) {
+        final ResponseMessageRegistry registry = this.tariffSwitchingResponseMessageRegistry();
+        final DefaultMessageListenerContainer messageListenerContainer = tariffSwitchingResponsesJmsConfiguration
+                .getMessageListenerContainer();
+        // The registry acknowledges a response when it is taken or handed off.
+        messageListenerContainer.setSessionTransacted(false);
+        messageListenerContainer.setSessionAcknowledgeMode(ActiveMQSession.INDIVIDUAL_ACKNOWLEDGE);
+        messageListenerContainer.setDestinationName(
+                registry.getDestinationName(this.environment.getRequiredProperty(PROPERTY_NAME_RESPONSES_QUEUE)));
+        registry.setHandOffJmsTemplate(wsTariffSwitchingResponsesHandOffJmsTemplate);
+        registry.setLookUpJmsTemplate(wsTariffSwitchingResponsesLookUpJmsTemplate);
+        return messageListenerContainer;
+    }
+
+    @Bean(name = "wsTariffSwitchingResponsesLookUpMessageListenerContainer")
+    public DefaultMessageListenerContainer wsTariffSwitchingResponsesLookUpMessageListenerContainer(
+            final JmsTemplate wsTariffSwitchingResponsesLookUpJmsTemplate) {
+        final DefaultMessageListenerContainer messageListenerContainer = new DefaultMessageListenerContainer();
+        messageListenerContainer.setConnectionFactory(
+                wsTariffSwitchingResponsesLookUpJmsTemplate.getConnectionFactory());
+        messageListenerContainer.setPubSubDomain(true);
+        messageListenerContainer.setDestinationName(
+                wsTariffSwitchingResponsesLookUpJmsTemplate.getDefaultDestinationName());
+        messageListenerContainer.setMessageListener(this.tariffSwitchingResponseMessageRegistry().getLookUpListener());
+        return messageListenerContainer;
+    }
+
     @Bean(name = "wsTariffSwitchingIncomingResponsesMessageFinder")
     public TariffSwitchingResponseMessageFinder tariffSwitchingResponseMessageFinder() {
         return new TariffSwitchingResponseMessageFinder();
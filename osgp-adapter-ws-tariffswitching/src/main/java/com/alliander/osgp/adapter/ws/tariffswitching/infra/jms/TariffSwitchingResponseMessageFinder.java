@@ -12,9 +12,8 @@ import javax.jms.ObjectMessage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Qualifier;
-import org.springframework.jms.core.JmsTemplate;
 
+import com.alliander.osgp.adapter.ws.infra.jms.ResponseMessageRegistry;
 import com.alliander.osgp.shared.infra.jms.BaseResponseMessageFinder;
 
 /**
@@ -29,17 +28,17 @@ public class TariffSwitchingResponseMessageFinder extends BaseResponseMessageFin
     private static final Logger LOGGER = LoggerFactory.getLogger(TariffSwitchingResponseMessageFinder.class);
 
     /**
-     * Autowired JMS template for OSGP domain tariff switching responses queue.
+     * Autowired registry of the OSGP domain tariff switching responses queue.
      */
     @Autowired
-    @Qualifier("wsTariffSwitchingIncomingResponsesJmsTemplate")
-    private JmsTemplate tariffSwitchingResponsesJmsTemplate;
+    private ResponseMessageRegistry tariffSwitchingResponseMessageRegistry;
 
     @Override
     protected ObjectMessage receiveObjectMessage(final String correlationUid) {
         LOGGER.info("Trying to find message with correlationUID: {}", correlationUid);
 
-        return (ObjectMessage) this.tariffSwitchingResponsesJmsTemplate.receiveSelected(this
-                .getJmsCorrelationId(correlationUid));
+        // Asks the other instances when this instance does not hold the
+        // response.
+        return this.tariffSwitchingResponseMessageRegistry.find(correlationUid);
     }
 }
@@ -0,0 +1,120 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.benchmarks.codec;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.alliander.osgp.domain.core.codec.MessageCodec;
+import com.alliander.osgp.domain.core.codec.MessageCodecs;
+import com.alliander.osgp.domain.core.exceptions.MessageCodecException;
+import com.alliander.osgp.domain.core.valueobjects.smartmetering.CosemDate;
+import com.alliander.osgp.domain.core.valueobjects.smartmetering.SpecialDay;
+import com.alliander.osgp.domain.core.valueobjects.smartmetering.SpecialDaysRequest;
+import com.alliander.osgp.domain.core.valueobjects.smartmetering.SpecialDaysRequestData;
+import com.alliander.osgp.dto.valueobjects.smartmetering.CaptureObjectDto;
+import com.alliander.osgp.dto.valueobjects.smartmetering.ObisCodeValuesDto;
+import com.alliander.osgp.dto.valueobjects.smartmetering.ProfileEntryDto;
+import com.alliander.osgp.dto.valueobjects.smartmetering.ProfileEntryValueDto;
+import com.alliander.osgp.dto.valueobjects.smartmetering.ProfileGenericDataResponseDto;
+
+/**
+ * Benchmarks encoding and decoding of JMS message payloads with the Java
+ * serialization codec and the compact binary codec, for a small request and
+ * a profile generic data response of a day and a month of quarter hour
+ * values.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 10, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class MessageCodecBenchmark {
+
+    private static final int SPECIAL_DAYS = 20;
+
+    @Param({ "java", "compact-v1" })
+    private String codecName;
+
+    @Param({ "96", "2880" })
+    private int profileEntries;
+
+    private MessageCodec codec;
+
+    private SpecialDaysRequest specialDaysRequest;
+    private ProfileGenericDataResponseDto profileGenericDataResponseDto;
+
+    private byte[] encodedSpecialDaysRequest;
+    private byte[] encodedProfileGenericDataResponseDto;
+
+    @Setup
+    public void setUp() throws MessageCodecException {
+        this.codec = MessageCodecs.forName(this.codecName);
+
+        final List<SpecialDay> specialDays = new ArrayList<>(SPECIAL_DAYS);
+        for (int i = 0; i < SPECIAL_DAYS; i++) {
+            specialDays.add(new SpecialDay(new CosemDate(2017, 1 + i % 12, 1 + i), 1 + i % 4));
+        }
+        this.specialDaysRequest = new SpecialDaysRequest("E0000000000000001",
+                new SpecialDaysRequestData(specialDays));
+
+        final List<ProfileEntryDto> entries = new ArrayList<>(this.profileEntries);
+        final long start = System.currentTimeMillis();
+        for (int i = 0; i < this.profileEntries; i++) {
+            final List<ProfileEntryValueDto> values = new ArrayList<>();
+            values.add(new ProfileEntryValueDto(new Date(start + i * 900000L)));
+            values.add(new ProfileEntryValueDto(Long.valueOf(i)));
+            values.add(new ProfileEntryValueDto(new BigDecimal(i * 1.25d)));
+            values.add(new ProfileEntryValueDto("status " + i));
+            entries.add(new ProfileEntryDto(values));
+        }
+        this.profileGenericDataResponseDto = new ProfileGenericDataResponseDto(
+                new ObisCodeValuesDto((byte) 1, (byte) 0, (byte) 99, (byte) 1, (byte) 0, (byte) 255),
+                new ArrayList<CaptureObjectDto>(), entries);
+
+        this.encodedSpecialDaysRequest = this.codec.encode(this.specialDaysRequest);
+        this.encodedProfileGenericDataResponseDto = this.codec.encode(this.profileGenericDataResponseDto);
+    }
+
+    @Benchmark
+    public byte[] encodeSpecialDaysRequest() throws MessageCodecException {
+        return this.codec.encode(this.specialDaysRequest);
+    }
+
+    @Benchmark
+    public Serializable decodeSpecialDaysRequest() throws MessageCodecException {
+        return this.codec.decode(this.encodedSpecialDaysRequest);
+    }
+
+    @Benchmark
+    public byte[] encodeProfileGenericDataResponse() throws MessageCodecException {
+        return this.codec.encode(this.profileGenericDataResponseDto);
+    }
+
+    @Benchmark
+    public Serializable decodeProfileGenericDataResponse() throws MessageCodecException {
+        return this.codec.decode(this.encodedProfileGenericDataResponseDto);
+    }
+}
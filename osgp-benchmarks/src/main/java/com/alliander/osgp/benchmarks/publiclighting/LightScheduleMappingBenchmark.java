@@ -0,0 +1,100 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.benchmarks.publiclighting;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.alliander.osgp.adapter.domain.publiclighting.application.mapping.DomainPublicLightingMapper;
+import com.alliander.osgp.adapter.ws.publiclighting.application.mapping.ScheduleManagementMapper;
+import com.alliander.osgp.domain.core.exceptions.ValidationException;
+import com.alliander.osgp.domain.core.valueobjects.ActionTimeType;
+import com.alliander.osgp.domain.core.valueobjects.LightValue;
+import com.alliander.osgp.domain.core.valueobjects.Schedule;
+import com.alliander.osgp.domain.core.valueobjects.TriggerType;
+import com.alliander.osgp.domain.core.valueobjects.WeekDayType;
+import com.alliander.osgp.dto.valueobjects.ScheduleDto;
+
+/**
+ * Benchmarks mapping a light schedule in the public lighting web service
+ * adapter, from the request to the domain, and in the public lighting domain
+ * adapter, from the domain to the protocol adapters.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 10, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class LightScheduleMappingBenchmark {
+
+    /**
+     * The number of schedule entries, a device accepts at most 50 entries.
+     */
+    @Param({ "4", "50" })
+    private int scheduleEntries;
+
+    private ScheduleManagementMapper scheduleManagementMapper;
+    private DomainPublicLightingMapper domainPublicLightingMapper;
+
+    private List<com.alliander.osgp.adapter.ws.schema.publiclighting.schedulemanagement.Schedule> wsSchedules;
+    private List<Schedule> schedules;
+
+    @Setup
+    public void setUp() throws ValidationException {
+        this.scheduleManagementMapper = new ScheduleManagementMapper();
+        this.domainPublicLightingMapper = new DomainPublicLightingMapper();
+
+        this.schedules = new ArrayList<>(this.scheduleEntries);
+        for (int i = 0; i < this.scheduleEntries; i++) {
+            final Schedule schedule = new Schedule();
+            schedule.setIndex(i);
+            schedule.setIsEnabled(true);
+            schedule.setWeekDay(WeekDayType.values()[i % WeekDayType.values().length]);
+            if (i % 2 == 0) {
+                schedule.setActionTime(ActionTimeType.SUNSET);
+                schedule.setTriggerType(TriggerType.ASTRONOMICAL);
+                schedule.setLightValue(Arrays.asList(new LightValue(1, true, 100), new LightValue(2, true, 50)));
+            } else {
+                schedule.setActionTime(ActionTimeType.ABSOLUTETIME);
+                schedule.setTime(String.format("%02d:%02d:00.000", i % 24, i % 60));
+                schedule.setLightValue(Arrays.asList(new LightValue(1, false, null), new LightValue(2, false, null)));
+            }
+            this.schedules.add(schedule);
+        }
+
+        // The request schedules are created with the mapper, so they hold the
+        // same values as the domain schedules.
+        this.wsSchedules = this.scheduleManagementMapper.mapAsList(this.schedules,
+                com.alliander.osgp.adapter.ws.schema.publiclighting.schedulemanagement.Schedule.class);
+    }
+
+    @Benchmark
+    public List<Schedule> wsScheduleManagementMapper() {
+        return this.scheduleManagementMapper.mapAsList(this.wsSchedules, Schedule.class);
+    }
+
+    @Benchmark
+    public List<ScheduleDto> domainScheduleConverter() {
+        return this.domainPublicLightingMapper.mapAsList(this.schedules, ScheduleDto.class);
+    }
+}
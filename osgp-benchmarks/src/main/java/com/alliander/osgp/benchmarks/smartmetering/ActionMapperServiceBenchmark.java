@@ -0,0 +1,90 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.benchmarks.smartmetering;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import com.alliander.osgp.adapter.ws.schema.smartmetering.bundle.GetActualMeterReadsGasRequest;
+import com.alliander.osgp.adapter.ws.schema.smartmetering.bundle.GetActualMeterReadsRequest;
+import com.alliander.osgp.adapter.ws.schema.smartmetering.bundle.GetAdministrativeStatusRequest;
+import com.alliander.osgp.adapter.ws.schema.smartmetering.common.Action;
+import com.alliander.osgp.adapter.ws.smartmetering.application.mapping.AdhocMapper;
+import com.alliander.osgp.adapter.ws.smartmetering.application.mapping.ConfigurationMapper;
+import com.alliander.osgp.adapter.ws.smartmetering.application.mapping.InstallationMapper;
+import com.alliander.osgp.adapter.ws.smartmetering.application.mapping.ManagementMapper;
+import com.alliander.osgp.adapter.ws.smartmetering.application.mapping.MonitoringMapper;
+import com.alliander.osgp.adapter.ws.smartmetering.application.services.ActionMapperService;
+import com.alliander.osgp.domain.core.valueobjects.smartmetering.ActionRequest;
+import com.alliander.osgp.shared.exceptionhandling.FunctionalException;
+
+/**
+ * Benchmarks mapping the actions of a bundle request of the smart metering web
+ * service adapter. The service and its mappers are wired by Spring, so the
+ * mapper registration of the service is the one used by the application.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 10, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class ActionMapperServiceBenchmark {
+
+    private static final int ACTIONS_PER_BUNDLE = 50;
+
+    private AnnotationConfigApplicationContext applicationContext;
+    private ActionMapperService actionMapperService;
+    private List<Action> actions;
+
+    @Setup
+    public void setUp() {
+        this.applicationContext = new AnnotationConfigApplicationContext(ManagementMapper.class, AdhocMapper.class,
+                ConfigurationMapper.class, MonitoringMapper.class, InstallationMapper.class,
+                ActionMapperService.class);
+        this.actionMapperService = this.applicationContext.getBean(ActionMapperService.class);
+
+        this.actions = new ArrayList<>(ACTIONS_PER_BUNDLE);
+        for (int i = 0; i < ACTIONS_PER_BUNDLE; i++) {
+            switch (i % 3) {
+            case 0:
+                this.actions.add(new GetActualMeterReadsRequest());
+                break;
+            case 1:
+                this.actions.add(new GetActualMeterReadsGasRequest());
+                break;
+            default:
+                this.actions.add(new GetAdministrativeStatusRequest());
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.applicationContext.close();
+    }
+
+    @Benchmark
+    public List<ActionRequest> mapAllActions() throws FunctionalException {
+        return this.actionMapperService.mapAllActions(this.actions);
+    }
+}
@@ -0,0 +1,64 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.benchmarks.smartmetering;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ma.glasnost.orika.impl.ConfigurableMapper;
+
+/**
+ * Benchmarks setting up the Orika mappers of the smart metering adapters. A
+ * mapper is set up once per application context, every iteration measures a
+ * single set up, which includes generating the class maps registered by the
+ * mapper.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 20)
+@Fork(1)
+public class SmartMeteringMapperSetupBenchmark {
+
+    @Benchmark
+    public ConfigurableMapper wsConfigurationMapper() {
+        return new com.alliander.osgp.adapter.ws.smartmetering.application.mapping.ConfigurationMapper();
+    }
+
+    @Benchmark
+    public ConfigurableMapper wsMonitoringMapper() {
+        return new com.alliander.osgp.adapter.ws.smartmetering.application.mapping.MonitoringMapper();
+    }
+
+    @Benchmark
+    public ConfigurableMapper wsManagementMapper() {
+        return new com.alliander.osgp.adapter.ws.smartmetering.application.mapping.ManagementMapper();
+    }
+
+    @Benchmark
+    public ConfigurableMapper domainConfigurationMapper() {
+        return new com.alliander.osgp.adapter.domain.smartmetering.application.mapping.ConfigurationMapper();
+    }
+
+    @Benchmark
+    public ConfigurableMapper domainMonitoringMapper() {
+        return new com.alliander.osgp.adapter.domain.smartmetering.application.mapping.MonitoringMapper();
+    }
+
+    @Benchmark
+    public ConfigurableMapper domainManagementMapper() {
+        return new com.alliander.osgp.adapter.domain.smartmetering.application.mapping.ManagementMapper();
+    }
+}
@@ -0,0 +1,131 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.benchmarks.smartmetering;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.alliander.osgp.adapter.ws.schema.smartmetering.monitoring.ProfileGenericData;
+import com.alliander.osgp.adapter.ws.schema.smartmetering.monitoring.ProfileGenericDataResponse;
+import com.alliander.osgp.adapter.ws.smartmetering.application.mapping.ConfigurationMapper;
+import com.alliander.osgp.adapter.ws.smartmetering.application.mapping.CosemDateTimeConverter;
+import com.alliander.osgp.adapter.ws.smartmetering.application.mapping.MonitoringMapper;
+import com.alliander.osgp.domain.core.valueobjects.smartmetering.CaptureObject;
+import com.alliander.osgp.domain.core.valueobjects.smartmetering.CosemDateTime;
+import com.alliander.osgp.domain.core.valueobjects.smartmetering.ObisCodeValues;
+import com.alliander.osgp.domain.core.valueobjects.smartmetering.ProfileEntry;
+import com.alliander.osgp.domain.core.valueobjects.smartmetering.ProfileEntryValue;
+
+import ma.glasnost.orika.MapperFacade;
+import ma.glasnost.orika.MapperFactory;
+import ma.glasnost.orika.impl.DefaultMapperFactory;
+
+/**
+ * Benchmarks the mappings of the smart metering web service adapter, with the
+ * mappers set up like in the application context.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 10, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class WsSmartMeteringMappingBenchmark {
+
+    private static final byte[] COSEM_DATE_TIME = { (byte) 0x07, (byte) 0xE0, 4, 7, (byte) 0xFF, 10, 34, 35, 10, -1,
+            -120, (byte) 0xFF };
+
+    /**
+     * The number of profile entries, a day and a month of quarter hour
+     * values.
+     */
+    @Param({ "96", "2880" })
+    private int profileEntries;
+
+    private MonitoringMapper monitoringMapper;
+    private ConfigurationMapper configurationMapper;
+    private MapperFacade cosemDateTimeMapper;
+
+    private com.alliander.osgp.domain.core.valueobjects.smartmetering.ProfileGenericData profileGenericData;
+    private com.alliander.osgp.domain.core.valueobjects.smartmetering.ProfileGenericDataResponse profileGenericDataResponse;
+
+    @Setup
+    public void setUp() {
+        this.monitoringMapper = new MonitoringMapper();
+        this.configurationMapper = new ConfigurationMapper();
+
+        final MapperFactory mapperFactory = new DefaultMapperFactory.Builder().build();
+        mapperFactory.getConverterFactory().registerConverter(new CosemDateTimeConverter());
+        this.cosemDateTimeMapper = mapperFactory.getMapperFacade();
+
+        final ObisCodeValues logicalName = new ObisCodeValues((byte) 1, (byte) 0, (byte) 99, (byte) 1, (byte) 0,
+                (byte) 255);
+        this.profileGenericData = new com.alliander.osgp.domain.core.valueobjects.smartmetering.ProfileGenericData(
+                logicalName, this.makeCaptureObjects(), this.makeProfileEntries());
+        this.profileGenericDataResponse = new com.alliander.osgp.domain.core.valueobjects.smartmetering.ProfileGenericDataResponse(
+                logicalName, this.makeCaptureObjects(), this.makeProfileEntries());
+    }
+
+    @Benchmark
+    public CosemDateTime cosemDateTimeConverter() {
+        return this.cosemDateTimeMapper.map(COSEM_DATE_TIME, CosemDateTime.class);
+    }
+
+    @Benchmark
+    public CosemDateTime configurationMapperCosemDateTime() {
+        return this.configurationMapper.map(COSEM_DATE_TIME, CosemDateTime.class);
+    }
+
+    @Benchmark
+    public ProfileGenericData profileGenericDataConverter() {
+        return this.monitoringMapper.map(this.profileGenericData, ProfileGenericData.class);
+    }
+
+    @Benchmark
+    public ProfileGenericDataResponse profileGenericDataResponse() {
+        return this.monitoringMapper.map(this.profileGenericDataResponse, ProfileGenericDataResponse.class);
+    }
+
+    private List<CaptureObject> makeCaptureObjects() {
+        final List<CaptureObject> captureObjects = new ArrayList<>();
+        captureObjects.add(new CaptureObject(8L, "0.0.1.0.0.255", 2, 0, "UNDEFINED"));
+        captureObjects.add(new CaptureObject(1L, "0.0.96.10.1.255", 2, 0, "UNDEFINED"));
+        captureObjects.add(new CaptureObject(3L, "1.0.1.8.0.255", 2, 0, "KWH"));
+        captureObjects.add(new CaptureObject(3L, "1.0.2.8.0.255", 2, 0, "KWH"));
+        return captureObjects;
+    }
+
+    private List<ProfileEntry> makeProfileEntries() {
+        final List<ProfileEntry> entries = new ArrayList<>(this.profileEntries);
+        final long start = System.currentTimeMillis();
+        for (int i = 0; i < this.profileEntries; i++) {
+            final List<ProfileEntryValue> values = new ArrayList<>();
+            values.add(new ProfileEntryValue(new Date(start + i * 900000L)));
+            values.add(new ProfileEntryValue(Long.valueOf(i)));
+            values.add(new ProfileEntryValue(new BigDecimal(i * 1.25d)));
+            values.add(new ProfileEntryValue("status " + i));
+            entries.add(new ProfileEntry(values));
+        }
+        return entries;
+    }
+}
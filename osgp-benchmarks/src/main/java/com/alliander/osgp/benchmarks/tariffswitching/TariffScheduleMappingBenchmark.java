@@ -0,0 +1,89 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.benchmarks.tariffswitching;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.alliander.osgp.adapter.domain.tariffswitching.application.mapping.DomainTariffSwitchingMapper;
+import com.alliander.osgp.adapter.ws.schema.tariffswitching.schedulemanagement.TariffSchedule;
+import com.alliander.osgp.adapter.ws.schema.tariffswitching.schedulemanagement.TariffValue;
+import com.alliander.osgp.adapter.ws.tariffswitching.application.mapping.ScheduleManagementMapper;
+import com.alliander.osgp.domain.core.valueobjects.Schedule;
+import com.alliander.osgp.dto.valueobjects.ScheduleDto;
+
+/**
+ * Benchmarks mapping a tariff schedule in the tariff switching web service
+ * adapter, from the request to the domain, and in the tariff switching domain
+ * adapter, from the domain to the protocol adapters.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 10, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class TariffScheduleMappingBenchmark {
+
+    /**
+     * The number of schedule entries, a device accepts at most 50 entries.
+     */
+    @Param({ "4", "50" })
+    private int scheduleEntries;
+
+    private ScheduleManagementMapper scheduleManagementMapper;
+    private DomainTariffSwitchingMapper domainTariffSwitchingMapper;
+
+    private List<TariffSchedule> tariffSchedules;
+    private List<Schedule> schedules;
+
+    @Setup
+    public void setUp() {
+        this.scheduleManagementMapper = new ScheduleManagementMapper();
+        this.domainTariffSwitchingMapper = new DomainTariffSwitchingMapper();
+
+        this.tariffSchedules = new ArrayList<>(this.scheduleEntries);
+        for (int i = 0; i < this.scheduleEntries; i++) {
+            final TariffValue tariffValue = new TariffValue();
+            tariffValue.setIndex(1);
+            tariffValue.setHigh(i % 2 == 0);
+
+            final TariffSchedule tariffSchedule = new TariffSchedule();
+            tariffSchedule.setIndex(i);
+            tariffSchedule.setIsEnabled(true);
+            tariffSchedule.setTime(String.format("%02d:%02d:00.000", i % 24, i % 60));
+            tariffSchedule.getTariffValue().add(tariffValue);
+            this.tariffSchedules.add(tariffSchedule);
+        }
+
+        this.schedules = this.scheduleManagementMapper.mapAsList(this.tariffSchedules, Schedule.class);
+    }
+
+    @Benchmark
+    public List<Schedule> wsTariffScheduleToScheduleConverter() {
+        return this.scheduleManagementMapper.mapAsList(this.tariffSchedules, Schedule.class);
+    }
+
+    @Benchmark
+    public List<ScheduleDto> domainScheduleConverter() {
+        return this.domainTariffSwitchingMapper.mapAsList(this.schedules, ScheduleDto.class);
+    }
+}
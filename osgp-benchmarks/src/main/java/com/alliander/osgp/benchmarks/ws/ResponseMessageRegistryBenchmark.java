@@ -0,0 +1,171 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.benchmarks.ws;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.jms.Connection;
+import javax.jms.JMSException;
+import javax.jms.MessageConsumer;
+import javax.jms.MessageProducer;
+import javax.jms.ObjectMessage;
+import javax.jms.Queue;
+import javax.jms.Session;
+
+import org.apache.activemq.ActiveMQConnectionFactory;
+import org.apache.activemq.ActiveMQSession;
+import org.apache.activemq.broker.BrokerService;
+import org.apache.activemq.broker.region.policy.PolicyEntry;
+import org.apache.activemq.broker.region.policy.PolicyMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.springframework.jms.core.JmsTemplate;
+
+import com.alliander.osgp.adapter.ws.infra.jms.ResponseMessageRegistry;
+
+/**
+ * Benchmarks finding a response that just arrived behind a number of
+ * responses nobody asked for yet, with a JMSCorrelationID selector, as the
+ * response message finders did, and with a {@link ResponseMessageRegistry}
+ * drained by a single consumer in individual acknowledge mode, as the web
+ * service adapters do now. Runs against an embedded, non-persistent broker.
+ *
+ * When the registry overflows it holds half of the queued responses, and
+ * every find is preceded by a response nobody asks for. The response that is
+ * asked for then only enters the registry once older responses are handed off
+ * after the hold time, so this includes the cost of handing off.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 10, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class ResponseMessageRegistryBenchmark {
+
+    private static final long RECEIVE_TIMEOUT = 5000;
+    private static final long OVERFLOW_HOLD_TIME = 200;
+
+    @Param({ "1000", "10000", "50000" })
+    private int queuedResponses;
+
+    @Param({ "false", "true" })
+    private boolean overflow;
+
+    private BrokerService broker;
+    private Connection connection;
+    private Session session;
+    private Queue selectorQueue;
+    private Queue registryQueue;
+    private MessageProducer producer;
+    private ResponseMessageRegistry registry;
+    private long sequence;
+
+    @Setup
+    public void setUp() throws Exception {
+        this.broker = new BrokerService();
+        this.broker.setBrokerName("benchmark");
+        this.broker.setPersistent(false);
+        this.broker.setUseJmx(false);
+        this.broker.getSystemUsage().getMemoryUsage().setLimit(512L * 1024 * 1024);
+        // With the default page size a selector only sees the first 200
+        // messages of the queue, and would not find most responses at all.
+        final PolicyEntry policy = new PolicyEntry();
+        policy.setQueue(">");
+        policy.setMaxPageSize(this.queuedResponses + 1000);
+        final PolicyMap policyMap = new PolicyMap();
+        policyMap.setDefaultEntry(policy);
+        this.broker.setDestinationPolicy(policyMap);
+        this.broker.start();
+
+        this.connection = new ActiveMQConnectionFactory("vm://benchmark?create=false").createConnection();
+        this.connection.start();
+        this.session = this.connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+        this.selectorQueue = this.session.createQueue("ws.benchmark.selector.responses");
+        this.registryQueue = this.session.createQueue("ws.benchmark.registry.responses");
+        this.producer = this.session.createProducer(null);
+
+        final int maxEntries;
+        if (this.overflow) {
+            maxEntries = this.queuedResponses / 2;
+            this.registry = new ResponseMessageRegistry(maxEntries, OVERFLOW_HOLD_TIME, RECEIVE_TIMEOUT);
+            final JmsTemplate handOffJmsTemplate = new JmsTemplate(
+                    new ActiveMQConnectionFactory("vm://benchmark?create=false"));
+            handOffJmsTemplate.setDefaultDestinationName("ws.benchmark.registry.responses.hand-off");
+            handOffJmsTemplate.setReceiveTimeout(RECEIVE_TIMEOUT);
+            this.registry.setHandOffJmsTemplate(handOffJmsTemplate);
+        } else {
+            // Room for the responses nobody asks for and the ones that are.
+            maxEntries = this.queuedResponses + 1000;
+            this.registry = new ResponseMessageRegistry(maxEntries, TimeUnit.HOURS.toMillis(1), RECEIVE_TIMEOUT);
+        }
+        final Session registrySession = this.connection.createSession(false,
+                ActiveMQSession.INDIVIDUAL_ACKNOWLEDGE);
+        registrySession
+                .createConsumer(registrySession
+                        .createQueue(this.registry.getDestinationName(this.registryQueue.getQueueName())))
+                .setMessageListener(this.registry);
+
+        for (int i = 0; i < this.queuedResponses; i++) {
+            this.send(this.selectorQueue);
+            this.send(this.registryQueue);
+        }
+        while (this.registry.size() < Math.min(this.queuedResponses, maxEntries)) {
+            Thread.sleep(10);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        this.registry.shutdown();
+        this.connection.close();
+        this.broker.stop();
+    }
+
+    @Benchmark
+    public ObjectMessage findWithSelector() throws JMSException {
+        if (this.overflow) {
+            this.send(this.selectorQueue);
+        }
+        final String correlationUid = this.send(this.selectorQueue);
+        final MessageConsumer consumer = this.session.createConsumer(this.selectorQueue,
+                "JMSCorrelationID='" + correlationUid + "'");
+        try {
+            return (ObjectMessage) consumer.receive(RECEIVE_TIMEOUT);
+        } finally {
+            consumer.close();
+        }
+    }
+
+    @Benchmark
+    public ObjectMessage findInRegistry() throws JMSException {
+        if (this.overflow) {
+            this.send(this.registryQueue);
+        }
+        return this.registry.find(this.send(this.registryQueue));
+    }
+
+    private String send(final Queue queue) throws JMSException {
+        final String correlationUid = "test-org|||TST-" + this.sequence++ + "|||20170101000000000";
+        final ObjectMessage message = this.session.createObjectMessage("response");
+        message.setJMSCorrelationID(correlationUid);
+        this.producer.send(queue, message);
+        return correlationUid;
+    }
+}
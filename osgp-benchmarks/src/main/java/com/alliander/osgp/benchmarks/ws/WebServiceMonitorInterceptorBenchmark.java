@@ -0,0 +1,173 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.benchmarks.ws;
+
+import java.io.ByteArrayInputStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.xpath.XPathConstants;
+import javax.xml.xpath.XPathExpression;
+import javax.xml.xpath.XPathExpressionException;
+import javax.xml.xpath.XPathFactory;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.util.ReflectionUtils;
+import org.springframework.ws.context.DefaultMessageContext;
+import org.springframework.ws.context.MessageContext;
+import org.springframework.ws.server.endpoint.MethodEndpoint;
+import org.springframework.ws.soap.SoapMessage;
+import org.springframework.ws.soap.saaj.SaajSoapMessageFactory;
+import org.w3c.dom.Document;
+import org.w3c.dom.NodeList;
+
+import com.alliander.osgp.adapter.ws.endpointinterceptors.SoapElementFinder;
+import com.alliander.osgp.adapter.ws.endpointinterceptors.WebServiceMonitorInterceptor;
+import com.alliander.osgp.adapter.ws.infra.jms.LoggingMessageSender;
+import com.alliander.osgp.adapter.ws.infra.jms.LoggingRequestMessage;
+
+/**
+ * Benchmarks finding the correlation UID, device identification and result
+ * in a SOAP message with the single pass SoapElementFinder and with the XPath
+ * expressions it replaced, and the complete handling of a response by the
+ * WebServiceMonitorInterceptor, for a small response and bundle responses.
+ * The logging messages of the interceptor are not sent to a queue.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 10, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class WebServiceMonitorInterceptorBenchmark {
+
+    private static final String[] ELEMENTS = { "CorrelationUid", "DeviceId", "Result" };
+
+    private static final String REQUEST = "<soap:Envelope xmlns:soap=\"http://schemas.xmlsoap.org/soap/envelope/\""
+            + " xmlns:ns=\"http://www.alliander.com/schemas/osgp/smartmetering/sm-bundle/2014/10\""
+            + " xmlns:common=\"http://www.alliander.com/schemas/osgp/common/2014/10\"><soap:Header>"
+            + "<common:OrganisationIdentification>test-org</common:OrganisationIdentification>"
+            + "<common:UserName>test-user</common:UserName>"
+            + "<common:ApplicationName>test-application</common:ApplicationName></soap:Header><soap:Body>"
+            + "<ns:BundleAsyncRequest><ns:DeviceIdentification>E0000000000000000</ns:DeviceIdentification>"
+            + "<ns:CorrelationUid>test-org|||E0000000000000000|||20170101000000000</ns:CorrelationUid>"
+            + "</ns:BundleAsyncRequest></soap:Body></soap:Envelope>";
+
+    @Param({ "1", "500" })
+    private int bundleActions;
+
+    private final SoapElementFinder finder = new SoapElementFinder(ELEMENTS);
+    private final XPathExpression[] expressions = new XPathExpression[ELEMENTS.length];
+
+    private Document responseDocument;
+
+    private WebServiceMonitorInterceptor interceptor;
+    private MessageContext messageContext;
+    private MethodEndpoint endpoint;
+
+    @Setup
+    public void setUp() throws Exception {
+        for (int i = 0; i < ELEMENTS.length; i++) {
+            this.expressions[i] = XPathFactory.newInstance().newXPath()
+                    .compile(String.format("//*[contains(local-name(), '%s')]", ELEMENTS[i]));
+        }
+
+        final DocumentBuilderFactory documentBuilderFactory = DocumentBuilderFactory.newInstance();
+        documentBuilderFactory.setNamespaceAware(true);
+        this.responseDocument = documentBuilderFactory.newDocumentBuilder()
+                .parse(new ByteArrayInputStream(bundleResponse(this.bundleActions).getBytes(StandardCharsets.UTF_8)));
+
+        final SaajSoapMessageFactory messageFactory = new SaajSoapMessageFactory();
+        messageFactory.afterPropertiesSet();
+        this.messageContext = new DefaultMessageContext(messageFactory.createWebServiceMessage(
+                new ByteArrayInputStream(REQUEST.getBytes(StandardCharsets.UTF_8))), messageFactory);
+        final SoapMessage response = (SoapMessage) this.messageContext.getResponse();
+        TransformerFactory.newInstance().newTransformer().transform(
+                new DOMSource(this.responseDocument.getElementsByTagNameNS("*", "BundleResponse").item(0)),
+                response.getPayloadResult());
+
+        this.interceptor = new WebServiceMonitorInterceptor("OrganisationIdentification", "UserName",
+                "ApplicationName");
+        final Field sender = ReflectionUtils.findField(WebServiceMonitorInterceptor.class, "loggingMessageSender");
+        ReflectionUtils.makeAccessible(sender);
+        ReflectionUtils.setField(sender, this.interceptor, new DiscardingLoggingMessageSender());
+
+        final Method method = ReflectionUtils.findMethod(Object.class, "toString");
+        this.endpoint = new MethodEndpoint(new Object(), method);
+    }
+
+    @TearDown
+    public void tearDown() throws InterruptedException {
+        this.interceptor.destroy();
+    }
+
+    @Benchmark
+    public String[] findWithSoapElementFinder() {
+        return this.finder.find(this.responseDocument);
+    }
+
+    @Benchmark
+    public String[] findWithXPath() throws XPathExpressionException {
+        final String[] values = new String[ELEMENTS.length];
+        for (int i = 0; i < ELEMENTS.length; i++) {
+            final NodeList nodeList = (NodeList) this.expressions[i].evaluate(this.responseDocument,
+                    XPathConstants.NODESET);
+            values[i] = nodeList.getLength() > 0 ? nodeList.item(0).getTextContent() : null;
+        }
+        return values;
+    }
+
+    @Benchmark
+    public boolean handleResponse() throws Exception {
+        return this.interceptor.handleResponse(this.messageContext, this.endpoint);
+    }
+
+    private static String bundleResponse(final int actions) {
+        final StringBuilder builder = new StringBuilder(
+                "<soap:Envelope xmlns:soap=\"http://schemas.xmlsoap.org/soap/envelope/\""
+                        + " xmlns:ns=\"http://www.alliander.com/schemas/osgp/smartmetering/sm-bundle/2014/10\">"
+                        + "<soap:Header/><soap:Body><ns:BundleResponse><ns:AllResponses>");
+        for (int i = 0; i < actions; i++) {
+            builder.append("<ns:ActionResponse><ns:Result>OK</ns:Result><ns:Description>Action ").append(i)
+                    .append(" handled</ns:Description><ns:PeriodicMeterReads><ns:LogTime>2017-01-01T00:00:00Z")
+                    .append("</ns:LogTime><ns:ActiveEnergyImport>").append(i)
+                    .append("</ns:ActiveEnergyImport></ns:PeriodicMeterReads></ns:ActionResponse>");
+        }
+        builder.append("</ns:AllResponses><ns:DeviceIdentification>E0000000000000000</ns:DeviceIdentification>")
+                .append("<ns:CorrelationUid>test-org|||E0000000000000000|||20170101000000000</ns:CorrelationUid>")
+                .append("</ns:BundleResponse></soap:Body></soap:Envelope>");
+        return builder.toString();
+    }
+
+    /**
+     * Discards the logging messages, so only the work done by the interceptor
+     * on the thread handling the request is measured.
+     */
+    private static class DiscardingLoggingMessageSender extends LoggingMessageSender {
+        @Override
+        public void send(final LoggingRequestMessage loggingMessage) {
+            // The logging message is not sent.
+        }
+    }
+}
@@ -0,0 +1,137 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.core.application.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.alliander.osgp.domain.core.entities.Device;
+import com.alliander.osgp.domain.core.entities.Organisation;
+
+/**
+ * Read-through caches for the devices and organisations looked up for every
+ * request dispatched by OSGP Core. The protocol info of a device, or of its
+ * gateway device, is loaded with the device and is cached along with it.
+ *
+ * The cached entities are detached and shared by all threads, they are only
+ * read while dispatching a request and must not be changed or saved.
+ * Authorization decisions are not cached, a revoked authorization has to take
+ * effect right away.
+ *
+ * Entries expire after a configurable time to live. Changes made through this
+ * application are invalidated right away by the
+ * {@link DomainLookupCacheInvalidationListener}, changes published by the web
+ * service adapters by the {@link DomainLookupCacheInvalidationMessageListener}.
+ * Other changes on the same database become visible once entries expire.
+ */
+public class DomainLookupCache implements DomainLookupCacheMXBean {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DomainLookupCache.class);
+
+    private final LookupCache<String, Device> devices;
+    private final LookupCache<String, Organisation> organisations;
+
+    public DomainLookupCache(final int maxEntries, final long timeToLive) {
+        this.devices = new LookupCache<>("devices", maxEntries, timeToLive);
+        this.organisations = new LookupCache<>("organisations", maxEntries, timeToLive);
+    }
+
+    /**
+     * @return the cached device, or null if it is not cached.
+     */
+    public Device getDevice(final String deviceIdentification) {
+        return this.devices.get(deviceIdentification);
+    }
+
+    public void putDevice(final Device device) {
+        this.devices.put(device.getDeviceIdentification(), device);
+    }
+
+    /**
+     * @return the cached organisation, or null if it is not cached.
+     */
+    public Organisation getOrganisation(final String organisationIdentification) {
+        return this.organisations.get(organisationIdentification);
+    }
+
+    public void putOrganisation(final Organisation organisation) {
+        this.organisations.put(organisation.getOrganisationIdentification(), organisation);
+    }
+
+    /**
+     * Invalidates the device and the devices that use it as gateway, as their
+     * protocol info is taken from the gateway device.
+     */
+    public void invalidateDevice(final String deviceIdentification) {
+        LOGGER.debug("Invalidating cached device {}", deviceIdentification);
+        this.devices.invalidateIf((key, device) -> key.equals(deviceIdentification)
+                || (device.getGatewayDevice() != null
+                        && deviceIdentification.equals(device.getGatewayDevice().getDeviceIdentification())));
+    }
+
+    public void invalidateAllDevices() {
+        LOGGER.debug("Invalidating all cached devices");
+        this.devices.invalidateAll();
+    }
+
+    public void invalidateOrganisation(final String organisationIdentification) {
+        LOGGER.debug("Invalidating cached organisation {}", organisationIdentification);
+        this.organisations.invalidate(organisationIdentification);
+    }
+
+    @Override
+    public void invalidateAll() {
+        this.devices.invalidateAll();
+        this.organisations.invalidateAll();
+    }
+
+    @Override
+    public int getDeviceCount() {
+        return this.devices.size();
+    }
+
+    @Override
+    public long getDeviceHitCount() {
+        return this.devices.getHitCount();
+    }
+
+    @Override
+    public long getDeviceMissCount() {
+        return this.devices.getMissCount();
+    }
+
+    @Override
+    public long getDeviceEvictionCount() {
+        return this.devices.getEvictionCount();
+    }
+
+    @Override
+    public int getOrganisationCount() {
+        return this.organisations.size();
+    }
+
+    @Override
+    public long getOrganisationHitCount() {
+        return this.organisations.getHitCount();
+    }
+
+    @Override
+    public long getOrganisationMissCount() {
+        return this.organisations.getMissCount();
+    }
+
+    @Override
+    public long getOrganisationEvictionCount() {
+        return this.organisations.getEvictionCount();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("DomainLookupCache[%s, %s]", this.devices, this.organisations);
+    }
+}
@@ -0,0 +1,62 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.core.application.cache;
+
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+
+import com.alliander.osgp.domain.core.entities.Device;
+import com.alliander.osgp.domain.core.entities.Organisation;
+import com.alliander.osgp.domain.core.entities.ProtocolInfo;
+
+/**
+ * Hibernate post commit listener that invalidates entries of the
+ * {@link DomainLookupCache} when devices, organisations or protocol infos are
+ * inserted, updated or deleted.
+ */
+public class DomainLookupCacheInvalidationListener
+        implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+    private static final long serialVersionUID = -2716474683453216346L;
+
+    private final transient DomainLookupCache domainLookupCache;
+
+    public DomainLookupCacheInvalidationListener(final DomainLookupCache domainLookupCache) {
+        this.domainLookupCache = domainLookupCache;
+    }
+
+    @Override
+    public void onPostInsert(final PostInsertEvent event) {
+        this.invalidate(event.getEntity());
+    }
+
+    @Override
+    public void onPostUpdate(final PostUpdateEvent event) {
+        this.invalidate(event.getEntity());
+    }
+
+    @Override
+    public void onPostDelete(final PostDeleteEvent event) {
+        this.invalidate(event.getEntity());
+    }
+
+    void invalidate(final Object entity) {
+        if (entity instanceof Device) {
+            this.domainLookupCache.invalidateDevice(((Device) entity).getDeviceIdentification());
+        } else if (entity instanceof Organisation) {
+            this.domainLookupCache.invalidateOrganisation(((Organisation) entity).getOrganisationIdentification());
+        } else if (entity instanceof ProtocolInfo) {
+            // Cached devices hold the protocol info they were loaded with.
+            this.domainLookupCache.invalidateAllDevices();
+        }
+    }
+}
@@ -0,0 +1,57 @@
+/**
+ * Copyright 2018 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.core.application.cache;
+
+import javax.jms.JMSException;
+import javax.jms.Message;
+import javax.jms.MessageListener;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.alliander.osgp.domain.core.entities.Device;
+import com.alliander.osgp.domain.core.entities.Organisation;
+import com.alliander.osgp.domain.core.entities.ProtocolInfo;
+import com.alliander.osgp.shared.infra.jms.Constants;
+
+/**
+ * Invalidates entries of the {@link DomainLookupCache} for the changes other
+ * applications publish on the domain changes topic. The message type is the
+ * simple name of the changed entity class, the identification of a device or
+ * organisation is set as string property.
+ */
+public class DomainLookupCacheInvalidationMessageListener implements MessageListener {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DomainLookupCacheInvalidationMessageListener.class);
+
+    private final DomainLookupCache domainLookupCache;
+
+    public DomainLookupCacheInvalidationMessageListener(final DomainLookupCache domainLookupCache) {
+        this.domainLookupCache = domainLookupCache;
+    }
+
+    @Override
+    public void onMessage(final Message message) {
+        try {
+            final String type = message.getJMSType();
+            if (Device.class.getSimpleName().equals(type)) {
+                this.domainLookupCache.invalidateDevice(message.getStringProperty(Constants.DEVICE_IDENTIFICATION));
+            } else if (Organisation.class.getSimpleName().equals(type)) {
+                this.domainLookupCache
+                        .invalidateOrganisation(message.getStringProperty(Constants.ORGANISATION_IDENTIFICATION));
+            } else if (ProtocolInfo.class.getSimpleName().equals(type)) {
+                this.domainLookupCache.invalidateAllDevices();
+            } else {
+                LOGGER.warn("Unknown domain change type {}", type);
+            }
+        } catch (final JMSException e) {
+            LOGGER.error("Domain change could not be read, invalidating all cached entries", e);
+            this.domainLookupCache.invalidateAll();
+        }
+    }
+}
@@ -0,0 +1,35 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.core.application.cache;
+
+/**
+ * Management interface of the domain lookup cache, exposed through JMX.
+ */
+public interface DomainLookupCacheMXBean {
+
+    int getDeviceCount();
+
+    long getDeviceHitCount();
+
+    long getDeviceMissCount();
+
+    long getDeviceEvictionCount();
+
+    int getOrganisationCount();
+
+    long getOrganisationHitCount();
+
+    long getOrganisationMissCount();
+
+    long getOrganisationEvictionCount();
+
+    /**
+     * Discards all cached entries, the counters are kept.
+     */
+    void invalidateAll();
+}
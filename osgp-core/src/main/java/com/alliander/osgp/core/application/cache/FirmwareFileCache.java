@@ -0,0 +1,165 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.core.application.cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps the contents of firmware files in memory, keyed by their hash, so a
+ * firmware rollout to many devices reads each image from the database once
+ * and all responses share the same byte array.
+ *
+ * The cache is bounded by the total size of the cached images. The least
+ * recently used images are evicted first; an image larger than the maximum is
+ * not cached at all. When several threads ask for an image that is not cached,
+ * only one of them loads it and the others wait for the result.
+ */
+public class FirmwareFileCache {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(FirmwareFileCache.class);
+
+    private final long maxBytes;
+    private final Map<String, byte[]> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final ConcurrentMap<String, FutureTask<byte[]>> loading = new ConcurrentHashMap<>();
+    private long cachedBytes;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * @param maxBytes
+     *            The maximum total size in bytes of the cached images.
+     */
+    public FirmwareFileCache(final long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Returns the contents of a firmware file, loading them if they are not
+     * cached.
+     *
+     * @param identification
+     *            the identification of the firmware file.
+     * @param hash
+     *            the hash of the contents of the firmware file, or null if no
+     *            hash is known. Without a hash, the contents are cached by
+     *            identification, as the contents of a firmware file never
+     *            change.
+     * @param loader
+     *            loads the contents of the firmware file, may return null if
+     *            the contents are not stored in the database.
+     * @return the contents of the firmware file, or null if the loader
+     *         returned null.
+     */
+    public byte[] get(final String identification, final String hash, final Callable<byte[]> loader)
+            throws Exception {
+        final String key = hash == null ? "identification:" + identification : "hash:" + hash;
+
+        final byte[] cached = this.getCached(key);
+        if (cached != null) {
+            this.hits.incrementAndGet();
+            return cached;
+        }
+        this.misses.incrementAndGet();
+
+        final FutureTask<byte[]> task = new FutureTask<>(loader);
+        FutureTask<byte[]> loadingTask = this.loading.putIfAbsent(key, task);
+        if (loadingTask == null) {
+            loadingTask = task;
+            // Another thread may have finished loading after the first check.
+            final byte[] loaded = this.getCached(key);
+            if (loaded != null) {
+                this.loading.remove(key, task);
+                return loaded;
+            }
+            LOGGER.info("Loading contents of firmware file {} with hash {}", identification, hash);
+            task.run();
+        }
+
+        try {
+            final byte[] file = loadingTask.get();
+            if (loadingTask == task) {
+                this.put(key, file);
+            }
+            return file;
+        } catch (final ExecutionException e) {
+            if (e.getCause() instanceof Exception) {
+                throw (Exception) e.getCause();
+            }
+            throw e;
+        } finally {
+            if (loadingTask == task) {
+                this.loading.remove(key, task);
+            }
+        }
+    }
+
+    public synchronized void invalidateAll() {
+        this.entries.clear();
+        this.cachedBytes = 0;
+    }
+
+    public synchronized int size() {
+        return this.entries.size();
+    }
+
+    public synchronized long getCachedBytes() {
+        return this.cachedBytes;
+    }
+
+    public long getHitCount() {
+        return this.hits.get();
+    }
+
+    public long getMissCount() {
+        return this.misses.get();
+    }
+
+    public long getEvictionCount() {
+        return this.evictions.get();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("FirmwareFileCache[size=%d, bytes=%d, hits=%d, misses=%d, evictions=%d]", this.size(),
+                this.getCachedBytes(), this.getHitCount(), this.getMissCount(), this.getEvictionCount());
+    }
+
+    private synchronized byte[] getCached(final String key) {
+        return this.entries.get(key);
+    }
+
+    private synchronized void put(final String key, final byte[] file) {
+        if (file == null || file.length > this.maxBytes) {
+            return;
+        }
+        final byte[] previous = this.entries.put(key, file);
+        if (previous != null) {
+            this.cachedBytes -= previous.length;
+        }
+        this.cachedBytes += file.length;
+
+        while (this.cachedBytes > this.maxBytes) {
+            final Map.Entry<String, byte[]> eldest = this.entries.entrySet().iterator().next();
+            this.entries.remove(eldest.getKey());
+            this.cachedBytes -= eldest.getValue().length;
+            this.evictions.incrementAndGet();
+        }
+    }
+}
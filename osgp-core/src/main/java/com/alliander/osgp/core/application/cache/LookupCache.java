@@ -0,0 +1,145 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.core.application.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiPredicate;
+
+/**
+ * Bounded, least recently used cache with a fixed time to live for each entry.
+ * Keeps hit, miss and eviction counters so the effectiveness of the cache can
+ * be monitored.
+ *
+ * @param <K>
+ *            type of the keys
+ * @param <V>
+ *            type of the cached values
+ */
+public class LookupCache<K, V> {
+
+    private final String name;
+    private final long timeToLive;
+    private final Map<K, CachedValue<V>> entries;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public LookupCache(final String name, final int maxEntries, final long timeToLive) {
+        this.name = name;
+        this.timeToLive = timeToLive;
+        this.entries = new LinkedHashMap<K, CachedValue<V>>(16, 0.75f, true) {
+            private static final long serialVersionUID = 4567981249165314712L;
+
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<K, CachedValue<V>> eldest) {
+                final boolean remove = this.size() > maxEntries;
+                if (remove) {
+                    LookupCache.this.evictions.incrementAndGet();
+                }
+                return remove;
+            }
+        };
+    }
+
+    /**
+     * Returns the cached value for the given key, or null if there is no entry
+     * or the entry has expired.
+     */
+    public synchronized V get(final K key) {
+        final CachedValue<V> cachedValue = this.entries.get(key);
+        if (cachedValue == null) {
+            this.misses.incrementAndGet();
+            return null;
+        }
+        if (cachedValue.isExpired(System.currentTimeMillis())) {
+            this.entries.remove(key);
+            this.evictions.incrementAndGet();
+            this.misses.incrementAndGet();
+            return null;
+        }
+        this.hits.incrementAndGet();
+        return cachedValue.getValue();
+    }
+
+    public synchronized void put(final K key, final V value) {
+        if (value == null) {
+            this.entries.remove(key);
+            return;
+        }
+        this.entries.put(key, new CachedValue<>(value, System.currentTimeMillis() + this.timeToLive));
+    }
+
+    public synchronized void invalidate(final K key) {
+        this.entries.remove(key);
+    }
+
+    /**
+     * Removes all entries for which the given predicate on key and value holds.
+     */
+    public synchronized void invalidateIf(final BiPredicate<K, V> predicate) {
+        final Iterator<Map.Entry<K, CachedValue<V>>> iterator = this.entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            final Map.Entry<K, CachedValue<V>> entry = iterator.next();
+            if (predicate.test(entry.getKey(), entry.getValue().getValue())) {
+                iterator.remove();
+            }
+        }
+    }
+
+    public synchronized void invalidateAll() {
+        this.entries.clear();
+    }
+
+    public synchronized int size() {
+        return this.entries.size();
+    }
+
+    public String getName() {
+        return this.name;
+    }
+
+    public long getHitCount() {
+        return this.hits.get();
+    }
+
+    public long getMissCount() {
+        return this.misses.get();
+    }
+
+    public long getEvictionCount() {
+        return this.evictions.get();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("LookupCache[name=%s, size=%d, hits=%d, misses=%d, evictions=%d]", this.name,
+                this.size(), this.getHitCount(), this.getMissCount(), this.getEvictionCount());
+    }
+
+    private static class CachedValue<V> {
+        private final V value;
+        private final long expiresAt;
+
+        CachedValue(final V value, final long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+
+        V getValue() {
+            return this.value;
+        }
+
+        boolean isExpired(final long now) {
+            return now >= this.expiresAt;
+        }
+    }
+}
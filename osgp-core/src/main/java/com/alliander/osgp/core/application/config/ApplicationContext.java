@@ -25,6 +25,7 @@ import com.alliander.osgp.core.infra.jms.domain.in.DomainRequestMessageSender;
 import com.alliander.osgp.core.infra.jms.protocol.ProtocolRequestMessageSender;
 import com.alliander.osgp.core.infra.jms.protocol.in.ProtocolResponseMessageSender;
 import com.alliander.osgp.core.infra.messaging.CoreLogItemRequestMessageSender;
+import com.alliander.osgp.domain.core.jms.metrics.MessageMetricsConfig;
 import com.alliander.osgp.shared.application.config.jms.JmsConfiguration;
 import com.alliander.osgp.shared.application.config.jms.JmsConfigurationFactory;
 
@@ -34,7 +35,7 @@ import com.alliander.osgp.shared.application.config.jms.JmsConfigurationFactory;
 @Configuration
 @ComponentScan(basePackages = { "com.alliander.osgp.domain.core", "com.alliander.osgp.core" })
 @EnableTransactionManagement()
-@Import({ MessagingConfig.class })
+@Import({ MessagingConfig.class, MessageMetricsConfig.class })
 
 public class ApplicationContext {
 
@@ -0,0 +1,126 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.core.application.config;
+
+import java.util.Collections;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.apache.activemq.pool.PooledConnectionFactory;
+import org.hibernate.ejb.HibernateEntityManagerFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.context.annotation.PropertySources;
+import org.springframework.jms.listener.DefaultMessageListenerContainer;
+import org.springframework.jmx.export.MBeanExporter;
+import org.springframework.jmx.support.RegistrationPolicy;
+import org.springframework.orm.jpa.EntityManagerFactoryInfo;
+
+import com.alliander.osgp.core.application.cache.DomainLookupCache;
+import com.alliander.osgp.core.application.cache.DomainLookupCacheInvalidationListener;
+import com.alliander.osgp.core.application.cache.DomainLookupCacheInvalidationMessageListener;
+import com.alliander.osgp.core.application.cache.FirmwareFileCache;
+import com.alliander.osgp.shared.application.config.AbstractConfig;
+
+@Configuration
+@PropertySources({ @PropertySource("classpath:osgp-core.properties"),
+        @PropertySource(value = "file:${osgp/Global/config}", ignoreResourceNotFound = true),
+        @PropertySource(value = "file:${osgp/Core/config}", ignoreResourceNotFound = true), })
+public class CacheConfig extends AbstractConfig {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CacheConfig.class);
+
+    private static final String PROPERTY_NAME_CACHE_DOMAIN_LOOKUP_MAX_ENTRIES = "cache.domain.lookup.max.entries";
+    private static final String PROPERTY_NAME_CACHE_DOMAIN_LOOKUP_TIME_TO_LIVE = "cache.domain.lookup.time.to.live";
+    private static final String PROPERTY_NAME_CACHE_DOMAIN_LOOKUP_JMX_OBJECT_NAME = "cache.domain.lookup.jmx.object.name";
+    private static final String PROPERTY_NAME_CACHE_DOMAIN_LOOKUP_INVALIDATION_TOPIC = "cache.domain.lookup.invalidation.topic";
+    private static final String PROPERTY_NAME_CACHE_FIRMWARE_FILE_MAX_BYTES = "cache.firmware.file.max.bytes";
+
+    @Bean
+    public DomainLookupCache domainLookupCache() {
+        final int maxEntries = Integer
+                .parseInt(this.environment.getRequiredProperty(PROPERTY_NAME_CACHE_DOMAIN_LOOKUP_MAX_ENTRIES));
+        final long timeToLive = Long
+                .parseLong(this.environment.getRequiredProperty(PROPERTY_NAME_CACHE_DOMAIN_LOOKUP_TIME_TO_LIVE));
+        LOGGER.info("Creating domain lookup cache with max {} entries per cache and time to live {} ms", maxEntries,
+                timeToLive);
+        return new DomainLookupCache(maxEntries, timeToLive);
+    }
+
+    /**
+     * Exposes the hit, miss and eviction counters of the domain lookup cache
+     * through JMX.
+     */
+    @Bean
+    public MBeanExporter domainLookupCacheExporter() {
+        final String objectName = this.environment
+                .getRequiredProperty(PROPERTY_NAME_CACHE_DOMAIN_LOOKUP_JMX_OBJECT_NAME);
+        LOGGER.info("Exposing domain lookup cache through JMX as {}", objectName);
+
+        final MBeanExporter exporter = new MBeanExporter();
+        exporter.setBeans(Collections.<String, Object> singletonMap(objectName, this.domainLookupCache()));
+        exporter.setRegistrationPolicy(RegistrationPolicy.REPLACE_EXISTING);
+        return exporter;
+    }
+
+    /**
+     * Registers the listener that invalidates the domain lookup cache after
+     * changes to cached entities have been committed.
+     */
+    @Bean
+    public DomainLookupCacheInvalidationListener domainLookupCacheInvalidationListener(
+            final EntityManagerFactory entityManagerFactory) {
+        final DomainLookupCacheInvalidationListener listener = new DomainLookupCacheInvalidationListener(
+                this.domainLookupCache());
+
+        final HibernateEntityManagerFactory hibernateEntityManagerFactory = (HibernateEntityManagerFactory) ((EntityManagerFactoryInfo) entityManagerFactory)
+                .getNativeEntityManagerFactory();
+        final EventListenerRegistry registry = ((SessionFactoryImplementor) hibernateEntityManagerFactory
+                .getSessionFactory()).getServiceRegistry().getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_COMMIT_INSERT, listener);
+        registry.appendListeners(EventType.POST_COMMIT_UPDATE, listener);
+        registry.appendListeners(EventType.POST_COMMIT_DELETE, listener);
+
+        return listener;
+    }
+
+    /**
+     * Listens to the changes other applications publish, so the domain lookup
+     * cache is invalidated for changes made through the web service adapters
+     * as well. Changes published while this application is not connected are
+     * not received, those entries expire after their time to live.
+     */
+    @Bean
+    public DefaultMessageListenerContainer domainLookupCacheInvalidationMessageListenerContainer(
+            final PooledConnectionFactory domainPooledConnectionFactory) {
+        final String topic = this.environment.getRequiredProperty(PROPERTY_NAME_CACHE_DOMAIN_LOOKUP_INVALIDATION_TOPIC);
+        LOGGER.info("Invalidating domain lookup cache for the changes published on topic {}", topic);
+
+        final DefaultMessageListenerContainer messageListenerContainer = new DefaultMessageListenerContainer();
+        messageListenerContainer.setConnectionFactory(domainPooledConnectionFactory);
+        messageListenerContainer.setPubSubDomain(true);
+        messageListenerContainer.setDestinationName(topic);
+        messageListenerContainer
+                .setMessageListener(new DomainLookupCacheInvalidationMessageListener(this.domainLookupCache()));
+        return messageListenerContainer;
+    }
+
+    @Bean
+    public FirmwareFileCache firmwareFileCache() {
+        final long maxBytes = Long
+                .parseLong(this.environment.getRequiredProperty(PROPERTY_NAME_CACHE_FIRMWARE_FILE_MAX_BYTES));
+        LOGGER.info("Creating firmware file cache with max {} bytes", maxBytes);
+        return new FirmwareFileCache(maxBytes);
+    }
+}
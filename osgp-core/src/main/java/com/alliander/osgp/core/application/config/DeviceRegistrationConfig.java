@@ -0,0 +1,49 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.core.application.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.context.annotation.PropertySources;
+
+import com.alliander.osgp.core.application.services.DeviceRegistrationCoalescer;
+import com.alliander.osgp.core.application.services.DeviceRegistrationService;
+import com.alliander.osgp.shared.application.config.AbstractConfig;
+
+@Configuration
+@PropertySources({ @PropertySource("classpath:osgp-core.properties"),
+        @PropertySource(value = "file:${osgp/Global/config}", ignoreResourceNotFound = true),
+        @PropertySource(value = "file:${osgp/Core/config}", ignoreResourceNotFound = true), })
+public class DeviceRegistrationConfig extends AbstractConfig {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DeviceRegistrationConfig.class);
+
+    private static final String PROPERTY_NAME_REGISTRATION_COALESCING_WINDOW = "registration.coalescing.window";
+    private static final String PROPERTY_NAME_REGISTRATION_BATCH_SIZE = "registration.batch.size";
+    private static final String PROPERTY_NAME_REGISTRATION_APPLY_TIMEOUT = "registration.apply.timeout";
+    private static final String PROPERTY_NAME_REGISTRATION_SHUTDOWN_TIMEOUT = "registration.shutdown.timeout";
+
+    @Bean
+    public DeviceRegistrationCoalescer deviceRegistrationCoalescer(
+            final DeviceRegistrationService deviceRegistrationService) {
+        final long window = Long
+                .parseLong(this.environment.getRequiredProperty(PROPERTY_NAME_REGISTRATION_COALESCING_WINDOW));
+        final int batchSize = Integer
+                .parseInt(this.environment.getRequiredProperty(PROPERTY_NAME_REGISTRATION_BATCH_SIZE));
+        final long applyTimeout = Long
+                .parseLong(this.environment.getRequiredProperty(PROPERTY_NAME_REGISTRATION_APPLY_TIMEOUT));
+        final long shutdownTimeout = Long
+                .parseLong(this.environment.getRequiredProperty(PROPERTY_NAME_REGISTRATION_SHUTDOWN_TIMEOUT));
+        LOGGER.info("Creating device registration coalescer with window {} ms and batch size {}", window, batchSize);
+        return new DeviceRegistrationCoalescer(deviceRegistrationService, window, batchSize, applyTimeout,
+                shutdownTimeout);
+    }
+}
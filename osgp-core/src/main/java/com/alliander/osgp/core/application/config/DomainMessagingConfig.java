@@ -93,6 +93,8 @@ public class DomainMessagingConfig extends AbstractConfig {
                 .getRequiredProperty(PROPERTY_NAME_JMS_ACTIVEMQ_BROKER_URL));
 
         activeMQConnectionFactory.setNonBlockingRedelivery(true);
+        // Handle the prefetched domain requests in order of priority.
+        activeMQConnectionFactory.setMessagePrioritySupported(true);
 
         return activeMQConnectionFactory;
     }
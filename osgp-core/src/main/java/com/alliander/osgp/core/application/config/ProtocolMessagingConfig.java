@@ -7,6 +7,8 @@
  */
 package com.alliander.osgp.core.application.config;
 
+import java.time.Clock;
+
 import org.apache.activemq.RedeliveryPolicy;
 import org.apache.activemq.broker.region.policy.RedeliveryPolicyMap;
 import org.apache.activemq.pool.PooledConnectionFactory;
@@ -22,6 +24,7 @@ import org.springframework.context.annotation.PropertySources;
 
 import com.alliander.osgp.core.infra.jms.JmsTemplateSettings;
 import com.alliander.osgp.core.infra.jms.protocol.ProtocolRequestMessageJmsTemplateFactory;
+import com.alliander.osgp.core.infra.jms.protocol.ProtocolRequestPriorityPolicy;
 import com.alliander.osgp.core.infra.jms.protocol.ProtocolResponseMessageListenerContainerFactory;
 import com.alliander.osgp.core.infra.jms.protocol.in.ProtocolRequestMessageListenerContainerFactory;
 import com.alliander.osgp.core.infra.jms.protocol.in.ProtocolRequestMessageProcessorMap;
@@ -52,6 +55,10 @@ public class ProtocolMessagingConfig extends AbstractConfig {
     private static final String PROPERTY_NAME_JMS_OUTGOING_PROTOCOL_REQUESTS_EXPLICIT_QOS_ENABLED = "jms.outgoing.protocol.requests.explicit.qos.enabled";
     private static final String PROPERTY_NAME_JMS_OUTGOING_PROTOCOL_REQUESTS_DELIVERY_PERSISTENT = "jms.outgoing.protocol.requests.delivery.persistent";
     private static final String PROPERTY_NAME_JMS_OUTGOING_PROTOCOL_REQUESTS_TIME_TO_LIVE = "jms.outgoing.protocol.requests.time.to.live";
+    private static final String PROPERTY_NAME_JMS_OUTGOING_PROTOCOL_REQUESTS_BULK_PRIORITY = "jms.outgoing.protocol.requests.bulk.priority";
+    private static final String PROPERTY_NAME_JMS_OUTGOING_PROTOCOL_REQUESTS_EXPEDITED_RATE = "jms.outgoing.protocol.requests.expedited.rate";
+    private static final String PROPERTY_NAME_JMS_OUTGOING_PROTOCOL_REQUESTS_DEMOTED_RATE = "jms.outgoing.protocol.requests.demoted.rate";
+    private static final String PROPERTY_NAME_JMS_OUTGOING_PROTOCOL_REQUESTS_EXPEDITED_BURST = "jms.outgoing.protocol.requests.expedited.burst";
 
     // JMS Settings: Incoming protocol responses (receive)
     private static final String PROPERTY_NAME_JMS_INCOMING_PROTOCOL_RESPONSES_CONCURRENT_CONSUMERS = "jms.incoming.protocol.responses.concurrent.consumers";
@@ -150,6 +157,20 @@ public class ProtocolMessagingConfig extends AbstractConfig {
                 jmsTemplateSettings, this.protocolInfoRepository.findAll());
     }
 
+    @Bean
+    public ProtocolRequestPriorityPolicy protocolRequestPriorityPolicy() {
+        return new ProtocolRequestPriorityPolicy(
+                Integer.parseInt(this.environment
+                        .getRequiredProperty(PROPERTY_NAME_JMS_OUTGOING_PROTOCOL_REQUESTS_BULK_PRIORITY)),
+                Double.parseDouble(this.environment
+                        .getRequiredProperty(PROPERTY_NAME_JMS_OUTGOING_PROTOCOL_REQUESTS_EXPEDITED_RATE)),
+                Double.parseDouble(this.environment
+                        .getRequiredProperty(PROPERTY_NAME_JMS_OUTGOING_PROTOCOL_REQUESTS_DEMOTED_RATE)),
+                Integer.parseInt(this.environment
+                        .getRequiredProperty(PROPERTY_NAME_JMS_OUTGOING_PROTOCOL_REQUESTS_EXPEDITED_BURST)),
+                Clock.systemUTC());
+    }
+
     // === INCOMING PROTOCOL RESPONSES ===
     // beans used for receiving protocol response messages
 
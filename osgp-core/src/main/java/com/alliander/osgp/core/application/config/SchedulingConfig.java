@@ -7,20 +7,30 @@
  */
 package com.alliander.osgp.core.application.config;
 
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.ejb.HibernateEntityManagerFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.PropertySource;
 import org.springframework.context.annotation.PropertySources;
+import org.springframework.orm.jpa.EntityManagerFactoryInfo;
 import org.springframework.scheduling.TaskScheduler;
 import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.scheduling.annotation.SchedulingConfigurer;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
 import org.springframework.scheduling.config.CronTask;
 import org.springframework.scheduling.config.ScheduledTaskRegistrar;
 import org.springframework.scheduling.support.CronTrigger;
 
+import com.alliander.osgp.core.application.services.RetryBackoff;
 import com.alliander.osgp.core.application.tasks.ScheduledTaskScheduler;
+import com.alliander.osgp.core.application.tasks.ScheduledTaskWakeUpListener;
 import com.alliander.osgp.shared.application.config.AbstractConfig;
 
 @EnableScheduling
@@ -35,6 +45,13 @@ public class SchedulingConfig extends AbstractConfig implements SchedulingConfig
     private static final String PROPERTY_NAME_SCHEDULING_TASK_SCHEDULER_THREAD_NAME_PREFIX = "scheduling.task.scheduler.thread.name.prefix";
 
     private static final String PROPERTY_NAME_SCHEDULING_TASK_PAGE_SIZE = "scheduling.task.page.size";
+    private static final String PROPERTY_NAME_SCHEDULING_TASK_WORKER_POOL_SIZE = "scheduling.task.worker.pool.size";
+    private static final String PROPERTY_NAME_SCHEDULING_TASK_WORKER_THREAD_NAME_PREFIX = "scheduling.task.worker.thread.name.prefix";
+    private static final String PROPERTY_NAME_SCHEDULING_TASK_WAKE_UP_WINDOW = "scheduling.task.wake.up.window";
+    private static final String PROPERTY_NAME_SCHEDULING_TASK_PENDING_LEASE_TIME = "scheduling.task.pending.lease.time";
+    private static final String PROPERTY_NAME_SCHEDULING_TASK_RETRY_INITIAL_DELAY = "scheduling.task.retry.initial.delay";
+    private static final String PROPERTY_NAME_SCHEDULING_TASK_RETRY_MULTIPLIER = "scheduling.task.retry.multiplier";
+    private static final String PROPERTY_NAME_SCHEDULING_TASK_RETRY_MAXIMUM_DELAY = "scheduling.task.retry.maximum.delay";
 
     @Autowired
     private ScheduledTaskScheduler scheduledTaskScheduler;
@@ -66,4 +83,65 @@ public class SchedulingConfig extends AbstractConfig implements SchedulingConfig
     public Integer scheduledTaskPageSize() {
         return Integer.parseInt(this.environment.getRequiredProperty(PROPERTY_NAME_SCHEDULING_TASK_PAGE_SIZE));
     }
+
+    /**
+     * Executor processing claimed scheduled tasks. Tasks are claimed in pages
+     * of {@link #scheduledTaskPageSize()}, so the page size should be a
+     * multiple of the pool size.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ThreadPoolTaskExecutor scheduledTaskExecutor() {
+        final ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(Integer
+                .parseInt(this.environment.getRequiredProperty(PROPERTY_NAME_SCHEDULING_TASK_WORKER_POOL_SIZE)));
+        executor.setThreadNamePrefix(
+                this.environment.getRequiredProperty(PROPERTY_NAME_SCHEDULING_TASK_WORKER_THREAD_NAME_PREFIX));
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        return executor;
+    }
+
+    /**
+     * Tasks created or rescheduled to run within this number of milliseconds
+     * wake up the scheduler at their scheduled time, instead of waiting for
+     * the next cron trigger.
+     */
+    @Bean
+    public Long scheduledTaskWakeUpWindow() {
+        return Long.parseLong(this.environment.getRequiredProperty(PROPERTY_NAME_SCHEDULING_TASK_WAKE_UP_WINDOW));
+    }
+
+    /**
+     * Claimed tasks that are still PENDING after this number of milliseconds
+     * are claimed and processed again.
+     */
+    @Bean
+    public Long scheduledTaskPendingLeaseTime() {
+        return Long.parseLong(this.environment.getRequiredProperty(PROPERTY_NAME_SCHEDULING_TASK_PENDING_LEASE_TIME));
+    }
+
+    /**
+     * Backoff of the retries of failed device requests, which are stored as
+     * scheduled tasks.
+     */
+    @Bean
+    public RetryBackoff retryBackoff() {
+        return new RetryBackoff(
+                Long.parseLong(this.environment.getRequiredProperty(PROPERTY_NAME_SCHEDULING_TASK_RETRY_INITIAL_DELAY)),
+                Double.parseDouble(this.environment.getRequiredProperty(PROPERTY_NAME_SCHEDULING_TASK_RETRY_MULTIPLIER)),
+                Long.parseLong(this.environment.getRequiredProperty(PROPERTY_NAME_SCHEDULING_TASK_RETRY_MAXIMUM_DELAY)));
+    }
+
+    @Bean
+    public ScheduledTaskWakeUpListener scheduledTaskWakeUpListener(final EntityManagerFactory entityManagerFactory) {
+        final ScheduledTaskWakeUpListener listener = new ScheduledTaskWakeUpListener(this.scheduledTaskScheduler);
+
+        final HibernateEntityManagerFactory hibernateEntityManagerFactory = (HibernateEntityManagerFactory) ((EntityManagerFactoryInfo) entityManagerFactory)
+                .getNativeEntityManagerFactory();
+        final EventListenerRegistry registry = ((SessionFactoryImplementor) hibernateEntityManagerFactory
+                .getSessionFactory()).getServiceRegistry().getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_COMMIT_INSERT, listener);
+        registry.appendListeners(EventType.POST_COMMIT_UPDATE, listener);
+
+        return listener;
+    }
 }
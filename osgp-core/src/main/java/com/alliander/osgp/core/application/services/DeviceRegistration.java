@@ -0,0 +1,55 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.core.application.services;
+
+import java.net.InetAddress;
+
+/**
+ * The registration data a device sent when it registered.
+ */
+public class DeviceRegistration {
+
+    private final String deviceIdentification;
+    private final InetAddress networkAddress;
+    private final String deviceType;
+    private final long sequenceNumber;
+
+    public DeviceRegistration(final String deviceIdentification, final InetAddress networkAddress,
+            final String deviceType, final long sequenceNumber) {
+        this.deviceIdentification = deviceIdentification;
+        this.networkAddress = networkAddress;
+        this.deviceType = deviceType;
+        this.sequenceNumber = sequenceNumber;
+    }
+
+    public String getDeviceIdentification() {
+        return this.deviceIdentification;
+    }
+
+    public InetAddress getNetworkAddress() {
+        return this.networkAddress;
+    }
+
+    public String getDeviceType() {
+        return this.deviceType;
+    }
+
+    /**
+     * @return The order in which registrations were received, a later
+     *         registration has a higher number.
+     */
+    public long getSequenceNumber() {
+        return this.sequenceNumber;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("DeviceRegistration[deviceIdentification=%s, networkAddress=%s, deviceType=%s]",
+                this.deviceIdentification, this.networkAddress, this.deviceType);
+    }
+}
@@ -0,0 +1,301 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.core.application.services;
+
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+/**
+ * Collects device registrations and applies them in batches, so a burst of
+ * registrations, for instance after a mass power restore, does not cost a
+ * transaction per registration.
+ *
+ * A message listener calls {@link #submit} and is blocked until the batch
+ * holding its registration is committed. The listener returns only then, so
+ * the message is acknowledged after the registration is stored. When the
+ * registration fails, or the application stops before it is applied, submit
+ * throws a {@link DeviceRegistrationException} and the message is redelivered.
+ *
+ * A batch is applied when batchSize registrations are pending, or at the end
+ * of the coalescing window. As every pending registration blocks a listener, a
+ * batch holds at most as many registrations as there are listeners.
+ *
+ * Registrations of the same device that are pending at the same time are
+ * coalesced, only the last one is applied, and all their listeners return when
+ * it is committed. When a batch fails, its registrations are applied one by
+ * one, so one bad registration does not prevent the others from being
+ * applied.
+ */
+public class DeviceRegistrationCoalescer implements DisposableBean {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DeviceRegistrationCoalescer.class);
+
+    private static final Comparator<PendingRegistration> RECEIVED_ORDER = new Comparator<PendingRegistration>() {
+        @Override
+        public int compare(final PendingRegistration r1, final PendingRegistration r2) {
+            return Long.compare(r1.registration.getSequenceNumber(), r2.registration.getSequenceNumber());
+        }
+    };
+
+    private final DeviceRegistrationService deviceRegistrationService;
+    private final int batchSize;
+    private final long applyTimeout;
+    private final long shutdownTimeout;
+
+    private final ConcurrentMap<String, PendingRegistration> pending = new ConcurrentHashMap<>();
+    private final ScheduledThreadPoolExecutor executor;
+    private volatile boolean running = true;
+
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicLong receivedCount = new AtomicLong();
+    private final AtomicLong coalescedCount = new AtomicLong();
+    private final AtomicLong appliedCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+
+    /**
+     * @param window
+     *            The maximum time in milliseconds registrations are collected
+     *            before they are applied.
+     * @param batchSize
+     *            The maximum number of registrations applied in one
+     *            transaction.
+     * @param applyTimeout
+     *            The maximum time in milliseconds {@link #submit} waits for the
+     *            registration to be applied.
+     * @param shutdownTimeout
+     *            The time in milliseconds to wait for registrations being
+     *            applied on shutdown.
+     */
+    public DeviceRegistrationCoalescer(final DeviceRegistrationService deviceRegistrationService, final long window,
+            final int batchSize, final long applyTimeout, final long shutdownTimeout) {
+        this.deviceRegistrationService = deviceRegistrationService;
+        this.batchSize = batchSize;
+        this.applyTimeout = applyTimeout;
+        this.shutdownTimeout = shutdownTimeout;
+
+        final CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("osgp-core-registration-");
+        threadFactory.setDaemon(true);
+        this.executor = new ScheduledThreadPoolExecutor(1, threadFactory);
+        this.executor.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                DeviceRegistrationCoalescer.this.flush();
+            }
+        }, window, window, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Applies the registration data of a device with the next batch and waits
+     * until that batch is committed. Replaces registration data of the device
+     * that was not applied yet.
+     *
+     * @throws DeviceRegistrationException
+     *             when the registration was not applied.
+     */
+    public void submit(final String deviceIdentification, final InetAddress networkAddress,
+            final String deviceType) {
+        if (!this.running) {
+            throw new DeviceRegistrationException(
+                    "Not applying registration of device " + deviceIdentification + ", coalescer is stopped");
+        }
+
+        this.receivedCount.incrementAndGet();
+        final DeviceRegistration registration = new DeviceRegistration(deviceIdentification, networkAddress,
+                deviceType, this.sequence.incrementAndGet());
+        final PendingRegistration[] submitted = new PendingRegistration[1];
+        this.pending.compute(deviceIdentification, (key, existing) -> {
+            if (existing != null) {
+                this.coalescedCount.incrementAndGet();
+            }
+            submitted[0] = new PendingRegistration(registration, existing);
+            return submitted[0];
+        });
+        if (this.pending.size() >= this.batchSize) {
+            this.flushNow();
+        }
+
+        try {
+            submitted[0].await(this.applyTimeout);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DeviceRegistrationException(
+                    "Interrupted applying registration of device " + deviceIdentification, e);
+        }
+    }
+
+    /**
+     * Applies all pending registrations in batches.
+     */
+    public void flush() {
+        final List<PendingRegistration> registrations = new ArrayList<>(this.pending.size());
+        final Iterator<String> iterator = this.pending.keySet().iterator();
+        while (iterator.hasNext()) {
+            final PendingRegistration registration = this.pending.remove(iterator.next());
+            if (registration != null) {
+                registrations.add(registration);
+            }
+        }
+        if (registrations.isEmpty()) {
+            return;
+        }
+        Collections.sort(registrations, RECEIVED_ORDER);
+
+        for (int from = 0; from < registrations.size(); from += this.batchSize) {
+            this.apply(registrations.subList(from, Math.min(from + this.batchSize, registrations.size())));
+        }
+    }
+
+    private void flushNow() {
+        try {
+            this.executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    DeviceRegistrationCoalescer.this.flush();
+                }
+            });
+        } catch (final RejectedExecutionException e) {
+            LOGGER.debug("Not flushing registrations, coalescer is stopped", e);
+        }
+    }
+
+    public int getPendingCount() {
+        return this.pending.size();
+    }
+
+    public long getReceivedCount() {
+        return this.receivedCount.get();
+    }
+
+    public long getCoalescedCount() {
+        return this.coalescedCount.get();
+    }
+
+    public long getAppliedCount() {
+        return this.appliedCount.get();
+    }
+
+    public long getFailedCount() {
+        return this.failedCount.get();
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        LOGGER.info("Shutting down {}", this);
+        this.running = false;
+        this.executor.shutdown();
+        if (this.executor.awaitTermination(this.shutdownTimeout, TimeUnit.MILLISECONDS)) {
+            this.flush();
+            return;
+        }
+
+        LOGGER.warn("Registrations were still being applied on shutdown");
+        this.executor.shutdownNow();
+        // Registrations that were not applied are redelivered after a restart.
+        final Iterator<String> iterator = this.pending.keySet().iterator();
+        while (iterator.hasNext()) {
+            final PendingRegistration registration = this.pending.remove(iterator.next());
+            if (registration != null) {
+                registration.fail(new DeviceRegistrationException("Coalescer stopped before "
+                        + registration.registration + " was applied"));
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("DeviceRegistrationCoalescer[pending=%d, received=%d, coalesced=%d, applied=%d, failed=%d]",
+                this.getPendingCount(), this.getReceivedCount(), this.getCoalescedCount(), this.getAppliedCount(),
+                this.getFailedCount());
+    }
+
+    private void apply(final List<PendingRegistration> batch) {
+        final List<DeviceRegistration> registrations = new ArrayList<>(batch.size());
+        for (final PendingRegistration pendingRegistration : batch) {
+            registrations.add(pendingRegistration.registration);
+        }
+        try {
+            this.deviceRegistrationService.applyRegistrations(registrations);
+            this.appliedCount.addAndGet(batch.size());
+            for (final PendingRegistration pendingRegistration : batch) {
+                pendingRegistration.complete();
+            }
+        } catch (final RuntimeException e) {
+            LOGGER.warn("Applying batch of {} registrations failed, applying them one by one", batch.size(), e);
+            for (final PendingRegistration pendingRegistration : batch) {
+                try {
+                    this.deviceRegistrationService
+                            .applyRegistrations(Collections.singletonList(pendingRegistration.registration));
+                    this.appliedCount.incrementAndGet();
+                    pendingRegistration.complete();
+                } catch (final RuntimeException re) {
+                    this.failedCount.incrementAndGet();
+                    LOGGER.error("Applying {} failed", pendingRegistration.registration, re);
+                    pendingRegistration.fail(new DeviceRegistrationException(
+                            "Applying " + pendingRegistration.registration + " failed", re));
+                }
+            }
+        }
+    }
+
+    /**
+     * A registration waiting to be applied, with the registrations of the same
+     * device it replaced. Those are done when this one is done.
+     */
+    private static class PendingRegistration {
+        private final DeviceRegistration registration;
+        private final PendingRegistration replaced;
+        private final CountDownLatch applied = new CountDownLatch(1);
+        private volatile DeviceRegistrationException exception;
+
+        PendingRegistration(final DeviceRegistration registration, final PendingRegistration replaced) {
+            this.registration = registration;
+            this.replaced = replaced;
+        }
+
+        void complete() {
+            this.applied.countDown();
+            if (this.replaced != null) {
+                this.replaced.complete();
+            }
+        }
+
+        void fail(final DeviceRegistrationException exception) {
+            this.exception = exception;
+            this.applied.countDown();
+            if (this.replaced != null) {
+                this.replaced.fail(exception);
+            }
+        }
+
+        void await(final long timeout) throws InterruptedException {
+            if (!this.applied.await(timeout, TimeUnit.MILLISECONDS)) {
+                throw new DeviceRegistrationException(
+                        this.registration + " was not applied within " + timeout + " ms");
+            }
+            if (this.exception != null) {
+                throw this.exception;
+            }
+        }
+    }
+}
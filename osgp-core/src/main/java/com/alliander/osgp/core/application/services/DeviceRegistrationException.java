@@ -0,0 +1,25 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.core.application.services;
+
+/**
+ * Thrown when a device registration could not be applied. The message it was
+ * received with must not be acknowledged, so it is redelivered.
+ */
+public class DeviceRegistrationException extends RuntimeException {
+
+    private static final long serialVersionUID = 5318446125263574719L;
+
+    public DeviceRegistrationException(final String message) {
+        super(message);
+    }
+
+    public DeviceRegistrationException(final String message, final Throwable cause) {
+        super(message, cause);
+    }
+}
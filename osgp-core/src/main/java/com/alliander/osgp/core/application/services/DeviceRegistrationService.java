@@ -0,0 +1,115 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.core.application.services;
+
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.alliander.osgp.domain.core.entities.Device;
+import com.alliander.osgp.domain.core.entities.Ssld;
+import com.alliander.osgp.domain.core.repositories.DeviceRepository;
+
+@Service
+@Transactional(value = "transactionManager")
+public class DeviceRegistrationService {
+
+    /**
+     * The local host address, which may be shared by several devices.
+     */
+    public static final String LOCAL_HOST = "127.0.0.1";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DeviceRegistrationService.class);
+
+    @Autowired
+    private DeviceRepository deviceRepository;
+
+    /**
+     * Updates the registration data (ip address, etc) of the devices. Devices
+     * are added (without an owner) when they do not exist yet.
+     *
+     * A network address belongs to the device that registered it last. It is
+     * cleared for all other devices, except for the local host address, which
+     * may be shared.
+     *
+     * @param registrations
+     *            The registrations, at most one per device, in the order in
+     *            which they were received.
+     */
+    public void applyRegistrations(final List<DeviceRegistration> registrations) {
+        LOGGER.info("Applying registration data of {} device(s).", registrations.size());
+
+        final Map<String, DeviceRegistration> registrationsByDevice = new HashMap<>();
+        final Map<InetAddress, String> addressOwners = new HashMap<>();
+        for (final DeviceRegistration registration : registrations) {
+            registrationsByDevice.put(registration.getDeviceIdentification(), registration);
+            if (!LOCAL_HOST.equals(registration.getNetworkAddress().getHostAddress())) {
+                addressOwners.put(registration.getNetworkAddress(), registration.getDeviceIdentification());
+            }
+        }
+
+        // Look up the devices and the current holders of the addresses before
+        // changing anything.
+        final Map<String, Device> devices = new HashMap<>();
+        for (final Device device : this.deviceRepository
+                .findByDeviceIdentificationIn(registrationsByDevice.keySet())) {
+            devices.put(device.getDeviceIdentification(), device);
+        }
+        final List<Device> addressHolders = addressOwners.isEmpty() ? new ArrayList<Device>()
+                : this.deviceRepository.findByNetworkAddressIn(addressOwners.keySet());
+
+        final Set<Device> changed = new LinkedHashSet<>();
+        for (final DeviceRegistration registration : registrations) {
+            Device device = devices.get(registration.getDeviceIdentification());
+            if (device == null) {
+                // Device does not exist yet, create without an owner.
+                device = this.createNewDevice(registration.getDeviceIdentification(), registration.getDeviceType());
+                devices.put(registration.getDeviceIdentification(), device);
+            }
+            device.updateRegistrationData(registration.getNetworkAddress(), registration.getDeviceType());
+            changed.add(device);
+        }
+
+        // Check for existing IP addresses
+        final List<Device> candidates = new ArrayList<>(addressHolders);
+        candidates.addAll(changed);
+        for (final Device device : candidates) {
+            final String owner = device.getNetworkAddress() == null ? null
+                    : addressOwners.get(device.getNetworkAddress());
+            if (owner != null && !LOCAL_HOST.equals(device.getIpAddress())
+                    && !owner.equals(device.getDeviceIdentification())) {
+                LOGGER.info("Clearing network address {} of device {}, it was registered by device {}.",
+                        device.getIpAddress(), device.getDeviceIdentification(), owner);
+                device.clearNetworkAddress();
+                changed.add(device);
+            }
+        }
+
+        this.deviceRepository.save(changed);
+    }
+
+    private Device createNewDevice(final String deviceIdentification, final String deviceType) {
+        Device device;
+        if (Ssld.SSLD_TYPE.equalsIgnoreCase(deviceType) || Ssld.PSLD_TYPE.equalsIgnoreCase(deviceType)) {
+            device = new Ssld(deviceIdentification);
+        } else {
+            device = new Device(deviceIdentification);
+        }
+        return device;
+    }
+}
@@ -44,12 +44,7 @@ public class DeviceRequestMessageService {
         try {
 
             final Device device = this.domainHelperService.findDevice(message.getDeviceIdentification());
-            final ProtocolInfo protocolInfo;
-            if (device.getGatewayDevice() == null) {
-                protocolInfo = device.getProtocolInfo();
-            } else {
-                protocolInfo = device.getGatewayDevice().getProtocolInfo();
-            }
+            final ProtocolInfo protocolInfo = this.domainHelperService.findProtocolInfo(device);
 
             if (protocolInfo == null || !this.protocolRequestService.isSupported(protocolInfo)) {
                 if (protocolInfo == null) {
@@ -0,0 +1,83 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.core.application.services;
+
+import java.util.Date;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import com.alliander.osgp.domain.core.repositories.ScheduledTaskRepository;
+import com.alliander.osgp.domain.core.valueobjects.ScheduledTaskStatusType;
+import com.alliander.osgp.shared.infra.jms.ProtocolResponseMessage;
+import com.alliander.osgp.shared.infra.jms.ResponseMessageResultType;
+
+/**
+ * Decides when the request of a failed device response is retried.
+ *
+ * Only transient failures are retried, at most max.retry.count times per
+ * request. The delay grows exponentially with the retries of the request, or
+ * with the failures of the device when those are more, so requests for an
+ * offline device do not each start over with a short delay.
+ *
+ * The retries are stored as scheduled tasks, which survive a restart, and
+ * the scheduled task scheduler wakes up when they are due. The failures of a
+ * device are its requests waiting for a retry, counted from those scheduled
+ * tasks, so they survive a restart as well, are shared by several instances
+ * of OSGP Core, and only go down as retries of the device succeed or run out.
+ */
+@Service
+public class DeviceRequestRetryService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DeviceRequestRetryService.class);
+
+    @Autowired
+    private RetryClassifier retryClassifier;
+
+    @Autowired
+    private RetryBackoff retryBackoff;
+
+    @Autowired
+    private ScheduledTaskRepository scheduledTaskRepository;
+
+    @Autowired
+    private int getMaxRetryCount;
+
+    /**
+     * @param retries
+     *            The number of times the request has been retried.
+     * @return The time to retry the request at, or null when it should not be
+     *         retried.
+     */
+    public Date getRetryTime(final ProtocolResponseMessage message, final int retries) {
+        if (message.bypassRetry() || message.getResult() != ResponseMessageResultType.NOT_OK
+                || !this.retryClassifier.isTransient(message.getOsgpException())) {
+            return null;
+        }
+
+        final String deviceIdentification = message.getDeviceIdentification();
+        if (retries >= this.getMaxRetryCount) {
+            LOGGER.info("Not retrying {} for device {}, it has been retried {} times.", message.getMessageType(),
+                    deviceIdentification, retries);
+            return null;
+        }
+
+        // The other requests of the device waiting for a retry, this request
+        // is not waiting while it is handled.
+        final long failures = this.scheduledTaskRepository.countByDeviceIdentificationAndStatus(deviceIdentification,
+                ScheduledTaskStatusType.RETRY);
+        final long delay = this.retryBackoff.getDelay((int) Math.max(retries, failures),
+                ThreadLocalRandom.current().nextDouble());
+        LOGGER.info("Retrying {} for device {} in {} ms, retry {} of {}.", message.getMessageType(),
+                deviceIdentification, delay, retries + 1, this.getMaxRetryCount);
+        return new Date(System.currentTimeMillis() + delay);
+    }
+}
@@ -9,6 +9,7 @@ package com.alliander.osgp.core.application.services;
 
 import java.io.Serializable;
 import java.sql.Timestamp;
+import java.util.Date;
 
 import javax.jms.JMSException;
 
@@ -19,15 +20,11 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.alliander.osgp.core.domain.model.domain.DomainResponseService;
-import com.alliander.osgp.domain.core.entities.Device;
 import com.alliander.osgp.domain.core.entities.ScheduledTask;
-import com.alliander.osgp.domain.core.repositories.DeviceRepository;
 import com.alliander.osgp.domain.core.repositories.ScheduledTaskRepository;
 import com.alliander.osgp.domain.core.valueobjects.ScheduledTaskStatusType;
 import com.alliander.osgp.shared.exceptionhandling.FunctionalException;
-import com.alliander.osgp.shared.exceptionhandling.OsgpException;
 import com.alliander.osgp.shared.infra.jms.DeviceMessageMetadata;
-import com.alliander.osgp.shared.infra.jms.ProtocolRequestMessage;
 import com.alliander.osgp.shared.infra.jms.ProtocolResponseMessage;
 import com.alliander.osgp.shared.infra.jms.ResponseMessageResultType;
 
@@ -37,11 +34,6 @@ public class DeviceResponseMessageService {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(DeviceResponseMessageService.class);
 
-    // The array of exceptions which have to be retried.
-    private static final String[] RETRY_EXCEPTIONS = { "Unable to connect", "ConnectException",
-            "Failed to receive response within timelimit", "Timeout waiting for",
-            "Connection closed by remote host while waiting for association response" };
-
     @Autowired
     private DomainResponseService domainResponseMessageSender;
 
@@ -49,21 +41,19 @@ public class DeviceResponseMessageService {
     private ScheduledTaskRepository scheduledTaskRepository;
 
     @Autowired
-    private DeviceRequestMessageService deviceRequestMessageService;
-
-    @Autowired
-    private DeviceRepository deviceRepository;
-
-    @Autowired
-    private int getMaxRetryCount;
+    private DeviceRequestRetryService deviceRequestRetryService;
 
     public void processMessage(final ProtocolResponseMessage message) {
         LOGGER.info("Processing protocol response message with correlation uid [{}]", message.getCorrelationUid());
 
         try {
-            if (message.isScheduled() && !message.bypassRetry()) {
+            final ScheduledTask scheduledTask = this.findScheduledTask(message);
+            if (scheduledTask != null) {
                 LOGGER.info("Handling scheduled protocol response message.");
-                this.handleScheduledTask(message);
+                this.handleScheduledTask(message, scheduledTask);
+            } else if (message.isScheduled() && !message.bypassRetry()) {
+                LOGGER.error("Scheduled task for device [{}] with correlation uid [{}] not found",
+                        message.getDeviceIdentification(), message.getCorrelationUid());
             } else {
                 LOGGER.info("Handling protocol response message.");
                 this.handleProtocolResponseMessage(message);
@@ -74,57 +64,18 @@ public class DeviceResponseMessageService {
     }
 
     /**
-     * Determine if the request should be retried.
-     *
-     * @param message
-     *            Response message.
-     * @return True if result is NOT_OK and the maximum number of retries has
-     *         been reached and the exception indicates a problem that might be
-     *         gone when retried.
-     */
-    private boolean shouldRetryBasedOnMessage(final ProtocolResponseMessage message) {
-        return !message.bypassRetry() && message.getResult() == ResponseMessageResultType.NOT_OK
-                && message.getRetryCount() < this.getMaxRetryCount
-                && this.shouldRetryBasedOnException(message.getOsgpException());
-    }
-
-    /**
-     * Determine if the exception or its cause indicates a problem that might be
-     * gone when retried.
-     *
-     * @param e
-     *            OsgpException
-     * @return True when exception message matches one from the RETRY_EXCEPTIONS
-     *         list.
+     * Finds the scheduled task of a response to a scheduled request, or to a
+     * retry. Retries of requests that were not scheduled are sent as not
+     * scheduled, they are recognized by their retry count.
      */
-    private boolean shouldRetryBasedOnException(final OsgpException e) {
-        if (e == null) {
-            return false;
-        }
-
-        final String exceptionMsg = e.toString();
-        if (e.getCause() != null) {
-            exceptionMsg.concat(e.getCause().toString());
-        }
-
-        for (final String retryException : RETRY_EXCEPTIONS) {
-            if (exceptionMsg.contains(retryException)) {
-                return true;
-            }
+    private ScheduledTask findScheduledTask(final ProtocolResponseMessage message) {
+        if (message.bypassRetry() || (!message.isScheduled() && message.getRetryCount() == 0)) {
+            return null;
         }
-        return false;
+        return this.scheduledTaskRepository.findByCorrelationUid(message.getCorrelationUid());
     }
 
-    private void handleScheduledTask(final ProtocolResponseMessage message) {
-        final ScheduledTask scheduledTask = this.scheduledTaskRepository
-                .findByCorrelationUid(message.getCorrelationUid());
-
-        if (scheduledTask == null) {
-            LOGGER.error("Scheduled task for device [{}] with correlation uid [{}] not found",
-                    message.getDeviceIdentification(), message.getCorrelationUid());
-            return;
-        }
-
+    private void handleScheduledTask(final ProtocolResponseMessage message, final ScheduledTask scheduledTask) {
         if (this.messageIsSuccessful(message, scheduledTask)) {
             this.domainResponseMessageSender.send(message);
             this.scheduledTaskRepository.delete(scheduledTask);
@@ -137,16 +88,23 @@ public class DeviceResponseMessageService {
     private void handleUnsuccessfulScheduledTask(final ProtocolResponseMessage message,
             final ScheduledTask scheduledTask) {
         if (this.mustBeRetried(message)) {
-            this.handleMessageRetry(message, scheduledTask);
+            this.handleMessageRetry(message, scheduledTask, message.getRetryHeader().getScheduledRetryTime());
+            return;
+        }
+
+        final Date retryTime = this.deviceRequestRetryService.getRetryTime(message, scheduledTask.getRetry());
+        if (retryTime != null) {
+            this.handleMessageRetry(message, scheduledTask, retryTime);
         } else {
             this.domainResponseMessageSender.send(message);
             this.scheduledTaskRepository.delete(scheduledTask);
         }
     }
 
-    private void handleMessageRetry(final ProtocolResponseMessage message, final ScheduledTask scheduledTask) {
+    private void handleMessageRetry(final ProtocolResponseMessage message, final ScheduledTask scheduledTask,
+            final Date retryTime) {
         scheduledTask.setFailed(this.determineErrorMessage(message));
-        scheduledTask.retryOn(message.getRetryHeader().getScheduledRetryTime());
+        scheduledTask.retryOn(retryTime);
         this.scheduledTaskRepository.save(scheduledTask);
     }
 
@@ -171,18 +129,19 @@ public class DeviceResponseMessageService {
 
     private void handleProtocolResponseMessage(final ProtocolResponseMessage message)
             throws FunctionalException, JMSException {
+        final Date retryTime;
         if (this.mustBeRetried(message)) {
+            retryTime = message.getRetryHeader().getScheduledRetryTime();
+        } else {
+            retryTime = this.deviceRequestRetryService.getRetryTime(message, message.getRetryCount());
+        }
+
+        if (retryTime != null) {
             // Create scheduled task for retries.
             LOGGER.info("Creating a scheduled retry task for message of type {} for device {}.",
                     message.getMessageType(), message.getDeviceIdentification());
-            final ScheduledTask task = this.createScheduledRetryTask(message);
+            final ScheduledTask task = this.createScheduledRetryTask(message, retryTime);
             this.scheduledTaskRepository.save(task);
-        } else if (this.shouldRetryBasedOnMessage(message)) {
-            // Immediate retry based on error message. Should be deprecated.
-            LOGGER.info("Retrying: {} for device {} for {} time", message.getMessageType(),
-                    message.getDeviceIdentification(), message.getRetryCount() + 1);
-            final ProtocolRequestMessage protocolRequestMessage = this.createProtocolRequestMessage(message);
-            this.deviceRequestMessageService.processMessage(protocolRequestMessage);
         } else {
             LOGGER.info("Sending domain response message for message of type {} for device {} with correlationUid {}.",
                     message.getMessageType(), message.getDeviceIdentification(), message.getCorrelationUid());
@@ -190,28 +149,17 @@ public class DeviceResponseMessageService {
         }
     }
 
-    private ProtocolRequestMessage createProtocolRequestMessage(final ProtocolResponseMessage message)
+    private ScheduledTask createScheduledRetryTask(final ProtocolResponseMessage message, final Date retryTime)
             throws JMSException {
-        final Device device = this.deviceRepository.findByDeviceIdentification(message.getDeviceIdentification());
-
-        final Serializable messageData = message.getDataObject();
-
-        final DeviceMessageMetadata deviceMessageMetadata = new DeviceMessageMetadata(message);
-
-        return new ProtocolRequestMessage.Builder().deviceMessageMetadata(deviceMessageMetadata)
-                .domain(message.getDomain()).domainVersion(message.getDomainVersion()).ipAddress(device.getIpAddress())
-                .request(messageData).scheduled(message.isScheduled()).retryCount(message.getRetryCount() + 1).build();
-    }
-
-    private ScheduledTask createScheduledRetryTask(final ProtocolResponseMessage message) throws JMSException {
 
         final Serializable messageData = message.getDataObject();
-        final Timestamp scheduleTimeStamp = new Timestamp(message.getRetryHeader().getScheduledRetryTime().getTime());
+        final Timestamp scheduleTimeStamp = new Timestamp(retryTime.getTime());
 
         final DeviceMessageMetadata deviceMessageMetadata = new DeviceMessageMetadata(message);
 
+        // The retry keeps the priority of the request, see ScheduledTaskScheduler.
         final ScheduledTask task = new ScheduledTask(deviceMessageMetadata, message.getDomain(),
-                message.getDomainVersion(), messageData, scheduleTimeStamp);
+                message.getDomainVersion(), messageData, scheduleTimeStamp, message.isScheduled());
         task.retryOn(scheduleTimeStamp);
 
         return task;
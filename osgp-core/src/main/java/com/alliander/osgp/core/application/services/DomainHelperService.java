@@ -10,8 +10,10 @@ package com.alliander.osgp.core.application.services;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import com.alliander.osgp.core.application.cache.DomainLookupCache;
 import com.alliander.osgp.domain.core.entities.Device;
 import com.alliander.osgp.domain.core.entities.Organisation;
+import com.alliander.osgp.domain.core.entities.ProtocolInfo;
 import com.alliander.osgp.domain.core.exceptions.NotAuthorizedException;
 import com.alliander.osgp.domain.core.exceptions.UnknownEntityException;
 import com.alliander.osgp.domain.core.services.DeviceDomainService;
@@ -37,21 +39,53 @@ public class DomainHelperService {
     @Autowired
     private SecurityService securityService;
 
+    @Autowired
+    private DomainLookupCache domainLookupCache;
+
+    /**
+     * Returns the device, from the {@link DomainLookupCache} if it is cached.
+     * The returned device may be shared with other threads and must not be
+     * changed.
+     */
     public Device findDevice(final String deviceIdentification) throws FunctionalException {
-        return this.deviceDomainService.searchDevice(deviceIdentification);
+        final Device cachedDevice = this.domainLookupCache.getDevice(deviceIdentification);
+        if (cachedDevice != null) {
+            return cachedDevice;
+        }
+        final Device device = this.deviceDomainService.searchDevice(deviceIdentification);
+        this.domainLookupCache.putDevice(device);
+        return device;
+    }
+
+    /**
+     * Returns the protocol info to use for communication with the device,
+     * which is the protocol info of its gateway device if it has one.
+     */
+    public ProtocolInfo findProtocolInfo(final Device device) {
+        final Device sourceDevice = device.getGatewayDevice() == null ? device : device.getGatewayDevice();
+        return sourceDevice.getProtocolInfo();
     }
 
     public Device findActiveDevice(final String deviceIdentification) throws FunctionalException {
         return this.deviceDomainService.searchActiveDevice(deviceIdentification, COMPONENT_TYPE);
     }
 
+    /**
+     * Returns the organisation, from the {@link DomainLookupCache} if it is
+     * cached. The returned organisation may be shared with other threads and
+     * must not be changed.
+     */
     public Organisation findOrganisation(final String organisationIdentification) throws FunctionalException {
-        Organisation organisation;
+        Organisation organisation = this.domainLookupCache.getOrganisation(organisationIdentification);
+        if (organisation != null) {
+            return organisation;
+        }
         try {
             organisation = this.organisationDomainService.searchOrganisation(organisationIdentification);
         } catch (final UnknownEntityException e) {
             throw new FunctionalException(FunctionalExceptionType.UNKNOWN_ORGANISATION, COMPONENT_TYPE, e);
         }
+        this.domainLookupCache.putOrganisation(organisation);
         return organisation;
     }
 
@@ -24,6 +24,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.alliander.osgp.core.domain.model.domain.DomainRequestService;
+import com.alliander.osgp.core.infra.db.EventBatchWriter;
 import com.alliander.osgp.domain.core.entities.Device;
 import com.alliander.osgp.domain.core.entities.DeviceOutputSetting;
 import com.alliander.osgp.domain.core.entities.DomainInfo;
@@ -57,6 +58,9 @@ public class EventNotificationMessageService {
     @Autowired
     private EventRepository eventRepository;
 
+    @Autowired
+    private EventBatchWriter eventBatchWriter;
+
     @Autowired
     private SsldRepository ssldRepository;
 
@@ -126,6 +130,7 @@ public class EventNotificationMessageService {
          * relay). Handling light switching events, only update the relay status
          * once for the last switching in the list.
          */
+        final List<Event> events = new ArrayList<>(eventNotifications.size());
         final List<Event> lightSwitchingEvents = new ArrayList<>();
         final List<Event> tariffSwitchingEvents = new ArrayList<>();
         final List<Event> lightMeasurementDeviceEvents = new ArrayList<>();
@@ -136,9 +141,9 @@ public class EventNotificationMessageService {
             final Event event = new Event(device, eventTime != null ? eventTime.toDate() : DateTime.now().toDate(),
                     eventType, eventNotification.getDescription(), eventNotification.getIndex());
 
-            LOGGER.info("Saving event with eventType: {} eventTime: {} description: {} index: {}", eventType.name(),
+            LOGGER.debug("Saving event with eventType: {} eventTime: {} description: {} index: {}", eventType.name(),
                     eventTime, eventNotification.getDescription(), eventNotification.getIndex());
-            this.eventRepository.save(event);
+            events.add(event);
 
             if (eventType.equals(EventType.LIGHT_EVENTS_LIGHT_ON)
                     || eventType.equals(EventType.LIGHT_EVENTS_LIGHT_OFF)) {
@@ -152,22 +157,46 @@ public class EventNotificationMessageService {
             }
         }
 
-        this.handleLightSwitchingEvents(device, lightSwitchingEvents);
-        this.handleTariffSwitchingEvents(device, tariffSwitchingEvents);
+        LOGGER.info("Saving {} events for device: {}", events.size(), deviceIdentification);
+        this.eventBatchWriter.insertInBatches(events);
+
+        this.handleSwitchingEvents(device, lightSwitchingEvents, tariffSwitchingEvents);
         this.handleLightMeasurementDeviceEvents(device, lightMeasurementDeviceEvents);
     }
 
-    private void handleLightSwitchingEvents(final Device device, final List<Event> lightSwitchingEvents) {
+    /**
+     * Updates the relay statuses of the SSLD for the light and tariff
+     * switching events, loading and saving the SSLD once.
+     */
+    private void handleSwitchingEvents(final Device device, final List<Event> lightSwitchingEvents,
+            final List<Event> tariffSwitchingEvents) {
+
+        if (lightSwitchingEvents.isEmpty() && tariffSwitchingEvents.isEmpty()) {
+            return;
+        }
+
+        final Ssld ssld = this.ssldRepository.findOne(device.getId());
+        final boolean lightRelaysUpdated = this.handleLightSwitchingEvents(device, ssld, lightSwitchingEvents);
+        final boolean tariffRelaysUpdated = this.handleTariffSwitchingEvents(device, ssld, tariffSwitchingEvents);
+
+        if (lightRelaysUpdated || tariffRelaysUpdated) {
+            this.deviceRepository.save(device);
+
+            this.sendRequestMessageToDomainCore(RELAY_STATUS_UPDATED_EVENTS, ssld.getDeviceIdentification(), null);
+        }
+    }
+
+    private boolean handleLightSwitchingEvents(final Device device, final Ssld ssld,
+            final List<Event> lightSwitchingEvents) {
 
         LOGGER.info("handleLightSwitchingEvents() called for device: {} with lightSwitchingEvents.size(): {}",
                 device.getDeviceIdentification(), lightSwitchingEvents.size());
 
         if (lightSwitchingEvents.isEmpty()) {
-            return;
+            return false;
         }
 
         // Determine light relays for SSLD.
-        final Ssld ssld = this.ssldRepository.findOne(device.getId());
         final Set<Integer> indexesLightRelays = new TreeSet<>();
         for (final DeviceOutputSetting deviceOutputSetting : ssld.getOutputSettings()) {
             if (deviceOutputSetting.getOutputType().equals(RelayType.LIGHT)) {
@@ -195,10 +224,9 @@ public class EventNotificationMessageService {
                     ssld.getDeviceIdentification(), lastRelayStatusPerIndex.size());
 
             ssld.updateRelayStatusses(lastRelayStatusPerIndex);
-            this.deviceRepository.save(device);
-
-            this.sendRequestMessageToDomainCore(RELAY_STATUS_UPDATED_EVENTS, ssld.getDeviceIdentification(), null);
+            return true;
         }
+        return false;
     }
 
     private void handleLightSwitchingEventForIndex0(final Set<Integer> indexesLightRelays, final Device device,
@@ -221,13 +249,13 @@ public class EventNotificationMessageService {
         }
     }
 
-    private void handleTariffSwitchingEvents(final Device device, final List<Event> tariffSwitchingEvents) {
+    private boolean handleTariffSwitchingEvents(final Device device, final Ssld ssld,
+            final List<Event> tariffSwitchingEvents) {
 
         if (tariffSwitchingEvents.isEmpty()) {
-            return;
+            return false;
         }
 
-        final Ssld ssld = this.ssldRepository.findOne(device.getId());
         final Set<Integer> indexesTariffRelays = new TreeSet<>();
         for (final DeviceOutputSetting deviceOutputSetting : ssld.getOutputSettings()) {
             if (deviceOutputSetting.getOutputType().equals(RelayType.TARIFF)) {
@@ -243,26 +271,26 @@ public class EventNotificationMessageService {
 
         if (!lastRelayStatusPerIndex.isEmpty()) {
             ssld.updateRelayStatusses(lastRelayStatusPerIndex);
-            this.deviceRepository.save(device);
-
-            this.sendRequestMessageToDomainCore(RELAY_STATUS_UPDATED_EVENTS, ssld.getDeviceIdentification(), null);
+            return true;
         }
+        return false;
     }
 
     private void handleSwitchingEvent(final Device device, final Date dateTime, final EventType eventType,
             final int index) {
 
+        final Ssld ssld = this.ssldRepository.findOne(device.getId());
+
         // if the index == 0 handle all LIGHT relays, otherwise just handle the
         // index
         if (index == 0) {
-            final Ssld ssld = this.ssldRepository.findOne(device.getId());
             for (final DeviceOutputSetting deviceOutputSetting : ssld.getOutputSettings()) {
                 if (deviceOutputSetting.getOutputType().equals(RelayType.LIGHT)) {
-                    this.updateRelayStatus(deviceOutputSetting.getExternalId(), device, dateTime, eventType);
+                    this.updateRelayStatus(deviceOutputSetting.getExternalId(), device, ssld, dateTime, eventType);
                 }
             }
         } else {
-            this.updateRelayStatus(index, device, dateTime, eventType);
+            this.updateRelayStatus(index, device, ssld, dateTime, eventType);
         }
 
         this.deviceRepository.save(device);
@@ -270,7 +298,7 @@ public class EventNotificationMessageService {
         this.sendRequestMessageToDomainCore(RELAY_STATUS_UPDATED_EVENTS, device.getDeviceIdentification(), null);
     }
 
-    private void updateRelayStatus(final int index, final Device device, final Date dateTime,
+    private void updateRelayStatus(final int index, final Device device, final Ssld ssld, final Date dateTime,
             final EventType eventType) {
 
         final boolean isRelayOn = EventType.LIGHT_EVENTS_LIGHT_ON.equals(eventType)
@@ -278,7 +306,6 @@ public class EventNotificationMessageService {
 
         // Only handle the event if the relay doesn't have a status yet, or
         // if the state changed
-        final Ssld ssld = this.ssldRepository.findOne(device.getId());
         if ((ssld.getRelayStatusByIndex(index) == null)
                 || (ssld.getRelayStatusByIndex(index).isLastKnownState() != isRelayOn)) {
             LOGGER.info("Handling new event {} for device {} to update the relay status for index {} with date {}.",
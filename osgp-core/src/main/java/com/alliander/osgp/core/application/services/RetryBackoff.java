@@ -0,0 +1,44 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.core.application.services;
+
+/**
+ * Exponential backoff with jitter. The delay doubles, by the multiplier, for
+ * every retry up to the maximum delay. Half of the delay is fixed and the
+ * other half random, so retries of devices that failed at the same time are
+ * spread out, and no retry comes sooner than half the delay.
+ */
+public class RetryBackoff {
+
+    private final long initialDelay;
+    private final double multiplier;
+    private final long maximumDelay;
+
+    public RetryBackoff(final long initialDelay, final double multiplier, final long maximumDelay) {
+        if (initialDelay <= 0 || multiplier < 1 || maximumDelay < initialDelay) {
+            throw new IllegalArgumentException(String.format(
+                    "Invalid backoff: initial delay %d, multiplier %s, maximum delay %d", initialDelay, multiplier,
+                    maximumDelay));
+        }
+        this.initialDelay = initialDelay;
+        this.multiplier = multiplier;
+        this.maximumDelay = maximumDelay;
+    }
+
+    /**
+     * @param retries
+     *            The number of retries before this one.
+     * @param jitter
+     *            A random number from 0 (inclusive) to 1 (exclusive).
+     * @return The delay of the retry in milliseconds.
+     */
+    public long getDelay(final int retries, final double jitter) {
+        final double delay = Math.min(this.maximumDelay, this.initialDelay * Math.pow(this.multiplier, retries));
+        return (long) (delay / 2 + delay / 2 * jitter);
+    }
+}
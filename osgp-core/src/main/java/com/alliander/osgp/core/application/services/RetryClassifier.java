@@ -0,0 +1,74 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.core.application.services;
+
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.SocketTimeoutException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeoutException;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Classifies the exceptions of failed device responses. Connection failures
+ * and time outs are transient, a device that is offline or busy may respond
+ * when the request is retried later. Other failures are permanent.
+ *
+ * Protocol adapters mostly send the original exception as the message of a
+ * technical exception, so the messages of the exception and all its causes
+ * are matched as well as their types.
+ */
+@Component
+public class RetryClassifier {
+
+    private static final List<Class<? extends Throwable>> TRANSIENT_EXCEPTIONS = Arrays.asList(
+            ConnectException.class, NoRouteToHostException.class, SocketTimeoutException.class,
+            TimeoutException.class);
+
+    private static final String[] TRANSIENT_MESSAGES = { "Unable to connect", "ConnectException",
+            "Failed to receive response within timelimit", "Timeout waiting for",
+            "Connection closed by remote host while waiting for association response" };
+
+    /**
+     * @return True when the exception or one of its causes indicates a problem
+     *         that might be gone when retried.
+     */
+    public boolean isTransient(final Throwable exception) {
+        final Set<Throwable> seen = Collections.newSetFromMap(new IdentityHashMap<Throwable, Boolean>());
+        for (Throwable cause = exception; cause != null && seen.add(cause); cause = cause.getCause()) {
+            if (this.isTransientType(cause) || this.hasTransientMessage(cause)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isTransientType(final Throwable exception) {
+        for (final Class<? extends Throwable> type : TRANSIENT_EXCEPTIONS) {
+            if (type.isInstance(exception)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean hasTransientMessage(final Throwable exception) {
+        final String message = exception.toString();
+        for (final String transientMessage : TRANSIENT_MESSAGES) {
+            if (message.contains(transientMessage)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
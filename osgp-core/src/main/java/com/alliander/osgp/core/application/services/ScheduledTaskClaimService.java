@@ -0,0 +1,107 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.core.application.services;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.alliander.osgp.domain.core.entities.ScheduledTask;
+import com.alliander.osgp.domain.core.repositories.ScheduledTaskRepository;
+import com.alliander.osgp.domain.core.valueobjects.ScheduledTaskStatusType;
+
+/**
+ * Claims due scheduled tasks for processing by this instance.
+ */
+@Service
+@Transactional(value = "transactionManager")
+public class ScheduledTaskClaimService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ScheduledTaskClaimService.class);
+
+    @Autowired
+    private ScheduledTaskRepository scheduledTaskRepository;
+
+    @Autowired
+    private int getMaxRetryCount;
+
+    /**
+     * Sets a batch of due scheduled tasks to PENDING in a single transaction,
+     * and records the time they were claimed. The tasks are locked while they
+     * are claimed, so a task is only claimed once, even when several instances
+     * of OSGP Core run at the same time.
+     *
+     * @param status
+     *            the status of the tasks to claim, NEW or RETRY.
+     * @param maxResults
+     *            the maximum number of tasks to claim.
+     * @return the claimed tasks, an empty list if no tasks are due.
+     */
+    public List<ScheduledTask> claimScheduledTasks(final ScheduledTaskStatusType status, final int maxResults) {
+        final Timestamp timestamp = new Timestamp(System.currentTimeMillis());
+
+        final List<ScheduledTask> scheduledTasks = this.scheduledTaskRepository
+                .findAndLockByStatusAndScheduledTimeLessThan(status.ordinal(), timestamp, maxResults);
+        return this.claim(scheduledTasks, timestamp);
+    }
+
+    /**
+     * Claims a batch of PENDING scheduled tasks that were claimed longer than
+     * the lease time ago and have not been completed or rescheduled since,
+     * because the instance that claimed them stopped, or no response was
+     * received. The claimed time of the tasks is renewed.
+     *
+     * Processing an expired task again counts as a retry. A task that has
+     * been retried max.retry.count times is set to FAILED instead, so a task
+     * whose response never arrives is not sent again forever.
+     *
+     * @param leaseTime
+     *            the time in milliseconds a claimed task may stay PENDING.
+     * @param maxResults
+     *            the maximum number of tasks to claim.
+     * @return the claimed tasks to process again, an empty list if no claims
+     *         have expired. When claims have expired, but all of those tasks
+     *         failed, the list is empty as well, while more expired claims
+     *         may be left.
+     */
+    public List<ScheduledTask> reclaimExpiredScheduledTasks(final long leaseTime, final int maxResults) {
+        final Timestamp timestamp = new Timestamp(System.currentTimeMillis());
+
+        final List<ScheduledTask> scheduledTasks = this.scheduledTaskRepository
+                .findAndLockByStatusAndClaimedTimeLessThan(ScheduledTaskStatusType.PENDING.ordinal(),
+                        new Timestamp(timestamp.getTime() - leaseTime), maxResults);
+
+        final List<ScheduledTask> reclaimed = new ArrayList<>(scheduledTasks.size());
+        for (final ScheduledTask scheduledTask : scheduledTasks) {
+            if (scheduledTask.getRetry() >= this.getMaxRetryCount) {
+                LOGGER.warn("No response for {} of device {} after {} retries, the scheduled task failed.",
+                        scheduledTask.getMessageType(), scheduledTask.getDeviceIdentification(),
+                        scheduledTask.getRetry());
+                scheduledTask.setFailed("No response received after " + scheduledTask.getRetry() + " retries");
+            } else {
+                scheduledTask.reclaim(timestamp);
+                reclaimed.add(scheduledTask);
+            }
+        }
+        this.scheduledTaskRepository.save(scheduledTasks);
+        return reclaimed;
+    }
+
+    private List<ScheduledTask> claim(final List<ScheduledTask> scheduledTasks, final Timestamp timestamp) {
+        for (final ScheduledTask scheduledTask : scheduledTasks) {
+            scheduledTask.setPending(timestamp);
+        }
+        return this.scheduledTaskRepository.save(scheduledTasks);
+    }
+}
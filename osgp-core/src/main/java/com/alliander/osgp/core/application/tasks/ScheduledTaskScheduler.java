@@ -7,18 +7,29 @@
  */
 package com.alliander.osgp.core.application.tasks;
 
-import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.jms.Message;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.scheduling.TaskScheduler;
 import org.springframework.stereotype.Component;
 
 import com.alliander.osgp.core.application.config.SchedulingConfig;
 import com.alliander.osgp.core.application.services.DeviceRequestMessageService;
+import com.alliander.osgp.core.application.services.ScheduledTaskClaimService;
 import com.alliander.osgp.domain.core.entities.Device;
 import com.alliander.osgp.domain.core.entities.ScheduledTask;
 import com.alliander.osgp.domain.core.repositories.DeviceRepository;
@@ -28,14 +39,35 @@ import com.alliander.osgp.shared.exceptionhandling.FunctionalException;
 import com.alliander.osgp.shared.infra.jms.DeviceMessageMetadata;
 import com.alliander.osgp.shared.infra.jms.ProtocolRequestMessage;
 
+/**
+ * Processes due scheduled tasks. Runs on the configured cron trigger, and
+ * earlier when a task is created or rescheduled to run before the next
+ * trigger (see {@link #wakeUpAt(Date)}).
+ *
+ * Tasks are claimed in batches through the {@link ScheduledTaskClaimService}
+ * and processed in parallel on the scheduled task executor. Claiming is safe
+ * when several instances of OSGP Core share the same database. Tasks that
+ * stay PENDING longer than the lease time, for instance because the instance
+ * that claimed them stopped, are claimed and processed again, as a retry. A
+ * task that has been retried max.retry.count times fails instead.
+ *
+ * The scheduled tasks, including retries of failed device requests, are
+ * stored in the database. Retries of requests that were not scheduled keep the
+ * priority of the original request. When the application has started the scheduler
+ * wakes up once for the first of them, so retries that were due during a
+ * restart are not delayed until the next cron trigger.
+ */
 @Component
-public class ScheduledTaskScheduler implements Runnable {
+public class ScheduledTaskScheduler implements Runnable, ApplicationListener<ContextRefreshedEvent> {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(ScheduledTaskScheduler.class);
 
     @Autowired
     private DeviceRequestMessageService deviceRequestMessageService;
 
+    @Autowired
+    private ScheduledTaskClaimService scheduledTaskClaimService;
+
     @Autowired
     private ScheduledTaskRepository scheduledTaskRepository;
 
@@ -45,40 +77,146 @@ public class ScheduledTaskScheduler implements Runnable {
     @Autowired
     private SchedulingConfig schedulingConfig;
 
+    @Autowired
+    @Qualifier("scheduledTaskExecutor")
+    private AsyncTaskExecutor scheduledTaskExecutor;
+
+    @Autowired
+    private TaskScheduler taskScheduler;
+
+    private final AtomicBoolean started = new AtomicBoolean();
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicBoolean rerunRequested = new AtomicBoolean();
+    private final AtomicLong nextWakeUpTime = new AtomicLong();
+
     @Override
     public void run() {
-        LOGGER.info("Processing scheduled tasks");
+        // When a run is already in progress, let it run once more instead of
+        // running concurrently, so a wake up is never lost.
+        this.rerunRequested.set(true);
+        while (this.rerunRequested.get() && this.running.compareAndSet(false, true)) {
+            try {
+                this.rerunRequested.set(false);
+                LOGGER.info("Processing scheduled tasks");
+
+                this.processScheduledTasks(ScheduledTaskStatusType.NEW);
+                this.processScheduledTasks(ScheduledTaskStatusType.RETRY);
+                this.processExpiredScheduledTasks();
+            } finally {
+                this.running.set(false);
+            }
+        }
+    }
+
+    @Override
+    public void onApplicationEvent(final ContextRefreshedEvent event) {
+        // The refreshes of child contexts, such as those of the servlets, are
+        // published to this context as well.
+        if (!this.started.compareAndSet(false, true)) {
+            return;
+        }
+        this.wakeUpForFirstTask(ScheduledTaskStatusType.NEW);
+        this.wakeUpForFirstTask(ScheduledTaskStatusType.RETRY);
+    }
+
+    /**
+     * Makes sure scheduled tasks are processed shortly after the given time,
+     * if that is within the wake up window. Tasks scheduled further ahead are
+     * picked up by the cron trigger.
+     */
+    public void wakeUpAt(final Date scheduledTime) {
+        final long now = System.currentTimeMillis();
+        // Tasks are due when their scheduled time is before the current time.
+        final long wakeUpTime = Math.max(scheduledTime.getTime() + 1, now);
+        if (wakeUpTime - now > this.schedulingConfig.scheduledTaskWakeUpWindow()) {
+            return;
+        }
+
+        long current;
+        do {
+            current = this.nextWakeUpTime.get();
+            if (current >= now && current <= wakeUpTime) {
+                // An earlier wake up is already scheduled, it will process
+                // this task as well.
+                return;
+            }
+        } while (!this.nextWakeUpTime.compareAndSet(current, wakeUpTime));
 
-        this.processScheduledTasks(ScheduledTaskStatusType.NEW);
-        this.processScheduledTasks(ScheduledTaskStatusType.RETRY);
+        LOGGER.debug("Scheduling wake up of the scheduled task scheduler at {}", new Date(wakeUpTime));
+        this.taskScheduler.schedule(this, new Date(wakeUpTime));
+    }
+
+    private void wakeUpForFirstTask(final ScheduledTaskStatusType type) {
+        final ScheduledTask scheduledTask = this.scheduledTaskRepository.findFirstByStatusOrderByScheduledTimeAsc(type);
+        if (scheduledTask != null) {
+            LOGGER.info("First scheduled task with status {} is due at {}", type, scheduledTask.getscheduledTime());
+            this.wakeUpAt(scheduledTask.getscheduledTime());
+        }
     }
 
     private void processScheduledTasks(final ScheduledTaskStatusType type) {
         List<ScheduledTask> scheduledTasks = this.getScheduledTasks(type);
 
         while (!scheduledTasks.isEmpty()) {
-            for (ScheduledTask scheduledTask : scheduledTasks) {
-                LOGGER.info("Processing scheduled task for device [{}] to perform [{}]  ",
-                        scheduledTask.getDeviceIdentification(), scheduledTask.getMessageType());
-                try {
-                    scheduledTask.setPending();
-                    scheduledTask = this.scheduledTaskRepository.save(scheduledTask);
-                    final ProtocolRequestMessage protocolRequestMessage = this
-                            .createProtocolRequestMessage(scheduledTask);
-                    this.deviceRequestMessageService.processMessage(protocolRequestMessage);
-                } catch (final FunctionalException e) {
-                    LOGGER.error("Processing scheduled task failed.", e);
-                    this.scheduledTaskRepository.delete(scheduledTask);
+            this.processInParallel(scheduledTasks);
+            scheduledTasks = this.getScheduledTasks(type);
+        }
+    }
+
+    private void processExpiredScheduledTasks() {
+        List<ScheduledTask> scheduledTasks = this.getExpiredScheduledTasks();
+
+        while (!scheduledTasks.isEmpty()) {
+            LOGGER.warn("Processing {} scheduled tasks again, they were claimed more than {} ms ago",
+                    scheduledTasks.size(), this.schedulingConfig.scheduledTaskPendingLeaseTime());
+            this.processInParallel(scheduledTasks);
+            scheduledTasks = this.getExpiredScheduledTasks();
+        }
+    }
+
+    private void processInParallel(final List<ScheduledTask> scheduledTasks) {
+        final List<Future<?>> futures = new ArrayList<>(scheduledTasks.size());
+        for (final ScheduledTask scheduledTask : scheduledTasks) {
+            futures.add(this.scheduledTaskExecutor.submit(new Runnable() {
+                @Override
+                public void run() {
+                    ScheduledTaskScheduler.this.processScheduledTask(scheduledTask);
                 }
+            }));
+        }
+        this.awaitCompletion(futures);
+    }
+
+    private void processScheduledTask(final ScheduledTask scheduledTask) {
+        LOGGER.info("Processing scheduled task for device [{}] to perform [{}]  ",
+                scheduledTask.getDeviceIdentification(), scheduledTask.getMessageType());
+        try {
+            final ProtocolRequestMessage protocolRequestMessage = this.createProtocolRequestMessage(scheduledTask);
+            this.deviceRequestMessageService.processMessage(protocolRequestMessage);
+        } catch (final FunctionalException e) {
+            LOGGER.error("Processing scheduled task failed.", e);
+            this.scheduledTaskRepository.delete(scheduledTask);
+        }
+    }
+
+    private void awaitCompletion(final List<Future<?>> futures) {
+        for (final Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (final ExecutionException e) {
+                LOGGER.error("Unexpected exception while processing scheduled task.", e.getCause());
+            } catch (final InterruptedException e) {
+                LOGGER.warn("Interrupted while waiting for scheduled tasks to be processed.", e);
+                Thread.currentThread().interrupt();
+                return;
             }
-            scheduledTasks = this.getScheduledTasks(type);
         }
     }
 
     /**
-     * Fetch scheduled tasks for given scheduledTaskStatusTypes: NEW and RETRY.
-     * The processed tasks are set to PENDING, so they will not be fetched by
-     * this method.
+     * Claim scheduled tasks for given scheduledTaskStatusTypes: NEW and RETRY.
+     * The claimed tasks are set to PENDING, so they will not be fetched again
+     * by this method or by other instances.
      *
      * @param type
      *            ScheduledTaskStatusType (NEW, PENDING, COMPLETE, FAILED,
@@ -86,20 +224,36 @@ public class ScheduledTaskScheduler implements Runnable {
      * @return
      */
     private List<ScheduledTask> getScheduledTasks(final ScheduledTaskStatusType type) {
-        final Timestamp timestamp = new Timestamp(System.currentTimeMillis());
+        if (Thread.currentThread().isInterrupted()) {
+            return new ArrayList<>();
+        }
 
         // configurable page size for scheduled tasks
-        final Pageable pageable = new PageRequest(0, this.schedulingConfig.scheduledTaskPageSize());
+        return this.scheduledTaskClaimService.claimScheduledTasks(type, this.schedulingConfig.scheduledTaskPageSize());
+    }
+
+    /**
+     * Claim PENDING scheduled tasks whose claim has expired. They are claimed
+     * again with a new lease.
+     */
+    private List<ScheduledTask> getExpiredScheduledTasks() {
+        if (Thread.currentThread().isInterrupted()) {
+            return new ArrayList<>();
+        }
 
-        return this.scheduledTaskRepository.findByStatusAndScheduledTimeLessThan(type, timestamp, pageable);
+        return this.scheduledTaskClaimService.reclaimExpiredScheduledTasks(
+                this.schedulingConfig.scheduledTaskPendingLeaseTime(), this.schedulingConfig.scheduledTaskPageSize());
     }
 
     private ProtocolRequestMessage createProtocolRequestMessage(final ScheduledTask scheduledTask) {
         final Device device = this.deviceRepository.findByDeviceIdentification(scheduledTask.getDeviceIdentification());
 
+        // Tasks scheduled before the priority was stored have none.
+        final int messagePriority = scheduledTask.getMessagePriority() == null ? Message.DEFAULT_PRIORITY
+                : scheduledTask.getMessagePriority();
         final DeviceMessageMetadata deviceMessageMetadata = new DeviceMessageMetadata(
                 scheduledTask.getDeviceIdentification(), scheduledTask.getOrganisationIdentification(),
-                scheduledTask.getCorrelationId(), scheduledTask.getMessageType(), scheduledTask.getMessagePriority());
+                scheduledTask.getCorrelationId(), scheduledTask.getMessageType(), messagePriority);
 
         final String ipAddress;
         if (device.getNetworkAddress() == null) {
@@ -108,9 +262,12 @@ public class ScheduledTaskScheduler implements Runnable {
             ipAddress = device.getNetworkAddress().getHostAddress();
         }
 
+        // Retries of requests that were not scheduled are sent as not scheduled,
+        // so they do not get the bulk priority of scheduled requests.
         return new ProtocolRequestMessage.Builder().deviceMessageMetadata(deviceMessageMetadata)
                 .domain(scheduledTask.getDomain()).domainVersion(scheduledTask.getDomainVersion()).ipAddress(ipAddress)
-                .request(scheduledTask.getMessageData()).retryCount(scheduledTask.getRetry()).scheduled(true).build();
+                .request(scheduledTask.getMessageData()).retryCount(scheduledTask.getRetry())
+                .scheduled(scheduledTask.isScheduled()).build();
     }
 
 }
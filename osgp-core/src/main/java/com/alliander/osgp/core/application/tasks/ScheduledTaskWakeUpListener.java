@@ -0,0 +1,53 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.core.application.tasks;
+
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+
+import com.alliander.osgp.domain.core.entities.ScheduledTask;
+import com.alliander.osgp.domain.core.valueobjects.ScheduledTaskStatusType;
+
+/**
+ * Hibernate post commit listener that wakes up the
+ * {@link ScheduledTaskScheduler} when a scheduled task is created or
+ * rescheduled for a retry.
+ */
+public class ScheduledTaskWakeUpListener implements PostInsertEventListener, PostUpdateEventListener {
+
+    private static final long serialVersionUID = 4520338307934785064L;
+
+    private final transient ScheduledTaskScheduler scheduledTaskScheduler;
+
+    public ScheduledTaskWakeUpListener(final ScheduledTaskScheduler scheduledTaskScheduler) {
+        this.scheduledTaskScheduler = scheduledTaskScheduler;
+    }
+
+    @Override
+    public void onPostInsert(final PostInsertEvent event) {
+        this.wakeUp(event.getEntity());
+    }
+
+    @Override
+    public void onPostUpdate(final PostUpdateEvent event) {
+        this.wakeUp(event.getEntity());
+    }
+
+    private void wakeUp(final Object entity) {
+        if (!(entity instanceof ScheduledTask)) {
+            return;
+        }
+        final ScheduledTask scheduledTask = (ScheduledTask) entity;
+        if (scheduledTask.getStatus() == ScheduledTaskStatusType.NEW
+                || scheduledTask.getStatus() == ScheduledTaskStatusType.RETRY) {
+            this.scheduledTaskScheduler.wakeUpAt(scheduledTask.getscheduledTime());
+        }
+    }
+}
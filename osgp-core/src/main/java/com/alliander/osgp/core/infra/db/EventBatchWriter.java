@@ -0,0 +1,108 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.core.infra.db;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.List;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import org.hibernate.Session;
+import org.hibernate.jdbc.Work;
+import org.springframework.stereotype.Component;
+
+import com.alliander.osgp.domain.core.entities.Event;
+
+/**
+ * Inserts new events using JDBC batches, as part of the current transaction,
+ * so inserting a few hundred events takes a handful of round trips instead of
+ * one per event. The events are not attached to the persistence context, but
+ * they do get their id assigned.
+ *
+ * Ids are allocated like the Hibernate pooled optimizer does: the event id
+ * sequence increments by {@link #BATCH_SIZE}, and a value taken from the
+ * sequence reserves the ids from (value - BATCH_SIZE, value]. Inserts that use
+ * the column default take a single value from the sequence and therefore never
+ * use an id from a reserved block.
+ */
+@Component
+public class EventBatchWriter {
+
+    /**
+     * Number of events per batch, must be equal to the increment of the
+     * event_id_seq sequence.
+     */
+    static final int BATCH_SIZE = 100;
+
+    private static final String SELECT_NEXT_ID = "SELECT nextval('event_id_seq')";
+
+    private static final String INSERT_EVENT = "INSERT INTO event (id, creation_time, modification_time, version, "
+            + "device, date_time, event, description, \"index\") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public void insertInBatches(final List<Event> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+
+        this.entityManager.unwrap(Session.class).doWork(new Work() {
+            @Override
+            public void execute(final Connection connection) throws SQLException {
+                EventBatchWriter.this.insert(connection, events);
+            }
+        });
+    }
+
+    void insert(final Connection connection, final List<Event> events) throws SQLException {
+        final Timestamp creationTime = new Timestamp(System.currentTimeMillis());
+        try (final PreparedStatement selectNextId = connection.prepareStatement(SELECT_NEXT_ID);
+                final PreparedStatement insertEvent = connection.prepareStatement(INSERT_EVENT)) {
+
+            for (int from = 0; from < events.size(); from += BATCH_SIZE) {
+                final List<Event> batch = events.subList(from, Math.min(from + BATCH_SIZE, events.size()));
+                long id = this.allocateIds(selectNextId);
+                for (final Event event : batch) {
+                    event.setId(id++);
+                    this.addBatch(insertEvent, event, creationTime);
+                }
+                insertEvent.executeBatch();
+            }
+        }
+    }
+
+    /**
+     * @return the first id of a block of {@link #BATCH_SIZE} ids.
+     */
+    private long allocateIds(final PreparedStatement selectNextId) throws SQLException {
+        try (final ResultSet resultSet = selectNextId.executeQuery()) {
+            resultSet.next();
+            return resultSet.getLong(1) - BATCH_SIZE + 1;
+        }
+    }
+
+    private void addBatch(final PreparedStatement insertEvent, final Event event, final Timestamp creationTime)
+            throws SQLException {
+        insertEvent.setLong(1, event.getId());
+        insertEvent.setTimestamp(2, creationTime);
+        insertEvent.setTimestamp(3, creationTime);
+        insertEvent.setLong(4, 0);
+        insertEvent.setLong(5, event.getDevice().getId());
+        insertEvent.setTimestamp(6, new Timestamp(event.getDateTime().getTime()));
+        insertEvent.setInt(7, event.getEventType().ordinal());
+        insertEvent.setString(8, event.getDescription());
+        insertEvent.setInt(9, event.getIndex());
+        insertEvent.addBatch();
+    }
+}
@@ -13,14 +13,15 @@ import java.sql.Timestamp;
 import javax.jms.JMSException;
 import javax.jms.Message;
 import javax.jms.MessageListener;
-import javax.jms.ObjectMessage;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.alliander.osgp.core.application.services.DeviceRequestMessageService;
+import com.alliander.osgp.domain.core.codec.MessageCodecs;
 import com.alliander.osgp.domain.core.entities.DomainInfo;
 import com.alliander.osgp.domain.core.entities.ScheduledTask;
+import com.alliander.osgp.domain.core.jms.metrics.MeteredMessageListener;
 import com.alliander.osgp.domain.core.repositories.ScheduledTaskRepository;
 import com.alliander.osgp.shared.exceptionhandling.FunctionalException;
 import com.alliander.osgp.shared.infra.jms.Constants;
@@ -61,13 +62,14 @@ public class DomainRequestMessageListener implements MessageListener {
                         protocolRequestMessage.getDeviceIdentification());
             }
         } catch (final JMSException | FunctionalException e) {
+            MeteredMessageListener.markFailed();
             LOGGER.error("Exception: {}, StackTrace: {}", e.getMessage(), e.getStackTrace(), e);
         }
     }
 
     public ScheduledTask createScheduledTask(final Message message) throws JMSException {
 
-        final Serializable messageData = ((ObjectMessage) message).getObject();
+        final Serializable messageData = MessageCodecs.getPayload(message);
         final Timestamp scheduleTimeStamp = new Timestamp(message.getLongProperty(Constants.SCHEDULE_TIME));
 
         final DeviceMessageMetadata deviceMessageMetadata = new DeviceMessageMetadata(message);
@@ -80,7 +82,7 @@ public class DomainRequestMessageListener implements MessageListener {
 
         final DeviceMessageMetadata deviceMessageMetadata = new DeviceMessageMetadata(message);
         final String ipAddress = message.getStringProperty(Constants.IP_ADDRESS);
-        final Serializable messageData = ((ObjectMessage) message).getObject();
+        final Serializable messageData = MessageCodecs.getPayload(message);
 
         return new ProtocolRequestMessage.Builder().deviceMessageMetadata(deviceMessageMetadata)
                 .domain(this.domainInfo.getDomain()).domainVersion(this.domainInfo.getDomainVersion())
@@ -7,6 +7,7 @@
  */
 package com.alliander.osgp.core.infra.jms.domain;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -20,6 +21,8 @@ import org.springframework.jms.listener.DefaultMessageListenerContainer;
 
 import com.alliander.osgp.core.application.services.DeviceRequestMessageService;
 import com.alliander.osgp.domain.core.entities.DomainInfo;
+import com.alliander.osgp.domain.core.jms.metrics.MessageMetrics;
+import com.alliander.osgp.domain.core.jms.metrics.MeteredMessageListener;
 import com.alliander.osgp.domain.core.repositories.ScheduledTaskRepository;
 
 public class DomainRequestMessageListenerContainerFactory extends DefaultMessageListenerContainer {
@@ -32,6 +35,9 @@ public class DomainRequestMessageListenerContainerFactory extends DefaultMessage
     @Autowired
     private ScheduledTaskRepository scheduledTaskRepository;
 
+    @Autowired
+    private MessageMetrics messageMetrics;
+
     private final List<DomainInfo> domainInfos;
 
     private final Map<String, DefaultMessageListenerContainer> containers = new HashMap<>();
@@ -44,6 +50,10 @@ public class DomainRequestMessageListenerContainerFactory extends DefaultMessage
         return this.containers.get(key);
     }
 
+    public Map<String, DefaultMessageListenerContainer> getMessageListenerContainers() {
+        return Collections.unmodifiableMap(this.containers);
+    }
+
     @Override
     public void afterPropertiesSet() {
         for (final DomainInfo domainInfo : this.domainInfos) {
@@ -90,8 +100,9 @@ public class DomainRequestMessageListenerContainerFactory extends DefaultMessage
         messageListenerContainer.setDestination(new ActiveMQQueue(domainInfo.getIncomingDomainRequestsQueue()));
         messageListenerContainer.setConcurrentConsumers(this.getConcurrentConsumers());
         messageListenerContainer.setMaxConcurrentConsumers(this.getMaxConcurrentConsumers());
-        messageListenerContainer.setMessageListener(new DomainRequestMessageListener(domainInfo,
-                this.deviceRequestMessageService, this.scheduledTaskRepository));
+        messageListenerContainer.setMessageListener(new MeteredMessageListener(this.messageMetrics,
+                "domain-requests " + domainInfo.getKey(), new DomainRequestMessageListener(domainInfo,
+                        this.deviceRequestMessageService, this.scheduledTaskRepository)));
         messageListenerContainer.setSessionTransacted(true);
         return messageListenerContainer;
     }
@@ -17,6 +17,7 @@ import org.springframework.jms.core.JmsTemplate;
 import org.springframework.jms.core.MessageCreator;
 
 import com.alliander.osgp.core.domain.model.domain.DomainResponseService;
+import com.alliander.osgp.domain.core.codec.MessageCodecs;
 import com.alliander.osgp.domain.core.entities.DomainInfo;
 import com.alliander.osgp.shared.exceptionhandling.ComponentType;
 import com.alliander.osgp.shared.exceptionhandling.OsgpException;
@@ -64,6 +65,7 @@ public class DomainResponseMessageSender implements DomainResponseService {
             @Override
             public Message createMessage(final Session session) throws JMSException {
                 final ObjectMessage objectMessage = session.createObjectMessage(message);
+                MessageCodecs.markAccepted(objectMessage);
                 objectMessage.setJMSType(messageType);
                 objectMessage.setJMSCorrelationID(message.getCorrelationUid());
                 objectMessage.setStringProperty(Constants.ORGANISATION_IDENTIFICATION,
@@ -18,6 +18,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.alliander.osgp.core.domain.model.protocol.ProtocolResponseService;
+import com.alliander.osgp.domain.core.jms.metrics.MeteredMessageListener;
 import com.alliander.osgp.domain.core.entities.ProtocolInfo;
 import com.alliander.osgp.domain.core.exceptions.OsgpCoreException;
 import com.alliander.osgp.shared.infra.jms.MessageMetadata;
@@ -69,8 +70,10 @@ public class DomainResponseMessageListener implements MessageListener {
             }
 
         } catch (final JMSException e) {
+            MeteredMessageListener.markFailed();
             LOGGER.error("Exception: {}, StackTrace: {}", e.getMessage(), e.getStackTrace(), e);
         } catch (final OsgpCoreException e) {
+            MeteredMessageListener.markFailed();
             LOGGER.error("OsgpCoreException", e);
         }
     }
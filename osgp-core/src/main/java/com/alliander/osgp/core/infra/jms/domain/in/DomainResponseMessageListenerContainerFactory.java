@@ -7,6 +7,7 @@
  */
 package com.alliander.osgp.core.infra.jms.domain.in;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -19,6 +20,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.jms.listener.DefaultMessageListenerContainer;
 
 import com.alliander.osgp.core.domain.model.protocol.ProtocolResponseService;
+import com.alliander.osgp.domain.core.jms.metrics.MessageMetrics;
+import com.alliander.osgp.domain.core.jms.metrics.MeteredMessageListener;
 import com.alliander.osgp.domain.core.entities.DomainInfo;
 import com.alliander.osgp.domain.core.entities.ProtocolInfo;
 
@@ -29,6 +32,9 @@ public class DomainResponseMessageListenerContainerFactory extends DefaultMessag
     @Autowired
     private ProtocolResponseService protocolResponseService;
 
+    @Autowired
+    private MessageMetrics messageMetrics;
+
     private List<DomainInfo> domainInfos;
 
     private List<ProtocolInfo> protocolInfos;
@@ -45,6 +51,10 @@ public class DomainResponseMessageListenerContainerFactory extends DefaultMessag
         return this.containers.get(key);
     }
 
+    public Map<String, DefaultMessageListenerContainer> getMessageListenerContainers() {
+        return Collections.unmodifiableMap(this.containers);
+    }
+
     @Override
     public void afterPropertiesSet() {
         for (final DomainInfo domainInfo : this.domainInfos) {
@@ -93,8 +103,9 @@ public class DomainResponseMessageListenerContainerFactory extends DefaultMessag
         messageListenerContainer.setConcurrentConsumers(this.getConcurrentConsumers());
         messageListenerContainer.setMaxConcurrentConsumers(this.getMaxConcurrentConsumers());
 
-        messageListenerContainer.setMessageListener(new DomainResponseMessageListener(this.protocolResponseService,
-                this.protocolInfos));
+        messageListenerContainer.setMessageListener(new MeteredMessageListener(this.messageMetrics,
+                "domain-responses " + domainInfo.getKey(),
+                new DomainResponseMessageListener(this.protocolResponseService, this.protocolInfos)));
         messageListenerContainer.setSessionTransacted(true);
 
         return messageListenerContainer;
@@ -8,7 +8,7 @@
 package com.alliander.osgp.core.infra.jms.protocol;
 
 import javax.jms.JMSException;
-import javax.jms.Message;
+import javax.jms.MessageProducer;
 import javax.jms.ObjectMessage;
 import javax.jms.Session;
 
@@ -16,7 +16,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.jms.core.JmsTemplate;
-import org.springframework.jms.core.MessageCreator;
+import org.springframework.jms.core.ProducerCallback;
 
 import com.alliander.osgp.core.domain.model.protocol.ProtocolRequestService;
 import com.alliander.osgp.core.infra.messaging.CoreLogItemRequestMessage;
@@ -40,6 +40,9 @@ public class ProtocolRequestMessageSender implements ProtocolRequestService {
     @Autowired
     private ProtocolRequestMessageJmsTemplateFactory protocolRequestMessageJmsTemplateFactory;
 
+    @Autowired
+    private ProtocolRequestPriorityPolicy protocolRequestPriorityPolicy;
+
     @Autowired
     private Long getPowerUsageHistoryRequestTimeToLive;
 
@@ -59,24 +62,28 @@ public class ProtocolRequestMessageSender implements ProtocolRequestService {
                 protocolInfo.getOutgoingProtocolRequestsQueue(), protocolInfo.getProtocol(),
                 protocolInfo.getProtocolVersion());
 
-        this.sendMessage(message, jmsTemplate);
+        this.sendMessage(message, protocolInfo, jmsTemplate);
     }
 
-    private void sendMessage(final ProtocolRequestMessage requestMessage, final JmsTemplate jmsTemplate) {
+    private void sendMessage(final ProtocolRequestMessage requestMessage, final ProtocolInfo protocolInfo,
+            final JmsTemplate jmsTemplate) {
         LOGGER.info("Sending request message to protocol requests queue");
 
-        final Long originalTimeToLive = jmsTemplate.getTimeToLive();
-        boolean isCustomTimeToLiveSet = false;
+        // The template is shared by all requests for the protocol, so the
+        // priority and time to live of a request are passed to the producer
+        // instead of set on the template.
+        final int priority = this.protocolRequestPriorityPolicy.getPriority(requestMessage, protocolInfo);
+        final long timeToLive;
         if (requestMessage.getMessageType().equals(DeviceFunctionDto.GET_POWER_USAGE_HISTORY.toString())) {
-            jmsTemplate.setTimeToLive(this.getPowerUsageHistoryRequestTimeToLive);
-            isCustomTimeToLiveSet = true;
+            timeToLive = this.getPowerUsageHistoryRequestTimeToLive;
+        } else {
+            timeToLive = jmsTemplate.getTimeToLive();
         }
 
-        jmsTemplate.setPriority(requestMessage.getMessagePriority());
-        jmsTemplate.send(new MessageCreator() {
+        jmsTemplate.execute(new ProducerCallback<Void>() {
 
             @Override
-            public Message createMessage(final Session session) throws JMSException {
+            public Void doInJms(final Session session, final MessageProducer producer) throws JMSException {
                 final ObjectMessage objectMessage = session.createObjectMessage(requestMessage.getRequest());
                 objectMessage.setJMSCorrelationID(requestMessage.getCorrelationUid());
                 objectMessage.setJMSType(requestMessage.getMessageType());
@@ -90,7 +97,13 @@ public class ProtocolRequestMessageSender implements ProtocolRequestService {
                 objectMessage.setBooleanProperty(Constants.IS_SCHEDULED, requestMessage.isScheduled());
                 objectMessage.setIntProperty(Constants.RETRY_COUNT, requestMessage.getRetryCount());
                 objectMessage.setBooleanProperty(Constants.BYPASS_RETRY, requestMessage.bypassRetry());
-                return objectMessage;
+
+                if (jmsTemplate.isExplicitQosEnabled()) {
+                    producer.send(objectMessage, jmsTemplate.getDeliveryMode(), priority, timeToLive);
+                } else {
+                    producer.send(objectMessage);
+                }
+                return null;
             }
 
         });
@@ -105,9 +118,5 @@ public class ProtocolRequestMessageSender implements ProtocolRequestService {
 
             this.coreLogItemRequestMessageSender.send(coreLogItemRequestMessage);
         }
-
-        if (isCustomTimeToLiveSet) {
-            jmsTemplate.setTimeToLive(originalTimeToLive);
-        }
     }
 }
@@ -0,0 +1,174 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.core.infra.jms.protocol;
+
+import java.time.Clock;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.jms.Message;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.alliander.osgp.domain.core.entities.ProtocolInfo;
+import com.alliander.osgp.shared.infra.jms.ProtocolRequestMessage;
+
+/**
+ * Decides the JMS priority a protocol request is sent with.
+ *
+ * Requests keep the priority they were given, except scheduled requests with
+ * the default priority, which are sent with the bulk priority. The protocol
+ * adapters then handle the requests of operators before the queued scheduled
+ * requests.
+ *
+ * Each protocol queue gets a limited rate of requests with their own priority,
+ * with a burst. Requests over that rate are demoted to the priority between the
+ * bulk priority and the default priority. They are still handled before the
+ * queued scheduled requests, but after the requests within the rate, so a
+ * burst of requests of one operator does not delay the requests of others.
+ *
+ * The demoted priority has a limited rate as well. Requests over both rates
+ * are sent with the bulk priority and queue up with the scheduled requests.
+ * When the two rates stay below the throughput of the protocol adapters, the
+ * scheduled requests keep the remainder of the throughput, however many
+ * requests operators send.
+ */
+public class ProtocolRequestPriorityPolicy {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ProtocolRequestPriorityPolicy.class);
+
+    private static final int MINIMUM_PRIORITY = 0;
+    private static final int MAXIMUM_PRIORITY = 9;
+
+    private final int bulkPriority;
+    private final int demotedPriority;
+    private final double expeditedPerMillisecond;
+    private final double demotedPerMillisecond;
+    private final int burst;
+    private final Clock clock;
+
+    private final ConcurrentMap<String, RateBudget> expeditedBudgets = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, RateBudget> demotedBudgets = new ConcurrentHashMap<>();
+
+    /**
+     * @param bulkPriority
+     *            The priority of scheduled requests without a priority of
+     *            their own, at least two below {@link Message#DEFAULT_PRIORITY}
+     *            so there is a priority in between for demoted requests.
+     * @param expeditedRate
+     *            The number of requests per second each protocol queue gets
+     *            with their own priority, this should be well below the
+     *            number of requests the protocol adapters handle per second.
+     * @param demotedRate
+     *            The number of requests per second each protocol queue gets
+     *            with the demoted priority. Together with the expedited rate
+     *            this should stay below the number of requests the protocol
+     *            adapters handle per second, the remainder is left to the
+     *            scheduled requests.
+     * @param burst
+     *            The number of requests with their own priority, and with the
+     *            demoted priority, that can be sent at once.
+     */
+    public ProtocolRequestPriorityPolicy(final int bulkPriority, final double expeditedRate,
+            final double demotedRate, final int burst, final Clock clock) {
+        if (bulkPriority < MINIMUM_PRIORITY || bulkPriority >= Message.DEFAULT_PRIORITY - 1) {
+            throw new IllegalArgumentException("Bulk priority should be at least two below the default priority, got "
+                    + bulkPriority);
+        }
+        this.bulkPriority = bulkPriority;
+        this.demotedPriority = (bulkPriority + Message.DEFAULT_PRIORITY + 1) / 2;
+        this.expeditedPerMillisecond = expeditedRate / 1000;
+        this.demotedPerMillisecond = demotedRate / 1000;
+        this.burst = burst;
+        this.clock = clock;
+    }
+
+    public int getBulkPriority() {
+        return this.bulkPriority;
+    }
+
+    public int getDemotedPriority() {
+        return this.demotedPriority;
+    }
+
+    public int getPriority(final ProtocolRequestMessage message, final ProtocolInfo protocolInfo) {
+        final int priority = this.getRequestedPriority(message);
+        if (priority <= this.demotedPriority) {
+            return priority;
+        }
+
+        final long now = this.clock.millis();
+        if (this.getBudget(this.expeditedBudgets, this.expeditedPerMillisecond, protocolInfo).tryAcquire(now)) {
+            return priority;
+        }
+
+        final int demoted;
+        if (this.getBudget(this.demotedBudgets, this.demotedPerMillisecond, protocolInfo).tryAcquire(now)) {
+            demoted = this.demotedPriority;
+        } else {
+            demoted = this.bulkPriority;
+        }
+        LOGGER.debug("Expedited rate of protocol [{}] with version [{}] exceeded, sending {} for device [{}] "
+                + "with priority {} instead of {}", protocolInfo.getProtocol(), protocolInfo.getProtocolVersion(),
+                message.getMessageType(), message.getDeviceIdentification(), demoted, priority);
+        return demoted;
+    }
+
+    private int getRequestedPriority(final ProtocolRequestMessage message) {
+        final int priority = Math.max(MINIMUM_PRIORITY, Math.min(MAXIMUM_PRIORITY, message.getMessagePriority()));
+        if (message.isScheduled() && priority == Message.DEFAULT_PRIORITY) {
+            return this.bulkPriority;
+        }
+        return priority;
+    }
+
+    private RateBudget getBudget(final ConcurrentMap<String, RateBudget> budgets, final double perMillisecond,
+            final ProtocolInfo protocolInfo) {
+        final String key = protocolInfo.getKey();
+        RateBudget budget = budgets.get(key);
+        if (budget == null) {
+            final RateBudget created = new RateBudget(perMillisecond, this.burst, this.clock.millis());
+            budget = budgets.putIfAbsent(key, created);
+            if (budget == null) {
+                budget = created;
+            }
+        }
+        return budget;
+    }
+
+    /**
+     * A token bucket, holding at most the burst and refilled at its rate.
+     */
+    private static class RateBudget {
+
+        private final double perMillisecond;
+        private final int burst;
+        private double tokens;
+        private long refilled;
+
+        RateBudget(final double perMillisecond, final int burst, final long refilled) {
+            this.perMillisecond = perMillisecond;
+            this.burst = burst;
+            this.tokens = burst;
+            this.refilled = refilled;
+        }
+
+        synchronized boolean tryAcquire(final long now) {
+            if (now > this.refilled) {
+                this.tokens = Math.min(this.burst, this.tokens + (now - this.refilled) * this.perMillisecond);
+                this.refilled = now;
+            }
+            if (this.tokens < 1) {
+                return false;
+            }
+            this.tokens--;
+            return true;
+        }
+    }
+}
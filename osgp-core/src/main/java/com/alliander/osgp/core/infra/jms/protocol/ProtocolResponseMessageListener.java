@@ -10,12 +10,13 @@ package com.alliander.osgp.core.infra.jms.protocol;
 import javax.jms.JMSException;
 import javax.jms.Message;
 import javax.jms.MessageListener;
-import javax.jms.ObjectMessage;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.alliander.osgp.core.application.services.DeviceResponseMessageService;
+import com.alliander.osgp.domain.core.codec.MessageCodecs;
+import com.alliander.osgp.domain.core.jms.metrics.MeteredMessageListener;
 import com.alliander.osgp.shared.infra.jms.ProtocolResponseMessage;
 
 // This class should fetch incoming messages from a responses queue.
@@ -49,11 +50,12 @@ public class ProtocolResponseMessageListener implements MessageListener {
             this.deviceResponseMessageService.processMessage(protocolResponseMessage);
 
         } catch (final JMSException e) {
+            MeteredMessageListener.markFailed();
             LOGGER.error("Exception: {}, StackTrace: {}", e.getMessage(), e.getStackTrace(), e);
         }
     }
 
     private ProtocolResponseMessage createResponseMessage(final Message message) throws JMSException {
-        return (ProtocolResponseMessage) ((ObjectMessage) message).getObject();
+        return (ProtocolResponseMessage) MessageCodecs.getPayload(message);
     }
 }
@@ -7,6 +7,7 @@
  */
 package com.alliander.osgp.core.infra.jms.protocol;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -19,6 +20,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.jms.listener.DefaultMessageListenerContainer;
 
 import com.alliander.osgp.core.application.services.DeviceResponseMessageService;
+import com.alliander.osgp.domain.core.jms.metrics.MessageMetrics;
+import com.alliander.osgp.domain.core.jms.metrics.MeteredMessageListener;
 import com.alliander.osgp.domain.core.entities.ProtocolInfo;
 
 public class ProtocolResponseMessageListenerContainerFactory extends DefaultMessageListenerContainer {
@@ -28,6 +31,9 @@ public class ProtocolResponseMessageListenerContainerFactory extends DefaultMess
     @Autowired
     private DeviceResponseMessageService deviceResponseMessageService;
 
+    @Autowired
+    private MessageMetrics messageMetrics;
+
     private List<ProtocolInfo> protocolInfos;
 
     private Map<String, DefaultMessageListenerContainer> containers = new HashMap<>();
@@ -40,6 +46,10 @@ public class ProtocolResponseMessageListenerContainerFactory extends DefaultMess
         return this.containers.get(key);
     }
 
+    public Map<String, DefaultMessageListenerContainer> getMessageListenerContainers() {
+        return Collections.unmodifiableMap(this.containers);
+    }
+
     @Override
     public void afterPropertiesSet() {
         for (final ProtocolInfo protocolInfo : this.protocolInfos) {
@@ -87,8 +97,9 @@ public class ProtocolResponseMessageListenerContainerFactory extends DefaultMess
         messageListenerContainer.setConcurrentConsumers(this.getConcurrentConsumers());
         messageListenerContainer.setMaxConcurrentConsumers(this.getMaxConcurrentConsumers());
 
-        messageListenerContainer.setMessageListener(new ProtocolResponseMessageListener(
-                this.deviceResponseMessageService));
+        messageListenerContainer.setMessageListener(new MeteredMessageListener(this.messageMetrics,
+                "protocol-responses " + protocolInfo.getKey(),
+                new ProtocolResponseMessageListener(this.deviceResponseMessageService)));
         messageListenerContainer.setSessionTransacted(true);
 
         return messageListenerContainer;
@@ -18,6 +18,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.alliander.osgp.core.domain.model.domain.DomainRequestService;
+import com.alliander.osgp.domain.core.jms.metrics.MeteredMessageListener;
 import com.alliander.osgp.domain.core.entities.DomainInfo;
 import com.alliander.osgp.domain.core.valueobjects.DeviceFunction;
 import com.alliander.osgp.shared.infra.jms.MessageProcessor;
@@ -62,6 +63,7 @@ public class ProtocolRequestMessageListener implements MessageListener {
             }
 
         } catch (final JMSException e) {
+            MeteredMessageListener.markFailed();
             LOGGER.error("Exception: {}, StackTrace: {}", e.getMessage(), e.getStackTrace(), e);
         }
     }
@@ -94,6 +96,7 @@ public class ProtocolRequestMessageListener implements MessageListener {
         }
 
         if (domainInfo == null) {
+            MeteredMessageListener.markFailed();
             LOGGER.error(
                     "No DomainInfo found, unable to send message of message type: {} to domain adapater. RequestMessage dropped.",
                     messageType);
@@ -7,6 +7,7 @@
  */
 package com.alliander.osgp.core.infra.jms.protocol.in;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -19,6 +20,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.jms.listener.DefaultMessageListenerContainer;
 
 import com.alliander.osgp.core.domain.model.domain.DomainRequestService;
+import com.alliander.osgp.domain.core.jms.metrics.MessageMetrics;
+import com.alliander.osgp.domain.core.jms.metrics.MeteredMessageListener;
 import com.alliander.osgp.domain.core.entities.DomainInfo;
 import com.alliander.osgp.domain.core.entities.ProtocolInfo;
 
@@ -29,6 +32,9 @@ public class ProtocolRequestMessageListenerContainerFactory extends DefaultMessa
     @Autowired
     private DomainRequestService domainRequestService;
 
+    @Autowired
+    private MessageMetrics messageMetrics;
+
     private List<ProtocolInfo> protocolInfos;
 
     private List<DomainInfo> domainInfos;
@@ -49,6 +55,10 @@ public class ProtocolRequestMessageListenerContainerFactory extends DefaultMessa
         return this.containers.get(key);
     }
 
+    public Map<String, DefaultMessageListenerContainer> getMessageListenerContainers() {
+        return Collections.unmodifiableMap(this.containers);
+    }
+
     @Override
     public void afterPropertiesSet() {
         for (final ProtocolInfo protocolInfo : this.protocolInfos) {
@@ -96,8 +106,9 @@ public class ProtocolRequestMessageListenerContainerFactory extends DefaultMessa
         messageListenerContainer.setConcurrentConsumers(this.getConcurrentConsumers());
         messageListenerContainer.setMaxConcurrentConsumers(this.getMaxConcurrentConsumers());
 
-        messageListenerContainer.setMessageListener(new ProtocolRequestMessageListener(this.domainRequestService,
-                this.domainInfos, this.protocolRequestMessageProcessorMap));
+        messageListenerContainer.setMessageListener(new MeteredMessageListener(this.messageMetrics,
+                "protocol-requests " + protocolInfo.getKey(), new ProtocolRequestMessageListener(
+                        this.domainRequestService, this.domainInfos, this.protocolRequestMessageProcessorMap)));
         messageListenerContainer.setSessionTransacted(true);
 
         return messageListenerContainer;
@@ -7,6 +7,8 @@
  */
 package com.alliander.osgp.core.infra.jms.protocol.in.messageprocessors;
 
+import java.util.concurrent.Callable;
+
 import javax.jms.JMSException;
 import javax.jms.ObjectMessage;
 
@@ -16,6 +18,7 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import com.alliander.osgp.core.application.cache.FirmwareFileCache;
 import com.alliander.osgp.core.domain.model.protocol.ProtocolResponseService;
 import com.alliander.osgp.core.infra.jms.protocol.in.ProtocolRequestMessageProcessor;
 import com.alliander.osgp.domain.core.entities.Device;
@@ -27,6 +30,7 @@ import com.alliander.osgp.domain.core.valueobjects.DeviceFunction;
 import com.alliander.osgp.dto.valueobjects.FirmwareFileDto;
 import com.alliander.osgp.shared.exceptionhandling.ComponentType;
 import com.alliander.osgp.shared.exceptionhandling.OsgpException;
+import com.alliander.osgp.shared.exceptionhandling.UnknownEntityException;
 import com.alliander.osgp.shared.infra.jms.DeviceMessageMetadata;
 import com.alliander.osgp.shared.infra.jms.MessageMetadata;
 import com.alliander.osgp.shared.infra.jms.ProtocolResponseMessage;
@@ -47,6 +51,9 @@ public class GetFirmwareFileMessageProcessor extends ProtocolRequestMessageProce
     @Autowired
     private FirmwareFileRepository firmwareFileRepository;
 
+    @Autowired
+    private FirmwareFileCache firmwareFileCache;
+
     protected GetFirmwareFileMessageProcessor() {
         super(DeviceFunction.GET_FIRMWARE_FILE);
     }
@@ -70,11 +77,8 @@ public class GetFirmwareFileMessageProcessor extends ProtocolRequestMessageProce
             final RequestMessage requestMessage = (RequestMessage) message.getObject();
             firmwareFileIdentification = (String) requestMessage.getRequest();
 
-            final FirmwareFile firmwareFile = this.firmwareFileRepository
-                    .findByIdentification(firmwareFileIdentification);
-
-            final FirmwareFileDto firmwareFileDto = new FirmwareFileDto(firmwareFile.getIdentification(),
-                    firmwareFile.getFile());
+            final FirmwareFileDto firmwareFileDto = new FirmwareFileDto(firmwareFileIdentification,
+                    this.getFirmwareFile(firmwareFileIdentification));
 
             this.sendSuccesResponse(metadata, device.getProtocolInfo(), firmwareFileDto);
 
@@ -86,6 +90,28 @@ public class GetFirmwareFileMessageProcessor extends ProtocolRequestMessageProce
         }
     }
 
+    /**
+     * Gets the contents of the firmware file from the cache, so the firmware
+     * file is read from the database only once for all devices it is sent to.
+     * Firmware files stored on the file system have no contents in the
+     * database, for these null is returned.
+     */
+    private byte[] getFirmwareFile(final String firmwareFileIdentification) throws Exception {
+        final String hash = this.firmwareFileRepository.findHashByIdentification(firmwareFileIdentification);
+        final byte[] file = this.firmwareFileCache.get(firmwareFileIdentification, hash, new Callable<byte[]>() {
+            @Override
+            public byte[] call() {
+                return GetFirmwareFileMessageProcessor.this.firmwareFileRepository
+                        .findFileByIdentification(firmwareFileIdentification);
+            }
+        });
+
+        if (file == null && this.firmwareFileRepository.countByIdentification(firmwareFileIdentification) == 0) {
+            throw new UnknownEntityException(FirmwareFile.class, firmwareFileIdentification);
+        }
+        return file;
+    }
+
     private void sendSuccesResponse(final MessageMetadata metadata, final ProtocolInfo protocolInfo,
             final FirmwareFileDto firmwareFileDto) {
 
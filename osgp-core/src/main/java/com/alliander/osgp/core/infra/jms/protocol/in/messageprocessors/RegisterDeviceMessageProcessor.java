@@ -9,36 +9,32 @@ package com.alliander.osgp.core.infra.jms.protocol.in.messageprocessors;
 
 import java.net.InetAddress;
 import java.net.UnknownHostException;
-import java.util.List;
 
 import javax.jms.JMSException;
 import javax.jms.ObjectMessage;
 
+import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
 
+import com.alliander.osgp.core.application.services.DeviceRegistrationCoalescer;
+import com.alliander.osgp.core.application.services.DeviceRegistrationException;
+import com.alliander.osgp.core.application.services.DeviceRegistrationService;
 import com.alliander.osgp.core.infra.jms.protocol.in.ProtocolRequestMessageProcessor;
-import com.alliander.osgp.domain.core.entities.Device;
-import com.alliander.osgp.domain.core.entities.Ssld;
-import com.alliander.osgp.domain.core.repositories.DeviceRepository;
 import com.alliander.osgp.domain.core.valueobjects.DeviceFunction;
 import com.alliander.osgp.dto.valueobjects.DeviceRegistrationDataDto;
 import com.alliander.osgp.shared.infra.jms.Constants;
 import com.alliander.osgp.shared.infra.jms.RequestMessage;
 
 @Component("oslpRegisterDeviceMessageProcessor")
-@Transactional(value = "transactionManager")
 public class RegisterDeviceMessageProcessor extends ProtocolRequestMessageProcessor {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(RegisterDeviceMessageProcessor.class);
 
     @Autowired
-    private DeviceRepository deviceRepository;
-
-    private static final String LOCAL_HOST = "127.0.0.1";
+    private DeviceRegistrationCoalescer deviceRegistrationCoalescer;
 
     protected RegisterDeviceMessageProcessor() {
         super(DeviceFunction.REGISTER_DEVICE);
@@ -61,7 +57,7 @@ public class RegisterDeviceMessageProcessor extends ProtocolRequestMessageProces
 
             this.updateRegistrationData(deviceIdentification, deviceRegistrationData.getIpAddress(),
                     deviceRegistrationData.getDeviceType(), deviceRegistrationData.isHasSchedule());
-        } catch (final UnknownHostException e) {
+        } catch (final UnknownHostException | DeviceRegistrationException e) {
             LOGGER.error("Exception", e);
             throw new JMSException(e.getMessage());
         }
@@ -70,8 +66,9 @@ public class RegisterDeviceMessageProcessor extends ProtocolRequestMessageProces
     // === REGISTER DEVICE ===
 
     /**
-     * Update device registration data (ipaddress, etc). Device is added
-     * (without an owner) when not exist yet.
+     * Update device registration data (ipaddress, etc), applied with the next
+     * batch of registrations. Returns when the batch is committed. Device is
+     * added (without an owner) when not exist yet.
      *
      * @param deviceIdentification
      *            The device identification.
@@ -82,55 +79,57 @@ public class RegisterDeviceMessageProcessor extends ProtocolRequestMessageProces
      * @param hasSchedule
      *            In case the device has a schedule, this will be true.
      *
-     * @return Device with updated data
-     *
      * @throws UnknownHostException
+     *             when the IP address cannot be resolved.
+     * @throws DeviceRegistrationException
+     *             when the registration data was not applied.
      */
-    private Device updateRegistrationData(final String deviceIdentification, final String ipAddress,
+    private void updateRegistrationData(final String deviceIdentification, final String ipAddress,
             final String deviceType, final boolean hasSchedule) throws UnknownHostException {
 
         LOGGER.info("updateRegistrationData called for device: {} ipAddress: {}, deviceType: {} hasSchedule: {}.",
                 deviceIdentification, ipAddress, deviceType, hasSchedule);
 
-        // Convert the IP address from String to InetAddress.
-        final InetAddress address = LOCAL_HOST.equals(ipAddress) ? InetAddress.getLoopbackAddress() : InetAddress
-                .getByName(ipAddress);
-
-        // Lookup device
-        Device device = this.deviceRepository.findByDeviceIdentification(deviceIdentification);
-
-        // Check for existing IP addresses
-        this.clearDuplicateAddresses(deviceIdentification, address);
+        this.deviceRegistrationCoalescer.submit(deviceIdentification, this.toInetAddress(ipAddress), deviceType);
+    }
 
-        if (device == null) {
-            // Device does not exist yet, create without an owner.
-            device = this.createNewDevice(deviceIdentification, deviceType);
+    /**
+     * Converts the IP address from String to InetAddress. An IPv4 address
+     * literal is converted without DNS lookup, anything else is resolved.
+     */
+    private InetAddress toInetAddress(final String ipAddress) throws UnknownHostException {
+        if (DeviceRegistrationService.LOCAL_HOST.equals(ipAddress)) {
+            return InetAddress.getLoopbackAddress();
         }
 
-        // Device already exists, update registration data
-        device.updateRegistrationData(address, deviceType);
-        return this.deviceRepository.save(device);
-    }
-
-    private Device createNewDevice(final String deviceIdentification, final String deviceType) {
-        Device device;
-        if (Ssld.SSLD_TYPE.equalsIgnoreCase(deviceType) || Ssld.PSLD_TYPE.equalsIgnoreCase(deviceType)) {
-            device = new Ssld(deviceIdentification);
-        } else {
-            device = new Device(deviceIdentification);
+        final InetAddress address = this.parseIpv4Address(ipAddress);
+        if (address != null) {
+            return address;
         }
-        return device;
+        LOGGER.info("Resolving address {}, it is not an IPv4 address literal", ipAddress);
+        return InetAddress.getByName(ipAddress);
     }
 
-    private void clearDuplicateAddresses(final String deviceIdentification, final InetAddress address) {
-        final List<Device> devices = this.deviceRepository.findByNetworkAddress(address);
-
-        for (final Device device : devices) {
-            if (!LOCAL_HOST.equals(device.getIpAddress())
-                    && !device.getDeviceIdentification().equals(deviceIdentification)) {
-                device.clearNetworkAddress();
-                this.deviceRepository.save(device);
+    /**
+     * @return The IPv4 address, or null when the IP address is not an IPv4
+     *         address literal.
+     */
+    private InetAddress parseIpv4Address(final String ipAddress) throws UnknownHostException {
+        if (ipAddress == null) {
+            return null;
+        }
+        final String[] octets = ipAddress.split("\\.", -1);
+        if (octets.length != 4) {
+            return null;
+        }
+        final byte[] address = new byte[4];
+        for (int i = 0; i < octets.length; i++) {
+            if (octets[i].isEmpty() || octets[i].length() > 3 || !StringUtils.isNumeric(octets[i])
+                    || Integer.parseInt(octets[i]) > 255) {
+                return null;
             }
+            address[i] = (byte) Integer.parseInt(octets[i]);
         }
+        return InetAddress.getByAddress(address);
     }
 }
@@ -0,0 +1,6 @@
+-- Events are inserted in batches of 100, each batch reserves the 100 ids
+-- up to and including the value taken from the sequence.
+ALTER SEQUENCE event_id_seq INCREMENT BY 100;
+
+-- Make sure the first reserved block starts after the ids already in use.
+SELECT setval('event_id_seq', GREATEST((SELECT last_value FROM event_id_seq), (SELECT COALESCE(MAX(id), 0) FROM event)));
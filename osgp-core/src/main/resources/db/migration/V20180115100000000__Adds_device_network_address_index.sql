@@ -0,0 +1,15 @@
+DO $$
+BEGIN
+
+IF NOT EXISTS (
+    SELECT 1
+    FROM   pg_catalog.pg_class c
+    JOIN   pg_catalog.pg_namespace n ON n.oid = c.relnamespace
+    WHERE  c.relname = 'device_network_address_idx'
+    AND    n.nspname = current_schema
+    ) THEN
+    CREATE INDEX device_network_address_idx ON device (network_address);
+END IF;
+
+END;
+$$
@@ -0,0 +1,35 @@
+DO $$
+BEGIN
+
+IF NOT EXISTS (
+    SELECT 1
+    FROM   pg_catalog.pg_class c
+    JOIN   pg_catalog.pg_namespace n ON n.oid = c.relnamespace
+    WHERE  c.relname = 'event_date_time_id_idx'
+    AND    n.nspname = current_schema
+    ) THEN
+    CREATE INDEX event_date_time_id_idx ON event (date_time, id);
+END IF;
+
+IF NOT EXISTS (
+    SELECT 1
+    FROM   pg_catalog.pg_class c
+    JOIN   pg_catalog.pg_namespace n ON n.oid = c.relnamespace
+    WHERE  c.relname = 'event_device_date_time_id_idx'
+    AND    n.nspname = current_schema
+    ) THEN
+    CREATE INDEX event_device_date_time_id_idx ON event (device, date_time, id);
+END IF;
+
+IF NOT EXISTS (
+    SELECT 1
+    FROM   pg_catalog.pg_class c
+    JOIN   pg_catalog.pg_namespace n ON n.oid = c.relnamespace
+    WHERE  c.relname = 'device_creation_time_id_idx'
+    AND    n.nspname = current_schema
+    ) THEN
+    CREATE INDEX device_creation_time_id_idx ON device (creation_time, id);
+END IF;
+
+END;
+$$
@@ -0,0 +1,47 @@
+--
+-- Indexes for the device search of the web services. The search matches
+-- upper(column) LIKE 'VALUE%', so the indexes are on the upper-cased columns,
+-- with text_pattern_ops so LIKE with a fixed prefix can use them regardless of
+-- the collation of the database.
+--
+-- The organisation and owner filters check for a device authorization of the
+-- device, the composite index on device_authorization answers that from the
+-- index alone.
+--
+
+DO $$
+DECLARE
+    search_index record;
+BEGIN
+
+FOR search_index IN
+    SELECT *
+    FROM   (VALUES
+        ('device_upper_device_identification_idx', 'device', 'upper(device_identification) text_pattern_ops'),
+        ('device_upper_alias_idx', 'device', 'upper(alias) text_pattern_ops'),
+        ('device_upper_container_city_idx', 'device', 'upper(container_city) text_pattern_ops'),
+        ('device_upper_container_postal_code_idx', 'device', 'upper(container_postal_code) text_pattern_ops'),
+        ('device_upper_container_street_idx', 'device', 'upper(container_street) text_pattern_ops'),
+        ('device_upper_container_municipality_idx', 'device', 'upper(container_municipality) text_pattern_ops'),
+        ('device_upper_device_type_idx', 'device', 'upper(device_type) text_pattern_ops'),
+        ('device_device_model_idx', 'device', 'device_model'),
+        ('device_model_upper_model_code_idx', 'device_model', 'upper(model_code) text_pattern_ops'),
+        ('organisation_upper_name_idx', 'organisation', 'upper(name) text_pattern_ops'),
+        ('device_authorization_organisation_function_group_device_idx', 'device_authorization',
+            'organisation, function_group, device')
+        ) AS i (index_name, table_name, index_columns)
+LOOP
+    IF NOT EXISTS (
+        SELECT 1
+        FROM   pg_catalog.pg_class c
+        JOIN   pg_catalog.pg_namespace n ON n.oid = c.relnamespace
+        WHERE  c.relname = search_index.index_name
+        AND    n.nspname = current_schema
+        ) THEN
+        EXECUTE format('CREATE INDEX %I ON %I (%s)', search_index.index_name, search_index.table_name,
+            search_index.index_columns);
+    END IF;
+END LOOP;
+
+END;
+$$
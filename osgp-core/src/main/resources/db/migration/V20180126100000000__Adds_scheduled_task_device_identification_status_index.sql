@@ -0,0 +1,15 @@
+DO $$
+BEGIN
+
+IF NOT EXISTS (
+    SELECT 1
+    FROM   pg_catalog.pg_class c
+    JOIN   pg_catalog.pg_namespace n ON n.oid = c.relnamespace
+    WHERE  c.relname = 'scheduled_task_device_identification_status_idx'
+    AND    n.nspname = current_schema
+    ) THEN
+    CREATE INDEX scheduled_task_device_identification_status_idx ON scheduled_task (device_identification, status);
+END IF;
+
+END;
+$$
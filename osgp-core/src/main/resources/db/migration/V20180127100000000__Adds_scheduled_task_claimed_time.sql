@@ -0,0 +1,24 @@
+--
+-- Add the time a scheduled task was claimed for processing, so tasks claimed
+-- by an instance that stopped before completing them can be claimed again.
+--
+DO $$
+BEGIN
+
+IF NOT EXISTS (
+    SELECT 1
+    FROM   information_schema.columns
+    WHERE  table_schema = current_schema
+    AND    table_name = 'scheduled_task'
+    AND    column_name = 'claimed_time'
+    ) THEN
+    ALTER TABLE scheduled_task ADD COLUMN claimed_time timestamp without time zone;
+END IF;
+
+END;
+$$;
+
+-- Tasks claimed before this column existed get a lease starting now, so the
+-- tasks still being processed are not claimed again right away. Status 1 is
+-- PENDING.
+UPDATE scheduled_task SET claimed_time = now() WHERE status = 1 AND claimed_time IS NULL;
@@ -0,0 +1,22 @@
+--
+-- Add whether the request of a scheduled task was scheduled. Retries of
+-- requests that were not scheduled, such as the requests of operators, are
+-- sent with the priority of the original request instead of the priority of
+-- scheduled requests. The tasks stored before this column existed count as
+-- scheduled.
+--
+DO $$
+BEGIN
+
+IF NOT EXISTS (
+    SELECT 1
+    FROM   information_schema.columns
+    WHERE  table_schema = current_schema
+    AND    table_name = 'scheduled_task'
+    AND    column_name = 'scheduled'
+    ) THEN
+    ALTER TABLE scheduled_task ADD COLUMN scheduled boolean NOT NULL DEFAULT true;
+END IF;
+
+END;
+$$;
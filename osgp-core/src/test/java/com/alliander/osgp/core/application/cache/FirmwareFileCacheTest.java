@@ -0,0 +1,153 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.core.application.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+public class FirmwareFileCacheTest {
+
+    private static final int IMAGE_SIZE = 4 * 1024 * 1024;
+    private static final int DEVICES = 10000;
+    private static final int THREADS = 50;
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    /**
+     * Simulates a rollout of one firmware image to many devices. Every load
+     * materializes a new copy of the image, as reading it from the database
+     * would. Without the cache the responses held below would need 40 GB.
+     */
+    @Test
+    public void testHeapStaysBoundedDuringMassRollout() throws Exception {
+        final FirmwareFileCache cache = new FirmwareFileCache(10L * IMAGE_SIZE);
+        final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        final MemoryMXBean memoryMXBean = ManagementFactory.getMemoryMXBean();
+
+        System.gc();
+        final long heapBefore = memoryMXBean.getHeapMemoryUsage().getUsed();
+
+        final List<byte[]> responses = new ArrayList<>(DEVICES);
+        try {
+            final List<Future<byte[]>> futures = new ArrayList<>(DEVICES);
+            for (int i = 0; i < DEVICES; i++) {
+                futures.add(executor.submit(new Callable<byte[]>() {
+                    @Override
+                    public byte[] call() throws Exception {
+                        return cache.get("fw-1", "hash-1", FirmwareFileCacheTest.this.loader(IMAGE_SIZE));
+                    }
+                }));
+            }
+            for (final Future<byte[]> future : futures) {
+                responses.add(future.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        System.gc();
+        final long heapGrowth = memoryMXBean.getHeapMemoryUsage().getUsed() - heapBefore;
+
+        assertEquals(1, this.loads.get());
+        for (final byte[] response : responses) {
+            assertSame(responses.get(0), response);
+        }
+        assertTrue("heap grew " + heapGrowth + " bytes", heapGrowth < 10L * IMAGE_SIZE);
+        assertEquals(DEVICES, cache.getHitCount() + cache.getMissCount());
+    }
+
+    @Test
+    public void testFilesWithSameHashShareContents() throws Exception {
+        final FirmwareFileCache cache = new FirmwareFileCache(IMAGE_SIZE);
+
+        final byte[] first = cache.get("fw-1", "hash-1", this.loader(10));
+        final byte[] second = cache.get("fw-2", "hash-1", this.loader(10));
+
+        assertSame(first, second);
+        assertEquals(1, this.loads.get());
+    }
+
+    @Test
+    public void testFilesWithoutHashAreCachedByIdentification() throws Exception {
+        final FirmwareFileCache cache = new FirmwareFileCache(IMAGE_SIZE);
+
+        final byte[] first = cache.get("fw-1", null, this.loader(10));
+        assertSame(first, cache.get("fw-1", null, this.loader(10)));
+        cache.get("fw-2", null, this.loader(10));
+
+        assertEquals(2, this.loads.get());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedFilesAreEvicted() throws Exception {
+        final FirmwareFileCache cache = new FirmwareFileCache(25);
+
+        cache.get("fw-1", "hash-1", this.loader(10));
+        cache.get("fw-2", "hash-2", this.loader(10));
+        cache.get("fw-1", "hash-1", this.loader(10));
+        cache.get("fw-3", "hash-3", this.loader(10));
+
+        assertEquals(2, cache.size());
+        assertEquals(20, cache.getCachedBytes());
+        assertEquals(1, cache.getEvictionCount());
+
+        cache.get("fw-1", "hash-1", this.loader(10));
+        assertEquals(3, this.loads.get());
+    }
+
+    @Test
+    public void testFilesLargerThanMaximumAreNotCached() throws Exception {
+        final FirmwareFileCache cache = new FirmwareFileCache(5);
+
+        cache.get("fw-1", "hash-1", this.loader(10));
+        cache.get("fw-1", "hash-1", this.loader(10));
+
+        assertEquals(0, cache.size());
+        assertEquals(2, this.loads.get());
+    }
+
+    @Test
+    public void testMissingContentsAreNotCached() throws Exception {
+        final FirmwareFileCache cache = new FirmwareFileCache(IMAGE_SIZE);
+        final Callable<byte[]> loader = new Callable<byte[]>() {
+            @Override
+            public byte[] call() {
+                FirmwareFileCacheTest.this.loads.incrementAndGet();
+                return null;
+            }
+        };
+
+        assertNull(cache.get("fw-1", null, loader));
+        assertNull(cache.get("fw-1", null, loader));
+        assertEquals(2, this.loads.get());
+    }
+
+    private Callable<byte[]> loader(final int size) {
+        return new Callable<byte[]>() {
+            @Override
+            public byte[] call() {
+                FirmwareFileCacheTest.this.loads.incrementAndGet();
+                return new byte[size];
+            }
+        };
+    }
+}
@@ -0,0 +1,183 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.core.application.services;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Replays the registration burst of 20,000 devices after a mass power
+ * restore, with one thread per protocol request listener. Every device
+ * registers three times, only the last registration has its final address.
+ */
+public class DeviceRegistrationCoalescerTest {
+
+    private static final int DEVICES = 20000;
+    private static final int REGISTRATIONS_PER_DEVICE = 3;
+    private static final int THREADS = 16;
+    private static final long TRANSACTION_DURATION_MILLIS = 1;
+    private static final long MAX_WAIT_MILLIS = 60000;
+
+    private final RecordingDeviceRegistrationService service = new RecordingDeviceRegistrationService();
+    private final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+
+    private DeviceRegistrationCoalescer coalescer;
+
+    @After
+    public void tearDown() throws InterruptedException {
+        this.executor.shutdownNow();
+        if (this.coalescer != null) {
+            this.coalescer.destroy();
+        }
+    }
+
+    @Test
+    public void testSubmitReturnsWhenRegistrationIsApplied() throws Exception {
+        this.coalescer = new DeviceRegistrationCoalescer(this.service, 50, THREADS, MAX_WAIT_MILLIS, 10000);
+
+        this.coalescer.submit("SSLD-1", this.address(1, 0), "SSLD");
+
+        assertEquals(this.address(1, 0), this.service.applied.get("SSLD-1"));
+        assertEquals(1, this.coalescer.getAppliedCount());
+    }
+
+    @Test
+    public void testBurstIsAppliedInBatches() throws Exception {
+        // Full batches are applied right away, without waiting for the window.
+        this.coalescer = new DeviceRegistrationCoalescer(this.service, 100, THREADS, MAX_WAIT_MILLIS, 10000);
+
+        final List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            final int thread = t;
+            futures.add(this.executor.submit(() -> {
+                for (int r = 0; r < REGISTRATIONS_PER_DEVICE; r++) {
+                    for (int i = thread; i < DEVICES; i += THREADS) {
+                        this.coalescer.submit("SSLD-" + i, this.address(i, r), "SSLD");
+                    }
+                }
+                return null;
+            }));
+        }
+        for (final Future<?> future : futures) {
+            future.get(MAX_WAIT_MILLIS, TimeUnit.MILLISECONDS);
+        }
+
+        // Registrations are applied in batches, not in a transaction each.
+        assertEquals(DEVICES * REGISTRATIONS_PER_DEVICE, this.coalescer.getReceivedCount());
+        assertEquals(DEVICES * REGISTRATIONS_PER_DEVICE, this.coalescer.getAppliedCount());
+        assertTrue(this.service.batches.get() <= DEVICES * REGISTRATIONS_PER_DEVICE / THREADS * 2);
+        assertEquals(DEVICES, this.service.applied.size());
+        for (int i = 0; i < DEVICES; i++) {
+            assertEquals(this.address(i, REGISTRATIONS_PER_DEVICE - 1), this.service.applied.get("SSLD-" + i));
+        }
+    }
+
+    @Test
+    public void testPendingRegistrationsOfADeviceAreCoalesced() throws Exception {
+        this.coalescer = new DeviceRegistrationCoalescer(this.service, MAX_WAIT_MILLIS, THREADS, MAX_WAIT_MILLIS,
+                10000);
+
+        final Future<?> first = this.submit("SSLD-1", this.address(1, 0));
+        this.awaitPending(1);
+        final Future<?> second = this.submit("SSLD-1", this.address(1, 1));
+        while (this.coalescer.getCoalescedCount() == 0) {
+            Thread.sleep(10);
+        }
+        assertFalse(first.isDone());
+
+        this.coalescer.flush();
+
+        first.get(5, TimeUnit.SECONDS);
+        second.get(5, TimeUnit.SECONDS);
+        assertEquals(1, this.service.batches.get());
+        assertEquals(this.address(1, 1), this.service.applied.get("SSLD-1"));
+    }
+
+    @Test
+    public void testFailingRegistrationIsRejected() throws Exception {
+        this.service.failingDevice = "SSLD-42";
+        this.coalescer = new DeviceRegistrationCoalescer(this.service, MAX_WAIT_MILLIS, THREADS, MAX_WAIT_MILLIS,
+                10000);
+
+        final Future<?> before = this.submit("SSLD-41", this.address(41, 0));
+        final Future<?> failing = this.submit("SSLD-42", this.address(42, 0));
+        final Future<?> after = this.submit("SSLD-43", this.address(43, 0));
+        this.awaitPending(3);
+        this.coalescer.flush();
+
+        before.get(5, TimeUnit.SECONDS);
+        after.get(5, TimeUnit.SECONDS);
+        try {
+            failing.get(5, TimeUnit.SECONDS);
+            fail("Registration of SSLD-42 should have failed");
+        } catch (final ExecutionException e) {
+            assertTrue(e.getCause() instanceof DeviceRegistrationException);
+        }
+        assertEquals(2, this.coalescer.getAppliedCount());
+        assertEquals(1, this.coalescer.getFailedCount());
+        assertEquals(2, this.service.applied.size());
+    }
+
+    private Future<?> submit(final String deviceIdentification, final InetAddress address) {
+        return this.executor.submit(() -> this.coalescer.submit(deviceIdentification, address, "SSLD"));
+    }
+
+    private void awaitPending(final int count) throws InterruptedException {
+        final long start = System.currentTimeMillis();
+        while (this.coalescer.getPendingCount() < count && System.currentTimeMillis() - start < MAX_WAIT_MILLIS) {
+            Thread.sleep(10);
+        }
+    }
+
+    private InetAddress address(final int device, final int registration) throws UnknownHostException {
+        return InetAddress.getByAddress(
+                new byte[] { 10, (byte) registration, (byte) (device >> 8), (byte) device });
+    }
+
+    private static class RecordingDeviceRegistrationService extends DeviceRegistrationService {
+        private final Map<String, InetAddress> applied = new ConcurrentHashMap<>();
+        private final AtomicInteger batches = new AtomicInteger();
+        private volatile String failingDevice;
+
+        @Override
+        public void applyRegistrations(final List<DeviceRegistration> registrations) {
+            try {
+                Thread.sleep(TRANSACTION_DURATION_MILLIS);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            for (final DeviceRegistration registration : registrations) {
+                if (registration.getDeviceIdentification().equals(this.failingDevice)) {
+                    throw new IllegalStateException("Constraint violation");
+                }
+            }
+            this.batches.incrementAndGet();
+            for (final DeviceRegistration registration : registrations) {
+                this.applied.put(registration.getDeviceIdentification(), registration.getNetworkAddress());
+            }
+        }
+    }
+}
@@ -0,0 +1,112 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.core.application.services;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.anyCollectionOf;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import com.alliander.osgp.domain.core.entities.Device;
+import com.alliander.osgp.domain.core.entities.Ssld;
+import com.alliander.osgp.domain.core.repositories.DeviceRepository;
+
+@RunWith(MockitoJUnitRunner.class)
+public class DeviceRegistrationServiceTest {
+
+    @Mock
+    private DeviceRepository deviceRepository;
+
+    @InjectMocks
+    private DeviceRegistrationService deviceRegistrationService;
+
+    @Captor
+    private ArgumentCaptor<Iterable<Device>> savedDevices;
+
+    @Test
+    public void testDevicesAreLoadedAndSavedOncePerBatch() throws UnknownHostException {
+        final Device existing = new Device("SSLD-1");
+        when(this.deviceRepository.findByDeviceIdentificationIn(anyCollectionOf(String.class)))
+                .thenReturn(Collections.singletonList(existing));
+        when(this.deviceRepository.findByNetworkAddressIn(anyCollectionOf(InetAddress.class)))
+                .thenReturn(Collections.<Device> emptyList());
+
+        this.deviceRegistrationService.applyRegistrations(Arrays.asList(
+                this.registration("SSLD-1", "10.0.0.1", 1), this.registration("SSLD-2", "10.0.0.2", 2)));
+
+        verify(this.deviceRepository).save(this.savedDevices.capture());
+        final List<Device> saved = this.toList(this.savedDevices.getValue());
+        assertEquals(2, saved.size());
+        assertEquals("10.0.0.1", existing.getIpAddress());
+        assertTrue(saved.get(1) instanceof Ssld);
+        assertEquals("10.0.0.2", saved.get(1).getIpAddress());
+        verify(this.deviceRepository, never()).findByDeviceIdentification("SSLD-1");
+        verify(this.deviceRepository, never()).findByNetworkAddress(InetAddress.getByName("10.0.0.1"));
+    }
+
+    @Test
+    public void testAddressIsClearedForOtherDevices() throws UnknownHostException {
+        final Device previousHolder = new Device("SSLD-OLD");
+        previousHolder.updateRegistrationData(InetAddress.getByName("10.0.0.1"), Ssld.SSLD_TYPE);
+
+        when(this.deviceRepository.findByDeviceIdentificationIn(anyCollectionOf(String.class)))
+                .thenReturn(Collections.<Device> emptyList());
+        when(this.deviceRepository.findByNetworkAddressIn(anyCollectionOf(InetAddress.class)))
+                .thenReturn(Collections.singletonList(previousHolder));
+
+        this.deviceRegistrationService.applyRegistrations(Arrays.asList(this.registration("SSLD-A", "10.0.0.1", 1),
+                this.registration("SSLD-B", "10.0.0.1", 2), this.registration("SSLD-C", "127.0.0.1", 3)));
+
+        verify(this.deviceRepository).save(this.savedDevices.capture());
+        final List<Device> saved = this.toList(this.savedDevices.getValue());
+        assertNull(previousHolder.getIpAddress());
+        assertTrue(saved.contains(previousHolder));
+        for (final Device device : saved) {
+            if ("SSLD-A".equals(device.getDeviceIdentification())) {
+                // Registered the address first, the later registration wins.
+                assertNull(device.getIpAddress());
+            } else if ("SSLD-B".equals(device.getDeviceIdentification())) {
+                assertEquals("10.0.0.1", device.getIpAddress());
+            } else if ("SSLD-C".equals(device.getDeviceIdentification())) {
+                assertEquals("127.0.0.1", device.getIpAddress());
+            }
+        }
+    }
+
+    private DeviceRegistration registration(final String deviceIdentification, final String ipAddress,
+            final long sequenceNumber) throws UnknownHostException {
+        return new DeviceRegistration(deviceIdentification, InetAddress.getByName(ipAddress), Ssld.SSLD_TYPE,
+                sequenceNumber);
+    }
+
+    private List<Device> toList(final Iterable<Device> devices) {
+        final List<Device> list = new ArrayList<>();
+        for (final Device device : devices) {
+            list.add(device);
+        }
+        return list;
+    }
+}
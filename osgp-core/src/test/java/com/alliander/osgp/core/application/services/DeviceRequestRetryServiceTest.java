@@ -0,0 +1,136 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.core.application.services;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.when;
+
+import java.util.Date;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.internal.util.reflection.Whitebox;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import com.alliander.osgp.domain.core.repositories.ScheduledTaskRepository;
+import com.alliander.osgp.domain.core.valueobjects.ScheduledTaskStatusType;
+import com.alliander.osgp.shared.exceptionhandling.ComponentType;
+import com.alliander.osgp.shared.exceptionhandling.OsgpException;
+import com.alliander.osgp.shared.infra.jms.DeviceMessageMetadata;
+import com.alliander.osgp.shared.infra.jms.ProtocolResponseMessage;
+import com.alliander.osgp.shared.infra.jms.ResponseMessageResultType;
+
+@RunWith(MockitoJUnitRunner.class)
+public class DeviceRequestRetryServiceTest {
+
+    private static final int MAX_RETRY_COUNT = 3;
+    private static final long INITIAL_DELAY = 1000;
+
+    @Spy
+    private RetryClassifier retryClassifier = new RetryClassifier();
+
+    @Spy
+    private RetryBackoff retryBackoff = new RetryBackoff(INITIAL_DELAY, 2, 60000);
+
+    @Mock
+    private ScheduledTaskRepository scheduledTaskRepository;
+
+    @InjectMocks
+    private DeviceRequestRetryService deviceRequestRetryService;
+
+    @Before
+    public void setUp() {
+        Whitebox.setInternalState(this.deviceRequestRetryService, "getMaxRetryCount", MAX_RETRY_COUNT);
+    }
+
+    @Test
+    public void testRequestIsRetriedAtMostMaxRetryCountTimes() {
+        for (int retries = 0; retries < MAX_RETRY_COUNT; retries++) {
+            assertNotNull(this.deviceRequestRetryService.getRetryTime(this.unableToConnect("TST0000001"), retries));
+        }
+        assertNull(this.deviceRequestRetryService.getRetryTime(this.unableToConnect("TST0000001"), MAX_RETRY_COUNT));
+    }
+
+    @Test
+    public void testDelayGrowsWithRetriesOfRequest() {
+        for (int retries = 0; retries < MAX_RETRY_COUNT; retries++) {
+            // A different device each time, only the retries of the request
+            // count.
+            this.assertDelayBetween(INITIAL_DELAY << retries,
+                    this.unableToConnect("TST000000" + retries), retries);
+        }
+    }
+
+    @Test
+    public void testDelayGrowsWithFailuresOfDevice() {
+        // New requests for a device that keeps failing do not start over with
+        // the initial delay.
+        when(this.scheduledTaskRepository.countByDeviceIdentificationAndStatus("TST0000001",
+                ScheduledTaskStatusType.RETRY)).thenReturn(0L, 1L, 2L);
+
+        this.assertDelayBetween(INITIAL_DELAY, this.unableToConnect("TST0000001"), 0);
+        this.assertDelayBetween(INITIAL_DELAY * 2, this.unableToConnect("TST0000001"), 0);
+        this.assertDelayBetween(INITIAL_DELAY * 4, this.unableToConnect("TST0000001"), 0);
+        this.assertDelayBetween(INITIAL_DELAY, this.unableToConnect("TST0000002"), 0);
+    }
+
+    @Test
+    public void testFailuresOfDeviceAreKeptWhenRetriesOfRequestRunOut() {
+        when(this.scheduledTaskRepository.countByDeviceIdentificationAndStatus("TST0000001",
+                ScheduledTaskStatusType.RETRY)).thenReturn(2L);
+
+        assertNull(this.deviceRequestRetryService.getRetryTime(this.unableToConnect("TST0000001"), MAX_RETRY_COUNT));
+
+        this.assertDelayBetween(INITIAL_DELAY * 4, this.unableToConnect("TST0000001"), 0);
+    }
+
+    @Test
+    public void testPermanentFailuresAndSuccessesAreNotRetried() {
+        final ProtocolResponseMessage permanent = this.response("TST0000001", ResponseMessageResultType.NOT_OK,
+                new OsgpException(ComponentType.PROTOCOL_OSLP, "Invalid signature"));
+        final ProtocolResponseMessage success = this.response("TST0000001", ResponseMessageResultType.OK, null);
+
+        assertNull(this.deviceRequestRetryService.getRetryTime(permanent, 0));
+        assertNull(this.deviceRequestRetryService.getRetryTime(success, 0));
+    }
+
+    /**
+     * Half of the exponential delay is fixed, the other half is jitter.
+     */
+    private void assertDelayBetween(final long exponentialDelay, final ProtocolResponseMessage message,
+            final int retries) {
+        final long before = System.currentTimeMillis();
+        final Date retryTime = this.deviceRequestRetryService.getRetryTime(message, retries);
+        final long after = System.currentTimeMillis();
+
+        assertNotNull(retryTime);
+        assertTrue("Retry time too early: " + (retryTime.getTime() - before),
+                retryTime.getTime() >= before + exponentialDelay / 2);
+        assertTrue("Retry time too late: " + (retryTime.getTime() - after),
+                retryTime.getTime() <= after + exponentialDelay);
+    }
+
+    private ProtocolResponseMessage unableToConnect(final String deviceIdentification) {
+        return this.response(deviceIdentification, ResponseMessageResultType.NOT_OK,
+                new OsgpException(ComponentType.PROTOCOL_OSLP, "Unable to connect"));
+    }
+
+    private ProtocolResponseMessage response(final String deviceIdentification,
+            final ResponseMessageResultType result, final OsgpException exception) {
+        final DeviceMessageMetadata deviceMessageMetadata = new DeviceMessageMetadata(deviceIdentification,
+                "test-org", "correlation-uid", "GET_STATUS", 4);
+        return new ProtocolResponseMessage.Builder().deviceMessageMetadata(deviceMessageMetadata).domain("CORE")
+                .domainVersion("1.0").result(result).osgpException(exception).build();
+    }
+}
@@ -9,8 +9,12 @@
 package com.alliander.osgp.core.application.services;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
 import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -21,6 +25,7 @@ import java.util.Date;
 
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
@@ -28,6 +33,7 @@ import org.mockito.runners.MockitoJUnitRunner;
 import com.alliander.osgp.core.domain.model.domain.DomainResponseService;
 import com.alliander.osgp.domain.core.entities.ScheduledTask;
 import com.alliander.osgp.domain.core.repositories.ScheduledTaskRepository;
+import com.alliander.osgp.domain.core.valueobjects.ScheduledTaskStatusType;
 import com.alliander.osgp.shared.exceptionhandling.ComponentType;
 import com.alliander.osgp.shared.exceptionhandling.OsgpException;
 import com.alliander.osgp.shared.infra.jms.DeviceMessageMetadata;
@@ -47,6 +53,9 @@ public class DeviceResponseMessageServiceTest {
     @Mock
     private ScheduledTaskRepository scheduledTaskRepository;
 
+    @Mock
+    private DeviceRequestRetryService deviceRequestRetryService;
+
     @InjectMocks
     private DeviceResponseMessageService deviceResponseMessageService;
 
@@ -67,7 +76,7 @@ public class DeviceResponseMessageServiceTest {
                 .result(ResponseMessageResultType.OK).dataObject(DATA_OBJECT).scheduled(true).build();
         final ScheduledTask scheduledTask = new ScheduledTask(DEVICE_MESSAGE_DATA, DOMAIN, DOMAIN, DATA_OBJECT,
                 SCHEDULED_TIME);
-        scheduledTask.setPending();
+        scheduledTask.setPending(new Timestamp(System.currentTimeMillis()));
         when(this.scheduledTaskRepository.findByCorrelationUid(anyString())).thenReturn(scheduledTask);
         this.deviceResponseMessageService.processMessage(message);
 
@@ -139,4 +148,78 @@ public class DeviceResponseMessageServiceTest {
         verify(this.scheduledTaskRepository).delete(scheduledTask);
     }
 
+    /**
+     * test processMessage with a scheduled task that failed transiently, it is
+     * retried at the time given by the retry service
+     */
+    @Test
+    public void testProcessScheduledMessageTransientFailure() {
+        final Date retryTime = new Date(System.currentTimeMillis() + 10000);
+        final OsgpException exception = new OsgpException(ComponentType.PROTOCOL_OSLP, "Unable to connect");
+        final ProtocolResponseMessage message = new ProtocolResponseMessage.Builder()
+                .deviceMessageMetadata(DEVICE_MESSAGE_DATA).domain(DOMAIN).domainVersion(DOMAIN_VERSION)
+                .result(ResponseMessageResultType.NOT_OK).dataObject(DATA_OBJECT).scheduled(true)
+                .osgpException(exception).build();
+        final ScheduledTask scheduledTask = new ScheduledTask(DEVICE_MESSAGE_DATA, DOMAIN, DOMAIN, DATA_OBJECT,
+                SCHEDULED_TIME);
+        scheduledTask.setPending(new Timestamp(System.currentTimeMillis()));
+
+        when(this.scheduledTaskRepository.findByCorrelationUid(anyString())).thenReturn(scheduledTask);
+        when(this.deviceRequestRetryService.getRetryTime(message, 0)).thenReturn(retryTime);
+        this.deviceResponseMessageService.processMessage(message);
+
+        verify(this.domainResponseMessageSender, never()).send(message);
+        verify(this.scheduledTaskRepository).save(scheduledTask);
+        assertEquals(ScheduledTaskStatusType.RETRY, scheduledTask.getStatus());
+        assertEquals(1, scheduledTask.getRetry());
+        assertEquals(new Timestamp(retryTime.getTime()), scheduledTask.getscheduledTime());
+    }
+
+    /**
+     * test processMessage with a request that failed transiently, it is stored
+     * as a scheduled retry task instead of being sent to the device again at
+     * once
+     */
+    @Test
+    public void testProcessMessageTransientFailureSchedulesRetry() {
+        final Date retryTime = new Date(System.currentTimeMillis() + 10000);
+        final OsgpException exception = new OsgpException(ComponentType.PROTOCOL_OSLP, "Unable to connect");
+        final ProtocolResponseMessage message = new ProtocolResponseMessage.Builder()
+                .deviceMessageMetadata(DEVICE_MESSAGE_DATA).domain(DOMAIN).domainVersion(DOMAIN_VERSION)
+                .result(ResponseMessageResultType.NOT_OK).dataObject(DATA_OBJECT).osgpException(exception).build();
+
+        when(this.deviceRequestRetryService.getRetryTime(eq(message), anyInt())).thenReturn(retryTime);
+        this.deviceResponseMessageService.processMessage(message);
+
+        final ArgumentCaptor<ScheduledTask> captor = ArgumentCaptor.forClass(ScheduledTask.class);
+        verify(this.scheduledTaskRepository).save(captor.capture());
+        verify(this.domainResponseMessageSender, never()).send(any(ProtocolResponseMessage.class));
+        assertEquals(ScheduledTaskStatusType.RETRY, captor.getValue().getStatus());
+        assertEquals(new Timestamp(retryTime.getTime()), captor.getValue().getscheduledTime());
+        assertFalse("Retry of a request that was not scheduled", captor.getValue().isScheduled());
+    }
+
+    /**
+     * test processMessage with the response to the retry of a request that was
+     * not scheduled, the retry is sent as not scheduled but its task is
+     * completed like that of a scheduled request
+     */
+    @Test
+    public void testProcessResponseToRetryOfInteractiveRequest() {
+        final ProtocolResponseMessage message = new ProtocolResponseMessage.Builder()
+                .deviceMessageMetadata(DEVICE_MESSAGE_DATA).domain(DOMAIN).domainVersion(DOMAIN_VERSION)
+                .result(ResponseMessageResultType.OK).dataObject(DATA_OBJECT).retryCount(1).scheduled(false).build();
+        final ScheduledTask scheduledTask = new ScheduledTask(DEVICE_MESSAGE_DATA, DOMAIN, DOMAIN, DATA_OBJECT,
+                SCHEDULED_TIME, false);
+        scheduledTask.retryOn(SCHEDULED_TIME);
+        scheduledTask.setPending(new Timestamp(System.currentTimeMillis()));
+        when(this.scheduledTaskRepository.findByCorrelationUid(anyString())).thenReturn(scheduledTask);
+
+        this.deviceResponseMessageService.processMessage(message);
+
+        verify(this.domainResponseMessageSender).send(message);
+        verify(this.scheduledTaskRepository).delete(scheduledTask);
+        verify(this.scheduledTaskRepository, never()).save(any(ScheduledTask.class));
+    }
+
 }
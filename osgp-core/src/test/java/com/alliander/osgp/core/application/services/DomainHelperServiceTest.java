@@ -0,0 +1,211 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+package com.alliander.osgp.core.application.services;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import javax.jms.JMSException;
+
+import org.apache.activemq.command.ActiveMQMessage;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import com.alliander.osgp.core.application.cache.DomainLookupCache;
+import com.alliander.osgp.core.application.cache.DomainLookupCacheInvalidationListener;
+import com.alliander.osgp.core.application.cache.DomainLookupCacheInvalidationMessageListener;
+import com.alliander.osgp.domain.core.entities.Device;
+import com.alliander.osgp.domain.core.entities.Organisation;
+import com.alliander.osgp.domain.core.entities.ProtocolInfo;
+import com.alliander.osgp.domain.core.exceptions.NotAuthorizedException;
+import com.alliander.osgp.domain.core.exceptions.UnknownEntityException;
+import com.alliander.osgp.domain.core.services.DeviceDomainService;
+import com.alliander.osgp.domain.core.services.OrganisationDomainService;
+import com.alliander.osgp.domain.core.services.SecurityService;
+import com.alliander.osgp.domain.core.valueobjects.DeviceFunction;
+import com.alliander.osgp.domain.core.valueobjects.PlatformFunctionGroup;
+import com.alliander.osgp.shared.exceptionhandling.FunctionalException;
+import com.alliander.osgp.shared.infra.jms.Constants;
+
+/**
+ * test class for the caching and authorization checks done by
+ * DomainHelperService
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class DomainHelperServiceTest {
+
+    private static final String DEVICE_IDENTIFICATION = "deviceId";
+    private static final String GATEWAY_DEVICE_IDENTIFICATION = "gatewayId";
+    private static final String ORGANISATION_IDENTIFICATION = "organisationId";
+
+    @Mock
+    private DeviceDomainService deviceDomainService;
+
+    @Mock
+    private OrganisationDomainService organisationDomainService;
+
+    @Mock
+    private SecurityService securityService;
+
+    @Spy
+    private DomainLookupCache domainLookupCache = new DomainLookupCache(100, 60000);
+
+    @InjectMocks
+    private DomainHelperService domainHelperService;
+
+    private final Device device = new Device(DEVICE_IDENTIFICATION);
+
+    private final Organisation organisation = new Organisation(ORGANISATION_IDENTIFICATION, "name", "prefix",
+            PlatformFunctionGroup.USER);
+
+    @Test
+    public void testFindDeviceIsCachedUntilDeviceChanges() throws FunctionalException {
+        when(this.deviceDomainService.searchDevice(DEVICE_IDENTIFICATION)).thenReturn(this.device);
+
+        assertSame(this.device, this.domainHelperService.findDevice(DEVICE_IDENTIFICATION));
+        assertSame(this.device, this.domainHelperService.findDevice(DEVICE_IDENTIFICATION));
+        verify(this.deviceDomainService, times(1)).searchDevice(DEVICE_IDENTIFICATION);
+
+        this.fireUpdate(this.device);
+
+        assertSame(this.device, this.domainHelperService.findDevice(DEVICE_IDENTIFICATION));
+        verify(this.deviceDomainService, times(2)).searchDevice(DEVICE_IDENTIFICATION);
+    }
+
+    @Test
+    public void testDeviceIsInvalidatedWhenItsGatewayDeviceChanges() throws FunctionalException {
+        final Device gatewayDevice = new Device(GATEWAY_DEVICE_IDENTIFICATION);
+        this.device.updateGatewayDevice(gatewayDevice);
+        when(this.deviceDomainService.searchDevice(DEVICE_IDENTIFICATION)).thenReturn(this.device);
+
+        this.domainHelperService.findDevice(DEVICE_IDENTIFICATION);
+        this.fireUpdate(gatewayDevice);
+        this.domainHelperService.findDevice(DEVICE_IDENTIFICATION);
+
+        verify(this.deviceDomainService, times(2)).searchDevice(DEVICE_IDENTIFICATION);
+    }
+
+    @Test
+    public void testDevicesAreInvalidatedWhenProtocolInfoChanges() throws FunctionalException {
+        when(this.deviceDomainService.searchDevice(DEVICE_IDENTIFICATION)).thenReturn(this.device);
+
+        this.domainHelperService.findDevice(DEVICE_IDENTIFICATION);
+        this.fireUpdate(mock(ProtocolInfo.class));
+        this.domainHelperService.findDevice(DEVICE_IDENTIFICATION);
+
+        verify(this.deviceDomainService, times(2)).searchDevice(DEVICE_IDENTIFICATION);
+    }
+
+    @Test
+    public void testDeviceIsInvalidatedWhenAnotherApplicationChangesIt() throws Exception {
+        when(this.deviceDomainService.searchDevice(DEVICE_IDENTIFICATION)).thenReturn(this.device);
+
+        this.domainHelperService.findDevice(DEVICE_IDENTIFICATION);
+        this.receiveChange(Device.class, Constants.DEVICE_IDENTIFICATION, DEVICE_IDENTIFICATION);
+        this.domainHelperService.findDevice(DEVICE_IDENTIFICATION);
+
+        verify(this.deviceDomainService, times(2)).searchDevice(DEVICE_IDENTIFICATION);
+    }
+
+    @Test
+    public void testOtherDevicesStayCachedWhenAnotherApplicationChangesADevice() throws Exception {
+        when(this.deviceDomainService.searchDevice(DEVICE_IDENTIFICATION)).thenReturn(this.device);
+
+        this.domainHelperService.findDevice(DEVICE_IDENTIFICATION);
+        this.receiveChange(Device.class, Constants.DEVICE_IDENTIFICATION, GATEWAY_DEVICE_IDENTIFICATION);
+        this.domainHelperService.findDevice(DEVICE_IDENTIFICATION);
+
+        verify(this.deviceDomainService, times(1)).searchDevice(DEVICE_IDENTIFICATION);
+    }
+
+    @Test
+    public void testFindOrganisationIsCachedUntilOrganisationChanges()
+            throws FunctionalException, UnknownEntityException {
+        when(this.organisationDomainService.searchOrganisation(ORGANISATION_IDENTIFICATION))
+                .thenReturn(this.organisation);
+
+        assertSame(this.organisation, this.domainHelperService.findOrganisation(ORGANISATION_IDENTIFICATION));
+        assertSame(this.organisation, this.domainHelperService.findOrganisation(ORGANISATION_IDENTIFICATION));
+        verify(this.organisationDomainService, times(1)).searchOrganisation(ORGANISATION_IDENTIFICATION);
+
+        this.fireUpdate(this.organisation);
+
+        assertSame(this.organisation, this.domainHelperService.findOrganisation(ORGANISATION_IDENTIFICATION));
+        verify(this.organisationDomainService, times(2)).searchOrganisation(ORGANISATION_IDENTIFICATION);
+    }
+
+    @Test
+    public void testRevokedAuthorizationTakesEffectImmediately() throws FunctionalException, NotAuthorizedException {
+        doNothing().doThrow(new NotAuthorizedException(ORGANISATION_IDENTIFICATION))
+                .when(this.securityService)
+                .checkAuthorization(this.organisation, this.device, DeviceFunction.GET_STATUS);
+
+        this.domainHelperService.isAllowed(this.organisation, this.device, DeviceFunction.GET_STATUS);
+
+        // The authorization is revoked, by another application.
+        try {
+            this.domainHelperService.isAllowed(this.organisation, this.device, DeviceFunction.GET_STATUS);
+            fail("Revoked authorization still allowed");
+        } catch (final FunctionalException e) {
+            // expected
+        }
+        verify(this.securityService, times(2)).checkAuthorization(this.organisation, this.device,
+                DeviceFunction.GET_STATUS);
+    }
+
+    @Test(expected = FunctionalException.class)
+    public void testNotAuthorizedIsFunctionalException() throws FunctionalException, NotAuthorizedException {
+        doThrow(new NotAuthorizedException(ORGANISATION_IDENTIFICATION)).when(this.securityService)
+                .checkAuthorization(this.organisation, this.device, DeviceFunction.SET_LIGHT);
+
+        this.domainHelperService.isAllowed(this.organisation, this.device, DeviceFunction.SET_LIGHT);
+    }
+
+    @Test
+    public void testHitAndMissCounters() throws FunctionalException {
+        when(this.deviceDomainService.searchDevice(DEVICE_IDENTIFICATION)).thenReturn(this.device);
+
+        this.domainHelperService.findDevice(DEVICE_IDENTIFICATION);
+        this.domainHelperService.findDevice(DEVICE_IDENTIFICATION);
+        this.domainHelperService.findDevice(DEVICE_IDENTIFICATION);
+
+        assertEquals(1, this.domainLookupCache.getDeviceMissCount());
+        assertEquals(2, this.domainLookupCache.getDeviceHitCount());
+        assertEquals(1, this.domainLookupCache.getDeviceCount());
+    }
+
+    /**
+     * Receives a change the way the web service adapters publish it.
+     */
+    private void receiveChange(final Class<?> entityClass, final String identificationName,
+            final String identification) throws JMSException {
+        final ActiveMQMessage message = new ActiveMQMessage();
+        message.setJMSType(entityClass.getSimpleName());
+        message.setStringProperty(identificationName, identification);
+        new DomainLookupCacheInvalidationMessageListener(this.domainLookupCache).onMessage(message);
+    }
+
+    private void fireUpdate(final Object entity) {
+        final PostUpdateEvent event = mock(PostUpdateEvent.class);
+        when(event.getEntity()).thenReturn(entity);
+        new DomainLookupCacheInvalidationListener(this.domainLookupCache).onPostUpdate(event);
+    }
+}
@@ -0,0 +1,46 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.core.application.services;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class RetryBackoffTest {
+
+    private final RetryBackoff backoff = new RetryBackoff(10000, 2, 600000);
+
+    @Test
+    public void testDelayDoublesForEveryRetry() {
+        final long[] expected = { 10000, 20000, 40000, 80000, 160000, 320000 };
+        for (int retries = 0; retries < expected.length; retries++) {
+            // Without jitter the delay is half of the exponential delay, with
+            // the largest jitter nearly all of it.
+            assertEquals(expected[retries] / 2, this.backoff.getDelay(retries, 0));
+            assertEquals(expected[retries], this.backoff.getDelay(retries, 0.9999999), 1);
+        }
+    }
+
+    @Test
+    public void testDelayIsCappedAtMaximum() {
+        assertEquals(300000, this.backoff.getDelay(6, 0));
+        assertEquals(300000, this.backoff.getDelay(100, 0));
+        assertEquals(450000, this.backoff.getDelay(1000, 0.5));
+    }
+
+    @Test
+    public void testJitterSpreadsDelay() {
+        assertEquals(5000, this.backoff.getDelay(0, 0));
+        assertEquals(7500, this.backoff.getDelay(0, 0.5));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMaximumBelowInitialDelayIsRejected() {
+        new RetryBackoff(10000, 2, 5000);
+    }
+}
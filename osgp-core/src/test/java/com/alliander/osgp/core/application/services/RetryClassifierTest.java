@@ -0,0 +1,61 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.core.application.services;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+
+import org.junit.Test;
+
+import com.alliander.osgp.shared.exceptionhandling.ComponentType;
+import com.alliander.osgp.shared.exceptionhandling.FunctionalException;
+import com.alliander.osgp.shared.exceptionhandling.FunctionalExceptionType;
+import com.alliander.osgp.shared.exceptionhandling.OsgpException;
+import com.alliander.osgp.shared.exceptionhandling.TechnicalException;
+
+public class RetryClassifierTest {
+
+    private final RetryClassifier classifier = new RetryClassifier();
+
+    @Test
+    public void testConnectionFailureCausesAreTransient() {
+        assertTrue(this.classifier.isTransient(new TechnicalException(ComponentType.PROTOCOL_OSLP, "Request failed",
+                new ConnectException("Connection refused"))));
+        assertTrue(this.classifier.isTransient(new TechnicalException(ComponentType.PROTOCOL_DLMS, "Request failed",
+                new RuntimeException(new SocketTimeoutException("Read timed out")))));
+    }
+
+    @Test
+    public void testTransientMessageOfCauseIsMatched() {
+        // Protocol adapters send the original exception as message of the
+        // cause, the message of the exception itself is not specific.
+        final OsgpException exception = new TechnicalException(ComponentType.PROTOCOL_DLMS, "Unexpected exception",
+                new TechnicalException(ComponentType.PROTOCOL_DLMS,
+                        "Connection closed by remote host while waiting for association response"));
+
+        assertTrue(this.classifier.isTransient(exception));
+    }
+
+    @Test
+    public void testTransientMessageOfExceptionIsMatched() {
+        assertTrue(this.classifier.isTransient(new OsgpException(ComponentType.PROTOCOL_OSLP,
+                "Failed to receive response within timelimit 60000 ms")));
+    }
+
+    @Test
+    public void testOtherFailuresArePermanent() {
+        assertFalse(this.classifier.isTransient(null));
+        assertFalse(this.classifier.isTransient(
+                new FunctionalException(FunctionalExceptionType.UNKNOWN_DEVICE, ComponentType.OSGP_CORE)));
+        assertFalse(this.classifier.isTransient(new TechnicalException(ComponentType.PROTOCOL_DLMS, "Request failed",
+                new TechnicalException(ComponentType.PROTOCOL_DLMS, "Invalid security key"))));
+    }
+}
@@ -0,0 +1,167 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+
+package com.alliander.osgp.core.application.services;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.internal.util.reflection.Whitebox;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.mockito.stubbing.Answer;
+
+import com.alliander.osgp.domain.core.entities.ScheduledTask;
+import com.alliander.osgp.domain.core.repositories.ScheduledTaskRepository;
+import com.alliander.osgp.domain.core.valueobjects.ScheduledTaskStatusType;
+import com.alliander.osgp.shared.infra.jms.DeviceMessageMetadata;
+
+/**
+ * test class for the claiming of scheduled tasks
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class ScheduledTaskClaimServiceTest {
+
+    private static final DeviceMessageMetadata DEVICE_MESSAGE_DATA = new DeviceMessageMetadata("deviceId",
+            "organisationId", "correlationId", "messageType", 4);
+    private static final long LEASE_TIME = 3600000L;
+    private static final int MAX_RETRY_COUNT = 3;
+
+    @Mock
+    private ScheduledTaskRepository scheduledTaskRepository;
+
+    @InjectMocks
+    private ScheduledTaskClaimService scheduledTaskClaimService;
+
+    private final ScheduledTask scheduledTask = new ScheduledTask(DEVICE_MESSAGE_DATA, "Domain", "1.0",
+            "data object", new Timestamp(System.currentTimeMillis() - 10000));
+
+    @Before
+    public void setUp() {
+        Whitebox.setInternalState(this.scheduledTaskClaimService, "getMaxRetryCount", MAX_RETRY_COUNT);
+        when(this.scheduledTaskRepository.save(anyListOf(ScheduledTask.class)))
+                .thenAnswer(new Answer<List<ScheduledTask>>() {
+                    @SuppressWarnings("unchecked")
+                    @Override
+                    public List<ScheduledTask> answer(final InvocationOnMock invocation) {
+                        return (List<ScheduledTask>) invocation.getArguments()[0];
+                    }
+                });
+    }
+
+    @Test
+    public void testClaimedTasksArePendingWithClaimedTime() {
+        when(this.scheduledTaskRepository.findAndLockByStatusAndScheduledTimeLessThan(
+                eq(ScheduledTaskStatusType.NEW.ordinal()), any(Timestamp.class), anyInt()))
+                .thenReturn(this.tasks(this.scheduledTask));
+        final long before = System.currentTimeMillis();
+
+        final List<ScheduledTask> claimed = this.scheduledTaskClaimService
+                .claimScheduledTasks(ScheduledTaskStatusType.NEW, 10);
+
+        assertEquals(1, claimed.size());
+        assertEquals(ScheduledTaskStatusType.PENDING, claimed.get(0).getStatus());
+        assertNotNull(claimed.get(0).getClaimedTime());
+        assertTrue(claimed.get(0).getClaimedTime().getTime() >= before);
+    }
+
+    @Test
+    public void testExpiredClaimsAreRenewed() {
+        final long claimedBefore = System.currentTimeMillis() - LEASE_TIME - 1;
+        this.scheduledTask.setPending(new Timestamp(claimedBefore - 60000));
+        final ArgumentCaptor<Timestamp> threshold = ArgumentCaptor.forClass(Timestamp.class);
+        when(this.scheduledTaskRepository.findAndLockByStatusAndClaimedTimeLessThan(
+                eq(ScheduledTaskStatusType.PENDING.ordinal()), threshold.capture(), eq(10)))
+                .thenReturn(this.tasks(this.scheduledTask));
+
+        final List<ScheduledTask> reclaimed = this.scheduledTaskClaimService.reclaimExpiredScheduledTasks(LEASE_TIME,
+                10);
+
+        assertTrue("Only claims older than the lease time expire", threshold.getValue().getTime() > claimedBefore);
+        assertTrue(threshold.getValue().getTime() <= System.currentTimeMillis() - LEASE_TIME);
+        assertEquals(1, reclaimed.size());
+        assertTrue(reclaimed.get(0).getClaimedTime().getTime() > claimedBefore + LEASE_TIME);
+        verify(this.scheduledTaskRepository).save(reclaimed);
+    }
+
+    @Test
+    public void testReclaimingCountsAsRetry() {
+        this.expire(this.scheduledTask);
+
+        final List<ScheduledTask> reclaimed = this.scheduledTaskClaimService.reclaimExpiredScheduledTasks(LEASE_TIME,
+                10);
+
+        assertEquals(1, reclaimed.size());
+        assertEquals(1, reclaimed.get(0).getRetry());
+    }
+
+    @Test
+    public void testTaskWithoutResponseFailsAfterMaxRetries() {
+        for (int retry = 1; retry <= MAX_RETRY_COUNT; retry++) {
+            this.expire(this.scheduledTask);
+            assertEquals(1, this.scheduledTaskClaimService.reclaimExpiredScheduledTasks(LEASE_TIME, 10).size());
+            assertEquals(retry, this.scheduledTask.getRetry());
+        }
+
+        this.expire(this.scheduledTask);
+        final List<ScheduledTask> reclaimed = this.scheduledTaskClaimService.reclaimExpiredScheduledTasks(LEASE_TIME,
+                10);
+
+        assertTrue(reclaimed.isEmpty());
+        assertEquals(ScheduledTaskStatusType.FAILED, this.scheduledTask.getStatus());
+        assertEquals(MAX_RETRY_COUNT, this.scheduledTask.getRetry());
+        verify(this.scheduledTaskRepository, times(MAX_RETRY_COUNT + 1)).save(this.tasks(this.scheduledTask));
+    }
+
+    @Test
+    public void testRetryClearsClaimedTime() {
+        this.scheduledTask.setPending(new Timestamp(System.currentTimeMillis()));
+
+        this.scheduledTask.retryOn(new Date());
+
+        assertNull(this.scheduledTask.getClaimedTime());
+    }
+
+    /**
+     * Lets the claim of the task expire, the repository finds it as expired.
+     */
+    private void expire(final ScheduledTask task) {
+        task.setPending(new Timestamp(System.currentTimeMillis() - LEASE_TIME - 60000));
+        when(this.scheduledTaskRepository.findAndLockByStatusAndClaimedTimeLessThan(
+                eq(ScheduledTaskStatusType.PENDING.ordinal()), any(Timestamp.class), anyInt()))
+                .thenReturn(this.tasks(task));
+    }
+
+    private List<ScheduledTask> tasks(final ScheduledTask... scheduledTasks) {
+        final List<ScheduledTask> list = new ArrayList<>();
+        for (final ScheduledTask task : scheduledTasks) {
+            list.add(task);
+        }
+        return list;
+    }
+}
@@ -0,0 +1,240 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.core.application.services;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import javax.persistence.EntityManager;
+
+import org.hibernate.ejb.HibernatePersistence;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.internal.util.reflection.Whitebox;
+import org.springframework.data.jpa.repository.support.JpaRepositoryFactory;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.alliander.osgp.domain.core.entities.ScheduledTask;
+import com.alliander.osgp.domain.core.repositories.ScheduledTaskRepository;
+import com.alliander.osgp.domain.core.valueobjects.ScheduledTaskStatusType;
+import com.alliander.osgp.shared.infra.jms.DeviceMessageMetadata;
+
+/**
+ * Claims scheduled tasks with the {@link ScheduledTaskClaimService} and the
+ * FOR UPDATE SKIP LOCKED queries of the {@link ScheduledTaskRepository} on
+ * PostgreSQL, and checks that two transactions claiming at the same time get
+ * different tasks without waiting for each other, and that a task whose claim
+ * keeps expiring fails after max.retry.count retries.
+ *
+ * SKIP LOCKED needs PostgreSQL 9.5 or later, so this is an integration test.
+ * It runs in the verify phase when the postgresql-tests profile of the parent
+ * is active, which is when osgp.test.postgresql.url (and optionally
+ * osgp.test.postgresql.username and osgp.test.postgresql.password) are set,
+ * for instance:
+ *
+ * <pre>
+ * mvn -pl osgp-core -am -Dosgp.test.postgresql.url=jdbc:postgresql://localhost/osgp_test verify
+ * </pre>
+ *
+ * The tables are created in a schema of their own, the current schema of the
+ * connections, which is dropped afterwards.
+ */
+public class ScheduledTaskClaimingIT {
+
+    private static final String SCHEMA = "scheduled_task_claiming_test";
+
+    private static final int TASKS = 10;
+    private static final int FIRST_BATCH = 6;
+    private static final int MAX_RETRY_COUNT = 2;
+    private static final long LEASE_TIME = 60000;
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    private DriverManagerDataSource dataSource;
+    private LocalContainerEntityManagerFactoryBean entityManagerFactory;
+    private TransactionTemplate transactionTemplate;
+    private ScheduledTaskRepository scheduledTaskRepository;
+    private ScheduledTaskClaimService scheduledTaskClaimService;
+
+    @Before
+    public void createScheduledTasks() throws SQLException {
+        final String url = System.getProperty("osgp.test.postgresql.url");
+        assertNotNull("Expected osgp.test.postgresql.url to be set", url);
+
+        this.dataSource = new DriverManagerDataSource(url, System.getProperty("osgp.test.postgresql.username"),
+                System.getProperty("osgp.test.postgresql.password"));
+        this.dataSource.setDriverClassName("org.postgresql.Driver");
+        final Properties connectionProperties = new Properties();
+        connectionProperties.setProperty("currentSchema", SCHEMA);
+        this.dataSource.setConnectionProperties(connectionProperties);
+        this.execute("DROP SCHEMA IF EXISTS " + SCHEMA + " CASCADE", "CREATE SCHEMA " + SCHEMA);
+
+        final Map<String, Object> properties = new HashMap<>();
+        properties.put("hibernate.dialect", "org.hibernate.dialect.PostgreSQLDialect");
+        properties.put("hibernate.hbm2ddl.auto", "create");
+        properties.put("hibernate.ejb.naming_strategy", "org.hibernate.cfg.ImprovedNamingStrategy");
+
+        this.entityManagerFactory = new LocalContainerEntityManagerFactoryBean();
+        this.entityManagerFactory.setDataSource(this.dataSource);
+        this.entityManagerFactory.setPersistenceProviderClass(HibernatePersistence.class);
+        this.entityManagerFactory.setPackagesToScan("com.alliander.osgp.domain.core.entities");
+        this.entityManagerFactory.setJpaPropertyMap(properties);
+        this.entityManagerFactory.afterPropertiesSet();
+
+        this.transactionTemplate = new TransactionTemplate(
+                new JpaTransactionManager(this.entityManagerFactory.getObject()));
+        final EntityManager entityManager = SharedEntityManagerCreator
+                .createSharedEntityManager(this.entityManagerFactory.getObject());
+        this.scheduledTaskRepository = new JpaRepositoryFactory(entityManager)
+                .getRepository(ScheduledTaskRepository.class);
+
+        this.scheduledTaskClaimService = new ScheduledTaskClaimService();
+        Whitebox.setInternalState(this.scheduledTaskClaimService, "scheduledTaskRepository",
+                this.scheduledTaskRepository);
+        Whitebox.setInternalState(this.scheduledTaskClaimService, "getMaxRetryCount", MAX_RETRY_COUNT);
+
+        final List<ScheduledTask> scheduledTasks = new ArrayList<>();
+        for (int i = 0; i < TASKS; i++) {
+            scheduledTasks.add(new ScheduledTask(new DeviceMessageMetadata("TST-" + i, "test-org",
+                    "correlation-uid-" + i, "GET_STATUS", 4), "CORE", "1.0", "data",
+                    new Timestamp(System.currentTimeMillis() - 10000)));
+        }
+        this.scheduledTaskRepository.save(scheduledTasks);
+    }
+
+    @After
+    public void dropScheduledTasks() throws SQLException {
+        this.executor.shutdownNow();
+        if (this.entityManagerFactory != null) {
+            this.entityManagerFactory.destroy();
+        }
+        if (this.dataSource != null) {
+            this.execute("DROP SCHEMA " + SCHEMA + " CASCADE");
+        }
+    }
+
+    @Test
+    public void testConcurrentClaimsSkipLockedTasks() throws Exception {
+        final CountDownLatch firstClaimed = new CountDownLatch(1);
+        final CountDownLatch secondClaimed = new CountDownLatch(1);
+
+        // The first transaction keeps its tasks locked until the second one
+        // has claimed.
+        final Future<List<ScheduledTask>> first = this.executor.submit(new Callable<List<ScheduledTask>>() {
+            @Override
+            public List<ScheduledTask> call() {
+                return ScheduledTaskClaimingIT.this.claimInTransaction(FIRST_BATCH, firstClaimed, secondClaimed);
+            }
+        });
+        assertTrue(firstClaimed.await(10, TimeUnit.SECONDS));
+
+        final List<ScheduledTask> second = this.claimInTransaction(TASKS, null, null);
+        secondClaimed.countDown();
+
+        final Set<String> claimed = new HashSet<>();
+        for (final ScheduledTask scheduledTask : first.get(10, TimeUnit.SECONDS)) {
+            claimed.add(scheduledTask.getCorrelationId());
+        }
+        assertEquals(FIRST_BATCH, claimed.size());
+        for (final ScheduledTask scheduledTask : second) {
+            assertTrue(scheduledTask.getCorrelationId() + " claimed twice",
+                    claimed.add(scheduledTask.getCorrelationId()));
+        }
+        assertEquals(TASKS, claimed.size());
+        for (final ScheduledTask scheduledTask : this.scheduledTaskRepository.findAll()) {
+            assertEquals(ScheduledTaskStatusType.PENDING, scheduledTask.getStatus());
+        }
+    }
+
+    @Test
+    public void testTaskWhoseClaimKeepsExpiringFails() throws SQLException {
+        this.claimInTransaction(TASKS, null, null);
+
+        for (int retry = 1; retry <= MAX_RETRY_COUNT; retry++) {
+            this.expireClaims();
+            assertEquals(TASKS, this.reclaimInTransaction().size());
+        }
+        this.expireClaims();
+        assertTrue(this.reclaimInTransaction().isEmpty());
+
+        for (final ScheduledTask scheduledTask : this.scheduledTaskRepository.findAll()) {
+            assertEquals(ScheduledTaskStatusType.FAILED, scheduledTask.getStatus());
+            assertEquals(MAX_RETRY_COUNT, scheduledTask.getRetry());
+        }
+    }
+
+    private List<ScheduledTask> claimInTransaction(final int maxResults, final CountDownLatch claimed,
+            final CountDownLatch release) {
+        return this.transactionTemplate.execute(new TransactionCallback<List<ScheduledTask>>() {
+            @Override
+            public List<ScheduledTask> doInTransaction(final TransactionStatus status) {
+                final List<ScheduledTask> scheduledTasks = ScheduledTaskClaimingIT.this.scheduledTaskClaimService
+                        .claimScheduledTasks(ScheduledTaskStatusType.NEW, maxResults);
+                if (claimed != null) {
+                    claimed.countDown();
+                    try {
+                        release.await(10, TimeUnit.SECONDS);
+                    } catch (final InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return scheduledTasks;
+            }
+        });
+    }
+
+    private List<ScheduledTask> reclaimInTransaction() {
+        return this.transactionTemplate.execute(new TransactionCallback<List<ScheduledTask>>() {
+            @Override
+            public List<ScheduledTask> doInTransaction(final TransactionStatus status) {
+                return ScheduledTaskClaimingIT.this.scheduledTaskClaimService.reclaimExpiredScheduledTasks(
+                        LEASE_TIME, TASKS);
+            }
+        });
+    }
+
+    private void expireClaims() throws SQLException {
+        this.execute("UPDATE scheduled_task SET claimed_time = claimed_time - interval '"
+                + 2 * LEASE_TIME + " milliseconds'");
+    }
+
+    private void execute(final String... statements) throws SQLException {
+        try (final Connection connection = this.dataSource.getConnection();
+                final Statement statement = connection.createStatement()) {
+            for (final String sql : statements) {
+                statement.execute(sql);
+            }
+        }
+    }
+}
@@ -8,29 +8,50 @@
 
 package com.alliander.osgp.core.application.tasks;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
 import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.net.InetAddress;
 import java.net.UnknownHostException;
 import java.sql.Timestamp;
+import java.time.Clock;
 import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.Date;
 import java.util.List;
 
+import javax.jms.Message;
+
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.runners.MockitoJUnitRunner;
-import org.springframework.data.domain.Pageable;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.scheduling.TaskScheduler;
 
 import com.alliander.osgp.core.application.config.SchedulingConfig;
 import com.alliander.osgp.core.application.services.DeviceRequestMessageService;
+import com.alliander.osgp.core.application.services.ScheduledTaskClaimService;
+import com.alliander.osgp.core.infra.jms.protocol.ProtocolRequestPriorityPolicy;
 import com.alliander.osgp.domain.core.entities.Device;
+import com.alliander.osgp.domain.core.entities.ProtocolInfo;
 import com.alliander.osgp.domain.core.entities.ScheduledTask;
 import com.alliander.osgp.domain.core.repositories.DeviceRepository;
 import com.alliander.osgp.domain.core.repositories.ScheduledTaskRepository;
@@ -50,6 +71,9 @@ public class ScheduledTaskSchedulerTest {
     @Mock
     private DeviceRequestMessageService deviceRequestMessageService;
 
+    @Mock
+    private ScheduledTaskClaimService scheduledTaskClaimService;
+
     @Mock
     private ScheduledTaskRepository scheduledTaskRepository;
 
@@ -62,6 +86,12 @@ public class ScheduledTaskSchedulerTest {
     @Mock
     private SchedulingConfig schedulingConfig;
 
+    @Mock
+    private TaskScheduler taskScheduler;
+
+    @Spy
+    private AsyncTaskExecutor scheduledTaskExecutor = new TaskExecutorAdapter(new SyncTaskExecutor());
+
     private static final DeviceMessageMetadata DEVICE_MESSAGE_DATA = new DeviceMessageMetadata("deviceId",
             "organisationId", "correlationId", "messageType", 4);
     private static final String DOMAIN = "Domain";
@@ -82,14 +112,12 @@ public class ScheduledTaskSchedulerTest {
                 SCHEDULED_TIME);
         scheduledTasks.add(scheduledTask);
 
-        when(this.scheduledTaskRepository.findByStatusAndScheduledTimeLessThan(any(ScheduledTaskStatusType.class),
-                any(Timestamp.class), any(Pageable.class))).thenReturn(scheduledTasks)
-                        .thenReturn(new ArrayList<ScheduledTask>());
+        when(this.scheduledTaskClaimService.claimScheduledTasks(any(ScheduledTaskStatusType.class), anyInt()))
+                .thenReturn(scheduledTasks).thenReturn(new ArrayList<ScheduledTask>());
 
         final Device device = new Device();
         device.updateRegistrationData(InetAddress.getByName("127.0.0.1"), "deviceType");
         when(this.deviceRepository.findByDeviceIdentification(anyString())).thenReturn(device);
-        when(this.scheduledTaskRepository.save(any(ScheduledTask.class))).thenReturn(scheduledTask);
         when(this.schedulingConfig.scheduledTaskPageSize()).thenReturn(30);
         doThrow(new FunctionalException(FunctionalExceptionType.ARGUMENT_NULL, ComponentType.OSGP_CORE))
                 .when(this.deviceRequestMessageService).processMessage(any(ProtocolRequestMessage.class));
@@ -101,4 +129,160 @@ public class ScheduledTaskSchedulerTest {
 
     }
 
+    /**
+     * Test that claimed tasks are processed on the scheduled task executor
+     * until no more tasks can be claimed.
+     *
+     * @throws FunctionalException
+     * @throws UnknownHostException
+     */
+    @Test
+    public void testRunProcessesClaimedTasksUntilNoneAreDue() throws FunctionalException, UnknownHostException {
+        final List<ScheduledTask> firstPage = new ArrayList<>();
+        firstPage.add(new ScheduledTask(DEVICE_MESSAGE_DATA, DOMAIN, DOMAIN, DATA_OBJECT, SCHEDULED_TIME));
+        firstPage.add(new ScheduledTask(DEVICE_MESSAGE_DATA, DOMAIN, DOMAIN, DATA_OBJECT, SCHEDULED_TIME));
+        final List<ScheduledTask> secondPage = new ArrayList<>();
+        secondPage.add(new ScheduledTask(DEVICE_MESSAGE_DATA, DOMAIN, DOMAIN, DATA_OBJECT, SCHEDULED_TIME));
+
+        when(this.scheduledTaskClaimService.claimScheduledTasks(eq(ScheduledTaskStatusType.NEW), anyInt()))
+                .thenReturn(firstPage).thenReturn(secondPage).thenReturn(new ArrayList<ScheduledTask>());
+        when(this.scheduledTaskClaimService.claimScheduledTasks(eq(ScheduledTaskStatusType.RETRY), anyInt()))
+                .thenReturn(new ArrayList<ScheduledTask>());
+
+        final Device device = new Device();
+        device.updateRegistrationData(InetAddress.getByName("127.0.0.1"), "deviceType");
+        when(this.deviceRepository.findByDeviceIdentification(anyString())).thenReturn(device);
+        when(this.schedulingConfig.scheduledTaskPageSize()).thenReturn(2);
+
+        this.scheduler.run();
+
+        verify(this.scheduledTaskExecutor, times(3)).submit(any(Runnable.class));
+        verify(this.deviceRequestMessageService, times(3)).processMessage(any(ProtocolRequestMessage.class));
+        verify(this.scheduledTaskRepository, never()).delete(any(ScheduledTask.class));
+    }
+
+    /**
+     * Test that the retry of a request of an operator is sent as not scheduled
+     * with the priority of the request, so it does not get the bulk priority
+     * of scheduled requests.
+     *
+     * @throws FunctionalException
+     * @throws UnknownHostException
+     */
+    @Test
+    public void testRetryOfInteractiveRequestKeepsItsPriority() throws FunctionalException, UnknownHostException {
+        final ScheduledTask retry = new ScheduledTask(DEVICE_MESSAGE_DATA, DOMAIN, DOMAIN, DATA_OBJECT,
+                SCHEDULED_TIME, false);
+        retry.retryOn(SCHEDULED_TIME);
+        final List<ScheduledTask> retries = new ArrayList<>();
+        retries.add(retry);
+
+        when(this.scheduledTaskClaimService.claimScheduledTasks(eq(ScheduledTaskStatusType.NEW), anyInt()))
+                .thenReturn(new ArrayList<ScheduledTask>());
+        when(this.scheduledTaskClaimService.claimScheduledTasks(eq(ScheduledTaskStatusType.RETRY), anyInt()))
+                .thenReturn(retries).thenReturn(new ArrayList<ScheduledTask>());
+
+        final Device device = new Device();
+        device.updateRegistrationData(InetAddress.getByName("127.0.0.1"), "deviceType");
+        when(this.deviceRepository.findByDeviceIdentification(anyString())).thenReturn(device);
+        when(this.schedulingConfig.scheduledTaskPageSize()).thenReturn(30);
+
+        this.scheduler.run();
+
+        final ArgumentCaptor<ProtocolRequestMessage> captor = ArgumentCaptor.forClass(ProtocolRequestMessage.class);
+        verify(this.deviceRequestMessageService).processMessage(captor.capture());
+        final ProtocolRequestMessage message = captor.getValue();
+        assertFalse(message.isScheduled());
+        assertEquals(1, message.getRetryCount());
+
+        final ProtocolInfo protocolInfo = mock(ProtocolInfo.class);
+        when(protocolInfo.getKey()).thenReturn("OSLP-1.0");
+        final ProtocolRequestPriorityPolicy policy = new ProtocolRequestPriorityPolicy(2, 20, 20, 100,
+                Clock.systemUTC());
+        assertEquals(Message.DEFAULT_PRIORITY, policy.getPriority(message, protocolInfo));
+    }
+
+    /**
+     * Test that tasks whose claim has expired, because the instance that
+     * claimed them stopped, are processed again.
+     *
+     * @throws FunctionalException
+     * @throws UnknownHostException
+     */
+    @Test
+    public void testRunProcessesExpiredClaims() throws FunctionalException, UnknownHostException {
+        final ScheduledTask expired = new ScheduledTask(DEVICE_MESSAGE_DATA, DOMAIN, DOMAIN, DATA_OBJECT,
+                SCHEDULED_TIME);
+        final List<ScheduledTask> expiredTasks = new ArrayList<>();
+        expiredTasks.add(expired);
+
+        when(this.scheduledTaskClaimService.claimScheduledTasks(any(ScheduledTaskStatusType.class), anyInt()))
+                .thenReturn(new ArrayList<ScheduledTask>());
+        when(this.scheduledTaskClaimService.reclaimExpiredScheduledTasks(3600000L, 30)).thenReturn(expiredTasks)
+                .thenReturn(new ArrayList<ScheduledTask>());
+
+        final Device device = new Device();
+        device.updateRegistrationData(InetAddress.getByName("127.0.0.1"), "deviceType");
+        when(this.deviceRepository.findByDeviceIdentification(anyString())).thenReturn(device);
+        when(this.schedulingConfig.scheduledTaskPageSize()).thenReturn(30);
+        when(this.schedulingConfig.scheduledTaskPendingLeaseTime()).thenReturn(3600000L);
+
+        this.scheduler.run();
+
+        verify(this.deviceRequestMessageService, times(1)).processMessage(any(ProtocolRequestMessage.class));
+        verify(this.scheduledTaskClaimService, times(2)).reclaimExpiredScheduledTasks(3600000L, 30);
+    }
+
+    /**
+     * Test that only the earliest of several near wake ups is scheduled, and
+     * that tasks scheduled beyond the wake up window do not wake up the
+     * scheduler.
+     */
+    @Test
+    public void testWakeUpAt() {
+        when(this.schedulingConfig.scheduledTaskWakeUpWindow()).thenReturn(60000L);
+        final long now = System.currentTimeMillis();
+
+        this.scheduler.wakeUpAt(new Date(now + 10000));
+        this.scheduler.wakeUpAt(new Date(now + 20000));
+        this.scheduler.wakeUpAt(new Date(now + 120000));
+
+        verify(this.taskScheduler, times(1)).schedule(any(Runnable.class), any(Date.class));
+        verify(this.taskScheduler).schedule(this.scheduler, new Date(now + 10001));
+    }
+
+    /**
+     * Test that a retry stored before a restart, and due during it, wakes up
+     * the scheduler when the application has started.
+     */
+    @Test
+    public void testRetriesAreRecoveredOnStartUp() {
+        when(this.schedulingConfig.scheduledTaskWakeUpWindow()).thenReturn(60000L);
+        final long now = System.currentTimeMillis();
+        final ScheduledTask retry = new ScheduledTask(DEVICE_MESSAGE_DATA, DOMAIN, DOMAIN, DATA_OBJECT,
+                new Timestamp(now - 30000));
+        retry.retryOn(new Date(now - 30000));
+        when(this.scheduledTaskRepository.findFirstByStatusOrderByScheduledTimeAsc(ScheduledTaskStatusType.RETRY))
+                .thenReturn(retry);
+
+        this.scheduler.onApplicationEvent(new ContextRefreshedEvent(mock(ApplicationContext.class)));
+
+        verify(this.taskScheduler, times(1)).schedule(eq(this.scheduler), any(Date.class));
+    }
+
+    /**
+     * Test that the refresh of a child context does not look for due tasks
+     * again.
+     */
+    @Test
+    public void testTasksAreRecoveredOnce() {
+        this.scheduler.onApplicationEvent(new ContextRefreshedEvent(mock(ApplicationContext.class)));
+        this.scheduler.onApplicationEvent(new ContextRefreshedEvent(mock(ApplicationContext.class)));
+
+        verify(this.scheduledTaskRepository, times(1))
+                .findFirstByStatusOrderByScheduledTimeAsc(ScheduledTaskStatusType.NEW);
+        verify(this.scheduledTaskRepository, times(1))
+                .findFirstByStatusOrderByScheduledTimeAsc(ScheduledTaskStatusType.RETRY);
+    }
+
 }
@@ -0,0 +1,170 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.core.infra.db;
+
+import static org.junit.Assert.assertEquals;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.alliander.osgp.domain.core.entities.Device;
+import com.alliander.osgp.domain.core.entities.Event;
+import com.alliander.osgp.domain.core.valueobjects.EventType;
+
+/**
+ * Inserts events into an embedded database and counts the statements sent to
+ * it.
+ */
+public class EventBatchWriterTest {
+
+    private static final int NUMBER_OF_EVENTS = 500;
+
+    private final EventBatchWriter eventBatchWriter = new EventBatchWriter();
+
+    private final AtomicInteger statementCount = new AtomicInteger();
+
+    private Connection connection;
+
+    @Before
+    public void createSchema() throws SQLException {
+        this.connection = DriverManager.getConnection("jdbc:h2:mem:events;MODE=PostgreSQL");
+        try (final Statement statement = this.connection.createStatement()) {
+            statement.execute("CREATE SEQUENCE event_id_seq START WITH " + EventBatchWriter.BATCH_SIZE + " INCREMENT BY "
+                    + EventBatchWriter.BATCH_SIZE);
+            statement.execute("CREATE TABLE event (id BIGINT PRIMARY KEY, creation_time TIMESTAMP NOT NULL, "
+                    + "modification_time TIMESTAMP NOT NULL, version BIGINT, description VARCHAR NOT NULL, "
+                    + "event INTEGER NOT NULL, \"index\" INTEGER NOT NULL, device BIGINT, date_time TIMESTAMP NOT NULL)");
+        }
+    }
+
+    @After
+    public void dropSchema() throws SQLException {
+        try (final Statement statement = this.connection.createStatement()) {
+            statement.execute("DROP ALL OBJECTS");
+        }
+        this.connection.close();
+    }
+
+    @Test
+    public void testInsertTakesTwoStatementsPerBatch() throws SQLException {
+        final List<Event> events = this.createEvents(NUMBER_OF_EVENTS);
+
+        this.eventBatchWriter.insert(this.countingConnection(), events);
+
+        // One sequence query and one batch of inserts per 100 events.
+        assertEquals(2 * NUMBER_OF_EVENTS / EventBatchWriter.BATCH_SIZE, this.statementCount.get());
+        assertEquals(NUMBER_OF_EVENTS, this.countRows());
+
+        final Set<Long> ids = new HashSet<>();
+        for (final Event event : events) {
+            ids.add(event.getId());
+        }
+        assertEquals(NUMBER_OF_EVENTS, ids.size());
+    }
+
+    @Test
+    public void testBatchesDoNotReuseIdsTakenByOtherInserts() throws SQLException {
+        final List<Event> first = this.createEvents(1);
+        this.eventBatchWriter.insert(this.connection, first);
+
+        // An insert using the column default, as done by the entity manager.
+        final long otherId;
+        try (final Statement statement = this.connection.createStatement();
+                final ResultSet resultSet = statement.executeQuery("SELECT nextval('event_id_seq')")) {
+            resultSet.next();
+            otherId = resultSet.getLong(1);
+        }
+
+        final List<Event> second = this.createEvents(EventBatchWriter.BATCH_SIZE);
+        this.eventBatchWriter.insert(this.connection, second);
+
+        for (final Event event : second) {
+            if (event.getId() == otherId || event.getId() <= first.get(0).getId()) {
+                throw new AssertionError("Id " + event.getId() + " was already taken");
+            }
+        }
+    }
+
+    private List<Event> createEvents(final int count) {
+        final Device device = new Device("device-1");
+        device.setId(1L);
+
+        final List<Event> events = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            events.add(new Event(device, new Date(), EventType.LIGHT_EVENTS_LIGHT_ON, "event " + i, i % 4));
+        }
+        return events;
+    }
+
+    private int countRows() throws SQLException {
+        try (final Statement statement = this.connection.createStatement();
+                final ResultSet resultSet = statement.executeQuery("SELECT COUNT(*) FROM event")) {
+            resultSet.next();
+            return resultSet.getInt(1);
+        }
+    }
+
+    /**
+     * @return a connection counting every statement executed through it.
+     */
+    private Connection countingConnection() {
+        return (Connection) Proxy.newProxyInstance(this.getClass().getClassLoader(),
+                new Class<?>[] { Connection.class }, new InvocationHandler() {
+                    @Override
+                    public Object invoke(final Object proxy, final Method method, final Object[] args)
+                            throws Throwable {
+                        final Object result = EventBatchWriterTest.invoke(EventBatchWriterTest.this.connection,
+                                method, args);
+                        if (result instanceof PreparedStatement) {
+                            return EventBatchWriterTest.this.countingStatement((PreparedStatement) result);
+                        }
+                        return result;
+                    }
+                });
+    }
+
+    private PreparedStatement countingStatement(final PreparedStatement statement) {
+        return (PreparedStatement) Proxy.newProxyInstance(this.getClass().getClassLoader(),
+                new Class<?>[] { PreparedStatement.class }, new InvocationHandler() {
+                    @Override
+                    public Object invoke(final Object proxy, final Method method, final Object[] args)
+                            throws Throwable {
+                        if (method.getName().startsWith("execute")) {
+                            EventBatchWriterTest.this.statementCount.incrementAndGet();
+                        }
+                        return EventBatchWriterTest.invoke(statement, method, args);
+                    }
+                });
+    }
+
+    private static Object invoke(final Object target, final Method method, final Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (final InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
@@ -0,0 +1,279 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.core.infra.jms.protocol;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.PriorityQueue;
+
+import javax.jms.Message;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.alliander.osgp.domain.core.entities.ProtocolInfo;
+import com.alliander.osgp.shared.infra.jms.DeviceMessageMetadata;
+import com.alliander.osgp.shared.infra.jms.ProtocolRequestMessage;
+
+/**
+ * Sends requests with the priorities of the policy to a simulated protocol
+ * request queue, which delivers messages of a higher priority first, as
+ * ActiveMQ does with prioritizedMessages enabled. The protocol adapter takes
+ * 20 ms per request, so it handles 50 requests per second.
+ */
+public class ProtocolRequestPriorityPolicyTest {
+
+    private static final int BULK_PRIORITY = 2;
+    private static final int DEMOTED_PRIORITY = 3;
+    private static final int EXPEDITED_RATE = 20;
+    private static final int DEMOTED_RATE = 20;
+    private static final int BURST = 100;
+
+    private static final long SERVICE_TIME_MILLIS = 20;
+    private static final int SCHEDULED_REQUESTS = 300000;
+    private static final int SECONDS = 60;
+
+    private final VirtualClock clock = new VirtualClock();
+    private final ProtocolRequestPriorityPolicy policy = new ProtocolRequestPriorityPolicy(BULK_PRIORITY,
+            EXPEDITED_RATE, DEMOTED_RATE, BURST, this.clock);
+
+    private final ProtocolInfo oslp = protocolInfo("OSLP-1.0");
+    private final ProtocolInfo dsmr = protocolInfo("DSMR-4.2.2");
+
+    private final PriorityQueue<QueuedRequest> queue = new PriorityQueue<>();
+    private long sequence;
+
+    private long interactiveHandled;
+    private long maximumInteractiveLatency;
+    private long demotedHandled;
+    private long maximumDemotedLatency;
+    private long scheduledHandled;
+
+    @Before
+    public void setUp() {
+        for (int i = 0; i < SCHEDULED_REQUESTS; i++) {
+            this.send(request(Message.DEFAULT_PRIORITY, true), false);
+        }
+    }
+
+    @Test
+    public void testInteractiveLatencyIsBoundedUnderBulkLoad() {
+        // An operator action every half second.
+        this.run(2);
+
+        assertEquals(SECONDS * 2, this.interactiveHandled);
+        // At most the request being handled and the request itself.
+        assertTrue("Maximum interactive latency " + this.maximumInteractiveLatency + " ms",
+                this.maximumInteractiveLatency <= 2 * SERVICE_TIME_MILLIS);
+        // Queued in order, the first operator action would wait for all
+        // scheduled requests.
+        assertTrue(this.scheduledHandled > SECONDS * 45);
+    }
+
+    @Test
+    public void testDemotedRequestsAreHandledBeforeScheduledRequests() {
+        // Twice the expedited rate, but within the throughput of the protocol
+        // adapter.
+        this.run(40);
+
+        // After the burst, the requests over the expedited rate are demoted,
+        // but do not wait for the scheduled requests.
+        assertTrue("Demoted requests handled " + this.demotedHandled,
+                this.demotedHandled >= (40 - EXPEDITED_RATE) * SECONDS / 2);
+        assertTrue("Maximum demoted latency " + this.maximumDemotedLatency + " ms",
+                this.maximumDemotedLatency <= 2 * SERVICE_TIME_MILLIS);
+        assertTrue("Maximum interactive latency " + this.maximumInteractiveLatency + " ms",
+                this.maximumInteractiveLatency <= 2 * SERVICE_TIME_MILLIS);
+        // The scheduled requests get the remainder of the throughput.
+        assertTrue("Scheduled requests handled " + this.scheduledHandled,
+                this.scheduledHandled >= SECONDS * 1000 / SERVICE_TIME_MILLIS - this.interactiveHandled - 1);
+    }
+
+    @Test
+    public void testScheduledRequestsAreNotStarvedByInteractiveFlood() {
+        // Twice the requests the protocol adapter can handle.
+        this.run(100);
+
+        // The interactive requests get the expedited and the demoted rate
+        // after the bursts, the requests over both rates queue up behind the
+        // scheduled requests, which get the remainder of the throughput.
+        final long interactiveLimit = 2 * BURST + (EXPEDITED_RATE + DEMOTED_RATE) * SECONDS;
+        assertTrue("Interactive requests handled " + this.interactiveHandled,
+                this.interactiveHandled <= interactiveLimit);
+        assertTrue("Scheduled requests handled " + this.scheduledHandled,
+                this.scheduledHandled >= SECONDS * 1000 / SERVICE_TIME_MILLIS - interactiveLimit);
+    }
+
+    @Test
+    public void testRequestsOverBothRatesAreSentAsBulk() {
+        for (int i = 0; i < 2 * BURST; i++) {
+            this.policy.getPriority(request(6, false), this.oslp);
+        }
+        assertEquals(BULK_PRIORITY, this.policy.getPriority(request(6, false), this.oslp));
+
+        this.clock.advance(1000 / DEMOTED_RATE);
+        assertEquals(6, this.policy.getPriority(request(6, false), this.oslp));
+        assertEquals(DEMOTED_PRIORITY, this.policy.getPriority(request(6, false), this.oslp));
+        assertEquals(BULK_PRIORITY, this.policy.getPriority(request(6, false), this.oslp));
+    }
+
+    @Test
+    public void testRequestsWithinTheRateAreHandledBeforeDemotedRequests() {
+        for (int i = 0; i < BURST; i++) {
+            this.policy.getPriority(request(Message.DEFAULT_PRIORITY, false), this.oslp);
+        }
+        this.send(request(Message.DEFAULT_PRIORITY, false), true);
+        this.clock.advance(1000 / EXPEDITED_RATE);
+        this.send(request(Message.DEFAULT_PRIORITY, false), true);
+
+        assertEquals(Message.DEFAULT_PRIORITY, this.queue.poll().priority);
+        assertEquals(DEMOTED_PRIORITY, this.queue.poll().priority);
+        assertEquals(BULK_PRIORITY, this.queue.poll().priority);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBulkPriorityLeavesRoomForDemotedRequests() {
+        new ProtocolRequestPriorityPolicy(Message.DEFAULT_PRIORITY - 1, EXPEDITED_RATE, DEMOTED_RATE, BURST,
+                this.clock);
+    }
+
+    @Test
+    public void testScheduledRequestsWithDefaultPriorityAreSentAsBulk() {
+        assertEquals(BULK_PRIORITY, this.policy.getPriority(request(Message.DEFAULT_PRIORITY, true), this.oslp));
+        assertEquals(Message.DEFAULT_PRIORITY,
+                this.policy.getPriority(request(Message.DEFAULT_PRIORITY, false), this.oslp));
+    }
+
+    @Test
+    public void testRequestedPriorityIsHonoured() {
+        assertEquals(8, this.policy.getPriority(request(8, true), this.oslp));
+        assertEquals(6, this.policy.getPriority(request(6, false), this.oslp));
+        assertEquals(1, this.policy.getPriority(request(1, false), this.oslp));
+    }
+
+    @Test
+    public void testExpeditedRateIsPerProtocol() {
+        for (int i = 0; i < BURST; i++) {
+            assertEquals(6, this.policy.getPriority(request(6, false), this.oslp));
+        }
+        assertEquals(DEMOTED_PRIORITY, this.policy.getPriority(request(6, false), this.oslp));
+        assertEquals(6, this.policy.getPriority(request(6, false), this.dsmr));
+
+        this.clock.advance(1000 / EXPEDITED_RATE);
+        assertEquals(6, this.policy.getPriority(request(6, false), this.oslp));
+    }
+
+    /**
+     * Runs the protocol adapter for a minute, while operators send requests
+     * with the default priority.
+     */
+    private void run(final int interactivePerSecond) {
+        final long interval = 1000 / interactivePerSecond;
+        long busyUntil = 0;
+        for (long now = 0; now < SECONDS * 1000; now++) {
+            this.clock.set(now);
+            if (now % interval == 0) {
+                this.send(request(Message.DEFAULT_PRIORITY, false), true);
+            }
+            if (now >= busyUntil && !this.queue.isEmpty()) {
+                final QueuedRequest handled = this.queue.poll();
+                busyUntil = now + SERVICE_TIME_MILLIS;
+                if (handled.interactive) {
+                    this.interactiveHandled++;
+                    this.maximumInteractiveLatency = Math.max(this.maximumInteractiveLatency,
+                            busyUntil - handled.sent);
+                    if (handled.priority == DEMOTED_PRIORITY) {
+                        this.demotedHandled++;
+                        this.maximumDemotedLatency = Math.max(this.maximumDemotedLatency, busyUntil - handled.sent);
+                    }
+                } else {
+                    this.scheduledHandled++;
+                }
+            }
+        }
+    }
+
+    private void send(final ProtocolRequestMessage request, final boolean interactive) {
+        this.queue.add(new QueuedRequest(this.policy.getPriority(request, this.oslp), this.sequence++,
+                this.clock.millis(), interactive));
+    }
+
+    private static ProtocolRequestMessage request(final int priority, final boolean scheduled) {
+        final DeviceMessageMetadata deviceMessageMetadata = new DeviceMessageMetadata("TST0000001", "test-org",
+                "correlation-uid", "GET_STATUS", priority);
+        return new ProtocolRequestMessage.Builder().deviceMessageMetadata(deviceMessageMetadata).domain("CORE")
+                .domainVersion("1.0").request("request").scheduled(scheduled).build();
+    }
+
+    private static ProtocolInfo protocolInfo(final String key) {
+        final ProtocolInfo protocolInfo = mock(ProtocolInfo.class);
+        when(protocolInfo.getKey()).thenReturn(key);
+        return protocolInfo;
+    }
+
+    private static class QueuedRequest implements Comparable<QueuedRequest> {
+        private final int priority;
+        private final long sequence;
+        private final long sent;
+        private final boolean interactive;
+
+        QueuedRequest(final int priority, final long sequence, final long sent, final boolean interactive) {
+            this.priority = priority;
+            this.sequence = sequence;
+            this.sent = sent;
+            this.interactive = interactive;
+        }
+
+        @Override
+        public int compareTo(final QueuedRequest other) {
+            if (this.priority != other.priority) {
+                return Integer.compare(other.priority, this.priority);
+            }
+            return Long.compare(this.sequence, other.sequence);
+        }
+    }
+
+    private static class VirtualClock extends Clock {
+        private long millis;
+
+        void set(final long millis) {
+            this.millis = millis;
+        }
+
+        void advance(final long millis) {
+            this.millis += millis;
+        }
+
+        @Override
+        public long millis() {
+            return this.millis;
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(this.millis);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(final ZoneId zone) {
+            return this;
+        }
+    }
+}
@@ -3,6 +3,7 @@ package com.alliander.osgp.core.infra.jms.protocol.in.messageprocessors;
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -16,10 +17,11 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
 
+import com.alliander.osgp.core.application.cache.FirmwareFileCache;
 import com.alliander.osgp.core.infra.jms.protocol.in.ProtocolResponseMessageSender;
 import com.alliander.osgp.domain.core.entities.Device;
-import com.alliander.osgp.domain.core.entities.FirmwareFile;
 import com.alliander.osgp.domain.core.entities.ProtocolInfo;
 import com.alliander.osgp.domain.core.repositories.DeviceRepository;
 import com.alliander.osgp.domain.core.repositories.FirmwareFileRepository;
@@ -29,6 +31,7 @@ import com.alliander.osgp.shared.infra.jms.MessageMetadata;
 import com.alliander.osgp.shared.infra.jms.ObjectMessageBuilder;
 import com.alliander.osgp.shared.infra.jms.ProtocolResponseMessage;
 import com.alliander.osgp.shared.infra.jms.RequestMessage;
+import com.alliander.osgp.shared.infra.jms.ResponseMessageResultType;
 
 public class GetFirmwareFileMessageProcessorTest {
 
@@ -44,8 +47,8 @@ public class GetFirmwareFileMessageProcessorTest {
     @Mock
     private Device deviceMock;
 
-    @Mock
-    private FirmwareFile firmwareFileMock;
+    @Spy
+    private FirmwareFileCache firmwareFileCache = new FirmwareFileCache(1024);
 
     @InjectMocks
     private GetFirmwareFileMessageProcessor getFirmwareFileMessageProcessor;
@@ -74,9 +77,9 @@ public class GetFirmwareFileMessageProcessorTest {
         when(this.deviceMock.getDeviceIdentification()).thenReturn(deviceIdentification);
         when(this.deviceRepository.findByDeviceIdentification(deviceIdentification)).thenReturn(this.deviceMock);
 
-        when(this.firmwareFileMock.getFilename()).thenReturn(firmwareFileIdentification);
-        when(this.firmwareFileMock.getFile()).thenReturn(firmwareFileBytes);
-        when(this.firmwareFileRepository.findByIdentification(firmwareFileIdentification)).thenReturn(this.firmwareFileMock);
+        when(this.firmwareFileRepository.findHashByIdentification(firmwareFileIdentification)).thenReturn("hash");
+        when(this.firmwareFileRepository.findFileByIdentification(firmwareFileIdentification))
+                .thenReturn(firmwareFileBytes);
 
         final byte[] expectedFile = firmwareFileBytes;
         final String expectedMessageType = DeviceFunction.GET_FIRMWARE_FILE.name();
@@ -101,4 +104,59 @@ public class GetFirmwareFileMessageProcessorTest {
 
     }
 
+    @Test
+    public void processMessageShouldReadFirmwareFileFromDatabaseOnce() throws JMSException {
+        // arrange
+        final String firmwareFileIdentification = "fw";
+        final byte[] firmwareFileBytes = firmwareFileIdentification.getBytes();
+
+        when(this.deviceRepository.findByDeviceIdentification(any(String.class))).thenReturn(this.deviceMock);
+        when(this.firmwareFileRepository.findHashByIdentification(firmwareFileIdentification)).thenReturn("hash");
+        when(this.firmwareFileRepository.findFileByIdentification(firmwareFileIdentification))
+                .thenReturn(firmwareFileBytes);
+
+        // act
+        for (int i = 0; i < 10; i++) {
+            this.getFirmwareFileMessageProcessor.processMessage(this.getFirmwareFileMessage("dvc-" + i,
+                    firmwareFileIdentification));
+        }
+
+        // assert
+        verify(this.protocolResponseMessageSender, times(10)).send(any(ProtocolResponseMessage.class),
+                any(String.class), any(ProtocolInfo.class), any(MessageMetadata.class));
+        verify(this.firmwareFileRepository, times(1)).findFileByIdentification(firmwareFileIdentification);
+        verify(this.firmwareFileRepository, never()).findByIdentification(any(String.class));
+    }
+
+    @Test
+    public void processMessageShouldSendFailureForUnknownFirmwareFile() throws JMSException {
+        // arrange
+        final String firmwareFileIdentification = "unknown";
+
+        when(this.deviceRepository.findByDeviceIdentification("dvc-1")).thenReturn(this.deviceMock);
+        when(this.firmwareFileRepository.countByIdentification(firmwareFileIdentification)).thenReturn(0L);
+
+        final ArgumentCaptor<ProtocolResponseMessage> responseMessageArgumentCaptor = ArgumentCaptor
+                .forClass(ProtocolResponseMessage.class);
+
+        // act
+        this.getFirmwareFileMessageProcessor
+                .processMessage(this.getFirmwareFileMessage("dvc-1", firmwareFileIdentification));
+
+        // assert
+        verify(this.protocolResponseMessageSender, times(1)).send(responseMessageArgumentCaptor.capture(),
+                any(String.class), any(ProtocolInfo.class), any(MessageMetadata.class));
+
+        assertEquals(ResponseMessageResultType.NOT_OK, responseMessageArgumentCaptor.getValue().getResult());
+    }
+
+    private ObjectMessage getFirmwareFileMessage(final String deviceIdentification,
+            final String firmwareFileIdentification) throws JMSException {
+        final RequestMessage requestMessage = new RequestMessage("corr-uid-" + deviceIdentification, "test-org",
+                deviceIdentification, firmwareFileIdentification);
+        return new ObjectMessageBuilder().withCorrelationUid("corr-uid-" + deviceIdentification)
+                .withMessageType(DeviceFunction.GET_FIRMWARE_FILE.name()).withDeviceIdentification(deviceIdentification)
+                .withObject(requestMessage).build();
+    }
+
 }
@@ -0,0 +1,805 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.domain.core.codec;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.alliander.osgp.domain.core.exceptions.MessageCodecException;
+
+/**
+ * Compact, schema based binary codec for message payloads.
+ *
+ * Every value is written with a one byte type tag. Value objects are written
+ * as their class name and field names once per message (the schema), followed
+ * by the field values in schema order for every instance. Integers use a
+ * variable length encoding, and shared or cyclic references are written as
+ * back references.
+ *
+ * Fields are matched by name when decoding, so fields that were added to or
+ * removed from a class since the sender was built are skipped or keep their
+ * default value. The format version is written in the header of each payload.
+ *
+ * Values that cannot be written field by field, like classes with custom
+ * serialization methods, classes without a no argument constructor or a
+ * constructor taking all fields, or classes from the JDK other than the
+ * supported collections, are embedded using Java serialization.
+ *
+ * Payloads can be sent by any JMS producer. Decoding only loads
+ * {@link TrustedClasses}, and only instantiates objects through their
+ * constructors.
+ */
+public class CompactBinaryMessageCodec implements MessageCodec {
+
+    public static final String NAME = "compact-v1";
+
+    static final int MAGIC = 0x4F43;
+    private static final int FORMAT_VERSION = 1;
+
+    private static final int TAG_NULL = 0;
+    private static final int TAG_TRUE = 1;
+    private static final int TAG_FALSE = 2;
+    private static final int TAG_BYTE = 3;
+    private static final int TAG_SHORT = 4;
+    private static final int TAG_INT = 5;
+    private static final int TAG_LONG = 6;
+    private static final int TAG_FLOAT = 7;
+    private static final int TAG_DOUBLE = 8;
+    private static final int TAG_CHAR = 9;
+    private static final int TAG_STRING = 10;
+    private static final int TAG_BIG_DECIMAL = 11;
+    private static final int TAG_BIG_INTEGER = 12;
+    private static final int TAG_DATE = 13;
+    private static final int TAG_ENUM = 14;
+    private static final int TAG_BYTE_ARRAY = 15;
+    private static final int TAG_ARRAY = 16;
+    private static final int TAG_COLLECTION = 17;
+    private static final int TAG_MAP = 18;
+    private static final int TAG_ENUM_SET = 19;
+    private static final int TAG_OBJECT = 20;
+    private static final int TAG_REFERENCE = 21;
+    private static final int TAG_SERIALIZED = 22;
+
+    private static final String OSGP_PACKAGE = "com.alliander.osgp.";
+
+    private static final List<Class<?>> SUPPORTED_COLLECTIONS = Arrays.<Class<?>> asList(ArrayList.class,
+            LinkedList.class, HashSet.class, LinkedHashSet.class, TreeSet.class);
+
+    private static final List<Class<?>> SUPPORTED_MAPS = Arrays.<Class<?>> asList(HashMap.class,
+            LinkedHashMap.class, TreeMap.class, ConcurrentHashMap.class);
+
+    private static final ConcurrentMap<Class<?>, ClassSchema> SCHEMAS = new ConcurrentHashMap<>();
+
+    private static final ConcurrentMap<Class<?>, Boolean> WRITABLE_FIELD_BY_FIELD = new ConcurrentHashMap<>();
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public byte[] encode(final Serializable payload) throws MessageCodecException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try {
+            final Encoder encoder = new Encoder(new DataOutputStream(bytes));
+            encoder.out.writeShort(MAGIC);
+            encoder.out.writeByte(FORMAT_VERSION);
+            encoder.writeValue(payload);
+            encoder.out.flush();
+        } catch (final IOException | ReflectiveOperationException e) {
+            throw new MessageCodecException("Unable to encode " + payload.getClass().getName(), e);
+        }
+        return bytes.toByteArray();
+    }
+
+    @Override
+    public Serializable decode(final byte[] bytes) throws MessageCodecException {
+        try {
+            final Decoder decoder = new Decoder(new DataInputStream(new ByteArrayInputStream(bytes)));
+            if (decoder.in.readUnsignedShort() != MAGIC) {
+                throw new MessageCodecException("Payload is not encoded with codec " + NAME);
+            }
+            final int version = decoder.in.readUnsignedByte();
+            if (version > FORMAT_VERSION) {
+                throw new MessageCodecException("Unsupported format version " + version + " for codec " + NAME);
+            }
+            return (Serializable) decoder.readValue();
+        } catch (final IOException | ReflectiveOperationException | ClassCastException
+                | IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new MessageCodecException("Unable to decode payload", e);
+        }
+    }
+
+    private static ClassSchema schemaFor(final Class<?> type) {
+        ClassSchema schema = SCHEMAS.get(type);
+        if (schema == null) {
+            schema = new ClassSchema(type);
+            SCHEMAS.putIfAbsent(type, schema);
+        }
+        return schema;
+    }
+
+    /**
+     * Returns true if the object can be written field by field. Only classes
+     * of the platform that can be instantiated through a constructor are
+     * written field by field. Objects of classes that take care of their own
+     * serialization, and classes from the JDK (whose fields cannot be accessed
+     * reflectively on all Java versions) are embedded using Java serialization
+     * instead.
+     */
+    private static boolean isWritableFieldByField(final Class<?> type) {
+        Boolean writable = WRITABLE_FIELD_BY_FIELD.get(type);
+        if (writable == null) {
+            writable = determineWritableFieldByField(type);
+            WRITABLE_FIELD_BY_FIELD.putIfAbsent(type, writable);
+        }
+        return writable;
+    }
+
+    private static boolean determineWritableFieldByField(final Class<?> type) {
+        if (!Serializable.class.isAssignableFrom(type) || Externalizable.class.isAssignableFrom(type)
+                || Proxy.isProxyClass(type) || !type.getName().startsWith(OSGP_PACKAGE) || type.isInterface()
+                || Modifier.isAbstract(type.getModifiers())) {
+            return false;
+        }
+        for (Class<?> current = type; current != null
+                && Serializable.class.isAssignableFrom(current); current = current.getSuperclass()) {
+            if (declaresMethod(current, "writeObject", ObjectOutputStream.class)
+                    || declaresMethod(current, "readObject", ObjectInputStream.class)
+                    || declaresMethod(current, "writeReplace") || declaresMethod(current, "readResolve")) {
+                return false;
+            }
+        }
+        return schemaFor(type).isInstantiable();
+    }
+
+    private static boolean declaresMethod(final Class<?> type, final String name, final Class<?>... parameterTypes) {
+        try {
+            type.getDeclaredMethod(name, parameterTypes);
+            return true;
+        } catch (final NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    private static class Encoder {
+        private final DataOutputStream out;
+        private final Map<Class<?>, Integer> classes = new HashMap<>();
+        private final Map<Class<?>, Integer> schemas = new HashMap<>();
+        private final Map<Object, Integer> references = new IdentityHashMap<>();
+
+        Encoder(final DataOutputStream out) {
+            this.out = out;
+        }
+
+        void writeValue(final Object value) throws IOException, ReflectiveOperationException {
+            if (value == null) {
+                this.out.writeByte(TAG_NULL);
+            } else if (value instanceof Boolean) {
+                this.out.writeByte((Boolean) value ? TAG_TRUE : TAG_FALSE);
+            } else if (value instanceof Byte) {
+                this.out.writeByte(TAG_BYTE);
+                this.out.writeByte((Byte) value);
+            } else if (value instanceof Short) {
+                this.out.writeByte(TAG_SHORT);
+                this.writeVarLong((Short) value);
+            } else if (value instanceof Integer) {
+                this.out.writeByte(TAG_INT);
+                this.writeVarLong((Integer) value);
+            } else if (value instanceof Long) {
+                this.out.writeByte(TAG_LONG);
+                this.writeVarLong((Long) value);
+            } else if (value instanceof Float) {
+                this.out.writeByte(TAG_FLOAT);
+                this.out.writeFloat((Float) value);
+            } else if (value instanceof Double) {
+                this.out.writeByte(TAG_DOUBLE);
+                this.out.writeDouble((Double) value);
+            } else if (value instanceof Character) {
+                this.out.writeByte(TAG_CHAR);
+                this.out.writeChar((Character) value);
+            } else if (value instanceof String) {
+                this.out.writeByte(TAG_STRING);
+                this.writeString((String) value);
+            } else if (value instanceof Enum) {
+                this.out.writeByte(TAG_ENUM);
+                this.writeClass(((Enum<?>) value).getDeclaringClass());
+                this.writeString(((Enum<?>) value).name());
+            } else if (this.writeReference(value)) {
+                return;
+            } else {
+                this.writeReferenceable(value);
+            }
+        }
+
+        /**
+         * Writes a back reference if the object was written before, otherwise
+         * registers the object so later occurrences can refer to it.
+         */
+        private boolean writeReference(final Object value) throws IOException {
+            final Integer reference = this.references.get(value);
+            if (reference != null) {
+                this.out.writeByte(TAG_REFERENCE);
+                this.writeVarInt(reference);
+                return true;
+            }
+            this.references.put(value, this.references.size());
+            return false;
+        }
+
+        private void writeReferenceable(final Object value) throws IOException, ReflectiveOperationException {
+            final Class<?> type = value.getClass();
+            if (type == BigDecimal.class) {
+                this.out.writeByte(TAG_BIG_DECIMAL);
+                this.writeString(value.toString());
+            } else if (type == BigInteger.class) {
+                this.out.writeByte(TAG_BIG_INTEGER);
+                this.writeBytes(((BigInteger) value).toByteArray());
+            } else if (type == Date.class) {
+                this.out.writeByte(TAG_DATE);
+                this.writeVarLong(((Date) value).getTime());
+            } else if (type == byte[].class) {
+                this.out.writeByte(TAG_BYTE_ARRAY);
+                this.writeBytes((byte[]) value);
+            } else if (type.isArray()) {
+                this.writeArray(value);
+            } else if (value instanceof EnumSet && this.isEnumSetWithKnownType((EnumSet<?>) value)) {
+                this.writeEnumSet((EnumSet<?>) value);
+            } else if (SUPPORTED_COLLECTIONS.contains(type)
+                    && !(value instanceof SortedSet && ((SortedSet<?>) value).comparator() != null)) {
+                this.out.writeByte(TAG_COLLECTION);
+                this.writeClass(type);
+                final Collection<?> collection = (Collection<?>) value;
+                this.writeVarInt(collection.size());
+                for (final Object element : collection) {
+                    this.writeValue(element);
+                }
+            } else if (SUPPORTED_MAPS.contains(type)
+                    && !(value instanceof SortedMap && ((SortedMap<?, ?>) value).comparator() != null)) {
+                this.out.writeByte(TAG_MAP);
+                this.writeClass(type);
+                final Map<?, ?> map = (Map<?, ?>) value;
+                this.writeVarInt(map.size());
+                for (final Map.Entry<?, ?> entry : map.entrySet()) {
+                    this.writeValue(entry.getKey());
+                    this.writeValue(entry.getValue());
+                }
+            } else if (isWritableFieldByField(type)) {
+                this.writeObject(value);
+            } else {
+                this.out.writeByte(TAG_SERIALIZED);
+                final ByteArrayOutputStream serialized = new ByteArrayOutputStream();
+                try (final ObjectOutputStream objectOut = new ObjectOutputStream(serialized)) {
+                    objectOut.writeObject(value);
+                }
+                this.writeBytes(serialized.toByteArray());
+            }
+        }
+
+        private void writeArray(final Object array) throws IOException, ReflectiveOperationException {
+            this.out.writeByte(TAG_ARRAY);
+            this.writeClass(array.getClass().getComponentType());
+            final int length = Array.getLength(array);
+            this.writeVarInt(length);
+            for (int i = 0; i < length; i++) {
+                this.writeValue(Array.get(array, i));
+            }
+        }
+
+        private boolean isEnumSetWithKnownType(final EnumSet<?> enumSet) {
+            return !enumSet.isEmpty() || !EnumSet.complementOf(enumSet).isEmpty();
+        }
+
+        private void writeEnumSet(final EnumSet<?> enumSet) throws IOException {
+            this.out.writeByte(TAG_ENUM_SET);
+            final Enum<?> sample = enumSet.isEmpty() ? EnumSet.complementOf(enumSet).iterator().next()
+                    : enumSet.iterator().next();
+            this.writeClass(sample.getDeclaringClass());
+            this.writeVarInt(enumSet.size());
+            for (final Enum<?> element : enumSet) {
+                this.writeString(element.name());
+            }
+        }
+
+        private void writeObject(final Object value) throws IOException, ReflectiveOperationException {
+            this.out.writeByte(TAG_OBJECT);
+            final ClassSchema schema = schemaFor(value.getClass());
+            final Integer index = this.schemas.get(value.getClass());
+            if (index == null) {
+                this.writeVarInt(this.schemas.size());
+                this.schemas.put(value.getClass(), this.schemas.size());
+                this.writeClass(value.getClass());
+                this.writeVarInt(schema.fields.length);
+                for (final String name : schema.names) {
+                    this.writeString(name);
+                }
+            } else {
+                this.writeVarInt(index);
+            }
+            for (final Field field : schema.fields) {
+                this.writeValue(field.get(value));
+            }
+        }
+
+        private void writeClass(final Class<?> type) throws IOException {
+            final Integer index = this.classes.get(type);
+            if (index == null) {
+                this.writeVarInt(this.classes.size());
+                this.classes.put(type, this.classes.size());
+                this.writeString(type.getName());
+            } else {
+                this.writeVarInt(index);
+            }
+        }
+
+        private void writeString(final String value) throws IOException {
+            this.writeBytes(value.getBytes(StandardCharsets.UTF_8));
+        }
+
+        private void writeBytes(final byte[] value) throws IOException {
+            this.writeVarInt(value.length);
+            this.out.write(value);
+        }
+
+        private void writeVarInt(final int value) throws IOException {
+            int remaining = value;
+            while ((remaining & ~0x7F) != 0) {
+                this.out.writeByte((remaining & 0x7F) | 0x80);
+                remaining >>>= 7;
+            }
+            this.out.writeByte(remaining);
+        }
+
+        private void writeVarLong(final long value) throws IOException {
+            long remaining = (value << 1) ^ (value >> 63);
+            while ((remaining & ~0x7FL) != 0) {
+                this.out.writeByte((int) ((remaining & 0x7F) | 0x80));
+                remaining >>>= 7;
+            }
+            this.out.writeByte((int) remaining);
+        }
+    }
+
+    private static class Decoder {
+        private final DataInputStream in;
+        private final List<Class<?>> classes = new ArrayList<>();
+        private final List<RemoteSchema> schemas = new ArrayList<>();
+        private final List<Object> references = new ArrayList<>();
+
+        /**
+         * Placeholder for an object whose field values are being read before
+         * it is constructed.
+         */
+        private static final Object UNDER_CONSTRUCTION = new Object();
+
+        Decoder(final DataInputStream in) {
+            this.in = in;
+        }
+
+        Object readValue() throws IOException, ReflectiveOperationException {
+            final int tag = this.in.readUnsignedByte();
+            switch (tag) {
+            case TAG_NULL:
+                return null;
+            case TAG_TRUE:
+                return Boolean.TRUE;
+            case TAG_FALSE:
+                return Boolean.FALSE;
+            case TAG_BYTE:
+                return this.in.readByte();
+            case TAG_SHORT:
+                return (short) this.readVarLong();
+            case TAG_INT:
+                return (int) this.readVarLong();
+            case TAG_LONG:
+                return this.readVarLong();
+            case TAG_FLOAT:
+                return this.in.readFloat();
+            case TAG_DOUBLE:
+                return this.in.readDouble();
+            case TAG_CHAR:
+                return this.in.readChar();
+            case TAG_STRING:
+                return this.readString();
+            case TAG_ENUM:
+                return this.readEnum(this.readClass(), this.readString());
+            case TAG_REFERENCE:
+                return this.readReference();
+            case TAG_BIG_DECIMAL:
+                return this.register(new BigDecimal(this.readString()));
+            case TAG_BIG_INTEGER:
+                return this.register(new BigInteger(this.readBytes()));
+            case TAG_DATE:
+                return this.register(new Date(this.readVarLong()));
+            case TAG_BYTE_ARRAY:
+                return this.register(this.readBytes());
+            case TAG_ARRAY:
+                return this.readArray();
+            case TAG_ENUM_SET:
+                return this.readEnumSet();
+            case TAG_COLLECTION:
+                return this.readCollection();
+            case TAG_MAP:
+                return this.readMap();
+            case TAG_OBJECT:
+                return this.readObject();
+            case TAG_SERIALIZED:
+                return this.register(this.readSerialized());
+            default:
+                throw new IOException("Unknown type tag " + tag);
+            }
+        }
+
+        private Object register(final Object value) {
+            this.references.add(value);
+            return value;
+        }
+
+        private Object readReference() throws IOException {
+            final int index = this.readVarInt();
+            if (index >= this.references.size() || this.references.get(index) == UNDER_CONSTRUCTION) {
+                throw new IOException("Invalid back reference " + index);
+            }
+            return this.references.get(index);
+        }
+
+        @SuppressWarnings({ "unchecked", "rawtypes" })
+        private Object readEnum(final Class<?> type, final String name) throws IOException {
+            if (!type.isEnum()) {
+                throw new IOException(type.getName() + " is not an enum");
+            }
+            return Enum.valueOf((Class<? extends Enum>) type, name);
+        }
+
+        private Object readArray() throws IOException, ReflectiveOperationException {
+            final Class<?> componentType = this.readClass();
+            final int length = this.readSize();
+            final Object array = this.register(Array.newInstance(componentType, length));
+            for (int i = 0; i < length; i++) {
+                Array.set(array, i, this.readValue());
+            }
+            return array;
+        }
+
+        @SuppressWarnings({ "unchecked", "rawtypes" })
+        private Object readEnumSet() throws IOException, ReflectiveOperationException {
+            final Class type = this.readClass();
+            if (!type.isEnum()) {
+                throw new IOException(type.getName() + " is not an enum");
+            }
+            final EnumSet enumSet = EnumSet.noneOf(type);
+            final int size = this.readSize();
+            for (int i = 0; i < size; i++) {
+                enumSet.add(Enum.valueOf(type, this.readString()));
+            }
+            return this.register(enumSet);
+        }
+
+        @SuppressWarnings("unchecked")
+        private Object readCollection() throws IOException, ReflectiveOperationException {
+            final Class<?> type = this.readClass();
+            if (!SUPPORTED_COLLECTIONS.contains(type)) {
+                throw new IOException("Unsupported collection type " + type.getName());
+            }
+            final Collection<Object> collection = (Collection<Object>) this.register(type.newInstance());
+            final int size = this.readSize();
+            for (int i = 0; i < size; i++) {
+                collection.add(this.readValue());
+            }
+            return collection;
+        }
+
+        @SuppressWarnings("unchecked")
+        private Object readMap() throws IOException, ReflectiveOperationException {
+            final Class<?> type = this.readClass();
+            if (!SUPPORTED_MAPS.contains(type)) {
+                throw new IOException("Unsupported map type " + type.getName());
+            }
+            final Map<Object, Object> map = (Map<Object, Object>) this.register(type.newInstance());
+            final int size = this.readSize();
+            for (int i = 0; i < size; i++) {
+                final Object key = this.readValue();
+                map.put(key, this.readValue());
+            }
+            return map;
+        }
+
+        private Object readObject() throws IOException, ReflectiveOperationException {
+            final int index = this.readVarInt();
+            final RemoteSchema schema;
+            if (index == this.schemas.size()) {
+                final Class<?> type = this.readClass();
+                if (!isWritableFieldByField(type)) {
+                    throw new IOException("Class " + type.getName() + " can not be decoded field by field");
+                }
+                final String[] names = new String[this.readSize()];
+                for (int i = 0; i < names.length; i++) {
+                    names[i] = this.readString();
+                }
+                schema = new RemoteSchema(schemaFor(type), names);
+                this.schemas.add(schema);
+            } else if (index < this.schemas.size()) {
+                schema = this.schemas.get(index);
+            } else {
+                throw new IOException("Invalid schema reference " + index);
+            }
+
+            if (schema.local.noArgConstructor != null) {
+                final Object value = this.register(schema.local.noArgConstructor.newInstance());
+                for (final Field field : schema.fields) {
+                    final Object fieldValue = this.readValue();
+                    if (field != null) {
+                        field.set(value, fieldValue);
+                    }
+                }
+                return value;
+            }
+
+            // The constructor needs the field values, so they are read before
+            // the object exists. Back references to it are not possible.
+            final int reference = this.references.size();
+            this.register(UNDER_CONSTRUCTION);
+            final Map<Field, Object> fieldValues = new HashMap<>();
+            for (final Field field : schema.fields) {
+                final Object fieldValue = this.readValue();
+                if (field != null) {
+                    fieldValues.put(field, fieldValue);
+                }
+            }
+            final Object value = schema.local.newInstance(fieldValues);
+            this.references.set(reference, value);
+            return value;
+        }
+
+        private Object readSerialized() throws IOException, ClassNotFoundException {
+            try (final ObjectInputStream objectIn = new TrustedObjectInputStream(
+                    new ByteArrayInputStream(this.readBytes()))) {
+                return objectIn.readObject();
+            }
+        }
+
+        private Class<?> readClass() throws IOException, ClassNotFoundException {
+            final int index = this.readVarInt();
+            if (index < this.classes.size()) {
+                return this.classes.get(index);
+            }
+            final Class<?> type = TrustedClasses.forName(this.readString());
+            this.classes.add(type);
+            return type;
+        }
+
+        private String readString() throws IOException {
+            return new String(this.readBytes(), StandardCharsets.UTF_8);
+        }
+
+        private byte[] readBytes() throws IOException {
+            final byte[] bytes = new byte[this.readSize()];
+            this.in.readFully(bytes);
+            return bytes;
+        }
+
+        /**
+         * Reads the number of elements or bytes that follow. Every element
+         * takes at least one byte, so a size beyond the end of the payload is
+         * rejected before anything is allocated for it.
+         */
+        private int readSize() throws IOException {
+            final int size = this.readVarInt();
+            if (size < 0 || size > this.in.available()) {
+                throw new IOException("Invalid size " + size + " with " + this.in.available() + " bytes left");
+            }
+            return size;
+        }
+
+        private int readVarInt() throws IOException {
+            int value = 0;
+            int shift = 0;
+            int b;
+            do {
+                b = this.in.readUnsignedByte();
+                value |= (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            return value;
+        }
+
+        private long readVarLong() throws IOException {
+            long value = 0;
+            int shift = 0;
+            int b;
+            do {
+                b = this.in.readUnsignedByte();
+                value |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            return (value >>> 1) ^ -(value & 1);
+        }
+    }
+
+    /**
+     * The serializable fields of a class, including inherited ones, in a fixed
+     * order. A field name is qualified with the simple name of its declaring
+     * class when a superclass declares a field with the same name.
+     *
+     * Instances are created with the no argument constructor of the class if
+     * it has one, otherwise with a constructor taking all fields. Its
+     * parameters are matched to the fields by type, in declaration order.
+     * Either way all fields are set afterwards, by name.
+     */
+    private static class ClassSchema {
+        private final Field[] fields;
+        private final String[] names;
+        private final Map<String, Field> fieldsByName = new HashMap<>();
+        private final Constructor<?> noArgConstructor;
+        private final Constructor<?> fieldsConstructor;
+        private final Field[] constructorFields;
+
+        ClassSchema(final Class<?> type) {
+            final List<Class<?>> hierarchy = new ArrayList<>();
+            Class<?> current = type;
+            while (current != null && Serializable.class.isAssignableFrom(current)) {
+                hierarchy.add(0, current);
+                current = current.getSuperclass();
+            }
+
+            final List<Field> declarationOrder = new ArrayList<>();
+            final List<Field> fieldList = new ArrayList<>();
+            final List<String> nameList = new ArrayList<>();
+            for (final Class<?> level : hierarchy) {
+                final Field[] declared = level.getDeclaredFields();
+                for (final Field field : declared) {
+                    if (isSerializableField(field)) {
+                        declarationOrder.add(field);
+                    }
+                }
+                Arrays.sort(declared, (a, b) -> a.getName().compareTo(b.getName()));
+                for (final Field field : declared) {
+                    if (!isSerializableField(field)) {
+                        continue;
+                    }
+                    field.setAccessible(true);
+                    final String name = this.fieldsByName.containsKey(field.getName())
+                            ? level.getSimpleName() + "." + field.getName() : field.getName();
+                    this.fieldsByName.put(name, field);
+                    fieldList.add(field);
+                    nameList.add(name);
+                }
+            }
+            this.fields = fieldList.toArray(new Field[fieldList.size()]);
+            this.names = nameList.toArray(new String[nameList.size()]);
+
+            Constructor<?> noArgs = null;
+            Constructor<?> allFields = null;
+            Field[] parameterFields = null;
+            for (final Constructor<?> constructor : type.getDeclaredConstructors()) {
+                if (constructor.getParameterCount() == 0) {
+                    noArgs = constructor;
+                } else if (allFields == null) {
+                    parameterFields = matchParameters(constructor, declarationOrder);
+                    allFields = parameterFields == null ? null : constructor;
+                }
+            }
+            this.noArgConstructor = noArgs;
+            this.fieldsConstructor = noArgs == null ? allFields : null;
+            this.constructorFields = noArgs == null ? parameterFields : null;
+            if (this.noArgConstructor != null) {
+                this.noArgConstructor.setAccessible(true);
+            } else if (this.fieldsConstructor != null) {
+                this.fieldsConstructor.setAccessible(true);
+            }
+        }
+
+        private static boolean isSerializableField(final Field field) {
+            return !Modifier.isStatic(field.getModifiers()) && !Modifier.isTransient(field.getModifiers());
+        }
+
+        /**
+         * @return the field for each parameter of the constructor, or null if
+         *         the constructor does not take exactly the fields.
+         */
+        private static Field[] matchParameters(final Constructor<?> constructor, final List<Field> fields) {
+            final Class<?>[] parameterTypes = constructor.getParameterTypes();
+            if (parameterTypes.length != fields.size()) {
+                return null;
+            }
+            final List<Field> unmatched = new ArrayList<>(fields);
+            final Field[] parameterFields = new Field[parameterTypes.length];
+            for (int i = 0; i < parameterTypes.length; i++) {
+                for (final Field field : unmatched) {
+                    if (field.getType() == parameterTypes[i]) {
+                        parameterFields[i] = field;
+                        unmatched.remove(field);
+                        break;
+                    }
+                }
+                if (parameterFields[i] == null) {
+                    return null;
+                }
+            }
+            return parameterFields;
+        }
+
+        boolean isInstantiable() {
+            return this.noArgConstructor != null || this.fieldsConstructor != null;
+        }
+
+        /**
+         * Creates an instance with the constructor taking all fields. Fields
+         * the sender did not write get their default value.
+         */
+        Object newInstance(final Map<Field, Object> fieldValues) throws ReflectiveOperationException {
+            final Object[] arguments = new Object[this.constructorFields.length];
+            for (int i = 0; i < arguments.length; i++) {
+                final Field field = this.constructorFields[i];
+                arguments[i] = fieldValues.containsKey(field) ? fieldValues.get(field)
+                        : defaultValue(field.getType());
+            }
+            final Object value = this.fieldsConstructor.newInstance(arguments);
+            for (final Map.Entry<Field, Object> fieldValue : fieldValues.entrySet()) {
+                fieldValue.getKey().set(value, fieldValue.getValue());
+            }
+            return value;
+        }
+
+        private static Object defaultValue(final Class<?> type) {
+            return type.isPrimitive() ? Array.get(Array.newInstance(type, 1), 0) : null;
+        }
+    }
+
+    /**
+     * The schema of a class as written by the sender, mapped onto the fields
+     * of the local class. Fields the local class does not have are null and
+     * their values are skipped.
+     */
+    private static class RemoteSchema {
+        private final ClassSchema local;
+        private final Field[] fields;
+
+        RemoteSchema(final ClassSchema local, final String[] names) {
+            this.local = local;
+            this.fields = new Field[names.length];
+            for (int i = 0; i < names.length; i++) {
+                this.fields[i] = local.fieldsByName.get(names[i]);
+            }
+        }
+    }
+}
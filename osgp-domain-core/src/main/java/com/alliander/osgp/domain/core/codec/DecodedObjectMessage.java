@@ -0,0 +1,269 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.domain.core.codec;
+
+import java.io.Serializable;
+import java.util.Enumeration;
+
+import javax.jms.Destination;
+import javax.jms.JMSException;
+import javax.jms.Message;
+import javax.jms.ObjectMessage;
+
+/**
+ * ObjectMessage holding the decoded body of a message that was encoded with a
+ * {@link MessageCodec}. Headers, properties and acknowledgement are delegated
+ * to the received message, so message processors that expect an
+ * ObjectMessage can handle it unchanged.
+ */
+class DecodedObjectMessage implements ObjectMessage {
+
+    private final Message message;
+    private Serializable object;
+
+    DecodedObjectMessage(final Message message, final Serializable object) {
+        this.message = message;
+        this.object = object;
+    }
+
+    @Override
+    public Serializable getObject() throws JMSException {
+        return this.object;
+    }
+
+    @Override
+    public void setObject(final Serializable object) throws JMSException {
+        this.object = object;
+    }
+
+    @Override
+    public void clearBody() throws JMSException {
+        this.object = null;
+    }
+
+    @Override
+    public String getJMSMessageID() throws JMSException {
+        return this.message.getJMSMessageID();
+    }
+
+    @Override
+    public void setJMSMessageID(final String id) throws JMSException {
+        this.message.setJMSMessageID(id);
+    }
+
+    @Override
+    public long getJMSTimestamp() throws JMSException {
+        return this.message.getJMSTimestamp();
+    }
+
+    @Override
+    public void setJMSTimestamp(final long timestamp) throws JMSException {
+        this.message.setJMSTimestamp(timestamp);
+    }
+
+    @Override
+    public byte[] getJMSCorrelationIDAsBytes() throws JMSException {
+        return this.message.getJMSCorrelationIDAsBytes();
+    }
+
+    @Override
+    public void setJMSCorrelationIDAsBytes(final byte[] correlationID) throws JMSException {
+        this.message.setJMSCorrelationIDAsBytes(correlationID);
+    }
+
+    @Override
+    public void setJMSCorrelationID(final String correlationID) throws JMSException {
+        this.message.setJMSCorrelationID(correlationID);
+    }
+
+    @Override
+    public String getJMSCorrelationID() throws JMSException {
+        return this.message.getJMSCorrelationID();
+    }
+
+    @Override
+    public Destination getJMSReplyTo() throws JMSException {
+        return this.message.getJMSReplyTo();
+    }
+
+    @Override
+    public void setJMSReplyTo(final Destination replyTo) throws JMSException {
+        this.message.setJMSReplyTo(replyTo);
+    }
+
+    @Override
+    public Destination getJMSDestination() throws JMSException {
+        return this.message.getJMSDestination();
+    }
+
+    @Override
+    public void setJMSDestination(final Destination destination) throws JMSException {
+        this.message.setJMSDestination(destination);
+    }
+
+    @Override
+    public int getJMSDeliveryMode() throws JMSException {
+        return this.message.getJMSDeliveryMode();
+    }
+
+    @Override
+    public void setJMSDeliveryMode(final int deliveryMode) throws JMSException {
+        this.message.setJMSDeliveryMode(deliveryMode);
+    }
+
+    @Override
+    public boolean getJMSRedelivered() throws JMSException {
+        return this.message.getJMSRedelivered();
+    }
+
+    @Override
+    public void setJMSRedelivered(final boolean redelivered) throws JMSException {
+        this.message.setJMSRedelivered(redelivered);
+    }
+
+    @Override
+    public String getJMSType() throws JMSException {
+        return this.message.getJMSType();
+    }
+
+    @Override
+    public void setJMSType(final String type) throws JMSException {
+        this.message.setJMSType(type);
+    }
+
+    @Override
+    public long getJMSExpiration() throws JMSException {
+        return this.message.getJMSExpiration();
+    }
+
+    @Override
+    public void setJMSExpiration(final long expiration) throws JMSException {
+        this.message.setJMSExpiration(expiration);
+    }
+
+    @Override
+    public int getJMSPriority() throws JMSException {
+        return this.message.getJMSPriority();
+    }
+
+    @Override
+    public void setJMSPriority(final int priority) throws JMSException {
+        this.message.setJMSPriority(priority);
+    }
+
+    @Override
+    public void clearProperties() throws JMSException {
+        this.message.clearProperties();
+    }
+
+    @Override
+    public boolean propertyExists(final String name) throws JMSException {
+        return this.message.propertyExists(name);
+    }
+
+    @Override
+    public boolean getBooleanProperty(final String name) throws JMSException {
+        return this.message.getBooleanProperty(name);
+    }
+
+    @Override
+    public byte getByteProperty(final String name) throws JMSException {
+        return this.message.getByteProperty(name);
+    }
+
+    @Override
+    public short getShortProperty(final String name) throws JMSException {
+        return this.message.getShortProperty(name);
+    }
+
+    @Override
+    public int getIntProperty(final String name) throws JMSException {
+        return this.message.getIntProperty(name);
+    }
+
+    @Override
+    public long getLongProperty(final String name) throws JMSException {
+        return this.message.getLongProperty(name);
+    }
+
+    @Override
+    public float getFloatProperty(final String name) throws JMSException {
+        return this.message.getFloatProperty(name);
+    }
+
+    @Override
+    public double getDoubleProperty(final String name) throws JMSException {
+        return this.message.getDoubleProperty(name);
+    }
+
+    @Override
+    public String getStringProperty(final String name) throws JMSException {
+        return this.message.getStringProperty(name);
+    }
+
+    @Override
+    public Object getObjectProperty(final String name) throws JMSException {
+        return this.message.getObjectProperty(name);
+    }
+
+    @Override
+    @SuppressWarnings("rawtypes")
+    public Enumeration getPropertyNames() throws JMSException {
+        return this.message.getPropertyNames();
+    }
+
+    @Override
+    public void setBooleanProperty(final String name, final boolean value) throws JMSException {
+        this.message.setBooleanProperty(name, value);
+    }
+
+    @Override
+    public void setByteProperty(final String name, final byte value) throws JMSException {
+        this.message.setByteProperty(name, value);
+    }
+
+    @Override
+    public void setShortProperty(final String name, final short value) throws JMSException {
+        this.message.setShortProperty(name, value);
+    }
+
+    @Override
+    public void setIntProperty(final String name, final int value) throws JMSException {
+        this.message.setIntProperty(name, value);
+    }
+
+    @Override
+    public void setLongProperty(final String name, final long value) throws JMSException {
+        this.message.setLongProperty(name, value);
+    }
+
+    @Override
+    public void setFloatProperty(final String name, final float value) throws JMSException {
+        this.message.setFloatProperty(name, value);
+    }
+
+    @Override
+    public void setDoubleProperty(final String name, final double value) throws JMSException {
+        this.message.setDoubleProperty(name, value);
+    }
+
+    @Override
+    public void setStringProperty(final String name, final String value) throws JMSException {
+        this.message.setStringProperty(name, value);
+    }
+
+    @Override
+    public void setObjectProperty(final String name, final Object value) throws JMSException {
+        this.message.setObjectProperty(name, value);
+    }
+
+    @Override
+    public void acknowledge() throws JMSException {
+        this.message.acknowledge();
+    }
+}
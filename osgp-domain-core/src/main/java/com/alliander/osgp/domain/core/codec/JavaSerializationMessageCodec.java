@@ -0,0 +1,52 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.domain.core.codec;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+
+import com.alliander.osgp.domain.core.exceptions.MessageCodecException;
+
+/**
+ * Codec using standard Java serialization, the same encoding ObjectMessages
+ * use. This is the fallback when no other codec is configured or supported.
+ * Decoding only resolves {@link TrustedClasses}.
+ */
+public class JavaSerializationMessageCodec implements MessageCodec {
+
+    public static final String NAME = "java";
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public byte[] encode(final Serializable payload) throws MessageCodecException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (final ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(payload);
+        } catch (final IOException e) {
+            throw new MessageCodecException("Unable to serialize " + payload.getClass().getName(), e);
+        }
+        return bytes.toByteArray();
+    }
+
+    @Override
+    public Serializable decode(final byte[] bytes) throws MessageCodecException {
+        try (final ObjectInputStream in = new TrustedObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return (Serializable) in.readObject();
+        } catch (final IOException | ClassNotFoundException e) {
+            throw new MessageCodecException("Unable to deserialize payload", e);
+        }
+    }
+}
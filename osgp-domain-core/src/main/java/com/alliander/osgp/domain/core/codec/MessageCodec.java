@@ -0,0 +1,26 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.domain.core.codec;
+
+import java.io.Serializable;
+
+import com.alliander.osgp.domain.core.exceptions.MessageCodecException;
+
+/**
+ * Encodes and decodes the payload of JMS messages. The name of the codec is
+ * sent along with each message in the {@link MessageCodecs#MESSAGE_CODEC}
+ * property, so the receiving side knows how to decode it.
+ */
+public interface MessageCodec {
+
+    String getName();
+
+    byte[] encode(Serializable payload) throws MessageCodecException;
+
+    Serializable decode(byte[] bytes) throws MessageCodecException;
+}
@@ -0,0 +1,83 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.domain.core.codec;
+
+import javax.jms.JMSException;
+import javax.jms.Message;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Chooses the codec of each message sent to a queue, so an application can be
+ * upgraded before or after the applications reading that queue.
+ *
+ * The configured codec is only used once the applications on the other side
+ * have announced, in the messages they send back, that they accept it. As
+ * long as any of them sent a message without announcing it during the hold
+ * off period, a node that has not been upgraded yet is assumed to read the
+ * queue, and messages are encoded with Java serialization, which every
+ * version reads.
+ */
+public class MessageCodecNegotiator {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MessageCodecNegotiator.class);
+
+    private final MessageCodec preferredCodec;
+    private final MessageCodec fallbackCodec;
+    private final long holdOffMillis;
+
+    private volatile long lastAccepted;
+    private volatile long lastNotAccepted;
+
+    /**
+     * @param preferredCodec
+     *            the codec to use once the other side accepts it.
+     * @param holdOffMillis
+     *            the time in ms after a message from an application that does
+     *            not accept the preferred codec, during which the fallback
+     *            codec is used.
+     */
+    public MessageCodecNegotiator(final MessageCodec preferredCodec, final long holdOffMillis) {
+        this.preferredCodec = preferredCodec;
+        this.fallbackCodec = MessageCodecs.forName(JavaSerializationMessageCodec.NAME);
+        this.holdOffMillis = holdOffMillis;
+    }
+
+    /**
+     * Records the codecs accepted by the application that sent the message.
+     * Call this for every message received from the other side.
+     */
+    public void observe(final Message message) throws JMSException {
+        final long now = System.currentTimeMillis();
+        if (MessageCodecs.accepts(message, this.preferredCodec)) {
+            this.lastAccepted = now;
+        } else {
+            if (this.lastNotAccepted < this.lastAccepted) {
+                LOGGER.info("Received message from an application not accepting codec {}, using {}",
+                        this.preferredCodec.getName(), this.fallbackCodec.getName());
+            }
+            this.lastNotAccepted = now;
+        }
+    }
+
+    /**
+     * @return the codec to encode the next message with.
+     */
+    public MessageCodec select() {
+        if (this.lastAccepted == 0
+                || System.currentTimeMillis() - this.lastNotAccepted < this.holdOffMillis) {
+            return this.fallbackCodec;
+        }
+        return this.preferredCodec;
+    }
+
+    public MessageCodec getPreferredCodec() {
+        return this.preferredCodec;
+    }
+}
@@ -0,0 +1,200 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.domain.core.codec;
+
+import java.io.Serializable;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.jms.BytesMessage;
+import javax.jms.JMSException;
+import javax.jms.Message;
+import javax.jms.ObjectMessage;
+import javax.jms.Session;
+
+import org.apache.commons.lang3.ArrayUtils;
+import org.apache.commons.lang3.StringUtils;
+
+import com.alliander.osgp.domain.core.exceptions.MessageCodecException;
+
+/**
+ * Creates and reads JMS messages using a {@link MessageCodec}.
+ *
+ * Messages encoded with the Java serialization codec are sent as plain
+ * ObjectMessages, exactly as before codecs were introduced. Messages encoded
+ * with any other codec are sent as BytesMessages. Every message carries the
+ * name of its codec in the {@link #MESSAGE_CODEC} property, and listeners
+ * decode each message with the codec it names, so messages in both formats
+ * can be on the same queue. A BytesMessage without that property is decoded
+ * with the codec recognized from the header of its body.
+ *
+ * Applications that decode messages with these methods announce the codecs
+ * they accept in the {@link #ACCEPTED_MESSAGE_CODECS} property of the messages
+ * they send, see {@link MessageCodecNegotiator}.
+ */
+public final class MessageCodecs {
+
+    /**
+     * Name of the JMS property holding the name of the codec used to encode
+     * the message body.
+     */
+    public static final String MESSAGE_CODEC = "MessageCodec";
+
+    /**
+     * Name of the JMS property holding the comma separated names of the codecs
+     * the sending application is able to decode.
+     */
+    public static final String ACCEPTED_MESSAGE_CODECS = "AcceptedMessageCodecs";
+
+    private static final int JAVA_SERIALIZATION_MAGIC = 0xACED;
+
+    private static final Map<String, MessageCodec> CODECS = new LinkedHashMap<>();
+    static {
+        register(new JavaSerializationMessageCodec());
+        register(new CompactBinaryMessageCodec());
+    }
+
+    private static final String ACCEPTED = StringUtils.join(CODECS.keySet(), ',');
+
+    private MessageCodecs() {
+        // Only static methods.
+    }
+
+    private static void register(final MessageCodec codec) {
+        CODECS.put(codec.getName(), codec);
+    }
+
+    /**
+     * @return the codec with the given name.
+     * @throws IllegalArgumentException
+     *             when there is no codec with the given name.
+     */
+    public static MessageCodec forName(final String name) {
+        final MessageCodec codec = CODECS.get(name);
+        if (codec == null) {
+            throw new IllegalArgumentException("Unknown message codec: " + name + ", supported codecs are: "
+                    + CODECS.keySet());
+        }
+        return codec;
+    }
+
+    /**
+     * Creates a message with the given payload as body, encoded with the
+     * given codec.
+     */
+    public static Message createMessage(final Session session, final Serializable payload, final MessageCodec codec)
+            throws JMSException {
+        if (payload == null || codec == null || JavaSerializationMessageCodec.NAME.equals(codec.getName())) {
+            final Message objectMessage = session.createObjectMessage(payload);
+            objectMessage.setStringProperty(MESSAGE_CODEC, JavaSerializationMessageCodec.NAME);
+            markAccepted(objectMessage);
+            return objectMessage;
+        }
+
+        final BytesMessage bytesMessage = session.createBytesMessage();
+        try {
+            bytesMessage.writeBytes(codec.encode(payload));
+        } catch (final MessageCodecException e) {
+            throw toJmsException(e);
+        }
+        bytesMessage.setStringProperty(MESSAGE_CODEC, codec.getName());
+        markAccepted(bytesMessage);
+        return bytesMessage;
+    }
+
+    /**
+     * Announces in the message the codecs this application is able to decode.
+     * Applications that read their incoming messages with
+     * {@link #asObjectMessage(Message)} set this on the messages they send, so
+     * the applications on the other side can start using those codecs.
+     */
+    public static void markAccepted(final Message message) throws JMSException {
+        message.setStringProperty(ACCEPTED_MESSAGE_CODECS, ACCEPTED);
+    }
+
+    /**
+     * @return true if the application that sent the message announced it is
+     *         able to decode messages encoded with the given codec.
+     */
+    public static boolean accepts(final Message message, final MessageCodec codec) throws JMSException {
+        if (JavaSerializationMessageCodec.NAME.equals(codec.getName())) {
+            return true;
+        }
+        final String accepted = message.getStringProperty(ACCEPTED_MESSAGE_CODECS);
+        return accepted != null && ArrayUtils.contains(StringUtils.split(accepted, ','), codec.getName());
+    }
+
+    /**
+     * Returns the message as ObjectMessage. ObjectMessages are returned as is,
+     * messages encoded with a codec are decoded and wrapped in an
+     * ObjectMessage that delegates everything but the body to the original
+     * message.
+     */
+    public static ObjectMessage asObjectMessage(final Message message) throws JMSException {
+        if (message instanceof ObjectMessage) {
+            return (ObjectMessage) message;
+        }
+        if (message instanceof BytesMessage) {
+            final BytesMessage bytesMessage = (BytesMessage) message;
+            bytesMessage.reset();
+            final byte[] bytes = new byte[(int) bytesMessage.getBodyLength()];
+            bytesMessage.readBytes(bytes);
+
+            final MessageCodec codec = message.propertyExists(MESSAGE_CODEC)
+                    ? codecForName(message.getStringProperty(MESSAGE_CODEC)) : detectCodec(bytes);
+            try {
+                return new DecodedObjectMessage(message, codec.decode(bytes));
+            } catch (final MessageCodecException e) {
+                throw toJmsException(e);
+            }
+        }
+        throw new JMSException("Unsupported message type: " + message.getClass().getName());
+    }
+
+    /**
+     * @return the decoded body of the message.
+     */
+    public static Serializable getPayload(final Message message) throws JMSException {
+        return asObjectMessage(message).getObject();
+    }
+
+    /**
+     * @return the codec recognized from the header of the encoded payload.
+     * @throws JMSException
+     *             when the payload does not start with a known header.
+     */
+    static MessageCodec detectCodec(final byte[] bytes) throws JMSException {
+        if (bytes.length >= 2) {
+            final int header = (bytes[0] & 0xFF) << 8 | (bytes[1] & 0xFF);
+            if (header == CompactBinaryMessageCodec.MAGIC) {
+                return CODECS.get(CompactBinaryMessageCodec.NAME);
+            }
+            if (header == JAVA_SERIALIZATION_MAGIC) {
+                return CODECS.get(JavaSerializationMessageCodec.NAME);
+            }
+        }
+        throw new JMSException("Message without " + MESSAGE_CODEC + " property has an unknown body format");
+    }
+
+    private static MessageCodec codecForName(final String name) throws JMSException {
+        try {
+            return forName(name);
+        } catch (final IllegalArgumentException e) {
+            final JMSException jmsException = new JMSException(e.getMessage());
+            jmsException.initCause(e);
+            throw jmsException;
+        }
+    }
+
+    private static JMSException toJmsException(final MessageCodecException e) {
+        final JMSException jmsException = new JMSException(e.getMessage());
+        jmsException.setLinkedException(e);
+        jmsException.initCause(e);
+        return jmsException;
+    }
+}
@@ -0,0 +1,126 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.domain.core.codec;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The classes that may be loaded when decoding a message payload: the value
+ * objects of the platform, Joda-Time values, and a fixed set of JDK value,
+ * collection and exception types.
+ *
+ * Message payloads can be sent by any JMS producer, so class names read from
+ * a payload are never loaded or instantiated unless they pass this check.
+ */
+final class TrustedClasses {
+
+    private static final List<String> TRUSTED_PACKAGES = Arrays.asList("com.alliander.osgp.", "org.joda.time.");
+
+    private static final Set<String> TRUSTED_JDK_CLASSES = new HashSet<>(Arrays.asList("java.lang.Object",
+            "java.lang.String", "java.lang.Boolean", "java.lang.Byte", "java.lang.Short", "java.lang.Integer",
+            "java.lang.Long", "java.lang.Float", "java.lang.Double", "java.lang.Character", "java.lang.Number",
+            "java.lang.Enum", "java.lang.StackTraceElement", "java.math.BigDecimal", "java.math.BigInteger",
+            "java.util.Date", "java.sql.Timestamp", "java.util.UUID", "java.util.ArrayList", "java.util.LinkedList",
+            "java.util.HashSet", "java.util.LinkedHashSet", "java.util.TreeSet", "java.util.HashMap",
+            "java.util.LinkedHashMap", "java.util.TreeMap", "java.util.EnumMap", "java.util.EnumSet",
+            "java.util.EnumSet$SerializationProxy", "java.util.Arrays$ArrayList",
+            "java.util.Collections$UnmodifiableCollection", "java.util.Collections$UnmodifiableList",
+            "java.util.Collections$UnmodifiableRandomAccessList", "java.util.Collections$UnmodifiableSet",
+            "java.util.Collections$UnmodifiableSortedSet", "java.util.Collections$UnmodifiableMap",
+            "java.util.Collections$UnmodifiableSortedMap", "java.util.Collections$EmptyList",
+            "java.util.Collections$EmptySet", "java.util.Collections$EmptyMap", "java.util.Collections$SingletonList",
+            "java.util.Collections$SingletonSet", "java.util.Collections$SingletonMap",
+            "java.util.concurrent.ConcurrentHashMap", "java.util.concurrent.ConcurrentHashMap$Segment",
+            "java.util.concurrent.locks.ReentrantLock", "java.util.concurrent.locks.ReentrantLock$Sync",
+            "java.util.concurrent.locks.ReentrantLock$NonfairSync",
+            "java.util.concurrent.locks.AbstractQueuedSynchronizer",
+            "java.util.concurrent.locks.AbstractOwnableSynchronizer"));
+
+    private static final String PRIMITIVE_ARRAY_ELEMENTS = "ZBSIJFDC";
+
+    private static final Map<String, Class<?>> PRIMITIVE_TYPES = new HashMap<>();
+    static {
+        for (final Class<?> type : Arrays.asList(boolean.class, byte.class, short.class, int.class, long.class,
+                float.class, double.class, char.class)) {
+            PRIMITIVE_TYPES.put(type.getName(), type);
+        }
+    }
+
+    private TrustedClasses() {
+        // Only static methods.
+    }
+
+    /**
+     * Loads the class with the given name, without initializing it.
+     *
+     * @throws ClassNotFoundException
+     *             when the class does not exist or is not trusted.
+     */
+    static Class<?> forName(final String name) throws ClassNotFoundException {
+        final Class<?> primitiveType = PRIMITIVE_TYPES.get(name);
+        if (primitiveType != null) {
+            return primitiveType;
+        }
+
+        final String elementName = elementName(name);
+        if (!isTrustedName(elementName)) {
+            // Exceptions are sent as cause of failed responses, those from
+            // the JDK are trusted as well.
+            if (!elementName.startsWith("java.") || !Throwable.class.isAssignableFrom(load(elementName))) {
+                throw new ClassNotFoundException("Class " + name + " is not trusted in message payloads");
+            }
+        }
+        return load(name);
+    }
+
+    private static boolean isTrustedName(final String name) {
+        if (PRIMITIVE_TYPES.containsKey(name) || TRUSTED_JDK_CLASSES.contains(name)) {
+            return true;
+        }
+        for (final String trustedPackage : TRUSTED_PACKAGES) {
+            if (name.startsWith(trustedPackage)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the name of the element type for array class names like
+     *         "[[Ljava.lang.String;", a primitive type name for arrays like
+     *         "[I", otherwise the name itself.
+     */
+    private static String elementName(final String name) {
+        int dimensions = 0;
+        while (dimensions < name.length() && name.charAt(dimensions) == '[') {
+            dimensions++;
+        }
+        if (dimensions == 0) {
+            return name;
+        }
+        final String element = name.substring(dimensions);
+        if (element.length() == 1 && PRIMITIVE_ARRAY_ELEMENTS.contains(element)) {
+            return int.class.getName();
+        }
+        if (element.startsWith("L") && element.endsWith(";")) {
+            return element.substring(1, element.length() - 1);
+        }
+        return element;
+    }
+
+    private static Class<?> load(final String name) throws ClassNotFoundException {
+        final ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+        return Class.forName(name, false,
+                contextClassLoader == null ? TrustedClasses.class.getClassLoader() : contextClassLoader);
+    }
+}
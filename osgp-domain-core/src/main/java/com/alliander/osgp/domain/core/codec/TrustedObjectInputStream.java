@@ -0,0 +1,43 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.domain.core.codec;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.ObjectInputStream;
+import java.io.ObjectStreamClass;
+
+/**
+ * ObjectInputStream that only resolves {@link TrustedClasses}, so a payload
+ * cannot instantiate arbitrary serializable classes from the class path.
+ * Proxy classes are never resolved.
+ */
+class TrustedObjectInputStream extends ObjectInputStream {
+
+    TrustedObjectInputStream(final InputStream in) throws IOException {
+        super(in);
+    }
+
+    @Override
+    protected Class<?> resolveClass(final ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+        try {
+            return TrustedClasses.forName(desc.getName());
+        } catch (final ClassNotFoundException e) {
+            final InvalidClassException invalidClassException = new InvalidClassException(desc.getName(),
+                    e.getMessage());
+            invalidClassException.initCause(e);
+            throw invalidClassException;
+        }
+    }
+
+    @Override
+    protected Class<?> resolveProxyClass(final String[] interfaces) throws IOException, ClassNotFoundException {
+        throw new InvalidClassException("Proxy classes are not trusted in message payloads");
+    }
+}
@@ -164,9 +164,12 @@ public class Device implements Serializable {
     /**
      * List of { @see DeviceAuthorization.class } containing authorizations for
      * this device. More that one organisation can be authorized to use one ore
-     * more { @see DeviceFunctionGroup.class }.
+     * more { @see DeviceFunctionGroup.class }. The authorizations are loaded
+     * lazily, devices that are used outside a transaction and need them should
+     * be found with
+     * {@link com.alliander.osgp.domain.core.repositories.DeviceRepository#findWithAuthorizationsByIdIn}.
      */
-    @OneToMany(mappedBy = "device", targetEntity = DeviceAuthorization.class, fetch = FetchType.EAGER)
+    @OneToMany(mappedBy = "device", targetEntity = DeviceAuthorization.class, fetch = FetchType.LAZY)
     private final List<DeviceAuthorization> authorizations = new ArrayList<>();
 
     /**
@@ -350,7 +353,8 @@ public class Device implements Serializable {
     }
 
     /**
-     * Get the owner organisation of the device.
+     * Get the owner organisation of the device. This needs the authorizations
+     * of the device, see {@link #getAuthorizations()}.
      *
      * @return The organisation when an owner was set, null otherwise.
      */
@@ -55,6 +55,17 @@ public class Event extends AbstractEntity {
         this.index = index;
     }
 
+    /**
+     * Sets the id of an event that is inserted without the entity manager,
+     * for instance in a JDBC batch.
+     *
+     * @param id
+     *            The id.
+     */
+    public void setId(final Long id) {
+        this.id = id;
+    }
+
     public Device getDevice() {
         return this.device;
     }
@@ -18,7 +18,6 @@ import java.util.TreeMap;
 import java.util.TreeSet;
 import java.util.UUID;
 
-import javax.persistence.Basic;
 import javax.persistence.CascadeType;
 import javax.persistence.Column;
 import javax.persistence.Entity;
@@ -73,6 +72,11 @@ public class FirmwareFile extends AbstractEntity {
     @Column()
     private boolean pushToNewDevices;
 
+    /*
+     * Loaded with the firmware file: Hibernate only loads a basic attribute
+     * lazily with bytecode enhancement. Where only the contents or only the
+     * other fields are needed, FirmwareFileRepository selects them separately.
+     */
     @Lob
     @Column()
     private byte[] file;
@@ -343,8 +347,6 @@ public class FirmwareFile extends AbstractEntity {
         this.hash = hash;
     }
 
-    @Lob
-    @Basic(fetch = FetchType.LAZY)
     public byte[] getFile() {
         return this.file;
     }
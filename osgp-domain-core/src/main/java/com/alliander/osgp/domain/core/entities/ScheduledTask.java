@@ -67,6 +67,17 @@ public class ScheduledTask extends AbstractEntity {
     @Column(name = "retry")
     private int retry;
 
+    @Column(name = "claimed_time")
+    private Timestamp claimedTime;
+
+    /**
+     * False for the retries of requests that were not scheduled, such as the
+     * requests of operators, so they are sent with the priority of the
+     * original request.
+     */
+    @Column(name = "scheduled", nullable = false)
+    private boolean scheduled;
+
     @SuppressWarnings("unused")
     private ScheduledTask() {
 
@@ -74,6 +85,12 @@ public class ScheduledTask extends AbstractEntity {
 
     public ScheduledTask(final DeviceMessageMetadata deviceMessageMetadata, final String domain,
             final String domainVersion, final Serializable messageData, final Timestamp scheduledTime) {
+        this(deviceMessageMetadata, domain, domainVersion, messageData, scheduledTime, true);
+    }
+
+    public ScheduledTask(final DeviceMessageMetadata deviceMessageMetadata, final String domain,
+            final String domainVersion, final Serializable messageData, final Timestamp scheduledTime,
+            final boolean scheduled) {
 
         this.correlationUid = deviceMessageMetadata.getCorrelationUid();
         this.organisationIdentification = deviceMessageMetadata.getOrganisationIdentification();
@@ -86,6 +103,7 @@ public class ScheduledTask extends AbstractEntity {
         this.scheduledTime = (Timestamp) scheduledTime.clone();
         this.status = ScheduledTaskStatusType.NEW;
         this.retry = 0;
+        this.scheduled = scheduled;
     }
 
     // public static
@@ -134,12 +152,37 @@ public class ScheduledTask extends AbstractEntity {
         return this.retry;
     }
 
+    public boolean isScheduled() {
+        return this.scheduled;
+    }
+
     public ScheduledTaskStatusType getStatus() {
         return this.status;
     }
 
-    public void setPending() {
+    /**
+     * @return the time the task was last claimed for processing, or null if it
+     *         is not PENDING.
+     */
+    public Timestamp getClaimedTime() {
+        return this.claimedTime == null ? null : (Timestamp) this.claimedTime.clone();
+    }
+
+    /**
+     * Marks the task as claimed for processing at the given time.
+     */
+    public void setPending(final Timestamp claimedTime) {
         this.status = ScheduledTaskStatusType.PENDING;
+        this.claimedTime = (Timestamp) claimedTime.clone();
+    }
+
+    /**
+     * Marks the task as claimed again at the given time, after its previous
+     * claim expired without a response. Counts as a retry.
+     */
+    public void reclaim(final Timestamp claimedTime) {
+        this.retry++;
+        this.setPending(claimedTime);
     }
 
     public void setFailed(final String errorLog) {
@@ -155,6 +198,7 @@ public class ScheduledTask extends AbstractEntity {
         this.retry++;
         this.scheduledTime = new Timestamp(retryTime.getTime());
         this.status = ScheduledTaskStatusType.RETRY;
+        this.claimedTime = null;
     }
 
     @Override
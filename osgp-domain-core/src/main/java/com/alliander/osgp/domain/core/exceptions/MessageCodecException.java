@@ -0,0 +1,24 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.domain.core.exceptions;
+
+public class MessageCodecException extends Exception {
+
+    /**
+     * Serial Version UID.
+     */
+    private static final long serialVersionUID = 2153879041745036618L;
+
+    public MessageCodecException(final String message) {
+        super(message);
+    }
+
+    public MessageCodecException(final String message, final Throwable t) {
+        super(message, t);
+    }
+}
@@ -0,0 +1,281 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.domain.core.jms;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import javax.jms.Destination;
+import javax.jms.JMSException;
+import javax.jms.Queue;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jms.listener.DefaultMessageListenerContainer;
+
+import com.alliander.osgp.domain.core.jms.metrics.MessageMetrics;
+import com.alliander.osgp.domain.core.jms.metrics.MeteredMessageListener;
+
+/**
+ * Sizes the consumers of message listener containers from the depth of their
+ * queue, the time it takes to process a message and the saturation of the
+ * database connection pool. The processing time is read from the
+ * {@link MessageMetrics} the metered listener of a container records.
+ *
+ * The concurrent consumers and max concurrent consumers a container is
+ * configured with when it is registered are the bounds of its consumers. Until
+ * the container has processed a message, the processing time is unknown and
+ * the container sizes its consumers by itself, within these bounds. From then
+ * on the controller determines at every interval the consumers needed to
+ * process the waiting messages within the target drain time: the queue depth
+ * times the average processing time, divided by the target drain time. The
+ * queue depth is only needed up to the depth at which the maximum is needed:
+ * a depth at that limit needs the maximum.
+ * Consumers are added at once, at most doubling per interval, and removed one
+ * at a time after fewer consumers sufficed for a number of intervals. While
+ * the connection pool is saturated, consumers are not added but removed, since
+ * more consumers would only wait for a connection.
+ * When the queue depth probe is not available, the containers get back the
+ * bounds they were registered with and are no longer controlled.
+ */
+public class AdaptiveConcurrencyController implements Runnable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AdaptiveConcurrencyController.class);
+
+    private final AdaptiveConcurrencySettings settings;
+    private final MessageMetrics messageMetrics;
+    private final QueueDepthProbe queueDepthProbe;
+    private final ConnectionPoolProbe connectionPoolProbe;
+
+    private final List<ControlledContainer> containers = new CopyOnWriteArrayList<>();
+
+    private ScheduledExecutorService executor;
+
+    public AdaptiveConcurrencyController(final AdaptiveConcurrencySettings settings,
+            final MessageMetrics messageMetrics, final QueueDepthProbe queueDepthProbe,
+            final ConnectionPoolProbe connectionPoolProbe) {
+        this.settings = settings;
+        this.messageMetrics = messageMetrics;
+        this.queueDepthProbe = queueDepthProbe;
+        this.connectionPoolProbe = connectionPoolProbe;
+    }
+
+    /**
+     * Controls the consumers of the container, which must have a
+     * {@link MeteredMessageListener} recording in the message metrics of the
+     * controller, and a queue as destination.
+     */
+    public void register(final String name, final DefaultMessageListenerContainer container) {
+        final ControlledContainer controlled = new ControlledContainer(name, container);
+        this.containers.add(controlled);
+        LOGGER.info("Controlling the consumers of {} on queue {}, between {} and {}", name, controlled.queueName,
+                controlled.minimumConsumers, controlled.maximumConsumers);
+    }
+
+    public synchronized void start() {
+        if (this.executor != null) {
+            return;
+        }
+        this.executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(final Runnable runnable) {
+                final Thread thread = new Thread(runnable, "adaptive-concurrency-controller");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        this.executor.scheduleWithFixedDelay(this, this.settings.getInterval(), this.settings.getInterval(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void destroy() {
+        if (this.executor != null) {
+            this.executor.shutdownNow();
+            this.executor = null;
+        }
+    }
+
+    @Override
+    public void run() {
+        if (!this.queueDepthProbe.isAvailable()) {
+            this.release();
+            return;
+        }
+
+        final double poolSaturation = this.connectionPoolProbe.getSaturation();
+        for (final ControlledContainer controlled : this.containers) {
+            try {
+                this.adjust(controlled, poolSaturation);
+            } catch (final JMSException | RuntimeException e) {
+                LOGGER.warn("Adjusting the consumers of {} failed", controlled.name, e);
+            }
+        }
+    }
+
+    private void release() {
+        for (final ControlledContainer controlled : this.containers) {
+            LOGGER.info("No longer controlling the consumers of {}, the queue depth is not available",
+                    controlled.name);
+            controlled.restore();
+            this.containers.remove(controlled);
+        }
+    }
+
+    private void adjust(final ControlledContainer controlled, final double poolSaturation) throws JMSException {
+        final double latency = this.takeAverageLatency(controlled);
+        if (latency >= 0) {
+            controlled.latency = controlled.latency < 0 ? latency : (controlled.latency + latency) / 2;
+        }
+        if (controlled.latency < 0) {
+            // Nothing processed yet, so the processing time is unknown.
+            return;
+        }
+
+        final int limit = this.depthLimit(controlled);
+        final int depth = this.queueDepthProbe.getQueueDepth(controlled.container.getConnectionFactory(),
+                controlled.queueName, limit);
+
+        final int current = controlled.container.getMaxConcurrentConsumers();
+        final boolean saturated = poolSaturation >= this.settings.getMaximumPoolSaturation();
+        final int needed = depth >= limit ? controlled.maximumConsumers
+                : controlled.bound(this.neededConsumers(depth, controlled.latency));
+
+        int next = current;
+        if (needed > current && !saturated) {
+            next = Math.min(needed, current * 2);
+            controlled.surplusIntervals = 0;
+        } else if (needed < current || saturated) {
+            controlled.surplusIntervals++;
+            if (saturated || controlled.surplusIntervals >= this.settings.getScaleDownIntervals()) {
+                next = controlled.bound(current - 1);
+                controlled.surplusIntervals = 0;
+            }
+        } else {
+            controlled.surplusIntervals = 0;
+        }
+
+        LOGGER.debug("{}: depth {}, latency {} ms, pool saturation {}, consumers {} -> {}", controlled.name, depth,
+                controlled.latency, poolSaturation, current, next);
+        if (next != current) {
+            LOGGER.info("Changing the consumers of {} from {} to {}, queue depth {}, latency {} ms, pool saturation {}",
+                    controlled.name, current, next, depth, controlled.latency, poolSaturation);
+            controlled.apply(next);
+        }
+    }
+
+    /**
+     * @return The average processing time in milliseconds of the messages the
+     *         container processed since the previous call, or -1 when it
+     *         processed no messages.
+     */
+    private double takeAverageLatency(final ControlledContainer controlled) {
+        final long processed = this.messageMetrics.getProcessed(controlled.metricsName);
+        final long processingTime = this.messageMetrics.getProcessingTime(controlled.metricsName);
+        final long count = processed - controlled.processed;
+        final long time = processingTime - controlled.processingTime;
+        controlled.processed = processed;
+        controlled.processingTime = processingTime;
+        // No messages, or the metrics were reset.
+        if (count <= 0 || time < 0) {
+            return -1;
+        }
+        return (double) time / count;
+    }
+
+    private int neededConsumers(final int depth, final double latency) {
+        return (int) Math.ceil(depth * latency / this.settings.getTargetDrainTime());
+    }
+
+    /**
+     * @return The depth at which the container needs its maximum consumers,
+     *         or the maximum depth of the probe when that is lower.
+     */
+    private int depthLimit(final ControlledContainer controlled) {
+        final double depth = Math.ceil(
+                controlled.maximumConsumers * this.settings.getTargetDrainTime() / controlled.latency);
+        return (int) Math.max(1, Math.min(this.queueDepthProbe.getMaximumDepth(), depth));
+    }
+
+    private static class ControlledContainer {
+
+        private final String name;
+        private final DefaultMessageListenerContainer container;
+        private final String queueName;
+        private final String metricsName;
+        private final int minimumConsumers;
+        private final int maximumConsumers;
+
+        private double latency = -1;
+        private int surplusIntervals;
+        private long processed;
+        private long processingTime;
+
+        ControlledContainer(final String name, final DefaultMessageListenerContainer container) {
+            this.name = name;
+            this.container = container;
+            this.queueName = getQueueName(container);
+            this.metricsName = getMetricsName(container);
+            this.minimumConsumers = container.getConcurrentConsumers();
+            this.maximumConsumers = Math.max(this.minimumConsumers, container.getMaxConcurrentConsumers());
+        }
+
+        private static String getMetricsName(final DefaultMessageListenerContainer container) {
+            final Object listener = container.getMessageListener();
+            if (!(listener instanceof MeteredMessageListener)) {
+                throw new IllegalArgumentException("Message listener is not metered: " + listener);
+            }
+            return ((MeteredMessageListener) listener).getName();
+        }
+
+        private static String getQueueName(final DefaultMessageListenerContainer container) {
+            final Destination destination = container.getDestination();
+            if (destination == null) {
+                return container.getDestinationName();
+            }
+            if (!(destination instanceof Queue)) {
+                throw new IllegalArgumentException("Destination is not a queue: " + destination);
+            }
+            try {
+                return ((Queue) destination).getQueueName();
+            } catch (final JMSException e) {
+                throw new IllegalArgumentException("Queue name not available: " + destination, e);
+            }
+        }
+
+        int bound(final int consumers) {
+            return Math.max(this.minimumConsumers, Math.min(this.maximumConsumers, consumers));
+        }
+
+        /**
+         * The container sizes its consumers by itself again, between the
+         * bounds it was registered with.
+         */
+        void restore() {
+            this.container.setMaxConcurrentConsumers(this.maximumConsumers);
+            this.container.setConcurrentConsumers(this.minimumConsumers);
+        }
+
+        /**
+         * The container runs exactly the given number of consumers: consumers
+         * above the maximum stop after their current receive.
+         */
+        void apply(final int consumers) {
+            if (consumers > this.container.getConcurrentConsumers()) {
+                this.container.setMaxConcurrentConsumers(consumers);
+                this.container.setConcurrentConsumers(consumers);
+            } else {
+                this.container.setConcurrentConsumers(consumers);
+                this.container.setMaxConcurrentConsumers(consumers);
+            }
+        }
+    }
+}
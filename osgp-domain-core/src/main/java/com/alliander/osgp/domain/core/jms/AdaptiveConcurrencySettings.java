@@ -0,0 +1,56 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.domain.core.jms;
+
+/**
+ * Settings of the {@link AdaptiveConcurrencyController}.
+ */
+public class AdaptiveConcurrencySettings {
+
+    private final long interval;
+    private final long targetDrainTime;
+    private final double maximumPoolSaturation;
+    private final int scaleDownIntervals;
+
+    /**
+     * @param interval
+     *            The time in milliseconds between two adjustments.
+     * @param targetDrainTime
+     *            The time in milliseconds the consumers should need to process
+     *            the messages waiting on their queue.
+     * @param maximumPoolSaturation
+     *            The saturation of the database connection pool above which
+     *            no consumers are added, and consumers are removed.
+     * @param scaleDownIntervals
+     *            The number of consecutive adjustments in which fewer
+     *            consumers suffice, before a consumer is removed.
+     */
+    public AdaptiveConcurrencySettings(final long interval, final long targetDrainTime,
+            final double maximumPoolSaturation, final int scaleDownIntervals) {
+        this.interval = interval;
+        this.targetDrainTime = targetDrainTime;
+        this.maximumPoolSaturation = maximumPoolSaturation;
+        this.scaleDownIntervals = scaleDownIntervals;
+    }
+
+    public long getInterval() {
+        return this.interval;
+    }
+
+    public long getTargetDrainTime() {
+        return this.targetDrainTime;
+    }
+
+    public double getMaximumPoolSaturation() {
+        return this.maximumPoolSaturation;
+    }
+
+    public int getScaleDownIntervals() {
+        return this.scaleDownIntervals;
+    }
+}
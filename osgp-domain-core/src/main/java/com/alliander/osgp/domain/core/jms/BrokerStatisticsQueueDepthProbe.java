@@ -0,0 +1,101 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.domain.core.jms;
+
+import javax.jms.Connection;
+import javax.jms.ConnectionFactory;
+import javax.jms.JMSException;
+import javax.jms.MapMessage;
+import javax.jms.Message;
+import javax.jms.MessageConsumer;
+import javax.jms.Session;
+import javax.jms.TemporaryQueue;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Reads the size of a queue from the statistics of the broker. The broker
+ * counts the messages on its queues, so the size is read with one request,
+ * without receiving any of the messages.
+ *
+ * The statistics are requested from the ActiveMQ statistics plugin, which
+ * must be enabled on the broker (statisticsBrokerPlugin in activemq.xml). It
+ * answers a message sent to ActiveMQ.Statistics.Destination.[queue] with the
+ * statistics of the queue. When the first request is not answered the plugin
+ * is taken to be disabled: a warning is logged once and the probe is no longer
+ * available, so the request messages do not pile up on the broker.
+ */
+public class BrokerStatisticsQueueDepthProbe implements QueueDepthProbe {
+
+    private static final String STATISTICS_DESTINATION_PREFIX = "ActiveMQ.Statistics.Destination.";
+
+    private static final String SIZE = "size";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BrokerStatisticsQueueDepthProbe.class);
+
+    private final long timeout;
+
+    private volatile boolean answered;
+    private volatile boolean unavailable;
+
+    /**
+     * @param timeout
+     *            The time in milliseconds to wait for the statistics of the
+     *            broker.
+     */
+    public BrokerStatisticsQueueDepthProbe(final long timeout) {
+        this.timeout = timeout;
+    }
+
+    @Override
+    public int getMaximumDepth() {
+        return Integer.MAX_VALUE;
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return !this.unavailable;
+    }
+
+    @Override
+    public int getQueueDepth(final ConnectionFactory connectionFactory, final String queueName, final int limit)
+            throws JMSException {
+        if (this.unavailable) {
+            throw new JMSException("The statistics plugin is not enabled on the broker");
+        }
+
+        final Connection connection = connectionFactory.createConnection();
+        try {
+            connection.start();
+            final Session session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+            final TemporaryQueue replyTo = session.createTemporaryQueue();
+            final MessageConsumer consumer = session.createConsumer(replyTo);
+
+            final Message request = session.createMessage();
+            request.setJMSReplyTo(replyTo);
+            session.createProducer(session.createQueue(STATISTICS_DESTINATION_PREFIX + queueName)).send(request);
+
+            final Message statistics = consumer.receive(this.timeout);
+            if (!(statistics instanceof MapMessage)) {
+                if (!this.answered) {
+                    LOGGER.warn("No statistics of queue {} received within {} ms, the statistics plugin is not "
+                            + "enabled on the broker, queue depths will not be requested again", queueName,
+                            this.timeout);
+                    this.unavailable = true;
+                }
+                throw new JMSException("No statistics of queue " + queueName + " received within " + this.timeout
+                        + " ms");
+            }
+            this.answered = true;
+            return (int) Math.min(limit, ((MapMessage) statistics).getLong(SIZE));
+        } finally {
+            connection.close();
+        }
+    }
+}
@@ -0,0 +1,31 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.domain.core.jms;
+
+/**
+ * Determines how busy the database connection pool used by the message
+ * listeners is.
+ */
+public interface ConnectionPoolProbe {
+
+    /**
+     * A probe for listeners that do not use a database.
+     */
+    ConnectionPoolProbe NONE = new ConnectionPoolProbe() {
+        @Override
+        public double getSaturation() {
+            return 0;
+        }
+    };
+
+    /**
+     * @return The part of the connections in use, 1 or more when all
+     *         connections are in use or threads are waiting for a connection.
+     */
+    double getSaturation();
+}
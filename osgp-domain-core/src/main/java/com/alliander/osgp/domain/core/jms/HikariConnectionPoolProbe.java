@@ -0,0 +1,54 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.domain.core.jms;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Reads the saturation of a HikariCP connection pool from its JMX MBean, so
+ * the pool must be created with registerMbeans and a pool name. When the MBean
+ * is not available the pool is taken to be not saturated.
+ */
+public class HikariConnectionPoolProbe implements ConnectionPoolProbe {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(HikariConnectionPoolProbe.class);
+
+    private final MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+    private final ObjectName poolName;
+    private final int maximumPoolSize;
+
+    private boolean warned;
+
+    public HikariConnectionPoolProbe(final String poolName, final int maximumPoolSize) throws JMException {
+        this.poolName = new ObjectName("com.zaxxer.hikari:type=Pool (" + poolName + ")");
+        this.maximumPoolSize = maximumPoolSize;
+    }
+
+    @Override
+    public double getSaturation() {
+        try {
+            final int active = ((Number) this.mBeanServer.getAttribute(this.poolName, "ActiveConnections")).intValue();
+            final int waiting = ((Number) this.mBeanServer.getAttribute(this.poolName, "ThreadsAwaitingConnection"))
+                    .intValue();
+            return (double) (active + waiting) / this.maximumPoolSize;
+        } catch (final JMException e) {
+            if (!this.warned) {
+                LOGGER.warn("Saturation of connection pool {} is not available", this.poolName, e);
+                this.warned = true;
+            }
+            return 0;
+        }
+    }
+}
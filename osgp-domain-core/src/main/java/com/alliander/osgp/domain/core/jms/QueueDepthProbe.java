@@ -0,0 +1,39 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.domain.core.jms;
+
+import javax.jms.ConnectionFactory;
+import javax.jms.JMSException;
+
+/**
+ * Determines the number of messages waiting on a queue.
+ */
+public interface QueueDepthProbe {
+
+    /**
+     * @return The largest depth the probe can determine.
+     */
+    int getMaximumDepth();
+
+    /**
+     * Counts the messages waiting on a queue, up to the given limit and the
+     * maximum depth of the probe.
+     *
+     * @return The depth of the queue. A depth of the limit or the maximum
+     *         depth means at least that many messages are waiting.
+     */
+    int getQueueDepth(ConnectionFactory connectionFactory, String queueName, int limit) throws JMSException;
+
+    /**
+     * @return false when the probe found it can not determine the depth of
+     *         any queue, so there is no use in asking it again.
+     */
+    default boolean isAvailable() {
+        return true;
+    }
+}
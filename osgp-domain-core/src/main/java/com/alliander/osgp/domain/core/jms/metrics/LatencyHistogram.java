@@ -0,0 +1,96 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.domain.core.jms.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histogram of durations in milliseconds, with fixed buckets. Recording a
+ * duration does not lock, so it can be shared by the consumers of a listener
+ * container.
+ */
+public class LatencyHistogram {
+
+    /**
+     * Upper bounds (inclusive) of the buckets in milliseconds, the last bucket
+     * holds all longer durations.
+     */
+    static final long[] BUCKET_BOUNDS = { 1, 2, 5, 10, 20, 50, 100, 200, 500, 1000, 2000, 5000, 10000, 30000, 60000,
+            Long.MAX_VALUE };
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_BOUNDS.length);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    public void record(final long millis) {
+        final long duration = Math.max(0, millis);
+        this.buckets.incrementAndGet(bucketOf(duration));
+        this.count.incrementAndGet();
+        this.sum.addAndGet(duration);
+
+        long current = this.max.get();
+        while (duration > current && !this.max.compareAndSet(current, duration)) {
+            current = this.max.get();
+        }
+    }
+
+    public long getCount() {
+        return this.count.get();
+    }
+
+    public long getSum() {
+        return this.sum.get();
+    }
+
+    public long getMax() {
+        return this.max.get();
+    }
+
+    public long getMean() {
+        final long n = this.count.get();
+        return n == 0 ? 0 : this.sum.get() / n;
+    }
+
+    /**
+     * @return The upper bound of the bucket holding the given percentile, or
+     *         the maximum when it is in the last bucket.
+     */
+    public long getPercentile(final double percentile) {
+        final long n = this.count.get();
+        if (n == 0) {
+            return 0;
+        }
+        final long rank = (long) Math.ceil(percentile / 100 * n);
+        long seen = 0;
+        for (int i = 0; i < BUCKET_BOUNDS.length - 1; i++) {
+            seen += this.buckets.get(i);
+            if (seen >= rank) {
+                return BUCKET_BOUNDS[i];
+            }
+        }
+        return this.max.get();
+    }
+
+    public long[] getBuckets() {
+        final long[] counts = new long[BUCKET_BOUNDS.length];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = this.buckets.get(i);
+        }
+        return counts;
+    }
+
+    private static int bucketOf(final long duration) {
+        int i = 0;
+        while (duration > BUCKET_BOUNDS[i]) {
+            i++;
+        }
+        return i;
+    }
+}
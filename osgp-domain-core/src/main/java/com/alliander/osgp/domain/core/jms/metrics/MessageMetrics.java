@@ -0,0 +1,141 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.domain.core.jms.metrics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.jms.MessageListener;
+
+/**
+ * Keeps the metrics of the messages received by the message listeners, per
+ * listener and message type.
+ */
+public class MessageMetrics implements MessageMetricsMXBean {
+
+    static final String UNKNOWN_MESSAGE_TYPE = "UNKNOWN";
+
+    private static final Comparator<MessageTypeStatistics> LISTENER_AND_MESSAGE_TYPE = new Comparator<MessageTypeStatistics>() {
+        @Override
+        public int compare(final MessageTypeStatistics s1, final MessageTypeStatistics s2) {
+            final int result = s1.getListener().compareTo(s2.getListener());
+            return result != 0 ? result : s1.getMessageType().compareTo(s2.getMessageType());
+        }
+    };
+
+    private final ConcurrentMap<String, MessageTypeMetrics> metrics = new ConcurrentHashMap<>();
+
+    /**
+     * @return A listener that records the metrics of the messages the given
+     *         listener receives under the given name.
+     */
+    public MessageListener metered(final String name, final MessageListener messageListener) {
+        return new MeteredMessageListener(this, name, messageListener);
+    }
+
+    /**
+     * @return The metrics of the messages of the given type received by the
+     *         given listener, created when they do not exist yet.
+     */
+    MessageTypeMetrics getMessageTypeMetrics(final String listener, final String messageType) {
+        final String type = messageType == null ? UNKNOWN_MESSAGE_TYPE : messageType;
+        final String key = listener + '|' + type;
+        MessageTypeMetrics messageTypeMetrics = this.metrics.get(key);
+        if (messageTypeMetrics == null) {
+            final MessageTypeMetrics created = new MessageTypeMetrics(listener, type);
+            messageTypeMetrics = this.metrics.putIfAbsent(key, created);
+            if (messageTypeMetrics == null) {
+                messageTypeMetrics = created;
+            }
+        }
+        return messageTypeMetrics;
+    }
+
+    /**
+     * @return The statistics of the messages of the given type received by the
+     *         given listener, or null when no such messages were received.
+     */
+    public MessageTypeStatistics getStatistics(final String listener, final String messageType) {
+        final MessageTypeMetrics messageTypeMetrics = this.metrics.get(listener + '|' + messageType);
+        return messageTypeMetrics == null ? null : messageTypeMetrics.snapshot();
+    }
+
+    /**
+     * @return The number of messages of all types the given listener
+     *         processed.
+     */
+    public long getProcessed(final String listener) {
+        long processed = 0;
+        for (final MessageTypeMetrics messageTypeMetrics : this.metrics.values()) {
+            if (messageTypeMetrics.getListener().equals(listener)) {
+                processed += messageTypeMetrics.getProcessed();
+            }
+        }
+        return processed;
+    }
+
+    /**
+     * @return The total time in milliseconds the given listener took to
+     *         process the messages of all types.
+     */
+    public long getProcessingTime(final String listener) {
+        long processingTime = 0;
+        for (final MessageTypeMetrics messageTypeMetrics : this.metrics.values()) {
+            if (messageTypeMetrics.getListener().equals(listener)) {
+                processingTime += messageTypeMetrics.getProcessingTime();
+            }
+        }
+        return processingTime;
+    }
+
+    @Override
+    public List<MessageTypeStatistics> getStatistics() {
+        final List<MessageTypeStatistics> statistics = new ArrayList<>(this.metrics.size());
+        for (final MessageTypeMetrics messageTypeMetrics : this.metrics.values()) {
+            statistics.add(messageTypeMetrics.snapshot());
+        }
+        Collections.sort(statistics, LISTENER_AND_MESSAGE_TYPE);
+        return statistics;
+    }
+
+    @Override
+    public long getReceived() {
+        long received = 0;
+        for (final MessageTypeStatistics statistics : this.getStatistics()) {
+            received += statistics.getReceived();
+        }
+        return received;
+    }
+
+    @Override
+    public long getFailed() {
+        long failed = 0;
+        for (final MessageTypeStatistics statistics : this.getStatistics()) {
+            failed += statistics.getFailed();
+        }
+        return failed;
+    }
+
+    @Override
+    public long getRedelivered() {
+        long redelivered = 0;
+        for (final MessageTypeStatistics statistics : this.getStatistics()) {
+            redelivered += statistics.getRedelivered();
+        }
+        return redelivered;
+    }
+
+    @Override
+    public void reset() {
+        this.metrics.clear();
+    }
+}
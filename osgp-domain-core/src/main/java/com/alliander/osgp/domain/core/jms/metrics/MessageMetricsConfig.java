@@ -0,0 +1,67 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.domain.core.jms.metrics;
+
+import javax.management.ObjectName;
+
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jmx.export.MBeanExporter;
+
+import com.alliander.osgp.shared.application.config.AbstractConfig;
+
+/**
+ * The metrics of the messages received by the message listeners of an
+ * application, exposed through JMX. Message listeners are metered with
+ * {@link MessageMetrics#metered(String, javax.jms.MessageListener)}.
+ *
+ * The metrics are exposed as
+ * com.alliander.osgp:type=MessageMetrics,name=[application], where the
+ * application is the context path without the leading slash, for instance
+ * osgp-adapter-domain-admin, or the quoted context id outside a web
+ * container. The property metrics.jmx.object.name overrides the object name.
+ */
+@Configuration
+public class MessageMetricsConfig extends AbstractConfig {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MessageMetricsConfig.class);
+
+    private static final String PROPERTY_NAME_METRICS_JMX_OBJECT_NAME = "metrics.jmx.object.name";
+
+    private static final String OBJECT_NAME_PREFIX = "com.alliander.osgp:type=MessageMetrics,name=";
+
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    @Bean
+    public MessageMetrics messageMetrics() {
+        return new MessageMetrics();
+    }
+
+    @Bean
+    public MBeanExporter messageMetricsExporter() {
+        final String objectName = this.environment.getProperty(PROPERTY_NAME_METRICS_JMX_OBJECT_NAME,
+                OBJECT_NAME_PREFIX + this.getApplicationName());
+        LOGGER.info("Exposing message metrics through JMX as {}", objectName);
+
+        return new MessageMetricsExporter(objectName, this.messageMetrics());
+    }
+
+    private String getApplicationName() {
+        final String applicationName = StringUtils.removeStart(this.applicationContext.getApplicationName(), "/");
+        if (StringUtils.isEmpty(applicationName)) {
+            return ObjectName.quote(this.applicationContext.getId());
+        }
+        return applicationName;
+    }
+}
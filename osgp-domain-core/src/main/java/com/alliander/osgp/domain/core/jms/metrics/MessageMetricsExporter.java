@@ -0,0 +1,26 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.domain.core.jms.metrics;
+
+import java.util.Collections;
+
+import org.springframework.jmx.export.MBeanExporter;
+import org.springframework.jmx.support.RegistrationPolicy;
+
+/**
+ * Exposes the message metrics of an application through JMX. Applications
+ * deployed in the same container share the platform MBean server, so each
+ * needs its own object name.
+ */
+public class MessageMetricsExporter extends MBeanExporter {
+
+    public MessageMetricsExporter(final String objectName, final MessageMetrics messageMetrics) {
+        this.setBeans(Collections.<String, Object> singletonMap(objectName, messageMetrics));
+        this.setRegistrationPolicy(RegistrationPolicy.REPLACE_EXISTING);
+    }
+}
@@ -0,0 +1,33 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.domain.core.jms.metrics;
+
+import java.util.List;
+
+/**
+ * Management interface of the message metrics, exposed through JMX.
+ */
+public interface MessageMetricsMXBean {
+
+    /**
+     * @return The statistics per listener and message type, sorted by listener
+     *         and message type.
+     */
+    List<MessageTypeStatistics> getStatistics();
+
+    long getReceived();
+
+    long getFailed();
+
+    long getRedelivered();
+
+    /**
+     * Discards all metrics recorded so far.
+     */
+    void reset();
+}
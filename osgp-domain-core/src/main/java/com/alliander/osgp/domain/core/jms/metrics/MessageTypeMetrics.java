@@ -0,0 +1,67 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.domain.core.jms.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Metrics of the messages of one type received by one listener.
+ */
+class MessageTypeMetrics {
+
+    private final String listener;
+    private final String messageType;
+
+    private final AtomicLong received = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong redelivered = new AtomicLong();
+    private final LatencyHistogram processingTime = new LatencyHistogram();
+    private final LatencyHistogram brokerTime = new LatencyHistogram();
+
+    MessageTypeMetrics(final String listener, final String messageType) {
+        this.listener = listener;
+        this.messageType = messageType;
+    }
+
+    void recordReceived(final boolean isRedelivered, final long timeInBroker) {
+        this.received.incrementAndGet();
+        if (isRedelivered) {
+            this.redelivered.incrementAndGet();
+        }
+        if (timeInBroker >= 0) {
+            this.brokerTime.record(timeInBroker);
+        }
+    }
+
+    void recordProcessed(final long processingMillis, final boolean isFailed) {
+        this.processingTime.record(processingMillis);
+        if (isFailed) {
+            this.failed.incrementAndGet();
+        }
+    }
+
+    String getListener() {
+        return this.listener;
+    }
+
+    long getProcessed() {
+        return this.processingTime.getCount();
+    }
+
+    long getProcessingTime() {
+        return this.processingTime.getSum();
+    }
+
+    MessageTypeStatistics snapshot() {
+        return new MessageTypeStatistics(this.listener, this.messageType, this.received.get(), this.failed.get(),
+                this.redelivered.get(), this.processingTime.getMean(), this.processingTime.getPercentile(50),
+                this.processingTime.getPercentile(95), this.processingTime.getPercentile(99),
+                this.processingTime.getMax(), this.processingTime.getBuckets(), this.brokerTime.getMean(),
+                this.brokerTime.getPercentile(95), this.brokerTime.getMax());
+    }
+}
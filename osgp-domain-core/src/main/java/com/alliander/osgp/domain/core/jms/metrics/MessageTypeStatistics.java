@@ -0,0 +1,136 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.domain.core.jms.metrics;
+
+import java.beans.ConstructorProperties;
+import java.util.Arrays;
+
+/**
+ * Snapshot of the metrics of the messages of one type received by one
+ * listener. Durations are in milliseconds.
+ */
+public class MessageTypeStatistics {
+
+    private final String listener;
+    private final String messageType;
+    private final long received;
+    private final long failed;
+    private final long redelivered;
+    private final long processingTimeMean;
+    private final long processingTime50thPercentile;
+    private final long processingTime95thPercentile;
+    private final long processingTime99thPercentile;
+    private final long processingTimeMax;
+    private final long[] processingTimeHistogram;
+    private final long brokerTimeMean;
+    private final long brokerTime95thPercentile;
+    private final long brokerTimeMax;
+
+    @ConstructorProperties({ "listener", "messageType", "received", "failed", "redelivered", "processingTimeMean",
+            "processingTime50thPercentile", "processingTime95thPercentile", "processingTime99thPercentile",
+            "processingTimeMax", "processingTimeHistogram", "brokerTimeMean", "brokerTime95thPercentile",
+            "brokerTimeMax" })
+    public MessageTypeStatistics(final String listener, final String messageType, final long received,
+            final long failed, final long redelivered, final long processingTimeMean,
+            final long processingTime50thPercentile, final long processingTime95thPercentile,
+            final long processingTime99thPercentile, final long processingTimeMax,
+            final long[] processingTimeHistogram, final long brokerTimeMean, final long brokerTime95thPercentile,
+            final long brokerTimeMax) {
+        this.listener = listener;
+        this.messageType = messageType;
+        this.received = received;
+        this.failed = failed;
+        this.redelivered = redelivered;
+        this.processingTimeMean = processingTimeMean;
+        this.processingTime50thPercentile = processingTime50thPercentile;
+        this.processingTime95thPercentile = processingTime95thPercentile;
+        this.processingTime99thPercentile = processingTime99thPercentile;
+        this.processingTimeMax = processingTimeMax;
+        this.processingTimeHistogram = Arrays.copyOf(processingTimeHistogram, processingTimeHistogram.length);
+        this.brokerTimeMean = brokerTimeMean;
+        this.brokerTime95thPercentile = brokerTime95thPercentile;
+        this.brokerTimeMax = brokerTimeMax;
+    }
+
+    /**
+     * @return The name of the listener, which includes the adapter the
+     *         messages came from.
+     */
+    public String getListener() {
+        return this.listener;
+    }
+
+    public String getMessageType() {
+        return this.messageType;
+    }
+
+    public long getReceived() {
+        return this.received;
+    }
+
+    public long getFailed() {
+        return this.failed;
+    }
+
+    public long getRedelivered() {
+        return this.redelivered;
+    }
+
+    public long getProcessingTimeMean() {
+        return this.processingTimeMean;
+    }
+
+    public long getProcessingTime50thPercentile() {
+        return this.processingTime50thPercentile;
+    }
+
+    public long getProcessingTime95thPercentile() {
+        return this.processingTime95thPercentile;
+    }
+
+    public long getProcessingTime99thPercentile() {
+        return this.processingTime99thPercentile;
+    }
+
+    public long getProcessingTimeMax() {
+        return this.processingTimeMax;
+    }
+
+    /**
+     * @return The number of messages per processing time bucket, the buckets
+     *         end at 1, 2, 5, 10, 20, 50, 100, 200, 500, 1000, 2000, 5000,
+     *         10000, 30000 and 60000 ms, the last bucket holds all longer
+     *         processing times.
+     */
+    public long[] getProcessingTimeHistogram() {
+        return Arrays.copyOf(this.processingTimeHistogram, this.processingTimeHistogram.length);
+    }
+
+    /**
+     * @return The mean time between sending a message and receiving it.
+     */
+    public long getBrokerTimeMean() {
+        return this.brokerTimeMean;
+    }
+
+    public long getBrokerTime95thPercentile() {
+        return this.brokerTime95thPercentile;
+    }
+
+    public long getBrokerTimeMax() {
+        return this.brokerTimeMax;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "MessageTypeStatistics[listener=%s, messageType=%s, received=%d, failed=%d, redelivered=%d, processingTimeMean=%d, processingTime95thPercentile=%d, brokerTimeMean=%d]",
+                this.listener, this.messageType, this.received, this.failed, this.redelivered,
+                this.processingTimeMean, this.processingTime95thPercentile, this.brokerTimeMean);
+    }
+}
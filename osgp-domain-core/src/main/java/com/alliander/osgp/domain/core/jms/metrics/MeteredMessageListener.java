@@ -0,0 +1,123 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.domain.core.jms.metrics;
+
+import javax.jms.JMSException;
+import javax.jms.Message;
+import javax.jms.MessageListener;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Records the metrics of the messages received by a message listener: the
+ * number of messages, redeliveries and failures, the time a message spent in
+ * the broker and the time it took to process it.
+ *
+ * A message counts as failed when the listener throws an exception, or when
+ * the listener handles the exception itself and calls {@link #markFailed()}.
+ */
+public class MeteredMessageListener implements MessageListener {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MeteredMessageListener.class);
+
+    private static final String DELIVERY_COUNT = "JMSXDeliveryCount";
+
+    private static final ThreadLocal<boolean[]> FAILED = new ThreadLocal<>();
+
+    private final MessageMetrics messageMetrics;
+    private final String name;
+    private final MessageListener messageListener;
+
+    /**
+     * @param name
+     *            The name of the listener, the metrics are kept per name and
+     *            message type. Include the adapter the messages come from, for
+     *            instance "domain-requests PUBLIC_LIGHTING-1.0".
+     */
+    public MeteredMessageListener(final MessageMetrics messageMetrics, final String name,
+            final MessageListener messageListener) {
+        this.messageMetrics = messageMetrics;
+        this.name = name;
+        this.messageListener = messageListener;
+    }
+
+    /**
+     * Marks the message being processed by the current thread as failed, for
+     * listeners that log exceptions instead of throwing them. Does nothing
+     * when the listener is not metered.
+     */
+    public static void markFailed() {
+        final boolean[] failed = FAILED.get();
+        if (failed != null) {
+            failed[0] = true;
+        }
+    }
+
+    @Override
+    public void onMessage(final Message message) {
+        final long start = System.currentTimeMillis();
+        final MessageTypeMetrics metrics = this.messageMetrics.getMessageTypeMetrics(this.name,
+                this.getMessageType(message));
+        metrics.recordReceived(this.isRedelivered(message), this.getTimeInBroker(message, start));
+
+        final boolean[] failed = { false };
+        final boolean[] outer = FAILED.get();
+        FAILED.set(failed);
+        try {
+            this.messageListener.onMessage(message);
+        } catch (final RuntimeException e) {
+            failed[0] = true;
+            throw e;
+        } finally {
+            if (outer == null) {
+                FAILED.remove();
+            } else {
+                FAILED.set(outer);
+            }
+            metrics.recordProcessed(System.currentTimeMillis() - start, failed[0]);
+        }
+    }
+
+    public String getName() {
+        return this.name;
+    }
+
+    private String getMessageType(final Message message) {
+        try {
+            return message.getJMSType();
+        } catch (final JMSException e) {
+            LOGGER.debug("Unable to get the type of message", e);
+            return null;
+        }
+    }
+
+    private boolean isRedelivered(final Message message) {
+        try {
+            return message.getJMSRedelivered()
+                    || message.propertyExists(DELIVERY_COUNT) && message.getIntProperty(DELIVERY_COUNT) > 1;
+        } catch (final JMSException e) {
+            LOGGER.debug("Unable to check if message was redelivered", e);
+            return false;
+        }
+    }
+
+    /**
+     * @return The time between sending and receiving the message, or -1 when
+     *         the message has no time stamp.
+     */
+    private long getTimeInBroker(final Message message, final long received) {
+        try {
+            final long sent = message.getJMSTimestamp();
+            return sent > 0 ? Math.max(0, received - sent) : -1;
+        } catch (final JMSException e) {
+            LOGGER.debug("Unable to get the time stamp of message", e);
+            return -1;
+        }
+    }
+}
@@ -28,6 +28,9 @@ public interface DeviceAuthorizationRepository extends JpaRepository<DeviceAutho
 
     List<DeviceAuthorization> findByOrganisationAndDevice(Organisation organisation, Device device);
 
+    @Query("select da.functionGroup from DeviceAuthorization da where da.organisation = ?1 and da.device = ?2")
+    List<DeviceFunctionGroup> findFunctionGroupsByOrganisationAndDevice(Organisation organisation, Device device);
+
     @Query("select da from DeviceAuthorization da "
             + "where da.device = ?1 "
             + "and (?2 in "
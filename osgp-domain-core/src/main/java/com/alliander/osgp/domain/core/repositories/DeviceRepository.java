@@ -8,8 +8,12 @@
 package com.alliander.osgp.domain.core.repositories;
 
 import java.net.InetAddress;
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
+import java.util.stream.Stream;
+
+import javax.persistence.QueryHint;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -17,6 +21,7 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
@@ -25,11 +30,22 @@ import com.alliander.osgp.domain.core.entities.Device;
 import com.alliander.osgp.domain.core.entities.DeviceModel;
 import com.alliander.osgp.domain.core.entities.Organisation;
 import com.alliander.osgp.domain.core.valueobjects.DeviceLifecycleStatus;
+import com.alliander.osgp.domain.core.valueobjects.DeviceSummary;
 
 @Repository
 @Transactional
 public interface DeviceRepository extends JpaRepository<Device, Long>, JpaSpecificationExecutor<Device> {
 
+    String SELECT_DEVICE_SUMMARY = "SELECT NEW com.alliander.osgp.domain.core.valueobjects.DeviceSummary("
+            + "d.id, d.creationTime, d.deviceIdentification, d.alias, d.deviceType, d.containerCity, "
+            + "d.containerStreet, d.containerPostalCode, d.containerNumber, d.containerMunicipality, "
+            + "d.gpsLatitude, d.gpsLongitude, d.isActivated, d.inMaintenance, d.deviceLifecycleStatus) FROM Device d";
+
+    String WHERE_NO_OWNER = " WHERE NOT EXISTS (SELECT auth.id FROM d.authorizations auth "
+            + "WHERE auth.functionGroup = com.alliander.osgp.domain.core.valueobjects.DeviceFunctionGroup.OWNER)";
+
+    String ORDER_BY_CREATION_TIME_AND_ID = " ORDER BY d.creationTime DESC, d.id DESC";
+
     Device findByDeviceIdentification(String deviceIdentification);
 
     @Query("SELECT d FROM Device d JOIN FETCH d.deviceFirmwareFiles dff JOIN FETCH dff.firmwareFile ff "
@@ -39,6 +55,20 @@ public interface DeviceRepository extends JpaRepository<Device, Long>, JpaSpecif
 
     List<Device> findByNetworkAddress(InetAddress address);
 
+    List<Device> findByNetworkAddressIn(Collection<InetAddress> addresses);
+
+    List<Device> findByDeviceIdentificationIn(Collection<String> deviceIdentifications);
+
+    /**
+     * Finds the devices with the given ids together with their authorizations
+     * and the authorized organisations, so the owner of the devices is known
+     * outside a transaction. Use it after finding a page of devices, a fetch
+     * join in a paged query would page in memory.
+     */
+    @Query("SELECT DISTINCT d FROM Device d LEFT JOIN FETCH d.authorizations a LEFT JOIN FETCH a.organisation "
+            + "WHERE d.id IN (?1)")
+    List<Device> findWithAuthorizationsByIdIn(Collection<Long> ids);
+
     @Query("SELECT d " + "FROM Device d " + "WHERE EXISTS " + "(" + "	SELECT auth.id "
             + "	FROM d.authorizations auth " + "	WHERE auth.organisation = ?1" + ")")
     Page<Device> findAllAuthorized(Organisation organisation, Pageable request);
@@ -48,6 +78,34 @@ public interface DeviceRepository extends JpaRepository<Device, Long>, JpaSpecif
             + "	WHERE auth.functionGroup = com.alliander.osgp.domain.core.valueobjects.DeviceFunctionGroup.OWNER" + ")")
     List<Device> findDevicesWithNoOwner();
 
+    /**
+     * Finds the first summaries of devices which have no owner, newest first.
+     * Use {@link #findSummariesOfDevicesWithNoOwnerBefore} for the next pages.
+     */
+    @Query(SELECT_DEVICE_SUMMARY + WHERE_NO_OWNER + ORDER_BY_CREATION_TIME_AND_ID)
+    List<DeviceSummary> findSummariesOfDevicesWithNoOwner(Pageable pageable);
+
+    /**
+     * Finds the summaries of devices which have no owner after the given
+     * position, newest first. The upper bound on the creation time alone lets
+     * the seek use device_creation_time_id_idx.
+     */
+    @Query(SELECT_DEVICE_SUMMARY + WHERE_NO_OWNER
+            + " AND d.creationTime <= :creationTime AND (d.creationTime < :creationTime OR d.id < :id)"
+            + ORDER_BY_CREATION_TIME_AND_ID)
+    List<DeviceSummary> findSummariesOfDevicesWithNoOwnerBefore(@Param("creationTime") Date creationTime,
+            @Param("id") Long id, Pageable pageable);
+
+    /**
+     * Streams the summaries of all devices which have no owner, in no
+     * particular order. The rows are read through a database cursor, a fetch
+     * size at a time, so the stream has to be consumed and closed within a
+     * transaction.
+     */
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "1000"))
+    @Query(SELECT_DEVICE_SUMMARY + WHERE_NO_OWNER)
+    Stream<DeviceSummary> streamSummariesOfDevicesWithNoOwner();
+
     @Query("SELECT d " + "FROM Device d " + "WHERE EXISTS " + "(" + "	SELECT auth.id "
             + "	FROM d.authorizations auth " + "	WHERE auth.organisation = ?1 AND "
             + "		(auth.functionGroup = com.alliander.osgp.domain.core.valueobjects.DeviceFunctionGroup.OWNER OR "
@@ -16,6 +16,7 @@ import org.springframework.stereotype.Repository;
 
 import com.alliander.osgp.domain.core.entities.DeviceModel;
 import com.alliander.osgp.domain.core.entities.FirmwareFile;
+import com.alliander.osgp.domain.core.entities.FirmwareFileFirmwareModule;
 
 @Repository
 public interface FirmwareFileRepository extends JpaRepository<FirmwareFile, Long> {
@@ -60,4 +61,36 @@ public interface FirmwareFileRepository extends JpaRepository<FirmwareFile, Long
     @Query("SELECT ff FROM FirmwareFile ff JOIN FETCH ff.firmwareModules fffm JOIN FETCH fffm.firmwareModule fm "
             + "WHERE ff.identification = :identification")
     FirmwareFile findByIdentification(@Param("identification") String identification);
+
+    /**
+     * Returns the id of a firmware file, without loading the firmware file
+     * itself.
+     */
+    @Query("SELECT ff.id FROM FirmwareFile ff WHERE ff.identification = :identification")
+    Long findIdByIdentification(@Param("identification") String identification);
+
+    /**
+     * Returns the module versions of a firmware file with their firmware
+     * modules, without loading the firmware file itself.
+     */
+    @Query("SELECT fffm FROM FirmwareFileFirmwareModule fffm JOIN FETCH fffm.firmwareModule fm "
+            + "WHERE fffm.firmwareFile.identification = :identification")
+    List<FirmwareFileFirmwareModule> findFirmwareModulesByIdentification(
+            @Param("identification") String identification);
+
+    /**
+     * Returns the hash of the contents of a firmware file, without loading the
+     * firmware file itself.
+     */
+    @Query("SELECT ff.hash FROM FirmwareFile ff WHERE ff.identification = :identification")
+    String findHashByIdentification(@Param("identification") String identification);
+
+    /**
+     * Returns only the contents of a firmware file, without its device models
+     * and firmware modules.
+     */
+    @Query("SELECT ff.file FROM FirmwareFile ff WHERE ff.identification = :identification")
+    byte[] findFileByIdentification(@Param("identification") String identification);
+
+    long countByIdentification(String identification);
 }
@@ -12,6 +12,7 @@ import java.util.List;
 
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import com.alliander.osgp.domain.core.entities.ScheduledTask;
@@ -22,8 +23,45 @@ public interface ScheduledTaskRepository extends JpaRepository<ScheduledTask, Lo
     List<ScheduledTask> findByStatusAndScheduledTimeLessThan(ScheduledTaskStatusType status, Timestamp currentTimestamp,
             Pageable pageable);
 
+    /**
+     * Selects due scheduled tasks and locks them for the current transaction.
+     * Rows locked by other transactions are skipped, so several instances can
+     * claim tasks at the same time without waiting for each other or picking
+     * the same task. Requires PostgreSQL 9.5 or later.
+     *
+     * @param status
+     *            the ordinal of the ScheduledTaskStatusType, as stored in the
+     *            status column.
+     */
+    @Query(value = "SELECT * FROM scheduled_task WHERE status = ?1 AND scheduled_time < ?2 "
+            + "ORDER BY scheduled_time LIMIT ?3 FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<ScheduledTask> findAndLockByStatusAndScheduledTimeLessThan(int status, Timestamp currentTimestamp,
+            int maxResults);
+
+    /**
+     * Selects scheduled tasks with the given status that were claimed before
+     * the given time and locks them for the current transaction, skipping rows
+     * locked by other transactions. Requires PostgreSQL 9.5 or later.
+     *
+     * @param status
+     *            the ordinal of the ScheduledTaskStatusType, as stored in the
+     *            status column.
+     */
+    @Query(value = "SELECT * FROM scheduled_task WHERE status = ?1 AND claimed_time < ?2 "
+            + "ORDER BY claimed_time LIMIT ?3 FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<ScheduledTask> findAndLockByStatusAndClaimedTimeLessThan(int status, Timestamp claimedBefore,
+            int maxResults);
+
+    /**
+     * @return the scheduled task with the given status that is due first, or
+     *         null when there is none.
+     */
+    ScheduledTask findFirstByStatusOrderByScheduledTimeAsc(ScheduledTaskStatusType status);
+
     List<ScheduledTask> findByDeviceIdentification(String deviceIdentification);
 
+    long countByDeviceIdentificationAndStatus(String deviceIdentification, ScheduledTaskStatusType status);
+
     List<ScheduledTask> findByOrganisationIdentification(String organisationIdentification);
 
     ScheduledTask findByCorrelationUid(String correlationUid);
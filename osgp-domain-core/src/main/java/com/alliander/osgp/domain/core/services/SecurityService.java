@@ -21,7 +21,6 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import com.alliander.osgp.domain.core.entities.Device;
-import com.alliander.osgp.domain.core.entities.DeviceAuthorization;
 import com.alliander.osgp.domain.core.entities.Organisation;
 import com.alliander.osgp.domain.core.exceptions.NotAuthorizedException;
 import com.alliander.osgp.domain.core.repositories.DeviceAuthorizationRepository;
@@ -95,13 +94,14 @@ public class SecurityService {
      */
     public void checkAuthorization(final Organisation organisation, final Device device, final DeviceFunction function)
             throws NotAuthorizedException {
-        // Fetch all authorizations for device
-        final List<DeviceAuthorization> authorizations = this.deviceAuthorizationRepository
-                .findByOrganisationAndDevice(organisation, device);
+        // Fetch the function groups the organisation is authorized for, without
+        // loading the authorizations and organisations themselves
+        final List<DeviceFunctionGroup> functionGroups = this.deviceAuthorizationRepository
+                .findFunctionGroupsByOrganisationAndDevice(organisation, device);
 
-        final List<DeviceFunction> authorizedDeviceFunctions = this.getDeviceFunctionsForAuthorizations(authorizations);
+        final List<DeviceFunction> authorizedDeviceFunctions = this.getDeviceFunctionsForFunctionGroups(functionGroups);
         if (authorizedDeviceFunctions != null && authorizedDeviceFunctions.contains(function)) {
-            LOGGER.info(
+            LOGGER.debug(
                     "Organisation {} is allowed {} for device {}",
                     new Object[] { organisation.getOrganisationIdentification(), function,
                             device.getDeviceIdentification() });
@@ -115,15 +115,15 @@ public class SecurityService {
         throw new NotAuthorizedException(organisation.getOrganisationIdentification());
     }
 
-    private List<DeviceFunction> getDeviceFunctionsForAuthorizations(final List<DeviceAuthorization> authorizations) {
-        if (authorizations == null || authorizations.isEmpty()) {
+    private List<DeviceFunction> getDeviceFunctionsForFunctionGroups(final List<DeviceFunctionGroup> functionGroups) {
+        if (functionGroups == null || functionGroups.isEmpty()) {
             return Collections.emptyList();
         }
 
         final Set<DeviceFunctionGroup> authorizedFunctionGroups = EnumSet.noneOf(DeviceFunctionGroup.class);
-        for (final DeviceAuthorization authorization : authorizations) {
-            if (authorization.getFunctionGroup() != null) {
-                authorizedFunctionGroups.add(authorization.getFunctionGroup());
+        for (final DeviceFunctionGroup functionGroup : functionGroups) {
+            if (functionGroup != null) {
+                authorizedFunctionGroups.add(functionGroup);
             }
         }
 
@@ -7,6 +7,7 @@
  */
 package com.alliander.osgp.domain.core.specifications;
 
+import java.util.Date;
 import java.util.List;
 
 import org.springframework.data.jpa.domain.Specification;
@@ -59,4 +60,12 @@ public interface DeviceSpecifications {
 
     Specification<Device> excludeDeviceIdentificationList(List<String> deviceIdentifications)
             throws ArgumentNullOrEmptyException;
+
+    /**
+     * Selects the devices that come after the given position when devices are
+     * ordered by creation time and id, both descending. Used to page through
+     * devices by keyset instead of by offset.
+     */
+    Specification<Device> isCreatedBefore(final Date creationTime, final Long id)
+            throws ArgumentNullOrEmptyException;
 }
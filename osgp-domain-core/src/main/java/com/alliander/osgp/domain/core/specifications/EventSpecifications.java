@@ -29,4 +29,11 @@ public interface EventSpecifications {
 
     Specification<Event> hasEventTypes(final List<EventType> eventTypes) throws ArgumentNullOrEmptyException;
 
+    /**
+     * Selects the events that come after the given position when events are
+     * ordered by date time and id, both descending. Used to page through
+     * events by keyset instead of by offset.
+     */
+    Specification<Event> isBefore(final Date dateTime, final Long id) throws ArgumentNullOrEmptyException;
+
 }
\ No newline at end of file
@@ -0,0 +1,137 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.domain.core.valueobjects;
+
+import java.io.Serializable;
+import java.util.Date;
+
+/**
+ * The columns of a device, without its authorizations, protocol, model or
+ * firmware. Found with a constructor expression, so finding many devices does
+ * not load their entity graphs and the summaries are not kept in the
+ * persistence context. The properties are named as those of the Device entity,
+ * so both map alike.
+ */
+public class DeviceSummary implements Serializable {
+
+    /**
+     * Serial Version UID.
+     */
+    private static final long serialVersionUID = -2418730261933154263L;
+
+    private final Long id;
+    private final Date creationTime;
+    private final String deviceIdentification;
+    private final String alias;
+    private final String deviceType;
+    private final String containerCity;
+    private final String containerStreet;
+    private final String containerPostalCode;
+    private final String containerNumber;
+    private final String containerMunicipality;
+    private final Float gpsLatitude;
+    private final Float gpsLongitude;
+    private final boolean activated;
+    private final boolean inMaintenance;
+    private final DeviceLifecycleStatus deviceLifecycleStatus;
+
+    public DeviceSummary(final Long id, final Date creationTime, final String deviceIdentification,
+            final String alias, final String deviceType, final String containerCity, final String containerStreet,
+            final String containerPostalCode, final String containerNumber, final String containerMunicipality,
+            final Float gpsLatitude, final Float gpsLongitude, final boolean activated, final boolean inMaintenance,
+            final DeviceLifecycleStatus deviceLifecycleStatus) {
+        this.id = id;
+        this.creationTime = new Date(creationTime.getTime());
+        this.deviceIdentification = deviceIdentification;
+        this.alias = alias;
+        this.deviceType = deviceType;
+        this.containerCity = containerCity;
+        this.containerStreet = containerStreet;
+        this.containerPostalCode = containerPostalCode;
+        this.containerNumber = containerNumber;
+        this.containerMunicipality = containerMunicipality;
+        this.gpsLatitude = gpsLatitude;
+        this.gpsLongitude = gpsLongitude;
+        this.activated = activated;
+        this.inMaintenance = inMaintenance;
+        this.deviceLifecycleStatus = deviceLifecycleStatus;
+    }
+
+    public Long getId() {
+        return this.id;
+    }
+
+    public Date getCreationTime() {
+        return new Date(this.creationTime.getTime());
+    }
+
+    public String getDeviceIdentification() {
+        return this.deviceIdentification;
+    }
+
+    public String getAlias() {
+        return this.alias;
+    }
+
+    public String getDeviceType() {
+        return this.deviceType;
+    }
+
+    public String getContainerCity() {
+        return this.containerCity;
+    }
+
+    public String getContainerStreet() {
+        return this.containerStreet;
+    }
+
+    public String getContainerPostalCode() {
+        return this.containerPostalCode;
+    }
+
+    public String getContainerNumber() {
+        return this.containerNumber;
+    }
+
+    public String getContainerMunicipality() {
+        return this.containerMunicipality;
+    }
+
+    public Float getGpsLatitude() {
+        return this.gpsLatitude;
+    }
+
+    public Float getGpsLongitude() {
+        return this.gpsLongitude;
+    }
+
+    public boolean isActivated() {
+        return this.activated;
+    }
+
+    public boolean isInMaintenance() {
+        return this.inMaintenance;
+    }
+
+    public DeviceLifecycleStatus getDeviceLifecycleStatus() {
+        return this.deviceLifecycleStatus;
+    }
+
+    /**
+     * @return The position of this device when devices are ordered by creation
+     *         time and id.
+     */
+    public KeysetCursor getCursor() {
+        return new KeysetCursor(this.creationTime, this.id);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("DeviceSummary[id=%d, deviceIdentification=%s]", this.id, this.deviceIdentification);
+    }
+}
@@ -0,0 +1,65 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.domain.core.valueobjects;
+
+import java.io.Serializable;
+import java.util.Date;
+import java.util.Objects;
+
+/**
+ * The position of the last entity of a page, when entities are ordered by a
+ * date time and their id, both descending. The next page holds the entities
+ * after this position, so it is found with an index seek instead of by
+ * skipping all entities of the previous pages.
+ */
+public class KeysetCursor implements Serializable {
+
+    /**
+     * Serial Version UID.
+     */
+    private static final long serialVersionUID = 4169320745193526720L;
+
+    private final Date dateTime;
+
+    private final Long id;
+
+    public KeysetCursor(final Date dateTime, final Long id) {
+        this.dateTime = new Date(dateTime.getTime());
+        this.id = id;
+    }
+
+    public Date getDateTime() {
+        return new Date(this.dateTime.getTime());
+    }
+
+    public Long getId() {
+        return this.id;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof KeysetCursor)) {
+            return false;
+        }
+        final KeysetCursor other = (KeysetCursor) o;
+        return this.dateTime.equals(other.dateTime) && Objects.equals(this.id, other.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(this.dateTime, this.id);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("KeysetCursor[dateTime=%tFT%<tT.%<tL, id=%d]", this.dateTime, this.id);
+    }
+}
@@ -0,0 +1,49 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.domain.core.valueobjects;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A page of entities found by keyset. Unlike a
+ * {@link org.springframework.data.domain.Page} it has no total number of
+ * elements, so finding it takes no count query.
+ */
+public class KeysetPage<T> {
+
+    private final List<T> content;
+
+    private final KeysetCursor next;
+
+    /**
+     * @param next
+     *            The position of the last entity on this page, or null when
+     *            this is the last page.
+     */
+    public KeysetPage(final List<T> content, final KeysetCursor next) {
+        this.content = Collections.unmodifiableList(content);
+        this.next = next;
+    }
+
+    public List<T> getContent() {
+        return this.content;
+    }
+
+    /**
+     * @return The cursor to find the next page with, or null when this is the
+     *         last page.
+     */
+    public KeysetCursor getNext() {
+        return this.next;
+    }
+
+    public boolean hasNext() {
+        return this.next != null;
+    }
+}
@@ -0,0 +1,128 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.domain.core.codec;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import javax.jms.JMSException;
+
+import org.junit.Test;
+
+import com.alliander.osgp.domain.core.exceptions.MessageCodecException;
+
+public class CompactBinaryMessageCodecTest {
+
+    private final MessageCodec codec = new CompactBinaryMessageCodec();
+
+    @Test
+    public void testRoundTripOfAllSmartMeteringValueObjects() throws Exception {
+        final List<Class<?>> classes = SmartMeteringValueObjects.findClasses();
+        assertFalse("No smart metering value objects found", classes.isEmpty());
+
+        final List<String> failures = new ArrayList<>();
+        for (final Class<?> clazz : classes) {
+            final Serializable populated = (Serializable) SmartMeteringValueObjects.newPopulatedInstance(clazz);
+            this.roundTrip(clazz, populated, failures);
+        }
+        assertTrue("Round trip failed for: " + failures, failures.isEmpty());
+    }
+
+    @Test
+    public void testCompactCodecIsSmallerThanJavaSerialization() throws Exception {
+        final MessageCodec javaSerialization = new JavaSerializationMessageCodec();
+        long compactBytes = 0;
+        long javaBytes = 0;
+        for (final Class<?> clazz : SmartMeteringValueObjects.findClasses()) {
+            final Serializable populated = (Serializable) SmartMeteringValueObjects.newPopulatedInstance(clazz);
+            compactBytes += this.codec.encode(populated).length;
+            javaBytes += javaSerialization.encode(populated).length;
+        }
+        assertTrue("Compact messages (" + compactBytes + " bytes) should be smaller than serialized messages ("
+                + javaBytes + " bytes)", compactBytes < javaBytes);
+    }
+
+    @Test
+    public void testCodecIsDetectedFromHeader() throws Exception {
+        final MessageCodec javaSerialization = new JavaSerializationMessageCodec();
+
+        assertEquals(CompactBinaryMessageCodec.NAME,
+                MessageCodecs.detectCodec(this.codec.encode("payload")).getName());
+        assertEquals(JavaSerializationMessageCodec.NAME,
+                MessageCodecs.detectCodec(javaSerialization.encode("payload")).getName());
+    }
+
+    @Test(expected = JMSException.class)
+    public void testUnknownHeaderIsRejected() throws JMSException {
+        MessageCodecs.detectCodec(new byte[] { 1, 2, 3, 4 });
+    }
+
+    @Test
+    public void testRoundTripKeepsSharedReferences() throws MessageCodecException {
+        final ArrayList<Object> shared = new ArrayList<>();
+        shared.add("shared");
+        final ArrayList<Object> list = new ArrayList<>();
+        list.add(shared);
+        list.add(shared);
+        list.add(list);
+
+        @SuppressWarnings("unchecked")
+        final List<Object> decoded = (List<Object>) this.codec.decode(this.codec.encode(list));
+
+        assertEquals(3, decoded.size());
+        assertSame(decoded.get(0), decoded.get(1));
+        assertSame(decoded, decoded.get(2));
+    }
+
+    @Test
+    public void testNullRoundTrip() throws MessageCodecException {
+        assertNull(this.codec.decode(this.codec.encode(null)));
+    }
+
+    @Test(expected = MessageCodecException.class)
+    public void testDecodeRejectsUnknownFormat() throws MessageCodecException {
+        this.codec.decode(new byte[] { 1, 2, 3, 4 });
+    }
+
+    @Test(expected = MessageCodecException.class)
+    public void testDecodeRejectsUntrustedSerializedClass() throws MessageCodecException {
+        final HashMap<String, Serializable> map = new HashMap<>();
+        map.put("file", new File("untrusted"));
+
+        this.codec.decode(this.codec.encode(map));
+    }
+
+    @Test(expected = MessageCodecException.class)
+    public void testJavaSerializationRejectsUntrustedClass() throws MessageCodecException {
+        final MessageCodec javaSerialization = new JavaSerializationMessageCodec();
+
+        javaSerialization.decode(javaSerialization.encode(new File("untrusted")));
+    }
+
+    private void roundTrip(final Class<?> clazz, final Serializable value, final List<String> failures) {
+        try {
+            final Object decoded = this.codec.decode(this.codec.encode(value));
+            final String difference = SmartMeteringValueObjects.findDifference(value, decoded,
+                    clazz.getSimpleName());
+            if (difference != null) {
+                failures.add(difference);
+            }
+        } catch (final MessageCodecException | IllegalAccessException e) {
+            failures.add(clazz.getSimpleName() + ": " + e);
+        }
+    }
+}
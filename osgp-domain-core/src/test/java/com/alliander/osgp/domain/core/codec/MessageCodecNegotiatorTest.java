@@ -0,0 +1,63 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.domain.core.codec;
+
+import static org.junit.Assert.assertEquals;
+
+import javax.jms.JMSException;
+import javax.jms.Message;
+
+import org.apache.activemq.command.ActiveMQMessage;
+import org.junit.Test;
+
+public class MessageCodecNegotiatorTest {
+
+    private static final long HOLD_OFF = 60000;
+
+    private final MessageCodecNegotiator negotiator = new MessageCodecNegotiator(
+            MessageCodecs.forName(CompactBinaryMessageCodec.NAME), HOLD_OFF);
+
+    @Test
+    public void testJavaSerializationUntilAccepted() {
+        assertEquals(JavaSerializationMessageCodec.NAME, this.negotiator.select().getName());
+    }
+
+    @Test
+    public void testPreferredCodecOnceAccepted() throws JMSException {
+        this.negotiator.observe(this.message("java,compact-v1"));
+
+        assertEquals(CompactBinaryMessageCodec.NAME, this.negotiator.select().getName());
+    }
+
+    @Test
+    public void testJavaSerializationWhileNotAcceptedByAll() throws JMSException {
+        this.negotiator.observe(this.message("java,compact-v1"));
+        this.negotiator.observe(this.message(null));
+        this.negotiator.observe(this.message("java,compact-v1"));
+
+        assertEquals(JavaSerializationMessageCodec.NAME, this.negotiator.select().getName());
+    }
+
+    @Test
+    public void testPreferredCodecAfterHoldOff() throws JMSException {
+        final MessageCodecNegotiator withoutHoldOff = new MessageCodecNegotiator(
+                MessageCodecs.forName(CompactBinaryMessageCodec.NAME), 0);
+        withoutHoldOff.observe(this.message(null));
+        withoutHoldOff.observe(this.message("java,compact-v1"));
+
+        assertEquals(CompactBinaryMessageCodec.NAME, withoutHoldOff.select().getName());
+    }
+
+    private Message message(final String acceptedMessageCodecs) throws JMSException {
+        final Message message = new ActiveMQMessage();
+        if (acceptedMessageCodecs != null) {
+            message.setStringProperty(MessageCodecs.ACCEPTED_MESSAGE_CODECS, acceptedMessageCodecs);
+        }
+        return message;
+    }
+}
@@ -0,0 +1,323 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.domain.core.codec;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectStreamClass;
+import java.io.ObjectStreamConstants;
+import java.io.Serializable;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.joda.time.LocalDate;
+import org.joda.time.LocalDateTime;
+import org.joda.time.LocalTime;
+
+/**
+ * Creates instances of all smart metering value objects with every field
+ * filled in, and compares instances field by field. Fields are set directly,
+ * so the instances do not depend on the validation done by the constructors.
+ */
+final class SmartMeteringValueObjects {
+
+    private static final String PACKAGE_NAME = "com.alliander.osgp.domain.core.valueobjects.smartmetering";
+
+    private static final long TIMESTAMP = 1483228800000L;
+
+    private static final int MAX_DEPTH = 4;
+
+    private SmartMeteringValueObjects() {
+        // Only static methods.
+    }
+
+    /**
+     * @return all concrete serializable classes in the smart metering value
+     *         objects package.
+     */
+    static List<Class<?>> findClasses() {
+        final URL url = Thread.currentThread().getContextClassLoader().getResource(PACKAGE_NAME.replace('.', '/'));
+        final File directory;
+        try {
+            directory = new File(url.toURI());
+        } catch (final URISyntaxException e) {
+            throw new IllegalStateException(e);
+        }
+
+        final List<Class<?>> classes = new ArrayList<>();
+        for (final String fileName : new TreeSet<>(Arrays.asList(directory.list()))) {
+            if (!fileName.endsWith(".class")) {
+                continue;
+            }
+            final Class<?> clazz = loadClass(PACKAGE_NAME + "." + fileName.substring(0, fileName.length() - 6));
+            if (Serializable.class.isAssignableFrom(clazz) && !clazz.isInterface() && !clazz.isAnonymousClass()
+                    && !Modifier.isAbstract(clazz.getModifiers())) {
+                classes.add(clazz);
+            }
+        }
+        return classes;
+    }
+
+    private static Class<?> loadClass(final String className) {
+        try {
+            return Class.forName(className);
+        } catch (final ClassNotFoundException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @return an instance of the class with every field set to a non-null
+     *         value, as far as the nesting depth allows.
+     */
+    static Object newPopulatedInstance(final Class<?> clazz) throws ReflectiveOperationException {
+        return newValue(clazz, clazz, 0);
+    }
+
+    private static Object newInstance(final Class<?> clazz, final int depth) throws ReflectiveOperationException {
+        final Object instance = newEmptyInstance(clazz);
+        for (Class<?> type = clazz; type != null && type != Object.class; type = type.getSuperclass()) {
+            for (final Field field : type.getDeclaredFields()) {
+                if (Modifier.isStatic(field.getModifiers()) || Modifier.isTransient(field.getModifiers())) {
+                    continue;
+                }
+                field.setAccessible(true);
+                final Object value = newValue(field.getType(), field.getGenericType(), depth + 1);
+                if (value != null || !field.getType().isPrimitive()) {
+                    field.set(instance, value);
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Creates an instance without calling the constructors of the class, by
+     * deserializing a stream that describes the class without any fields.
+     */
+    private static Object newEmptyInstance(final Class<?> clazz) throws ReflectiveOperationException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (final DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeShort(ObjectStreamConstants.STREAM_MAGIC);
+            out.writeShort(ObjectStreamConstants.STREAM_VERSION);
+            out.writeByte(ObjectStreamConstants.TC_OBJECT);
+            out.writeByte(ObjectStreamConstants.TC_CLASSDESC);
+            out.writeUTF(clazz.getName());
+            out.writeLong(ObjectStreamClass.lookup(clazz).getSerialVersionUID());
+            out.writeByte(ObjectStreamConstants.SC_SERIALIZABLE);
+            out.writeShort(0);
+            out.writeByte(ObjectStreamConstants.TC_ENDBLOCKDATA);
+            out.writeByte(ObjectStreamConstants.TC_NULL);
+        } catch (final IOException e) {
+            throw new IllegalStateException(e);
+        }
+        try (final ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            return in.readObject();
+        } catch (final IOException e) {
+            throw new InstantiationException("Unable to instantiate " + clazz.getName() + ": " + e);
+        }
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private static Object newValue(final Class<?> type, final Type genericType, final int depth)
+            throws ReflectiveOperationException {
+        if (type == String.class || type == Serializable.class || type == Object.class) {
+            return "value-" + depth;
+        } else if (type == boolean.class || type == Boolean.class) {
+            return Boolean.TRUE;
+        } else if (type == byte.class || type == Byte.class) {
+            return (byte) 7;
+        } else if (type == short.class || type == Short.class) {
+            return (short) -300;
+        } else if (type == int.class || type == Integer.class) {
+            return 70000 + depth;
+        } else if (type == long.class || type == Long.class) {
+            return TIMESTAMP + depth;
+        } else if (type == float.class || type == Float.class) {
+            return 1.5f;
+        } else if (type == double.class || type == Double.class) {
+            return -2.25d;
+        } else if (type == char.class || type == Character.class) {
+            return 'c';
+        } else if (type == BigDecimal.class) {
+            return new BigDecimal("1234.5678");
+        } else if (type == BigInteger.class) {
+            return new BigInteger("123456789012345678901234567890");
+        } else if (type == Date.class) {
+            return new Date(TIMESTAMP);
+        } else if (type == DateTime.class) {
+            return new DateTime(TIMESTAMP, DateTimeZone.UTC);
+        } else if (type == LocalDate.class) {
+            return new LocalDate(2017, 1, 1);
+        } else if (type == LocalTime.class) {
+            return new LocalTime(12, 30);
+        } else if (type == LocalDateTime.class) {
+            return new LocalDateTime(2017, 1, 1, 12, 30);
+        } else if (type == DateTimeZone.class) {
+            return DateTimeZone.UTC;
+        } else if (type.isEnum()) {
+            final Object[] constants = type.getEnumConstants();
+            return constants[constants.length - 1];
+        } else if (type.isArray()) {
+            final Object array = Array.newInstance(type.getComponentType(), 2);
+            for (int i = 0; i < 2; i++) {
+                final Object element = newValue(type.getComponentType(), type.getComponentType(), depth + 1);
+                if (element != null) {
+                    Array.set(array, i, element);
+                }
+            }
+            return array;
+        } else if (depth > MAX_DEPTH) {
+            return null;
+        } else if (type == EnumSet.class) {
+            return EnumSet.allOf((Class) typeArgument(genericType, 0));
+        } else if (type == EnumMap.class) {
+            final Class keyType = typeArgument(genericType, 0);
+            final EnumMap map = new EnumMap(keyType);
+            map.put(keyType.getEnumConstants()[0], newValue(typeArgument(genericType, 1), depth));
+            return map;
+        } else if (Map.class.isAssignableFrom(type)) {
+            final Map map = new HashMap();
+            map.put(newValue(typeArgument(genericType, 0), depth), newValue(typeArgument(genericType, 1), depth));
+            return map;
+        } else if (Collection.class.isAssignableFrom(type)) {
+            final Collection collection;
+            if (SortedSet.class.isAssignableFrom(type)) {
+                collection = new TreeSet();
+            } else if (Set.class.isAssignableFrom(type)) {
+                collection = new HashSet();
+            } else {
+                collection = new ArrayList();
+            }
+            final Object element = newValue(typeArgument(genericType, 0), depth);
+            if (element != null) {
+                collection.add(element);
+            }
+            return collection;
+        } else if (Modifier.isAbstract(type.getModifiers())) {
+            final Class<?> subclass = findConcreteSubclass(type);
+            return subclass == null ? null : newInstance(subclass, depth);
+        } else if (type.getName().startsWith(PACKAGE_NAME) || type.getName().startsWith("com.alliander.osgp")) {
+            return newInstance(type, depth);
+        }
+        return null;
+    }
+
+    private static Object newValue(final Class<?> type, final int depth) throws ReflectiveOperationException {
+        return newValue(type, type, depth + 1);
+    }
+
+    private static Class<?> typeArgument(final Type genericType, final int index) {
+        if (genericType instanceof ParameterizedType) {
+            final Type argument = ((ParameterizedType) genericType).getActualTypeArguments()[index];
+            if (argument instanceof Class) {
+                return (Class<?>) argument;
+            }
+            if (argument instanceof ParameterizedType) {
+                return (Class<?>) ((ParameterizedType) argument).getRawType();
+            }
+        }
+        return String.class;
+    }
+
+    private static Class<?> findConcreteSubclass(final Class<?> type) {
+        for (final Class<?> clazz : findClasses()) {
+            if (type.isAssignableFrom(clazz)) {
+                return clazz;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Compares two objects field by field, descending into collections, maps
+     * and arrays.
+     *
+     * @return null if the objects are equal, otherwise the path of the first
+     *         difference found.
+     */
+    static String findDifference(final Object expected, final Object actual, final String path)
+            throws IllegalAccessException {
+        if (expected == null || actual == null) {
+            return expected == actual ? null : path;
+        }
+        if (expected.getClass() != actual.getClass()) {
+            return path + " (" + expected.getClass().getName() + " != " + actual.getClass().getName() + ")";
+        }
+        if (expected.getClass().isArray()) {
+            if (Array.getLength(expected) != Array.getLength(actual)) {
+                return path + ".length";
+            }
+            for (int i = 0; i < Array.getLength(expected); i++) {
+                final String difference = findDifference(Array.get(expected, i), Array.get(actual, i),
+                        path + "[" + i + "]");
+                if (difference != null) {
+                    return difference;
+                }
+            }
+            return null;
+        }
+        if (expected instanceof Collection) {
+            return findDifference(((Collection<?>) expected).toArray(), ((Collection<?>) actual).toArray(), path);
+        }
+        if (expected instanceof Map) {
+            final String difference = findDifference(((Map<?, ?>) expected).keySet().toArray(),
+                    ((Map<?, ?>) actual).keySet().toArray(), path + ".keys");
+            return difference != null ? difference
+                    : findDifference(((Map<?, ?>) expected).values().toArray(),
+                            ((Map<?, ?>) actual).values().toArray(), path + ".values");
+        }
+        if (!isValueObject(expected.getClass())) {
+            return expected.equals(actual) ? null : path;
+        }
+        for (Class<?> type = expected.getClass(); type != Object.class; type = type.getSuperclass()) {
+            for (final Field field : type.getDeclaredFields()) {
+                if (Modifier.isStatic(field.getModifiers()) || Modifier.isTransient(field.getModifiers())) {
+                    continue;
+                }
+                field.setAccessible(true);
+                final String difference = findDifference(field.get(expected), field.get(actual),
+                        path + "." + field.getName());
+                if (difference != null) {
+                    return difference;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static boolean isValueObject(final Class<?> clazz) {
+        return clazz.getName().startsWith("com.alliander.osgp") && !clazz.isEnum();
+    }
+}
@@ -0,0 +1,293 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.domain.core.jms;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.jms.Connection;
+import javax.jms.ConnectionFactory;
+import javax.jms.JMSException;
+import javax.jms.Message;
+import javax.jms.MessageListener;
+import javax.jms.MessageProducer;
+import javax.jms.Session;
+
+import org.apache.activemq.ActiveMQConnectionFactory;
+import org.apache.activemq.broker.BrokerPlugin;
+import org.apache.activemq.broker.BrokerService;
+import org.apache.activemq.plugin.StatisticsBrokerPlugin;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jms.listener.DefaultMessageListenerContainer;
+
+import com.alliander.osgp.domain.core.jms.metrics.MessageMetrics;
+import com.alliander.osgp.domain.core.jms.metrics.MeteredMessageListener;
+
+/**
+ * Simulates a backlog on a queue of an embedded broker, processed by a
+ * metered listener that takes a few milliseconds per message, and checks how
+ * the controller sizes the consumers of the listener container. The broker
+ * runs the statistics plugin the queue depth is read from.
+ */
+public class AdaptiveConcurrencyControllerTest {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AdaptiveConcurrencyControllerTest.class);
+
+    private static final String QUEUE = "adaptive.concurrency.test";
+
+    private static final int MINIMUM_CONSUMERS = 1;
+    private static final int MAXIMUM_CONSUMERS = 8;
+    private static final long PROCESSING_TIME = 5;
+    private static final long TICK = 100;
+    private static final long STATISTICS_TIMEOUT = 1000;
+
+    private static final AdaptiveConcurrencySettings SETTINGS = new AdaptiveConcurrencySettings(TICK, 500, 0.9, 2);
+
+    private final MessageMetrics messageMetrics = new MessageMetrics();
+
+    private BrokerService broker;
+    private ActiveMQConnectionFactory connectionFactory;
+    private DefaultMessageListenerContainer container;
+    private CountDownLatch processed;
+
+    @Before
+    public void startBroker() throws Exception {
+        this.broker = new BrokerService();
+        this.broker.setBrokerName("adaptive");
+        this.broker.setPersistent(false);
+        this.broker.setUseJmx(false);
+        this.broker.setPlugins(new BrokerPlugin[] { new StatisticsBrokerPlugin() });
+        this.broker.start();
+
+        this.connectionFactory = new ActiveMQConnectionFactory("vm://adaptive?create=false");
+    }
+
+    @After
+    public void stopBroker() throws Exception {
+        if (this.container != null) {
+            this.container.destroy();
+        }
+        this.broker.stop();
+    }
+
+    @Test
+    public void testConsumersFollowTheBacklog() throws Exception {
+        final AdaptiveConcurrencyController controller = this.createController(ConnectionPoolProbe.NONE);
+
+        // Until a message is processed the container keeps its own bounds.
+        controller.run();
+        assertEquals(MAXIMUM_CONSUMERS, this.container.getMaxConcurrentConsumers());
+        this.process(controller, 10);
+
+        // Without a backlog the consumers are removed one at a time.
+        int consumers = this.container.getMaxConcurrentConsumers();
+        for (int tick = 0; tick < MAXIMUM_CONSUMERS * SETTINGS.getScaleDownIntervals(); tick++) {
+            controller.run();
+            assertTrue(consumers - this.container.getMaxConcurrentConsumers() <= 1);
+            consumers = this.container.getMaxConcurrentConsumers();
+        }
+        assertEquals(MINIMUM_CONSUMERS, this.container.getMaxConcurrentConsumers());
+        assertEquals(MINIMUM_CONSUMERS, this.container.getConcurrentConsumers());
+
+        // 2000 messages of 5 ms need 20 consumers to be processed in 500 ms,
+        // more than the maximum.
+        final int messages = 2000;
+        final long start = System.nanoTime();
+        final int peak = this.process(controller, messages);
+        final long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        LOGGER.info("Processed {} messages in {} ms, with at most {} consumers", messages, elapsed, peak);
+
+        assertEquals(MAXIMUM_CONSUMERS, peak);
+        assertTrue("Expected less than half the time of one consumer, took " + elapsed + " ms",
+                elapsed < messages * PROCESSING_TIME / 2);
+    }
+
+    @Test
+    public void testNoConsumersAreAddedWhileThePoolIsSaturated() throws Exception {
+        final AdaptiveConcurrencyController controller = this.createController(new ConnectionPoolProbe() {
+            @Override
+            public double getSaturation() {
+                return 1;
+            }
+        });
+        this.process(controller, 10);
+
+        this.processed = new CountDownLatch(500);
+        this.sendMessages(500);
+        int consumers = this.container.getMaxConcurrentConsumers();
+        while (!this.processed.await(TICK, TimeUnit.MILLISECONDS)) {
+            controller.run();
+            assertTrue(this.container.getMaxConcurrentConsumers() <= consumers);
+            consumers = this.container.getMaxConcurrentConsumers();
+        }
+    }
+
+    @Test
+    public void testQueueDepth() throws JMSException {
+        this.sendMessages(1500);
+
+        final QueueDepthProbe probe = new BrokerStatisticsQueueDepthProbe(STATISTICS_TIMEOUT);
+        assertEquals(1500, probe.getQueueDepth(this.connectionFactory, QUEUE, Integer.MAX_VALUE));
+        assertEquals(100, probe.getQueueDepth(this.connectionFactory, QUEUE, 100));
+    }
+
+    @Test
+    public void testQueueDepthIsNotRequestedWithoutStatisticsPlugin() throws Exception {
+        final BrokerService plain = new BrokerService();
+        plain.setBrokerName("plain");
+        plain.setPersistent(false);
+        plain.setUseJmx(false);
+        plain.start();
+        try {
+            final ActiveMQConnectionFactory plainConnectionFactory = new ActiveMQConnectionFactory(
+                    "vm://plain?create=false");
+            final QueueDepthProbe probe = new BrokerStatisticsQueueDepthProbe(TICK);
+            assertTrue(probe.isAvailable());
+            try {
+                probe.getQueueDepth(plainConnectionFactory, QUEUE, Integer.MAX_VALUE);
+                fail("Expected no statistics without the statistics plugin");
+            } catch (final JMSException e) {
+                LOGGER.debug("No statistics, as expected", e);
+            }
+            assertFalse(probe.isAvailable());
+        } finally {
+            plain.stop();
+        }
+    }
+
+    @Test
+    public void testContainerIsReleasedWhenQueueDepthIsNotAvailable() throws Exception {
+        final AtomicBoolean available = new AtomicBoolean(true);
+        final QueueDepthProbe statistics = new BrokerStatisticsQueueDepthProbe(STATISTICS_TIMEOUT);
+        final AdaptiveConcurrencyController controller = this.createController(ConnectionPoolProbe.NONE,
+                new QueueDepthProbe() {
+                    @Override
+                    public int getMaximumDepth() {
+                        return statistics.getMaximumDepth();
+                    }
+
+                    @Override
+                    public int getQueueDepth(final ConnectionFactory connectionFactory, final String queueName,
+                            final int limit) throws JMSException {
+                        return statistics.getQueueDepth(connectionFactory, queueName, limit);
+                    }
+
+                    @Override
+                    public boolean isAvailable() {
+                        return available.get();
+                    }
+                });
+        this.process(controller, 10);
+        // Without a backlog the consumers are removed.
+        for (int tick = 0; tick < MAXIMUM_CONSUMERS * SETTINGS.getScaleDownIntervals(); tick++) {
+            controller.run();
+        }
+        assertEquals(MINIMUM_CONSUMERS, this.container.getMaxConcurrentConsumers());
+
+        available.set(false);
+        controller.run();
+
+        assertEquals(MINIMUM_CONSUMERS, this.container.getConcurrentConsumers());
+        assertEquals(MAXIMUM_CONSUMERS, this.container.getMaxConcurrentConsumers());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testContainerWithoutMeteredListenerIsRejected() {
+        final DefaultMessageListenerContainer unmetered = new DefaultMessageListenerContainer();
+        unmetered.setDestinationName(QUEUE);
+        unmetered.setMessageListener(new MessageListener() {
+            @Override
+            public void onMessage(final Message message) {
+                // Not metered.
+            }
+        });
+
+        new AdaptiveConcurrencyController(SETTINGS, this.messageMetrics,
+                new BrokerStatisticsQueueDepthProbe(STATISTICS_TIMEOUT), ConnectionPoolProbe.NONE).register("test",
+                        unmetered);
+    }
+
+    private AdaptiveConcurrencyController createController(final ConnectionPoolProbe connectionPoolProbe) {
+        return this.createController(connectionPoolProbe, new BrokerStatisticsQueueDepthProbe(STATISTICS_TIMEOUT));
+    }
+
+    private AdaptiveConcurrencyController createController(final ConnectionPoolProbe connectionPoolProbe,
+            final QueueDepthProbe queueDepthProbe) {
+        this.container = new DefaultMessageListenerContainer();
+        this.container.setConnectionFactory(this.connectionFactory);
+        this.container.setDestinationName(QUEUE);
+        this.container.setConcurrentConsumers(MINIMUM_CONSUMERS);
+        this.container.setMaxConcurrentConsumers(MAXIMUM_CONSUMERS);
+        this.container.setReceiveTimeout(TICK);
+        final MessageListener listener = new MessageListener() {
+            @Override
+            public void onMessage(final Message message) {
+                try {
+                    Thread.sleep(PROCESSING_TIME);
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                AdaptiveConcurrencyControllerTest.this.processed.countDown();
+            }
+        };
+        this.container.setMessageListener(new MeteredMessageListener(this.messageMetrics, "test", listener));
+        this.container.afterPropertiesSet();
+
+        final AdaptiveConcurrencyController controller = new AdaptiveConcurrencyController(SETTINGS,
+                this.messageMetrics, queueDepthProbe, connectionPoolProbe);
+        controller.register("test", this.container);
+        assertEquals(MINIMUM_CONSUMERS, this.container.getConcurrentConsumers());
+        assertEquals(MAXIMUM_CONSUMERS, this.container.getMaxConcurrentConsumers());
+
+        this.container.start();
+        return controller;
+    }
+
+    /**
+     * Sends messages and runs the controller until they are processed.
+     *
+     * @return The most consumers the container had.
+     */
+    private int process(final AdaptiveConcurrencyController controller, final int messages) throws Exception {
+        this.processed = new CountDownLatch(messages);
+        this.sendMessages(messages);
+
+        final long start = System.nanoTime();
+        int peak = this.container.getMaxConcurrentConsumers();
+        while (!this.processed.await(TICK, TimeUnit.MILLISECONDS)) {
+            controller.run();
+            peak = Math.max(peak, this.container.getMaxConcurrentConsumers());
+            assertTrue("Messages not processed in time", System.nanoTime() - start < TimeUnit.MINUTES.toNanos(1));
+        }
+        return peak;
+    }
+
+    private void sendMessages(final int messages) throws JMSException {
+        final Connection connection = this.connectionFactory.createConnection();
+        try {
+            final Session session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+            final MessageProducer producer = session.createProducer(session.createQueue(QUEUE));
+            for (int i = 0; i < messages; i++) {
+                producer.send(session.createTextMessage("message-" + i));
+            }
+            session.close();
+        } finally {
+            connection.close();
+        }
+    }
+}
@@ -0,0 +1,172 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.domain.core.jms.metrics;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.List;
+
+import javax.jms.JMSException;
+import javax.jms.Message;
+import javax.jms.MessageListener;
+
+import org.apache.activemq.command.ActiveMQObjectMessage;
+import org.junit.Test;
+
+public class MeteredMessageListenerTest {
+
+    private static final String LISTENER = "protocol-responses OSLP-1.0";
+
+    private final MessageMetrics messageMetrics = new MessageMetrics();
+
+    @Test
+    public void testMessagesAreCountedPerListenerAndMessageType() throws JMSException {
+        final MeteredMessageListener listener = new MeteredMessageListener(this.messageMetrics, LISTENER,
+                new SleepingMessageListener(5));
+        final MeteredMessageListener otherListener = new MeteredMessageListener(this.messageMetrics,
+                "protocol-responses DSMR-1.0", new SleepingMessageListener(0));
+
+        final long sent = System.currentTimeMillis() - 200;
+        for (int i = 0; i < 10; i++) {
+            listener.onMessage(this.message("GET_STATUS", sent, false));
+        }
+        listener.onMessage(this.message("SET_LIGHT", sent, true));
+        otherListener.onMessage(this.message("GET_STATUS", sent, false));
+
+        final MessageTypeStatistics getStatus = this.messageMetrics.getStatistics(LISTENER, "GET_STATUS");
+        assertEquals(10, getStatus.getReceived());
+        assertEquals(0, getStatus.getFailed());
+        assertEquals(0, getStatus.getRedelivered());
+        assertTrue("processing time " + getStatus.getProcessingTimeMean(), getStatus.getProcessingTimeMean() >= 5);
+        assertTrue("broker time " + getStatus.getBrokerTimeMean(), getStatus.getBrokerTimeMean() >= 200);
+
+        final MessageTypeStatistics setLight = this.messageMetrics.getStatistics(LISTENER, "SET_LIGHT");
+        assertEquals(1, setLight.getReceived());
+        assertEquals(1, setLight.getRedelivered());
+
+        assertEquals(1, this.messageMetrics.getStatistics("protocol-responses DSMR-1.0", "GET_STATUS").getReceived());
+        assertNull(this.messageMetrics.getStatistics("protocol-responses DSMR-1.0", "SET_LIGHT"));
+
+        final List<MessageTypeStatistics> statistics = this.messageMetrics.getStatistics();
+        assertEquals(3, statistics.size());
+        assertEquals("protocol-responses DSMR-1.0", statistics.get(0).getListener());
+        assertEquals("GET_STATUS", statistics.get(1).getMessageType());
+        assertEquals("SET_LIGHT", statistics.get(2).getMessageType());
+        assertEquals(12, this.messageMetrics.getReceived());
+        assertEquals(1, this.messageMetrics.getRedelivered());
+    }
+
+    @Test
+    public void testThrownExceptionIsCountedAsFailure() throws JMSException {
+        final MeteredMessageListener listener = new MeteredMessageListener(this.messageMetrics, LISTENER,
+                new MessageListener() {
+                    @Override
+                    public void onMessage(final Message message) {
+                        throw new IllegalStateException("Processing failed");
+                    }
+                });
+
+        try {
+            listener.onMessage(this.message("GET_STATUS", System.currentTimeMillis(), false));
+            fail("Exception should be rethrown, so the message is redelivered");
+        } catch (final IllegalStateException e) {
+            // expected
+        }
+
+        final MessageTypeStatistics statistics = this.messageMetrics.getStatistics(LISTENER, "GET_STATUS");
+        assertEquals(1, statistics.getReceived());
+        assertEquals(1, statistics.getFailed());
+    }
+
+    @Test
+    public void testHandledExceptionIsCountedAsFailureWhenMarked() throws JMSException {
+        final MeteredMessageListener listener = new MeteredMessageListener(this.messageMetrics, LISTENER,
+                new MessageListener() {
+                    @Override
+                    public void onMessage(final Message message) {
+                        try {
+                            if ("SET_LIGHT".equals(message.getJMSType())) {
+                                throw new JMSException("Unknown message type");
+                            }
+                        } catch (final JMSException e) {
+                            MeteredMessageListener.markFailed();
+                        }
+                    }
+                });
+
+        listener.onMessage(this.message("SET_LIGHT", System.currentTimeMillis(), false));
+        listener.onMessage(this.message("GET_STATUS", System.currentTimeMillis(), false));
+        // Outside a metered listener marking a failure has no effect.
+        MeteredMessageListener.markFailed();
+        listener.onMessage(this.message("GET_STATUS", System.currentTimeMillis(), false));
+
+        assertEquals(1, this.messageMetrics.getStatistics(LISTENER, "SET_LIGHT").getFailed());
+        assertEquals(0, this.messageMetrics.getStatistics(LISTENER, "GET_STATUS").getFailed());
+        assertEquals(1, this.messageMetrics.getFailed());
+    }
+
+    @Test
+    public void testMessageWithoutTypeOrTimestamp() throws JMSException {
+        final MeteredMessageListener listener = new MeteredMessageListener(this.messageMetrics, LISTENER,
+                new SleepingMessageListener(0));
+
+        listener.onMessage(this.message(null, 0, false));
+
+        final MessageTypeStatistics statistics = this.messageMetrics.getStatistics(LISTENER,
+                MessageMetrics.UNKNOWN_MESSAGE_TYPE);
+        assertEquals(1, statistics.getReceived());
+        assertEquals(0, statistics.getBrokerTimeMax());
+    }
+
+    @Test
+    public void testHistogramPercentiles() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 100; i++) {
+            histogram.record(i);
+        }
+        histogram.record(120000);
+
+        assertEquals(101, histogram.getCount());
+        assertEquals(120000, histogram.getMax());
+        assertEquals(50, histogram.getPercentile(49));
+        assertEquals(100, histogram.getPercentile(50));
+        assertEquals(100, histogram.getPercentile(99));
+        assertEquals(120000, histogram.getPercentile(100));
+        assertArrayEquals(new long[] { 1, 1, 3, 5, 10, 30, 50, 0, 0, 0, 0, 0, 0, 0, 0, 1 }, histogram.getBuckets());
+    }
+
+    private Message message(final String messageType, final long timestamp, final boolean redelivered)
+            throws JMSException {
+        final ActiveMQObjectMessage message = new ActiveMQObjectMessage();
+        message.setJMSType(messageType);
+        message.setJMSTimestamp(timestamp);
+        message.setJMSRedelivered(redelivered);
+        return message;
+    }
+
+    private static class SleepingMessageListener implements MessageListener {
+        private final long millis;
+
+        SleepingMessageListener(final long millis) {
+            this.millis = millis;
+        }
+
+        @Override
+        public void onMessage(final Message message) {
+            try {
+                Thread.sleep(this.millis);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,276 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.domain.core.repositories;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.persistence.EntityManager;
+
+import org.hibernate.Hibernate;
+import org.hibernate.ejb.HibernateEntityManagerFactory;
+import org.hibernate.ejb.HibernatePersistence;
+import org.hibernate.stat.Statistics;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort.Direction;
+import org.springframework.data.jpa.repository.support.JpaRepositoryFactory;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.ReflectionUtils;
+
+import com.alliander.osgp.domain.core.entities.Device;
+import com.alliander.osgp.domain.core.entities.DeviceFunctionMapping;
+import com.alliander.osgp.domain.core.entities.Organisation;
+import com.alliander.osgp.domain.core.exceptions.NotAuthorizedException;
+import com.alliander.osgp.domain.core.services.SecurityService;
+import com.alliander.osgp.domain.core.valueobjects.DeviceFunction;
+import com.alliander.osgp.domain.core.valueobjects.DeviceFunctionGroup;
+import com.alliander.osgp.domain.core.valueobjects.PlatformDomain;
+import com.alliander.osgp.domain.core.valueobjects.PlatformFunctionGroup;
+
+/**
+ * Counts the SQL statements of the main flows that need devices, on an
+ * embedded database. Before the authorizations of a device were loaded
+ * lazily, every device that was loaded cost the statement that touching its
+ * authorizations costs now.
+ */
+public class DeviceAuthorizationLoadingTest {
+
+    private static final String URL = "jdbc:h2:mem:authorizations;MODE=PostgreSQL;DB_CLOSE_DELAY=-1";
+
+    private static final int DEVICES = 60;
+    private static final int PAGE_SIZE = 50;
+
+    private static final String OWNER = "owner-org";
+    private static final String CONFIGURATION = "configuration-org";
+    private static final String UNAUTHORIZED = "unauthorized-org";
+
+    private static LocalContainerEntityManagerFactoryBean entityManagerFactory;
+    private static Statistics statistics;
+    private static TransactionTemplate transactionTemplate;
+    private static EntityManager entityManager;
+
+    private static DeviceRepository deviceRepository;
+    private static OrganisationRepository organisationRepository;
+    private static SecurityService securityService;
+
+    @BeforeClass
+    public static void createDevices() throws Exception {
+        final DriverManagerDataSource dataSource = new DriverManagerDataSource(URL);
+        dataSource.setDriverClassName("org.h2.Driver");
+
+        final Map<String, Object> properties = new HashMap<>();
+        properties.put("hibernate.dialect", "org.hibernate.dialect.H2Dialect");
+        properties.put("hibernate.hbm2ddl.auto", "create-drop");
+        properties.put("hibernate.generate_statistics", "true");
+
+        entityManagerFactory = new LocalContainerEntityManagerFactoryBean();
+        entityManagerFactory.setDataSource(dataSource);
+        entityManagerFactory.setPersistenceProviderClass(HibernatePersistence.class);
+        entityManagerFactory.setPackagesToScan("com.alliander.osgp.domain.core.entities");
+        entityManagerFactory.setJpaPropertyMap(properties);
+        entityManagerFactory.afterPropertiesSet();
+
+        statistics = ((HibernateEntityManagerFactory) entityManagerFactory.getNativeEntityManagerFactory())
+                .getSessionFactory().getStatistics();
+        transactionTemplate = new TransactionTemplate(new JpaTransactionManager(entityManagerFactory.getObject()));
+        entityManager = SharedEntityManagerCreator.createSharedEntityManager(entityManagerFactory.getObject());
+
+        final JpaRepositoryFactory repositoryFactory = new JpaRepositoryFactory(entityManager);
+        deviceRepository = repositoryFactory.getRepository(DeviceRepository.class);
+        organisationRepository = repositoryFactory.getRepository(OrganisationRepository.class);
+
+        securityService = new SecurityService();
+        inject(securityService, "deviceAuthorizationRepository",
+                repositoryFactory.getRepository(DeviceAuthorizationRepository.class));
+        inject(securityService, "deviceFunctionMappingRepository",
+                repositoryFactory.getRepository(DeviceFunctionMappingRepository.class));
+
+        transactionTemplate.execute(new TransactionCallback<Void>() {
+            @Override
+            public Void doInTransaction(final TransactionStatus status) {
+                final Organisation owner = persist(organisation(OWNER));
+                final Organisation configuration = persist(organisation(CONFIGURATION));
+                persist(organisation(UNAUTHORIZED));
+
+                for (int i = 1; i <= DEVICES; i++) {
+                    final Device device = persist(new Device(deviceIdentification(i)));
+                    persist(device.addAuthorization(owner, DeviceFunctionGroup.OWNER));
+                    persist(device.addAuthorization(configuration, DeviceFunctionGroup.CONFIGURATION));
+                }
+
+                persist(new DeviceFunctionMapping(DeviceFunctionGroup.OWNER, DeviceFunction.SET_LIGHT));
+                persist(new DeviceFunctionMapping(DeviceFunctionGroup.CONFIGURATION,
+                        DeviceFunction.GET_FIRMWARE_VERSION));
+                return null;
+            }
+        });
+    }
+
+    @AfterClass
+    public static void dropDevices() {
+        if (entityManagerFactory != null) {
+            entityManagerFactory.destroy();
+        }
+    }
+
+    @Before
+    public void setUp() {
+        statistics.clear();
+    }
+
+    @Test
+    public void testFindingDeviceDoesNotLoadAuthorizations() {
+        transactionTemplate.execute(new TransactionCallback<Void>() {
+            @Override
+            public Void doInTransaction(final TransactionStatus status) {
+                final Device device = deviceRepository.findByDeviceIdentification(deviceIdentification(1));
+
+                assertEquals(1, statistics.getPrepareStatementCount());
+                assertFalse(Hibernate.isInitialized(device.getAuthorizations()));
+
+                // The statement every lookup used to cost.
+                assertEquals(OWNER, device.getOwner().getOrganisationIdentification());
+                assertEquals(2, statistics.getPrepareStatementCount());
+                return null;
+            }
+        });
+    }
+
+    @Test
+    public void testAuthorizationCheckSelectsFunctionGroupsOnly() throws Exception {
+        final Device device = deviceRepository.findByDeviceIdentification(deviceIdentification(1));
+        final Organisation organisation = organisationRepository.findByOrganisationIdentification(CONFIGURATION);
+        statistics.clear();
+
+        securityService.checkAuthorization(organisation, device, DeviceFunction.GET_FIRMWARE_VERSION);
+
+        // The function groups of the organisation and the functions of those
+        // groups, no authorizations, organisations or devices.
+        assertEquals(2, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    public void testUnauthorizedCheckSelectsFunctionGroupsOnly() {
+        final Device device = deviceRepository.findByDeviceIdentification(deviceIdentification(1));
+        final Organisation organisation = organisationRepository.findByOrganisationIdentification(UNAUTHORIZED);
+        statistics.clear();
+
+        try {
+            securityService.checkAuthorization(organisation, device, DeviceFunction.SET_LIGHT);
+            fail("Expected the organisation not to be authorized for the device");
+        } catch (final NotAuthorizedException e) {
+            assertEquals(1, statistics.getPrepareStatementCount());
+        }
+    }
+
+    @Test
+    public void testPageOfDevicesFetchesAuthorizationsInOneStatement() {
+        transactionTemplate.execute(new TransactionCallback<Void>() {
+            @Override
+            public Void doInTransaction(final TransactionStatus status) {
+                final Page<Device> page = deviceRepository.findAll(new PageRequest(0, PAGE_SIZE, Direction.ASC, "id"));
+                // The page and the count of all devices.
+                assertEquals(2, statistics.getPrepareStatementCount());
+
+                deviceRepository.findWithAuthorizationsByIdIn(ids(page.getContent()));
+                for (final Device device : page.getContent()) {
+                    assertEquals(OWNER, device.getOwner().getOrganisationIdentification());
+                }
+
+                assertEquals(3, statistics.getPrepareStatementCount());
+                return null;
+            }
+        });
+    }
+
+    @Test
+    public void testPageOfDevicesWithoutFetchSelectsAuthorizationsPerDevice() {
+        transactionTemplate.execute(new TransactionCallback<Void>() {
+            @Override
+            public Void doInTransaction(final TransactionStatus status) {
+                final Page<Device> page = deviceRepository.findAll(new PageRequest(0, PAGE_SIZE, Direction.ASC, "id"));
+                for (final Device device : page.getContent()) {
+                    device.getOwner();
+                }
+
+                // What every page cost when the authorizations were eager.
+                assertEquals(2 + PAGE_SIZE, statistics.getPrepareStatementCount());
+                return null;
+            }
+        });
+    }
+
+    @Test
+    public void testFetchedDevicesKnowTheirOwnerOutsideTransaction() {
+        final List<Long> ids = ids(deviceRepository.findByDeviceIdentificationIn(
+                Arrays.asList(deviceIdentification(1), deviceIdentification(2), deviceIdentification(3))));
+        statistics.clear();
+
+        final List<Device> devices = deviceRepository.findWithAuthorizationsByIdIn(ids);
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(ids.size(), devices.size());
+        for (final Device device : devices) {
+            assertTrue(Hibernate.isInitialized(device.getAuthorizations()));
+            assertEquals(2, device.getAuthorizations().size());
+            assertEquals(OWNER, device.getOwner().getOrganisationIdentification());
+        }
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    private static String deviceIdentification(final int number) {
+        return String.format("TST%07d", number);
+    }
+
+    private static Organisation organisation(final String organisationIdentification) {
+        final Organisation organisation = new Organisation(organisationIdentification, organisationIdentification,
+                "TST", PlatformFunctionGroup.USER);
+        organisation.setDomains(Arrays.asList(PlatformDomain.COMMON));
+        return organisation;
+    }
+
+    private static <T> T persist(final T entity) {
+        entityManager.persist(entity);
+        return entity;
+    }
+
+    private static List<Long> ids(final List<Device> devices) {
+        final List<Long> ids = new ArrayList<>(devices.size());
+        for (final Device device : devices) {
+            ids.add(device.getId());
+        }
+        return ids;
+    }
+
+    private static void inject(final Object target, final String name, final Object value) {
+        final Field field = ReflectionUtils.findField(target.getClass(), name);
+        ReflectionUtils.makeAccessible(field);
+        ReflectionUtils.setField(field, target, value);
+    }
+}
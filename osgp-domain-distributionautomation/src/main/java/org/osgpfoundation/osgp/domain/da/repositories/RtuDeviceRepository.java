@@ -12,6 +12,7 @@ import java.util.List;
 
 import org.osgpfoundation.osgp.domain.da.entities.RtuDevice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import com.alliander.osgp.domain.core.valueobjects.DeviceLifecycleStatus;
@@ -22,6 +23,12 @@ public interface RtuDeviceRepository extends JpaRepository<RtuDevice, Long> {
 
     RtuDevice findByDeviceIdentification(String deviceIdentification);
 
+    /**
+     * Fetches the authorizations of the devices as well, the owner of the
+     * devices is needed to recover their communication outside a transaction.
+     */
+    @Query("SELECT DISTINCT r FROM RtuDevice r LEFT JOIN FETCH r.authorizations a LEFT JOIN FETCH a.organisation "
+            + "WHERE r.deviceLifecycleStatus = ?1 AND r.lastCommunicationTime < ?2")
     List<RtuDevice> findByDeviceLifecycleStatusAndLastCommunicationTimeBefore(
             DeviceLifecycleStatus deviceLifecycleStatus, Date lastCommunicationTime);
 }
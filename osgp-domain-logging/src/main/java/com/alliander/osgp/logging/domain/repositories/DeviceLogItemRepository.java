@@ -7,6 +7,8 @@
  */
 package com.alliander.osgp.logging.domain.repositories;
 
+import java.util.Date;
+
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -17,4 +19,14 @@ import com.alliander.osgp.logging.domain.entities.DeviceLogItem;
 @Repository
 public interface DeviceLogItemRepository extends JpaRepository<DeviceLogItem, Long> {
     Page<DeviceLogItem> findByDeviceIdentification(String deviceIdentification, Pageable pagable);
+
+    /*
+     * The device_log_item table is partitioned by day of modification time,
+     * these queries only scan the partitions from the given time on.
+     */
+
+    Page<DeviceLogItem> findByDeviceIdentificationAndModificationTimeAfter(String deviceIdentification,
+            Date modificationTime, Pageable pageable);
+
+    Page<DeviceLogItem> findByModificationTimeAfter(Date modificationTime, Pageable pageable);
 }
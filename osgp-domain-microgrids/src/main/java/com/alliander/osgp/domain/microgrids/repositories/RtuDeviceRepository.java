@@ -7,10 +7,13 @@
  */
 package com.alliander.osgp.domain.microgrids.repositories;
 
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import com.alliander.osgp.domain.core.valueobjects.DeviceLifecycleStatus;
@@ -22,6 +25,21 @@ public interface RtuDeviceRepository extends JpaRepository<RtuDevice, Long> {
 
     RtuDevice findByDeviceIdentification(String deviceIdentification);
 
-    List<RtuDevice> findByDeviceLifecycleStatusAndLastCommunicationTimeBefore(
-            DeviceLifecycleStatus deviceLifecycleStatus, Date lastCommunicationTime);
+    /**
+     * Returns a page of the devices without communication since the given
+     * time, ordered by id and starting after the given id. Paging by id keeps
+     * the pages stable while devices drop out of the result because they
+     * communicate again.
+     */
+    List<RtuDevice> findByDeviceLifecycleStatusAndLastCommunicationTimeBeforeAndIdGreaterThanOrderByIdAsc(
+            DeviceLifecycleStatus deviceLifecycleStatus, Date lastCommunicationTime, Long id, Pageable pageable);
+
+    /**
+     * Returns the devices with the given ids, ordered by id, together with
+     * their authorizations, so the owner of the devices is known outside a
+     * transaction.
+     */
+    @Query("SELECT DISTINCT r FROM RtuDevice r LEFT JOIN FETCH r.authorizations a LEFT JOIN FETCH a.organisation "
+            + "WHERE r.id IN (?1) ORDER BY r.id")
+    List<RtuDevice> findWithAuthorizationsByIdIn(Collection<Long> ids);
 }
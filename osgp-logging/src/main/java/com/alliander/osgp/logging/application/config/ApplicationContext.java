@@ -8,6 +8,7 @@
 package com.alliander.osgp.logging.application.config;
 
 import javax.annotation.Resource;
+import javax.jms.Session;
 
 import org.apache.activemq.RedeliveryPolicy;
 import org.springframework.context.annotation.Bean;
@@ -38,7 +39,7 @@ import com.alliander.osgp.shared.application.config.jms.JmsConfigurationFactory;
 @PropertySources({ @PropertySource("classpath:osgp-logging.properties"),
     @PropertySource(value = "file:${osgp/Global/config}", ignoreResourceNotFound = true),
     @PropertySource(value = "file:${osgp/Logging/config}", ignoreResourceNotFound = true), })
-@Import({ LoggingConfig.class, ProtocolMessagingConfig.class })
+@Import({ LoggingConfig.class, ProtocolMessagingConfig.class, SchedulingConfig.class })
 public class ApplicationContext extends AbstractMessagingConfig {
 
     private static final String PROPERTY_NAME_JMS_DEFAULT_INITIAL_REDELIVERY_DELAY = "jms.default.initial.redelivery.delay";
@@ -75,7 +76,12 @@ public class ApplicationContext extends AbstractMessagingConfig {
     @Bean
     public DefaultMessageListenerContainer loggingMessageListenerContainer(
             final JmsConfiguration loggingRequestsJmsConfiguration) {
-        return loggingRequestsJmsConfiguration.getMessageListenerContainer();
+        final DefaultMessageListenerContainer messageListenerContainer = loggingRequestsJmsConfiguration
+                .getMessageListenerContainer();
+        // Acknowledge after the listener returned, which is after the log item
+        // was committed.
+        messageListenerContainer.setSessionAcknowledgeMode(Session.CLIENT_ACKNOWLEDGE);
+        return messageListenerContainer;
     }
 
     @Bean
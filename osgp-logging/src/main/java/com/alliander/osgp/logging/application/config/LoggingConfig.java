@@ -7,6 +7,7 @@
  */
 package com.alliander.osgp.logging.application.config;
 
+import java.util.Arrays;
 import java.util.Properties;
 
 import javax.annotation.PreDestroy;
@@ -26,7 +27,14 @@ import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
 import org.springframework.orm.jpa.JpaTransactionManager;
 import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
 
+import com.alliander.osgp.logging.domain.entities.DeviceLogItem;
+import com.alliander.osgp.logging.domain.entities.WebServiceMonitorLogItem;
 import com.alliander.osgp.logging.domain.repositories.WebServiceMonitorLogRepository;
+import com.alliander.osgp.logging.infra.db.DeviceLogItemInserter;
+import com.alliander.osgp.logging.infra.db.LogItemBatchWriter;
+import com.alliander.osgp.logging.infra.db.LogItemInserter;
+import com.alliander.osgp.logging.infra.db.LogPartitionMaintenance;
+import com.alliander.osgp.logging.infra.db.WebServiceMonitorLogItemInserter;
 import com.alliander.osgp.shared.application.config.AbstractConfig;
 import com.alliander.osgp.shared.infra.db.DefaultConnectionPoolFactory;
 import com.zaxxer.hikari.HikariDataSource;
@@ -64,6 +72,20 @@ public class LoggingConfig extends AbstractConfig {
 
     private static final String PROPERTY_NAME_ENTITYMANAGER_PACKAGES_TO_SCAN = "entitymanager.packages.to.scan";
 
+    private static final String PROPERTY_NAME_LOG_ITEM_BATCH_SIZE = "log.item.batch.size";
+    private static final String PROPERTY_NAME_LOG_ITEM_BATCH_MAX_DELAY = "log.item.batch.max.delay";
+    private static final String PROPERTY_NAME_LOG_ITEM_WRITE_TIMEOUT = "log.item.write.timeout";
+
+    private static final String PROPERTY_NAME_PROTOCOL_LOG_ITEM_MAX_CONCURRENT_CONSUMERS =
+            "jms.protocol.log.item.requests.max.concurrent.consumers";
+    private static final String PROPERTY_NAME_LOGGING_MAX_CONCURRENT_CONSUMERS = "jms.logging.max.concurrent.consumers";
+
+    private static final String PROPERTY_NAME_LOG_ITEM_RETENTION_DAYS = "log.item.retention.days";
+    private static final String PROPERTY_NAME_LOG_PARTITION_DAYS_AHEAD = "log.partition.days.ahead";
+    private static final String PROPERTY_NAME_LOG_PARTITION_MOVE_BATCH_SIZE = "log.partition.move.batch.size";
+    private static final String PROPERTY_NAME_LOG_PARTITION_MOVE_BATCHES_PER_RUN =
+            "log.partition.move.batches.per.run";
+
     private static final Logger LOGGER = LoggerFactory.getLogger(LoggingConfig.class);
 
     private HikariDataSource dataSource;
@@ -182,6 +204,64 @@ public class LoggingConfig extends AbstractConfig {
         return entityManagerFactoryBean;
     }
 
+    @Bean
+    public LogItemBatchWriter<DeviceLogItem> deviceLogItemWriter() {
+        return this.logItemBatchWriter(new DeviceLogItemInserter(),
+                PROPERTY_NAME_PROTOCOL_LOG_ITEM_MAX_CONCURRENT_CONSUMERS);
+    }
+
+    @Bean
+    public LogItemBatchWriter<WebServiceMonitorLogItem> webServiceMonitorLogItemWriter() {
+        return this.logItemBatchWriter(new WebServiceMonitorLogItemInserter(),
+                PROPERTY_NAME_LOGGING_MAX_CONCURRENT_CONSUMERS);
+    }
+
+    /**
+     * Each listener waits until its log item is written, so a batch never
+     * holds more log items than the listener has consumers. A larger batch
+     * size is lowered to the maximum number of consumers.
+     */
+    private <T> LogItemBatchWriter<T> logItemBatchWriter(final LogItemInserter<T> inserter,
+            final String maxConcurrentConsumersProperty) {
+        final int maxConcurrentConsumers = Integer
+                .parseInt(this.environment.getRequiredProperty(maxConcurrentConsumersProperty));
+        int batchSize = Integer.parseInt(this.environment.getRequiredProperty(PROPERTY_NAME_LOG_ITEM_BATCH_SIZE));
+        if (batchSize > maxConcurrentConsumers) {
+            LOGGER.warn("Batch size {} for {} is larger than {}={}, a batch can never be filled, using {}",
+                    batchSize, inserter.getTableName(), maxConcurrentConsumersProperty, maxConcurrentConsumers,
+                    maxConcurrentConsumers);
+            batchSize = maxConcurrentConsumers;
+        }
+        final long maxDelay = Long
+                .parseLong(this.environment.getRequiredProperty(PROPERTY_NAME_LOG_ITEM_BATCH_MAX_DELAY));
+        final long writeTimeout = Long
+                .parseLong(this.environment.getRequiredProperty(PROPERTY_NAME_LOG_ITEM_WRITE_TIMEOUT));
+        LOGGER.info("Creating log item writer for {} with batch size {} and maximum delay {} ms",
+                inserter.getTableName(), batchSize, maxDelay);
+        return new LogItemBatchWriter<>(this.getDataSource(), inserter, batchSize, maxDelay, writeTimeout);
+    }
+
+    /**
+     * Maintains the daily partitions of the log tables, runs once on startup
+     * and is scheduled by {@link SchedulingConfig}.
+     */
+    @Bean(initMethod = "run")
+    @DependsOn("loggingFlyway")
+    public LogPartitionMaintenance logPartitionMaintenance() {
+        final int retentionDays = Integer
+                .parseInt(this.environment.getRequiredProperty(PROPERTY_NAME_LOG_ITEM_RETENTION_DAYS));
+        final int daysAhead = Integer
+                .parseInt(this.environment.getRequiredProperty(PROPERTY_NAME_LOG_PARTITION_DAYS_AHEAD));
+        final int moveBatchSize = Integer
+                .parseInt(this.environment.getRequiredProperty(PROPERTY_NAME_LOG_PARTITION_MOVE_BATCH_SIZE));
+        final int moveBatchesPerRun = Integer
+                .parseInt(this.environment.getRequiredProperty(PROPERTY_NAME_LOG_PARTITION_MOVE_BATCHES_PER_RUN));
+        LOGGER.info("Keeping log items for {} days", retentionDays);
+        return new LogPartitionMaintenance(this.getDataSource(),
+                Arrays.asList(DeviceLogItemInserter.TABLE_NAME, WebServiceMonitorLogItemInserter.TABLE_NAME),
+                retentionDays, daysAhead, moveBatchSize, moveBatchesPerRun);
+    }
+
     @PreDestroy
     public void destroyDataSource() {
         if (this.dataSource != null) {
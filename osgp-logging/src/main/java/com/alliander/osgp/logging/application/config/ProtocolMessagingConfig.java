@@ -7,6 +7,8 @@
  */
 package com.alliander.osgp.logging.application.config;
 
+import javax.jms.Session;
+
 import org.apache.activemq.RedeliveryPolicy;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -69,7 +71,12 @@ public class ProtocolMessagingConfig extends AbstractMessagingConfig {
     @Bean
     public DefaultMessageListenerContainer protocolLogItemRequestsMessageListenerContainer(
             final JmsConfiguration protocolLogItemRequestsJmsConfiguration) {
-        return protocolLogItemRequestsJmsConfiguration.getMessageListenerContainer();
+        final DefaultMessageListenerContainer messageListenerContainer = protocolLogItemRequestsJmsConfiguration
+                .getMessageListenerContainer();
+        // Acknowledge after the listener returned, which is after the log item
+        // was committed.
+        messageListenerContainer.setSessionAcknowledgeMode(Session.CLIENT_ACKNOWLEDGE);
+        return messageListenerContainer;
     }
 
     @Bean
@@ -0,0 +1,58 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.logging.application.config;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.context.annotation.PropertySources;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.SchedulingConfigurer;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.scheduling.config.CronTask;
+import org.springframework.scheduling.config.ScheduledTaskRegistrar;
+import org.springframework.scheduling.support.CronTrigger;
+
+import com.alliander.osgp.logging.infra.db.LogPartitionMaintenance;
+import com.alliander.osgp.shared.application.config.AbstractConfig;
+
+@EnableScheduling
+@Configuration
+@PropertySources({ @PropertySource("classpath:osgp-logging.properties"),
+        @PropertySource(value = "file:${osgp/Global/config}", ignoreResourceNotFound = true),
+        @PropertySource(value = "file:${osgp/Logging/config}", ignoreResourceNotFound = true), })
+public class SchedulingConfig extends AbstractConfig implements SchedulingConfigurer {
+
+    private static final String PROPERTY_NAME_LOG_PARTITION_MAINTENANCE_CRON_EXPRESSION = "log.partition.maintenance.cron.expression";
+
+    @Autowired
+    private LogPartitionMaintenance logPartitionMaintenance;
+
+    @Override
+    public void configureTasks(final ScheduledTaskRegistrar taskRegistrar) {
+        taskRegistrar.setScheduler(this.taskScheduler());
+        taskRegistrar.addCronTask(new CronTask(this.logPartitionMaintenance, this.logPartitionMaintenanceCronTrigger()));
+    }
+
+    public CronTrigger logPartitionMaintenanceCronTrigger() {
+        final String cron = this.environment
+                .getRequiredProperty(PROPERTY_NAME_LOG_PARTITION_MAINTENANCE_CRON_EXPRESSION);
+        return new CronTrigger(cron);
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    public TaskScheduler taskScheduler() {
+        final ThreadPoolTaskScheduler taskScheduler = new ThreadPoolTaskScheduler();
+        taskScheduler.setPoolSize(1);
+        taskScheduler.setThreadNamePrefix("osgp-logging-scheduling-");
+        taskScheduler.setWaitForTasksToCompleteOnShutdown(false);
+        return taskScheduler;
+    }
+}
@@ -0,0 +1,51 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.logging.infra.db;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+
+import com.alliander.osgp.logging.domain.entities.DeviceLogItem;
+
+public class DeviceLogItemInserter implements LogItemInserter<DeviceLogItem> {
+
+    public static final String TABLE_NAME = "device_log_item";
+
+    private static final String INSERT_DEVICE_LOG_ITEM = "INSERT INTO device_log_item (creation_time, "
+            + "modification_time, version, organisation_identification, device_uid, device_identification, "
+            + "incoming, valid, encoded_message, decoded_message, data_size, message_id) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    @Override
+    public String getTableName() {
+        return TABLE_NAME;
+    }
+
+    @Override
+    public String getInsertStatement() {
+        return INSERT_DEVICE_LOG_ITEM;
+    }
+
+    @Override
+    public void setParameters(final PreparedStatement statement, final DeviceLogItem deviceLogItem,
+            final String messageId, final Timestamp creationTime) throws SQLException {
+        statement.setTimestamp(1, creationTime);
+        statement.setTimestamp(2, creationTime);
+        statement.setLong(3, 0);
+        statement.setString(4, deviceLogItem.getOrganisationIdentification());
+        statement.setString(5, deviceLogItem.getDeviceUid());
+        statement.setString(6, deviceLogItem.getDeviceIdentification());
+        statement.setBoolean(7, deviceLogItem.isIncoming());
+        statement.setBoolean(8, deviceLogItem.isValid());
+        statement.setString(9, deviceLogItem.getEncodedMessage());
+        statement.setString(10, deviceLogItem.getDecodedMessage());
+        statement.setInt(11, deviceLogItem.getPayloadMessageSerializedSize());
+        statement.setString(12, messageId);
+    }
+}
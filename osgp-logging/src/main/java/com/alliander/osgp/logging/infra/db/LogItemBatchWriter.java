@@ -0,0 +1,363 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.logging.infra.db;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+/**
+ * Writes log items in batches, one transaction per batch, so a busy logging
+ * queue does not cost a transaction per message.
+ *
+ * A message listener calls {@link #write(String, Object)} and is blocked until
+ * the batch holding its log item is committed. The listener returns only
+ * then, so the message is acknowledged after the log item is stored. When the
+ * batch fails, or the application stops before it is committed, write throws
+ * a {@link LogItemWriteException} and the message is redelivered.
+ *
+ * Each log item is stored with the id of its message. A message that was
+ * committed, but not acknowledged before a crash, is redelivered and then
+ * skipped, so log items are neither lost nor duplicated.
+ *
+ * A batch is written when it holds batchSize log items, or maxDelay
+ * milliseconds after its first log item was received. Log items received
+ * while a batch is being written are collected for the next batch, so under
+ * load batches grow without waiting. When a batch fails its log items are
+ * written one by one, so one bad log item does not fail the others.
+ *
+ * As every listener waits for its own log item, a batch never holds more log
+ * items than there are listener threads. batchSize should not be larger than
+ * the maximum number of concurrent consumers.
+ */
+public class LogItemBatchWriter<T> implements DisposableBean {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(LogItemBatchWriter.class);
+
+    private static final long POLL_INTERVAL = 1000;
+
+    private final DataSource dataSource;
+    private final LogItemInserter<T> inserter;
+    private final int batchSize;
+    private final long maxDelay;
+    private final long writeTimeout;
+
+    private final BlockingQueue<PendingLogItem<T>> queue = new LinkedBlockingQueue<>();
+    private final ExecutorService executor;
+    private volatile boolean running = true;
+
+    private final AtomicLong writtenCount = new AtomicLong();
+    private final AtomicLong duplicateCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+    private final AtomicLong batchCount = new AtomicLong();
+
+    /**
+     * @param batchSize
+     *            The maximum number of log items written in one transaction.
+     * @param maxDelay
+     *            The maximum time in milliseconds a log item waits for other
+     *            log items to be written with.
+     * @param writeTimeout
+     *            The maximum time in milliseconds {@link #write} waits for the
+     *            log item to be written.
+     */
+    public LogItemBatchWriter(final DataSource dataSource, final LogItemInserter<T> inserter, final int batchSize,
+            final long maxDelay, final long writeTimeout) {
+        this.dataSource = dataSource;
+        this.inserter = inserter;
+        this.batchSize = batchSize;
+        this.maxDelay = maxDelay;
+        this.writeTimeout = writeTimeout;
+
+        final CustomizableThreadFactory threadFactory = new CustomizableThreadFactory(
+                "osgp-logging-" + inserter.getTableName() + "-");
+        threadFactory.setDaemon(true);
+        this.executor = Executors.newSingleThreadExecutor(threadFactory);
+        this.executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                LogItemBatchWriter.this.writeBatches();
+            }
+        });
+    }
+
+    /**
+     * Writes a log item with the next batch and waits until that batch is
+     * committed.
+     *
+     * @param messageId
+     *            The id of the message the log item was received with.
+     * @throws LogItemWriteException
+     *             when the log item was not written.
+     */
+    public void write(final String messageId, final T logItem) {
+        if (!this.running) {
+            throw new LogItemWriteException("Not writing log item of message " + messageId + ", writer is stopped");
+        }
+
+        final PendingLogItem<T> pendingLogItem = new PendingLogItem<>(messageId, logItem);
+        this.queue.add(pendingLogItem);
+        try {
+            pendingLogItem.await(this.writeTimeout);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new LogItemWriteException("Interrupted writing log item of message " + messageId, e);
+        }
+    }
+
+    public int getPendingCount() {
+        return this.queue.size();
+    }
+
+    public long getWrittenCount() {
+        return this.writtenCount.get();
+    }
+
+    public long getDuplicateCount() {
+        return this.duplicateCount.get();
+    }
+
+    public long getFailedCount() {
+        return this.failedCount.get();
+    }
+
+    public long getBatchCount() {
+        return this.batchCount.get();
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        LOGGER.info("Shutting down {}", this);
+        this.running = false;
+        this.executor.shutdown();
+        if (!this.executor.awaitTermination(this.writeTimeout, TimeUnit.MILLISECONDS)) {
+            LOGGER.warn("Log items were still being written on shutdown");
+            this.executor.shutdownNow();
+        }
+
+        // Log items queued while stopping are redelivered after a restart.
+        final List<PendingLogItem<T>> remaining = new ArrayList<>();
+        this.queue.drainTo(remaining);
+        for (final PendingLogItem<T> pendingLogItem : remaining) {
+            pendingLogItem.fail(new LogItemWriteException("Writer stopped before the log item was written"));
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("LogItemBatchWriter[table=%s, pending=%d, written=%d, duplicates=%d, failed=%d, batches=%d]",
+                this.inserter.getTableName(), this.getPendingCount(), this.getWrittenCount(),
+                this.getDuplicateCount(), this.getFailedCount(), this.getBatchCount());
+    }
+
+    private void writeBatches() {
+        final List<PendingLogItem<T>> batch = new ArrayList<>(this.batchSize);
+        while (this.running || !this.queue.isEmpty()) {
+            try {
+                this.collectBatch(batch);
+                if (!batch.isEmpty()) {
+                    this.writeBatch(batch);
+                }
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                for (final PendingLogItem<T> pendingLogItem : batch) {
+                    pendingLogItem.fail(new LogItemWriteException("Interrupted writing log item", e));
+                }
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Waits for a first log item, then collects log items until the batch is
+     * full or the maximum delay of the first log item has passed.
+     */
+    private void collectBatch(final List<PendingLogItem<T>> batch) throws InterruptedException {
+        final PendingLogItem<T> first = this.queue.poll(POLL_INTERVAL, TimeUnit.MILLISECONDS);
+        if (first == null) {
+            return;
+        }
+        batch.add(first);
+
+        final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(this.maxDelay);
+        while (batch.size() < this.batchSize) {
+            this.queue.drainTo(batch, this.batchSize - batch.size());
+            final long remaining = deadline - System.nanoTime();
+            if (batch.size() >= this.batchSize || remaining <= 0) {
+                return;
+            }
+            final PendingLogItem<T> next = this.queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    private void writeBatch(final List<PendingLogItem<T>> batch) {
+        try {
+            this.insert(batch);
+            this.complete(batch);
+        } catch (final SQLException | RuntimeException e) {
+            LOGGER.warn("Writing batch of {} log items to {} failed, writing them one by one", batch.size(),
+                    this.inserter.getTableName(), e);
+            for (final PendingLogItem<T> pendingLogItem : batch) {
+                try {
+                    this.insert(Collections.singletonList(pendingLogItem));
+                    this.complete(Collections.singletonList(pendingLogItem));
+                } catch (final SQLException | RuntimeException re) {
+                    this.failedCount.incrementAndGet();
+                    LOGGER.error("Writing log item of message {} failed", pendingLogItem.messageId, re);
+                    pendingLogItem.fail(new LogItemWriteException(
+                            "Writing log item of message " + pendingLogItem.messageId + " failed", re));
+                }
+            }
+        }
+    }
+
+    private void complete(final List<PendingLogItem<T>> written) {
+        for (final PendingLogItem<T> pendingLogItem : written) {
+            pendingLogItem.complete();
+        }
+    }
+
+    /**
+     * Inserts the log items in one transaction, skipping log items of messages
+     * that were stored before.
+     */
+    private void insert(final List<PendingLogItem<T>> batch) throws SQLException {
+        try (final Connection connection = this.dataSource.getConnection()) {
+            final boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try {
+                final Set<String> stored = this.findStoredMessageIds(connection, batch);
+                final Timestamp creationTime = new Timestamp(System.currentTimeMillis());
+                int inserted = 0;
+                try (final PreparedStatement statement = connection
+                        .prepareStatement(this.inserter.getInsertStatement())) {
+                    for (final PendingLogItem<T> pendingLogItem : batch) {
+                        if (pendingLogItem.messageId != null && !stored.add(pendingLogItem.messageId)) {
+                            LOGGER.info("Log item of message {} was already written", pendingLogItem.messageId);
+                            continue;
+                        }
+                        this.inserter.setParameters(statement, pendingLogItem.logItem, pendingLogItem.messageId,
+                                creationTime);
+                        statement.addBatch();
+                        inserted++;
+                    }
+                    if (inserted > 0) {
+                        statement.executeBatch();
+                    }
+                }
+                connection.commit();
+                this.batchCount.incrementAndGet();
+                this.writtenCount.addAndGet(inserted);
+                this.duplicateCount.addAndGet(batch.size() - inserted);
+            } catch (final SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        }
+    }
+
+    /**
+     * Finds the message ids of the batch that were stored before. The log
+     * tables are partitioned by day, and this query has no bound on
+     * modification time, so it probes the message_id index of every partition,
+     * one index scan per retained day. That cost grows with the retention
+     * period, not with the number of log items.
+     */
+    private Set<String> findStoredMessageIds(final Connection connection, final List<PendingLogItem<T>> batch)
+            throws SQLException {
+        final List<String> messageIds = new ArrayList<>(batch.size());
+        for (final PendingLogItem<T> pendingLogItem : batch) {
+            if (pendingLogItem.messageId != null) {
+                messageIds.add(pendingLogItem.messageId);
+            }
+        }
+        final Set<String> stored = new HashSet<>();
+        if (messageIds.isEmpty()) {
+            return stored;
+        }
+
+        final StringBuilder query = new StringBuilder("SELECT message_id FROM ").append(this.inserter.getTableName())
+                .append(" WHERE message_id IN (?");
+        for (int i = 1; i < messageIds.size(); i++) {
+            query.append(", ?");
+        }
+        query.append(')');
+
+        try (final PreparedStatement statement = connection.prepareStatement(query.toString())) {
+            for (int i = 0; i < messageIds.size(); i++) {
+                statement.setString(i + 1, messageIds.get(i));
+            }
+            try (final ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    stored.add(resultSet.getString(1));
+                }
+            }
+        }
+        return stored;
+    }
+
+    private static class PendingLogItem<T> {
+        private final String messageId;
+        private final T logItem;
+        private final CountDownLatch written = new CountDownLatch(1);
+        private volatile LogItemWriteException exception;
+
+        PendingLogItem(final String messageId, final T logItem) {
+            this.messageId = messageId;
+            this.logItem = logItem;
+        }
+
+        void complete() {
+            this.written.countDown();
+        }
+
+        void fail(final LogItemWriteException exception) {
+            this.exception = exception;
+            this.written.countDown();
+        }
+
+        void await(final long timeout) throws InterruptedException {
+            if (!this.written.await(timeout, TimeUnit.MILLISECONDS)) {
+                throw new LogItemWriteException(
+                        "Log item of message " + this.messageId + " was not written within " + timeout + " ms");
+            }
+            if (this.exception != null) {
+                throw this.exception;
+            }
+        }
+    }
+}
@@ -0,0 +1,38 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.logging.infra.db;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+
+/**
+ * Inserts log items of one type using JDBC, for the {@link LogItemBatchWriter}.
+ */
+public interface LogItemInserter<T> {
+
+    /**
+     * @return The table the log items are inserted in, it must have a
+     *         message_id column.
+     */
+    String getTableName();
+
+    /**
+     * @return The insert statement, taking the parameters set by
+     *         {@link #setParameters(PreparedStatement, Object, String, Timestamp)}.
+     */
+    String getInsertStatement();
+
+    /**
+     * Sets the parameters of the insert statement. Times are written in the
+     * time zone of the JVM, as Hibernate writes and reads them, the log tables
+     * are partitioned by local day of modification_time.
+     */
+    void setParameters(PreparedStatement statement, T logItem, String messageId, Timestamp creationTime)
+            throws SQLException;
+}
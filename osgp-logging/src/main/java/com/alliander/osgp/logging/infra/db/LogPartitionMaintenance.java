@@ -0,0 +1,261 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.logging.infra.db;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Maintains the daily partitions of the log tables: creates the partitions of
+ * the coming days, and drops the partitions that are older than the retention
+ * period. Old log items are removed by dropping whole partitions, without
+ * deleting rows, so cleaning up does not lock the log tables.
+ *
+ * The partitions are created by the create_log_partition database function,
+ * which also creates their indexes. A partition is named after its parent
+ * table and local day, for instance device_log_item_20180123. Log items of a day
+ * without partition are stored in the default partition, for instance
+ * device_log_item_default. Its expired log items are deleted, it only holds
+ * the few log items written while a partition was missing.
+ *
+ * Log items stored before the partitioning stay in the parent table until the
+ * maintenance moves them to their partitions. Every run moves a limited number
+ * of batches, each batch in a transaction of its own, so the history is moved
+ * over several runs without long transactions. Expired log items are deleted
+ * instead of moved.
+ */
+public class LogPartitionMaintenance implements Runnable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(LogPartitionMaintenance.class);
+
+    private static final DateTimeFormatter PARTITION_DAY = DateTimeFormatter.BASIC_ISO_DATE;
+
+    private static final String CREATE_PARTITION = "SELECT create_log_partition(?, ?)";
+
+    private static final String DEFAULT_PARTITION_SUFFIX = "_default";
+
+    private static final String DELETE_EXPIRED = "DELETE FROM %s WHERE modification_time < ?";
+
+    private static final String SELECT_UNMOVED_DAYS = "SELECT DISTINCT modification_time::date::text "
+            + "FROM (SELECT modification_time FROM ONLY %s ORDER BY id LIMIT ?) unmoved";
+
+    // Inserted in the parent table, so the partition trigger routes the rows.
+    private static final String MOVE_UNMOVED = "WITH moved AS (DELETE FROM ONLY %1$s WHERE id IN "
+            + "(SELECT id FROM ONLY %1$s ORDER BY id LIMIT ?) RETURNING *) "
+            + "INSERT INTO %1$s SELECT * FROM moved WHERE modification_time >= ?";
+
+    private static final String SELECT_PARTITIONS = "SELECT c.relname FROM pg_catalog.pg_inherits i "
+            + "JOIN pg_catalog.pg_class c ON c.oid = i.inhrelid JOIN pg_catalog.pg_class p ON p.oid = i.inhparent "
+            + "WHERE p.relname = ? AND pg_catalog.pg_table_is_visible(p.oid)";
+
+    private final DataSource dataSource;
+    private final List<String> tables;
+    private final int retentionDays;
+    private final int daysAhead;
+    private final int moveBatchSize;
+    private final int moveBatchesPerRun;
+    private final Clock clock;
+
+    /**
+     * @param tables
+     *            The partitioned log tables.
+     * @param retentionDays
+     *            The number of days log items are kept, a partition is dropped
+     *            when all its log items are older.
+     * @param daysAhead
+     *            The number of days after today partitions are created for.
+     *            Days are local days in the time zone of the JVM, like the
+     *            modification times of the log items.
+     * @param moveBatchSize
+     *            The number of log items stored before the partitioning that
+     *            are moved to their partitions in one transaction.
+     * @param moveBatchesPerRun
+     *            The maximum number of batches moved per log table in one
+     *            run.
+     */
+    public LogPartitionMaintenance(final DataSource dataSource, final List<String> tables, final int retentionDays,
+            final int daysAhead, final int moveBatchSize, final int moveBatchesPerRun) {
+        this(dataSource, tables, retentionDays, daysAhead, moveBatchSize, moveBatchesPerRun, Clock.systemDefaultZone());
+    }
+
+    LogPartitionMaintenance(final DataSource dataSource, final List<String> tables, final int retentionDays,
+            final int daysAhead, final int moveBatchSize, final int moveBatchesPerRun, final Clock clock) {
+        this.dataSource = dataSource;
+        this.tables = new ArrayList<>(tables);
+        this.retentionDays = retentionDays;
+        this.daysAhead = daysAhead;
+        this.moveBatchSize = moveBatchSize;
+        this.moveBatchesPerRun = moveBatchesPerRun;
+        this.clock = clock;
+    }
+
+    @Override
+    public void run() {
+        for (final String table : this.tables) {
+            try {
+                this.maintain(table);
+            } catch (final SQLException | RuntimeException e) {
+                LOGGER.error("Maintaining the partitions of {} failed", table, e);
+            }
+        }
+    }
+
+    void maintain(final String table) throws SQLException {
+        final LocalDate today = LocalDate.now(this.clock);
+        final LocalDate oldestKept = today.minusDays(this.retentionDays);
+
+        try (final Connection connection = this.dataSource.getConnection()) {
+            final boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(true);
+            try {
+                for (int day = 0; day <= this.daysAhead; day++) {
+                    this.createPartition(connection, table, today.plusDays(day));
+                }
+                for (final String partition : this.findPartitions(connection, table)) {
+                    if (partition.equals(table + DEFAULT_PARTITION_SUFFIX)) {
+                        this.deleteExpired(connection, partition, oldestKept);
+                        continue;
+                    }
+                    final LocalDate partitionDay = this.getPartitionDay(table, partition);
+                    if (partitionDay != null && partitionDay.isBefore(oldestKept)) {
+                        this.dropPartition(connection, partition);
+                    }
+                }
+                this.moveUnmoved(connection, table, oldestKept);
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        }
+    }
+
+    private void createPartition(final Connection connection, final String table, final LocalDate day)
+            throws SQLException {
+        try (final PreparedStatement statement = connection.prepareStatement(CREATE_PARTITION)) {
+            statement.setString(1, table);
+            statement.setDate(2, Date.valueOf(day));
+            try (final ResultSet resultSet = statement.executeQuery()) {
+                resultSet.next();
+                LOGGER.debug("Partition {} exists", resultSet.getString(1));
+            }
+        }
+    }
+
+    /**
+     * Moves the log items left in the parent table to their partitions, batch
+     * by batch. The partitions of the days of a batch are created first, so
+     * the log items do not end up in the default partition.
+     */
+    private void moveUnmoved(final Connection connection, final String table, final LocalDate oldestKept)
+            throws SQLException {
+        int batches = 0;
+        while (batches < this.moveBatchesPerRun) {
+            final List<LocalDate> days = this.findUnmovedDays(connection, table);
+            if (days.isEmpty()) {
+                break;
+            }
+            for (final LocalDate day : days) {
+                if (!day.isBefore(oldestKept)) {
+                    this.createPartition(connection, table, day);
+                }
+            }
+            // The name is a configured log table.
+            try (final PreparedStatement statement = connection
+                    .prepareStatement(String.format(MOVE_UNMOVED, table))) {
+                statement.setInt(1, this.moveBatchSize);
+                statement.setDate(2, Date.valueOf(oldestKept));
+                statement.executeUpdate();
+            }
+            batches++;
+        }
+        if (batches > 0) {
+            LOGGER.info("Moved {} batches of at most {} log items of {} to their partitions", batches,
+                    this.moveBatchSize, table);
+        }
+    }
+
+    private List<LocalDate> findUnmovedDays(final Connection connection, final String table) throws SQLException {
+        final List<LocalDate> days = new ArrayList<>();
+        try (final PreparedStatement statement = connection
+                .prepareStatement(String.format(SELECT_UNMOVED_DAYS, table))) {
+            statement.setInt(1, this.moveBatchSize);
+            try (final ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    days.add(LocalDate.parse(resultSet.getString(1)));
+                }
+            }
+        }
+        return days;
+    }
+
+    private List<String> findPartitions(final Connection connection, final String table) throws SQLException {
+        final List<String> partitions = new ArrayList<>();
+        try (final PreparedStatement statement = connection.prepareStatement(SELECT_PARTITIONS)) {
+            statement.setString(1, table);
+            try (final ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    partitions.add(resultSet.getString(1));
+                }
+            }
+        }
+        return partitions;
+    }
+
+    /**
+     * @return The day of the partition, or null when the table is not a daily
+     *         partition of the log table.
+     */
+    private LocalDate getPartitionDay(final String table, final String partition) {
+        if (!Pattern.matches(Pattern.quote(table) + "_\\d{8}", partition)) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(partition.substring(table.length() + 1), PARTITION_DAY);
+        } catch (final DateTimeParseException e) {
+            LOGGER.warn("Table {} is not a partition of {}", partition, table, e);
+            return null;
+        }
+    }
+
+    private void deleteExpired(final Connection connection, final String partition, final LocalDate oldestKept)
+            throws SQLException {
+        // The name is the default partition name of a configured log table.
+        try (final PreparedStatement statement = connection
+                .prepareStatement(String.format(DELETE_EXPIRED, partition))) {
+            statement.setDate(1, Date.valueOf(oldestKept));
+            final int deleted = statement.executeUpdate();
+            if (deleted > 0) {
+                LOGGER.info("Deleted {} log items older than {} days from {}", deleted, this.retentionDays,
+                        partition);
+            }
+        }
+    }
+
+    private void dropPartition(final Connection connection, final String partition) throws SQLException {
+        LOGGER.info("Dropping partition {}, its log items are older than {} days", partition, this.retentionDays);
+        try (final Statement statement = connection.createStatement()) {
+            // The name was checked against the partition name pattern.
+            statement.execute("DROP TABLE IF EXISTS " + partition);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.logging.infra.db;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+
+import com.alliander.osgp.logging.domain.entities.WebServiceMonitorLogItem;
+
+public class WebServiceMonitorLogItemInserter implements LogItemInserter<WebServiceMonitorLogItem> {
+
+    public static final String TABLE_NAME = "web_service_monitor_log";
+
+    private static final String INSERT_WEB_SERVICE_MONITOR_LOG = "INSERT INTO web_service_monitor_log ("
+            + "creation_time, modification_time, version, time_stamp, organisation_identification, user_name, "
+            + "application_name, class_name, method_name, request_device_identification, correlation_uid, "
+            + "response_result, response_data_size, message_id) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    @Override
+    public String getTableName() {
+        return TABLE_NAME;
+    }
+
+    @Override
+    public String getInsertStatement() {
+        return INSERT_WEB_SERVICE_MONITOR_LOG;
+    }
+
+    @Override
+    public void setParameters(final PreparedStatement statement, final WebServiceMonitorLogItem logItem,
+            final String messageId, final Timestamp creationTime) throws SQLException {
+        statement.setTimestamp(1, creationTime);
+        statement.setTimestamp(2, creationTime);
+        statement.setLong(3, 0);
+        statement.setTimestamp(4, new Timestamp(logItem.getTimeStamp().getTime()));
+        statement.setString(5, logItem.getOrganisationIdentification());
+        statement.setString(6, logItem.getUserName());
+        statement.setString(7, logItem.getapplicationName());
+        statement.setString(8, logItem.getClassName());
+        statement.setString(9, logItem.getMethodName());
+        statement.setString(10, logItem.getRequestDeviceIdentification());
+        statement.setString(11, logItem.getCorrelationUid());
+        statement.setString(12, logItem.getResponseResult());
+        statement.setInt(13, logItem.getResponseDataSize());
+        statement.setString(14, messageId);
+    }
+}
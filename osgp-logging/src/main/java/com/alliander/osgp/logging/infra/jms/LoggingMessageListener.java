@@ -21,7 +21,7 @@ import org.springframework.jms.listener.SessionAwareMessageListener;
 import org.springframework.stereotype.Component;
 
 import com.alliander.osgp.logging.domain.entities.WebServiceMonitorLogItem;
-import com.alliander.osgp.logging.domain.repositories.WebServiceMonitorLogRepository;
+import com.alliander.osgp.logging.infra.db.LogItemBatchWriter;
 import com.alliander.osgp.shared.infra.jms.Constants;
 
 // Fetch incoming log messages from the logging requests queue.
@@ -31,7 +31,7 @@ public class LoggingMessageListener implements SessionAwareMessageListener<Messa
     private static final Logger LOGGER = LoggerFactory.getLogger(LoggingMessageListener.class);
 
     @Autowired
-    private WebServiceMonitorLogRepository webServiceMonitorLogRepository;
+    private LogItemBatchWriter<WebServiceMonitorLogItem> webServiceMonitorLogItemWriter;
 
     public LoggingMessageListener() {
         // empty constructor
@@ -55,8 +55,10 @@ public class LoggingMessageListener implements SessionAwareMessageListener<Messa
                     objectMessage.getJMSCorrelationID(), objectMessage.getStringProperty(Constants.RESPONSE_RESULT),
                     objectMessage.getIntProperty(Constants.RESPONSE_DATA_SIZE));
 
-            // Save the log item in the data base.
-            this.webServiceMonitorLogRepository.save(webServiceMonitorLogItem);
+            // Save the log item in the data base, together with other log
+            // items. Returns when it is committed, a LogItemWriteException is
+            // not caught so the message is redelivered.
+            this.webServiceMonitorLogItemWriter.write(objectMessage.getJMSMessageID(), webServiceMonitorLogItem);
 
         } catch (final JMSException e) {
             LOGGER.error("Exception: {}, StackTrace: {}", e.getMessage(), e.getStackTrace(), e);
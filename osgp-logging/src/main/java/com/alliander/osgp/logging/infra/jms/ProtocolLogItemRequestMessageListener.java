@@ -17,7 +17,7 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 
 import com.alliander.osgp.logging.domain.entities.DeviceLogItem;
-import com.alliander.osgp.logging.domain.repositories.DeviceLogItemRepository;
+import com.alliander.osgp.logging.infra.db.LogItemBatchWriter;
 import com.alliander.osgp.shared.infra.jms.Constants;
 
 //This class should fetch incoming messages from a logging requests queue.
@@ -26,7 +26,7 @@ public class ProtocolLogItemRequestMessageListener implements MessageListener {
     private static final Logger LOGGER = LoggerFactory.getLogger(ProtocolLogItemRequestMessageListener.class);
 
     @Autowired
-    private DeviceLogItemRepository deviceLogRepository;
+    private LogItemBatchWriter<DeviceLogItem> deviceLogItemWriter;
 
     @Override
     public void onMessage(final Message message) {
@@ -56,6 +56,8 @@ public class ProtocolLogItemRequestMessageListener implements MessageListener {
                 objectMessage.getStringProperty(Constants.ENCODED_MESSAGE),
                 objectMessage.getStringProperty(Constants.DECODED_MESSAGE),
                 objectMessage.getIntProperty(Constants.PAYLOAD_MESSAGE_SERIALIZED_SIZE));
-        this.deviceLogRepository.save(deviceLogItem);
+        // Returns when the log item is committed, a LogItemWriteException is
+        // not caught so the message is redelivered.
+        this.deviceLogItemWriter.write(objectMessage.getJMSMessageID(), deviceLogItem);
     }
 }
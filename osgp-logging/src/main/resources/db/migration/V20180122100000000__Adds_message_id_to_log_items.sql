@@ -0,0 +1,49 @@
+--
+-- Add the id of the JMS message a log item was received with, so a redelivered
+-- message does not store its log item twice.
+--
+DO $$
+BEGIN
+
+IF NOT EXISTS (
+    SELECT 1
+    FROM   information_schema.columns
+    WHERE  table_schema = current_schema
+    AND    table_name = 'device_log_item'
+    AND    column_name = 'message_id'
+    ) THEN
+    ALTER TABLE device_log_item ADD COLUMN message_id character varying(255);
+END IF;
+
+IF NOT EXISTS (
+    SELECT 1
+    FROM   information_schema.columns
+    WHERE  table_schema = current_schema
+    AND    table_name = 'web_service_monitor_log'
+    AND    column_name = 'message_id'
+    ) THEN
+    ALTER TABLE web_service_monitor_log ADD COLUMN message_id character varying(255);
+END IF;
+
+IF NOT EXISTS (
+    SELECT 1
+    FROM   pg_catalog.pg_class c
+    JOIN   pg_catalog.pg_namespace n ON n.oid = c.relnamespace
+    WHERE  c.relname = 'device_log_item_message_id_idx'
+    AND    n.nspname = current_schema
+    ) THEN
+    CREATE INDEX device_log_item_message_id_idx ON device_log_item(message_id);
+END IF;
+
+IF NOT EXISTS (
+    SELECT 1
+    FROM   pg_catalog.pg_class c
+    JOIN   pg_catalog.pg_namespace n ON n.oid = c.relnamespace
+    WHERE  c.relname = 'web_service_monitor_log_message_id_idx'
+    AND    n.nspname = current_schema
+    ) THEN
+    CREATE INDEX web_service_monitor_log_message_id_idx ON web_service_monitor_log(message_id);
+END IF;
+
+END;
+$$
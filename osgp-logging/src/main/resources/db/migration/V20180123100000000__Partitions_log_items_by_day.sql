@@ -0,0 +1,76 @@
+--
+-- Partition device_log_item and web_service_monitor_log by day of
+-- modification_time, so old log items are removed by dropping a partition
+-- instead of deleting rows.
+--
+-- The existing tables become the parents of the partitions. An insert trigger
+-- routes every row to the partition of its day. When that partition does not
+-- exist the row stays in the parent table, as do the rows inserted before this
+-- migration. Partitions are created ahead and dropped after the retention
+-- period by osgp-logging, using create_log_partition.
+--
+-- Queries on the parent tables with a lower bound on modification_time only
+-- scan the partitions of those days (constraint_exclusion = partition).
+--
+
+CREATE OR REPLACE FUNCTION create_log_partition(parent_table text, partition_day date)
+RETURNS text AS $$
+DECLARE
+    partition_table text := parent_table || '_' || to_char(partition_day, 'YYYYMMDD');
+BEGIN
+    IF NOT EXISTS (
+        SELECT 1
+        FROM   pg_catalog.pg_class c
+        JOIN   pg_catalog.pg_namespace n ON n.oid = c.relnamespace
+        WHERE  c.relname = partition_table
+        AND    n.nspname = current_schema
+        ) THEN
+        EXECUTE format('CREATE TABLE %I (CHECK (modification_time >= %L AND modification_time < %L)) INHERITS (%I)',
+            partition_table, partition_day, partition_day + 1, parent_table);
+        EXECUTE format('ALTER TABLE %I ADD PRIMARY KEY (id)', partition_table);
+        EXECUTE format('CREATE INDEX %I ON %I (modification_time)',
+            partition_table || '_modification_time_idx', partition_table);
+        EXECUTE format('CREATE INDEX %I ON %I (message_id)',
+            partition_table || '_message_id_idx', partition_table);
+        IF parent_table = 'device_log_item' THEN
+            EXECUTE format('CREATE INDEX %I ON %I (device_identification, modification_time)',
+                partition_table || '_device_time_idx', partition_table);
+        END IF;
+    END IF;
+    RETURN partition_table;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION insert_log_partition()
+RETURNS trigger AS $$
+DECLARE
+    partition_table text := TG_TABLE_NAME || '_' || to_char(NEW.modification_time, 'YYYYMMDD');
+BEGIN
+    IF NOT EXISTS (
+        SELECT 1
+        FROM   pg_catalog.pg_class c
+        WHERE  c.relname = partition_table
+        AND    pg_catalog.pg_table_is_visible(c.oid)
+        ) THEN
+        RETURN NEW;
+    END IF;
+    EXECUTE format('INSERT INTO %I SELECT ($1).*', partition_table) USING NEW;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS device_log_item_partition_trigger ON device_log_item;
+CREATE TRIGGER device_log_item_partition_trigger
+    BEFORE INSERT ON device_log_item
+    FOR EACH ROW EXECUTE PROCEDURE insert_log_partition();
+
+DROP TRIGGER IF EXISTS web_service_monitor_log_partition_trigger ON web_service_monitor_log;
+CREATE TRIGGER web_service_monitor_log_partition_trigger
+    BEFORE INSERT ON web_service_monitor_log
+    FOR EACH ROW EXECUTE PROCEDURE insert_log_partition();
+
+SELECT create_log_partition('device_log_item', current_date + d)
+FROM   generate_series(0, 1) AS d;
+
+SELECT create_log_partition('web_service_monitor_log', current_date + d)
+FROM   generate_series(0, 1) AS d;
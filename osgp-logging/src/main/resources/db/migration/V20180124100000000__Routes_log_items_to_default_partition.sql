@@ -0,0 +1,85 @@
+--
+-- Completes the partitioning of device_log_item and web_service_monitor_log.
+--
+-- Rows of a day without partition go to the <table>_default partition instead
+-- of the parent table. osgp-logging deletes the rows of this partition that
+-- are older than the retention period, as it drops the expired daily
+-- partitions.
+--
+-- The insert trigger still returns NULL for routed rows, so an insert reports
+-- 0 rows. The only writer of these tables, the JDBC batch writer of
+-- osgp-logging, ignores the counts. Every row is written once, to its
+-- partition, without dead rows in the parent table.
+--
+-- The rows inserted before the partitioning are left in the parent tables.
+-- osgp-logging moves them to the partitions of their days in batches, outside
+-- this migration.
+--
+-- Partition days are local days, like the modification_time osgp-logging
+-- writes, in the time zone of the JVM. The JDBC driver sets the time zone of
+-- its sessions to that of the JVM, so current_date is the same local day.
+--
+
+CREATE OR REPLACE FUNCTION create_log_partition_indexes(parent_table text, partition_table text)
+RETURNS void AS $$
+BEGIN
+    EXECUTE format('ALTER TABLE %I ADD PRIMARY KEY (id)', partition_table);
+    EXECUTE format('CREATE INDEX %I ON %I (modification_time)',
+        partition_table || '_modification_time_idx', partition_table);
+    EXECUTE format('CREATE INDEX %I ON %I (message_id)',
+        partition_table || '_message_id_idx', partition_table);
+    IF parent_table = 'device_log_item' THEN
+        EXECUTE format('CREATE INDEX %I ON %I (device_identification, modification_time)',
+            partition_table || '_device_time_idx', partition_table);
+    END IF;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION create_log_partition(parent_table text, partition_day date)
+RETURNS text AS $$
+DECLARE
+    partition_table text := parent_table || '_' || to_char(partition_day, 'YYYYMMDD');
+BEGIN
+    IF to_regclass(quote_ident(partition_table)) IS NULL THEN
+        EXECUTE format('CREATE TABLE %I (CHECK (modification_time >= %L AND modification_time < %L)) INHERITS (%I)',
+            partition_table, partition_day, partition_day + 1, parent_table);
+        PERFORM create_log_partition_indexes(parent_table, partition_table);
+    END IF;
+    RETURN partition_table;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION create_log_default_partition(parent_table text)
+RETURNS text AS $$
+DECLARE
+    partition_table text := parent_table || '_default';
+BEGIN
+    IF to_regclass(quote_ident(partition_table)) IS NULL THEN
+        EXECUTE format('CREATE TABLE %I () INHERITS (%I)', partition_table, parent_table);
+        PERFORM create_log_partition_indexes(parent_table, partition_table);
+    END IF;
+    RETURN partition_table;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION insert_log_partition()
+RETURNS trigger AS $$
+DECLARE
+    partition_table text := TG_TABLE_NAME || '_' || to_char(NEW.modification_time, 'YYYYMMDD');
+BEGIN
+    IF to_regclass(quote_ident(partition_table)) IS NULL THEN
+        partition_table := TG_TABLE_NAME || '_default';
+    END IF;
+    EXECUTE format('INSERT INTO %I SELECT ($1).*', partition_table) USING NEW;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+SELECT create_log_default_partition('device_log_item');
+SELECT create_log_default_partition('web_service_monitor_log');
+
+SELECT create_log_partition('device_log_item', current_date + d)
+FROM   generate_series(0, 1) AS d;
+
+SELECT create_log_partition('web_service_monitor_log', current_date + d)
+FROM   generate_series(0, 1) AS d;
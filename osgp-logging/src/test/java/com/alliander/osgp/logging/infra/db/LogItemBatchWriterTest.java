@@ -0,0 +1,289 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.logging.infra.db;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import javax.sql.DataSource;
+
+import org.h2.util.DateTimeUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.alliander.osgp.logging.domain.entities.DeviceLogItem;
+
+/**
+ * Writes device log items into an embedded database from concurrent
+ * listeners.
+ */
+public class LogItemBatchWriterTest {
+
+    private static final String URL = "jdbc:h2:mem:logging;MODE=PostgreSQL;DB_CLOSE_DELAY=-1";
+
+    private static final int LISTENERS = 20;
+    private static final int MESSAGES_PER_LISTENER = 100;
+
+    private final DataSource dataSource = new DriverManagerDataSource();
+
+    private Connection connection;
+    private LogItemBatchWriter<DeviceLogItem> writer;
+
+    @Before
+    public void createSchema() throws SQLException {
+        this.connection = DriverManager.getConnection(URL);
+        try (final Statement statement = this.connection.createStatement()) {
+            statement.execute("CREATE TABLE device_log_item (id BIGSERIAL PRIMARY KEY, "
+                    + "creation_time TIMESTAMP NOT NULL, modification_time TIMESTAMP NOT NULL, version BIGINT, "
+                    + "decoded_message VARCHAR(8000), device_identification VARCHAR(255), device_uid VARCHAR(255), "
+                    + "encoded_message VARCHAR(8000), incoming BOOLEAN NOT NULL, "
+                    + "organisation_identification VARCHAR(255), valid BOOLEAN NOT NULL, data_size INTEGER NOT NULL, "
+                    + "message_id VARCHAR(255))");
+        }
+    }
+
+    @After
+    public void dropSchema() throws Exception {
+        if (this.writer != null) {
+            this.writer.destroy();
+        }
+        try (final Statement statement = this.connection.createStatement()) {
+            statement.execute("DROP ALL OBJECTS");
+        }
+        this.connection.close();
+    }
+
+    @Test
+    public void testConcurrentListenersShareTransactions() throws Exception {
+        final long batched = this.writeConcurrently(100);
+        final long batches = this.writer.getBatchCount();
+        this.writer.destroy();
+        this.writer = null;
+        try (final Statement statement = this.connection.createStatement()) {
+            statement.execute("DELETE FROM device_log_item");
+        }
+
+        final long unbatched = this.writeConcurrently(1);
+        final String throughput = String.format("batched: %d items/s in %d transactions, unbatched: %d items/s",
+                batched, batches, unbatched);
+
+        assertEquals(throughput, LISTENERS * MESSAGES_PER_LISTENER, this.countRows());
+        assertEquals(throughput, LISTENERS * MESSAGES_PER_LISTENER, this.writer.getBatchCount());
+        // Listeners wait for their log item, so a batch holds up to one log
+        // item per listener.
+        assertTrue(throughput, batches <= LISTENERS * MESSAGES_PER_LISTENER / 4);
+    }
+
+    @Test
+    public void testRedeliveredMessageIsWrittenOnce() throws SQLException {
+        this.writer = this.createWriter(100, 0);
+
+        this.writer.write("ID:message-1", this.deviceLogItem("device-1"));
+        // Redelivered because the acknowledgement was lost.
+        this.writer.write("ID:message-1", this.deviceLogItem("device-1"));
+        this.writer.write("ID:message-2", this.deviceLogItem("device-1"));
+
+        assertEquals(2, this.countRows());
+        assertEquals(2, this.writer.getWrittenCount());
+        assertEquals(1, this.writer.getDuplicateCount());
+    }
+
+    @Test
+    public void testFailingLogItemDoesNotFailOtherLogItems() throws Exception {
+        this.writer = this.createWriter(100, 200);
+
+        final StringBuilder tooLong = new StringBuilder();
+        for (int i = 0; i < 300; i++) {
+            tooLong.append('x');
+        }
+
+        final ExecutorService executor = Executors.newFixedThreadPool(3);
+        final Future<Void> first = executor.submit(this.write("ID:message-1", "device-1"));
+        final Future<Void> failing = executor.submit(this.write("ID:message-2", tooLong.toString()));
+        final Future<Void> last = executor.submit(this.write("ID:message-3", "device-3"));
+
+        first.get(10, TimeUnit.SECONDS);
+        last.get(10, TimeUnit.SECONDS);
+        try {
+            failing.get(10, TimeUnit.SECONDS);
+            fail("Writing the log item should fail, so its message is redelivered");
+        } catch (final ExecutionException e) {
+            assertTrue(e.getCause() instanceof LogItemWriteException);
+        }
+        executor.shutdown();
+
+        assertEquals(2, this.countRows());
+        assertEquals(1, this.writer.getFailedCount());
+    }
+
+    /**
+     * The log items are read through Hibernate, which reads the times in the
+     * time zone of the JVM, as are the times written before the batch writer.
+     */
+    @Test
+    public void testTimesAreWrittenInTimeZoneOfJvm() throws SQLException {
+        final TimeZone defaultTimeZone = TimeZone.getDefault();
+        TimeZone.setDefault(TimeZone.getTimeZone("America/New_York"));
+        DateTimeUtils.resetCalendar();
+        try {
+            this.writer = this.createWriter(100, 0);
+
+            final long before = System.currentTimeMillis();
+            this.writer.write("ID:message-1", this.deviceLogItem("device-1"));
+            final long after = System.currentTimeMillis();
+
+            try (final Statement statement = this.connection.createStatement();
+                    final ResultSet resultSet = statement
+                            .executeQuery("SELECT creation_time, modification_time FROM device_log_item")) {
+                resultSet.next();
+                final long creationTime = resultSet.getTimestamp(1).getTime();
+                assertTrue("Creation time shifted by " + (creationTime - before) + " ms",
+                        creationTime >= before && creationTime <= after);
+                assertEquals(creationTime, resultSet.getTimestamp(2).getTime());
+            }
+        } finally {
+            TimeZone.setDefault(defaultTimeZone);
+            DateTimeUtils.resetCalendar();
+        }
+    }
+
+    @Test(expected = LogItemWriteException.class)
+    public void testWriteAfterShutdownFails() throws InterruptedException {
+        this.writer = this.createWriter(100, 0);
+        this.writer.destroy();
+
+        this.writer.write("ID:message-1", this.deviceLogItem("device-1"));
+    }
+
+    /**
+     * @return The number of log items written per second.
+     */
+    private long writeConcurrently(final int batchSize) throws Exception {
+        this.writer = this.createWriter(batchSize, 5);
+
+        final ExecutorService executor = Executors.newFixedThreadPool(LISTENERS);
+        final List<Callable<Void>> listeners = new ArrayList<>();
+        for (int i = 0; i < LISTENERS; i++) {
+            final int listener = i;
+            listeners.add(new Callable<Void>() {
+                @Override
+                public Void call() {
+                    for (int message = 0; message < MESSAGES_PER_LISTENER; message++) {
+                        LogItemBatchWriterTest.this.writer.write("ID:" + listener + ":" + message,
+                                LogItemBatchWriterTest.this.deviceLogItem("device-" + listener));
+                    }
+                    return null;
+                }
+            });
+        }
+
+        final long start = System.nanoTime();
+        for (final Future<Void> future : executor.invokeAll(listeners)) {
+            future.get();
+        }
+        final long elapsed = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        executor.shutdown();
+
+        return LISTENERS * MESSAGES_PER_LISTENER * 1000L / elapsed;
+    }
+
+    private Callable<Void> write(final String messageId, final String deviceIdentification) {
+        return new Callable<Void>() {
+            @Override
+            public Void call() {
+                LogItemBatchWriterTest.this.writer.write(messageId,
+                        LogItemBatchWriterTest.this.deviceLogItem(deviceIdentification));
+                return null;
+            }
+        };
+    }
+
+    private LogItemBatchWriter<DeviceLogItem> createWriter(final int batchSize, final long maxDelay) {
+        return new LogItemBatchWriter<>(this.dataSource, new DeviceLogItemInserter(), batchSize, maxDelay, 10000);
+    }
+
+    private DeviceLogItem deviceLogItem(final String deviceIdentification) {
+        return new DeviceLogItem("test-org", "uid", deviceIdentification, true, true, "0102", "decoded", 2);
+    }
+
+    private int countRows() throws SQLException {
+        try (final Statement statement = this.connection.createStatement();
+                final ResultSet resultSet = statement.executeQuery("SELECT COUNT(*) FROM device_log_item")) {
+            resultSet.next();
+            return resultSet.getInt(1);
+        }
+    }
+
+    private static class DriverManagerDataSource implements DataSource {
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return DriverManager.getConnection(URL);
+        }
+
+        @Override
+        public Connection getConnection(final String username, final String password) throws SQLException {
+            return this.getConnection();
+        }
+
+        @Override
+        public PrintWriter getLogWriter() {
+            return null;
+        }
+
+        @Override
+        public void setLogWriter(final PrintWriter out) {
+            // Not logging.
+        }
+
+        @Override
+        public void setLoginTimeout(final int seconds) {
+            // No timeout.
+        }
+
+        @Override
+        public int getLoginTimeout() {
+            return 0;
+        }
+
+        @Override
+        public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+            throw new SQLFeatureNotSupportedException();
+        }
+
+        @Override
+        public <T> T unwrap(final Class<T> iface) throws SQLException {
+            throw new SQLException("Not a wrapper");
+        }
+
+        @Override
+        public boolean isWrapperFor(final Class<?> iface) {
+            return false;
+        }
+    }
+}
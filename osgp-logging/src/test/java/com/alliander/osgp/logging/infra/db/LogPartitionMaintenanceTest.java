@@ -0,0 +1,277 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.logging.infra.db;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.logging.Logger;
+
+import javax.sql.DataSource;
+
+import org.junit.Test;
+
+/**
+ * Runs the partition maintenance against a connection that records the
+ * statements executed, and returns the partitions of device_log_item and the
+ * days of the log items left in its parent table.
+ */
+public class LogPartitionMaintenanceTest {
+
+    private static final String TABLE = "device_log_item";
+
+    private static final LocalDate TODAY = LocalDate.of(2018, 1, 23);
+
+    private final List<String> statements = new ArrayList<>();
+    private final List<String> createdPartitions = new ArrayList<>();
+    private final List<Date> deletedBefore = new ArrayList<>();
+    private final List<Date> movedFrom = new ArrayList<>();
+    private final List<List<String>> unmovedBatches = new ArrayList<>();
+    private final List<String> partitions = new ArrayList<>(Arrays.asList("device_log_item_20171130",
+            "device_log_item_20171223", "device_log_item_20171224", "device_log_item_20180122",
+            "device_log_item_archive", "device_log_item_default"));
+
+    private final LogPartitionMaintenance maintenance = new LogPartitionMaintenance(new RecordingDataSource(),
+            Collections.singletonList(TABLE), 30, 2, 1000, 3,
+            Clock.fixed(TODAY.atStartOfDay(ZoneOffset.UTC).toInstant(), ZoneOffset.UTC));
+
+    @Test
+    public void testRetentionDropsWholePartitions() {
+        this.maintenance.run();
+
+        // Keeps the partitions of the last 30 days, including 2017-12-24.
+        assertEquals(Arrays.asList("DROP TABLE IF EXISTS device_log_item_20171130",
+                "DROP TABLE IF EXISTS device_log_item_20171223"), this.dropStatements());
+        assertEquals(Arrays.asList("device_log_item_20171224", "device_log_item_20180122",
+                "device_log_item_archive", "device_log_item_default", "device_log_item_20180123",
+                "device_log_item_20180124", "device_log_item_20180125"), this.partitions);
+
+        // Apart from the log items moved out of the parent table, rows are only
+        // deleted from the default partition.
+        for (final String statement : this.statements) {
+            assertFalse(statement, statement.toUpperCase().startsWith("DELETE")
+                    && !statement.startsWith("DELETE FROM device_log_item_default "));
+        }
+    }
+
+    @Test
+    public void testRetentionDeletesExpiredLogItemsOfTheDefaultPartition() {
+        this.maintenance.run();
+
+        assertEquals(Collections.singletonList(Date.valueOf(LocalDate.of(2017, 12, 24))), this.deletedBefore);
+    }
+
+    @Test
+    public void testPartitionsAreCreatedAhead() {
+        this.maintenance.run();
+
+        assertEquals(Arrays.asList("device_log_item_20180123", "device_log_item_20180124",
+                "device_log_item_20180125"), this.createdPartitions);
+
+        this.createdPartitions.clear();
+        this.maintenance.run();
+
+        // Existing partitions are left alone, nothing left to drop.
+        assertEquals(Collections.emptyList(), this.createdPartitions);
+        assertEquals(2, this.dropStatements().size());
+    }
+
+    @Test
+    public void testLogItemsStoredBeforeThePartitioningAreMovedToTheirPartitions() {
+        this.unmovedBatches.add(Arrays.asList("2017-12-01", "2018-01-20"));
+        this.unmovedBatches.add(Collections.singletonList("2018-01-21"));
+
+        this.maintenance.run();
+
+        // Expired log items are deleted instead of moved.
+        assertEquals(Arrays.asList("device_log_item_20180123", "device_log_item_20180124",
+                "device_log_item_20180125", "device_log_item_20180120", "device_log_item_20180121"),
+                this.createdPartitions);
+        assertEquals(Arrays.asList(Date.valueOf(LocalDate.of(2017, 12, 24)),
+                Date.valueOf(LocalDate.of(2017, 12, 24))), this.movedFrom);
+    }
+
+    @Test
+    public void testLogItemsAreMovedInALimitedNumberOfBatchesPerRun() {
+        for (int i = 0; i < 5; i++) {
+            this.unmovedBatches.add(Collections.singletonList("2018-01-20"));
+        }
+
+        this.maintenance.run();
+        assertEquals(3, this.movedFrom.size());
+
+        this.maintenance.run();
+        assertEquals(5, this.movedFrom.size());
+    }
+
+    private List<String> dropStatements() {
+        final List<String> drops = new ArrayList<>();
+        for (final String statement : this.statements) {
+            if (statement.startsWith("DROP")) {
+                drops.add(statement);
+            }
+        }
+        return drops;
+    }
+
+    private Connection recordingConnection() {
+        return this.proxy(Connection.class, new InvocationHandler() {
+            @Override
+            public Object invoke(final Object proxy, final Method method, final Object[] args) {
+                switch (method.getName()) {
+                case "prepareStatement":
+                    LogPartitionMaintenanceTest.this.statements.add((String) args[0]);
+                    return LogPartitionMaintenanceTest.this.recordingStatement((String) args[0]);
+                case "createStatement":
+                    return LogPartitionMaintenanceTest.this.recordingStatement(null);
+                case "getAutoCommit":
+                    return true;
+                default:
+                    return null;
+                }
+            }
+        });
+    }
+
+    private PreparedStatement recordingStatement(final String sql) {
+        final List<Object> parameters = new ArrayList<>();
+        return this.proxy(PreparedStatement.class, new InvocationHandler() {
+            @Override
+            public Object invoke(final Object proxy, final Method method, final Object[] args) {
+                final LogPartitionMaintenanceTest test = LogPartitionMaintenanceTest.this;
+                switch (method.getName()) {
+                case "setString":
+                case "setDate":
+                    parameters.add(args[1]);
+                    return null;
+                case "execute":
+                    test.statements.add((String) args[0]);
+                    test.partitions.remove(((String) args[0]).substring("DROP TABLE IF EXISTS ".length()));
+                    return false;
+                case "executeQuery":
+                    return test.resultSet(test.query(sql, parameters));
+                case "executeUpdate":
+                    if (sql.startsWith("WITH moved")) {
+                        test.unmovedBatches.remove(0);
+                        test.movedFrom.add((Date) parameters.get(0));
+                    } else {
+                        test.deletedBefore.add((Date) parameters.get(0));
+                    }
+                    return 0;
+                default:
+                    return null;
+                }
+            }
+        });
+    }
+
+    private List<String> query(final String sql, final List<Object> parameters) {
+        if (sql.startsWith("SELECT create_log_partition")) {
+            final String partition = parameters.get(0) + "_"
+                    + ((Date) parameters.get(1)).toLocalDate().toString().replace("-", "");
+            if (!this.partitions.contains(partition)) {
+                this.partitions.add(partition);
+                this.createdPartitions.add(partition);
+            }
+            return Collections.singletonList(partition);
+        }
+        if (sql.startsWith("SELECT DISTINCT")) {
+            return this.unmovedBatches.isEmpty() ? Collections.<String> emptyList() : this.unmovedBatches.get(0);
+        }
+        return new ArrayList<>(this.partitions);
+    }
+
+    private ResultSet resultSet(final List<String> rows) {
+        final Iterator<String> iterator = rows.iterator();
+        final String[] current = new String[1];
+        return this.proxy(ResultSet.class, new InvocationHandler() {
+            @Override
+            public Object invoke(final Object proxy, final Method method, final Object[] args) {
+                switch (method.getName()) {
+                case "next":
+                    current[0] = iterator.hasNext() ? iterator.next() : null;
+                    return current[0] != null;
+                case "getString":
+                    return current[0];
+                default:
+                    return null;
+                }
+            }
+        });
+    }
+
+    private <T> T proxy(final Class<T> type, final InvocationHandler handler) {
+        return type.cast(Proxy.newProxyInstance(this.getClass().getClassLoader(), new Class<?>[] { type }, handler));
+    }
+
+    private class RecordingDataSource implements DataSource {
+
+        @Override
+        public Connection getConnection() {
+            return LogPartitionMaintenanceTest.this.recordingConnection();
+        }
+
+        @Override
+        public Connection getConnection(final String username, final String password) {
+            return this.getConnection();
+        }
+
+        @Override
+        public PrintWriter getLogWriter() {
+            return null;
+        }
+
+        @Override
+        public void setLogWriter(final PrintWriter out) {
+            // Not logging.
+        }
+
+        @Override
+        public void setLoginTimeout(final int seconds) {
+            // No timeout.
+        }
+
+        @Override
+        public int getLoginTimeout() {
+            return 0;
+        }
+
+        @Override
+        public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+            throw new SQLFeatureNotSupportedException();
+        }
+
+        @Override
+        public <T> T unwrap(final Class<T> iface) throws SQLException {
+            throw new SQLException("Not a wrapper");
+        }
+
+        @Override
+        public boolean isWrapperFor(final Class<?> iface) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,264 @@
+/**
+ * Copyright 2017 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.logging.infra.db;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.Collections;
+import java.util.Scanner;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+/**
+ * Runs the partition migrations and maintenance on PostgreSQL, and checks that
+ * log items are routed to the partition of their day or to the default
+ * partition, that log items stored before the partitioning are moved to
+ * partitions in batches by the maintenance, that queries with the
+ * lower bound on modification time the web services use skip the partitions of
+ * older days, and that expired partitions are dropped with their log items.
+ *
+ * Constraint exclusion needs the PostgreSQL planner, so this is an integration test.
+ * It runs in the verify phase when the postgresql-tests profile of the parent
+ * is active, which is when osgp.test.postgresql.url (and optionally
+ * osgp.test.postgresql.username and osgp.test.postgresql.password) are set,
+ * for instance:
+ *
+ * <pre>
+ * mvn -pl osgp-logging -am -Dosgp.test.postgresql.url=jdbc:postgresql://localhost/osgp_test verify
+ * </pre>
+ *
+ * The log tables are created in a schema of their own, which is dropped
+ * afterwards.
+ */
+public class LogPartitionPruningIT {
+
+    private static final String SCHEMA = "log_partition_pruning_test";
+
+    private static final String[] MIGRATIONS = {
+            "/db/migration/V20180123100000000__Partitions_log_items_by_day.sql",
+            "/db/migration/V20180124100000000__Routes_log_items_to_default_partition.sql" };
+
+    private static final String TABLE = "device_log_item";
+
+    private static final String DEFAULT_PARTITION = "device_log_item_default";
+
+    private static final int RETENTION_DAYS = 30;
+
+    private static final int ITEMS_PER_DAY = 1000;
+
+    private static final int MOVE_BATCH_SIZE = 300;
+
+    private static final String FIND_BY_MODIFICATION_TIME_AFTER = "SELECT * FROM device_log_item "
+            + "WHERE modification_time > ? ORDER BY modification_time DESC LIMIT 30";
+
+    private static final String FIND_BY_DEVICE_IDENTIFICATION_AND_MODIFICATION_TIME_AFTER = "SELECT * "
+            + "FROM device_log_item WHERE device_identification = ? AND modification_time > ? "
+            + "ORDER BY modification_time DESC LIMIT 30";
+
+    private Connection connection;
+
+    private LocalDate today;
+
+    @Before
+    public void createLogTables() throws SQLException, IOException {
+        final String url = System.getProperty("osgp.test.postgresql.url");
+        assertNotNull("Expected osgp.test.postgresql.url to be set", url);
+
+        this.connection = DriverManager.getConnection(url, System.getProperty("osgp.test.postgresql.username"),
+                System.getProperty("osgp.test.postgresql.password"));
+        try (final Statement statement = this.connection.createStatement()) {
+            statement.execute("DROP SCHEMA IF EXISTS " + SCHEMA + " CASCADE");
+            statement.execute("CREATE SCHEMA " + SCHEMA);
+            statement.execute("SET search_path TO " + SCHEMA);
+
+            statement.execute("CREATE TABLE device_log_item (id bigserial PRIMARY KEY, "
+                    + "creation_time timestamp NOT NULL, modification_time timestamp NOT NULL, version bigint, "
+                    + "decoded_message varchar(8000), device_identification varchar(255), "
+                    + "device_uid varchar(255), encoded_message varchar(8000), incoming boolean NOT NULL, "
+                    + "organisation_identification varchar(255), valid boolean NOT NULL, "
+                    + "data_size integer NOT NULL, message_id varchar(255))");
+            statement.execute("CREATE TABLE web_service_monitor_log (id bigserial PRIMARY KEY, "
+                    + "creation_time timestamp NOT NULL, modification_time timestamp NOT NULL, version bigint, "
+                    + "message_id varchar(255))");
+
+            try (final ResultSet resultSet = statement.executeQuery("SELECT current_date")) {
+                resultSet.next();
+                this.today = resultSet.getDate(1).toLocalDate();
+            }
+
+            // Stored before the partitioning.
+            this.insertLogItems(statement, this.today.minusDays(5));
+
+            for (final String migration : MIGRATIONS) {
+                statement.execute(readMigration(migration));
+            }
+
+            this.createPartition(statement, this.today.minusDays(RETENTION_DAYS + 10));
+            this.createPartition(statement, this.today.minusDays(RETENTION_DAYS - 10));
+
+            this.insertLogItems(statement, this.today.minusDays(RETENTION_DAYS + 10));
+            this.insertLogItems(statement, this.today.minusDays(RETENTION_DAYS - 10));
+            this.insertLogItems(statement, this.today);
+            // No partitions for these days.
+            this.insertLogItems(statement, this.today.minusDays(RETENTION_DAYS + 5));
+            this.insertLogItems(statement, this.today.minusDays(3));
+
+            statement.execute("ANALYZE");
+        }
+    }
+
+    @After
+    public void dropLogTables() throws SQLException {
+        if (this.connection == null) {
+            return;
+        }
+        try (final Statement statement = this.connection.createStatement()) {
+            statement.execute("DROP SCHEMA " + SCHEMA + " CASCADE");
+        }
+        this.connection.close();
+    }
+
+    @Test
+    public void testLogItemsAreStoredInThePartitionOfTheirDay() throws SQLException {
+        // Only the log items stored before the partitioning.
+        assertEquals(ITEMS_PER_DAY, this.count("SELECT count(*) FROM ONLY device_log_item"));
+        assertEquals(ITEMS_PER_DAY, this.count("SELECT count(*) FROM " + this.partition(this.today)));
+        assertEquals(ITEMS_PER_DAY,
+                this.count("SELECT count(*) FROM " + this.partition(this.today.minusDays(RETENTION_DAYS + 10))));
+        assertEquals(2 * ITEMS_PER_DAY, this.count("SELECT count(*) FROM " + DEFAULT_PARTITION));
+    }
+
+    @Test
+    public void testLogItemsStoredBeforeThePartitioningAreMovedInBatches() throws SQLException {
+        // Two batches per run, the third run moves the last batch.
+        final LogPartitionMaintenance maintenance = new LogPartitionMaintenance(
+                new SingleConnectionDataSource(this.connection, true), Collections.singletonList(TABLE),
+                RETENTION_DAYS, 2, MOVE_BATCH_SIZE, 2);
+
+        maintenance.run();
+        assertEquals(ITEMS_PER_DAY - 2 * MOVE_BATCH_SIZE, this.count("SELECT count(*) FROM ONLY device_log_item"));
+
+        maintenance.run();
+        maintenance.run();
+        assertEquals(0, this.count("SELECT count(*) FROM ONLY device_log_item"));
+        assertEquals(ITEMS_PER_DAY, this.count("SELECT count(*) FROM " + this.partition(this.today.minusDays(5))));
+    }
+
+    @Test
+    public void testQueriesOfRecentLogItemsSkipOlderPartitions() throws SQLException {
+        final Timestamp from = Timestamp.valueOf(this.today.minusDays(RETENTION_DAYS).atStartOfDay());
+        final String expired = this.partition(this.today.minusDays(RETENTION_DAYS + 10));
+        final String recent = this.partition(this.today.minusDays(RETENTION_DAYS - 10));
+
+        final String plan = this.explain(FIND_BY_MODIFICATION_TIME_AFTER, from);
+        assertTrue("Expected " + recent + " in plan:\n" + plan, plan.contains(recent));
+        assertFalse("Expected no scan of " + expired + " in plan:\n" + plan, plan.contains(expired));
+
+        final String devicePlan = this.explain(FIND_BY_DEVICE_IDENTIFICATION_AND_MODIFICATION_TIME_AFTER,
+                "DEVICE-42", from);
+        assertTrue("Expected " + recent + " in plan:\n" + devicePlan, devicePlan.contains(recent));
+        assertFalse("Expected no scan of " + expired + " in plan:\n" + devicePlan, devicePlan.contains(expired));
+    }
+
+    @Test
+    public void testMaintenanceDropsExpiredPartitionsWithTheirLogItems() throws SQLException {
+        new LogPartitionMaintenance(new SingleConnectionDataSource(this.connection, true),
+                Collections.singletonList(TABLE), RETENTION_DAYS, 2, MOVE_BATCH_SIZE, 10).run();
+
+        assertNull(this.partitionTable(this.today.minusDays(RETENTION_DAYS + 10)));
+        assertEquals(this.partition(this.today.minusDays(RETENTION_DAYS - 10)),
+                this.partitionTable(this.today.minusDays(RETENTION_DAYS - 10)));
+
+        final Timestamp oldestKept = Timestamp.valueOf(this.today.minusDays(RETENTION_DAYS).atStartOfDay());
+        try (final PreparedStatement statement = this.connection
+                .prepareStatement("SELECT count(*) FROM device_log_item WHERE modification_time < ?")) {
+            statement.setTimestamp(1, oldestKept);
+            try (final ResultSet resultSet = statement.executeQuery()) {
+                resultSet.next();
+                assertEquals(0, resultSet.getLong(1));
+            }
+        }
+        // Of the default partition only the log items of 3 days ago are kept.
+        assertEquals(ITEMS_PER_DAY, this.count("SELECT count(*) FROM " + DEFAULT_PARTITION));
+        assertEquals(4 * ITEMS_PER_DAY, this.count("SELECT count(*) FROM device_log_item"));
+    }
+
+    private void createPartition(final Statement statement, final LocalDate day) throws SQLException {
+        statement.execute("SELECT create_log_partition('" + TABLE + "', DATE '" + day + "')");
+    }
+
+    private void insertLogItems(final Statement statement, final LocalDate day) throws SQLException {
+        statement.execute("INSERT INTO device_log_item (creation_time, modification_time, version, "
+                + "device_identification, incoming, valid, data_size, message_id) SELECT ts, ts, 0, "
+                + "'DEVICE-' || i % 100, true, true, 0, 'message-' || i FROM (SELECT i, TIMESTAMP '" + day
+                + "' + i * interval '1 minute' AS ts FROM generate_series(1, " + ITEMS_PER_DAY + ") i) items");
+    }
+
+    private String partition(final LocalDate day) {
+        return TABLE + "_" + day.format(DateTimeFormatter.BASIC_ISO_DATE);
+    }
+
+    private String partitionTable(final LocalDate day) throws SQLException {
+        try (final PreparedStatement statement = this.connection.prepareStatement("SELECT to_regclass(?)::text")) {
+            statement.setString(1, this.partition(day));
+            try (final ResultSet resultSet = statement.executeQuery()) {
+                resultSet.next();
+                return resultSet.getString(1);
+            }
+        }
+    }
+
+    private long count(final String query) throws SQLException {
+        try (final Statement statement = this.connection.createStatement();
+                final ResultSet resultSet = statement.executeQuery(query)) {
+            resultSet.next();
+            return resultSet.getLong(1);
+        }
+    }
+
+    private String explain(final String query, final Object... parameters) throws SQLException {
+        final StringBuilder plan = new StringBuilder();
+        try (final PreparedStatement statement = this.connection.prepareStatement("EXPLAIN " + query)) {
+            for (int i = 0; i < parameters.length; i++) {
+                statement.setObject(i + 1, parameters[i]);
+            }
+            try (final ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    plan.append(resultSet.getString(1)).append('\n');
+                }
+            }
+        }
+        return plan.toString();
+    }
+
+    private static String readMigration(final String name) throws IOException {
+        try (final InputStream migration = LogPartitionPruningIT.class.getResourceAsStream(name);
+                final Scanner scanner = new Scanner(migration, StandardCharsets.UTF_8.name())) {
+            return scanner.useDelimiter("\\A").next();
+        }
+    }
+}